@@ -0,0 +1,160 @@
+package it.unisa.uniclass.common.Filter;
+
+import it.unisa.uniclass.common.sessione.ArchivioSessioni;
+import it.unisa.uniclass.common.sessione.ArchivioSessioniMemoria;
+import it.unisa.uniclass.common.sessione.RichiestaSessioneEsterna;
+import it.unisa.uniclass.common.sessione.service.SessioneService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sostituisce le sessioni del container con sessioni salvate in un {@link ArchivioSessioni},
+ * così più istanze di TomEE possono stare dietro un bilanciatore senza sessioni vincolate a un'istanza.
+ *
+ * L'archivio si sceglie con la proprietà di sistema {@value #PROPRIETA_ARCHIVIO}:
+ * {@code postgres} usa la tabella {@code sessioni} del database, {@code memoria} un archivio locale;
+ * senza la proprietà il filtro non interviene e restano le sessioni del container.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class FiltroSessioni implements Filter {
+
+    private static final Logger LOGGER = Logger.getLogger(FiltroSessioni.class.getName());
+
+    /**
+     * Proprietà di sistema con l'archivio delle sessioni: {@code postgres}, {@code memoria} o {@code contenitore}.
+     */
+    public static final String PROPRIETA_ARCHIVIO = "uniclass.sessione.archivio";
+
+    /**
+     * Proprietà di sistema con la durata di inattività delle sessioni, in minuti.
+     */
+    public static final String PROPRIETA_DURATA = "uniclass.sessione.durata.minuti";
+
+    /**
+     * Durata usata se la proprietà non è impostata, pari a quella predefinita di TomEE.
+     */
+    public static final int DURATA_PREDEFINITA = 30;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private SessioneService sessioneService;
+
+    //@ spec_public
+    //@ nullable
+    private ArchivioSessioni archivio;
+
+    private int durata = DURATA_PREDEFINITA * 60;
+
+    /**
+     * Setter per iniettare il SessioneService (utile per i test).
+     * @param sessioneService il service da iniettare
+     */
+    //@ requires sessioneService != null;
+    //@ ensures this.sessioneService == sessioneService;
+    public void setSessioneService(SessioneService sessioneService) {
+        this.sessioneService = sessioneService;
+    }
+
+    /**
+     * Imposta l'archivio delle sessioni, al posto di quello configurato (utile per i test).
+     * @param archivio l'archivio, oppure null per usare le sessioni del container
+     */
+    public void setArchivio(ArchivioSessioni archivio) {
+        this.archivio = archivio;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        String valore = System.getProperty(PROPRIETA_ARCHIVIO, "contenitore").trim();
+        switch (valore) {
+            case "postgres" -> archivio = sessioneService;
+            case "memoria" -> archivio = new ArchivioSessioniMemoria();
+            case "contenitore" -> archivio = null;
+            default -> {
+                LOGGER.warning("Valore non valido per " + PROPRIETA_ARCHIVIO + ": " + valore + ", uso le sessioni del container");
+                archivio = null;
+            }
+        }
+        durata = minutiDurata() * 60;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        if (archivio == null || !(servletRequest instanceof HttpServletRequest httpRequest)
+                || servletRequest instanceof RichiestaSessioneEsterna) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+        HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+        RichiestaSessioneEsterna richiesta = new RichiestaSessioneEsterna(httpRequest, httpResponse, archivio, durata, System::currentTimeMillis);
+        try {
+            filterChain.doFilter(richiesta, new RispostaSessioneEsterna(httpResponse, richiesta));
+        } finally {
+            salva(richiesta);
+        }
+    }
+
+    private static void salva(RichiestaSessioneEsterna richiesta) {
+        try {
+            richiesta.salvaSessione();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Salvataggio della sessione non riuscito", e);
+        }
+    }
+
+    /**
+     * Legge la durata configurata; un valore mancante o non valido vale {@link #DURATA_PREDEFINITA}.
+     * @return la durata di inattività, in minuti
+     */
+    //@ ensures \result > 0;
+    public static int minutiDurata() {
+        String valore = System.getProperty(PROPRIETA_DURATA);
+        if (valore == null) {
+            return DURATA_PREDEFINITA;
+        }
+        try {
+            int minuti = Integer.parseInt(valore.trim());
+            if (minuti > 0) {
+                return minuti;
+            }
+        } catch (NumberFormatException e) {
+            // valore non valido, si usa quello predefinito
+        }
+        LOGGER.warning("Valore non valido per " + PROPRIETA_DURATA + ": " + valore + ", uso " + DURATA_PREDEFINITA);
+        return DURATA_PREDEFINITA;
+    }
+
+    /**
+     * Salva la sessione prima di un redirect: il client segue subito il redirect,
+     * e la richiesta successiva può arrivare a un'altra istanza prima della fine di questa.
+     */
+    private static final class RispostaSessioneEsterna extends HttpServletResponseWrapper {
+
+        private final RichiestaSessioneEsterna richiesta;
+
+        RispostaSessioneEsterna(HttpServletResponse response, RichiestaSessioneEsterna richiesta) {
+            super(response);
+            this.richiesta = richiesta;
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            salva(richiesta);
+            super.sendRedirect(location);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Filter.super.destroy();
+    }
+}
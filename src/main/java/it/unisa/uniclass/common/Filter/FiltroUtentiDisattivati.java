@@ -0,0 +1,79 @@
+package it.unisa.uniclass.common.Filter;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Utente;
+import it.unisa.uniclass.utenti.service.UtenteService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Chiude la sessione di un accademico disattivato, o non più registrato, alla prima richiesta successiva.
+ *
+ * Le sessioni non sono indicizzate per utente, quindi la disattivazione non le può revocare direttamente:
+ * il controllo avviene quando la sessione viene ripresa. L'utente si risolve con
+ * {@link UtenteService#trovaUtente(Principale)}, che passa dalla {@link it.unisa.uniclass.utenti.service.CacheUtenti}
+ * svuotata a ogni disattivazione, su questa e sulle altre istanze. Le risorse statiche non vengono controllate.
+ *
+ * In web.xml il filtro è mappato dopo {@link FiltroSessioni}, così legge la sessione dall'archivio configurato.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class FiltroUtentiDisattivati implements Filter {
+
+    private static final Logger LOGGER = Logger.getLogger(FiltroUtentiDisattivati.class.getName());
+
+    private static final List<String> RISORSE_STATICHE = List.of("/styles/", "/scripts/", "/images/", "/Downloadable/");
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private UtenteService utenteService;
+
+    /**
+     * Setter per iniettare l'UtenteService (utile per i test).
+     * @param utenteService il service da iniettare
+     */
+    //@ requires utenteService != null;
+    //@ ensures this.utenteService == utenteService;
+    public void setUtenteService(UtenteService utenteService) {
+        this.utenteService = utenteService;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        if (servletRequest instanceof HttpServletRequest httpRequest && !statica(httpRequest)) {
+            HttpSession session = httpRequest.getSession(false);
+            Principale principale = session != null ? (Principale) session.getAttribute(Principale.ATTRIBUTO_SESSIONE) : null;
+            if (principale != null && !principale.isPersonaleTA() && !attivo(principale)) {
+                LOGGER.info("Sessione dell'accademico " + principale.getId() + " chiusa: account disattivato");
+                session.invalidate();
+            }
+        }
+        filterChain.doFilter(servletRequest, servletResponse);
+    }
+
+    private boolean attivo(Principale principale) {
+        Utente utente = utenteService.trovaUtente(principale);
+        return utente instanceof Accademico accademico && accademico.isAttivato();
+    }
+
+    private static boolean statica(HttpServletRequest request) {
+        String percorso = request.getServletPath();
+        if (percorso == null) {
+            return false;
+        }
+        for (String prefisso : RISORSE_STATICHE) {
+            if (percorso.startsWith(prefisso)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
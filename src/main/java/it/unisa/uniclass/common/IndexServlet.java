@@ -1,7 +1,8 @@
 package it.unisa.uniclass.common;
 
 import it.unisa.uniclass.orari.model.CorsoLaurea;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
+import it.unisa.uniclass.orari.service.RiferimentiService;
+import jakarta.ejb.EJB;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -15,6 +16,20 @@ import java.util.List;
 @WebServlet("/Home")
 public class IndexServlet extends HttpServlet {
 
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private RiferimentiService riferimentiService;
+
+    /**
+     * Setter per iniettare il RiferimentiService (utile per i test).
+     * @param riferimentiService il service da iniettare
+     */
+    //@ requires riferimentiService != null;
+    //@ ensures this.riferimentiService == riferimentiService;
+    public void setRiferimentiService(RiferimentiService riferimentiService) {
+        this.riferimentiService = riferimentiService;
+    }
 
 
     private void listJNDI(Context ctx, String name) throws Exception {
@@ -44,8 +59,7 @@ public class IndexServlet extends HttpServlet {
         }
 
         try {
-            CorsoLaureaService corsoLaureaService = new CorsoLaureaService();
-            List<CorsoLaurea> corsi = corsoLaureaService.trovaTutti();
+            List<CorsoLaurea> corsi = riferimentiService.trovaCorsiLaurea();
             System.out.println(corsi);
             request.setAttribute("corsi", corsi);
             request.getRequestDispatcher("index.jsp").forward(request, response);
@@ -0,0 +1,200 @@
+package it.unisa.uniclass.common.cluster;
+
+import it.unisa.uniclass.common.cluster.service.dao.NotificaRemote;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Canale delle notifiche tra le istanze dell'applicazione, su LISTEN/NOTIFY di Postgres.
+ *
+ * Cache e indici in memoria (orari, utenti, conversazioni, ricerca, topic) e le connessioni WebSocket e SSE
+ * sono locali a ogni istanza. Dopo una scrittura, chi aggiorna la propria copia locale pubblica anche una
+ * notifica con {@link #pubblica(String, String)}; le altre istanze la ricevono tramite
+ * {@link it.unisa.uniclass.common.cluster.service.AscoltatoreCluster} e applicano il gestore registrato
+ * per il suo tipo. La notifica viene inviata nella transazione del chiamante, se ce n'è una, e Postgres
+ * la consegna solo dopo il commit: un'istanza non rilegge mai dal database dati non ancora confermati.
+ *
+ * Il canale è attivo solo con la proprietà di sistema {@value #PROPRIETA} impostata a {@code postgres};
+ * altrimenti {@link #pubblica(String, String)} non fa nulla, come con una sola istanza.
+ */
+public class CanaleCluster {
+
+    private static final Logger LOGGER = Logger.getLogger(CanaleCluster.class.getName());
+
+    /**
+     * Proprietà di sistema che attiva il canale con il valore {@code postgres}.
+     */
+    public static final String PROPRIETA = "uniclass.cluster";
+
+    /**
+     * Canale LISTEN/NOTIFY usato dall'applicazione.
+     */
+    public static final String CANALE = "uniclass";
+
+    /**
+     * Dato di una notifica che riguarda tutte le voci del suo tipo.
+     */
+    public static final String TUTTI = "*";
+
+    /** Orari, aule, corsi, resti o anni modificati: nessun dato. */
+    public static final String ORARI = "orari";
+
+    /** Utente modificato: la chiave di {@code CacheUtenti}, oppure {@link #TUTTI}. */
+    public static final String UTENTE = "utente";
+
+    /** Conversazione modificata: le due matricole separate da uno spazio. */
+    public static final String CONVERSAZIONE = "conversazione";
+
+    /** Messaggi salvati: gli ID separati da virgole. */
+    public static final String MESSAGGIO = "messaggio";
+
+    /** Messaggi della chat salvati, da consegnare anche alle sessioni WebSocket: gli ID separati da virgole. */
+    public static final String CHAT = "chat";
+
+    /** Messaggio rimosso: l'ID e le due matricole separati da spazi. */
+    public static final String MESSAGGIO_RIMOSSO = "messaggio-rimosso";
+
+    /** Topic modificato o rimosso: la chiave canonica. */
+    public static final String TOPIC = "topic";
+
+    /**
+     * Dimensione massima del contenuto di una notifica accettata da Postgres, in byte.
+     */
+    public static final int DIMENSIONE_MASSIMA = 7999;
+
+    private static final CanaleCluster ISTANZA = new CanaleCluster("postgres".equals(System.getProperty(PROPRIETA, "").trim()), null);
+
+    //@ spec_public
+    private final String nodo = UUID.randomUUID().toString();
+
+    //@ spec_public
+    private final boolean attivo;
+
+    //@ spec_public
+    private final Map<String, Consumer<String>> gestori = new ConcurrentHashMap<>();
+
+    //@ spec_public
+    //@ nullable
+    private NotificaRemote notificaDao;
+
+    /**
+     * Restituisce il canale condiviso dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static CanaleCluster getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Crea un canale.
+     * @param attivo se false le notifiche non vengono pubblicate
+     * @param notificaDao il DAO con cui pubblicare, oppure null per il lookup JNDI al primo utilizzo
+     */
+    public CanaleCluster(boolean attivo, NotificaRemote notificaDao) {
+        this.attivo = attivo;
+        this.notificaDao = notificaDao;
+    }
+
+    /**
+     * @return true se le notifiche vengono pubblicate e ricevute
+     */
+    public boolean isAttivo() {
+        return attivo;
+    }
+
+    /**
+     * Registra il gestore delle notifiche di un tipo ricevute dalle altre istanze.
+     * Il gestore riceve il dato della notifica, oppure {@link #TUTTI} dopo {@link #riallinea()}.
+     * @param tipo il tipo di notifica
+     * @param gestore il gestore
+     */
+    //@ requires tipo != null && gestore != null;
+    public void registra(String tipo, Consumer<String> gestore) {
+        gestori.put(tipo, gestore);
+    }
+
+    /**
+     * Pubblica una notifica per le altre istanze. Un dato troppo lungo per Postgres viene sostituito
+     * da {@link #TUTTI}. Un errore di pubblicazione viene registrato senza interrompere il chiamante.
+     * @param tipo il tipo di notifica
+     * @param dato il dato della notifica, oppure null
+     */
+    //@ requires tipo != null;
+    public void pubblica(String tipo, String dato) {
+        if (!attivo) {
+            return;
+        }
+        String contenuto = contenuto(tipo, dato);
+        if (contenuto.getBytes(StandardCharsets.UTF_8).length > DIMENSIONE_MASSIMA) {
+            contenuto = contenuto(tipo, TUTTI);
+        }
+        try {
+            getNotificaDao().notifica(CANALE, contenuto);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Notifica " + tipo + " non pubblicata", e);
+        }
+    }
+
+    /**
+     * Applica una notifica ricevuta. Le notifiche pubblicate da questa istanza vengono ignorate,
+     * perché chi le ha pubblicate ha già aggiornato la propria copia locale.
+     * @param contenuto il contenuto della notifica
+     * @return true se la notifica è stata passata a un gestore
+     */
+    public boolean ricevi(String contenuto) {
+        if (contenuto == null) {
+            return false;
+        }
+        String[] parti = contenuto.split(" ", 3);
+        if (parti.length < 2 || nodo.equals(parti[0])) {
+            return false;
+        }
+        return applica(parti[1], parti.length == 3 ? parti[2] : "");
+    }
+
+    /**
+     * Scarta tutte le copie locali registrate, passando {@link #TUTTI} a ogni gestore.
+     * Da chiamare quando alcune notifiche possono essere andate perse, come dopo una riconnessione.
+     */
+    public void riallinea() {
+        for (String tipo : gestori.keySet()) {
+            applica(tipo, TUTTI);
+        }
+    }
+
+    private boolean applica(String tipo, String dato) {
+        Consumer<String> gestore = gestori.get(tipo);
+        if (gestore == null) {
+            return false;
+        }
+        try {
+            gestore.accept(dato);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Notifica " + tipo + " non applicata", e);
+        }
+        return true;
+    }
+
+    private String contenuto(String tipo, String dato) {
+        return nodo + " " + tipo + (dato != null ? " " + dato : "");
+    }
+
+    private synchronized NotificaRemote getNotificaDao() {
+        if (notificaDao == null) {
+            try {
+                notificaDao = (NotificaRemote) new InitialContext().lookup("java:global/UniClass-Dependability/NotificaDAO");
+            } catch (NamingException e) {
+                throw new IllegalStateException("Impossibile trovare il NotificaDAO", e);
+            }
+        }
+        return notificaDao;
+    }
+}
@@ -0,0 +1,305 @@
+package it.unisa.uniclass.common.cluster.service;
+
+import it.unisa.uniclass.common.cluster.CanaleCluster;
+import it.unisa.uniclass.conversazioni.controller.ChatEndpoint;
+import it.unisa.uniclass.conversazioni.controller.FeedAvvisi;
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.CacheConversazioni;
+import it.unisa.uniclass.conversazioni.service.IndiceMessaggi;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.conversazioni.service.RegistroTopic;
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.CacheCatalogo;
+import it.unisa.uniclass.orari.service.CacheFeed;
+import it.unisa.uniclass.orari.service.CacheOrari;
+import it.unisa.uniclass.orari.service.CacheRiferimenti;
+import it.unisa.uniclass.orari.service.IndiceAuleLibere;
+import it.unisa.uniclass.orari.service.IndiceOccupazione;
+import it.unisa.uniclass.orari.service.IndiceProssimeLezioni;
+import it.unisa.uniclass.utenti.model.Utente;
+import it.unisa.uniclass.utenti.service.CacheUtenti;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Riceve le notifiche pubblicate dalle altre istanze su {@link CanaleCluster} e aggiorna le copie locali:
+ * cache e indici degli orari, cache degli utenti, conversazioni, indice di ricerca e registro dei topic,
+ * oltre alla cache condivisa di EclipseLink per le stesse entità. I messaggi salvati altrove vengono
+ * consegnati alle sessioni WebSocket e agli stream SSE aperti su questa istanza.
+ *
+ * Un thread dedicato tiene una connessione in LISTEN sul canale {@value CanaleCluster#CANALE}. Se la connessione
+ * cade, le notifiche nel frattempo sono perse: alla riconnessione tutte le copie locali vengono scartate
+ * con {@link CanaleCluster#riallinea()}. Il thread viene fermato allo spegnimento o al redeploy.
+ * La connessione viene dal pool: prima di restituirla il thread esegue {@code UNLISTEN *}, perché chi la riceve
+ * dopo non accumuli notifiche che nessuno legge.
+ */
+@Singleton
+@Startup
+public class AscoltatoreCluster {
+
+    private static final Logger LOGGER = Logger.getLogger(AscoltatoreCluster.class.getName());
+
+    /**
+     * Attesa massima, in millisecondi, di una singola lettura delle notifiche.
+     */
+    public static final int ATTESA_NOTIFICHE = 5_000;
+
+    /**
+     * Pausa, in millisecondi, prima di riaprire una connessione caduta.
+     */
+    public static final long PAUSA_RICONNESSIONE = 5_000;
+
+    private static final Class<?>[] ENTITA_ORARI = {
+            Lezione.class, Aula.class, Resto.class, Corso.class, CorsoLaurea.class, AnnoDidattico.class
+    };
+
+    @Resource(name = "jdbc/DBUniClass")
+    //@ spec_public
+    //@ nullable
+    private DataSource dataSource;
+
+    @Resource
+    //@ spec_public
+    //@ nullable
+    private ManagedThreadFactory fabbricaThread;
+
+    @PersistenceUnit(unitName = "DBUniClassPU")
+    //@ spec_public
+    //@ nullable
+    private EntityManagerFactory emf;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private MessaggioService messaggioService;
+
+    //@ spec_public
+    private CanaleCluster canale = CanaleCluster.getIstanza();
+
+    //@ spec_public
+    private volatile boolean attivo;
+
+    //@ spec_public
+    //@ nullable
+    private Thread ascoltatore;
+
+    /**
+     * Setter per iniettare il canale (utile per i test).
+     * @param canale il canale da usare
+     */
+    public void setCanale(CanaleCluster canale) {
+        this.canale = canale;
+    }
+
+    /**
+     * Setter per iniettare il MessaggioService (utile per i test).
+     * @param messaggioService il service da iniettare
+     */
+    public void setMessaggioService(MessaggioService messaggioService) {
+        this.messaggioService = messaggioService;
+    }
+
+    /**
+     * Registra i gestori delle notifiche e, se il canale è attivo, avvia il thread di ascolto.
+     */
+    @PostConstruct
+    public void avvia() {
+        if (!canale.isAttivo()) {
+            return;
+        }
+        registraGestori();
+        attivo = true;
+        ascoltatore = fabbricaThread.newThread(this::ascolta);
+        ascoltatore.start();
+        LOGGER.info("Ascolto delle notifiche delle altre istanze sul canale " + CanaleCluster.CANALE);
+    }
+
+    /**
+     * Ferma il thread di ascolto e attende che restituisca la connessione al pool: il thread se ne accorge
+     * entro {@link #ATTESA_NOTIFICHE}. La connessione non viene chiusa da qui, perché tornerebbe nel pool ancora in LISTEN.
+     */
+    @PreDestroy
+    public void ferma() {
+        attivo = false;
+        Thread thread = ascoltatore;
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(ATTESA_NOTIFICHE + PAUSA_RICONNESSIONE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Associa a ogni tipo di notifica l'aggiornamento delle copie locali.
+     */
+    public void registraGestori() {
+        canale.registra(CanaleCluster.ORARI, dato -> {
+            CacheRiferimenti.getIstanza().svuota();
+            CacheOrari.getIstanza().svuota();
+            CacheCatalogo.getIstanza().invalida();
+            CacheFeed.getIstanza().svuota();
+            IndiceOccupazione.getIstanza().svuota();
+            IndiceAuleLibere.getIstanza().svuota();
+            IndiceProssimeLezioni.getIstanza().svuota();
+            for (Class<?> entita : ENTITA_ORARI) {
+                evict(entita);
+            }
+        });
+        canale.registra(CanaleCluster.UTENTE, dato -> {
+            if (CanaleCluster.TUTTI.equals(dato)) {
+                CacheUtenti.getIstanza().svuota();
+            } else {
+                CacheUtenti.getIstanza().invalida(dato);
+            }
+            evict(Utente.class);
+        });
+        canale.registra(CanaleCluster.CONVERSAZIONE, dato -> {
+            String[] matricole = dato.split(" ");
+            if (CanaleCluster.TUTTI.equals(dato) || matricole.length != 2) {
+                CacheConversazioni.getIstanza().svuota();
+            } else {
+                CacheConversazioni.getIstanza().invalida(matricole[0], matricole[1]);
+            }
+        });
+        canale.registra(CanaleCluster.MESSAGGIO, dato -> {
+            for (Messaggio messaggio : registraSalvati(dato)) {
+                FeedAvvisi.getIstanza().pubblica(messaggio);
+            }
+        });
+        canale.registra(CanaleCluster.CHAT, dato -> {
+            for (Messaggio messaggio : registraSalvati(dato)) {
+                ChatEndpoint.consegnaSalvato(messaggio);
+            }
+        });
+        canale.registra(CanaleCluster.MESSAGGIO_RIMOSSO, dato -> {
+            if (CanaleCluster.TUTTI.equals(dato)) {
+                // Dopo una riconnessione le voci rimaste vengono corrette dalla ricerca stessa
+                return;
+            }
+            String[] parti = dato.split(" ");
+            long id = Long.parseLong(parti[0]);
+            IndiceMessaggi.getIstanza().rimuovi(id);
+            if (parti.length == 3) {
+                CacheConversazioni.getIstanza().invalida(parti[1], parti[2]);
+            }
+            if (emf != null) {
+                emf.getCache().evict(Messaggio.class, id);
+            }
+        });
+        canale.registra(CanaleCluster.TOPIC, dato -> {
+            if (CanaleCluster.TUTTI.equals(dato)) {
+                RegistroTopic.getIstanza().svuota();
+            } else {
+                RegistroTopic.getIstanza().rimuovi(dato);
+            }
+            evict(Topic.class);
+        });
+    }
+
+    /**
+     * Aggiorna cache e indice con i messaggi notificati. Dopo una riconnessione l'indice ripete l'allineamento
+     * e le conversazioni vengono rilette dal database.
+     */
+    private List<Messaggio> registraSalvati(String dato) {
+        if (CanaleCluster.TUTTI.equals(dato)) {
+            IndiceMessaggi.getIstanza().riallinea();
+            CacheConversazioni.getIstanza().svuota();
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : dato.split(",")) {
+            ids.add(Long.parseLong(id.trim()));
+        }
+        return messaggioService.registraSalvati(ids);
+    }
+
+    private void evict(Class<?> entita) {
+        if (emf != null) {
+            Cache cache = emf.getCache();
+            cache.evict(entita);
+        }
+    }
+
+    private void ascolta() {
+        boolean riconnessione = false;
+        while (attivo) {
+            try (Connection aperta = dataSource.getConnection()) {
+                aperta.setAutoCommit(true);
+                try {
+                    try (Statement statement = aperta.createStatement()) {
+                        statement.execute("LISTEN " + CanaleCluster.CANALE);
+                    }
+                    if (riconnessione) {
+                        LOGGER.info("Canale " + CanaleCluster.CANALE + " riconnesso, copie locali scartate");
+                        canale.riallinea();
+                    }
+                    PGConnection postgres = aperta.unwrap(PGConnection.class);
+                    while (attivo) {
+                        PGNotification[] notifiche = postgres.getNotifications(ATTESA_NOTIFICHE);
+                        if (notifiche != null) {
+                            for (PGNotification notifica : notifiche) {
+                                canale.ricevi(notifica.getParameter());
+                            }
+                        }
+                    }
+                } finally {
+                    smettiDiAscoltare(aperta);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!attivo) {
+                    break;
+                }
+                LOGGER.log(Level.WARNING, "Connessione al canale " + CanaleCluster.CANALE + " interrotta, nuovo tentativo tra "
+                        + PAUSA_RICONNESSIONE + " ms", e);
+                riconnessione = true;
+                try {
+                    Thread.sleep(PAUSA_RICONNESSIONE);
+                } catch (InterruptedException interruzione) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Annulla ogni LISTEN della connessione prima che torni nel pool. Se la connessione è caduta
+     * il comando non riesce, ma in quel caso non ha più sottoscrizioni attive.
+     */
+    private void smettiDiAscoltare(Connection aperta) {
+        try (Statement statement = aperta.createStatement()) {
+            statement.execute("UNLISTEN *");
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "UNLISTEN sulla connessione in ascolto non riuscito", e);
+        }
+    }
+}
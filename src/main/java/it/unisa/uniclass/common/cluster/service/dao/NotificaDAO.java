@@ -0,0 +1,26 @@
+package it.unisa.uniclass.common.cluster.service.dao;
+
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+@Stateless(name = "NotificaDAO")
+public class NotificaDAO implements NotificaRemote {
+
+    @PersistenceContext(unitName = "DBUniClassPU")
+    private EntityManager emUniClass;
+
+    /**
+     * Invia una notifica sul canale indicato. Nella transazione del chiamante, se presente:
+     * Postgres la consegna agli ascoltatori solo dopo il commit, e la scarta con il rollback.
+     * @param canale Il canale LISTEN/NOTIFY.
+     * @param contenuto Il contenuto della notifica.
+     */
+    @Override
+    public void notifica(String canale, String contenuto) {
+        emUniClass.createNativeQuery("SELECT pg_notify(?1, ?2)")
+                .setParameter(1, canale)
+                .setParameter(2, contenuto)
+                .getSingleResult();
+    }
+}
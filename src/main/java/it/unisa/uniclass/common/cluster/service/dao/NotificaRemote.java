@@ -0,0 +1,8 @@
+package it.unisa.uniclass.common.cluster.service.dao;
+
+import jakarta.ejb.Remote;
+
+@Remote
+public interface NotificaRemote {
+    public void notifica(String canale, String contenuto);
+}
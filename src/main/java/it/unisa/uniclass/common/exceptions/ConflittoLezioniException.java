@@ -0,0 +1,25 @@
+package it.unisa.uniclass.common.exceptions;
+
+import it.unisa.uniclass.orari.model.Conflitto;
+import jakarta.ejb.ApplicationException;
+
+import java.util.List;
+
+/**
+ * Lanciata quando il salvataggio di una o più lezioni sovrapporrebbe aule, docenti o studenti.
+ * Nessuna lezione viene salvata.
+ */
+@ApplicationException(rollback = true)
+public class ConflittoLezioniException extends RuntimeException {
+
+    private final List<Conflitto> conflitti;
+
+    public ConflittoLezioniException(List<Conflitto> conflitti) {
+        super("Lezioni in conflitto: " + conflitti);
+        this.conflitti = List.copyOf(conflitti);
+    }
+
+    public List<Conflitto> getConflitti() {
+        return conflitti;
+    }
+}
@@ -0,0 +1,16 @@
+package it.unisa.uniclass.common.exceptions;
+
+/**
+ * Lanciata quando un'operazione costosa viene rifiutata perché le risorse a essa dedicate sono esaurite.
+ * Il chiamante può riprovare più tardi.
+ */
+public class ServizioSovraccaricoException extends RuntimeException {
+
+    public ServizioSovraccaricoException(String message) {
+        super(message);
+    }
+
+    public ServizioSovraccaricoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,224 @@
+package it.unisa.uniclass.common.listener;
+
+import jakarta.servlet.annotation.WebListener;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionAttributeListener;
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Misura la dimensione serializzata delle sessioni HTTP a ogni attributo aggiunto o sostituito.
+ *
+ * Viene serializzato solo l'attributo cambiato: le dimensioni degli altri restano memorizzate per sessione
+ * fino alla loro rimozione o alla distruzione della sessione. Una sessione deve contenere solo l'utente
+ * collegato e pochi valori semplici: se supera la soglia configurata con {@link #PROPRIETA_SOGLIA} viene
+ * registrato un avviso, una volta per sessione, con gli attributi che contiene. Anche gli attributi non
+ * serializzabili vengono segnalati, una volta per classe, perché impedirebbero di salvare la sessione fuori
+ * dalla memoria del server; le classi che non implementano {@link Serializable} non vengono serializzate.
+ */
+@WebListener
+public class MonitorSessioni implements HttpSessionListener, HttpSessionAttributeListener {
+
+    private static final Logger LOGGER = Logger.getLogger(MonitorSessioni.class.getName());
+
+    /**
+     * Proprietà di sistema con la soglia, in byte, oltre la quale una sessione viene segnalata.
+     */
+    public static final String PROPRIETA_SOGLIA = "uniclass.sessione.soglia";
+
+    /**
+     * Soglia usata se la proprietà non è impostata.
+     */
+    public static final int SOGLIA_PREDEFINITA = 16 * 1024;
+
+    private static final AtomicLong DIMENSIONE_MASSIMA = new AtomicLong();
+    private static final AtomicLong SESSIONI_OLTRE_SOGLIA = new AtomicLong();
+
+    // sessioni già segnalate, per non ripetere l'avviso a ogni attributo
+    private static final Set<String> SEGNALATE = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    // classi di attributi già segnalate come non serializzabili
+    private static final Set<Class<?>> CLASSI_NON_SERIALIZZABILI = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    // dimensione di ogni attributo serializzabile, per sessione
+    private static final Map<String, Map<String, Long>> DIMENSIONI = new ConcurrentHashMap<>();
+
+    private final int soglia;
+
+    /**
+     * Costruttore usato dal container, con la soglia letta dalla configurazione.
+     */
+    public MonitorSessioni() {
+        this(leggiSoglia());
+    }
+
+    /**
+     * Costruttore con una soglia esplicita.
+     * @param soglia la soglia in byte
+     */
+    //@ requires soglia > 0;
+    public MonitorSessioni(int soglia) {
+        this.soglia = soglia;
+    }
+
+    @Override
+    public void attributeAdded(HttpSessionBindingEvent event) {
+        aggiorna(event.getSession(), event.getName());
+    }
+
+    @Override
+    public void attributeReplaced(HttpSessionBindingEvent event) {
+        aggiorna(event.getSession(), event.getName());
+    }
+
+    @Override
+    public void attributeRemoved(HttpSessionBindingEvent event) {
+        Map<String, Long> dimensioni = DIMENSIONI.get(event.getSession().getId());
+        if (dimensioni != null) {
+            dimensioni.remove(event.getName());
+        }
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent se) {
+        SEGNALATE.remove(se.getSession().getId());
+        DIMENSIONI.remove(se.getSession().getId());
+    }
+
+    /**
+     * Misura tutti gli attributi di una sessione e la segnala se supera la soglia.
+     * @param sessione la sessione da misurare
+     * @return la dimensione in byte degli attributi serializzabili
+     */
+    public long controlla(HttpSession sessione) {
+        Map<String, Long> dimensioni = new ConcurrentHashMap<>();
+        Enumeration<String> nomi = sessione.getAttributeNames();
+        while (nomi.hasMoreElements()) {
+            String nome = nomi.nextElement();
+            long dimensione = dimensione(nome, sessione.getAttribute(nome));
+            if (dimensione >= 0) {
+                dimensioni.put(nome, dimensione);
+            }
+        }
+        DIMENSIONI.put(sessione.getId(), dimensioni);
+        return verifica(sessione.getId(), dimensioni);
+    }
+
+    /**
+     * Misura solo l'attributo cambiato e somma le dimensioni già note degli altri.
+     */
+    private void aggiorna(HttpSession sessione, String nome) {
+        Map<String, Long> dimensioni = DIMENSIONI.computeIfAbsent(sessione.getId(), id -> new ConcurrentHashMap<>());
+        long dimensione = dimensione(nome, sessione.getAttribute(nome));
+        if (dimensione >= 0) {
+            dimensioni.put(nome, dimensione);
+        } else {
+            dimensioni.remove(nome);
+        }
+        verifica(sessione.getId(), dimensioni);
+    }
+
+    private long verifica(String id, Map<String, Long> dimensioni) {
+        long totale = 0;
+        for (long dimensione : dimensioni.values()) {
+            totale += dimensione;
+        }
+        DIMENSIONE_MASSIMA.accumulateAndGet(totale, Math::max);
+        if (totale > soglia && SEGNALATE.add(id)) {
+            SESSIONI_OLTRE_SOGLIA.incrementAndGet();
+            StringBuilder attributi = new StringBuilder();
+            for (Map.Entry<String, Long> voce : dimensioni.entrySet()) {
+                attributi.append(' ').append(voce.getKey()).append('=').append(voce.getValue());
+            }
+            LOGGER.warning("Sessione di " + totale + " byte oltre la soglia di " + soglia + ":" + attributi);
+        }
+        return totale;
+    }
+
+    /**
+     * @return la dimensione più grande misurata finora, in byte
+     */
+    public static long getDimensioneMassima() {
+        return DIMENSIONE_MASSIMA.get();
+    }
+
+    /**
+     * @return il numero di sessioni che hanno superato la soglia
+     */
+    public static long getSessioniOltreSoglia() {
+        return SESSIONI_OLTRE_SOGLIA.get();
+    }
+
+    /**
+     * Dimensione serializzata di un attributo, oppure -1 se non è serializzabile.
+     */
+    private static long dimensione(String nome, Object valore) {
+        if (valore == null) {
+            return -1;
+        }
+        if (!(valore instanceof Serializable)) {
+            segnalaNonSerializzabile(nome, valore.getClass());
+            return -1;
+        }
+        Contatore contatore = new Contatore();
+        try (ObjectOutputStream out = new ObjectOutputStream(contatore)) {
+            out.writeObject(valore);
+        } catch (IOException e) {
+            // una classe serializzabile con un campo che non lo è
+            segnalaNonSerializzabile(nome, valore.getClass());
+            return -1;
+        }
+        return contatore.byteScritti;
+    }
+
+    private static void segnalaNonSerializzabile(String nome, Class<?> classe) {
+        if (CLASSI_NON_SERIALIZZABILI.add(classe)) {
+            LOGGER.warning("Attributo di sessione non serializzabile: " + nome + " (" + classe.getName() + ")");
+        }
+    }
+
+    private static int leggiSoglia() {
+        String valore = System.getProperty(PROPRIETA_SOGLIA);
+        if (valore == null) {
+            return SOGLIA_PREDEFINITA;
+        }
+        try {
+            int soglia = Integer.parseInt(valore.trim());
+            if (soglia > 0) {
+                return soglia;
+            }
+        } catch (NumberFormatException e) {
+            // valore non valido, si usa quello predefinito
+        }
+        LOGGER.warning("Valore non valido per " + PROPRIETA_SOGLIA + ": " + valore + ", uso " + SOGLIA_PREDEFINITA);
+        return SOGLIA_PREDEFINITA;
+    }
+
+    // conta i byte senza conservarli
+    private static final class Contatore extends OutputStream {
+        private long byteScritti;
+
+        @Override
+        public void write(int b) {
+            byteScritti++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            byteScritti += len;
+        }
+    }
+}
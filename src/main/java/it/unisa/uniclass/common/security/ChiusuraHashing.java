@@ -0,0 +1,22 @@
+package it.unisa.uniclass.common.security;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+
+/**
+ * Lega il pool di {@link EsecutoreHashing} al ciclo di vita dell'applicazione: allo spegnimento
+ * o al redeploy ne arresta i thread, che altrimenti resterebbero attivi con il vecchio classloader.
+ */
+@Singleton
+@Startup
+public class ChiusuraHashing {
+
+    /**
+     * Arresta il pool condiviso prima che il container rilasci l'applicazione.
+     */
+    @PreDestroy
+    public void chiudi() {
+        EsecutoreHashing.chiudiIstanza();
+    }
+}
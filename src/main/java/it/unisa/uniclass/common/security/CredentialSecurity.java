@@ -1,25 +1,213 @@
 package it.unisa.uniclass.common.security;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.logging.Logger;
 
+/**
+ * Hashing e verifica delle password degli utenti.
+ *
+ * Le password vengono salvate con PBKDF2-HMAC-SHA256, un sale casuale e un numero di iterazioni configurabile,
+ * nel formato {@code pbkdf2-sha256$iterazioni$sale$hash} (sale e hash in Base64). Gli hash SHA-256 esadecimali
+ * senza sale delle versioni precedenti sono ancora accettati da {@link #verificaPassword(String, String)};
+ * {@link #richiedeRehash(String)} segnala quando un hash salvato va ricalcolato al login successivo.
+ *
+ * Il calcolo è volutamente costoso: dalle servlet va eseguito tramite {@link EsecutoreHashing}.
+ */
 public class CredentialSecurity {
+
+    private static final Logger LOGGER = Logger.getLogger(CredentialSecurity.class.getName());
+
+    /**
+     * Proprietà di sistema con il numero di iterazioni di PBKDF2 per i nuovi hash.
+     */
+    public static final String PROPRIETA_ITERAZIONI = "uniclass.password.iterazioni";
+
+    /**
+     * Iterazioni usate se la proprietà non è impostata, raccomandate da OWASP per PBKDF2-HMAC-SHA256.
+     * Il benchmark {@code BenchmarkHashingPassword} aiuta a sceglierle in base al tempo concesso a un login.
+     */
+    public static final int ITERAZIONI_PREDEFINITE = 310_000;
+
+    /**
+     * Numero minimo di iterazioni accettato dalla configurazione.
+     */
+    public static final int ITERAZIONI_MINIME = 10_000;
+
+    private static final String PREFISSO = "pbkdf2-sha256";
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final int BYTE_SALE = 16;
+    private static final int BIT_CHIAVE = 256;
+    private static final int LUNGHEZZA_SHA256_ESADECIMALE = 64;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // MessageDigest e SecretKeyFactory non sono thread-safe: una istanza per thread evita di crearne una a ogni hash
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ThreadLocal<SecretKeyFactory> PBKDF2 = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final int ITERAZIONI = leggiIterazioni();
+
+    /**
+     * Calcola l'hash di una password con un sale nuovo e le iterazioni configurate.
+     * @param password la password in chiaro
+     * @return l'hash codificato, da salvare al posto della password
+     */
+    //@ requires password != null;
+    //@ ensures \result != null;
     public static String hashPassword(String password) {
+        return hashPassword(password, ITERAZIONI);
+    }
+
+    /**
+     * Calcola l'hash di una password con un sale nuovo e il numero di iterazioni indicato.
+     * @param password la password in chiaro
+     * @param iterazioni le iterazioni di PBKDF2
+     * @return l'hash codificato
+     */
+    //@ requires password != null && iterazioni > 0;
+    //@ ensures \result != null;
+    public static String hashPassword(String password, int iterazioni) {
+        byte[] sale = new byte[BYTE_SALE];
+        RANDOM.nextBytes(sale);
+        byte[] hash = pbkdf2(password, sale, iterazioni);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFISSO + "$" + iterazioni + "$" + base64.encodeToString(sale) + "$" + base64.encodeToString(hash);
+    }
+
+    /**
+     * Verifica una password in chiaro contro l'hash salvato, in tempo costante rispetto al contenuto.
+     * Accetta sia gli hash PBKDF2 sia gli hash SHA-256 senza sale delle versioni precedenti.
+     * @param password la password in chiaro
+     * @param memorizzata l'hash salvato
+     * @return true se la password corrisponde, false altrimenti o se l'hash salvato non è valido
+     */
+    public static boolean verificaPassword(String password, String memorizzata) {
+        if (password == null || memorizzata == null) {
+            return false;
+        }
+        if (isLegacy(memorizzata)) {
+            return MessageDigest.isEqual(memorizzata.getBytes(StandardCharsets.US_ASCII),
+                    sha256(password).getBytes(StandardCharsets.US_ASCII));
+        }
+        String[] parti = memorizzata.split("\\$");
+        if (parti.length != 4 || !PREFISSO.equals(parti[0])) {
+            return false;
+        }
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(password.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder(2 * hash.length);
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
+            int iterazioni = Integer.parseInt(parti[1]);
+            byte[] sale = Base64.getDecoder().decode(parti[2]);
+            byte[] atteso = Base64.getDecoder().decode(parti[3]);
+            if (iterazioni <= 0 || atteso.length == 0) {
+                return false;
             }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            return MessageDigest.isEqual(atteso, pbkdf2(password, sale, iterazioni, atteso.length * 8));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Indica se un hash salvato va ricalcolato dopo un login riuscito: è un hash SHA-256 senza sale,
+     * oppure usa meno iterazioni di quelle configurate.
+     * @param memorizzata l'hash salvato
+     * @return true se l'hash va sostituito con uno nuovo
+     */
+    public static boolean richiedeRehash(String memorizzata) {
+        if (memorizzata == null) {
+            return false;
+        }
+        if (isLegacy(memorizzata)) {
+            return true;
+        }
+        String[] parti = memorizzata.split("\\$");
+        try {
+            return parti.length == 4 && PREFISSO.equals(parti[0]) && Integer.parseInt(parti[1]) < ITERAZIONI;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return le iterazioni usate per i nuovi hash
+     */
+    public static int getIterazioni() {
+        return ITERAZIONI;
+    }
+
+    private static boolean isLegacy(String memorizzata) {
+        if (memorizzata.length() != LUNGHEZZA_SHA256_ESADECIMALE) {
+            return false;
+        }
+        for (int i = 0; i < memorizzata.length(); i++) {
+            if (Character.digit(memorizzata.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sha256(String password) {
+        byte[] hash = SHA256.get().digest(password.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexString = new StringBuilder(2 * hash.length);
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+
+    private static byte[] pbkdf2(String password, byte[] sale, int iterazioni) {
+        return pbkdf2(password, sale, iterazioni, BIT_CHIAVE);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] sale, int iterazioni, int bit) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), sale, iterazioni, bit);
+        try {
+            return PBKDF2.get().generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static int leggiIterazioni() {
+        String valore = System.getProperty(PROPRIETA_ITERAZIONI);
+        if (valore == null) {
+            return ITERAZIONI_PREDEFINITE;
+        }
+        try {
+            int iterazioni = Integer.parseInt(valore.trim());
+            if (iterazioni >= ITERAZIONI_MINIME) {
+                return iterazioni;
+            }
+        } catch (NumberFormatException e) {
+            // valore non valido, si usa quello predefinito
         }
+        LOGGER.warning("Valore non valido per " + PROPRIETA_ITERAZIONI + ": " + valore + ", uso " + ITERAZIONI_PREDEFINITE);
+        return ITERAZIONI_PREDEFINITE;
     }
 }
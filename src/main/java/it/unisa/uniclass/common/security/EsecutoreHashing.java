@@ -0,0 +1,226 @@
+package it.unisa.uniclass.common.security;
+
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Pool di thread dedicato all'hashing delle password, con un numero fisso di thread e una coda limitata.
+ *
+ * PBKDF2 occupa la CPU per decine di millisecondi: eseguito sul thread della richiesta, un picco di login
+ * terrebbe occupati i thread del server che servono gli orari. Con il pool, al più {@link #getThread()}
+ * hash sono calcolati insieme; quando anche la coda è piena le nuove richieste vengono rifiutate subito
+ * con {@link ServizioSovraccaricoException}, invece di accumularsi.
+ */
+public class EsecutoreHashing {
+
+    private static final Logger LOGGER = Logger.getLogger(EsecutoreHashing.class.getName());
+
+    /**
+     * Proprietà di sistema con il numero di thread del pool.
+     */
+    public static final String PROPRIETA_THREAD = "uniclass.hashing.thread";
+
+    /**
+     * Proprietà di sistema con il numero massimo di richieste in attesa.
+     */
+    public static final String PROPRIETA_CODA = "uniclass.hashing.coda";
+
+    /**
+     * Richieste in attesa ammesse se la proprietà non è impostata.
+     */
+    public static final int CODA_PREDEFINITA = 64;
+
+    /**
+     * Tempo massimo di attesa di un hash, in millisecondi, coda compresa.
+     */
+    public static final long ATTESA_MASSIMA = 5_000;
+
+    //@ spec_public
+    //@ nullable
+    private static EsecutoreHashing istanza;
+
+    private final ThreadPoolExecutor pool;
+    private final int thread;
+    private final AtomicLong rifiutate = new AtomicLong();
+
+    /**
+     * Arresta il pool condiviso, se è stato creato; la successiva chiamata a {@link #getIstanza} ne crea uno nuovo.
+     */
+    public static synchronized void chiudiIstanza() {
+        if (istanza != null) {
+            istanza.chiudi();
+            istanza = null;
+        }
+    }
+
+    /**
+     * Restituisce il pool condiviso dall'applicazione, creandolo al primo utilizzo.
+     * I thread predefiniti sono metà dei processori, così il resto resta al server.
+     * @return l'istanza condivisa
+     */
+    public static synchronized EsecutoreHashing getIstanza() {
+        if (istanza == null) {
+            int processori = Runtime.getRuntime().availableProcessors();
+            istanza = new EsecutoreHashing(leggi(PROPRIETA_THREAD, Math.max(1, processori / 2)),
+                    leggi(PROPRIETA_CODA, CODA_PREDEFINITA));
+        }
+        return istanza;
+    }
+
+    /**
+     * Crea un pool con il numero di thread e la coda indicati.
+     * @param thread i thread che calcolano gli hash
+     * @param coda le richieste che possono attendere un thread libero
+     */
+    //@ requires thread > 0 && coda > 0;
+    public EsecutoreHashing(int thread, int coda) {
+        this.thread = thread;
+        AtomicInteger contatore = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(thread, thread, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(coda), r -> {
+                    Thread t = new Thread(r, "hashing-password-" + contatore.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Verifica una password contro l'hash salvato su un thread del pool.
+     * @param password la password in chiaro
+     * @param memorizzata l'hash salvato
+     * @return true se la password corrisponde
+     * @throws ServizioSovraccaricoException se il pool è saturo o la verifica non termina in tempo
+     */
+    public boolean verifica(String password, String memorizzata) {
+        return esegui(() -> CredentialSecurity.verificaPassword(password, memorizzata));
+    }
+
+    /**
+     * Calcola l'hash di una password su un thread del pool.
+     * @param password la password in chiaro
+     * @return l'hash codificato
+     * @throws ServizioSovraccaricoException se il pool è saturo o l'hash non termina in tempo
+     */
+    public String hash(String password) {
+        return esegui(() -> CredentialSecurity.hashPassword(password));
+    }
+
+    /**
+     * Calcola gli hash di più password in parallelo, a gruppi di {@link #getThread()}:
+     * un gruppo viene inviato al pool solo quando il precedente è completato, così le verifiche dei login
+     * accodate nel frattempo attendono al più un gruppo e la coda non si riempie.
+     * @param password le password in chiaro
+     * @return gli hash, nello stesso ordine delle password
+     * @throws ServizioSovraccaricoException se il pool è saturo o un hash non termina in tempo
+     */
+    //@ requires password != null;
+    //@ ensures \result.size() == password.size();
+    public List<String> hashTutte(List<String> password) {
+        List<String> hash = new ArrayList<>(password.size());
+        for (int inizio = 0; inizio < password.size(); inizio += thread) {
+            List<Future<String>> gruppo = new ArrayList<>(thread);
+            try {
+                for (String chiaro : password.subList(inizio, Math.min(password.size(), inizio + thread))) {
+                    gruppo.add(invia(() -> CredentialSecurity.hashPassword(chiaro)));
+                }
+                for (Future<String> futuro : gruppo) {
+                    hash.add(attendi(futuro));
+                }
+            } catch (ServizioSovraccaricoException e) {
+                gruppo.forEach(futuro -> futuro.cancel(true));
+                throw e;
+            }
+        }
+        return hash;
+    }
+
+    private <T> T esegui(Callable<T> calcolo) {
+        return attendi(invia(calcolo));
+    }
+
+    private <T> Future<T> invia(Callable<T> calcolo) {
+        try {
+            return pool.submit(calcolo);
+        } catch (RejectedExecutionException e) {
+            rifiutate.incrementAndGet();
+            throw new ServizioSovraccaricoException("Troppe richieste di hashing in attesa", e);
+        }
+    }
+
+    private <T> T attendi(Future<T> futuro) {
+        try {
+            return futuro.get(ATTESA_MASSIMA, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rifiutate.incrementAndGet();
+            throw new ServizioSovraccaricoException("Hashing non completato entro " + ATTESA_MASSIMA + " ms", e);
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServizioSovraccaricoException("Attesa dell'hashing interrotta", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return il numero di thread del pool
+     */
+    public int getThread() {
+        return thread;
+    }
+
+    /**
+     * @return le richieste in attesa di un thread libero
+     */
+    public int getInCoda() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * @return le richieste rifiutate perché il pool era saturo o in ritardo
+     */
+    public long getRifiutate() {
+        return rifiutate.get();
+    }
+
+    /**
+     * Arresta il pool; le richieste già accodate vengono completate.
+     */
+    public void chiudi() {
+        pool.shutdown();
+    }
+
+    private static int leggi(String proprieta, int predefinito) {
+        String valore = System.getProperty(proprieta);
+        if (valore == null) {
+            return predefinito;
+        }
+        try {
+            int numero = Integer.parseInt(valore.trim());
+            if (numero > 0) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // valore non valido, si usa quello predefinito
+        }
+        LOGGER.warning("Valore non valido per " + proprieta + ": " + valore + ", uso " + predefinito);
+        return predefinito;
+    }
+}
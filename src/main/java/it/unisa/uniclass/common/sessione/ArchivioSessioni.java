@@ -0,0 +1,50 @@
+package it.unisa.uniclass.common.sessione;
+
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+
+/**
+ * Archivio delle sessioni HTTP esterno al container, usato da {@link SessioneEsterna}.
+ * Con un archivio condiviso, come quello su Postgres di
+ * {@link it.unisa.uniclass.common.sessione.service.SessioneService}, più istanze di TomEE possono servire
+ * lo stesso utente senza sessioni legate a un'unica istanza.
+ */
+public interface ArchivioSessioni {
+
+    /**
+     * Legge una sessione non ancora scaduta.
+     * @param id l'ID della sessione
+     * @param adesso l'istante corrente, in millisecondi
+     * @return la sessione, oppure null se non esiste o è scaduta
+     */
+    SessioneSalvata carica(String id, long adesso);
+
+    /**
+     * Inserisce una sessione o ne sostituisce gli attributi, solo se la versione salvata è ancora quella
+     * di {@code sessione} e la sessione non è stata invalidata. Una sessione con versione 0 viene inserita
+     * solo se l'ID è libero. Se la scrittura riesce, la versione salvata aumenta di uno.
+     * @param sessione la sessione da salvare, con la versione letta
+     * @return true se la sessione è stata scritta, false se un'altra richiesta l'ha modificata o invalidata
+     */
+    boolean salva(SessioneSalvata sessione);
+
+    /**
+     * Prolunga una sessione senza riscriverne gli attributi.
+     * @param id l'ID della sessione
+     * @param scadenza la nuova scadenza, in millisecondi
+     */
+    void rinnova(String id, long scadenza);
+
+    /**
+     * Invalida una sessione. La sessione non viene più caricata e nessun salvataggio successivo,
+     * anche di una richiesta già in corso, può ripristinarla.
+     * @param id l'ID della sessione
+     */
+    void elimina(String id);
+
+    /**
+     * Rimuove le sessioni scadute.
+     * @param adesso l'istante corrente, in millisecondi
+     * @return il numero di sessioni rimosse
+     */
+    int eliminaScadute(long adesso);
+}
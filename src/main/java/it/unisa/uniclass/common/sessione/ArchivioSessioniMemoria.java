@@ -0,0 +1,69 @@
+package it.unisa.uniclass.common.sessione;
+
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Archivio delle sessioni nella memoria dell'istanza corrente.
+ * Non permette di distribuire il carico su più istanze: serve allo sviluppo locale e ai test
+ * del percorso di {@link SessioneEsterna} senza un database.
+ */
+public class ArchivioSessioniMemoria implements ArchivioSessioni {
+
+    private final Map<String, SessioneSalvata> sessioni = new ConcurrentHashMap<>();
+
+    @Override
+    public SessioneSalvata carica(String id, long adesso) {
+        SessioneSalvata sessione = sessioni.get(id);
+        return sessione != null && !sessione.isInvalidata() && sessione.getScadenza() > adesso ? sessione : null;
+    }
+
+    @Override
+    public boolean salva(SessioneSalvata sessione) {
+        boolean[] scritta = new boolean[1];
+        sessioni.compute(sessione.getId(), (chiave, attuale) -> {
+            boolean libera = attuale == null
+                    ? sessione.getVersione() == 0
+                    : !attuale.isInvalidata() && attuale.getVersione() == sessione.getVersione();
+            if (!libera) {
+                return attuale;
+            }
+            scritta[0] = true;
+            return new SessioneSalvata(chiave, sessione.getDati(), sessione.getCreazione(), sessione.getScadenza(),
+                    sessione.getVersione() + 1);
+        });
+        return scritta[0];
+    }
+
+    @Override
+    public void rinnova(String id, long scadenza) {
+        sessioni.computeIfPresent(id, (chiave, sessione) -> sessione.isInvalidata() ? sessione
+                : new SessioneSalvata(chiave, sessione.getDati(), sessione.getCreazione(), scadenza, sessione.getVersione()));
+    }
+
+    @Override
+    public void elimina(String id) {
+        sessioni.computeIfPresent(id, (chiave, sessione) -> {
+            SessioneSalvata invalidata = new SessioneSalvata(chiave, new byte[0], sessione.getCreazione(),
+                    sessione.getScadenza(), sessione.getVersione());
+            invalidata.setInvalidata(true);
+            return invalidata;
+        });
+    }
+
+    @Override
+    public int eliminaScadute(long adesso) {
+        int prima = sessioni.size();
+        sessioni.values().removeIf(sessione -> sessione.getScadenza() <= adesso);
+        return Math.max(0, prima - sessioni.size());
+    }
+
+    /**
+     * @return il numero di sessioni salvate, scadute e invalidate comprese
+     */
+    public int getDimensione() {
+        return sessioni.size();
+    }
+}
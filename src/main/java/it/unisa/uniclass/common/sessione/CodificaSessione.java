@@ -0,0 +1,164 @@
+package it.unisa.uniclass.common.sessione;
+
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Codifica binaria compatta degli attributi di una sessione.
+ *
+ * Il {@link Principale} e i valori semplici (stringhe, numeri, booleani) sono scritti campo per campo:
+ * una sessione con l'utente collegato occupa meno di cento byte, contro alcune centinaia della
+ * serializzazione Java. Gli altri valori serializzabili ricadono sulla serializzazione Java.
+ *
+ * Formato: versione, numero di attributi, poi per ogni attributo nome, etichetta del tipo e valore.
+ */
+public final class CodificaSessione {
+
+    private static final byte VERSIONE = 1;
+
+    private static final byte STRINGA = 0;
+    private static final byte PRINCIPALE = 1;
+    private static final byte INTERO = 2;
+    private static final byte LUNGO = 3;
+    private static final byte BOOLEANO = 4;
+    private static final byte JAVA = 9;
+
+    private static final Tipo[] TIPI = Tipo.values();
+
+    private CodificaSessione() {
+    }
+
+    /**
+     * Codifica gli attributi di una sessione.
+     * @param attributi gli attributi, con valori non null
+     * @return i byte codificati
+     * @throws NotSerializableException se un valore non è serializzabile
+     */
+    //@ requires attributi != null;
+    //@ ensures \result != null;
+    public static byte[] codifica(Map<String, Object> attributi) throws NotSerializableException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSIONE);
+            out.writeShort(attributi.size());
+            for (Map.Entry<String, Object> attributo : attributi.entrySet()) {
+                out.writeUTF(attributo.getKey());
+                scriviValore(out, attributo.getKey(), attributo.getValue());
+            }
+        } catch (NotSerializableException e) {
+            throw e;
+        } catch (IOException e) {
+            // Uno stream in memoria non fallisce
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica gli attributi di una sessione.
+     * @param dati i byte prodotti da {@link #codifica(Map)}
+     * @return gli attributi, nell'ordine in cui erano stati codificati
+     * @throws IOException se i byte non sono validi o un valore non può essere ricostruito
+     */
+    //@ requires dati != null;
+    //@ ensures \result != null;
+    public static Map<String, Object> decodifica(byte[] dati) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(dati))) {
+            byte versione = in.readByte();
+            if (versione != VERSIONE) {
+                throw new StreamCorruptedException("Versione della codifica non supportata: " + versione);
+            }
+            int numero = in.readUnsignedShort();
+            Map<String, Object> attributi = new LinkedHashMap<>();
+            for (int i = 0; i < numero; i++) {
+                String nome = in.readUTF();
+                attributi.put(nome, leggiValore(in));
+            }
+            return attributi;
+        }
+    }
+
+    private static void scriviValore(DataOutputStream out, String nome, Object valore) throws IOException {
+        if (valore instanceof String stringa) {
+            out.writeByte(STRINGA);
+            out.writeUTF(stringa);
+        } else if (valore instanceof Principale principale) {
+            out.writeByte(PRINCIPALE);
+            out.writeUTF(principale.getId());
+            scriviFacoltativa(out, principale.getEmail());
+            out.writeByte(principale.getTipo() != null ? principale.getTipo().ordinal() : -1);
+        } else if (valore instanceof Integer intero) {
+            out.writeByte(INTERO);
+            out.writeInt(intero);
+        } else if (valore instanceof Long lungo) {
+            out.writeByte(LUNGO);
+            out.writeLong(lungo);
+        } else if (valore instanceof Boolean booleano) {
+            out.writeByte(BOOLEANO);
+            out.writeBoolean(booleano);
+        } else if (valore instanceof Serializable) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oggetto = new ObjectOutputStream(bytes)) {
+                oggetto.writeObject(valore);
+            }
+            out.writeByte(JAVA);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        } else {
+            throw new NotSerializableException("Attributo di sessione non serializzabile: " + nome);
+        }
+    }
+
+    private static Object leggiValore(DataInputStream in) throws IOException {
+        byte etichetta = in.readByte();
+        switch (etichetta) {
+            case STRINGA:
+                return in.readUTF();
+            case PRINCIPALE:
+                String id = in.readUTF();
+                String email = leggiFacoltativa(in);
+                byte tipo = in.readByte();
+                return new Principale(id, email, tipo >= 0 && tipo < TIPI.length ? TIPI[tipo] : null);
+            case INTERO:
+                return in.readInt();
+            case LUNGO:
+                return in.readLong();
+            case BOOLEANO:
+                return in.readBoolean();
+            case JAVA:
+                byte[] oggetto = new byte[in.readInt()];
+                in.readFully(oggetto);
+                try (ObjectInputStream lettore = new ObjectInputStream(new ByteArrayInputStream(oggetto))) {
+                    return lettore.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            default:
+                throw new StreamCorruptedException("Tipo di attributo sconosciuto: " + etichetta);
+        }
+    }
+
+    private static void scriviFacoltativa(DataOutputStream out, String valore) throws IOException {
+        out.writeBoolean(valore != null);
+        if (valore != null) {
+            out.writeUTF(valore);
+        }
+    }
+
+    private static String leggiFacoltativa(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
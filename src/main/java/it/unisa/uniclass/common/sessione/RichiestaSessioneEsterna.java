@@ -0,0 +1,139 @@
+package it.unisa.uniclass.common.sessione;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Richiesta che restituisce una {@link SessioneEsterna} al posto della sessione del container.
+ * L'ID della sessione viaggia nel cookie {@link #NOME_COOKIE}; il cookie viene impostato appena
+ * la sessione riceve un ID nuovo, prima che la risposta venga inviata.
+ */
+public class RichiestaSessioneEsterna extends HttpServletRequestWrapper {
+
+    /**
+     * Nome del cookie con l'ID della sessione.
+     */
+    public static final String NOME_COOKIE = "UNICLASS_SESSIONE";
+
+    private final HttpServletResponse response;
+    private final ArchivioSessioni archivio;
+    private final int durata;
+    private final LongSupplier orologio;
+    //@ nullable
+    private final String idRichiesto;
+
+    //@ spec_public
+    //@ nullable
+    private SessioneEsterna sessione;
+
+    // true se la sessione è stata creata o richiesta con getSession(true) durante questa richiesta
+    private boolean creata;
+
+    /**
+     * Crea la richiesta.
+     * @param request la richiesta del container
+     * @param response la risposta, su cui impostare il cookie
+     * @param archivio l'archivio delle sessioni
+     * @param durata la durata di inattività di una sessione, in secondi
+     * @param orologio la sorgente del tempo corrente, in millisecondi
+     */
+    //@ requires request != null && response != null && archivio != null && durata > 0;
+    public RichiestaSessioneEsterna(HttpServletRequest request, HttpServletResponse response, ArchivioSessioni archivio,
+                                    int durata, LongSupplier orologio) {
+        super(request);
+        this.response = response;
+        this.archivio = archivio;
+        this.durata = durata;
+        this.orologio = orologio;
+        this.idRichiesto = leggiCookie(request);
+    }
+
+    private static String leggiCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (NOME_COOKIE.equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void impostaCookie(String id) {
+        Cookie cookie = new Cookie(NOME_COOKIE, id);
+        String percorso = getContextPath();
+        cookie.setPath(percorso == null || percorso.isEmpty() ? "/" : percorso);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(isSecure());
+        response.addCookie(cookie);
+    }
+
+    /**
+     * Restituisce la sessione della richiesta. Con {@code create} false, un cookie con un ID scaduto,
+     * invalidato o sconosciuto non dà una sessione: in quel caso l'archivio viene letto subito.
+     */
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (sessione == null && idRichiesto != null) {
+            sessione = SessioneEsterna.esistente(idRichiesto, archivio, getServletContext(), durata, orologio, this::impostaCookie);
+        }
+        if (sessione != null && !sessione.isInvalidata()) {
+            if (create) {
+                creata = true;
+                return sessione;
+            }
+            return creata || !sessione.isNew() ? sessione : null;
+        }
+        if (!create) {
+            return null;
+        }
+        sessione = SessioneEsterna.nuova(archivio, getServletContext(), durata, orologio, this::impostaCookie);
+        creata = true;
+        return sessione;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public String changeSessionId() {
+        HttpSession corrente = getSession(false);
+        if (corrente == null) {
+            throw new IllegalStateException("Nessuna sessione associata alla richiesta");
+        }
+        return ((SessioneEsterna) corrente).cambiaId();
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return idRichiesto;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return idRichiesto != null;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    /**
+     * Salva la sessione usata durante la richiesta, se c'è.
+     */
+    public void salvaSessione() {
+        if (sessione != null) {
+            sessione.salva();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package it.unisa.uniclass.common.sessione;
+
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sessione HTTP salvata in un {@link ArchivioSessioni} invece che nella memoria del container.
+ *
+ * Gli attributi vengono letti dall'archivio solo al primo accesso: una richiesta che non usa la sessione
+ * non interroga il database. A fine richiesta {@link #salva()} riscrive gli attributi solo se sono cambiati;
+ * altrimenti prolunga la scadenza, e solo quando ne è trascorsa più di metà, così le richieste di una
+ * sessione attiva non scrivono a ogni accesso.
+ *
+ * Un valore modificato senza chiamare {@link #setAttribute(String, Object)} non viene salvato:
+ * gli attributi devono essere immutabili, come il {@link it.unisa.uniclass.utenti.model.Principale}.
+ *
+ * Il salvataggio parte dalla versione letta. Se nel frattempo un'altra richiesta, anche su un'altra istanza,
+ * ha riscritto la sessione, le modifiche di questa richiesta vengono riapplicate sugli attributi riletti;
+ * se invece la sessione è stata invalidata, le modifiche vengono scartate e la sessione non viene ripristinata.
+ */
+public class SessioneEsterna implements HttpSession {
+
+    private static final Logger LOGGER = Logger.getLogger(SessioneEsterna.class.getName());
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int BYTE_ID = 32;
+
+    /**
+     * Numero massimo di scritture tentate da {@link #salva()} quando la sessione viene riscritta in concorrenza.
+     */
+    public static final int TENTATIVI_SALVATAGGIO = 3;
+
+    private final ArchivioSessioni archivio;
+    private final ServletContext servletContext;
+    private final LongSupplier orologio;
+    private final Consumer<String> nuovoId;
+
+    //@ spec_public
+    private String id;
+
+    // null finché gli attributi non vengono letti dall'archivio
+    //@ spec_public
+    //@ nullable
+    private Map<String, Object> attributi;
+
+    // Attributi impostati o rimossi (valore null) durante la richiesta, da riapplicare in caso di conflitto
+    private final Map<String, Object> modifiche = new HashMap<>();
+
+    // Versione letta dall'archivio, 0 se la sessione non è ancora salvata
+    private long versione;
+
+    private long creazione;
+    private long scadenzaSalvata;
+    private int durata;
+    private final long accesso;
+
+    // true se l'archivio non contiene ancora la sessione
+    private boolean nuova;
+    // true se l'ID è già stato comunicato al client
+    private boolean idEmesso;
+    private boolean sporca;
+    private boolean invalidata;
+
+    /**
+     * Crea la sessione per l'ID ricevuto nel cookie, senza leggere l'archivio.
+     * @param id l'ID ricevuto dal client
+     * @param archivio l'archivio delle sessioni
+     * @param servletContext il contesto dell'applicazione
+     * @param durata la durata di inattività, in secondi
+     * @param orologio la sorgente del tempo corrente, in millisecondi
+     * @param nuovoId chiamato quando la sessione riceve un nuovo ID da comunicare al client
+     * @return la sessione
+     */
+    //@ requires id != null && archivio != null && durata > 0;
+    public static SessioneEsterna esistente(String id, ArchivioSessioni archivio, ServletContext servletContext,
+                                            int durata, LongSupplier orologio, Consumer<String> nuovoId) {
+        SessioneEsterna sessione = new SessioneEsterna(id, archivio, servletContext, durata, orologio, nuovoId);
+        sessione.idEmesso = true;
+        return sessione;
+    }
+
+    /**
+     * Crea una sessione nuova, vuota, e ne comunica l'ID al client.
+     * @param archivio l'archivio delle sessioni
+     * @param servletContext il contesto dell'applicazione
+     * @param durata la durata di inattività, in secondi
+     * @param orologio la sorgente del tempo corrente, in millisecondi
+     * @param nuovoId chiamato con l'ID da comunicare al client
+     * @return la sessione
+     */
+    //@ requires archivio != null && durata > 0;
+    public static SessioneEsterna nuova(ArchivioSessioni archivio, ServletContext servletContext,
+                                        int durata, LongSupplier orologio, Consumer<String> nuovoId) {
+        SessioneEsterna sessione = new SessioneEsterna(generaId(), archivio, servletContext, durata, orologio, nuovoId);
+        sessione.attributi = new HashMap<>();
+        sessione.creazione = sessione.accesso;
+        sessione.nuova = true;
+        sessione.emettiId();
+        return sessione;
+    }
+
+    private SessioneEsterna(String id, ArchivioSessioni archivio, ServletContext servletContext,
+                            int durata, LongSupplier orologio, Consumer<String> nuovoId) {
+        this.id = id;
+        this.archivio = archivio;
+        this.servletContext = servletContext;
+        this.durata = durata;
+        this.orologio = orologio;
+        this.nuovoId = nuovoId;
+        this.accesso = orologio.getAsLong();
+    }
+
+    /**
+     * Genera un ID di sessione casuale da 256 bit.
+     * @return l'ID, in Base64 per URL
+     */
+    public static String generaId() {
+        byte[] bytes = new byte[BYTE_ID];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private void carica() {
+        if (invalidata) {
+            throw new IllegalStateException("Sessione invalidata");
+        }
+        if (attributi != null) {
+            return;
+        }
+        SessioneSalvata salvata = archivio.carica(id, accesso);
+        if (salvata != null) {
+            try {
+                attributi = new HashMap<>(CodificaSessione.decodifica(salvata.getDati()));
+                creazione = salvata.getCreazione();
+                scadenzaSalvata = salvata.getScadenza();
+                versione = salvata.getVersione();
+                return;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Sessione " + id + " non leggibile, la si tratta come scaduta", e);
+            }
+        }
+        // Sessione scaduta o sconosciuta: l'ID ricevuto non viene riusato, per non salvare un ID scelto dal client
+        attributi = new HashMap<>();
+        creazione = accesso;
+        nuova = true;
+        idEmesso = false;
+    }
+
+    private void emettiId() {
+        idEmesso = true;
+        nuovoId.accept(id);
+    }
+
+    private void modificata() {
+        sporca = true;
+        if (!idEmesso) {
+            id = generaId();
+            emettiId();
+        }
+    }
+
+    /**
+     * Salva la sessione nell'archivio se gli attributi sono cambiati, oppure ne prolunga la scadenza.
+     * Una sessione mai letta né modificata durante la richiesta non viene toccata.
+     */
+    public void salva() {
+        if (invalidata || attributi == null) {
+            return;
+        }
+        long adesso = orologio.getAsLong();
+        long scadenza = adesso + durata * 1000L;
+        if (sporca) {
+            boolean scritta = false;
+            for (int tentativo = 1; !scritta; tentativo++) {
+                scritta = archivio.salva(new SessioneSalvata(id, codifica(), creazione, scadenza, versione));
+                if (!scritta && (nuova || tentativo == TENTATIVI_SALVATAGGIO || !riapplica(adesso))) {
+                    LOGGER.info("Sessione " + id + " modificata o invalidata da un'altra richiesta, modifiche scartate");
+                    break;
+                }
+            }
+            if (scritta) {
+                versione++;
+                nuova = false;
+                scadenzaSalvata = scadenza;
+            }
+            sporca = false;
+            modifiche.clear();
+        } else if (!nuova && scadenzaSalvata - adesso < durata * 500L) {
+            archivio.rinnova(id, scadenza);
+            scadenzaSalvata = scadenza;
+        }
+    }
+
+    private byte[] codifica() {
+        try {
+            return CodificaSessione.codifica(attributi);
+        } catch (IOException e) {
+            throw new IllegalStateException("Sessione " + id + " non salvabile", e);
+        }
+    }
+
+    /**
+     * Rilegge la sessione riscritta da un'altra richiesta e vi riapplica le modifiche di questa.
+     * @return false se la sessione non esiste più, è stata invalidata o non è leggibile
+     */
+    private boolean riapplica(long adesso) {
+        SessioneSalvata salvata = archivio.carica(id, adesso);
+        if (salvata == null) {
+            return false;
+        }
+        Map<String, Object> riletti;
+        try {
+            riletti = new HashMap<>(CodificaSessione.decodifica(salvata.getDati()));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Sessione " + id + " non leggibile", e);
+            return false;
+        }
+        for (Map.Entry<String, Object> modifica : modifiche.entrySet()) {
+            if (modifica.getValue() == null) {
+                riletti.remove(modifica.getKey());
+            } else {
+                riletti.put(modifica.getKey(), modifica.getValue());
+            }
+        }
+        attributi = riletti;
+        creazione = salvata.getCreazione();
+        versione = salvata.getVersione();
+        return true;
+    }
+
+    /**
+     * Assegna un nuovo ID alla sessione, mantenendone gli attributi, e rimuove quello vecchio dall'archivio.
+     * @return il nuovo ID
+     */
+    public String cambiaId() {
+        carica();
+        if (!nuova) {
+            archivio.elimina(id);
+            nuova = true;
+        }
+        id = generaId();
+        versione = 0;
+        sporca = true;
+        emettiId();
+        return id;
+    }
+
+    /**
+     * @return true se la sessione è stata invalidata durante la richiesta
+     */
+    public boolean isInvalidata() {
+        return invalidata;
+    }
+
+    @Override
+    public long getCreationTime() {
+        carica();
+        return creazione;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        return accesso;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        // La durata vale per la richiesta corrente: quella salvata è sempre la durata configurata nel filtro
+        if (interval > 0) {
+            durata = interval;
+        }
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return durata;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        carica();
+        return attributi.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        carica();
+        return Collections.enumeration(new ArrayList<>(attributi.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        carica();
+        Object precedente = attributi.put(name, value);
+        // JSP come header.jsp reimpostano lo stesso valore a ogni pagina: non è una modifica da salvare
+        if (!Objects.equals(precedente, value)) {
+            modifiche.put(name, value);
+            modificata();
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        carica();
+        if (attributi.remove(name) != null) {
+            modifiche.put(name, null);
+            modificata();
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        if (invalidata) {
+            throw new IllegalStateException("Sessione già invalidata");
+        }
+        if (attributi == null || !nuova) {
+            archivio.elimina(id);
+        }
+        invalidata = true;
+        attributi = null;
+    }
+
+    @Override
+    public boolean isNew() {
+        carica();
+        return nuova;
+    }
+}
@@ -0,0 +1,176 @@
+package it.unisa.uniclass.common.sessione.model;
+
+import jakarta.persistence.*;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.config.CacheIsolationType;
+
+import java.io.Serializable;
+
+/**
+ * Sessione HTTP salvata nel database, condivisa da tutte le istanze dell'applicazione.
+ * Gli attributi sono codificati in un unico array di byte da {@link it.unisa.uniclass.common.sessione.CodificaSessione}.
+ * */
+@Entity
+@Access(AccessType.FIELD)
+@Table(name = "sessioni", indexes = {
+        @Index(name = "idx_sessioni_scadenza", columnList = "scadenza")
+})
+// Ogni istanza deve leggere la riga dal database: una copia nella cache condivisa sarebbe già vecchia
+// dopo una scrittura fatta da un'altra istanza
+@Cache(isolation = CacheIsolationType.ISOLATED)
+// Una sessione esistente viene riscritta solo se la riga c'è ancora, non è invalidata e ha la versione letta;
+// una sessione nuova (versione 0) viene inserita solo se l'ID è libero
+@NamedNativeQuery(name = "SessioneSalvata.salva", query =
+        "INSERT INTO sessioni (id, dati, creazione, scadenza, versione, invalidata)"
+        + " SELECT ?1, ?2, ?3, ?4, ?5 + 1, false WHERE ?5 = 0 OR EXISTS (SELECT 1 FROM sessioni WHERE id = ?1)"
+        + " ON CONFLICT (id) DO UPDATE SET dati = EXCLUDED.dati, scadenza = EXCLUDED.scadenza, versione = sessioni.versione + 1"
+        + " WHERE sessioni.versione = ?5 AND NOT sessioni.invalidata")
+@NamedQueries({
+        @NamedQuery(name = "SessioneSalvata.trovaScadute", query = "SELECT s.id FROM SessioneSalvata s WHERE s.scadenza <= :adesso ORDER BY s.scadenza"),
+        @NamedQuery(name = "SessioneSalvata.rimuoviId", query = "DELETE FROM SessioneSalvata s WHERE s.id IN :ids"),
+        @NamedQuery(name = "SessioneSalvata.aggiornaScadenza", query = "UPDATE SessioneSalvata s SET s.scadenza = :scadenza WHERE s.id = :id AND s.invalidata = false"),
+        @NamedQuery(name = "SessioneSalvata.invalida", query = "UPDATE SessioneSalvata s SET s.invalidata = true, s.dati = :vuoti WHERE s.id = :id")
+})
+public class SessioneSalvata implements Serializable {
+
+    /**
+     * Nome della query per trovare gli ID delle sessioni scadute, dalla meno recente.
+     * */
+    public static final String TROVA_SCADUTE = "SessioneSalvata.trovaScadute";
+    /**
+     * Nome della query per rimuovere le sessioni con gli ID indicati.
+     * */
+    public static final String RIMUOVI_ID = "SessioneSalvata.rimuoviId";
+    /**
+     * Nome della query per prolungare una sessione senza riscriverne gli attributi.
+     * */
+    public static final String AGGIORNA_SCADENZA = "SessioneSalvata.aggiornaScadenza";
+    /**
+     * Nome della query nativa che salva gli attributi di una sessione con un solo INSERT ... ON CONFLICT,
+     * a condizione che nessun'altra scrittura o invalidazione sia avvenuta dopo la lettura.
+     * */
+    public static final String SALVA = "SessioneSalvata.salva";
+    /**
+     * Nome della query per invalidare una sessione, lasciandone la riga fino alla scadenza.
+     * */
+    public static final String INVALIDA = "SessioneSalvata.invalida";
+
+    /**
+     * L'ID della sessione, lo stesso del cookie.
+     */
+    @Id
+    @Column(length = 64)
+    //@ spec_public
+    //@ nullable
+    private String id;
+
+    /**
+     * Gli attributi della sessione codificati.
+     */
+    @Column(nullable = false)
+    //@ spec_public
+    //@ nullable
+    private byte[] dati;
+
+    /**
+     * Istante di creazione, in millisecondi.
+     */
+    //@ spec_public
+    private long creazione;
+
+    /**
+     * Istante di scadenza, in millisecondi.
+     */
+    //@ spec_public
+    private long scadenza;
+
+    /**
+     * Numero di scritture degli attributi: una scrittura riesce solo se parte dalla versione salvata.
+     */
+    //@ spec_public
+    private long versione;
+
+    /**
+     * true se la sessione è stata invalidata: la riga resta fino alla scadenza e nessuna scrittura la ripristina.
+     */
+    //@ spec_public
+    private boolean invalidata;
+
+    /**
+     * Costruttore vuoto richiesto da JPA.
+     */
+    public SessioneSalvata() {}
+
+    /**
+     * Costruttore della sessione salvata.
+     * @param id l'ID della sessione
+     * @param dati gli attributi codificati
+     * @param creazione l'istante di creazione, in millisecondi
+     * @param scadenza l'istante di scadenza, in millisecondi
+     */
+    //@ requires id != null && dati != null;
+    public SessioneSalvata(String id, byte[] dati, long creazione, long scadenza) {
+        this(id, dati, creazione, scadenza, 0);
+    }
+
+    /**
+     * Costruttore della sessione salvata a partire da una versione.
+     * @param id l'ID della sessione
+     * @param dati gli attributi codificati
+     * @param creazione l'istante di creazione, in millisecondi
+     * @param scadenza l'istante di scadenza, in millisecondi
+     * @param versione la versione letta dall'archivio, 0 per una sessione nuova
+     */
+    //@ requires id != null && dati != null && versione >= 0;
+    public SessioneSalvata(String id, byte[] dati, long creazione, long scadenza, long versione) {
+        this.id = id;
+        this.dati = dati;
+        this.creazione = creazione;
+        this.scadenza = scadenza;
+        this.versione = versione;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public byte[] getDati() {
+        return dati;
+    }
+
+    public long getCreazione() {
+        return creazione;
+    }
+
+    public long getScadenza() {
+        return scadenza;
+    }
+
+    public void setScadenza(long scadenza) {
+        this.scadenza = scadenza;
+    }
+
+    public long getVersione() {
+        return versione;
+    }
+
+    public boolean isInvalidata() {
+        return invalidata;
+    }
+
+    public void setInvalidata(boolean invalidata) {
+        this.invalidata = invalidata;
+    }
+
+    @Override
+    public String toString() {
+        return "SessioneSalvata{" +
+                "id='" + id + '\'' +
+                ", dati=" + (dati != null ? dati.length : 0) + " byte" +
+                ", creazione=" + creazione +
+                ", scadenza=" + scadenza +
+                ", versione=" + versione +
+                ", invalidata=" + invalidata +
+                '}';
+    }
+}
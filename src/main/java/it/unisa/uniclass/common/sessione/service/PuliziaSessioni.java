@@ -0,0 +1,50 @@
+package it.unisa.uniclass.common.sessione.service;
+
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rimozione periodica delle sessioni scadute dall'archivio su Postgres.
+ * Con più istanze la pulizia gira su ognuna: i lotti sono indipendenti e rimuovere una sessione
+ * già rimossa da un'altra istanza non ha effetto.
+ */
+@Singleton
+public class PuliziaSessioni {
+
+    private static final Logger LOGGER = Logger.getLogger(PuliziaSessioni.class.getName());
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private SessioneService sessioneService;
+
+    /**
+     * Setter per iniettare il SessioneService (utile per i test).
+     * @param sessioneService il service da iniettare
+     */
+    //@ requires sessioneService != null;
+    //@ ensures this.sessioneService == sessioneService;
+    public void setSessioneService(SessioneService sessioneService) {
+        this.sessioneService = sessioneService;
+    }
+
+    /**
+     * Rimuove le sessioni scadute. Eseguito ogni dieci minuti.
+     */
+    @Schedule(hour = "*", minute = "*/10", persistent = false)
+    public void pulisci() {
+        try {
+            int rimosse = sessioneService.eliminaScadute(System.currentTimeMillis());
+            if (rimosse > 0) {
+                LOGGER.info("Rimosse " + rimosse + " sessioni scadute");
+            }
+        } catch (RuntimeException e) {
+            // I lotti già confermati restano rimossi: il resto viene ripreso alla prossima esecuzione
+            LOGGER.log(Level.WARNING, "Pulizia delle sessioni scadute interrotta", e);
+        }
+    }
+}
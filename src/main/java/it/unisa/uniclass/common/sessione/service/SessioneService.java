@@ -0,0 +1,111 @@
+package it.unisa.uniclass.common.sessione.service;
+
+import it.unisa.uniclass.common.sessione.ArchivioSessioni;
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+import it.unisa.uniclass.common.sessione.service.dao.SessioneRemote;
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.Stateless;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+
+/**
+ * Classe di servizio per l'archivio delle sessioni HTTP su Postgres.
+ * È l'{@link ArchivioSessioni} usato da {@link it.unisa.uniclass.common.Filter.FiltroSessioni}
+ * quando le sessioni sono condivise tra più istanze dell'applicazione.
+ */
+@Stateless
+@LocalBean
+public class SessioneService implements ArchivioSessioni {
+
+    /**
+     * Numero massimo di sessioni scadute rimosse in una transazione.
+     */
+    public static final int DIMENSIONE_LOTTO_PULIZIA = 500;
+
+    private SessioneRemote sessioneDao;
+
+    /**
+     * Costruttore di default che esegue il lookup JNDI del DAO.
+     */
+    public SessioneService() {
+        try {
+            InitialContext ctx = new InitialContext();
+            sessioneDao = (SessioneRemote) ctx.lookup("java:global/UniClass-Dependability/SessioneDAO");
+        } catch (NamingException e) {
+            throw new RuntimeException("Errore durante il lookup di SessioneDAO", e);
+        }
+    }
+
+    /**
+     * Costruttore per i Test (Dependency Injection).
+     * Permette di passare un DAO mockato.
+     * @param dao Il DAO da utilizzare.
+     */
+    public SessioneService(SessioneRemote dao) {
+        this.sessioneDao = dao;
+    }
+
+    /**
+     * Legge una sessione non ancora scaduta.
+     *
+     * @param id L'ID della sessione.
+     * @param adesso L'istante corrente, in millisecondi.
+     * @return La sessione, oppure null se non esiste o è scaduta.
+     */
+    @Override
+    public SessioneSalvata carica(String id, long adesso) {
+        SessioneSalvata sessione = sessioneDao.trovaSessione(id);
+        return sessione != null && !sessione.isInvalidata() && sessione.getScadenza() > adesso ? sessione : null;
+    }
+
+    /**
+     * Inserisce una sessione o ne sostituisce gli attributi, se nel frattempo non è stata
+     * riscritta né invalidata.
+     *
+     * @param sessione La sessione da salvare, con la versione letta.
+     * @return true se la sessione è stata scritta.
+     */
+    @Override
+    public boolean salva(SessioneSalvata sessione) {
+        return sessioneDao.salvaSessione(sessione);
+    }
+
+    /**
+     * Prolunga una sessione senza riscriverne gli attributi.
+     *
+     * @param id L'ID della sessione.
+     * @param scadenza La nuova scadenza, in millisecondi.
+     */
+    @Override
+    public void rinnova(String id, long scadenza) {
+        sessioneDao.aggiornaScadenza(id, scadenza);
+    }
+
+    /**
+     * Invalida una sessione: nessun salvataggio successivo può ripristinarla.
+     *
+     * @param id L'ID della sessione.
+     */
+    @Override
+    public void elimina(String id) {
+        sessioneDao.invalidaSessione(id);
+    }
+
+    /**
+     * Rimuove le sessioni scadute a lotti di {@link #DIMENSIONE_LOTTO_PULIZIA}, ognuno nella propria transazione.
+     *
+     * @param adesso L'istante corrente, in millisecondi.
+     * @return Il numero di sessioni rimosse.
+     */
+    @Override
+    public int eliminaScadute(long adesso) {
+        int rimosse = 0;
+        int lotto;
+        do {
+            lotto = sessioneDao.rimuoviScadute(adesso, DIMENSIONE_LOTTO_PULIZIA);
+            rimosse += lotto;
+        } while (lotto == DIMENSIONE_LOTTO_PULIZIA);
+        return rimosse;
+    }
+}
@@ -0,0 +1,96 @@
+package it.unisa.uniclass.common.sessione.service.dao;
+
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+@Stateless(name = "SessioneDAO")
+public class SessioneDAO implements SessioneRemote {
+
+    @PersistenceContext(unitName = "DBUniClassPU")
+    private EntityManager emUniClass;
+
+    /**
+     * Legge una sessione salvata.
+     * @param id L'ID della sessione.
+     * @return La sessione, oppure null se non esiste.
+     */
+    @Override
+    public SessioneSalvata trovaSessione(String id) {
+        return emUniClass.find(SessioneSalvata.class, id);
+    }
+
+    /**
+     * Inserisce una sessione o ne sostituisce gli attributi, solo se la versione salvata è ancora
+     * quella di {@code sessione} e la sessione non è stata invalidata. Una sessione con versione 0
+     * viene inserita solo se l'ID non esiste; una con versione maggiore non viene mai ricreata.
+     * @param sessione La sessione da salvare, con la versione letta.
+     * @return true se la sessione è stata scritta.
+     */
+    @Override
+    public boolean salvaSessione(SessioneSalvata sessione) {
+        Query query = emUniClass.createNamedQuery(SessioneSalvata.SALVA);
+        query.setParameter(1, sessione.getId());
+        query.setParameter(2, sessione.getDati());
+        query.setParameter(3, sessione.getCreazione());
+        query.setParameter(4, sessione.getScadenza());
+        query.setParameter(5, sessione.getVersione());
+        return query.executeUpdate() > 0;
+    }
+
+    /**
+     * Prolunga una sessione senza riscriverne gli attributi.
+     * @param id L'ID della sessione.
+     * @param scadenza La nuova scadenza, in millisecondi.
+     * @return true se la sessione esiste ancora.
+     */
+    @Override
+    public boolean aggiornaScadenza(String id, long scadenza) {
+        Query query = emUniClass.createNamedQuery(SessioneSalvata.AGGIORNA_SCADENZA);
+        query.setParameter("id", id);
+        query.setParameter("scadenza", scadenza);
+        return query.executeUpdate() > 0;
+    }
+
+    /**
+     * Invalida una sessione, se esiste, e ne cancella gli attributi. La riga resta fino alla scadenza,
+     * così un salvataggio ancora in corso su un'altra istanza non può ripristinarla.
+     * @param id L'ID della sessione.
+     */
+    @Override
+    public void invalidaSessione(String id) {
+        Query query = emUniClass.createNamedQuery(SessioneSalvata.INVALIDA);
+        query.setParameter("id", id);
+        query.setParameter("vuoti", new byte[0]);
+        query.executeUpdate();
+    }
+
+    /**
+     * Rimuove un lotto di sessioni scadute, dalla meno recente, in una transazione propria.
+     * @param adesso L'istante corrente, in millisecondi.
+     * @param limite Numero massimo di sessioni da rimuovere.
+     * @return Il numero di sessioni rimosse; meno di {@code limite} se non ne restano altre scadute.
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int rimuoviScadute(long adesso, int limite) {
+        TypedQuery<String> query = emUniClass.createNamedQuery(SessioneSalvata.TROVA_SCADUTE, String.class);
+        query.setParameter("adesso", adesso);
+        query.setMaxResults(limite);
+        List<String> ids = query.getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Query rimuovi = emUniClass.createNamedQuery(SessioneSalvata.RIMUOVI_ID);
+        rimuovi.setParameter("ids", ids);
+        rimuovi.executeUpdate();
+        return ids.size();
+    }
+}
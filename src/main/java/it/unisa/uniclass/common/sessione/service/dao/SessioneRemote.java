@@ -0,0 +1,13 @@
+package it.unisa.uniclass.common.sessione.service.dao;
+
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+import jakarta.ejb.Remote;
+
+@Remote
+public interface SessioneRemote {
+    public SessioneSalvata trovaSessione(String id);
+    public boolean salvaSessione(SessioneSalvata sessione);
+    public boolean aggiornaScadenza(String id, long scadenza);
+    public void invalidaSessione(String id);
+    public int rimuoviScadute(long adesso, int limite);
+}
@@ -0,0 +1,219 @@
+package it.unisa.uniclass.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed Server-Sent Events degli avvisi del corso di laurea dell'utente.
+ * Alla connessione invia gli avvisi persi (tramite {@code Last-Event-ID}) o, al primo accesso,
+ * gli ultimi pubblicati; poi la risposta resta aperta e riceve i nuovi avvisi da {@link FeedAvvisi}.
+ */
+@WebServlet(name = "AvvisiStreamServlet", value = "/avvisiStream", asyncSupported = true)
+public class AvvisiStreamServlet extends HttpServlet {
+
+    /**
+     * Numero massimo di avvisi inviati alla connessione.
+     */
+    public static final int AVVISI_INIZIALI = 20;
+
+    /**
+     * Intervallo tra due heartbeat, in secondi.
+     */
+    public static final int INTERVALLO_HEARTBEAT = 25;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private MessaggioService messaggioService;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private AccademicoService accademicoService;
+
+    //@ spec_public
+    private FeedAvvisi feed = FeedAvvisi.getIstanza();
+
+    //@ spec_public
+    //@ nullable
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * Setter per iniettare il MessaggioService (utile per i test).
+     * @param messaggioService il service da iniettare
+     */
+    //@ requires messaggioService != null;
+    //@ ensures this.messaggioService == messaggioService;
+    public void setMessaggioService(MessaggioService messaggioService) {
+        this.messaggioService = messaggioService;
+    }
+
+    /**
+     * Setter per iniettare l'AccademicoService (utile per i test).
+     * @param accademicoService il service da iniettare
+     */
+    //@ requires accademicoService != null;
+    //@ ensures this.accademicoService == accademicoService;
+    public void setAccademicoService(AccademicoService accademicoService) {
+        this.accademicoService = accademicoService;
+    }
+
+    /**
+     * Setter per iniettare il feed (utile per i test).
+     * @param feed il feed da usare
+     */
+    //@ requires feed != null;
+    //@ ensures this.feed == feed;
+    public void setFeed(FeedAvvisi feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Avvia l'heartbeat periodico degli stream aperti.
+     */
+    @Override
+    public void init() {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "avvisi-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(() -> feed.heartbeat(), INTERVALLO_HEARTBEAT, INTERVALLO_HEARTBEAT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ferma l'heartbeat allo spegnimento dell'applicazione.
+     */
+    @Override
+    public void destroy() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    /**
+     * Apre lo stream degli avvisi per l'utente in sessione.
+     * @param req la richiesta HTTP
+     * @param resp la risposta HTTP
+     */
+    //@ requires req != null;
+    //@ requires resp != null;
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            HttpSession session = req.getSession(false);
+            String email = session != null ? (String) session.getAttribute("utenteEmail") : null;
+            if (email == null) {
+                resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            Accademico accademico = accademicoService.trovaEmailUniClass(email);
+            if (accademico == null || accademico.getCorsoLaurea() == null || accademico.getCorsoLaurea().getId() == null) {
+                resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+                return;
+            }
+
+            Long ultimoId = parseId(req.getHeader("Last-Event-ID"));
+            if (ultimoId == null) {
+                ultimoId = parseId(req.getParameter("lastEventId"));
+            }
+            Long corsoId = parseId(req.getParameter("corso"));
+            long corsoLaureaId = accademico.getCorsoLaurea().getId();
+
+            resp.setContentType("text/event-stream");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setHeader("Cache-Control", "no-cache");
+            resp.setHeader("X-Accel-Buffering", "no");
+
+            AsyncContext asyncContext = req.startAsync();
+            asyncContext.setTimeout(0);
+            PrintWriter writer = resp.getWriter();
+            FeedAvvisi.Iscrizione iscrizione = new FeedAvvisi.Iscrizione(asyncContext, writer, corsoLaureaId, corsoId,
+                    ultimoId != null ? ultimoId : 0L);
+            asyncContext.addListener(new RimozioneIscrizione(feed, iscrizione));
+
+            // L'iscrizione precede la lettura degli arretrati, così un avviso pubblicato nel frattempo non va perso.
+            // Il lock trattiene le pubblicazioni concorrenti finché gli arretrati non sono stati scritti in ordine;
+            // i duplicati vengono poi scartati dall'iscrizione stessa.
+            synchronized (iscrizione) {
+                feed.iscrivi(iscrizione);
+                List<MessaggioVista> arretrati = messaggioService.trovaAvvisiCorsoLaurea(corsoLaureaId, corsoId, ultimoId, AVVISI_INIZIALI);
+                for (MessaggioVista avviso : arretrati) {
+                    iscrizione.invia(avviso);
+                }
+                if (arretrati.isEmpty()) {
+                    iscrizione.heartbeat();
+                }
+            }
+        } catch (IOException e) {
+            req.getServletContext().log("Error opening avvisi stream", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+
+    private Long parseId(String valore) {
+        if (valore == null || valore.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(valore.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Toglie l'iscrizione dal feed quando la connessione termina per qualunque motivo.
+     */
+    private static class RimozioneIscrizione implements AsyncListener {
+        private final FeedAvvisi feed;
+        private final FeedAvvisi.Iscrizione iscrizione;
+
+        RimozioneIscrizione(FeedAvvisi feed, FeedAvvisi.Iscrizione iscrizione) {
+            this.feed = feed;
+            this.iscrizione = iscrizione;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            feed.rimuovi(iscrizione);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            feed.rimuovi(iscrizione);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            feed.rimuovi(iscrizione);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Nessuna azione
+        }
+    }
+}
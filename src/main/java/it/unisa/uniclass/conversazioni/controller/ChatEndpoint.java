@@ -0,0 +1,270 @@
+package it.unisa.uniclass.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.service.ConversazioneService;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.OnClose;
+import jakarta.websocket.OnError;
+import jakarta.websocket.OnMessage;
+import jakarta.websocket.OnOpen;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.ServerEndpoint;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Endpoint WebSocket della chat.
+ * Riceve i messaggi dell'utente autenticato, li accoda nella pipeline di scrittura di {@link MessaggioService}
+ * e, a salvataggio avvenuto, li consegna a tutte le sessioni aperte di autore e destinatario,
+ * senza redirect né ricaricamento della pagina. Le sessioni aperte su altre istanze ricevono i messaggi
+ * tramite {@link #consegnaSalvato(Messaggio)}, chiamato alla notifica del salvataggio.
+ *
+ * Formato dei messaggi dal client:
+ * {@code {"tipo":"messaggio","destinatario":"email","testo":"..."}} oppure
+ * {@code {"tipo":"letto","interlocutore":"email"}}.
+ */
+@ServerEndpoint(value = "/chatSocket", configurator = ChatHandshakeConfigurator.class)
+public class ChatEndpoint {
+
+    private static final Logger LOGGER = Logger.getLogger(ChatEndpoint.class.getName());
+
+    /**
+     * Lunghezza massima del corpo di un messaggio inviato tramite socket.
+     */
+    public static final int LUNGHEZZA_MASSIMA = 2000;
+
+    private static final String ACCADEMICO = "accademico";
+
+    //@ spec_public
+    private static final RegistroSessioniChat REGISTRO_CONDIVISO = new RegistroSessioniChat();
+
+    //@ spec_public
+    //@ nullable
+    private MessaggioService messaggioService;
+
+    //@ spec_public
+    //@ nullable
+    private AccademicoService accademicoService;
+
+    //@ spec_public
+    //@ nullable
+    private ConversazioneService conversazioneService;
+
+    //@ spec_public
+    private RegistroSessioniChat registro = REGISTRO_CONDIVISO;
+
+    /**
+     * Setter per iniettare il MessaggioService (utile per i test).
+     * @param messaggioService il service da iniettare
+     */
+    public void setMessaggioService(MessaggioService messaggioService) {
+        this.messaggioService = messaggioService;
+    }
+
+    /**
+     * Setter per iniettare l'AccademicoService (utile per i test).
+     * @param accademicoService il service da iniettare
+     */
+    public void setAccademicoService(AccademicoService accademicoService) {
+        this.accademicoService = accademicoService;
+    }
+
+    /**
+     * Setter per iniettare il ConversazioneService (utile per i test).
+     * @param conversazioneService il service da iniettare
+     */
+    public void setConversazioneService(ConversazioneService conversazioneService) {
+        this.conversazioneService = conversazioneService;
+    }
+
+    /**
+     * Setter per iniettare il registro delle sessioni (utile per i test).
+     * @param registro il registro da usare
+     */
+    public void setRegistro(RegistroSessioniChat registro) {
+        this.registro = registro;
+    }
+
+    /**
+     * Apre la sessione solo per utenti autenticati e la registra sotto la loro matricola.
+     * @param session la sessione WebSocket
+     * @param config la configurazione con le proprietà salvate dall'handshake
+     */
+    @OnOpen
+    public void onOpen(Session session, EndpointConfig config) throws IOException {
+        String email = ChatHandshakeConfigurator.consumaEmail(config, session);
+        Accademico self = email != null ? getAccademicoService().trovaEmailUniClass(email) : null;
+        if (self == null) {
+            session.close(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Utente non autenticato"));
+            return;
+        }
+        session.getUserProperties().put(ACCADEMICO, self);
+        registro.registra(self.getMatricola(), session);
+    }
+
+    /**
+     * Gestisce un messaggio testuale proveniente dal client.
+     * @param testo il JSON inviato dal client
+     * @param session la sessione WebSocket del mittente
+     */
+    @OnMessage
+    public void onMessage(String testo, Session session) {
+        Accademico self = (Accademico) session.getUserProperties().get(ACCADEMICO);
+        if (self == null) {
+            return;
+        }
+        try {
+            JSONObject richiesta = new JSONObject(testo);
+            if ("letto".equals(richiesta.optString("tipo"))) {
+                segnaLetta(self, richiesta.optString("interlocutore", null));
+            } else {
+                inviaMessaggio(self, richiesta.optString("destinatario", null), richiesta.optString("testo", null), session);
+            }
+        } catch (JSONException e) {
+            inviaErrore(session, "Formato non valido");
+        }
+    }
+
+    /**
+     * Rimuove la sessione dal registro alla chiusura.
+     * @param session la sessione WebSocket
+     */
+    @OnClose
+    public void onClose(Session session) {
+        Accademico self = (Accademico) session.getUserProperties().get(ACCADEMICO);
+        if (self != null) {
+            registro.rimuovi(self.getMatricola(), session);
+        }
+    }
+
+    /**
+     * Registra gli errori di trasporto; la chiusura della sessione è gestita dal container.
+     * @param session la sessione WebSocket
+     * @param errore l'errore avvenuto
+     */
+    @OnError
+    public void onError(Session session, Throwable errore) {
+        LOGGER.log(Level.WARNING, "Errore sulla sessione di chat " + session.getId(), errore);
+    }
+
+    private void inviaMessaggio(Accademico self, String emailDestinatario, String body, Session session) {
+        if (body == null || body.isBlank() || body.length() > LUNGHEZZA_MASSIMA) {
+            inviaErrore(session, "Messaggio vuoto o troppo lungo");
+            return;
+        }
+        Accademico destinatario = emailDestinatario != null ? getAccademicoService().trovaEmailUniClass(emailDestinatario) : null;
+        if (destinatario == null) {
+            inviaErrore(session, "Destinatario inesistente");
+            return;
+        }
+
+        Messaggio messaggio = new Messaggio();
+        messaggio.setAutore(self);
+        messaggio.setDestinatario(destinatario);
+        messaggio.setBody(body);
+        messaggio.setDateTime(LocalDateTime.now());
+        // Il messaggio viene consegnato solo dopo il commit del lotto che lo contiene;
+        // la consegna avviene fuori dal thread di scrittura per non rallentare i lotti successivi.
+        getMessaggioService().accodaMessaggio(messaggio).whenCompleteAsync((salvato, errore) -> {
+            if (errore != null) {
+                LOGGER.log(Level.WARNING, "Salvataggio del messaggio di " + self.getMatricola() + " non riuscito", errore);
+                inviaErrore(session, "Invio non riuscito, riprova");
+                return;
+            }
+            String json = toJson(salvato != null ? salvato : messaggio);
+            consegna(registro, self.getMatricola(), json);
+            if (!self.getMatricola().equals(destinatario.getMatricola())) {
+                consegna(registro, destinatario.getMatricola(), json);
+            }
+        });
+    }
+
+    /**
+     * Consegna alle sessioni aperte su questa istanza un messaggio della chat salvato da un'altra istanza.
+     * @param messaggio il messaggio salvato
+     */
+    public static void consegnaSalvato(Messaggio messaggio) {
+        if (messaggio == null || messaggio.getAutore() == null || messaggio.getDestinatario() == null) {
+            return;
+        }
+        String json = toJson(messaggio);
+        consegna(REGISTRO_CONDIVISO, messaggio.getAutore().getMatricola(), json);
+        if (!messaggio.getAutore().getMatricola().equals(messaggio.getDestinatario().getMatricola())) {
+            consegna(REGISTRO_CONDIVISO, messaggio.getDestinatario().getMatricola(), json);
+        }
+    }
+
+    private void segnaLetta(Accademico self, String emailInterlocutore) {
+        if (emailInterlocutore == null) {
+            return;
+        }
+        Accademico interlocutore = getAccademicoService().trovaEmailUniClass(emailInterlocutore);
+        getConversazioneService().segnaLetta(self, interlocutore);
+    }
+
+    private static void consegna(RegistroSessioniChat registro, String matricola, String json) {
+        for (Session aperta : registro.sessioni(matricola)) {
+            invia(aperta, json);
+        }
+    }
+
+    private void inviaErrore(Session session, String errore) {
+        invia(session, new JSONObject().put("errore", errore).toString());
+    }
+
+    /**
+     * Il container non ammette scritture concorrenti sulla stessa sessione: gli invii vengono serializzati per sessione.
+     */
+    private static void invia(Session session, String json) {
+        if (!session.isOpen()) {
+            return;
+        }
+        synchronized (session) {
+            try {
+                session.getBasicRemote().sendText(json);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Consegna fallita sulla sessione " + session.getId(), e);
+            }
+        }
+    }
+
+    private static String toJson(Messaggio messaggio) {
+        JSONObject json = new JSONObject();
+        json.put("id", messaggio.getId());
+        json.put("body", messaggio.getBody());
+        json.put("dateTime", String.valueOf(messaggio.getDateTime()));
+        json.put("autore", messaggio.getAutore().getEmail());
+        json.put("destinatario", messaggio.getDestinatario().getEmail());
+        return json.toString();
+    }
+
+    private MessaggioService getMessaggioService() {
+        if (messaggioService == null) {
+            messaggioService = new MessaggioService();
+        }
+        return messaggioService;
+    }
+
+    private AccademicoService getAccademicoService() {
+        if (accademicoService == null) {
+            accademicoService = new AccademicoService();
+        }
+        return accademicoService;
+    }
+
+    private ConversazioneService getConversazioneService() {
+        if (conversazioneService == null) {
+            conversazioneService = new ConversazioneService();
+        }
+        return conversazioneService;
+    }
+}
@@ -0,0 +1,98 @@
+package it.unisa.uniclass.conversazioni.controller;
+
+import jakarta.servlet.http.HttpSession;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Copia l'email dell'utente autenticato dalla sessione HTTP alle proprietà dell'handshake,
+ * così l'endpoint non si fida di alcun mittente indicato dal client.
+ *
+ * Le proprietà di {@link ServerEndpointConfig} possono essere condivise da tutte le connessioni
+ * dell'endpoint: l'email viene quindi salvata sotto una chiave propria della connessione, formata
+ * dall'identificativo casuale che il client passa nel parametro {@value #PARAMETRO_CONNESSIONE}, e
+ * rimossa da {@link #consumaEmail(EndpointConfig, Session)} all'apertura della sessione WebSocket.
+ * Handshake concorrenti non possono così sovrascrivere l'identità l'uno dell'altro.
+ */
+public class ChatHandshakeConfigurator extends ServerEndpointConfig.Configurator {
+
+    /**
+     * Prefisso delle chiavi con l'email dell'utente autenticato, seguito dall'identificativo della connessione.
+     */
+    public static final String UTENTE_EMAIL = "utenteEmail";
+
+    /**
+     * Parametro della richiesta con l'identificativo casuale della connessione.
+     */
+    public static final String PARAMETRO_CONNESSIONE = "connessione";
+
+    /**
+     * Tempo massimo tra handshake e apertura della sessione, oltre il quale l'email salvata viene scartata.
+     */
+    public static final long VALIDITA_MILLIS = 30_000;
+
+    private static final Pattern FORMATO_CONNESSIONE = Pattern.compile("[A-Za-z0-9-]{16,64}");
+
+    /**
+     * Email salvata durante un handshake, con l'istante in cui è stata salvata.
+     */
+    private record Identita(String email, long istante) {}
+
+    @Override
+    public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
+        Map<String, Object> proprieta = sec.getUserProperties();
+        long adesso = System.currentTimeMillis();
+        // Rimuove le identità di handshake mai arrivati all'apertura della sessione
+        proprieta.entrySet().removeIf(e -> e.getValue() instanceof Identita identita && adesso - identita.istante() > VALIDITA_MILLIS);
+
+        String connessione = connessione(request.getParameterMap());
+        HttpSession httpSession = (HttpSession) request.getHttpSession();
+        if (connessione == null || httpSession == null) {
+            return;
+        }
+        Object email = httpSession.getAttribute(UTENTE_EMAIL);
+        if (email != null) {
+            // Un identificativo già in uso non viene riassegnato: nessuna delle due connessioni sarà autenticata
+            if (proprieta.putIfAbsent(chiave(connessione), new Identita(email.toString(), adesso)) != null) {
+                proprieta.remove(chiave(connessione));
+            }
+        }
+    }
+
+    /**
+     * Restituisce e rimuove l'email salvata dall'handshake della sessione indicata.
+     * @param config la configurazione ricevuta all'apertura della sessione
+     * @param session la sessione WebSocket appena aperta
+     * @return l'email dell'utente autenticato, oppure null se l'handshake non ne ha salvata una valida
+     */
+    public static String consumaEmail(EndpointConfig config, Session session) {
+        String connessione = connessione(session.getRequestParameterMap());
+        if (connessione == null) {
+            return null;
+        }
+        Object valore = config.getUserProperties().remove(chiave(connessione));
+        if (valore instanceof Identita identita && System.currentTimeMillis() - identita.istante() <= VALIDITA_MILLIS) {
+            return identita.email();
+        }
+        return null;
+    }
+
+    private static String chiave(String connessione) {
+        return UTENTE_EMAIL + "." + connessione;
+    }
+
+    private static String connessione(Map<String, List<String>> parametri) {
+        List<String> valori = parametri != null ? parametri.get(PARAMETRO_CONNESSIONE) : null;
+        if (valori == null || valori.size() != 1 || !FORMATO_CONNESSIONE.matcher(valori.get(0)).matches()) {
+            return null;
+        }
+        return valori.get(0);
+    }
+}
@@ -1,7 +1,7 @@
 package it.unisa.uniclass.conversazioni.controller;
 
-import it.unisa.uniclass.conversazioni.model.Messaggio;
-import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.conversazioni.model.ConversazioneVista;
+import it.unisa.uniclass.conversazioni.service.ConversazioneService;
 import it.unisa.uniclass.utenti.model.Accademico;
 import it.unisa.uniclass.utenti.service.AccademicoService;
 import jakarta.ejb.EJB;
@@ -21,16 +21,16 @@ public class ConversazioniServlet extends HttpServlet {
     @EJB
     //@ spec_public
     //@ nullable
-    private MessaggioService messaggioService;
+    private ConversazioneService conversazioneService;
 
     /**
-     * Setter per iniettare il MessaggioService (utile per i test).
-     * @param messaggioService il service da iniettare
+     * Setter per iniettare il ConversazioneService (utile per i test).
+     * @param conversazioneService il service da iniettare
      */
-    //@ requires messaggioService != null;
-    //@ ensures this.messaggioService == messaggioService;
-    public void setMessaggioService(MessaggioService messaggioService) {
-        this.messaggioService = messaggioService;
+    //@ requires conversazioneService != null;
+    //@ ensures this.conversazioneService == conversazioneService;
+    public void setConversazioneService(ConversazioneService conversazioneService) {
+        this.conversazioneService = conversazioneService;
     }
 
     /**
@@ -47,7 +47,7 @@ public class ConversazioniServlet extends HttpServlet {
 
     /**
      * Gestisce le richieste POST per visualizzare le conversazioni.
-     * Recupera i messaggi inviati, ricevuti e gli avvisi per l'utente corrente.
+     * Recupera il riepilogo delle conversazioni dell'utente corrente.
      * @param request la richiesta HTTP
      * @param response la risposta HTTP
      */
@@ -65,17 +65,11 @@ public class ConversazioniServlet extends HttpServlet {
             AccademicoService accademicoService = new AccademicoService();
             Accademico accademicoSelf = accademicoService.trovaEmailUniClass(email);
 
-            //Messaggi ricevuti dall'accademicoSelf
-            List<Messaggio> messaggiRicevuti = messaggioService.trovaMessaggiRicevuti(email);
-            //Messaggi inviati
-            List<Messaggio> messaggiInviati = messaggioService.trovaMessaggiInviati(email);
+            //Un riepilogo per interlocutore: il costo non dipende dal numero di messaggi scambiati
+            List<ConversazioneVista> conversazioni = conversazioneService.trovaConversazioni(
+                    accademicoSelf != null ? accademicoSelf.getMatricola() : null);
 
-            List<Messaggio> messaggi = messaggioService.trovaAvvisi();
-
-            request.setAttribute("accademicoSelf", accademicoSelf);
-            request.setAttribute("messaggiRicevuti", messaggiRicevuti);
-            request.setAttribute("messaggiInviati", messaggiInviati);
-            request.setAttribute("messaggi", messaggi);
+            request.setAttribute("conversazioni", conversazioni);
 
             request.getRequestDispatcher("Conversazioni.jsp").forward(request, response);
         } catch (ServletException | IOException e) {
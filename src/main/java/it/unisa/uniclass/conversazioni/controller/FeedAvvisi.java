@@ -0,0 +1,213 @@
+package it.unisa.uniclass.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import jakarta.servlet.AsyncContext;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro degli iscritti al feed SSE degli avvisi, raggruppati per corso di laurea.
+ * Un avviso pubblicato viene scritto solo sugli stream del corso di laurea a cui è destinato,
+ * direttamente ({@code Topic.corsoLaurea}) o tramite un suo corso ({@code Topic.corso}).
+ */
+public class FeedAvvisi {
+
+    private static final FeedAvvisi ISTANZA = new FeedAvvisi();
+
+    //@ spec_public
+    private final ConcurrentHashMap<Long, Set<Iscrizione>> iscritti = new ConcurrentHashMap<>();
+
+    /**
+     * Restituisce il feed condiviso dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static FeedAvvisi getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Uno stream aperto. Le scritture sono serializzate sull'oggetto stesso e
+     * {@code ultimoId} evita di reinviare avvisi già spediti durante la ripresa.
+     */
+    public static class Iscrizione {
+        private final AsyncContext asyncContext;
+        private final PrintWriter writer;
+        private final long corsoLaureaId;
+        private final Long corsoId;
+        private long ultimoId;
+
+        /**
+         * @param asyncContext il contesto asincrono della richiesta
+         * @param writer lo stream della risposta
+         * @param corsoLaureaId il corso di laurea dell'iscritto
+         * @param corsoId il corso a cui restringere il feed, oppure null
+         * @param ultimoId l'ID dell'ultimo avviso già ricevuto dal client
+         */
+        public Iscrizione(AsyncContext asyncContext, PrintWriter writer, long corsoLaureaId, Long corsoId, long ultimoId) {
+            this.asyncContext = asyncContext;
+            this.writer = writer;
+            this.corsoLaureaId = corsoLaureaId;
+            this.corsoId = corsoId;
+            this.ultimoId = ultimoId;
+        }
+
+        /**
+         * Scrive un avviso se non è già stato inviato e se rientra nel filtro per corso.
+         * @param avviso l'avviso da inviare
+         * @return false se il client non è più raggiungibile
+         */
+        public synchronized boolean invia(MessaggioVista avviso) {
+            if (avviso.id() != null && avviso.id() <= ultimoId) {
+                return true;
+            }
+            if (corsoId != null && !corsoId.equals(avviso.corso())) {
+                return true;
+            }
+            writer.write(evento(avviso));
+            writer.flush();
+            if (avviso.id() != null) {
+                ultimoId = avviso.id();
+            }
+            return !writer.checkError();
+        }
+
+        /**
+         * Scrive un commento SSE per tenere viva la connessione attraverso proxy e rilevare client chiusi.
+         * @return false se il client non è più raggiungibile
+         */
+        public synchronized boolean heartbeat() {
+            writer.write(": ping\n\n");
+            writer.flush();
+            return !writer.checkError();
+        }
+
+        public long getCorsoLaureaId() {
+            return corsoLaureaId;
+        }
+
+        public AsyncContext getAsyncContext() {
+            return asyncContext;
+        }
+    }
+
+    /**
+     * Registra uno stream aperto.
+     * @param iscrizione lo stream da registrare
+     */
+    public void iscrivi(Iscrizione iscrizione) {
+        iscritti.computeIfAbsent(iscrizione.getCorsoLaureaId(), k -> ConcurrentHashMap.newKeySet()).add(iscrizione);
+    }
+
+    /**
+     * Rimuove uno stream chiuso.
+     * @param iscrizione lo stream da rimuovere
+     */
+    public void rimuovi(Iscrizione iscrizione) {
+        iscritti.computeIfPresent(iscrizione.getCorsoLaureaId(), (k, aperte) -> {
+            aperte.remove(iscrizione);
+            return aperte.isEmpty() ? null : aperte;
+        });
+    }
+
+    /**
+     * Consegna un avviso appena salvato agli iscritti del corso di laurea destinatario.
+     * I messaggi diretti a un singolo utente o senza topic non sono avvisi e vengono ignorati.
+     * L'avviso viene convertito una sola volta nella proiezione scritta su tutti gli stream.
+     * @param messaggio il messaggio salvato
+     */
+    public void pubblica(Messaggio messaggio) {
+        if (messaggio == null || messaggio.getTopic() == null || messaggio.getDestinatario() != null) {
+            return;
+        }
+        Long corsoLaureaId = corsoLaureaDestinatario(messaggio.getTopic());
+        if (corsoLaureaId == null) {
+            return;
+        }
+        Set<Iscrizione> aperte = iscritti.get(corsoLaureaId);
+        if (aperte == null) {
+            return;
+        }
+        MessaggioVista avviso = MessaggioVista.di(messaggio);
+        for (Iscrizione iscrizione : aperte) {
+            if (!iscrizione.invia(avviso)) {
+                chiudi(iscrizione);
+            }
+        }
+    }
+
+    /**
+     * Invia un heartbeat a tutti gli stream aperti, chiudendo quelli non più raggiungibili.
+     */
+    public void heartbeat() {
+        for (Set<Iscrizione> aperte : iscritti.values()) {
+            for (Iscrizione iscrizione : aperte) {
+                if (!iscrizione.heartbeat()) {
+                    chiudi(iscrizione);
+                }
+            }
+        }
+    }
+
+    /**
+     * Restituisce il numero di stream aperti per un corso di laurea.
+     * @param corsoLaureaId l'ID del corso di laurea
+     * @return il numero di iscritti
+     */
+    public int numeroIscritti(long corsoLaureaId) {
+        Set<Iscrizione> aperte = iscritti.get(corsoLaureaId);
+        return aperte != null ? aperte.size() : 0;
+    }
+
+    private void chiudi(Iscrizione iscrizione) {
+        rimuovi(iscrizione);
+        try {
+            iscrizione.getAsyncContext().complete();
+        } catch (IllegalStateException e) {
+            // Già completato dal container
+        }
+    }
+
+    /**
+     * Restituisce il corso di laurea destinatario di un topic.
+     * @param topic il topic dell'avviso
+     * @return l'ID del corso di laurea, oppure null se il topic non ne ha
+     */
+    public static Long corsoLaureaDestinatario(Topic topic) {
+        if (topic.getCorsoLaurea() != null) {
+            return topic.getCorsoLaurea().getId();
+        }
+        if (topic.getCorso() != null && topic.getCorso().getCorsoLaurea() != null) {
+            return topic.getCorso().getCorsoLaurea().getId();
+        }
+        return null;
+    }
+
+    /**
+     * Serializza un avviso come evento SSE, con l'ID usato dal browser per {@code Last-Event-ID}.
+     * @param avviso l'avviso da serializzare
+     * @return l'evento SSE
+     */
+    public static String evento(MessaggioVista avviso) {
+        JSONObject json = new JSONObject();
+        json.put("id", avviso.id());
+        json.put("topic", avviso.topic());
+        json.put("body", avviso.body());
+        json.put("dateTime", String.valueOf(avviso.dateTime()));
+        if (avviso.autoreMatricola() != null) {
+            json.put("autore", avviso.autoreNome() + " " + avviso.autoreCognome());
+        }
+        StringBuilder evento = new StringBuilder();
+        if (avviso.id() != null) {
+            evento.append("id: ").append(avviso.id()).append('\n');
+        }
+        evento.append("event: avviso\n");
+        evento.append("data: ").append(json).append("\n\n");
+        return evento.toString();
+    }
+}
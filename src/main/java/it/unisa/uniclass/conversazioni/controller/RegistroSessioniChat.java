@@ -0,0 +1,51 @@
+package it.unisa.uniclass.conversazioni.controller;
+
+import jakarta.websocket.Session;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro delle sessioni WebSocket aperte, indicizzate per matricola.
+ * Un utente può avere più sessioni (più schede o dispositivi): ognuna riceve i messaggi consegnati.
+ */
+public class RegistroSessioniChat {
+
+    //@ spec_public
+    private final ConcurrentHashMap<String, Set<Session>> sessioni = new ConcurrentHashMap<>();
+
+    /**
+     * Registra una sessione aperta per un utente.
+     * @param matricola la matricola dell'utente
+     * @param session la sessione WebSocket
+     */
+    //@ requires matricola != null && session != null;
+    public void registra(String matricola, Session session) {
+        sessioni.computeIfAbsent(matricola, k -> ConcurrentHashMap.newKeySet()).add(session);
+    }
+
+    /**
+     * Rimuove una sessione chiusa; la voce dell'utente viene eliminata quando non ha più sessioni.
+     * @param matricola la matricola dell'utente
+     * @param session la sessione WebSocket
+     */
+    //@ requires matricola != null && session != null;
+    public void rimuovi(String matricola, Session session) {
+        sessioni.computeIfPresent(matricola, (k, aperte) -> {
+            aperte.remove(session);
+            return aperte.isEmpty() ? null : aperte;
+        });
+    }
+
+    /**
+     * Restituisce le sessioni aperte di un utente.
+     * @param matricola la matricola dell'utente
+     * @return le sessioni aperte, vuoto se l'utente non è connesso
+     */
+    //@ ensures \result != null;
+    public Set<Session> sessioni(String matricola) {
+        Set<Session> aperte = sessioni.get(matricola);
+        return aperte != null ? Collections.unmodifiableSet(aperte) : Collections.emptySet();
+    }
+}
@@ -0,0 +1,134 @@
+package it.unisa.uniclass.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Restituisce in JSON le pagine più vecchie di una conversazione (scroll infinito di chat.jsp).
+ * Il cursore è la coppia (prima, primaId) del messaggio più vecchio già mostrato.
+ */
+@WebServlet(name = "caricaMessaggiServlet", value = "/caricaMessaggi")
+public class caricaMessaggiServlet extends HttpServlet {
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private MessaggioService messaggioService;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private AccademicoService accademicoService;
+
+    /**
+     * Setter per iniettare il MessaggioService (utile per i test).
+     * @param messaggioService il service da iniettare
+     */
+    //@ requires messaggioService != null;
+    //@ ensures this.messaggioService == messaggioService;
+    public void setMessaggioService(MessaggioService messaggioService) {
+        this.messaggioService = messaggioService;
+    }
+
+    /**
+     * Setter per iniettare l'AccademicoService (utile per i test).
+     * @param accademicoService il service da iniettare
+     */
+    //@ requires accademicoService != null;
+    //@ ensures this.accademicoService == accademicoService;
+    public void setAccademicoService(AccademicoService accademicoService) {
+        this.accademicoService = accademicoService;
+    }
+
+    /**
+     * Gestisce le richieste GET per caricare una pagina di messaggi precedenti.
+     * L'utente corrente è sempre quello in sessione: non è possibile leggere conversazioni altrui.
+     * @param req la richiesta HTTP
+     * @param resp la risposta HTTP
+     */
+    //@ requires req != null;
+    //@ requires resp != null;
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            HttpSession session = req.getSession(false);
+            String emailSelf = session != null ? (String) session.getAttribute("utenteEmail") : null;
+            if (emailSelf == null) {
+                resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+
+            Accademico accademicoSelf = accademicoService.trovaEmailUniClass(emailSelf);
+            Accademico accademico = accademicoService.trovaEmailUniClass(req.getParameter("accademico"));
+            if (accademicoSelf == null || accademico == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            LocalDateTime prima = null;
+            long primaId = Long.MAX_VALUE;
+            String primaParam = req.getParameter("prima");
+            String primaIdParam = req.getParameter("primaId");
+            if (primaParam != null && !primaParam.isEmpty()) {
+                prima = LocalDateTime.parse(primaParam);
+                if (primaIdParam != null && !primaIdParam.isEmpty()) {
+                    primaId = Long.parseLong(primaIdParam);
+                }
+            }
+
+            int limite = MessaggioService.DIMENSIONE_PAGINA;
+            String limiteParam = req.getParameter("limite");
+            if (limiteParam != null && !limiteParam.isEmpty()) {
+                limite = Integer.parseInt(limiteParam);
+            }
+
+            List<MessaggioVista> messaggi = messaggioService.trovaConversazionePrecedenti(
+                    accademicoSelf.getMatricola(), accademico.getMatricola(), prima, primaId, limite);
+
+            JSONArray jsonArray = new JSONArray();
+            for (MessaggioVista messaggio : messaggi) {
+                JSONObject jsonMessaggio = new JSONObject();
+                jsonMessaggio.put("id", messaggio.id());
+                jsonMessaggio.put("body", messaggio.body());
+                jsonMessaggio.put("dateTime", String.valueOf(messaggio.dateTime()));
+                jsonMessaggio.put("self", accademicoSelf.getMatricola().equals(messaggio.autoreMatricola()));
+                if (messaggio.topic() != null) {
+                    jsonMessaggio.put("topic", messaggio.topic());
+                }
+                jsonArray.put(jsonMessaggio);
+            }
+
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.getWriter().write(jsonArray.toString());
+        } catch (DateTimeParseException | NumberFormatException e) {
+            try {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Cursore non valido");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        } catch (IOException e) {
+            req.getServletContext().log("Error processing caricaMessaggi request", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package it.unisa.uniclass.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Restituisce in JSON i messaggi e gli avvisi che contengono il testo cercato, dal più rilevante.
+ * La ricerca è sempre limitata a ciò che l'utente in sessione può leggere.
+ */
+@WebServlet(name = "cercaMessaggiServlet", value = "/cercaMessaggi")
+public class cercaMessaggiServlet extends HttpServlet {
+
+    /**
+     * Numero di risultati restituiti se non specificato diversamente.
+     */
+    public static final int RISULTATI = 20;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private MessaggioService messaggioService;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private AccademicoService accademicoService;
+
+    /**
+     * Setter per iniettare il MessaggioService (utile per i test).
+     * @param messaggioService il service da iniettare
+     */
+    //@ requires messaggioService != null;
+    //@ ensures this.messaggioService == messaggioService;
+    public void setMessaggioService(MessaggioService messaggioService) {
+        this.messaggioService = messaggioService;
+    }
+
+    /**
+     * Setter per iniettare l'AccademicoService (utile per i test).
+     * @param accademicoService il service da iniettare
+     */
+    //@ requires accademicoService != null;
+    //@ ensures this.accademicoService == accademicoService;
+    public void setAccademicoService(AccademicoService accademicoService) {
+        this.accademicoService = accademicoService;
+    }
+
+    /**
+     * Gestisce le richieste GET di ricerca.
+     * @param req la richiesta HTTP, con il testo nel parametro {@code q}
+     * @param resp la risposta HTTP
+     */
+    //@ requires req != null;
+    //@ requires resp != null;
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            HttpSession session = req.getSession(false);
+            String emailSelf = session != null ? (String) session.getAttribute("utenteEmail") : null;
+            if (emailSelf == null) {
+                resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+
+            Accademico accademicoSelf = accademicoService.trovaEmailUniClass(emailSelf);
+            if (accademicoSelf == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            int limite = RISULTATI;
+            String limiteParam = req.getParameter("limite");
+            if (limiteParam != null && !limiteParam.isEmpty()) {
+                limite = Integer.parseInt(limiteParam);
+            }
+
+            List<Messaggio> messaggi = messaggioService.cercaMessaggi(req.getParameter("q"), accademicoSelf, limite);
+
+            JSONArray jsonArray = new JSONArray();
+            for (Messaggio messaggio : messaggi) {
+                JSONObject jsonMessaggio = new JSONObject();
+                jsonMessaggio.put("id", messaggio.getId());
+                jsonMessaggio.put("body", messaggio.getBody());
+                jsonMessaggio.put("dateTime", String.valueOf(messaggio.getDateTime()));
+                if (messaggio.getTopic() != null) {
+                    jsonMessaggio.put("topic", messaggio.getTopic().getNome());
+                }
+                Accademico autore = messaggio.getAutore();
+                boolean self = autore != null && accademicoSelf.getMatricola().equals(autore.getMatricola());
+                jsonMessaggio.put("self", self);
+                if (autore != null) {
+                    jsonMessaggio.put("autore", autore.getNome() + " " + autore.getCognome());
+                }
+                // Per i messaggi diretti, l'altro utente della conversazione (per aprire la chat)
+                Accademico interlocutore = self ? messaggio.getDestinatario() : autore;
+                if (messaggio.getDestinatario() != null && interlocutore != null) {
+                    jsonMessaggio.put("interlocutore", interlocutore.getEmail());
+                }
+                jsonArray.put(jsonMessaggio);
+            }
+
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.getWriter().write(jsonArray.toString());
+        } catch (NumberFormatException e) {
+            try {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Limite non valido");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        } catch (IOException e) {
+            req.getServletContext().log("Error processing cercaMessaggi request", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+}
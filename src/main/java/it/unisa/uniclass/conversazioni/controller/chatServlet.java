@@ -1,9 +1,12 @@
 package it.unisa.uniclass.conversazioni.controller;
 
-import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.service.ConversazioneService;
 import it.unisa.uniclass.conversazioni.service.MessaggioService;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Principale;
 import it.unisa.uniclass.utenti.service.AccademicoService;
+import it.unisa.uniclass.utenti.service.UtenteService;
 import jakarta.ejb.EJB;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -14,6 +17,7 @@ import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @WebServlet(name = "chatServlet", value = "/chatServlet")
@@ -29,6 +33,16 @@ public class chatServlet extends HttpServlet {
     //@ nullable
     private AccademicoService accademicoService;
 
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private ConversazioneService conversazioneService;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private UtenteService utenteService;
+
     /**
      * Setter per iniettare il MessaggioService (utile per i test).
      * @param messaggioService il service da iniettare
@@ -39,6 +53,16 @@ public class chatServlet extends HttpServlet {
         this.messaggioService = messaggioService;
     }
 
+    /**
+     * Setter per iniettare il ConversazioneService (utile per i test).
+     * @param conversazioneService il service da iniettare
+     */
+    //@ requires conversazioneService != null;
+    //@ ensures this.conversazioneService == conversazioneService;
+    public void setConversazioneService(ConversazioneService conversazioneService) {
+        this.conversazioneService = conversazioneService;
+    }
+
     /**
      * Setter per iniettare l'AccademicoService (utile per i test).
      * @param accademicoService il service da iniettare
@@ -49,62 +73,72 @@ public class chatServlet extends HttpServlet {
         this.accademicoService = accademicoService;
     }
 
+    /**
+     * Setter per iniettare l'UtenteService (utile per i test).
+     * @param utenteService il service da iniettare
+     */
+    //@ requires utenteService != null;
+    //@ ensures this.utenteService == utenteService;
+    public void setUtenteService(UtenteService utenteService) {
+        this.utenteService = utenteService;
+    }
+
     /**
      * Gestisce le richieste GET per la chat.
-     * Carica i messaggi e gli accademici coinvolti nella conversazione.
+     * Carica l'ultima pagina dei messaggi e gli accademici coinvolti nella conversazione.
+     * L'utente corrente è sempre quello in sessione, risolto con {@link UtenteService#trovaUtente} e la sua cache:
+     * non è possibile leggere conversazioni altrui né segnarle come lette. A chat.jsp passano, come attributi
+     * della richiesta, i messaggi e le sole email dei due accademici, senza restare in sessione.
      * @param req la richiesta HTTP
      * @param resp la risposta HTTP
      */
     //@ requires req != null;
     //@ requires resp != null;
-    //@ requires req.getParameter("accademico") != null;
-    //@ requires req.getParameter("accademicoSelf") != null;
     @Override
     public void doGet(HttpServletRequest req, HttpServletResponse resp) {
         try {
-            //da rivedere
-            HttpSession session = req.getSession();
-
-
-            String email =  req.getParameter("accademico");
-            System.out.println("CHAT SERVLET email"+email);
-            String emailSelf =  req.getParameter("accademicoSelf");
-            System.out.println("CHAT SERVLET mia email"+email);
-            Accademico accademico = accademicoService.trovaEmailUniClass(email);
-            System.out.println("accademico altro: "+ accademico);
-            Accademico accademicoSelf = accademicoService.trovaEmailUniClass(emailSelf);
-            System.out.println("accademico self : "+ accademicoSelf);
-            List<Messaggio> messaggigi = messaggioService.trovaTutti();
-            System.out.println("tutti i messaggi: " + messaggigi);
-            //List<Messaggio> messaggi = messaggioService.trovaMessaggi(email, emailSelf);
-            //System.out.println("soli messaggi: " + messaggi);
-
-            List<Messaggio> messaggiInviati = new ArrayList<>();
-            List<Messaggio> messaggiRicevuti = new ArrayList<>();
-            for(Messaggio messaggio : messaggigi) {
-                if(messaggio.getDestinatario().getMatricola().equals(accademicoSelf.getMatricola())) {
+            HttpSession session = req.getSession(false);
+            Principale principale = session != null ? (Principale) session.getAttribute(Principale.ATTRIBUTO_SESSIONE) : null;
+            if (principale == null || principale.isPersonaleTA()) {
+                resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+
+            Accademico accademicoSelf = utenteService.trovaUtente(principale) instanceof Accademico trovato ? trovato : null;
+            Accademico accademico = accademicoSelf != null ? accademicoService.trovaEmailUniClass(req.getParameter("accademico")) : null;
+            if (accademicoSelf == null || accademico == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            //Solo l'ultima pagina della conversazione: le pagine precedenti sono caricate da caricaMessaggiServlet
+            List<MessaggioVista> messaggigi = new ArrayList<>(messaggioService.trovaConversazione(
+                    accademicoSelf.getMatricola(), accademico.getMatricola(), MessaggioService.DIMENSIONE_PAGINA));
+            Collections.reverse(messaggigi);
+
+            //Aprendo la chat i messaggi ricevuti dall'interlocutore risultano letti
+            conversazioneService.segnaLetta(accademicoSelf, accademico);
+
+            List<MessaggioVista> messaggiInviati = new ArrayList<>();
+            List<MessaggioVista> messaggiRicevuti = new ArrayList<>();
+            for(MessaggioVista messaggio : messaggigi) {
+                if(accademicoSelf.getMatricola().equals(messaggio.destinatarioMatricola())) {
                     messaggiRicevuti.add(messaggio);
                 }
-                if(messaggio.getAutore().getMatricola().equals(accademicoSelf.getMatricola())) {
+                if(accademicoSelf.getMatricola().equals(messaggio.autoreMatricola())) {
                     messaggiInviati.add(messaggio);
                 }
             }
-            System.out.println("messaggi inviati: " + messaggiInviati);
-            System.out.println("messaggi ricevuti: " + messaggiRicevuti);
 
 
             req.setAttribute("messaggigi", messaggigi);
-            session.setAttribute("messaggigi", messaggigi);
-            //req.setAttribute("messaggi", messaggi);
             req.setAttribute("messaggiInviati", messaggiInviati);
             req.setAttribute("messaggiRicevuti", messaggiRicevuti);
-            req.setAttribute("accademico", accademico);
-            session.setAttribute("accademico",accademico);
-            session.setAttribute("accademicoSelf", accademicoSelf);
-            req.setAttribute("accdemicoSelf", accademicoSelf);
+            req.setAttribute("emailAccademico", accademico.getEmail());
+            req.setAttribute("emailSelf", accademicoSelf.getEmail());
 
-            resp.sendRedirect(req.getContextPath() + "/chat.jsp");
-        } catch (IOException e) {
+            req.getRequestDispatcher("/chat.jsp").forward(req, resp);
+        } catch (ServletException | IOException e) {
             req.getServletContext().log("Error processing chat request", e);
             try {
                 resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
@@ -1,7 +1,6 @@
 package it.unisa.uniclass.conversazioni.controller;
 
 import it.unisa.uniclass.conversazioni.model.Messaggio;
-import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.conversazioni.service.MessaggioService;
 import it.unisa.uniclass.utenti.model.Accademico;
 import it.unisa.uniclass.utenti.service.AccademicoService;
@@ -15,7 +14,6 @@ import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @WebServlet(name = "inviaMessaggioChat", value = "/inviaMessaggioChatServlet")
 public class inviaMessaggioChatServlet extends HttpServlet {
@@ -79,28 +77,18 @@ public class inviaMessaggioChatServlet extends HttpServlet {
             Accademico accademicoDest = accademicoService.trovaEmailUniClass(emailDest);
 
 
-            Topic top = new Topic();
-            top.setCorsoLaurea(accademicoSelf.getCorsoLaurea());
-            top.setNome("VUOTO");
-
-            // Crea un nuovo messaggio
+            // Crea un nuovo messaggio: i messaggi diretti non hanno topic
             Messaggio messaggio1 = new Messaggio();
             messaggio1.setAutore(accademicoSelf);
             messaggio1.setDestinatario(accademicoDest);
             messaggio1.setBody(messaggio);
             messaggio1.setDateTime(LocalDateTime.now());
-            messaggio1.setTopic(top);
 
 
-            // Salva il messaggio
+            // Salva il messaggio: la chat viene ricaricata da chatServlet, non serve rileggere i messaggi qui
             messaggioService.aggiungiMessaggio(messaggio1);
 
-
-            List<Messaggio> messaggi = messaggioService.trovaTutti();
-
-            request.setAttribute("messaggi", messaggi);
-            request.setAttribute("accademici", messaggioService.trovaMessaggeriDiUnAccademico(accademicoSelf.getMatricola()));
-            response.sendRedirect("chatServlet?accademico="+accademicoDest.getEmail()+"&accademicoSelf="+accademicoSelf.getEmail());
+            response.sendRedirect("chatServlet?accademico="+accademicoDest.getEmail());
         } catch (IOException e) {
             request.getServletContext().log("Error processing chat message request", e);
             try {
@@ -2,6 +2,7 @@ package it.unisa.uniclass.conversazioni.controller;
 import it.unisa.uniclass.conversazioni.model.Messaggio;
 import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.conversazioni.service.TopicService;
 import it.unisa.uniclass.utenti.model.Accademico;
 import it.unisa.uniclass.utenti.service.AccademicoService;
 import jakarta.ejb.EJB;
@@ -14,7 +15,6 @@ import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @WebServlet(name = "invioMessaggio", value = "/invioMessaggioServlet")
 public class invioMessaggioServlet extends HttpServlet {
@@ -29,6 +29,14 @@ public class invioMessaggioServlet extends HttpServlet {
     //@ nullable
     private AccademicoService accademicoService;
 
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private TopicService topicService;
+
+    //@ spec_public
+    private FeedAvvisi feed = FeedAvvisi.getIstanza();
+
     /**
      * Setter per iniettare il MessaggioService (utile per i test).
      * @param messaggioService il service da iniettare
@@ -49,6 +57,26 @@ public class invioMessaggioServlet extends HttpServlet {
         this.accademicoService = accademicoService;
     }
 
+    /**
+     * Setter per iniettare il TopicService (utile per i test).
+     * @param topicService il service da iniettare
+     */
+    //@ requires topicService != null;
+    //@ ensures this.topicService == topicService;
+    public void setTopicService(TopicService topicService) {
+        this.topicService = topicService;
+    }
+
+    /**
+     * Setter per iniettare il feed degli avvisi (utile per i test).
+     * @param feed il feed da usare
+     */
+    //@ requires feed != null;
+    //@ ensures this.feed == feed;
+    public void setFeed(FeedAvvisi feed) {
+        this.feed = feed;
+    }
+
     /**
      * Gestisce le richieste GET per inviare un messaggio o un avviso.
      * @param request la richiesta HTTP
@@ -78,31 +106,23 @@ public class invioMessaggioServlet extends HttpServlet {
             Accademico accademicoSelf = accademicoService.trovaEmailUniClass(emailSession);
             Accademico accademicoDest = accademicoService.trovaEmailUniClass(emailDest);
 
-            Topic top = new Topic();
-            if(topic != null) {
-                top.setNome(topic);
-                top.setCorsoLaurea(accademicoSelf.getCorsoLaurea());
+            // Il topic viene riusato se esiste già per il corso di laurea, invece di crearne uno per messaggio
+            Topic top = null;
+            if(topic != null && !topic.isBlank() && !topic.equals("null")) {
+                top = topicService.risolviTopic(topic, accademicoSelf.getCorsoLaurea(), null);
             }
 
-
-
             Messaggio messaggio1 = new Messaggio();
             messaggio1.setAutore(accademicoSelf);
             messaggio1.setDestinatario(accademicoDest);
             messaggio1.setBody(messaggio);
             messaggio1.setDateTime(LocalDateTime.now());
-            if(topic != null) {
-                messaggio1.setTopic(top);
-            }
+            messaggio1.setTopic(top);
             Messaggio test = messaggioService.aggiungiMessaggio(messaggio1);
-            Long messageId = test.getId();
-            System.out.println("Messaggio ID: " + messageId + " - " + test + "\n\n nella servlet");
-            List<Messaggio> messaggi = messaggioService.trovaTutti();
-            System.out.println(messaggi);
-
+            // Gli avvisi vengono spinti subito agli stream SSE aperti; i messaggi diretti vengono ignorati dal feed
+            feed.pubblica(test);
 
-            request.setAttribute("messaggi", messaggi);
-            request.setAttribute("accademici", messaggioService.trovaMessaggeriDiUnAccademico(accademicoSelf.getMatricola()));
+            // Gli attributi della richiesta andrebbero persi con il redirect: la casella viene ricaricata da ConversazioniServlet
             response.sendRedirect("Conversazioni");
         } catch (IOException e) {
             request.getServletContext().log("Error processing message sending request", e);
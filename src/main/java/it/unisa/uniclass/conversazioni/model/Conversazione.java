@@ -0,0 +1,300 @@
+package it.unisa.uniclass.conversazioni.model;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Riepilogo di una conversazione vista da uno dei due partecipanti.
+ * Per ogni coppia (proprietario, interlocutore) esiste una sola riga, aggiornata a ogni nuovo messaggio,
+ * con l'anteprima dell'ultimo messaggio, la sua data e il numero di messaggi non ancora letti dal proprietario.
+ * */
+@Entity
+@Access(AccessType.FIELD)
+@Table(name = "conversazioni",
+        uniqueConstraints = @UniqueConstraint(name = "uk_conversazioni_proprietario_interlocutore", columnNames = {"proprietario", "interlocutore"}),
+        indexes = @Index(name = "idx_conversazioni_proprietario_data", columnList = "proprietario, dataUltimoMessaggio"))
+@NamedNativeQuery(name = "Conversazione.registraMessaggio", query =
+        "INSERT INTO conversazioni (proprietario, interlocutore, anteprima, dataultimomessaggio, nonletti) VALUES (?1, ?2, ?3, ?4, ?5)"
+        + " ON CONFLICT (proprietario, interlocutore) DO UPDATE SET anteprima = EXCLUDED.anteprima,"
+        + " dataultimomessaggio = EXCLUDED.dataultimomessaggio, nonletti = conversazioni.nonletti + EXCLUDED.nonletti")
+@NamedQueries({
+        @NamedQuery(name = "Conversazione.trovaConversazioniProprietario", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.ConversazioneVista(i.email, i.nome, i.cognome, i.tipo, c.anteprima, c.dataUltimoMessaggio, c.nonLetti) FROM Conversazione c JOIN c.interlocutore i WHERE c.proprietario.matricola = :matricola ORDER BY c.dataUltimoMessaggio DESC"),
+        @NamedQuery(name = "Conversazione.segnaLetta", query = "UPDATE Conversazione c SET c.nonLetti = 0 WHERE c.proprietario = :proprietario AND c.interlocutore = :interlocutore AND c.nonLetti > 0")
+})
+public class Conversazione implements Serializable {
+
+    /**
+     * Nome della query per trovare le conversazioni di un utente, dalla più recente, come {@link ConversazioneVista}.
+     * */
+    public static final String TROVA_CONVERSAZIONI_PROPRIETARIO = "Conversazione.trovaConversazioniProprietario";
+    /**
+     * Nome della query nativa che crea il riepilogo di una conversazione o, se esiste già, ne aggiorna
+     * l'ultimo messaggio e somma l'incremento ai non letti, con un solo INSERT ... ON CONFLICT.
+     * */
+    public static final String REGISTRA_MESSAGGIO = "Conversazione.registraMessaggio";
+    /**
+     * Nome della query per azzerare i messaggi non letti di una conversazione.
+     * */
+    public static final String SEGNA_LETTA = "Conversazione.segnaLetta";
+
+    /**
+     * Lunghezza massima dell'anteprima dell'ultimo messaggio.
+     * */
+    public static final int LUNGHEZZA_ANTEPRIMA = 100;
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    //@ spec_public
+    //@ nullable
+    private Long id;
+
+    /**
+     * Utente a cui appartiene il riepilogo.
+     * */
+    @ManyToOne
+    @JoinColumn(name = "proprietario", nullable = false)
+    //@ spec_public
+    //@ nullable
+    private Accademico proprietario;
+
+    /**
+     * L'altro partecipante della conversazione.
+     * */
+    @ManyToOne
+    @JoinColumn(name = "interlocutore", nullable = false)
+    //@ spec_public
+    //@ nullable
+    private Accademico interlocutore;
+
+    /**
+     * Anteprima del corpo dell'ultimo messaggio scambiato.
+     * */
+    @Column(length = LUNGHEZZA_ANTEPRIMA)
+    //@ spec_public
+    //@ nullable
+    private String anteprima;
+
+    /**
+     * Data e ora dell'ultimo messaggio scambiato.
+     * */
+    //@ spec_public
+    //@ nullable
+    private LocalDateTime dataUltimoMessaggio;
+
+    /**
+     * Numero di messaggi ricevuti dal proprietario e non ancora letti.
+     * */
+    //@ spec_public
+    private int nonLetti;
+
+    /**
+     * Costruttore vuoto necessario per JPA.
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures true;
+      @*/
+    public Conversazione() {}
+
+    /**
+     * Costruttore per inizializzare il riepilogo di una conversazione.
+     *
+     * @param proprietario L'utente a cui appartiene il riepilogo
+     * @param interlocutore L'altro partecipante della conversazione
+     * @param anteprima L'anteprima dell'ultimo messaggio
+     * @param dataUltimoMessaggio La data dell'ultimo messaggio
+     * @param nonLetti Il numero di messaggi non letti
+     * */
+    /*@ public normal_behavior
+      @ requires nonLetti >= 0;
+      @ assignable this.proprietario, this.interlocutore, this.anteprima, this.dataUltimoMessaggio, this.nonLetti;
+      @ ensures this.proprietario == proprietario;
+      @ ensures this.interlocutore == interlocutore;
+      @ ensures this.dataUltimoMessaggio == dataUltimoMessaggio;
+      @ ensures this.nonLetti == nonLetti;
+      @*/
+    public Conversazione(Accademico proprietario, Accademico interlocutore, String anteprima, LocalDateTime dataUltimoMessaggio, int nonLetti) {
+        this.proprietario = proprietario;
+        this.interlocutore = interlocutore;
+        this.anteprima = creaAnteprima(anteprima);
+        this.dataUltimoMessaggio = dataUltimoMessaggio;
+        this.nonLetti = nonLetti;
+    }
+
+    /**
+     * Tronca il corpo di un messaggio alla lunghezza massima dell'anteprima.
+     *
+     * @param body Il corpo del messaggio
+     * @return L'anteprima del messaggio
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures body == null ==> \result == null;
+      @*/
+    public static /*@ nullable */ String creaAnteprima(String body) {
+        if (body == null || body.length() <= LUNGHEZZA_ANTEPRIMA) {
+            return body;
+        }
+        return body.substring(0, LUNGHEZZA_ANTEPRIMA - 3) + "...";
+    }
+
+    /**
+     * Restituisce l'ID del riepilogo.
+     *
+     * @return L'ID
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == id;
+      @*/
+    public /*@ nullable */ Long getId() {
+        return id;
+    }
+
+    /**
+     * Restituisce l'utente a cui appartiene il riepilogo.
+     *
+     * @return Il proprietario
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == proprietario;
+      @*/
+    public /*@ nullable */ Accademico getProprietario() {
+        return proprietario;
+    }
+
+    /**
+     * Imposta l'utente a cui appartiene il riepilogo.
+     *
+     * @param proprietario Il proprietario da impostare
+     * */
+    /*@ public normal_behavior
+      @ assignable this.proprietario;
+      @ ensures this.proprietario == proprietario;
+      @*/
+    public void setProprietario(Accademico proprietario) {
+        this.proprietario = proprietario;
+    }
+
+    /**
+     * Restituisce l'altro partecipante della conversazione.
+     *
+     * @return L'interlocutore
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == interlocutore;
+      @*/
+    public /*@ nullable */ Accademico getInterlocutore() {
+        return interlocutore;
+    }
+
+    /**
+     * Imposta l'altro partecipante della conversazione.
+     *
+     * @param interlocutore L'interlocutore da impostare
+     * */
+    /*@ public normal_behavior
+      @ assignable this.interlocutore;
+      @ ensures this.interlocutore == interlocutore;
+      @*/
+    public void setInterlocutore(Accademico interlocutore) {
+        this.interlocutore = interlocutore;
+    }
+
+    /**
+     * Restituisce l'anteprima dell'ultimo messaggio.
+     *
+     * @return L'anteprima
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == anteprima;
+      @*/
+    public /*@ nullable */ String getAnteprima() {
+        return anteprima;
+    }
+
+    /**
+     * Imposta l'anteprima dell'ultimo messaggio, troncandola se necessario.
+     *
+     * @param anteprima L'anteprima da impostare
+     * */
+    /*@ public normal_behavior
+      @ assignable this.anteprima;
+      @*/
+    public void setAnteprima(String anteprima) {
+        this.anteprima = creaAnteprima(anteprima);
+    }
+
+    /**
+     * Restituisce la data e ora dell'ultimo messaggio.
+     *
+     * @return La data dell'ultimo messaggio
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == dataUltimoMessaggio;
+      @*/
+    public /*@ nullable */ LocalDateTime getDataUltimoMessaggio() {
+        return dataUltimoMessaggio;
+    }
+
+    /**
+     * Imposta la data e ora dell'ultimo messaggio.
+     *
+     * @param dataUltimoMessaggio La data da impostare
+     * */
+    /*@ public normal_behavior
+      @ assignable this.dataUltimoMessaggio;
+      @ ensures this.dataUltimoMessaggio == dataUltimoMessaggio;
+      @*/
+    public void setDataUltimoMessaggio(LocalDateTime dataUltimoMessaggio) {
+        this.dataUltimoMessaggio = dataUltimoMessaggio;
+    }
+
+    /**
+     * Restituisce il numero di messaggi non letti.
+     *
+     * @return Il numero di messaggi non letti
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == nonLetti;
+      @*/
+    public int getNonLetti() {
+        return nonLetti;
+    }
+
+    /**
+     * Imposta il numero di messaggi non letti.
+     *
+     * @param nonLetti Il numero da impostare
+     * */
+    /*@ public normal_behavior
+      @ requires nonLetti >= 0;
+      @ assignable this.nonLetti;
+      @ ensures this.nonLetti == nonLetti;
+      @*/
+    public void setNonLetti(int nonLetti) {
+        this.nonLetti = nonLetti;
+    }
+
+    /**
+     * Restituisce una rappresentazione testuale del riepilogo.
+     *
+     * @return Stringa descrittiva della conversazione
+     * */
+    @Override
+    public String toString() {
+        return "Conversazione{" +
+                "id=" + id +
+                ", anteprima='" + anteprima + '\'' +
+                ", dataUltimoMessaggio=" + dataUltimoMessaggio +
+                ", nonLetti=" + nonLetti +
+                '}';
+    }
+}
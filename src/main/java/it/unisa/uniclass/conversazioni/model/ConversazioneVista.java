@@ -0,0 +1,23 @@
+package it.unisa.uniclass.conversazioni.model;
+
+import it.unisa.uniclass.utenti.model.Tipo;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Proiezione di una riga della casella delle conversazioni: il riepilogo con i soli dati
+ * dell'interlocutore mostrati nella lista, senza caricare l'entità {@code Accademico}.
+ *
+ * @param interlocutoreEmail L'email dell'interlocutore
+ * @param interlocutoreNome Il nome dell'interlocutore
+ * @param interlocutoreCognome Il cognome dell'interlocutore
+ * @param interlocutoreTipo Il tipo di utente dell'interlocutore
+ * @param anteprima L'anteprima dell'ultimo messaggio
+ * @param dataUltimoMessaggio La data dell'ultimo messaggio
+ * @param nonLetti Il numero di messaggi non letti
+ */
+public record ConversazioneVista(String interlocutoreEmail, String interlocutoreNome, String interlocutoreCognome,
+                                 Tipo interlocutoreTipo, String anteprima, LocalDateTime dataUltimoMessaggio,
+                                 int nonLetti) implements Serializable {
+}
@@ -13,14 +13,34 @@ import java.time.LocalDateTime;
  * */
 @Entity
 @Access(AccessType.FIELD)
-@Table(name = "messaggi")
+@Table(name = "messaggi", indexes = {
+        @Index(name = "idx_messaggi_autore_destinatario_data", columnList = "autore, destinatario, dateTime, id"),
+        @Index(name = "idx_messaggi_destinatario_autore_data", columnList = "destinatario, autore, dateTime, id"),
+        @Index(name = "idx_messaggi_topic", columnList = "topic, id"),
+        @Index(name = "idx_messaggi_data", columnList = "dateTime, id")
+})
+@NamedNativeQueries({
+        @NamedNativeQuery(name = "Messaggio.trovaEpoca", query = "SELECT CAST(CAST(CAST('messaggi' AS regclass) AS oid) AS BIGINT)"),
+        @NamedNativeQuery(name = "Messaggio.bloccaArchiviazione", query = "SELECT pg_try_advisory_xact_lock(?1)")
+})
 @NamedQueries({
         @NamedQuery(name = "Messaggio.trovaMessaggio", query = "SELECT m FROM Messaggio m WHERE m.id = :id"),
         @NamedQuery(name = "Messaggio.trovaMessaggiInviati", query = "SELECT m FROM Messaggio m WHERE m.autore.matricola = :matricola"),
         @NamedQuery(name = "Messaggio.trovaMessaggiRicevuti", query = "SELECT m FROM Messaggio m WHERE m.destinatario.matricola = :matricola"),
         @NamedQuery(name = "Messaggio.trovaMessaggiMessaggeri", query = "SELECT m FROM Messaggio m WHERE ((m.autore.matricola = :autore) AND (m.destinatario.matricola = :destinatario)) OR ((m.autore.matricola = :destinatario) AND (m.destinatario.matricola = :autore))"),
+        @NamedQuery(name = "Messaggio.trovaConversazioneRecenti", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, co.id) FROM Messaggio m JOIN m.autore a LEFT JOIN m.destinatario d LEFT JOIN m.topic t LEFT JOIN t.corso co WHERE ((a.matricola = :autore) AND (d.matricola = :destinatario)) OR ((a.matricola = :destinatario) AND (d.matricola = :autore)) ORDER BY m.dateTime DESC, m.id DESC"),
+        @NamedQuery(name = "Messaggio.trovaConversazionePrecedenti", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, co.id) FROM Messaggio m JOIN m.autore a LEFT JOIN m.destinatario d LEFT JOIN m.topic t LEFT JOIN t.corso co WHERE (((a.matricola = :autore) AND (d.matricola = :destinatario)) OR ((a.matricola = :destinatario) AND (d.matricola = :autore))) AND ((m.dateTime < :dateTime) OR (m.dateTime = :dateTime AND m.id < :id)) ORDER BY m.dateTime DESC, m.id DESC"),
         @NamedQuery(name = "Messaggio.trovaTutti", query = "SELECT m FROM Messaggio m"),
+        @NamedQuery(name = "Messaggio.trovaMessaggiId", query = "SELECT m FROM Messaggio m WHERE m.id IN :ids"),
+        @NamedQuery(name = "Messaggio.trovaMessaggiDopo", query = "SELECT m FROM Messaggio m WHERE m.id > :id ORDER BY m.id"),
+        @NamedQuery(name = "Messaggio.trovaUltimoId", query = "SELECT MAX(m.id) FROM Messaggio m"),
+        @NamedQuery(name = "Messaggio.trovaMessaggiPrima", query = "SELECT m FROM Messaggio m WHERE m.dateTime < :dateTime ORDER BY m.dateTime, m.id"),
         @NamedQuery(name = "Messaggio.trovaAvvisi", query = "SELECT m FROM Messaggio m WHERE m.topic <> null"),
+        @NamedQuery(name = "Messaggio.trovaAvvisiCorsoLaureaDopo", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, c.id) FROM Messaggio m JOIN m.autore a LEFT JOIN m.destinatario d JOIN m.topic t LEFT JOIN t.corsoLaurea cl LEFT JOIN t.corso c LEFT JOIN c.corsoLaurea ccl WHERE m.destinatario IS NULL AND m.id > :id AND (cl.id = :corsoLaurea OR ccl.id = :corsoLaurea) ORDER BY m.id"),
+        @NamedQuery(name = "Messaggio.trovaAvvisiCorsoLaureaRecenti", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, c.id) FROM Messaggio m JOIN m.autore a LEFT JOIN m.destinatario d JOIN m.topic t LEFT JOIN t.corsoLaurea cl LEFT JOIN t.corso c LEFT JOIN c.corsoLaurea ccl WHERE m.destinatario IS NULL AND (cl.id = :corsoLaurea OR ccl.id = :corsoLaurea) ORDER BY m.id DESC"),
+        @NamedQuery(name = "Messaggio.trovaAvvisiCorsoDopo", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, c.id) FROM Messaggio m JOIN m.autore a LEFT JOIN m.destinatario d JOIN m.topic t LEFT JOIN t.corsoLaurea cl LEFT JOIN t.corso c LEFT JOIN c.corsoLaurea ccl WHERE m.destinatario IS NULL AND m.id > :id AND c.id = :corso AND (cl.id = :corsoLaurea OR ccl.id = :corsoLaurea) ORDER BY m.id"),
+        @NamedQuery(name = "Messaggio.trovaAvvisiCorsoRecenti", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, c.id) FROM Messaggio m JOIN m.autore a LEFT JOIN m.destinatario d JOIN m.topic t LEFT JOIN t.corsoLaurea cl LEFT JOIN t.corso c LEFT JOIN c.corsoLaurea ccl WHERE m.destinatario IS NULL AND c.id = :corso AND (cl.id = :corsoLaurea OR ccl.id = :corsoLaurea) ORDER BY m.id DESC"),
+        @NamedQuery(name = "Messaggio.trovaMessaggeri", query = "SELECT DISTINCT NEW it.unisa.uniclass.utenti.model.AccademicoVista(a.matricola, a.email, a.nome, a.cognome, a.tipo) FROM Messaggio m JOIN m.autore a WHERE m.destinatario.matricola = :matricola"),
         @NamedQuery(name = "Messaggio.trovaAvvisiAutore", query = "SELECT m FROM Messaggio m WHERE m.topic <> null AND m.autore.matricola = :autore"),
         @NamedQuery(name = "Messaggio.trovaMessaggiData", query = "SELECT m FROM Messaggio m WHERE m.dateTime = :dateTime"),
         @NamedQuery(name = "Messaggio.trovaTopic", query = "SELECT m FROM Messaggio m WHERE m.topic = :topic")
@@ -41,14 +61,69 @@ public class Messaggio implements Serializable {
      */
     public static final String TROVA_MESSAGGI_RICEVUTI = "Messaggio.trovaMessaggiRicevuti";
 
+    /**
+     * Nome della query per trovare gli autori dei messaggi ricevuti da un accademico, come {@code AccademicoVista}.
+     * */
+    public static final String TROVA_MESSAGGERI = "Messaggio.trovaMessaggeri";
+
     /**
      * Nome della query per trovare i messaggi tra due specifici utenti.
      * */
     public static final String TROVA_MESSAGGI_MESSAGGERI = "Messaggio.trovaMessaggiMessaggeri";
+    /**
+     * Nome della query per trovare gli ultimi messaggi tra due utenti, dal più recente, come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_CONVERSAZIONE_RECENTI = "Messaggio.trovaConversazioneRecenti";
+    /**
+     * Nome della query per trovare i messaggi tra due utenti precedenti a un cursore (dateTime, id), come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_CONVERSAZIONE_PRECEDENTI = "Messaggio.trovaConversazionePrecedenti";
+    /**
+     * Nome della query per trovare gli avvisi di un corso di laurea successivi a un dato ID, come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_AVVISI_CORSO_LAUREA_DOPO = "Messaggio.trovaAvvisiCorsoLaureaDopo";
+    /**
+     * Nome della query per trovare gli avvisi più recenti di un corso di laurea, come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_AVVISI_CORSO_LAUREA_RECENTI = "Messaggio.trovaAvvisiCorsoLaureaRecenti";
+    /**
+     * Nome della query per trovare gli avvisi di un corso, nel corso di laurea indicato, successivi a un dato ID, come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_AVVISI_CORSO_DOPO = "Messaggio.trovaAvvisiCorsoDopo";
+    /**
+     * Nome della query per trovare gli avvisi più recenti di un corso, nel corso di laurea indicato, come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_AVVISI_CORSO_RECENTI = "Messaggio.trovaAvvisiCorsoRecenti";
     /**
      * Nome della query per trovare tutti i messsaggi.
      * */
     public static final String TROVA_TUTTI = "Messaggio.trovaTutti";
+    /**
+     * Nome della query per trovare i messaggi con gli ID indicati.
+     * */
+    public static final String TROVA_MESSAGGI_ID = "Messaggio.trovaMessaggiId";
+    /**
+     * Nome della query per trovare i messaggi successivi a un dato ID, in ordine di ID.
+     * */
+    public static final String TROVA_MESSAGGI_DOPO = "Messaggio.trovaMessaggiDopo";
+    /**
+     * Nome della query per trovare l'ID più alto tra i messaggi.
+     * */
+    public static final String TROVA_ULTIMO_ID = "Messaggio.trovaUltimoId";
+    /**
+     * Nome della query nativa che restituisce l'OID della tabella dei messaggi: cambia ogni volta che
+     * la tabella viene ricreata, e identifica quindi la "generazione" del database a cui appartengono gli ID.
+     * */
+    public static final String TROVA_EPOCA = "Messaggio.trovaEpoca";
+    /**
+     * Nome della query nativa che prova a prendere, senza attendere, un lock consultivo di Postgres
+     * rilasciato alla fine della transazione. Impedisce a due istanze di archiviare lo stesso lotto.
+     * */
+    public static final String BLOCCA_ARCHIVIAZIONE = "Messaggio.bloccaArchiviazione";
+    /**
+     * Nome della query per trovare i messaggi precedenti a una data, dal meno recente.
+     * */
+    public static final String TROVA_MESSAGGI_PRIMA = "Messaggio.trovaMessaggiPrima";
     /**
      * Nome della query per trovare tutti gli avvisi.
      * */
@@ -66,7 +141,16 @@ public class Messaggio implements Serializable {
      */
     public static final String TROVA_TOPIC = "Messaggio.trovaTopic";
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    /**
+     * Gli ID vengono presi da una sequenza prima dell'inserimento: a differenza di IDENTITY, gli inserimenti
+     * di un lotto possono così essere inviati con un batch JDBC.
+     * La sequenza avanza di uno alla volta: con blocchi preallocati ogni nodo userebbe un proprio intervallo
+     * di ID, e l'ordine degli ID smetterebbe di seguire l'ordine di inserimento su cui si basano la ripresa
+     * del feed degli avvisi (Last-Event-ID) e l'allineamento dell'indice di ricerca.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messaggi_seq")
+    @SequenceGenerator(name = "messaggi_seq", sequenceName = "messaggi_seq", allocationSize = 1)
     //@ spec_public
     //@ nullable
     private Long id;
@@ -105,10 +189,11 @@ public class Messaggio implements Serializable {
     private Accademico destinatario;
 
     /**
-     * Topic del messaggio eventuale.
+     * Topic del messaggio eventuale. Null per i messaggi diretti; gli avvisi usano un topic
+     * già salvato, ottenuto da {@code TopicService.risolviTopic}, per cui non c'è cascata sul persist.
      */
 
-    @ManyToOne(cascade = CascadeType.PERSIST)
+    @ManyToOne
     @JoinColumn(name = "topic")
     //@ spec_public
     //@ nullable
@@ -202,6 +287,26 @@ public class Messaggio implements Serializable {
         this.dateTime = dateTime;
     }
 
+    /**
+     * Ricostruisce un messaggio spostato nell'archivio, con lo stesso ID che aveva prima dell'archiviazione.
+     * Il messaggio ottenuto è in sola lettura: non va salvato, perché non appartiene più alla tabella {@code messaggi}.
+     *
+     * @param archiviato Il messaggio archiviato
+     * */
+    /*@ public normal_behavior
+      @ requires archiviato != null;
+      @ assignable \everything;
+      @ ensures this.id == archiviato.getId();
+      @*/
+    Messaggio(MessaggioArchiviato archiviato) {
+        this.id = archiviato.getId();
+        this.autore = archiviato.getAutore();
+        this.destinatario = archiviato.getDestinatario();
+        this.topic = archiviato.getTopic();
+        this.body = archiviato.getBody();
+        this.dateTime = archiviato.getDateTime();
+    }
+
 
     /**
      * Restituisce la data e ora di creazione del messaggio.
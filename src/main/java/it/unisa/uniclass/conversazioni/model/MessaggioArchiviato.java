@@ -0,0 +1,216 @@
+package it.unisa.uniclass.conversazioni.model;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+
+/**
+ * Messaggio spostato nell'archivio perché più vecchio dell'orizzonte di archiviazione.
+ * Ha le stesse colonne di {@link Messaggio} e ne conserva l'ID, così la tabella {@code messaggi}
+ * contiene solo i mesi recenti e i suoi indici non crescono con gli anni di storico.
+ * L'archivio viene letto solo quando si caricano i messaggi più vecchi di una conversazione.
+ * */
+@Entity
+@Access(AccessType.FIELD)
+@Table(name = "messaggi_archivio", indexes = {
+        @Index(name = "idx_messaggi_archivio_autore_destinatario_data", columnList = "autore, destinatario, dateTime, id"),
+        @Index(name = "idx_messaggi_archivio_destinatario_autore_data", columnList = "destinatario, autore, dateTime, id")
+})
+@NamedQueries({
+        @NamedQuery(name = "MessaggioArchiviato.trovaConversazioneRecenti", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, co.id) FROM MessaggioArchiviato m JOIN m.autore a LEFT JOIN m.destinatario d LEFT JOIN m.topic t LEFT JOIN t.corso co WHERE ((a.matricola = :autore) AND (d.matricola = :destinatario)) OR ((a.matricola = :destinatario) AND (d.matricola = :autore)) ORDER BY m.dateTime DESC, m.id DESC"),
+        @NamedQuery(name = "MessaggioArchiviato.trovaConversazionePrecedenti", query = "SELECT NEW it.unisa.uniclass.conversazioni.model.MessaggioVista(m.id, m.body, m.dateTime, a.matricola, a.email, a.nome, a.cognome, d.matricola, d.email, t.nome, co.id) FROM MessaggioArchiviato m JOIN m.autore a LEFT JOIN m.destinatario d LEFT JOIN m.topic t LEFT JOIN t.corso co WHERE (((a.matricola = :autore) AND (d.matricola = :destinatario)) OR ((a.matricola = :destinatario) AND (d.matricola = :autore))) AND ((m.dateTime < :dateTime) OR (m.dateTime = :dateTime AND m.id < :id)) ORDER BY m.dateTime DESC, m.id DESC"),
+        @NamedQuery(name = "MessaggioArchiviato.trovaMessaggiId", query = "SELECT m FROM MessaggioArchiviato m WHERE m.id IN :ids"),
+        @NamedQuery(name = "MessaggioArchiviato.trovaUltimoId", query = "SELECT MAX(m.id) FROM MessaggioArchiviato m")
+})
+public class MessaggioArchiviato implements Serializable {
+
+    /**
+     * Nome della query per trovare i messaggi archiviati più recenti tra due utenti, come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_CONVERSAZIONE_RECENTI = "MessaggioArchiviato.trovaConversazioneRecenti";
+    /**
+     * Nome della query per trovare i messaggi archiviati tra due utenti precedenti a un cursore (dateTime, id), come {@link MessaggioVista}.
+     * */
+    public static final String TROVA_CONVERSAZIONE_PRECEDENTI = "MessaggioArchiviato.trovaConversazionePrecedenti";
+    /**
+     * Nome della query per trovare i messaggi archiviati con gli ID indicati.
+     * */
+    public static final String TROVA_MESSAGGI_ID = "MessaggioArchiviato.trovaMessaggiId";
+    /**
+     * Nome della query per trovare l'ID più alto tra i messaggi archiviati.
+     * */
+    public static final String TROVA_ULTIMO_ID = "MessaggioArchiviato.trovaUltimoId";
+
+    /**
+     * L'ID del messaggio originale: non viene generato di nuovo.
+     */
+    @Id
+    //@ spec_public
+    //@ nullable
+    private Long id;
+
+    /**
+     * Data e ora di creazione del messaggio.
+     */
+    //@ spec_public
+    //@ nullable
+    private LocalDateTime dateTime;
+
+    /**
+     * Corpo del messaggio.
+     * */
+    @Column(nullable = false)
+    //@ spec_public
+    //@ nullable
+    private String body;
+
+    /**
+     * Autore del messaggio.
+     * */
+    @ManyToOne
+    @JoinColumn(name = "autore")
+    //@ spec_public
+    //@ nullable
+    private Accademico autore;
+
+    /**
+     * Destinatario del messaggio, null per gli avvisi.
+     * */
+    @ManyToOne
+    @JoinColumn(name = "destinatario")
+    //@ spec_public
+    //@ nullable
+    private Accademico destinatario;
+
+    /**
+     * Topic del messaggio eventuale.
+     * */
+    @ManyToOne
+    @JoinColumn(name = "topic")
+    //@ spec_public
+    //@ nullable
+    private Topic topic;
+
+    /**
+     * Costruttore vuoto necessario per JPA.
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures true;
+      @*/
+    public MessaggioArchiviato() {}
+
+    /**
+     * Crea la copia d'archivio di un messaggio già salvato.
+     *
+     * @param messaggio Il messaggio da archiviare
+     * */
+    /*@ public normal_behavior
+      @ requires messaggio != null;
+      @ assignable \everything;
+      @ ensures this.id == messaggio.getId();
+      @*/
+    public MessaggioArchiviato(Messaggio messaggio) {
+        this.id = messaggio.getId();
+        this.autore = messaggio.getAutore();
+        this.destinatario = messaggio.getDestinatario();
+        this.topic = messaggio.getTopic();
+        this.body = messaggio.getBody();
+        this.dateTime = messaggio.getDateTime();
+    }
+
+    /**
+     * Restituisce il messaggio archiviato come {@link Messaggio}, con il suo ID originale,
+     * così chi legge lo storico non deve distinguere i messaggi recenti da quelli archiviati.
+     *
+     * @return Il messaggio, in sola lettura
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result != null;
+      @*/
+    public Messaggio comeMessaggio() {
+        return new Messaggio(this);
+    }
+
+    /**
+     * Restituisce l'id del messaggio.
+     *
+     * @return L'id
+     */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == id;
+      @*/
+    public /*@ nullable */ Long getId() {
+        return id;
+    }
+
+    /**
+     * Restituisce la data e ora di creazione del messaggio.
+     *
+     * @return La data e ora.
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == dateTime;
+      @*/
+    public /*@ nullable */ LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Restituisce il corpo del messaggio.
+     *
+     * @return Il corpo.
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == body;
+      @*/
+    public /*@ nullable */ String getBody() {
+        return body;
+    }
+
+    /**
+     * Restituisce l'autore del messaggio.
+     *
+     * @return L'autore.
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == autore;
+      @*/
+    public /*@ nullable */ Accademico getAutore() {
+        return autore;
+    }
+
+    /**
+     * Restituisce il destinatario del messaggio.
+     *
+     * @return Il destinatario.
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == destinatario;
+      @*/
+    public /*@ nullable */ Accademico getDestinatario() {
+        return destinatario;
+    }
+
+    /**
+     * Restituisce il topic del messaggio.
+     *
+     * @return Il topic.
+     * */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == topic;
+      @*/
+    public /*@ nullable */ Topic getTopic() {
+        return topic;
+    }
+}
@@ -0,0 +1,58 @@
+package it.unisa.uniclass.conversazioni.model;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Proiezione di un messaggio con i soli campi mostrati nelle liste (chat, avvisi).
+ * Viene costruita dalle query con {@code SELECT NEW}: legge una riga di {@code messaggi} unita alla sola
+ * tabella {@code accademico} di autore e destinatario, senza caricare le entità con le tabelle delle sottoclassi,
+ * il topic completo e i corsi collegati.
+ *
+ * @param id L'ID del messaggio
+ * @param body Il corpo del messaggio
+ * @param dateTime La data e ora di invio
+ * @param autoreMatricola La matricola dell'autore
+ * @param autoreEmail L'email dell'autore
+ * @param autoreNome Il nome dell'autore
+ * @param autoreCognome Il cognome dell'autore
+ * @param destinatarioMatricola La matricola del destinatario, null per gli avvisi
+ * @param destinatarioEmail L'email del destinatario, null per gli avvisi
+ * @param topic Il nome del topic, null per i messaggi diretti
+ * @param corso L'ID del corso a cui è destinato l'avviso, se il topic ne indica uno
+ */
+public record MessaggioVista(Long id, String body, LocalDateTime dateTime,
+                             String autoreMatricola, String autoreEmail, String autoreNome, String autoreCognome,
+                             String destinatarioMatricola, String destinatarioEmail,
+                             String topic, Long corso) implements Serializable {
+
+    /**
+     * Crea la proiezione di un messaggio già in memoria, ad esempio appena salvato.
+     *
+     * @param messaggio Il messaggio
+     * @return La proiezione, oppure null se il messaggio è null
+     */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures messaggio == null ==> \result == null;
+      @*/
+    public static /*@ nullable */ MessaggioVista di(Messaggio messaggio) {
+        if (messaggio == null) {
+            return null;
+        }
+        Accademico autore = messaggio.getAutore();
+        Accademico destinatario = messaggio.getDestinatario();
+        Topic topic = messaggio.getTopic();
+        return new MessaggioVista(messaggio.getId(), messaggio.getBody(), messaggio.getDateTime(),
+                autore != null ? autore.getMatricola() : null,
+                autore != null ? autore.getEmail() : null,
+                autore != null ? autore.getNome() : null,
+                autore != null ? autore.getCognome() : null,
+                destinatario != null ? destinatario.getMatricola() : null,
+                destinatario != null ? destinatario.getEmail() : null,
+                topic != null ? topic.getNome() : null,
+                topic != null && topic.getCorso() != null ? topic.getCorso().getId() : null);
+    }
+}
@@ -13,10 +13,13 @@ import java.util.List;
  */
 @Entity
 @Access(AccessType.FIELD)
-@Table(name = "topics")
+@Table(name = "topics", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_topics_chiave", columnNames = "chiave")
+})
 @NamedQueries({
         @NamedQuery(name = "Topic.trovaId", query = "SELECT t FROM Topic t WHERE t.id = :id"),
         @NamedQuery(name = "Topic.trovaNome", query = "SELECT t FROM Topic t WHERE t.nome = :nome"),
+        @NamedQuery(name = "Topic.trovaChiave", query = "SELECT t FROM Topic t WHERE t.chiave = :chiave"),
         @NamedQuery(name = "Topic.trovaCorsoLaurea", query = "SELECT t FROM Topic t WHERE t.corsoLaurea.nome = :nome"),
         @NamedQuery(name = "Topic.trovaCorso", query = "SELECT t FROM Topic t WHERE t.corso.nome = :nome"),
         @NamedQuery(name = "Topic.trovaTutti", query = "SELECT t FROM Topic t")
@@ -27,6 +30,8 @@ public class Topic implements Serializable {
     public static final String TROVA_ID = "Topic.trovaId";
     /** Nome della NamedQuery per trovare un topic tramite nome. */
     public static final String TROVA_NOME = "Topic.trovaNome";
+    /** Nome della NamedQuery per trovare un topic tramite la sua chiave (nome, corso di laurea, corso). */
+    public static final String TROVA_CHIAVE = "Topic.trovaChiave";
     /** Nome della NamedQuery per trovare un topic associato a un corso di laurea. */
     public static final String TROVA_CORSOLAUREA = "Topic.trovaCorsoLaurea";
     /** Nome della NamedQuery per trovare un topic associato a un corso specifico. */
@@ -36,7 +41,8 @@ public class Topic implements Serializable {
 
     /** Identificatore univoco del topic. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topics_seq")
+    @SequenceGenerator(name = "topics_seq", sequenceName = "topics_seq", allocationSize = 50)
     //@ spec_public
     //@ nullable
     private Long id;
@@ -64,6 +70,16 @@ public class Topic implements Serializable {
     //@ nullable
     private Corso corso;
 
+    /**
+     * Chiave canonica (nome, corso di laurea, corso), calcolata al salvataggio.
+     * Il vincolo di unicità è su questa colonna e non sulle tre originali perché
+     * PostgreSQL considera distinti i NULL, e ogni topic ha uno tra corso di laurea e corso a null.
+     */
+    @Column(name = "chiave", nullable = false)
+    //@ spec_public
+    //@ nullable
+    private String chiave;
+
     /** Lista dei messaggi associati al topic. */
     @OneToMany(mappedBy = "topic", cascade = CascadeType.ALL)
     //@ spec_public
@@ -167,6 +183,46 @@ public class Topic implements Serializable {
         return id;
     }
 
+    /**
+     * Restituisce la chiave canonica del topic.
+     *
+     * @return la chiave del topic
+     */
+    /*@
+      @ public normal_behavior
+      @ assignable \nothing;
+      @ ensures \result == chiave;
+      @*/
+    public /*@ nullable */ String getChiave() {
+        return chiave;
+    }
+
+    /**
+     * Aggiorna la chiave canonica prima di ogni scrittura.
+     */
+    //@ skipesc
+    @PrePersist
+    @PreUpdate
+    void aggiornaChiave() {
+        chiave = chiave(nome, corsoLaurea, corso);
+    }
+
+    /**
+     * Costruisce la chiave canonica di un topic: due topic con lo stesso nome
+     * (a meno di spazi iniziali e finali) e gli stessi corso di laurea e corso hanno la stessa chiave.
+     *
+     * @param nome il nome del topic
+     * @param corsoLaurea il corso di laurea, oppure null
+     * @param corso il corso, oppure null
+     * @return la chiave canonica
+     */
+    //@ skipesc
+    public static String chiave(String nome, CorsoLaurea corsoLaurea, Corso corso) {
+        return (nome != null ? nome.trim() : "")
+                + "|" + (corsoLaurea != null && corsoLaurea.getId() != null ? corsoLaurea.getId() : "")
+                + "|" + (corso != null && corso.getId() != null ? corso.getId() : "");
+    }
+
     /**
      * Restituisce una rappresentazione testuale dell'oggetto Topic.
      *
@@ -0,0 +1,99 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Archiviazione notturna dei messaggi vecchi.
+ * Ogni notte sposta nella tabella {@code messaggi_archivio} i messaggi dei mesi precedenti all'orizzonte,
+ * così la tabella {@code messaggi} e i suoi indici contengono solo i mesi recenti.
+ * L'orizzonte è un numero di mesi interi, configurabile con la proprietà di sistema {@value #PROPRIETA_ORIZZONTE}:
+ * l'archiviazione procede per mese, e un mese viene spostato tutto insieme quando esce dall'orizzonte.
+ */
+@Singleton
+public class ArchiviazioneMessaggi {
+
+    private static final Logger LOGGER = Logger.getLogger(ArchiviazioneMessaggi.class.getName());
+
+    /**
+     * Proprietà di sistema con il numero di mesi, oltre quello corrente, che restano nella tabella dei messaggi recenti.
+     */
+    public static final String PROPRIETA_ORIZZONTE = "uniclass.messaggi.orizzonte.mesi";
+
+    /**
+     * Mesi conservati tra i messaggi recenti se la proprietà non è impostata.
+     */
+    public static final int ORIZZONTE_PREDEFINITO = 12;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private MessaggioService messaggioService;
+
+    /**
+     * Setter per iniettare il MessaggioService (utile per i test).
+     * @param messaggioService il service da iniettare
+     */
+    //@ requires messaggioService != null;
+    //@ ensures this.messaggioService == messaggioService;
+    public void setMessaggioService(MessaggioService messaggioService) {
+        this.messaggioService = messaggioService;
+    }
+
+    /**
+     * Archivia i messaggi precedenti all'orizzonte. Eseguito ogni notte, fuori dalle ore di utilizzo.
+     * Il timer scatta su ogni istanza: ogni lotto prende un lock consultivo nel database,
+     * e l'istanza che lo trova occupato si ferma lasciando il lavoro a quella che lo detiene.
+     */
+    @Schedule(hour = "3", minute = "30", persistent = false)
+    public void archivia() {
+        LocalDateTime orizzonte = orizzonte(LocalDate.now(), mesiOrizzonte());
+        try {
+            int archiviati = messaggioService.archiviaMessaggi(orizzonte);
+            LOGGER.info("Archiviati " + archiviati + " messaggi precedenti a " + orizzonte);
+        } catch (RuntimeException e) {
+            // I lotti già confermati restano archiviati: il resto viene ripreso alla prossima esecuzione
+            LOGGER.log(Level.WARNING, "Archiviazione dei messaggi precedenti a " + orizzonte + " interrotta", e);
+        }
+    }
+
+    /**
+     * Calcola l'orizzonte di archiviazione: l'inizio del mese che precede di {@code mesi} quello corrente.
+     * @param oggi la data corrente
+     * @param mesi i mesi conservati oltre quello corrente
+     * @return la data prima della quale i messaggi vengono archiviati
+     */
+    //@ requires oggi != null && mesi >= 0;
+    //@ ensures \result != null;
+    public static LocalDateTime orizzonte(LocalDate oggi, int mesi) {
+        return oggi.withDayOfMonth(1).minusMonths(mesi).atStartOfDay();
+    }
+
+    /**
+     * Legge l'orizzonte configurato; un valore mancante o non valido vale {@link #ORIZZONTE_PREDEFINITO}.
+     * @return i mesi conservati oltre quello corrente
+     */
+    //@ ensures \result >= 0;
+    public static int mesiOrizzonte() {
+        String valore = System.getProperty(PROPRIETA_ORIZZONTE);
+        if (valore == null) {
+            return ORIZZONTE_PREDEFINITO;
+        }
+        try {
+            int mesi = Integer.parseInt(valore.trim());
+            if (mesi >= 0) {
+                return mesi;
+            }
+        } catch (NumberFormatException e) {
+            // valore non valido, si usa quello predefinito
+        }
+        LOGGER.warning("Valore non valido per " + PROPRIETA_ORIZZONTE + ": " + valore + ", uso " + ORIZZONTE_PREDEFINITO);
+        return ORIZZONTE_PREDEFINITO;
+    }
+}
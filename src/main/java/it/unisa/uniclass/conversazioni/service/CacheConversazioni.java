@@ -0,0 +1,339 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache in memoria degli ultimi messaggi di ogni conversazione.
+ * Per ogni coppia di utenti conserva al più {@code capacita} proiezioni di messaggi in un buffer circolare;
+ * quando la memoria stimata supera il budget vengono rimosse per intero le conversazioni
+ * usate meno di recente (LRU).
+ *
+ * La cache viene aggiornata, non invalidata, a ogni nuovo messaggio salvato. Una lettura dal database
+ * iniziata prima di una scrittura sulla stessa conversazione non viene memorizzata, per non
+ * reinserire uno stato superato.
+ */
+public class CacheConversazioni {
+
+    /**
+     * Numero di messaggi conservati per conversazione: copre la prima pagina e lo scorrimento successivo.
+     */
+    public static final int CAPACITA_CONVERSAZIONE = 64;
+
+    /**
+     * Memoria stimata massima occupata dalla cache, in byte.
+     */
+    public static final long BUDGET_MEMORIA = 32L * 1024 * 1024;
+
+    /**
+     * Stima dell'occupazione di un messaggio esclusi i caratteri del corpo, in byte.
+     */
+    private static final long STIMA_MESSAGGIO = 160;
+
+    private static final int SEGMENTI_VERSIONE = 64;
+
+    private static final CacheConversazioni ISTANZA = new CacheConversazioni(CAPACITA_CONVERSAZIONE, BUDGET_MEMORIA);
+
+    //@ spec_public
+    private final int capacita;
+
+    //@ spec_public
+    private final long budget;
+
+    //@ spec_public
+    private final LinkedHashMap<String, Buffer> conversazioni = new LinkedHashMap<>(16, 0.75f, true);
+
+    //@ spec_public
+    private final AtomicLongArray versioni = new AtomicLongArray(SEGMENTI_VERSIONE);
+
+    //@ spec_public
+    private long occupazione;
+
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+    private final AtomicLong evizioni = new AtomicLong();
+
+    /**
+     * Restituisce la cache condivisa dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static CacheConversazioni getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * @param capacita il numero massimo di messaggi conservati per conversazione
+     * @param budget la memoria stimata massima in byte; con budget 0 la cache non conserva nulla
+     */
+    //@ requires capacita > 0 && budget >= 0;
+    public CacheConversazioni(int capacita, long budget) {
+        this.capacita = capacita;
+        this.budget = budget;
+    }
+
+    /**
+     * Buffer circolare con i messaggi più recenti di una conversazione.
+     * {@code completa} indica che il buffer contiene tutta la conversazione.
+     */
+    private static class Buffer {
+        private final MessaggioVista[] elementi;
+        private int inizio;
+        private int dimensione;
+        private boolean completa;
+        private long occupazione;
+
+        Buffer(int capacita) {
+            elementi = new MessaggioVista[capacita];
+        }
+
+        /**
+         * @param i la posizione a partire dal più recente (0)
+         */
+        MessaggioVista get(int i) {
+            return elementi[(inizio + dimensione - 1 - i) % elementi.length];
+        }
+
+        /**
+         * Aggiunge il messaggio più recente, sovrascrivendo il più vecchio se il buffer è pieno.
+         * @return la variazione di occupazione stimata
+         */
+        long aggiungi(MessaggioVista messaggio) {
+            long variazione = stima(messaggio);
+            if (dimensione == elementi.length) {
+                variazione -= stima(elementi[inizio]);
+                elementi[inizio] = messaggio;
+                inizio = (inizio + 1) % elementi.length;
+                completa = false;
+            } else {
+                elementi[(inizio + dimensione) % elementi.length] = messaggio;
+                dimensione++;
+            }
+            occupazione += variazione;
+            return variazione;
+        }
+
+        boolean contiene(Long id) {
+            for (int i = 0; i < dimensione; i++) {
+                if (id.equals(get(i).id())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Restituisce gli ultimi messaggi della conversazione, dal più recente, se presenti in cache.
+     * @param matricola1 la matricola del primo utente
+     * @param matricola2 la matricola del secondo utente
+     * @param limite il numero di messaggi richiesti
+     * @return i messaggi, oppure null se la cache non può rispondere
+     */
+    public synchronized List<MessaggioVista> recenti(String matricola1, String matricola2, int limite) {
+        Buffer buffer = conversazioni.get(chiave(matricola1, matricola2));
+        if (buffer == null || (buffer.dimensione < limite && !buffer.completa)) {
+            miss.incrementAndGet();
+            return null;
+        }
+        hit.incrementAndGet();
+        int quanti = Math.min(limite, buffer.dimensione);
+        List<MessaggioVista> risultato = new ArrayList<>(quanti);
+        for (int i = 0; i < quanti; i++) {
+            risultato.add(buffer.get(i));
+        }
+        return risultato;
+    }
+
+    /**
+     * Restituisce i messaggi precedenti al cursore (dateTime, id), dal più recente, se presenti in cache.
+     * @param matricola1 la matricola del primo utente
+     * @param matricola2 la matricola del secondo utente
+     * @param dateTime la data del cursore
+     * @param id l'ID del cursore
+     * @param limite il numero di messaggi richiesti
+     * @return i messaggi, oppure null se servono messaggi più vecchi di quelli in cache
+     */
+    public synchronized List<MessaggioVista> precedenti(String matricola1, String matricola2, LocalDateTime dateTime, long id, int limite) {
+        Buffer buffer = conversazioni.get(chiave(matricola1, matricola2));
+        if (buffer == null) {
+            miss.incrementAndGet();
+            return null;
+        }
+        int posizione = 0;
+        while (posizione < buffer.dimensione && !precede(buffer.get(posizione), dateTime, id)) {
+            posizione++;
+        }
+        int disponibili = buffer.dimensione - posizione;
+        if (disponibili < limite && !buffer.completa) {
+            miss.incrementAndGet();
+            return null;
+        }
+        hit.incrementAndGet();
+        int quanti = Math.min(limite, disponibili);
+        List<MessaggioVista> risultato = new ArrayList<>(quanti);
+        for (int i = posizione; i < posizione + quanti; i++) {
+            risultato.add(buffer.get(i));
+        }
+        return risultato;
+    }
+
+    /**
+     * Restituisce la versione corrente della conversazione, da leggere prima di interrogare il database.
+     * @param matricola1 la matricola del primo utente
+     * @param matricola2 la matricola del secondo utente
+     * @return la versione da passare a {@link #carica}
+     */
+    public long versione(String matricola1, String matricola2) {
+        return versioni.get(segmento(chiave(matricola1, matricola2)));
+    }
+
+    /**
+     * Memorizza gli ultimi messaggi letti dal database.
+     * @param matricola1 la matricola del primo utente
+     * @param matricola2 la matricola del secondo utente
+     * @param recenti i messaggi letti, dal più recente
+     * @param limite il limite usato nella query: meno risultati significa conversazione completa
+     * @param versione la versione letta prima della query
+     */
+    public synchronized void carica(String matricola1, String matricola2, List<MessaggioVista> recenti, int limite, long versione) {
+        String chiave = chiave(matricola1, matricola2);
+        if (versioni.get(segmento(chiave)) != versione) {
+            return;
+        }
+        Buffer buffer = new Buffer(capacita);
+        for (int i = Math.min(recenti.size(), capacita) - 1; i >= 0; i--) {
+            buffer.aggiungi(recenti.get(i));
+        }
+        buffer.completa = recenti.size() < limite && recenti.size() <= capacita;
+        Buffer precedente = conversazioni.put(chiave, buffer);
+        if (precedente != null) {
+            occupazione -= precedente.occupazione;
+        }
+        occupazione += buffer.occupazione;
+        rispettaBudget();
+    }
+
+    /**
+     * Aggiorna la conversazione con un messaggio appena salvato.
+     * Se il messaggio non è il più recente della conversazione in cache, la conversazione viene scartata.
+     * @param messaggio il messaggio salvato
+     */
+    public synchronized void aggiungi(MessaggioVista messaggio) {
+        if (messaggio == null || messaggio.autoreMatricola() == null || messaggio.destinatarioMatricola() == null) {
+            return;
+        }
+        String chiave = chiave(messaggio.autoreMatricola(), messaggio.destinatarioMatricola());
+        versioni.incrementAndGet(segmento(chiave));
+        Buffer buffer = conversazioni.get(chiave);
+        if (buffer == null || (messaggio.id() != null && buffer.contiene(messaggio.id()))) {
+            return;
+        }
+        if (buffer.dimensione > 0 && !precede(buffer.get(0), messaggio.dateTime(), messaggio.id() != null ? messaggio.id() : Long.MAX_VALUE)) {
+            rimuovi(chiave);
+            return;
+        }
+        occupazione += buffer.aggiungi(messaggio);
+        rispettaBudget();
+    }
+
+    /**
+     * Scarta la conversazione tra due utenti, ad esempio dopo una modifica o una rimozione.
+     * @param matricola1 la matricola del primo utente
+     * @param matricola2 la matricola del secondo utente
+     */
+    public synchronized void invalida(String matricola1, String matricola2) {
+        String chiave = chiave(matricola1, matricola2);
+        versioni.incrementAndGet(segmento(chiave));
+        rimuovi(chiave);
+    }
+
+    /**
+     * Scarta tutte le conversazioni, ad esempio quando alcune modifiche di un'altra istanza possono essere andate perse.
+     */
+    public synchronized void svuota() {
+        for (int i = 0; i < SEGMENTI_VERSIONE; i++) {
+            versioni.incrementAndGet(i);
+        }
+        conversazioni.clear();
+        occupazione = 0;
+    }
+
+    public long getHit() {
+        return hit.get();
+    }
+
+    public long getMiss() {
+        return miss.get();
+    }
+
+    public long getEvizioni() {
+        return evizioni.get();
+    }
+
+    /**
+     * @return la memoria stimata occupata, in byte
+     */
+    public synchronized long getOccupazione() {
+        return occupazione;
+    }
+
+    /**
+     * @return il numero di conversazioni in cache
+     */
+    public synchronized int getConversazioni() {
+        return conversazioni.size();
+    }
+
+    private void rimuovi(String chiave) {
+        Buffer rimosso = conversazioni.remove(chiave);
+        if (rimosso != null) {
+            occupazione -= rimosso.occupazione;
+        }
+    }
+
+    private void rispettaBudget() {
+        Iterator<Map.Entry<String, Buffer>> meno = conversazioni.entrySet().iterator();
+        while (occupazione > budget && meno.hasNext()) {
+            occupazione -= meno.next().getValue().occupazione;
+            meno.remove();
+            evizioni.incrementAndGet();
+        }
+    }
+
+    /**
+     * Vero se il messaggio precede strettamente il cursore (dateTime, id), con lo stesso ordinamento delle query.
+     */
+    private static boolean precede(MessaggioVista messaggio, LocalDateTime dateTime, long id) {
+        LocalDateTime data = messaggio.dateTime();
+        if (data == null || dateTime == null) {
+            if (data != dateTime) {
+                return data == null;
+            }
+        } else if (!data.equals(dateTime)) {
+            return data.isBefore(dateTime);
+        }
+        return messaggio.id() != null && messaggio.id() < id;
+    }
+
+    private static long stima(MessaggioVista messaggio) {
+        return STIMA_MESSAGGIO + (messaggio.body() != null ? messaggio.body().length() : 0);
+    }
+
+    private static String chiave(String matricola1, String matricola2) {
+        String a = String.valueOf(matricola1);
+        String b = String.valueOf(matricola2);
+        return a.compareTo(b) <= 0 ? a + "|" + b : b + "|" + a;
+    }
+
+    private static int segmento(String chiave) {
+        return (chiave.hashCode() & 0x7fffffff) % SEGMENTI_VERSIONE;
+    }
+}
@@ -0,0 +1,22 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+
+/**
+ * Lega l'indice della ricerca nei messaggi al ciclo di vita dell'applicazione: allo spegnimento
+ * o al redeploy chiude {@link IndiceMessaggi}, che ferma il thread degli snapshot e salva le ultime modifiche.
+ */
+@Singleton
+@Startup
+public class ChiusuraIndice {
+
+    /**
+     * Chiude l'indice condiviso prima che il container rilasci l'applicazione.
+     */
+    @PreDestroy
+    public void chiudi() {
+        IndiceMessaggi.chiudi();
+    }
+}
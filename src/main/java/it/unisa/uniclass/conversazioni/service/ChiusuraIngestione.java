@@ -0,0 +1,22 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+
+/**
+ * Lega la pipeline di scrittura dei messaggi al ciclo di vita dell'applicazione: allo spegnimento
+ * o al redeploy chiude {@link IngestioneMessaggi}, che salva i messaggi ancora in coda e ferma il suo thread.
+ */
+@Singleton
+@Startup
+public class ChiusuraIngestione {
+
+    /**
+     * Chiude la pipeline condivisa prima che il container rilasci l'applicazione.
+     */
+    @PreDestroy
+    public void chiudi() {
+        IngestioneMessaggi.chiudiIstanza();
+    }
+}
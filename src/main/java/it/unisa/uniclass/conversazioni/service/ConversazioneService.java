@@ -0,0 +1,68 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.ConversazioneVista;
+import it.unisa.uniclass.conversazioni.service.dao.ConversazioneRemote;
+import it.unisa.uniclass.utenti.model.Accademico;
+import jakarta.ejb.Stateless;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe di servizio per la casella delle conversazioni.
+ * Fornisce il riepilogo delle conversazioni di un utente (una riga per interlocutore,
+ * con ultimo messaggio e non letti) senza dover caricare i messaggi.
+ */
+@Stateless
+public class ConversazioneService {
+
+    private ConversazioneRemote conversazioneDao;
+
+    /**
+     * Costruttore di default che esegue il lookup JNDI del DAO.
+     */
+    public ConversazioneService() {
+        try {
+            InitialContext ctx = new InitialContext();
+            conversazioneDao = (ConversazioneRemote) ctx.lookup("java:global/UniClass-Dependability/ConversazioneDAO");
+        } catch (NamingException e) {
+            throw new RuntimeException("Impossibile trovare il conversazioneDAO", e);
+        }
+    }
+
+    /**
+     * Costruttore che riceve il DAO (utile per i test).
+     *
+     * @param conversazioneDao Il DAO da utilizzare.
+     */
+    public ConversazioneService(ConversazioneRemote conversazioneDao) {
+        this.conversazioneDao = conversazioneDao;
+    }
+
+    /**
+     * Recupera le conversazioni di un utente, dalla più recente.
+     *
+     * @param matricola La matricola dell'utente.
+     * @return Una lista di riepiloghi, uno per interlocutore; vuota se la matricola è null.
+     */
+    public List<ConversazioneVista> trovaConversazioni(String matricola) {
+        if (matricola == null) {
+            return new ArrayList<>();
+        }
+        return conversazioneDao.trovaConversazioni(matricola);
+    }
+
+    /**
+     * Segna come letti tutti i messaggi ricevuti da un interlocutore.
+     *
+     * @param proprietario L'utente che ha aperto la conversazione.
+     * @param interlocutore L'altro partecipante della conversazione.
+     */
+    public void segnaLetta(Accademico proprietario, Accademico interlocutore) {
+        if (proprietario != null && interlocutore != null) {
+            conversazioneDao.segnaLetta(proprietario, interlocutore);
+        }
+    }
+}
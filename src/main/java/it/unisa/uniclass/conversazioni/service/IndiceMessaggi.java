@@ -0,0 +1,682 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.dao.MessaggioRemote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Indice invertito in memoria sul testo dei messaggi e sul nome del loro topic.
+ * Per ogni termine conserva la lista ordinata degli ID dei messaggi che lo contengono, con la frequenza;
+ * una ricerca interseca le liste dei termini cercati partendo dalla più corta e ordina i risultati con BM25.
+ *
+ * Il testo viene normalizzato per l'italiano: minuscole, accenti rimossi ("università" e "universita"
+ * coincidono), elisioni separate ("l'esame" diventa "esame") e parole vuote ignorate.
+ *
+ * L'indice è aggiornato a ogni messaggio salvato o rimosso tramite {@link MessaggioService}. Viene salvato
+ * periodicamente su disco e ricaricato all'avvio; i messaggi salvati dopo l'ultimo snapshot vengono recuperati
+ * dal database alla prima ricerca con {@link #allinea(MessaggioRemote)}.
+ *
+ * Lo snapshot registra l'epoca del database (l'OID della tabella dei messaggi), che cambia quando lo schema
+ * viene ricreato: uno snapshot di un'altra epoca, o con ID oltre l'ultimo presente nel database, viene scartato,
+ * perché i suoi ID appartengono ormai ad altri messaggi. L'indice resta comunque solo un filtro: chi lo usa
+ * deve ricontrollare la visibilità sui messaggi letti dal database, con {@link #visibile(Messaggio, String, Long)}.
+ */
+public class IndiceMessaggi {
+
+    private static final Logger LOGGER = Logger.getLogger(IndiceMessaggi.class.getName());
+
+    /**
+     * Proprietà di sistema con il percorso del file di snapshot.
+     */
+    public static final String PROPRIETA_PERCORSO = "uniclass.indice.messaggi";
+
+    /**
+     * Intervallo tra due snapshot su disco, in minuti. Lo snapshot viene scritto solo se l'indice è cambiato.
+     */
+    public static final long INTERVALLO_SNAPSHOT = 5;
+
+    /**
+     * Numero di messaggi letti dal database per ogni passo dell'allineamento.
+     */
+    public static final int DIMENSIONE_LOTTO_ALLINEAMENTO = 500;
+
+    /**
+     * ID riletti prima dell'ultimo indicizzato durante l'allineamento: coprono i messaggi con ID più basso
+     * confermati dopo lo snapshot da transazioni ancora aperte nel momento in cui è stato scritto.
+     */
+    public static final long MARGINE_ALLINEAMENTO = 1000;
+
+    private static final int VERSIONE_SNAPSHOT = 2;
+
+    /** Parametri di BM25. */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int LUNGHEZZA_MASSIMA_TERMINE = 40;
+
+    /**
+     * Articoli, preposizioni e congiunzioni che non aiutano a distinguere i messaggi.
+     */
+    private static final Set<String> PAROLE_VUOTE = Set.of(
+            "il", "lo", "la", "le", "gli", "un", "uno", "una",
+            "di", "del", "dello", "della", "dei", "degli", "delle",
+            "da", "dal", "dallo", "dalla", "dai", "dagli", "dalle",
+            "in", "nel", "nello", "nella", "nei", "negli", "nelle",
+            "su", "sul", "sullo", "sulla", "sui", "sugli", "sulle",
+            "al", "allo", "alla", "ai", "agli", "alle",
+            "dell", "dall", "nell", "sull", "all",
+            "con", "per", "tra", "fra", "ed", "od", "che", "non", "ma", "se", "ci", "si", "mi", "ti", "vi", "ne");
+
+    //@ spec_public
+    //@ nullable
+    private static IndiceMessaggi istanza;
+
+    //@ nullable
+    private static ScheduledExecutorService snapshot;
+
+    //@ nullable
+    private static Path percorsoSnapshot;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //@ spec_public
+    private final Map<String, Postings> termini = new HashMap<>();
+
+    //@ spec_public
+    private final Map<Long, Documento> documenti = new HashMap<>();
+
+    //@ spec_public
+    private long lunghezzaTotale;
+
+    //@ spec_public
+    private long ultimoId;
+
+    //@ spec_public
+    private long epoca;
+
+    //@ spec_public
+    private volatile boolean modificato;
+
+    //@ spec_public
+    private volatile boolean allineato;
+
+    /**
+     * Restituisce l'indice condiviso dall'applicazione, creandolo al primo utilizzo:
+     * carica l'ultimo snapshot e avvia il salvataggio periodico.
+     * @return l'istanza condivisa
+     */
+    public static synchronized IndiceMessaggi getIstanza() {
+        if (istanza == null) {
+            Path percorso = Paths.get(System.getProperty(PROPRIETA_PERCORSO,
+                    Paths.get(System.getProperty("java.io.tmpdir"), "uniclass-indice-messaggi.bin").toString()));
+            IndiceMessaggi indice = new IndiceMessaggi();
+            indice.carica(percorso);
+            snapshot = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "indice-messaggi-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshot.scheduleWithFixedDelay(() -> indice.salvaSeModificato(percorso),
+                    INTERVALLO_SNAPSHOT, INTERVALLO_SNAPSHOT, TimeUnit.MINUTES);
+            percorsoSnapshot = percorso;
+            istanza = indice;
+        }
+        return istanza;
+    }
+
+    /**
+     * Chiude l'indice condiviso, se è stato creato: ferma il salvataggio periodico, attendendo quello
+     * eventualmente in corso, e scrive un ultimo snapshot se l'indice è cambiato.
+     * La successiva chiamata a {@link #getIstanza} ricarica l'indice dal disco.
+     */
+    public static synchronized void chiudi() {
+        if (istanza == null) {
+            return;
+        }
+        snapshot.shutdownNow();
+        try {
+            if (!snapshot.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warning("Snapshot periodico dell'indice dei messaggi non terminato in tempo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        istanza.salvaSeModificato(percorsoSnapshot);
+        istanza = null;
+        snapshot = null;
+        percorsoSnapshot = null;
+    }
+
+    /**
+     * Lista ordinata per ID dei messaggi che contengono un termine, con la frequenza del termine.
+     */
+    private static class Postings {
+        private long[] id = new long[4];
+        private int[] frequenza = new int[4];
+        private int dimensione;
+
+        void aggiungi(long idMessaggio, int frequenzaTermine) {
+            // Gli ID arrivano quasi sempre crescenti: di norma è un'aggiunta in coda
+            int posizione = dimensione == 0 || id[dimensione - 1] < idMessaggio
+                    ? dimensione
+                    : -Arrays.binarySearch(id, 0, dimensione, idMessaggio) - 1;
+            if (dimensione == id.length) {
+                id = Arrays.copyOf(id, dimensione * 2);
+                frequenza = Arrays.copyOf(frequenza, dimensione * 2);
+            }
+            System.arraycopy(id, posizione, id, posizione + 1, dimensione - posizione);
+            System.arraycopy(frequenza, posizione, frequenza, posizione + 1, dimensione - posizione);
+            id[posizione] = idMessaggio;
+            frequenza[posizione] = frequenzaTermine;
+            dimensione++;
+        }
+
+        void rimuovi(long idMessaggio) {
+            int posizione = Arrays.binarySearch(id, 0, dimensione, idMessaggio);
+            if (posizione >= 0) {
+                System.arraycopy(id, posizione + 1, id, posizione, dimensione - posizione - 1);
+                System.arraycopy(frequenza, posizione + 1, frequenza, posizione, dimensione - posizione - 1);
+                dimensione--;
+            }
+        }
+
+        /**
+         * @return la frequenza del termine nel messaggio, oppure 0 se il messaggio non lo contiene
+         */
+        int frequenza(long idMessaggio) {
+            int posizione = Arrays.binarySearch(id, 0, dimensione, idMessaggio);
+            return posizione >= 0 ? frequenza[posizione] : 0;
+        }
+    }
+
+    /**
+     * Dati di un messaggio indicizzato: quanto serve per il controllo di visibilità, il punteggio e la rimozione.
+     * Per gli avvisi {@code corsoLaurea} è l'ID del corso di laurea destinatario, altrimenti -1.
+     */
+    private static class Documento {
+        private final String autore;
+        private final String destinatario;
+        private final long corsoLaurea;
+        private final int lunghezza;
+        private final String[] termini;
+        private final int[] frequenze;
+
+        Documento(String autore, String destinatario, long corsoLaurea, int lunghezza, String[] termini, int[] frequenze) {
+            this.autore = autore;
+            this.destinatario = destinatario;
+            this.corsoLaurea = corsoLaurea;
+            this.lunghezza = lunghezza;
+            this.termini = termini;
+            this.frequenze = frequenze;
+        }
+
+        boolean visibile(String matricola, Long corsoLaureaUtente) {
+            return IndiceMessaggi.visibile(autore, destinatario, corsoLaurea, matricola, corsoLaureaUtente);
+        }
+    }
+
+    /**
+     * Candidato nella selezione dei migliori risultati.
+     */
+    private static class Candidato {
+        private final long id;
+        private final double punteggio;
+
+        Candidato(long id, double punteggio) {
+            this.id = id;
+            this.punteggio = punteggio;
+        }
+
+        /** A parità di punteggio vince il messaggio più recente. */
+        int confronta(Candidato altro) {
+            int confronto = Double.compare(punteggio, altro.punteggio);
+            return confronto != 0 ? confronto : Long.compare(id, altro.id);
+        }
+    }
+
+    /**
+     * Divide un testo in termini normalizzati: minuscole, senza accenti, senza parole vuote.
+     * @param testo il testo da dividere
+     * @return i termini nell'ordine in cui compaiono, con ripetizioni
+     */
+    public static List<String> tokenizza(String testo) {
+        List<String> risultato = new ArrayList<>();
+        if (testo == null || testo.isEmpty()) {
+            return risultato;
+        }
+        String normalizzato = Normalizer.normalize(testo, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ITALIAN);
+        StringBuilder termine = new StringBuilder();
+        for (int i = 0; i <= normalizzato.length(); i++) {
+            char c = i < normalizzato.length() ? normalizzato.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (termine.length() < LUNGHEZZA_MASSIMA_TERMINE) {
+                    termine.append(c);
+                }
+            } else if (termine.length() > 0) {
+                // Apostrofi e punteggiatura separano i termini: "dell'aula" -> "dell" (parola vuota), "aula"
+                String candidato = termine.toString();
+                if (candidato.length() > 1 && !PAROLE_VUOTE.contains(candidato)) {
+                    risultato.add(candidato);
+                }
+                termine.setLength(0);
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * Indica se un messaggio è visibile all'utente: ne è autore o destinatario, oppure è un avviso
+     * del suo corso di laurea. È lo stesso controllo applicato dall'indice, da ripetere sui messaggi
+     * letti dal database perché una voce dell'indice può non corrispondere più al messaggio con quell'ID.
+     * @param messaggio il messaggio letto dal database
+     * @param matricola la matricola dell'utente
+     * @param corsoLaurea l'ID del corso di laurea dell'utente, oppure null
+     * @return true se l'utente può leggere il messaggio
+     */
+    public static boolean visibile(Messaggio messaggio, String matricola, Long corsoLaurea) {
+        return visibile(messaggio.getAutore() != null ? messaggio.getAutore().getMatricola() : null,
+                messaggio.getDestinatario() != null ? messaggio.getDestinatario().getMatricola() : null,
+                corsoLaureaAvviso(messaggio), matricola, corsoLaurea);
+    }
+
+    private static boolean visibile(String autore, String destinatario, long corsoLaureaAvviso, String matricola, Long corsoLaurea) {
+        return (matricola != null && (matricola.equals(autore) || matricola.equals(destinatario)))
+                || (corsoLaureaAvviso >= 0 && corsoLaurea != null && corsoLaureaAvviso == corsoLaurea);
+    }
+
+    /**
+     * Aggiunge o aggiorna un messaggio salvato.
+     * @param messaggio il messaggio, con ID assegnato
+     */
+    public void aggiungi(Messaggio messaggio) {
+        if (messaggio == null || messaggio.getId() == null) {
+            return;
+        }
+        List<String> testo = tokenizza(messaggio.getBody());
+        Topic topic = messaggio.getTopic();
+        if (topic != null) {
+            testo.addAll(tokenizza(topic.getNome()));
+        }
+        Map<String, Integer> conteggi = new LinkedHashMap<>();
+        for (String termine : testo) {
+            conteggi.merge(termine, 1, Integer::sum);
+        }
+        String[] chiavi = conteggi.keySet().toArray(new String[0]);
+        int[] frequenze = new int[chiavi.length];
+        for (int i = 0; i < chiavi.length; i++) {
+            frequenze[i] = conteggi.get(chiavi[i]);
+        }
+        Documento documento = new Documento(
+                messaggio.getAutore() != null ? messaggio.getAutore().getMatricola() : null,
+                messaggio.getDestinatario() != null ? messaggio.getDestinatario().getMatricola() : null,
+                corsoLaureaAvviso(messaggio), testo.size(), chiavi, frequenze);
+
+        lock.writeLock().lock();
+        try {
+            inserisci(messaggio.getId(), documento);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rimuove un messaggio dall'indice.
+     * @param id l'ID del messaggio
+     */
+    public void rimuovi(long id) {
+        lock.writeLock().lock();
+        try {
+            elimina(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cerca i messaggi che contengono tutti i termini del testo e che l'utente può leggere:
+     * quelli di cui è autore o destinatario e gli avvisi del suo corso di laurea.
+     * @param testo il testo cercato
+     * @param matricola la matricola dell'utente
+     * @param corsoLaurea l'ID del corso di laurea dell'utente, oppure null
+     * @param limite il numero massimo di risultati
+     * @return gli ID dei messaggi trovati, dal più rilevante
+     */
+    //@ requires limite > 0;
+    public List<Long> cerca(String testo, String matricola, Long corsoLaurea, int limite) {
+        List<String> cercati = new ArrayList<>(new LinkedHashSet<>(tokenizza(testo)));
+        if (cercati.isEmpty()) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<Candidato> migliori = new PriorityQueue<>(limite + 1, Candidato::confronta);
+
+        lock.readLock().lock();
+        try {
+            Postings[] liste = new Postings[cercati.size()];
+            for (int i = 0; i < liste.length; i++) {
+                liste[i] = termini.get(cercati.get(i));
+                if (liste[i] == null) {
+                    return Collections.emptyList();
+                }
+            }
+            // Si scorre la lista più corta e si cercano gli stessi ID nelle altre
+            Arrays.sort(liste, (a, b) -> Integer.compare(a.dimensione, b.dimensione));
+            double totale = documenti.size();
+            double lunghezzaMedia = Math.max(1.0, lunghezzaTotale / totale);
+            double[] idf = new double[liste.length];
+            for (int i = 0; i < liste.length; i++) {
+                idf[i] = Math.log(1 + (totale - liste[i].dimensione + 0.5) / (liste[i].dimensione + 0.5));
+            }
+
+            Postings prima = liste[0];
+            for (int p = 0; p < prima.dimensione; p++) {
+                long id = prima.id[p];
+                Documento documento = documenti.get(id);
+                if (documento == null || !documento.visibile(matricola, corsoLaurea)) {
+                    continue;
+                }
+                double normalizzazione = K1 * (1 - B + B * documento.lunghezza / lunghezzaMedia);
+                double punteggio = bm25(idf[0], prima.frequenza[p], normalizzazione);
+                boolean tutti = true;
+                for (int i = 1; i < liste.length && tutti; i++) {
+                    int frequenza = liste[i].frequenza(id);
+                    tutti = frequenza > 0;
+                    punteggio += bm25(idf[i], frequenza, normalizzazione);
+                }
+                if (tutti) {
+                    migliori.add(new Candidato(id, punteggio));
+                    if (migliori.size() > limite) {
+                        migliori.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Long[] risultato = new Long[migliori.size()];
+        for (int i = risultato.length - 1; i >= 0; i--) {
+            risultato[i] = migliori.poll().id;
+        }
+        return Arrays.asList(risultato);
+    }
+
+    /**
+     * Indicizza i messaggi salvati dopo l'ultimo snapshot. Viene eseguito una sola volta, alla prima ricerca;
+     * in seguito l'indice è tenuto aggiornato dalle scritture.
+     * Se lo snapshot appartiene a un'altra epoca del database, o contiene ID oltre l'ultimo presente,
+     * viene scartato e l'indice ricostruito da zero. Altrimenti la rilettura parte {@link #MARGINE_ALLINEAMENTO}
+     * ID prima dell'ultimo indicizzato.
+     * @param messaggioDao il DAO da cui leggere i messaggi
+     */
+    public void allinea(MessaggioRemote messaggioDao) {
+        if (allineato) {
+            return;
+        }
+        synchronized (this) {
+            if (allineato) {
+                return;
+            }
+            long epocaDatabase = messaggioDao.trovaEpocaMessaggi();
+            long ultimoDatabase = messaggioDao.trovaUltimoId();
+            long dopo;
+            lock.writeLock().lock();
+            try {
+                if (epoca != epocaDatabase || ultimoId > ultimoDatabase) {
+                    if (!documenti.isEmpty()) {
+                        LOGGER.info("Snapshot dell'indice dei messaggi non allineato al database (epoca " + epoca
+                                + ", ultimo ID " + ultimoId + "), verrà ricostruito");
+                    }
+                    svuota();
+                    epoca = epocaDatabase;
+                    modificato = true;
+                }
+                dopo = Math.max(0, ultimoId - MARGINE_ALLINEAMENTO);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            List<Messaggio> lotto;
+            do {
+                lotto = messaggioDao.trovaMessaggiDopo(dopo, DIMENSIONE_LOTTO_ALLINEAMENTO);
+                for (Messaggio messaggio : lotto) {
+                    aggiungi(messaggio);
+                    dopo = Math.max(dopo, messaggio.getId());
+                }
+            } while (lotto.size() == DIMENSIONE_LOTTO_ALLINEAMENTO);
+            allineato = true;
+        }
+    }
+
+    /**
+     * Fa ripetere l'allineamento alla prima ricerca successiva, per recuperare messaggi salvati da altre istanze
+     * di cui l'indice potrebbe non aver ricevuto la notifica.
+     */
+    public void riallinea() {
+        allineato = false;
+    }
+
+    /**
+     * Scrive l'indice su disco. Il file viene sostituito in modo atomico, così uno snapshot interrotto
+     * non corrompe il precedente.
+     * @param percorso il file di destinazione
+     * @throws IOException se la scrittura non riesce
+     */
+    public void salva(Path percorso) throws IOException {
+        Path temporaneo = percorso.resolveSibling(percorso.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaneo)))) {
+            out.writeInt(VERSIONE_SNAPSHOT);
+            out.writeLong(epoca);
+            out.writeLong(ultimoId);
+            out.writeInt(documenti.size());
+            for (Map.Entry<Long, Documento> voce : documenti.entrySet()) {
+                Documento documento = voce.getValue();
+                out.writeLong(voce.getKey());
+                out.writeUTF(documento.autore != null ? documento.autore : "");
+                out.writeUTF(documento.destinatario != null ? documento.destinatario : "");
+                out.writeLong(documento.corsoLaurea);
+                out.writeInt(documento.lunghezza);
+                out.writeInt(documento.termini.length);
+                for (int i = 0; i < documento.termini.length; i++) {
+                    out.writeUTF(documento.termini[i]);
+                    out.writeInt(documento.frequenze[i]);
+                }
+            }
+            modificato = false;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temporaneo, percorso, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carica uno snapshot salvato con {@link #salva(Path)}. Se il file manca o non è leggibile
+     * l'indice resta vuoto e verrà ricostruito dal database.
+     * @param percorso il file dello snapshot
+     */
+    public void carica(Path percorso) {
+        if (!Files.exists(percorso)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(percorso)))) {
+            if (in.readInt() != VERSIONE_SNAPSHOT) {
+                return;
+            }
+            long epocaSnapshot = in.readLong();
+            long ultimo = in.readLong();
+            int numero = in.readInt();
+            for (int d = 0; d < numero; d++) {
+                long id = in.readLong();
+                String autore = in.readUTF();
+                String destinatario = in.readUTF();
+                long corsoLaurea = in.readLong();
+                int lunghezza = in.readInt();
+                String[] chiavi = new String[in.readInt()];
+                int[] frequenze = new int[chiavi.length];
+                for (int i = 0; i < chiavi.length; i++) {
+                    chiavi[i] = in.readUTF();
+                    frequenze[i] = in.readInt();
+                }
+                inserisci(id, new Documento(autore.isEmpty() ? null : autore, destinatario.isEmpty() ? null : destinatario,
+                        corsoLaurea, lunghezza, chiavi, frequenze));
+            }
+            ultimoId = Math.max(ultimoId, ultimo);
+            epoca = epocaSnapshot;
+            modificato = false;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Snapshot dell'indice dei messaggi non leggibile, verrà ricostruito", e);
+            svuota();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return il numero di messaggi indicizzati
+     */
+    public int getDocumenti() {
+        lock.readLock().lock();
+        try {
+            return documenti.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return il numero di termini distinti
+     */
+    public int getTermini() {
+        lock.readLock().lock();
+        try {
+            return termini.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return l'epoca del database a cui appartengono gli ID indicizzati, 0 se non ancora allineato
+     */
+    public long getEpoca() {
+        lock.readLock().lock();
+        try {
+            return epoca;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return l'ID più alto tra i messaggi indicizzati
+     */
+    public long getUltimoId() {
+        lock.readLock().lock();
+        try {
+            return ultimoId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void salvaSeModificato(Path percorso) {
+        if (!modificato) {
+            return;
+        }
+        try {
+            salva(percorso);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Snapshot dell'indice dei messaggi non riuscito", e);
+        }
+    }
+
+    private void inserisci(long id, Documento documento) {
+        elimina(id);
+        for (int i = 0; i < documento.termini.length; i++) {
+            termini.computeIfAbsent(documento.termini[i], t -> new Postings()).aggiungi(id, documento.frequenze[i]);
+        }
+        documenti.put(id, documento);
+        lunghezzaTotale += documento.lunghezza;
+        ultimoId = Math.max(ultimoId, id);
+        modificato = true;
+    }
+
+    private void svuota() {
+        termini.clear();
+        documenti.clear();
+        lunghezzaTotale = 0;
+        ultimoId = 0;
+        epoca = 0;
+    }
+
+    private void elimina(long id) {
+        Documento documento = documenti.remove(id);
+        if (documento == null) {
+            return;
+        }
+        for (String termine : documento.termini) {
+            Postings lista = termini.get(termine);
+            if (lista != null) {
+                lista.rimuovi(id);
+                if (lista.dimensione == 0) {
+                    termini.remove(termine);
+                }
+            }
+        }
+        lunghezzaTotale -= documento.lunghezza;
+        modificato = true;
+    }
+
+    private static double bm25(double idf, int frequenza, double normalizzazione) {
+        return idf * frequenza * (K1 + 1) / (frequenza + normalizzazione);
+    }
+
+    /**
+     * Un avviso è un messaggio con topic e senza destinatario: è visibile al corso di laurea del topic,
+     * indicato direttamente o tramite il corso.
+     */
+    private static long corsoLaureaAvviso(Messaggio messaggio) {
+        Topic topic = messaggio.getTopic();
+        if (topic == null || messaggio.getDestinatario() != null) {
+            return -1;
+        }
+        if (topic.getCorsoLaurea() != null && topic.getCorsoLaurea().getId() != null) {
+            return topic.getCorsoLaurea().getId();
+        }
+        if (topic.getCorso() != null && topic.getCorso().getCorsoLaurea() != null
+                && topic.getCorso().getCorsoLaurea().getId() != null) {
+            return topic.getCorso().getCorsoLaurea().getId();
+        }
+        return -1;
+    }
+}
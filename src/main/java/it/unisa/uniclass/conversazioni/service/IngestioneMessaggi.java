@@ -0,0 +1,293 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import it.unisa.uniclass.common.cluster.CanaleCluster;
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.service.dao.MessaggioRemote;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pipeline di scrittura dei messaggi in modalità write-behind.
+ * I messaggi inviati vengono accodati in una coda limitata; un unico thread li preleva a lotti
+ * e li salva con {@link MessaggioRemote#aggiungiMessaggi(List)}, cioè in una sola transazione e
+ * con gli INSERT raggruppati in batch JDBC, invece di un flush e un commit per messaggio.
+ *
+ * Il future restituito da {@link #accoda(Messaggio)} viene completato solo dopo il commit del lotto,
+ * quindi un messaggio confermato al mittente è già persistito come con la scrittura diretta.
+ * Se la coda resta piena oltre {@code attesaMassima} il messaggio viene rifiutato (backpressure).
+ *
+ * Dopo ogni lotto gli ID salvati vengono notificati alle altre istanze con una sola notifica {@link CanaleCluster#CHAT}.
+ *
+ * L'istanza condivisa viene chiusa allo spegnimento dell'applicazione da {@link ChiusuraIngestione},
+ * così il thread di scrittura non sopravvive a un redeploy e i messaggi in coda vengono salvati.
+ */
+public class IngestioneMessaggi {
+
+    private static final Logger LOGGER = Logger.getLogger(IngestioneMessaggi.class.getName());
+
+    /**
+     * Numero massimo di messaggi in attesa di scrittura.
+     */
+    public static final int CAPACITA_CODA = 2000;
+
+    /**
+     * Numero massimo di messaggi scritti in una singola transazione.
+     */
+    public static final int DIMENSIONE_LOTTO = 100;
+
+    /**
+     * Attesa massima, in millisecondi, per un posto libero nella coda prima di rifiutare il messaggio.
+     */
+    public static final long ATTESA_MASSIMA = 2000;
+
+    /**
+     * Attesa massima, in millisecondi, perché il thread di scrittura salvi i messaggi in coda alla chiusura.
+     */
+    public static final long ATTESA_CHIUSURA = 30_000;
+
+    //@ spec_public
+    //@ nullable
+    private static IngestioneMessaggi istanza;
+
+    //@ spec_public
+    private final MessaggioRemote messaggioDao;
+
+    //@ spec_public
+    private final BlockingQueue<Richiesta> coda;
+
+    //@ spec_public
+    private final int dimensioneLotto;
+
+    //@ spec_public
+    private final long attesaMassima;
+
+    //@ spec_public
+    private final Thread scrittore;
+
+    //@ spec_public
+    private volatile boolean attiva = true;
+
+    //@ spec_public
+    private CanaleCluster canale = CanaleCluster.getIstanza();
+
+    /**
+     * Restituisce la pipeline condivisa dall'applicazione, creandola al primo utilizzo.
+     * @param messaggioDao il DAO usato per le scritture
+     * @return l'istanza condivisa
+     */
+    public static synchronized IngestioneMessaggi getIstanza(MessaggioRemote messaggioDao) {
+        if (istanza == null) {
+            istanza = new IngestioneMessaggi(messaggioDao, CAPACITA_CODA, DIMENSIONE_LOTTO, ATTESA_MASSIMA);
+        }
+        return istanza;
+    }
+
+    /**
+     * Chiude l'istanza condivisa, se è stata creata; la successiva chiamata a {@link #getIstanza} ne crea una nuova.
+     */
+    public static synchronized void chiudiIstanza() {
+        if (istanza != null) {
+            istanza.chiudi();
+            istanza = null;
+        }
+    }
+
+    /**
+     * Crea la pipeline e avvia il thread di scrittura.
+     * @param messaggioDao il DAO usato per le scritture
+     * @param capacita il numero massimo di messaggi in coda
+     * @param dimensioneLotto il numero massimo di messaggi per transazione
+     * @param attesaMassima l'attesa massima in millisecondi per un posto in coda
+     */
+    //@ requires messaggioDao != null;
+    //@ requires capacita > 0 && dimensioneLotto > 0 && attesaMassima >= 0;
+    public IngestioneMessaggi(MessaggioRemote messaggioDao, int capacita, int dimensioneLotto, long attesaMassima) {
+        this.messaggioDao = messaggioDao;
+        this.coda = new ArrayBlockingQueue<>(capacita);
+        this.dimensioneLotto = dimensioneLotto;
+        this.attesaMassima = attesaMassima;
+        this.scrittore = new Thread(this::scrivi, "ingestione-messaggi");
+        this.scrittore.setDaemon(true);
+        this.scrittore.start();
+    }
+
+    /**
+     * Accoda un messaggio per la scrittura.
+     * @param messaggio il messaggio da salvare
+     * @return un future completato con il messaggio salvato dopo il commit, oppure in errore
+     *         con {@link RejectedExecutionException} se la coda è piena o la pipeline è chiusa
+     */
+    public CompletableFuture<Messaggio> accoda(Messaggio messaggio) {
+        CompletableFuture<Messaggio> esito = new CompletableFuture<>();
+        if (!attiva) {
+            esito.completeExceptionally(new RejectedExecutionException("Pipeline dei messaggi chiusa"));
+            return esito;
+        }
+        try {
+            Richiesta richiesta = new Richiesta(messaggio, esito);
+            if (!coda.offer(richiesta, attesaMassima, TimeUnit.MILLISECONDS)) {
+                esito.completeExceptionally(new RejectedExecutionException("Coda dei messaggi piena"));
+            } else if (!attiva && !scrittore.isAlive() && coda.remove(richiesta)) {
+                // Accodato mentre la pipeline si chiudeva, dopo che il thread di scrittura era già terminato
+                esito.completeExceptionally(new RejectedExecutionException("Pipeline dei messaggi chiusa"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            esito.completeExceptionally(e);
+        }
+        return esito;
+    }
+
+    /**
+     * Imposta il canale su cui notificare i messaggi salvati (utile per i test).
+     * @param canale il canale da usare
+     */
+    public void setCanale(CanaleCluster canale) {
+        this.canale = canale;
+    }
+
+    /**
+     * Restituisce il numero di messaggi in attesa di scrittura.
+     * @return la lunghezza attuale della coda
+     */
+    public int inCoda() {
+        return coda.size();
+    }
+
+    /**
+     * Ferma il thread di scrittura dopo aver salvato i messaggi già accodati, attendendo al più
+     * {@link #ATTESA_CHIUSURA} millisecondi. I messaggi rimasti in coda dopo la fine del thread
+     * vengono rifiutati, così nessun chiamante resta in attesa di un future mai completato.
+     */
+    public void chiudi() {
+        attiva = false;
+        scrittore.interrupt();
+        try {
+            scrittore.join(ATTESA_CHIUSURA);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (scrittore.isAlive()) {
+            LOGGER.warning("Il thread di scrittura dei messaggi non è terminato entro " + ATTESA_CHIUSURA + " ms, "
+                    + coda.size() + " messaggi ancora in coda");
+            return;
+        }
+        List<Richiesta> rimaste = new ArrayList<>();
+        coda.drainTo(rimaste);
+        for (Richiesta richiesta : rimaste) {
+            richiesta.esito.completeExceptionally(new RejectedExecutionException("Pipeline dei messaggi chiusa"));
+        }
+    }
+
+    private void scrivi() {
+        List<Richiesta> lotto = new ArrayList<>(dimensioneLotto);
+        while (attiva || !coda.isEmpty()) {
+            try {
+                Richiesta prima = coda.poll(1, TimeUnit.SECONDS);
+                if (prima == null) {
+                    continue;
+                }
+                lotto.add(prima);
+            } catch (InterruptedException e) {
+                if (attiva) {
+                    continue;
+                }
+            }
+            coda.drainTo(lotto, dimensioneLotto - lotto.size());
+            if (!lotto.isEmpty()) {
+                salva(lotto);
+                lotto.clear();
+            }
+        }
+    }
+
+    private void salva(List<Richiesta> lotto) {
+        List<Messaggio> messaggi = new ArrayList<>(lotto.size());
+        boolean[] nuovi = new boolean[lotto.size()];
+        for (int i = 0; i < lotto.size(); i++) {
+            Messaggio messaggio = lotto.get(i).messaggio;
+            messaggi.add(messaggio);
+            nuovi[i] = messaggio.getId() == null;
+        }
+        List<Long> ids = new ArrayList<>(lotto.size());
+        try {
+            List<Messaggio> salvati = messaggioDao.aggiungiMessaggi(messaggi);
+            for (Messaggio salvato : salvati) {
+                ids.add(salvato.getId());
+            }
+            notifica(ids);
+            for (int i = 0; i < lotto.size(); i++) {
+                lotto.get(i).esito.complete(salvati.get(i));
+            }
+        } catch (RuntimeException e) {
+            // Il lotto è stato annullato per intero: si riprova un messaggio alla volta,
+            // così un solo messaggio non valido non fa fallire gli altri.
+            LOGGER.log(Level.WARNING, "Scrittura del lotto di " + lotto.size() + " messaggi fallita, nuovo tentativo singolo", e);
+            for (int i = 0; i < lotto.size(); i++) {
+                Richiesta richiesta = lotto.get(i);
+                try {
+                    Messaggio daSalvare = nuovi[i] ? copia(richiesta.messaggio) : richiesta.messaggio;
+                    Messaggio salvato = messaggioDao.aggiungiMessaggio(daSalvare);
+                    ids.add(salvato.getId());
+                    richiesta.esito.complete(salvato);
+                } catch (RuntimeException errore) {
+                    richiesta.esito.completeExceptionally(errore);
+                }
+            }
+            notifica(ids);
+        }
+    }
+
+    /**
+     * Notifica alle altre istanze i messaggi già confermati, con una sola notifica per lotto.
+     */
+    private void notifica(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        StringBuilder dato = new StringBuilder();
+        for (Long id : ids) {
+            if (dato.length() > 0) {
+                dato.append(',');
+            }
+            dato.append(id);
+        }
+        canale.pubblica(CanaleCluster.CHAT, dato.toString());
+    }
+
+    /**
+     * Dopo il rollback le entità conservano gli ID presi dalla sequenza durante il persist:
+     * per ritentare l'inserimento serve un messaggio ancora senza ID. Il topic è già salvato
+     * (vedi {@link TopicService#risolviTopic}) e viene condiviso.
+     */
+    private static Messaggio copia(Messaggio originale) {
+        Messaggio copia = new Messaggio();
+        copia.setAutore(originale.getAutore());
+        copia.setDestinatario(originale.getDestinatario());
+        copia.setBody(originale.getBody());
+        copia.setDateTime(originale.getDateTime());
+        copia.setTopic(originale.getTopic());
+        return copia;
+    }
+
+    /**
+     * Un messaggio in coda con il future da completare.
+     */
+    private static class Richiesta {
+        private final Messaggio messaggio;
+        private final CompletableFuture<Messaggio> esito;
+
+        Richiesta(Messaggio messaggio, CompletableFuture<Messaggio> esito) {
+            this.messaggio = messaggio;
+            this.esito = esito;
+        }
+    }
+}
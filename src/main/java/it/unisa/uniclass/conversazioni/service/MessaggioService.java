@@ -1,13 +1,20 @@
 package it.unisa.uniclass.conversazioni.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
 import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.conversazioni.service.dao.MessaggioRemote;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.AccademicoVista;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.NoResultException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -20,8 +27,33 @@ import java.time.LocalDateTime;
 @Stateless
 public class MessaggioService {
 
+    /**
+     * Numero di messaggi restituiti per pagina se non specificato diversamente.
+     */
+    public static final int DIMENSIONE_PAGINA = 30;
+
+    /**
+     * Numero massimo di messaggi restituibili in una singola pagina.
+     */
+    public static final int DIMENSIONE_PAGINA_MASSIMA = 100;
+
+    /**
+     * Numero massimo di messaggi spostati nell'archivio in una singola transazione.
+     */
+    public static final int DIMENSIONE_LOTTO_ARCHIVIO = 500;
+
     private MessaggioRemote messaggioDao;
 
+    //@ nullable
+    private IngestioneMessaggi ingestione;
+
+    private CacheConversazioni cache = CacheConversazioni.getIstanza();
+
+    //@ nullable
+    private IndiceMessaggi indice;
+
+    private CanaleCluster canale = CanaleCluster.getIstanza();
+
     /**
      * Costruttore di default che esegue il lookup JNDI del DAO.
      */
@@ -79,6 +111,101 @@ public class MessaggioService {
         return messaggioDao.trovaMessaggi(matricola1, matricola2);
     }
 
+    /**
+     * Recupera l'ultima pagina della conversazione tra due utenti.
+     * I messaggi sono ordinati dal più recente al meno recente.
+     * L'archivio viene letto solo se i messaggi recenti non bastano a riempire la pagina.
+     *
+     * @param matricola1 La matricola del primo utente.
+     * @param matricola2 La matricola del secondo utente.
+     * @param limite Il numero massimo di messaggi da restituire.
+     * @return Una lista con al più {@code limite} messaggi.
+     */
+    public List<MessaggioVista> trovaConversazione(String matricola1, String matricola2, int limite) {
+        int limiteEffettivo = normalizzaLimite(limite);
+        List<MessaggioVista> inCache = cache.recenti(matricola1, matricola2, limiteEffettivo);
+        if (inCache != null) {
+            return inCache;
+        }
+        long versione = cache.versione(matricola1, matricola2);
+        List<MessaggioVista> messaggi = completaDallArchivio(matricola1, matricola2,
+                messaggioDao.trovaConversazione(matricola1, matricola2, limiteEffettivo), null, 0, limiteEffettivo);
+        cache.carica(matricola1, matricola2, messaggi, limiteEffettivo, versione);
+        return messaggi;
+    }
+
+    /**
+     * Recupera la pagina di messaggi tra due utenti precedente al cursore indicato.
+     * Il cursore è la coppia (dateTime, id) del messaggio più vecchio già caricato.
+     * Superato l'ultimo messaggio recente, la pagina prosegue con i messaggi archiviati.
+     *
+     * @param matricola1 La matricola del primo utente.
+     * @param matricola2 La matricola del secondo utente.
+     * @param dateTime La data e ora del messaggio usato come cursore.
+     * @param id L'ID del messaggio usato come cursore.
+     * @param limite Il numero massimo di messaggi da restituire.
+     * @return Una lista con al più {@code limite} messaggi, dal più recente al meno recente.
+     */
+    public List<MessaggioVista> trovaConversazionePrecedenti(String matricola1, String matricola2, LocalDateTime dateTime, long id, int limite) {
+        if (dateTime == null) {
+            return trovaConversazione(matricola1, matricola2, limite);
+        }
+        int limiteEffettivo = normalizzaLimite(limite);
+        List<MessaggioVista> inCache = cache.precedenti(matricola1, matricola2, dateTime, id, limiteEffettivo);
+        if (inCache != null) {
+            return inCache;
+        }
+        return completaDallArchivio(matricola1, matricola2,
+                messaggioDao.trovaConversazionePrecedenti(matricola1, matricola2, dateTime, id, limiteEffettivo),
+                dateTime, id, limiteEffettivo);
+    }
+
+    /**
+     * Completa con i messaggi archiviati una pagina rimasta incompleta sulla tabella dei messaggi recenti.
+     * L'archivio contiene solo messaggi precedenti all'orizzonte, quindi più vecchi di tutti quelli recenti:
+     * la ricerca riprende dal messaggio più vecchio della pagina, oppure dal cursore se la pagina è vuota.
+     *
+     * @param recenti La pagina letta dai messaggi recenti, dal più recente.
+     * @param dateTime La data del cursore richiesto, oppure null per l'ultima pagina.
+     * @param id L'ID del cursore richiesto.
+     * @param limite Il numero di messaggi della pagina.
+     * @return La pagina completata, dal più recente al meno recente.
+     */
+    private List<MessaggioVista> completaDallArchivio(String matricola1, String matricola2, List<MessaggioVista> recenti,
+                                                      LocalDateTime dateTime, long id, int limite) {
+        if (recenti.size() >= limite) {
+            return recenti;
+        }
+        if (!recenti.isEmpty()) {
+            MessaggioVista piuVecchio = recenti.get(recenti.size() - 1);
+            if (piuVecchio.dateTime() == null || piuVecchio.id() == null) {
+                return recenti;
+            }
+            dateTime = piuVecchio.dateTime();
+            id = piuVecchio.id();
+        }
+        List<MessaggioVista> archiviati = messaggioDao.trovaConversazioneArchiviata(matricola1, matricola2, dateTime, id, limite - recenti.size());
+        if (archiviati.isEmpty()) {
+            return recenti;
+        }
+        List<MessaggioVista> pagina = new ArrayList<>(recenti);
+        pagina.addAll(archiviati);
+        return pagina;
+    }
+
+    /**
+     * Riporta il limite di pagina nell'intervallo consentito.
+     *
+     * @param limite Il limite richiesto.
+     * @return Il limite effettivo da usare.
+     */
+    private int normalizzaLimite(int limite) {
+        if (limite <= 0) {
+            return DIMENSIONE_PAGINA;
+        }
+        return Math.min(limite, DIMENSIONE_PAGINA_MASSIMA);
+    }
+
     /**
      * Recupera tutti i messaggi presenti nel database.
      *
@@ -107,6 +234,118 @@ public class MessaggioService {
         return messaggioDao.trovaAvvisiAutore(autore);
     }
 
+    /**
+     * Trova gli avvisi destinati a un corso di laurea, in ordine di pubblicazione.
+     * Se {@code ultimoId} è null restituisce gli avvisi più recenti, altrimenti solo quelli
+     * successivi all'avviso indicato (ripresa di un feed dopo una disconnessione).
+     *
+     * @param corsoLaureaId L'ID del corso di laurea.
+     * @param ultimoId L'ID dell'ultimo avviso già ricevuto, oppure null.
+     * @param limite Il numero massimo di avvisi da restituire.
+     * @return Una lista di avvisi dal meno recente al più recente.
+     */
+    public List<MessaggioVista> trovaAvvisiCorsoLaurea(long corsoLaureaId, Long ultimoId, int limite) {
+        return trovaAvvisiCorsoLaurea(corsoLaureaId, null, ultimoId, limite);
+    }
+
+    /**
+     * Trova gli avvisi destinati a un corso di laurea, eventualmente ristretti a un suo corso, in ordine di pubblicazione.
+     * Il filtro sul corso è applicato dalla query prima del limite, così un feed ristretto riceve
+     * fino a {@code limite} avvisi pertinenti anche se il corso di laurea ne ha di più recenti per altri corsi.
+     *
+     * @param corsoLaureaId L'ID del corso di laurea.
+     * @param corsoId L'ID del corso a cui restringere gli avvisi, oppure null.
+     * @param ultimoId L'ID dell'ultimo avviso già ricevuto, oppure null.
+     * @param limite Il numero massimo di avvisi da restituire.
+     * @return Una lista di avvisi dal meno recente al più recente.
+     */
+    public List<MessaggioVista> trovaAvvisiCorsoLaurea(long corsoLaureaId, Long corsoId, Long ultimoId, int limite) {
+        int massimo = normalizzaLimite(limite);
+        if (ultimoId == null) {
+            List<MessaggioVista> recenti = new ArrayList<>(corsoId == null
+                    ? messaggioDao.trovaAvvisiCorsoLaureaRecenti(corsoLaureaId, massimo)
+                    : messaggioDao.trovaAvvisiCorsoRecenti(corsoLaureaId, corsoId, massimo));
+            Collections.reverse(recenti);
+            return recenti;
+        }
+        return corsoId == null
+                ? messaggioDao.trovaAvvisiCorsoLaurea(corsoLaureaId, ultimoId, massimo)
+                : messaggioDao.trovaAvvisiCorso(corsoLaureaId, corsoId, ultimoId, massimo);
+    }
+
+    /**
+     * Cerca nel testo dei messaggi e nel nome dei topic tra i messaggi che l'accademico può leggere:
+     * quelli inviati o ricevuti e gli avvisi del suo corso di laurea. La visibilità viene verificata
+     * sia sull'indice sia sui messaggi letti dal database.
+     *
+     * @param testo Il testo da cercare; tutti i termini devono comparire nel messaggio.
+     * @param accademico L'accademico che esegue la ricerca.
+     * @param limite Il numero massimo di risultati.
+     * @return I messaggi trovati, dal più rilevante.
+     */
+    public List<Messaggio> cercaMessaggi(String testo, Accademico accademico, int limite) {
+        if (testo == null || testo.isBlank() || accademico == null) {
+            return new ArrayList<>();
+        }
+        IndiceMessaggi indiceMessaggi = getIndice();
+        indiceMessaggi.allinea(messaggioDao);
+        Long corsoLaurea = accademico.getCorsoLaurea() != null ? accademico.getCorsoLaurea().getId() : null;
+        List<Long> ids = indiceMessaggi.cerca(testo, accademico.getMatricola(), corsoLaurea, normalizzaLimite(limite));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // La query restituisce i messaggi in ordine qualsiasi: si ripristina l'ordine di rilevanza
+        Map<Long, Messaggio> trovati = new HashMap<>();
+        for (Messaggio messaggio : messaggioDao.trovaMessaggiId(ids)) {
+            trovati.put(messaggio.getId(), messaggio);
+        }
+        if (trovati.size() < ids.size()) {
+            // Gli ID mancanti possono essere messaggi spostati nell'archivio dopo l'indicizzazione
+            List<Long> mancanti = new ArrayList<>();
+            for (Long id : ids) {
+                if (!trovati.containsKey(id)) {
+                    mancanti.add(id);
+                }
+            }
+            for (Messaggio messaggio : messaggioDao.trovaArchiviatiId(mancanti)) {
+                trovati.put(messaggio.getId(), messaggio);
+            }
+        }
+        // L'indice è solo un filtro: la visibilità si ricontrolla sui messaggi letti, e le voci che non
+        // corrispondono più al messaggio con quell'ID vengono corrette
+        List<Messaggio> risultato = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Messaggio messaggio = trovati.get(id);
+            if (messaggio == null) {
+                indiceMessaggi.rimuovi(id);
+            } else if (!IndiceMessaggi.visibile(messaggio, accademico.getMatricola(), corsoLaurea)) {
+                indiceMessaggi.aggiungi(messaggio);
+            } else {
+                risultato.add(messaggio);
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * Sposta nell'archivio, a lotti di {@link #DIMENSIONE_LOTTO_ARCHIVIO}, tutti i messaggi precedenti all'orizzonte.
+     * Ogni lotto è confermato in una transazione propria; se l'archiviazione si interrompe,
+     * l'esecuzione successiva riprende dai messaggi rimasti.
+     * I messaggi archiviati restano nell'indice di ricerca e nella cache, dove sono ancora validi in lettura.
+     *
+     * @param orizzonte La data prima della quale i messaggi vengono archiviati.
+     * @return Il numero di messaggi archiviati.
+     */
+    public int archiviaMessaggi(LocalDateTime orizzonte) {
+        int archiviati = 0;
+        List<Messaggio> lotto;
+        do {
+            lotto = messaggioDao.archiviaMessaggi(orizzonte, DIMENSIONE_LOTTO_ARCHIVIO);
+            archiviati += lotto.size();
+        } while (lotto.size() == DIMENSIONE_LOTTO_ARCHIVIO);
+        return archiviati;
+    }
+
     /**
      * Trova i messaggi nel database inviati in una data specifica.
      *
@@ -121,15 +360,10 @@ public class MessaggioService {
      * Trova gli accademici che hanno inviato messaggi a un determinato accademico.
      *
      * @param matricola La matricola dell'accademico di cui trovare i messaggeri.
-     * @return Una lista di oggetti Accademico che hanno inviato messaggi all'accademico specificato.
+     * @return Una lista, senza ripetizioni, degli accademici che hanno inviato messaggi all'accademico specificato.
      */
-    public List<Accademico> trovaMessaggeriDiUnAccademico(String matricola) {
-        List<Messaggio> messaggi = messaggioDao.trovaMessaggiRicevuti(matricola);
-        List<Accademico> accademici = new ArrayList<>();
-        for (Messaggio messaggio : messaggi) {
-            accademici.add(messaggio.getDestinatario());
-        }
-        return accademici;
+    public List<AccademicoVista> trovaMessaggeriDiUnAccademico(String matricola) {
+        return messaggioDao.trovaMessaggeri(matricola);
     }
 
     /**
@@ -150,11 +384,119 @@ public class MessaggioService {
      */
     public Messaggio aggiungiMessaggio(Messaggio messaggio) {
         if (messaggio != null) {
+            boolean nuovo = messaggio.getId() == null;
             messaggio = messaggioDao.aggiungiMessaggio(messaggio);
+            aggiornaCache(messaggio, nuovo);
+            getIndice().aggiungi(messaggio);
+            canale.pubblica(CanaleCluster.MESSAGGIO, String.valueOf(messaggio.getId()));
         }
         return messaggio;
     }
 
+    /**
+     * Aggiorna cache e indice di ricerca con i messaggi salvati da un'altra istanza,
+     * notificati tramite {@link CanaleCluster}.
+     *
+     * @param ids Gli ID dei messaggi salvati.
+     * @return I messaggi letti dal database.
+     */
+    public List<Messaggio> registraSalvati(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Messaggio> messaggi = messaggioDao.trovaMessaggiId(ids);
+        for (Messaggio messaggio : messaggi) {
+            aggiornaCache(messaggio, true);
+            getIndice().aggiungi(messaggio);
+        }
+        return messaggi;
+    }
+
+    /**
+     * Aggiunge in cache un messaggio appena inserito; un messaggio modificato invalida invece la conversazione.
+     */
+    private void aggiornaCache(Messaggio messaggio, boolean nuovo) {
+        if (messaggio == null || messaggio.getAutore() == null || messaggio.getDestinatario() == null) {
+            return;
+        }
+        if (nuovo) {
+            cache.aggiungi(MessaggioVista.di(messaggio));
+        } else {
+            cache.invalida(messaggio.getAutore().getMatricola(), messaggio.getDestinatario().getMatricola());
+            canale.pubblica(CanaleCluster.CONVERSAZIONE, messaggio.getAutore().getMatricola() + " " + messaggio.getDestinatario().getMatricola());
+        }
+    }
+
+    /**
+     * Accoda un nuovo messaggio nella pipeline di scrittura a lotti.
+     * Da preferire a {@link #aggiungiMessaggio(Messaggio)} sui percorsi ad alto traffico, come la chat:
+     * i messaggi inviati insieme vengono salvati in un'unica transazione.
+     *
+     * @param messaggio Il messaggio da salvare.
+     * @return Un future completato con il messaggio salvato dopo il commit, oppure in errore
+     *         se la coda è piena o il salvataggio non riesce.
+     */
+    public CompletableFuture<Messaggio> accodaMessaggio(Messaggio messaggio) {
+        if (messaggio == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return getIngestione().accoda(messaggio).thenApply(salvato -> {
+            aggiornaCache(salvato, true);
+            getIndice().aggiungi(salvato);
+            return salvato;
+        });
+    }
+
+    /**
+     * Setter per iniettare la cache delle conversazioni (utile per i test).
+     *
+     * @param cache La cache da usare.
+     */
+    public void setCache(CacheConversazioni cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Setter per iniettare il canale verso le altre istanze (utile per i test).
+     *
+     * @param canale Il canale da usare.
+     */
+    public void setCanale(CanaleCluster canale) {
+        this.canale = canale;
+    }
+
+    /**
+     * Setter per iniettare la pipeline di scrittura (utile per i test).
+     *
+     * @param ingestione La pipeline da usare.
+     */
+    public void setIngestione(IngestioneMessaggi ingestione) {
+        this.ingestione = ingestione;
+    }
+
+    /**
+     * Setter per iniettare l'indice di ricerca (utile per i test).
+     *
+     * @param indice L'indice da usare.
+     */
+    public void setIndice(IndiceMessaggi indice) {
+        this.indice = indice;
+    }
+
+    private IndiceMessaggi getIndice() {
+        if (indice == null) {
+            indice = IndiceMessaggi.getIstanza();
+        }
+        return indice;
+    }
+
+    private IngestioneMessaggi getIngestione() {
+        if (ingestione == null) {
+            ingestione = IngestioneMessaggi.getIstanza(messaggioDao);
+        }
+        return ingestione;
+    }
+
     /**
      * Rimuove un messaggio dal database.
      *
@@ -163,6 +505,17 @@ public class MessaggioService {
     public void rimuoviMessaggio(Messaggio messaggio) {
         if (messaggio != null) {
             messaggioDao.rimuoviMessaggio(messaggio);
+            if (messaggio.getId() != null) {
+                getIndice().rimuovi(messaggio.getId());
+            }
+            String conversazione = "";
+            if (messaggio.getAutore() != null && messaggio.getDestinatario() != null) {
+                cache.invalida(messaggio.getAutore().getMatricola(), messaggio.getDestinatario().getMatricola());
+                conversazione = " " + messaggio.getAutore().getMatricola() + " " + messaggio.getDestinatario().getMatricola();
+            }
+            if (messaggio.getId() != null) {
+                canale.pubblica(CanaleCluster.MESSAGGIO_RIMOSSO, messaggio.getId() + conversazione);
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package it.unisa.uniclass.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.Topic;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Indice in memoria dei topic già salvati, per chiave canonica (nome, corso di laurea, corso).
+ * I topic sono pochi e cambiano raramente: l'indice evita di interrogare il database
+ * a ogni avviso inviato. È condiviso tra le istanze di {@link TopicService}.
+ */
+public class RegistroTopic {
+
+    private static RegistroTopic istanza = new RegistroTopic();
+
+    //@ spec_public
+    private final ConcurrentMap<String, Topic> topics = new ConcurrentHashMap<>();
+
+    /**
+     * Restituisce il registro condiviso dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static RegistroTopic getIstanza() {
+        return istanza;
+    }
+
+    /**
+     * Restituisce il topic registrato con la chiave indicata.
+     * @param chiave la chiave canonica
+     * @return il topic, oppure null se non registrato
+     */
+    public Topic trova(String chiave) {
+        return topics.get(chiave);
+    }
+
+    /**
+     * Registra un topic salvato, se la chiave non è già registrata.
+     * @param chiave la chiave canonica
+     * @param topic il topic salvato
+     * @return il topic registrato per la chiave, che può essere diverso da quello passato
+     */
+    //@ requires topic != null && topic.getId() != null;
+    public Topic registra(String chiave, Topic topic) {
+        Topic presente = topics.putIfAbsent(chiave, topic);
+        return presente != null ? presente : topic;
+    }
+
+    /**
+     * Rimuove dal registro il topic con la chiave indicata.
+     * @param chiave la chiave canonica
+     */
+    public void rimuovi(String chiave) {
+        topics.remove(chiave);
+    }
+
+    /**
+     * Rimuove tutti i topic registrati, che verranno riletti dal database al primo utilizzo.
+     */
+    public void svuota() {
+        topics.clear();
+    }
+
+    /**
+     * @return il numero di topic registrati
+     */
+    public int dimensione() {
+        return topics.size();
+    }
+}
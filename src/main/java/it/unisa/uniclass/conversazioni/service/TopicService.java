@@ -1,7 +1,10 @@
 package it.unisa.uniclass.conversazioni.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.conversazioni.service.dao.TopicRemote;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.NoResultException;
 
@@ -18,6 +21,8 @@ public class TopicService {
 
     private TopicRemote topicDao;
 
+    private RegistroTopic registro = RegistroTopic.getIstanza();
+
     /**
      * Costruttore di default che esegue il lookup JNDI del DAO.
      */
@@ -44,6 +49,54 @@ public class TopicService {
         }
     }
 
+    /**
+     * Setter per iniettare il registro dei topic (utile per i test).
+     *
+     * @param registro Il registro da usare.
+     */
+    //@ requires registro != null;
+    //@ ensures this.registro == registro;
+    public void setRegistro(RegistroTopic registro) {
+        this.registro = registro;
+    }
+
+    /**
+     * Restituisce il topic canonico per nome, corso di laurea e corso, creandolo se non esiste.
+     * Il nome viene confrontato a meno di spazi iniziali e finali. Se due richieste concorrenti
+     * creano lo stesso topic, il vincolo di unicità sulla chiave ne fa fallire una, che
+     * rilegge il topic salvato dall'altra.
+     *
+     * @param nome Il nome del topic.
+     * @param corsoLaurea Il corso di laurea del topic, oppure null.
+     * @param corso Il corso del topic, oppure null.
+     * @return Il topic salvato, oppure null se il nome è vuoto (messaggio senza topic).
+     */
+    public Topic risolviTopic(String nome, CorsoLaurea corsoLaurea, Corso corso) {
+        if (nome == null || nome.isBlank()) {
+            return null;
+        }
+        String chiave = Topic.chiave(nome, corsoLaurea, corso);
+        Topic topic = registro.trova(chiave);
+        if (topic != null) {
+            return topic;
+        }
+        try {
+            topic = topicDao.trovaChiave(chiave);
+        } catch (NoResultException e) {
+            Topic nuovo = new Topic();
+            nuovo.setNome(nome.trim());
+            nuovo.setCorsoLaurea(corsoLaurea);
+            nuovo.setCorso(corso);
+            try {
+                topic = topicDao.creaTopic(nuovo);
+            } catch (RuntimeException violazione) {
+                // Un'altra richiesta ha salvato lo stesso topic nel frattempo
+                topic = topicDao.trovaChiave(chiave);
+            }
+        }
+        return registro.registra(chiave, topic);
+    }
+
     /**
      * Trova un topic nel database utilizzando il suo nome.
      *
@@ -101,7 +154,15 @@ public class TopicService {
      * @param topic Il topic da aggiungere o aggiornare.
      */
     public void aggiungiTopic(Topic topic) {
+        String precedente = topic.getChiave();
+        if (precedente != null) {
+            // Un topic rinominato o spostato cambia chiave
+            registro.rimuovi(precedente);
+        }
         topicDao.aggiungiTopic(topic);
+        if (precedente != null) {
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.TOPIC, precedente);
+        }
     }
 
     /**
@@ -111,5 +172,8 @@ public class TopicService {
      */
     public void rimuoviTopic(Topic topic) {
         topicDao.rimuoviTopic(topic);
+        String chiave = Topic.chiave(topic.getNome(), topic.getCorsoLaurea(), topic.getCorso());
+        registro.rimuovi(chiave);
+        CanaleCluster.getIstanza().pubblica(CanaleCluster.TOPIC, chiave);
     }
 }
\ No newline at end of file
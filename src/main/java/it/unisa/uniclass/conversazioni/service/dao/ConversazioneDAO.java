@@ -0,0 +1,48 @@
+package it.unisa.uniclass.conversazioni.service.dao;
+
+import it.unisa.uniclass.conversazioni.model.Conversazione;
+import it.unisa.uniclass.conversazioni.model.ConversazioneVista;
+import it.unisa.uniclass.utenti.model.Accademico;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * DAO (Data Access Object) per la lettura dei riepiloghi delle conversazioni.
+ * I riepiloghi sono mantenuti da {@link MessaggioDAO} all'inserimento di ogni messaggio.
+ */
+@Stateless(name = "ConversazioneDAO")
+public class ConversazioneDAO implements ConversazioneRemote {
+
+    @PersistenceContext(unitName = "DBUniClassPU")
+    //@ spec_public
+    private EntityManager emUniClass;
+
+    /**
+     * Recupera i riepiloghi delle conversazioni di un utente, dalla più recente.
+     * @param matricola Matricola dell'utente.
+     * @return Lista dei riepiloghi, uno per interlocutore, con i soli dati dell'interlocutore mostrati nella casella.
+     */
+    @Override
+    public List<ConversazioneVista> trovaConversazioni(String matricola) {
+        TypedQuery<ConversazioneVista> query = emUniClass.createNamedQuery(Conversazione.TROVA_CONVERSAZIONI_PROPRIETARIO, ConversazioneVista.class);
+        query.setParameter("matricola", matricola);
+        return query.getResultList();
+    }
+
+    /**
+     * Azzera i messaggi non letti della conversazione con un interlocutore.
+     * @param proprietario Utente che ha letto la conversazione.
+     * @param interlocutore L'altro partecipante della conversazione.
+     */
+    @Override
+    public void segnaLetta(Accademico proprietario, Accademico interlocutore) {
+        emUniClass.createNamedQuery(Conversazione.SEGNA_LETTA)
+                .setParameter("proprietario", proprietario)
+                .setParameter("interlocutore", interlocutore)
+                .executeUpdate();
+    }
+}
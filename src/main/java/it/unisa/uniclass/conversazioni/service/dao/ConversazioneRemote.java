@@ -0,0 +1,15 @@
+package it.unisa.uniclass.conversazioni.service.dao;
+
+import it.unisa.uniclass.conversazioni.model.ConversazioneVista;
+import it.unisa.uniclass.utenti.model.Accademico;
+import jakarta.ejb.Remote;
+
+import java.util.List;
+
+@Remote
+//@ skipesc
+public interface ConversazioneRemote {
+
+    public List<ConversazioneVista> trovaConversazioni(String matricola);
+    public void segnaLetta(Accademico proprietario, Accademico interlocutore);
+}
@@ -1,12 +1,23 @@
 package it.unisa.uniclass.conversazioni.service.dao;
 
+import it.unisa.uniclass.conversazioni.model.Conversazione;
 import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioArchiviato;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
 import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.AccademicoVista;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * DAO (Data Access Object) per la gestione dei messaggi nel sistema.
@@ -15,6 +26,11 @@ import java.util.List;
 @Stateless(name = "MessaggioDAO")
 public class MessaggioDAO implements MessaggioRemote {
 
+    /**
+     * Chiave del lock consultivo preso da ogni lotto dell'archiviazione.
+     */
+    public static final long BLOCCO_ARCHIVIAZIONE = 0x4152434849564941L;
+
     @PersistenceContext(unitName = "DBUniClassPU")
     //@ spec_public
     private EntityManager emUniClass;
@@ -70,6 +86,43 @@ public class MessaggioDAO implements MessaggioRemote {
         return query.getResultList();
     }
 
+    /**
+     * Recupera gli ultimi messaggi scambiati tra due utenti, dal più recente al meno recente.
+     * @param matricola1 Matricola del primo utente.
+     * @param matricola2 Matricola del secondo utente.
+     * @param limite Numero massimo di messaggi da restituire.
+     * @return Lista dei messaggi più recenti della conversazione, come proiezioni.
+     */
+    @Override
+    public List<MessaggioVista> trovaConversazione(String matricola1, String matricola2, int limite) {
+        TypedQuery<MessaggioVista> query = emUniClass.createNamedQuery(Messaggio.TROVA_CONVERSAZIONE_RECENTI, MessaggioVista.class);
+        query.setParameter("autore", matricola1);
+        query.setParameter("destinatario", matricola2);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera i messaggi scambiati tra due utenti precedenti al cursore (dateTime, id),
+     * dal più recente al meno recente.
+     * @param matricola1 Matricola del primo utente.
+     * @param matricola2 Matricola del secondo utente.
+     * @param dateTime Data e ora dell'ultimo messaggio già caricato.
+     * @param id ID dell'ultimo messaggio già caricato.
+     * @param limite Numero massimo di messaggi da restituire.
+     * @return Lista dei messaggi precedenti al cursore, come proiezioni.
+     */
+    @Override
+    public List<MessaggioVista> trovaConversazionePrecedenti(String matricola1, String matricola2, LocalDateTime dateTime, long id, int limite) {
+        TypedQuery<MessaggioVista> query = emUniClass.createNamedQuery(Messaggio.TROVA_CONVERSAZIONE_PRECEDENTI, MessaggioVista.class);
+        query.setParameter("autore", matricola1);
+        query.setParameter("destinatario", matricola2);
+        query.setParameter("dateTime", dateTime);
+        query.setParameter("id", id);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
     /**
      * Recupera tutti i messaggi presenti nel database.
      * @return Lista di tutti i messaggi.
@@ -80,6 +133,128 @@ public class MessaggioDAO implements MessaggioRemote {
         return query.getResultList();
     }
 
+    /**
+     * Recupera i messaggi con gli ID indicati, in ordine qualsiasi.
+     * @param ids ID dei messaggi.
+     * @return Lista dei messaggi trovati; gli ID inesistenti vengono ignorati.
+     */
+    @Override
+    public List<Messaggio> trovaMessaggiId(List<Long> ids) {
+        TypedQuery<Messaggio> query = emUniClass.createNamedQuery(Messaggio.TROVA_MESSAGGI_ID, Messaggio.class);
+        query.setParameter("ids", ids);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera i messaggi con ID successivo a quello indicato, in ordine di ID.
+     * @param id ID dell'ultimo messaggio già letto.
+     * @param limite Numero massimo di messaggi da restituire.
+     * @return Lista dei messaggi successivi.
+     */
+    @Override
+    public List<Messaggio> trovaMessaggiDopo(long id, int limite) {
+        TypedQuery<Messaggio> query = emUniClass.createNamedQuery(Messaggio.TROVA_MESSAGGI_DOPO, Messaggio.class);
+        query.setParameter("id", id);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera l'ID più alto tra i messaggi recenti e quelli archiviati.
+     * @return L'ID più alto, oppure 0 se non ci sono messaggi.
+     */
+    @Override
+    public long trovaUltimoId() {
+        Long recenti = emUniClass.createNamedQuery(Messaggio.TROVA_ULTIMO_ID, Long.class).getSingleResult();
+        Long archiviati = emUniClass.createNamedQuery(MessaggioArchiviato.TROVA_ULTIMO_ID, Long.class).getSingleResult();
+        return Math.max(recenti != null ? recenti : 0L, archiviati != null ? archiviati : 0L);
+    }
+
+    /**
+     * Recupera un identificativo della tabella dei messaggi che cambia quando la tabella viene ricreata,
+     * per esempio dal drop-and-create dello schema a un nuovo deploy.
+     * @return L'OID della tabella dei messaggi.
+     */
+    @Override
+    public long trovaEpocaMessaggi() {
+        return ((Number) emUniClass.createNamedQuery(Messaggio.TROVA_EPOCA).getSingleResult()).longValue();
+    }
+
+    /**
+     * Recupera dall'archivio i messaggi scambiati tra due utenti, dal più recente al meno recente.
+     * Con {@code dateTime} null restituisce i più recenti dell'archivio, altrimenti solo quelli
+     * precedenti al cursore (dateTime, id).
+     * @param matricola1 Matricola del primo utente.
+     * @param matricola2 Matricola del secondo utente.
+     * @param dateTime Data e ora dell'ultimo messaggio già caricato, oppure null.
+     * @param id ID dell'ultimo messaggio già caricato.
+     * @param limite Numero massimo di messaggi da restituire.
+     * @return Lista dei messaggi archiviati come proiezioni, con il loro ID originale.
+     */
+    @Override
+    public List<MessaggioVista> trovaConversazioneArchiviata(String matricola1, String matricola2, LocalDateTime dateTime, long id, int limite) {
+        TypedQuery<MessaggioVista> query;
+        if (dateTime == null) {
+            query = emUniClass.createNamedQuery(MessaggioArchiviato.TROVA_CONVERSAZIONE_RECENTI, MessaggioVista.class);
+        } else {
+            query = emUniClass.createNamedQuery(MessaggioArchiviato.TROVA_CONVERSAZIONE_PRECEDENTI, MessaggioVista.class);
+            query.setParameter("dateTime", dateTime);
+            query.setParameter("id", id);
+        }
+        query.setParameter("autore", matricola1);
+        query.setParameter("destinatario", matricola2);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera dall'archivio i messaggi con gli ID indicati, in ordine qualsiasi.
+     * @param ids ID dei messaggi.
+     * @return Lista dei messaggi archiviati trovati; gli ID non archiviati vengono ignorati.
+     */
+    @Override
+    public List<Messaggio> trovaArchiviatiId(List<Long> ids) {
+        TypedQuery<MessaggioArchiviato> query = emUniClass.createNamedQuery(MessaggioArchiviato.TROVA_MESSAGGI_ID, MessaggioArchiviato.class);
+        query.setParameter("ids", ids);
+        List<Messaggio> messaggi = new ArrayList<>();
+        for (MessaggioArchiviato archiviato : query.getResultList()) {
+            messaggi.add(archiviato.comeMessaggio());
+        }
+        return messaggi;
+    }
+
+    /**
+     * Sposta nell'archivio un lotto di messaggi precedenti all'orizzonte, dal meno recente.
+     * Copia e cancellazione avvengono in una transazione propria, così ogni lotto viene
+     * confermato da solo e un'archiviazione lunga non tiene aperta un'unica transazione.
+     * Il lotto è protetto da un lock consultivo: se un'altra istanza sta già archiviando,
+     * non viene spostato nulla e il lavoro resta a quella istanza.
+     * @param orizzonte Data prima della quale i messaggi vengono archiviati.
+     * @param limite Numero massimo di messaggi da spostare.
+     * @return I messaggi spostati; meno di {@code limite} se non ne restano altri da archiviare
+     *         o se un'altra istanza sta archiviando.
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<Messaggio> archiviaMessaggi(LocalDateTime orizzonte, int limite) {
+        Object bloccato = emUniClass.createNamedQuery(Messaggio.BLOCCA_ARCHIVIAZIONE)
+                .setParameter(1, BLOCCO_ARCHIVIAZIONE)
+                .getSingleResult();
+        if (!Boolean.TRUE.equals(bloccato)) {
+            return new ArrayList<>();
+        }
+        TypedQuery<Messaggio> query = emUniClass.createNamedQuery(Messaggio.TROVA_MESSAGGI_PRIMA, Messaggio.class);
+        query.setParameter("dateTime", orizzonte);
+        query.setMaxResults(limite);
+        List<Messaggio> messaggi = query.getResultList();
+        for (Messaggio messaggio : messaggi) {
+            emUniClass.persist(new MessaggioArchiviato(messaggio));
+            emUniClass.remove(messaggio);
+        }
+        emUniClass.flush();
+        return messaggi;
+    }
+
     /**
      * Recupera tutti gli avvisi presenti nel sistema.
      * @return Lista di avvisi.
@@ -102,6 +277,85 @@ public class MessaggioDAO implements MessaggioRemote {
         return query.getResultList();
     }
 
+    /**
+     * Recupera gli avvisi destinati a un corso di laurea, direttamente o tramite un suo corso,
+     * pubblicati dopo l'avviso con l'ID indicato, in ordine di pubblicazione.
+     * @param corsoLaureaId ID del corso di laurea.
+     * @param dopoId ID dell'ultimo avviso già ricevuto.
+     * @param limite Numero massimo di avvisi da restituire.
+     * @return Lista degli avvisi successivi, come proiezioni.
+     */
+    @Override
+    public List<MessaggioVista> trovaAvvisiCorsoLaurea(long corsoLaureaId, long dopoId, int limite) {
+        TypedQuery<MessaggioVista> query = emUniClass.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_LAUREA_DOPO, MessaggioVista.class);
+        query.setParameter("corsoLaurea", corsoLaureaId);
+        query.setParameter("id", dopoId);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera gli avvisi più recenti destinati a un corso di laurea, dal più recente.
+     * @param corsoLaureaId ID del corso di laurea.
+     * @param limite Numero massimo di avvisi da restituire.
+     * @return Lista degli avvisi più recenti, come proiezioni.
+     */
+    @Override
+    public List<MessaggioVista> trovaAvvisiCorsoLaureaRecenti(long corsoLaureaId, int limite) {
+        TypedQuery<MessaggioVista> query = emUniClass.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_LAUREA_RECENTI, MessaggioVista.class);
+        query.setParameter("corsoLaurea", corsoLaureaId);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera gli avvisi di un corso del corso di laurea indicato, pubblicati dopo l'avviso con l'ID indicato,
+     * in ordine di pubblicazione. Il filtro sul corso è applicato dalla query, prima del limite.
+     * @param corsoLaureaId ID del corso di laurea.
+     * @param corsoId ID del corso.
+     * @param dopoId ID dell'ultimo avviso già ricevuto.
+     * @param limite Numero massimo di avvisi da restituire.
+     * @return Lista degli avvisi successivi, come proiezioni.
+     */
+    @Override
+    public List<MessaggioVista> trovaAvvisiCorso(long corsoLaureaId, long corsoId, long dopoId, int limite) {
+        TypedQuery<MessaggioVista> query = emUniClass.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_DOPO, MessaggioVista.class);
+        query.setParameter("corsoLaurea", corsoLaureaId);
+        query.setParameter("corso", corsoId);
+        query.setParameter("id", dopoId);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera gli avvisi più recenti di un corso del corso di laurea indicato, dal più recente.
+     * Il filtro sul corso è applicato dalla query, prima del limite.
+     * @param corsoLaureaId ID del corso di laurea.
+     * @param corsoId ID del corso.
+     * @param limite Numero massimo di avvisi da restituire.
+     * @return Lista degli avvisi più recenti, come proiezioni.
+     */
+    @Override
+    public List<MessaggioVista> trovaAvvisiCorsoRecenti(long corsoLaureaId, long corsoId, int limite) {
+        TypedQuery<MessaggioVista> query = emUniClass.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_RECENTI, MessaggioVista.class);
+        query.setParameter("corsoLaurea", corsoLaureaId);
+        query.setParameter("corso", corsoId);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+
+    /**
+     * Recupera gli accademici che hanno inviato almeno un messaggio all'utente indicato.
+     * @param matricola Matricola del destinatario.
+     * @return Lista degli autori, senza ripetizioni, come proiezioni.
+     */
+    @Override
+    public List<AccademicoVista> trovaMessaggeri(String matricola) {
+        TypedQuery<AccademicoVista> query = emUniClass.createNamedQuery(Messaggio.TROVA_MESSAGGERI, AccademicoVista.class);
+        query.setParameter("matricola", matricola);
+        return query.getResultList();
+    }
+
     /**
      * Recupera tutti i messaggi inviati in una determinata data.
      * @param dateTime Data di riferimento.
@@ -135,15 +389,118 @@ public class MessaggioDAO implements MessaggioRemote {
     public Messaggio aggiungiMessaggio(Messaggio messaggio) {
         if(messaggio.getId() == null) {
             emUniClass.persist(messaggio);
+            aggiornaConversazioni(messaggio);
         }
         else {
             emUniClass.merge(messaggio);
         }
         emUniClass.flush();
-        System.out.println("Messaggio dopo flush: " + messaggio);
         return messaggio;
     }
 
+    /**
+     * Inserisce un lotto di messaggi in un'unica transazione.
+     * Gli INSERT vengono inviati con un solo flush, e quindi raggruppati nel batch JDBC;
+     * i riepiloghi delle conversazioni vengono aggiornati una volta per coppia di utenti,
+     * con l'ultimo messaggio del lotto e il numero complessivo di non letti.
+     * @param messaggi Messaggi da aggiungere o aggiornare, nell'ordine di invio.
+     * @return I messaggi salvati, nello stesso ordine.
+     */
+    @Override
+    public List<Messaggio> aggiungiMessaggi(List<Messaggio> messaggi) {
+        List<Messaggio> salvati = new ArrayList<>(messaggi.size());
+        Map<String, AggiornamentoConversazione> aggiornamenti = new LinkedHashMap<>();
+        for (Messaggio messaggio : messaggi) {
+            if (messaggio.getId() == null) {
+                emUniClass.persist(messaggio);
+                salvati.add(messaggio);
+                raccogliAggiornamenti(messaggio, aggiornamenti);
+            } else {
+                salvati.add(emUniClass.merge(messaggio));
+            }
+        }
+        emUniClass.flush();
+        for (AggiornamentoConversazione aggiornamento : aggiornamenti.values()) {
+            aggiornaConversazione(aggiornamento.proprietario, aggiornamento.interlocutore,
+                    aggiornamento.ultimoMessaggio, aggiornamento.incremento);
+        }
+        return salvati;
+    }
+
+    /**
+     * Accumula gli aggiornamenti dei riepiloghi per coppia (proprietario, interlocutore), così che
+     * più messaggi della stessa conversazione nel lotto producano un solo UPDATE per riepilogo.
+     */
+    private void raccogliAggiornamenti(Messaggio messaggio, Map<String, AggiornamentoConversazione> aggiornamenti) {
+        Accademico autore = messaggio.getAutore();
+        Accademico destinatario = messaggio.getDestinatario();
+        if (autore == null || destinatario == null) {
+            return;
+        }
+        raccogliAggiornamento(aggiornamenti, autore, destinatario, messaggio, 0);
+        if (!Objects.equals(autore.getMatricola(), destinatario.getMatricola())) {
+            raccogliAggiornamento(aggiornamenti, destinatario, autore, messaggio, 1);
+        }
+    }
+
+    private void raccogliAggiornamento(Map<String, AggiornamentoConversazione> aggiornamenti, Accademico proprietario,
+                                       Accademico interlocutore, Messaggio messaggio, int incremento) {
+        AggiornamentoConversazione aggiornamento = aggiornamenti.computeIfAbsent(
+                proprietario.getMatricola() + "|" + interlocutore.getMatricola(),
+                k -> new AggiornamentoConversazione(proprietario, interlocutore));
+        if (aggiornamento.ultimoMessaggio == null || aggiornamento.ultimoMessaggio.getDateTime() == null
+                || (messaggio.getDateTime() != null && !messaggio.getDateTime().isBefore(aggiornamento.ultimoMessaggio.getDateTime()))) {
+            aggiornamento.ultimoMessaggio = messaggio;
+        }
+        aggiornamento.incremento += incremento;
+    }
+
+    /**
+     * Aggiornamento cumulativo del riepilogo di una conversazione all'interno di un lotto.
+     */
+    private static class AggiornamentoConversazione {
+        private final Accademico proprietario;
+        private final Accademico interlocutore;
+        private Messaggio ultimoMessaggio;
+        private int incremento;
+
+        AggiornamentoConversazione(Accademico proprietario, Accademico interlocutore) {
+            this.proprietario = proprietario;
+            this.interlocutore = interlocutore;
+        }
+    }
+
+    /**
+     * Aggiorna, nella stessa transazione dell'inserimento, i riepiloghi della conversazione
+     * di autore e destinatario: l'ultimo messaggio diventa quello appena inserito e, per il solo
+     * destinatario, il contatore dei non letti viene incrementato. Creazione e incremento avvengono
+     * con un solo INSERT ... ON CONFLICT sul database, così invii concorrenti non perdono conteggi
+     * e i primi messaggi concorrenti di una conversazione non violano il vincolo di unicità.
+     * @param messaggio Messaggio appena inserito.
+     */
+    private void aggiornaConversazioni(Messaggio messaggio) {
+        Accademico autore = messaggio.getAutore();
+        Accademico destinatario = messaggio.getDestinatario();
+        if (autore == null || destinatario == null) {
+            return;
+        }
+        aggiornaConversazione(autore, destinatario, messaggio, 0);
+        if (!Objects.equals(autore.getMatricola(), destinatario.getMatricola())) {
+            aggiornaConversazione(destinatario, autore, messaggio, 1);
+        }
+    }
+
+    private void aggiornaConversazione(Accademico proprietario, Accademico interlocutore, Messaggio messaggio, int incremento) {
+        // I riepiloghi si leggono solo con proiezioni, quindi la query nativa non lascia entità obsolete in cache
+        emUniClass.createNamedQuery(Conversazione.REGISTRA_MESSAGGIO)
+                .setParameter(1, proprietario.getMatricola())
+                .setParameter(2, interlocutore.getMatricola())
+                .setParameter(3, Conversazione.creaAnteprima(messaggio.getBody()))
+                .setParameter(4, messaggio.getDateTime())
+                .setParameter(5, incremento)
+                .executeUpdate();
+    }
+
     /**
      * Rimuove un messaggio dal database.
      * @param messaggio Messaggio da rimuovere.
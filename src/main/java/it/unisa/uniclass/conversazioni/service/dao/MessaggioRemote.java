@@ -1,7 +1,9 @@
 package it.unisa.uniclass.conversazioni.service.dao;
 
 import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
 import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.utenti.model.AccademicoVista;
 import jakarta.ejb.Remote;
 
 import java.time.LocalDateTime;
@@ -15,12 +17,27 @@ public interface MessaggioRemote {
     public List<Messaggio> trovaMessaggiInviati(String matricola);
     public List<Messaggio> trovaMessaggiRicevuti(String matricola);
     public List<Messaggio> trovaMessaggi(String matricola1, String matricola2);
+    public List<MessaggioVista> trovaConversazione(String matricola1, String matricola2, int limite);
+    public List<MessaggioVista> trovaConversazionePrecedenti(String matricola1, String matricola2, LocalDateTime dateTime, long id, int limite);
     public List<Messaggio> trovaTutti();
+    public List<Messaggio> trovaMessaggiId(List<Long> ids);
+    public List<Messaggio> trovaMessaggiDopo(long id, int limite);
+    public long trovaUltimoId();
+    public long trovaEpocaMessaggi();
+    public List<MessaggioVista> trovaConversazioneArchiviata(String matricola1, String matricola2, LocalDateTime dateTime, long id, int limite);
+    public List<Messaggio> trovaArchiviatiId(List<Long> ids);
+    public List<Messaggio> archiviaMessaggi(LocalDateTime orizzonte, int limite);
     public List<Messaggio> trovaAvvisi();
     public List<Messaggio> trovaAvvisiAutore(String autore);
+    public List<MessaggioVista> trovaAvvisiCorsoLaurea(long corsoLaureaId, long dopoId, int limite);
+    public List<MessaggioVista> trovaAvvisiCorsoLaureaRecenti(long corsoLaureaId, int limite);
+    public List<MessaggioVista> trovaAvvisiCorso(long corsoLaureaId, long corsoId, long dopoId, int limite);
+    public List<MessaggioVista> trovaAvvisiCorsoRecenti(long corsoLaureaId, long corsoId, int limite);
+    public List<AccademicoVista> trovaMessaggeri(String matricola);
     public List<Messaggio> trovaMessaggiData(LocalDateTime dateTime);
     public List<Messaggio> trovaTopic(Topic topic);
     public Messaggio aggiungiMessaggio(Messaggio messaggio);
+    public List<Messaggio> aggiungiMessaggi(List<Messaggio> messaggi);
     public void rimuoviMessaggio(Messaggio messaggio);
 
 }
@@ -2,6 +2,8 @@ package it.unisa.uniclass.conversazioni.service.dao;
 
 import it.unisa.uniclass.conversazioni.model.Topic;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
@@ -42,6 +44,34 @@ public class TopicDAO implements TopicRemote {
         return query.getSingleResult();
     }
 
+    /**
+     * Trova un topic in base alla sua chiave canonica.
+     *
+     * @param chiave La chiave calcolata con {@link Topic#chiave}.
+     * @return Il topic corrispondente alla chiave fornita.
+     */
+    @Override
+    public Topic trovaChiave(String chiave) {
+        TypedQuery<Topic> query = emUniClass.createNamedQuery(Topic.TROVA_CHIAVE, Topic.class);
+        query.setParameter("chiave", chiave);
+        return query.getSingleResult();
+    }
+
+    /**
+     * Salva un nuovo topic in una transazione propria, così una violazione del vincolo
+     * di unicità sulla chiave non annulla la transazione del chiamante.
+     *
+     * @param topic Il topic da salvare.
+     * @return Il topic salvato, con l'ID assegnato.
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public Topic creaTopic(Topic topic) {
+        emUniClass.persist(topic);
+        emUniClass.flush();
+        return topic;
+    }
+
     /**
      * Trova un topic associato a un corso di laurea.
      *
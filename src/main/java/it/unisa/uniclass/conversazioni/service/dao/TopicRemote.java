@@ -7,6 +7,8 @@ import java.util.List;
 public interface TopicRemote {
     public Topic trovaId(long id);
     public Topic trovaNome(String nome);
+    public Topic trovaChiave(String chiave);
+    public Topic creaTopic(Topic topic);
     public Topic trovaCorsoLaurea(String nome);
     public List<Topic> trovaTutti();
     public Topic trovaCorso(String nome);
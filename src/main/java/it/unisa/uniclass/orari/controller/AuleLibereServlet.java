@@ -0,0 +1,95 @@
+package it.unisa.uniclass.orari.controller;
+
+import it.unisa.uniclass.orari.model.AulaLibera;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.service.AuleLibereService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Restituisce in JSON le aule libere in una fascia oraria, dalla più a lungo libera.
+ * Parametri: {@code giorno} (ad esempio LUNEDI), {@code da} e {@code a} (HH:mm) e, facoltativo, l'edificio {@code ed}.
+ */
+@WebServlet(name = "AuleLibereServlet", value = "/AuleLibere")
+public class AuleLibereServlet extends HttpServlet {
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private AuleLibereService auleLibereService;
+
+    /**
+     * Setter per iniettare l'AuleLibereService (utile per i test).
+     * @param auleLibereService il service da iniettare
+     */
+    //@ requires auleLibereService != null;
+    //@ ensures this.auleLibereService == auleLibereService;
+    public void setAuleLibereService(AuleLibereService auleLibereService) {
+        this.auleLibereService = auleLibereService;
+    }
+
+    /**
+     * Gestisce le richieste GET di ricerca delle aule libere.
+     * @param req la richiesta HTTP
+     * @param resp la risposta HTTP
+     */
+    //@ requires req != null;
+    //@ requires resp != null;
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            String giornoParam = req.getParameter("giorno");
+            String daParam = req.getParameter("da");
+            String aParam = req.getParameter("a");
+            if (giornoParam == null || daParam == null || aParam == null) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Parametri mancanti");
+                return;
+            }
+            String edificio = req.getParameter("ed");
+            if (edificio != null && edificio.isEmpty()) {
+                edificio = null;
+            }
+
+            List<AulaLibera> libere = auleLibereService.cercaAuleLibere(Giorno.valueOf(giornoParam.toUpperCase()),
+                    LocalTime.parse(daParam), LocalTime.parse(aParam), edificio);
+
+            JSONArray jsonArray = new JSONArray();
+            for (AulaLibera libera : libere) {
+                JSONObject jsonAula = new JSONObject();
+                jsonAula.put("aula", libera.aula());
+                jsonAula.put("edificio", libera.edificio());
+                if (libera.liberaFino() != null) {
+                    jsonAula.put("liberaFino", libera.liberaFino().toString());
+                }
+                jsonArray.put(jsonAula);
+            }
+
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.getWriter().write(jsonArray.toString());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            try {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Fascia oraria non valida");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        } catch (IOException e) {
+            req.getServletContext().log("Error processing AuleLibere request", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package it.unisa.uniclass.orari.controller;
+
+import it.unisa.uniclass.orari.model.Catalogo;
+import it.unisa.uniclass.orari.service.CatalogoService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Restituisce in JSON tutti i corsi di laurea con i loro resti e anni didattici, per il form di ricerca degli orari.
+ * Il catalogo può essere tenuto dal browser per {@value #MAX_AGE} secondi; dopo, una richiesta con l'ETag
+ * in {@code If-None-Match} riceve 304 finché il catalogo non cambia.
+ */
+@WebServlet(name = "CatalogoOrariServlet", value = "/catalogoOrari")
+public class CatalogoOrariServlet extends HttpServlet {
+
+    /**
+     * Secondi per cui il browser può usare il catalogo senza chiedere conferma.
+     */
+    public static final int MAX_AGE = 600;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private CatalogoService catalogoService;
+
+    /**
+     * Setter per iniettare il CatalogoService (utile per i test).
+     * @param catalogoService il service da iniettare
+     */
+    //@ requires catalogoService != null;
+    //@ ensures this.catalogoService == catalogoService;
+    public void setCatalogoService(CatalogoService catalogoService) {
+        this.catalogoService = catalogoService;
+    }
+
+    /**
+     * Gestisce le richieste GET del catalogo.
+     * @param req la richiesta HTTP
+     * @param resp la risposta HTTP
+     */
+    //@ requires req != null;
+    //@ requires resp != null;
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            Catalogo catalogo = catalogoService.trovaCatalogo();
+
+            resp.setHeader("ETag", catalogo.etag());
+            resp.setHeader("Cache-Control", "public, max-age=" + MAX_AGE);
+            if (FeedOrarioServlet.corrisponde(req.getHeader("If-None-Match"), catalogo.etag())) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setContentLength(catalogo.contenuto().length);
+            resp.getOutputStream().write(catalogo.contenuto());
+        } catch (IOException e) {
+            req.getServletContext().log("Error processing catalogoOrari request", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+}
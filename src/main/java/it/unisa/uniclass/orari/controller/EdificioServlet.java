@@ -2,6 +2,8 @@ package it.unisa.uniclass.orari.controller;
 
 import it.unisa.uniclass.orari.model.Aula;
 import it.unisa.uniclass.orari.service.AulaService;
+import it.unisa.uniclass.orari.service.OccupazioneService;
+import jakarta.ejb.EJB;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,11 +11,27 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import javax.naming.NamingException;
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @WebServlet(name = "EdificioServlet", value = "/EdificioServlet")
 public class EdificioServlet extends HttpServlet {
 
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private OccupazioneService occupazioneService;
+
+    /**
+     * Setter per iniettare l'OccupazioneService (utile per i test).
+     * @param occupazioneService il service da iniettare
+     */
+    //@ requires occupazioneService != null;
+    //@ ensures this.occupazioneService == occupazioneService;
+    public void setOccupazioneService(OccupazioneService occupazioneService) {
+        this.occupazioneService = occupazioneService;
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
         try {
@@ -31,6 +49,7 @@ public class EdificioServlet extends HttpServlet {
             List<Aula> aule = aulaService.trovaAuleEdificio(edificio);
 
             req.setAttribute("aule", aule);
+            req.setAttribute("occupazione", occupazioneService.trovaOccupazione(aule, LocalDateTime.now()));
             req.setAttribute("ed", edificio);
             req.getRequestDispatcher("/edificio.jsp").forward(req, resp);
         } catch (Exception e) {
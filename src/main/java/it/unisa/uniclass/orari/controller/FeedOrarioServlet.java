@@ -0,0 +1,102 @@
+package it.unisa.uniclass.orari.controller;
+
+import it.unisa.uniclass.orari.model.Feed;
+import it.unisa.uniclass.orari.service.FeedService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Restituisce un orario come calendario iCalendar, a cui iscriversi dalle app di calendario.
+ * Con il parametro {@code docente} (matricola) restituisce le lezioni del docente, altrimenti l'orario indicato
+ * da {@code corsoLaurea}, {@code resto} e {@code anno}, come in {@code cercaOrario}.
+ * Risponde 304 se l'ETag inviato dal client in {@code If-None-Match} corrisponde al calendario corrente.
+ */
+@WebServlet(name = "FeedOrarioServlet", value = "/orario.ics")
+public class FeedOrarioServlet extends HttpServlet {
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private FeedService feedService;
+
+    /**
+     * Setter per iniettare il FeedService (utile per i test).
+     * @param feedService il service da iniettare
+     */
+    //@ requires feedService != null;
+    //@ ensures this.feedService == feedService;
+    public void setFeedService(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    /**
+     * Gestisce le richieste GET dei calendari.
+     * @param req la richiesta HTTP
+     * @param resp la risposta HTTP
+     */
+    //@ requires req != null;
+    //@ requires resp != null;
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            String docente = req.getParameter("docente");
+            String corsoLaurea = req.getParameter("corsoLaurea");
+            String resto = req.getParameter("resto");
+            String anno = req.getParameter("anno");
+
+            Feed feed;
+            if (docente != null && !docente.isEmpty()) {
+                feed = feedService.feedDocente(docente);
+            } else if (corsoLaurea != null && resto != null && anno != null) {
+                feed = feedService.feedOrario(corsoLaurea, resto, anno);
+            } else {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Parametri mancanti");
+                return;
+            }
+            if (feed == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            resp.setHeader("ETag", feed.etag());
+            // I client devono sempre chiedere conferma, ma possono riusare il calendario se riceve 304
+            resp.setHeader("Cache-Control", "no-cache");
+            if (corrisponde(req.getHeader("If-None-Match"), feed.etag())) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            resp.setContentType("text/calendar");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setContentLength(feed.contenuto().length);
+            resp.getOutputStream().write(feed.contenuto());
+        } catch (IOException e) {
+            req.getServletContext().log("Error processing orario.ics request", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+
+    /**
+     * Vero se l'intestazione If-None-Match contiene l'ETag, o è {@code *}.
+     */
+    static boolean corrisponde(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String valore : ifNoneMatch.split(",")) {
+            String tag = valore.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
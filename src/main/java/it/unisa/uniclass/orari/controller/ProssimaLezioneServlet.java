@@ -0,0 +1,116 @@
+package it.unisa.uniclass.orari.controller;
+
+import it.unisa.uniclass.orari.model.LezioneSettimana;
+import it.unisa.uniclass.orari.model.ProssimaLezione;
+import it.unisa.uniclass.orari.service.ProssimaLezioneService;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.model.Utente;
+import it.unisa.uniclass.utenti.service.UtenteService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Restituisce in JSON la lezione in corso e la prossima lezione dello studente collegato, con la loro aula.
+ * Le chiavi {@code inCorso} e {@code prossima} mancano se non c'è una lezione corrispondente.
+ * Risponde 401 senza un utente collegato e 403 se l'utente non è uno studente.
+ */
+@WebServlet(name = "ProssimaLezioneServlet", value = "/ProssimaLezione")
+public class ProssimaLezioneServlet extends HttpServlet {
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private ProssimaLezioneService prossimaLezioneService;
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private UtenteService utenteService;
+
+    /**
+     * Setter per iniettare il ProssimaLezioneService (utile per i test).
+     * @param prossimaLezioneService il service da iniettare
+     */
+    //@ requires prossimaLezioneService != null;
+    //@ ensures this.prossimaLezioneService == prossimaLezioneService;
+    public void setProssimaLezioneService(ProssimaLezioneService prossimaLezioneService) {
+        this.prossimaLezioneService = prossimaLezioneService;
+    }
+
+    /**
+     * Setter per iniettare l'UtenteService (utile per i test).
+     * @param utenteService il service da iniettare
+     */
+    //@ requires utenteService != null;
+    //@ ensures this.utenteService == utenteService;
+    public void setUtenteService(UtenteService utenteService) {
+        this.utenteService = utenteService;
+    }
+
+    /**
+     * Gestisce le richieste GET della prossima lezione.
+     * @param req la richiesta HTTP
+     * @param resp la risposta HTTP
+     */
+    //@ requires req != null;
+    //@ requires resp != null;
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            HttpSession session = req.getSession(false);
+            Principale principale = session != null ? (Principale) session.getAttribute(Principale.ATTRIBUTO_SESSIONE) : null;
+            if (principale == null) {
+                resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            Utente utente = principale.getTipo() == Tipo.Studente ? utenteService.trovaUtente(principale) : null;
+            if (!(utente instanceof Studente studente)) {
+                resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+
+            ProssimaLezione prossimaLezione = prossimaLezioneService.trovaProssimaLezione(studente, LocalDateTime.now());
+
+            JSONObject json = new JSONObject();
+            if (prossimaLezione != null) {
+                json.putOpt("inCorso", json(prossimaLezione.inCorso()));
+                json.putOpt("prossima", json(prossimaLezione.prossima()));
+            }
+
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.getWriter().write(json.toString());
+        } catch (IOException e) {
+            req.getServletContext().log("Error processing ProssimaLezione request", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+
+    private static JSONObject json(LezioneSettimana lezione) {
+        if (lezione == null) {
+            return null;
+        }
+        JSONObject json = new JSONObject();
+        json.put("corso", lezione.corso());
+        json.put("giorno", lezione.giorno().name());
+        json.put("inizio", lezione.inizio().toString());
+        json.put("fine", lezione.fine().toString());
+        json.putOpt("aula", lezione.aula());
+        json.putOpt("edificio", lezione.edificio());
+        return json;
+    }
+}
@@ -1,25 +1,33 @@
 package it.unisa.uniclass.orari.controller;
 
-import it.unisa.uniclass.orari.model.AnnoDidattico;
-import it.unisa.uniclass.orari.model.CorsoLaurea;
-import it.unisa.uniclass.orari.model.Lezione;
-import it.unisa.uniclass.orari.model.Resto;
-import it.unisa.uniclass.orari.service.AnnoDidatticoService;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
-import it.unisa.uniclass.orari.service.LezioneService;
-import it.unisa.uniclass.orari.service.RestoService;
+import it.unisa.uniclass.orari.model.Orario;
+import it.unisa.uniclass.orari.service.OrarioService;
+import jakarta.ejb.EJB;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.util.Comparator;
-import java.util.List;
 
 @WebServlet(name = "cercaOrarioServlet", value = "/cercaOrario")
 public class cercaOrario extends HttpServlet {
 
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private OrarioService orarioService;
+
+    /**
+     * Setter per iniettare l'OrarioService (utile per i test).
+     * @param orarioService il service da iniettare
+     */
+    //@ requires orarioService != null;
+    //@ ensures this.orarioService == orarioService;
+    public void setOrarioService(OrarioService orarioService) {
+        this.orarioService = orarioService;
+    }
+
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) {
         try {
@@ -27,29 +35,16 @@ public class cercaOrario extends HttpServlet {
             String restoNome = request.getParameter("resto");
             String annoNome = request.getParameter("anno");
 
-            CorsoLaureaService corsoLaureaService = new CorsoLaureaService();
-            CorsoLaurea corsoLaurea = corsoLaureaService.trovaCorsoLaurea(corsoNome);
-
-
-            //Prendo il resto
-            RestoService restoService = new RestoService();
-            Resto resto = restoService.trovaRestoNomeCorso(restoNome, corsoLaurea);
-
-            //Prendo l'anno di quel certo corso (e l'anno ha un certo nome)
-            AnnoDidatticoService annoDidatticoService = new AnnoDidatticoService();
-            AnnoDidattico annoDidattico = annoDidatticoService.trovaTuttiCorsoLaureaNome(corsoLaurea.getId(),annoNome);
-
-            //Prendo le lezioni di quel corsoLaurea, quel resto e quell'anno
-            LezioneService lezioneService = new LezioneService();
-            List<Lezione> lezioni = lezioneService.trovaLezioniCorsoLaureaRestoAnno(corsoLaurea.getId(),resto.getId(),annoDidattico.getId());
-
-            lezioni.sort(Comparator.comparing(Lezione::getGiorno).thenComparing(Lezione::getOraInizio));
-
+            Orario orario = orarioService.trovaOrario(corsoNome, restoNome, annoNome);
+            if (orario == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
 
-            request.setAttribute("lezioni", lezioni);
-            request.setAttribute("corsoLaurea", corsoLaurea);
-            request.setAttribute("resto", resto);
-            request.setAttribute("anno", annoDidattico);
+            request.setAttribute("lezioni", orario.lezioni());
+            request.setAttribute("corsoLaurea", orario.corsoLaurea());
+            request.setAttribute("resto", orario.resto());
+            request.setAttribute("anno", orario.anno());
 
             request.getRequestDispatcher("/OrarioSingolo.jsp").forward(request, response);
         } catch (Exception e) {
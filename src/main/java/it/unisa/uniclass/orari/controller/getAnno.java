@@ -1,9 +1,8 @@
 package it.unisa.uniclass.orari.controller;
 
 import it.unisa.uniclass.orari.model.AnnoDidattico;
-import it.unisa.uniclass.orari.model.CorsoLaurea;
-import it.unisa.uniclass.orari.service.AnnoDidatticoService;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
+import it.unisa.uniclass.orari.service.RiferimentiService;
+import jakarta.ejb.EJB;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,21 +18,31 @@ import java.util.List;
 @WebServlet(name = "getAnno", value = "/getAnno")
 public class getAnno extends HttpServlet {
 
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private RiferimentiService riferimentiService;
+
+    /**
+     * Setter per iniettare il RiferimentiService (utile per i test).
+     * @param riferimentiService il service da iniettare
+     */
+    //@ requires riferimentiService != null;
+    //@ ensures this.riferimentiService == riferimentiService;
+    public void setRiferimentiService(RiferimentiService riferimentiService) {
+        this.riferimentiService = riferimentiService;
+    }
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) {
         try {
             PrintWriter printWriter = response.getWriter();
 
             String corsoLaurea = request.getParameter("corsoLaurea");
-            CorsoLaureaService corsoLaureaService = new CorsoLaureaService();
-            CorsoLaurea corsoL = corsoLaureaService.trovaCorsoLaurea(corsoLaurea);
 
             JSONArray jsonArray = new JSONArray();
 
-            AnnoDidatticoService annoDidatticoService = new AnnoDidatticoService();
-
-
-            List<AnnoDidattico> anni = annoDidatticoService.trovaTuttiCorsoLaurea(corsoL.getId());
+            List<AnnoDidattico> anni = riferimentiService.trovaAnniCorsoLaurea(corsoLaurea);
 
 
             for (AnnoDidattico anno : anni) {
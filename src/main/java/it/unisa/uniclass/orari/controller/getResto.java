@@ -1,9 +1,8 @@
 package it.unisa.uniclass.orari.controller;
 
-import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.orari.model.Resto;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
-import it.unisa.uniclass.orari.service.RestoService;
+import it.unisa.uniclass.orari.service.RiferimentiService;
+import jakarta.ejb.EJB;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,20 +17,31 @@ import java.util.List;
 @WebServlet(name = "getResto", value = "/getResto")
 public class getResto extends HttpServlet {
 
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private RiferimentiService riferimentiService;
+
+    /**
+     * Setter per iniettare il RiferimentiService (utile per i test).
+     * @param riferimentiService il service da iniettare
+     */
+    //@ requires riferimentiService != null;
+    //@ ensures this.riferimentiService == riferimentiService;
+    public void setRiferimentiService(RiferimentiService riferimentiService) {
+        this.riferimentiService = riferimentiService;
+    }
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) {
         try {
             PrintWriter printWriter = response.getWriter();
 
             String corsoLaurea = request.getParameter("corsoLaurea");
-            CorsoLaureaService corsoLaureaService = new CorsoLaureaService();
-            CorsoLaurea corsoL = corsoLaureaService.trovaCorsoLaurea(corsoLaurea);
 
             JSONArray jsonArray = new JSONArray();
 
-            RestoService restoService = new RestoService();
-
-            List<Resto> resti = restoService.trovaRestiCorsoLaurea(corsoL);
+            List<Resto> resti = riferimentiService.trovaRestiCorsoLaurea(corsoLaurea);
 
 
             for(Resto resto : resti) {
@@ -1,6 +1,8 @@
 package it.unisa.uniclass.orari.model;
 
 import jakarta.persistence.*;
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -22,6 +24,11 @@ import static it.unisa.uniclass.orari.model.AnnoDidattico.*;
         @NamedQuery(name = "AnnoDidattico.trovaAnniCorsoLaurea", query = "SELECT a FROM AnnoDidattico a JOIN a.corsiLaurea c WHERE c.id = :corsoId"),
         @NamedQuery(name = "AnnoDidattico.trovaAnniCorsoLaureaNome", query = "SELECT a FROM AnnoDidattico a JOIN a.corsiLaurea c WHERE c.id = :corsoId AND a.anno = :anno")
 })
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "AnnoDidattico.riferimento"),
+        @NamedEntityGraph(name = "AnnoDidattico.orario", attributeNodes = {@NamedAttributeNode("corsiLaurea")}),
+        @NamedEntityGraph(name = "AnnoDidattico.modifica", attributeNodes = {@NamedAttributeNode("corsiLaurea"), @NamedAttributeNode("corsi")})
+})
 public class AnnoDidattico implements Serializable {
 
     /**
@@ -65,6 +72,7 @@ public class AnnoDidattico implements Serializable {
      * La relazioni è mappata come bidirezionale.
      * */
     @ManyToMany(mappedBy = "anniDidattici")
+    @BatchFetch(BatchFetchType.IN)
     //@ spec_public
     //@ nullable
     private List<CorsoLaurea> corsiLaurea = new ArrayList<>();
@@ -76,6 +84,7 @@ public class AnnoDidattico implements Serializable {
      * a causa della configurazione della cascata {@code CascadeType.ALL}.
      */
     @OneToMany(mappedBy = "annoDidattico", cascade = CascadeType.ALL)
+    @BatchFetch(BatchFetchType.IN)
     //@ spec_public
     //@ nullable
     private List<Corso> corsi = new ArrayList<>();
@@ -1,6 +1,8 @@
 package it.unisa.uniclass.orari.model;
 
 import jakarta.persistence.*;
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -22,6 +24,10 @@ import static it.unisa.uniclass.orari.model.Aula.*;
         @NamedQuery(name = "Aula.trovaTutte", query = "SELECT a FROM Aula a"),
         @NamedQuery(name = "Aula.trovaEdifici", query = "SELECT a.edificio FROM Aula a GROUP BY a.edificio")
 })
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "Aula.riferimento"),
+        @NamedEntityGraph(name = "Aula.modifica", attributeNodes = {@NamedAttributeNode("lezioni")})
+})
 public class Aula implements Serializable {
     /**
      * Nome della query per trovare un'aula dato il suo nome
@@ -57,6 +63,7 @@ public class Aula implements Serializable {
      * Elenco delle lezioni associate all'aula
      * */
     @OneToMany(mappedBy = "aula", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchFetch(BatchFetchType.IN)
     //@ spec_public
     //@ nullable
     private List<Lezione> lezioni = new ArrayList<>();
@@ -0,0 +1,14 @@
+package it.unisa.uniclass.orari.model;
+
+import java.io.Serializable;
+import java.time.LocalTime;
+
+/**
+ * Aula libera in una fascia oraria, come restituita dalla ricerca delle aule libere.
+ *
+ * @param aula Il nome dell'aula
+ * @param edificio L'edificio dell'aula
+ * @param liberaFino L'ora in cui inizia la lezione successiva, null se l'aula resta libera fino a fine giornata
+ */
+public record AulaLibera(String aula, String edificio, LocalTime liberaFino) implements Serializable {
+}
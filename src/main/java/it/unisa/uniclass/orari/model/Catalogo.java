@@ -0,0 +1,12 @@
+package it.unisa.uniclass.orari.model;
+
+/**
+ * Albero dei corsi di laurea con i loro resti e anni didattici, già serializzato in JSON
+ * per il form di ricerca degli orari.
+ *
+ * @param versione La versione del catalogo con cui è stato costruito
+ * @param contenuto Il JSON in UTF-8
+ * @param etag L'entity tag forte del contenuto, già tra virgolette
+ */
+public record Catalogo(long versione, byte[] contenuto, String etag) {
+}
@@ -0,0 +1,51 @@
+package it.unisa.uniclass.orari.model;
+
+import java.io.Serializable;
+
+/**
+ * Sovrapposizione tra due lezioni dello stesso semestre che usano la stessa risorsa nello stesso giorno.
+ *
+ * @param tipo La risorsa contesa
+ * @param risorsa Il nome dell'aula, la matricola del docente o il gruppo di studenti
+ * @param prima La lezione che inizia prima
+ * @param seconda La lezione che inizia durante la prima
+ */
+public record Conflitto(Tipo tipo, String risorsa, Lezione prima, Lezione seconda) implements Serializable {
+
+    /**
+     * Risorse che non possono essere usate da due lezioni contemporaneamente.
+     */
+    public enum Tipo {
+        /**
+         * La stessa aula.
+         */
+        AULA,
+        /**
+         * Lo stesso docente, tra quelli della lezione.
+         */
+        DOCENTE,
+        /**
+         * Gli stessi studenti: stesso corso di laurea, resto e anno.
+         */
+        STUDENTI
+    }
+
+    /**
+     * Vero se la lezione è una delle due in conflitto.
+     * @param lezione la lezione
+     * @return true se coinvolta
+     */
+    public boolean coinvolge(Lezione lezione) {
+        return prima == lezione || seconda == lezione;
+    }
+
+    @Override
+    public String toString() {
+        return tipo + " " + risorsa + ": " + descrivi(prima) + " e " + descrivi(seconda);
+    }
+
+    private static String descrivi(Lezione lezione) {
+        String corso = lezione.getCorso() != null ? lezione.getCorso().getNome() : "lezione " + lezione.getId();
+        return corso + " (" + lezione.getGiorno() + " " + lezione.getOraInizio() + "-" + lezione.getOraFine() + ")";
+    }
+}
@@ -2,6 +2,8 @@ package it.unisa.uniclass.orari.model;
 
 import it.unisa.uniclass.utenti.model.Studente;
 import jakarta.persistence.*;
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -21,6 +23,11 @@ import static it.unisa.uniclass.orari.model.CorsoLaurea.*;
         @NamedQuery(name = "CorsoLaurea.trovaTutti", query = "SELECT c FROM CorsoLaurea c"),
         @NamedQuery(name = "CorsoLaurea.trovaCorsoLaureaNome", query = "SELECT c FROM CorsoLaurea c WHERE c.nome = :nome")
 })
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "CorsoLaurea.riferimento"),
+        @NamedEntityGraph(name = "CorsoLaurea.orario", attributeNodes = {@NamedAttributeNode("resti"), @NamedAttributeNode("anniDidattici")}),
+        @NamedEntityGraph(name = "CorsoLaurea.modifica", attributeNodes = {@NamedAttributeNode("corsi"), @NamedAttributeNode("resti"), @NamedAttributeNode("anniDidattici")})
+})
 public class CorsoLaurea implements Serializable {
 
     /**
@@ -48,6 +55,7 @@ public class CorsoLaurea implements Serializable {
      * Lista dei corsi associati a questo corso di laurea
      * */
     @OneToMany(mappedBy = "corsoLaurea", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchFetch(BatchFetchType.IN)
     //@ spec_public
     //@ nullable
     private List<Corso> corsi = new ArrayList<>();
@@ -64,6 +72,7 @@ public class CorsoLaurea implements Serializable {
      * Lista dei resti associati al corso di laurea
      * */
     @OneToMany(mappedBy = "corsoLaurea", cascade = CascadeType.ALL)
+    @BatchFetch(BatchFetchType.IN)
     //@ spec_public
     //@ nullable
     private List<Resto> resti = new ArrayList<>(); // I resti associati al corso di laurea
@@ -72,6 +81,7 @@ public class CorsoLaurea implements Serializable {
      * Lista degli anni didattici assocaiti al corso di laurea
      * */
     @ManyToMany
+    @BatchFetch(BatchFetchType.IN)
     @JoinTable(
             name = "corso_laurea_anno_didattico",
             joinColumns = @JoinColumn(name = "corso_laurea_id"),
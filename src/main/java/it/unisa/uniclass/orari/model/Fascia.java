@@ -0,0 +1,56 @@
+package it.unisa.uniclass.orari.model;
+
+import java.io.Serializable;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Fascia oraria in cui un'aula è occupata da una lezione, con i soli dati mostrati nella pagina dell'edificio.
+ *
+ * @param lezione L'ID della lezione, null se la lezione non è ancora stata salvata
+ * @param giorno Il giorno della lezione
+ * @param inizio L'ora di inizio
+ * @param fine L'ora di fine
+ * @param corso Il nome del corso
+ * @param anno Il nome dell'anno didattico del corso
+ * @param resto Il nome del resto
+ */
+public record Fascia(Long lezione, Giorno giorno, LocalTime inizio, LocalTime fine,
+                     String corso, String anno, String resto) implements Serializable {
+
+    /**
+     * Crea la fascia occupata da una lezione.
+     *
+     * @param lezione La lezione
+     * @return La fascia, oppure null se la lezione non ha giorno od orari
+     */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures lezione == null ==> \result == null;
+      @*/
+    public static Fascia di(Lezione lezione) {
+        if (lezione == null || lezione.getGiorno() == null || lezione.getOraInizio() == null || lezione.getOraFine() == null) {
+            return null;
+        }
+        Corso corso = lezione.getCorso();
+        return new Fascia(lezione.getId(), lezione.getGiorno(),
+                lezione.getOraInizio().toLocalTime(), lezione.getOraFine().toLocalTime(),
+                corso != null ? corso.getNome() : null,
+                corso != null && corso.getAnnoDidattico() != null ? corso.getAnnoDidattico().getAnno() : null,
+                lezione.getResto() != null ? lezione.getResto().getNome() : null);
+    }
+
+    /**
+     * Vero se le due fasce descrivono la stessa lezione: per ID se entrambe lo hanno, altrimenti per contenuto.
+     *
+     * @param altra L'altra fascia
+     * @return true se è la stessa lezione
+     */
+    public boolean stessaLezione(Fascia altra) {
+        if (lezione != null && altra.lezione != null) {
+            return lezione.equals(altra.lezione);
+        }
+        return giorno == altra.giorno && Objects.equals(inizio, altra.inizio) && Objects.equals(fine, altra.fine)
+                && Objects.equals(corso, altra.corso) && Objects.equals(anno, altra.anno) && Objects.equals(resto, altra.resto);
+    }
+}
@@ -0,0 +1,11 @@
+package it.unisa.uniclass.orari.model;
+
+/**
+ * Calendario iCalendar già serializzato, pronto da inviare ai client che si sono iscritti a un orario.
+ *
+ * @param versione La versione degli orari con cui è stato costruito
+ * @param contenuto Il calendario in UTF-8
+ * @param etag L'entity tag forte del contenuto, già tra virgolette
+ */
+public record Feed(long versione, byte[] contenuto, String etag) {
+}
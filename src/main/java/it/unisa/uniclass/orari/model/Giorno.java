@@ -1,5 +1,7 @@
 package it.unisa.uniclass.orari.model;
 
+import java.time.DayOfWeek;
+
 /**
  * Enumerazione che rappresenta i giorni della settimana.
  * Può essere utilizzata per gestire informazioni relative ai giorni in modo standardizzato.
@@ -11,5 +13,27 @@ public enum Giorno {
     GIOVEDI,
     VENERDI,
     SABATO,
-    DOMENICA
+    DOMENICA;
+
+    /**
+     * Restituisce il giorno corrispondente a un {@link DayOfWeek}: le due enumerazioni hanno lo stesso ordine.
+     *
+     * @param giorno Il giorno della settimana
+     * @return Il giorno corrispondente
+     */
+    //@ requires giorno != null;
+    //@ ensures \result != null;
+    public static Giorno di(DayOfWeek giorno) {
+        return values()[giorno.ordinal()];
+    }
+
+    /**
+     * Restituisce il {@link DayOfWeek} corrispondente al giorno.
+     *
+     * @return Il giorno della settimana
+     */
+    //@ ensures \result != null;
+    public DayOfWeek getDayOfWeek() {
+        return DayOfWeek.values()[ordinal()];
+    }
 }
@@ -19,6 +19,7 @@ import static it.unisa.uniclass.orari.model.Lezione.*;
 @Entity
 @Access(AccessType.FIELD)
 @Table(name = "lezioni")
+@NamedNativeQuery(name = "Lezione.bloccaGiornata", query = "SELECT pg_advisory_xact_lock(?1, ?2)")
 @NamedQueries({
         @NamedQuery(name = "Lezione.trovaLezione", query = "SELECT l FROM Lezione l WHERE l.id = :id"),
         @NamedQuery(name = "Lezione.trovaLezioneCorso", query = "SELECT l FROM Lezione l WHERE l.corso.nome = :nomeCorso"),
@@ -27,23 +28,41 @@ import static it.unisa.uniclass.orari.model.Lezione.*;
         @NamedQuery(name = "Lezione.trovaLezioneAula", query = "SELECT l FROM Lezione l WHERE l.aula.nome = :nome"),
         @NamedQuery(name = "Lezione.trovaTutte", query = "SELECT l FROM Lezione l"),
         @NamedQuery(name = "Lezione.trovaLezioneCorsoRestoAnno",
-                query = "SELECT l FROM Lezione l " +
-                        "JOIN l.corso c " +
-                        "JOIN c.corsoLaurea cl " +
-                        "JOIN l.resto r " +
-                        "JOIN c.annoDidattico a " +
-                        "WHERE cl.id = :corsoLaureaId " +
-                        "AND r.id = :restoId " +
-                        "AND a.id = :annoId"),
-        @NamedQuery(name = "Lezione.trovaLezioneCorsoRestoAnnoSemestre", query = "SELECT l FROM Lezione l " +
-                "JOIN l.corso c " +
-                "JOIN c.corsoLaurea cl " +
-                "JOIN l.resto r " +
-                "JOIN c.annoDidattico a " +
-                "WHERE cl.id = :corsoLaureaId " +
-                "AND r.id = :restoId " +
-                "AND a.id = :annoId AND l.semestre = :semestre"),
-        @NamedQuery(name = "Lezione.trovaLezioniDocente", query = "SELECT l FROM Lezione l JOIN l.docenti d WHERE d.nome = :nomeDocente")
+                query = "SELECT DISTINCT l FROM Lezione l " +
+                        "JOIN FETCH l.corso " +
+                        "JOIN FETCH l.resto " +
+                        "LEFT JOIN FETCH l.aula " +
+                        "LEFT JOIN FETCH l.docenti " +
+                        "WHERE l.corso.corsoLaurea.id = :corsoLaureaId " +
+                        "AND l.resto.id = :restoId " +
+                        "AND l.corso.annoDidattico.id = :annoId"),
+        @NamedQuery(name = "Lezione.trovaLezioneCorsoRestoAnnoSemestre", query = "SELECT DISTINCT l FROM Lezione l " +
+                "JOIN FETCH l.corso " +
+                "JOIN FETCH l.resto " +
+                "LEFT JOIN FETCH l.aula " +
+                "LEFT JOIN FETCH l.docenti " +
+                "WHERE l.corso.corsoLaurea.id = :corsoLaureaId " +
+                "AND l.resto.id = :restoId " +
+                "AND l.corso.annoDidattico.id = :annoId AND l.semestre = :semestre"),
+        @NamedQuery(name = "Lezione.trovaLezioniDocente", query = "SELECT l FROM Lezione l JOIN l.docenti d WHERE d.nome = :nomeDocente"),
+        @NamedQuery(name = "Lezione.trovaLezioniGiornoSemestre", query = "SELECT DISTINCT l FROM Lezione l " +
+                "LEFT JOIN FETCH l.corso " +
+                "LEFT JOIN FETCH l.resto " +
+                "LEFT JOIN FETCH l.aula " +
+                "LEFT JOIN FETCH l.docenti " +
+                "WHERE l.giorno = :giorno AND l.semestre = :semestre"),
+        @NamedQuery(name = "Lezione.trovaLezioniSemestre", query = "SELECT DISTINCT l FROM Lezione l " +
+                "LEFT JOIN FETCH l.corso " +
+                "LEFT JOIN FETCH l.resto " +
+                "LEFT JOIN FETCH l.aula " +
+                "LEFT JOIN FETCH l.docenti " +
+                "WHERE l.semestre = :semestre"),
+        @NamedQuery(name = "Lezione.trovaLezioniMatricolaDocente", query = "SELECT DISTINCT l FROM Lezione l " +
+                "JOIN l.docenti d " +
+                "LEFT JOIN FETCH l.corso " +
+                "LEFT JOIN FETCH l.resto " +
+                "LEFT JOIN FETCH l.aula " +
+                "WHERE d.matricola = :matricola")
 })
 public class Lezione implements Serializable {
 
@@ -73,16 +92,34 @@ public class Lezione implements Serializable {
     public static final String TROVA_TUTTE = "Lezione.trovaTutte";
     /**
      * Query per trovare lezioni in base al corso, resto e anno.
+     * Carica nella stessa query corso, resto, aula e docenti, che l'orario mostra per ogni lezione.
      * */
     public static final String TROVA_LEZIONE_CORSO_RESTO_ANNO = "Lezione.trovaLezioneCorsoRestoAnno";
     /**
-     * Query per trovare lezioni in base al corso, resto, anno e semestre.
+     * Query per trovare lezioni in base al corso, resto, anno e semestre, con corso, resto, aula e docenti.
      * */
     public static final String TROVA_LEZIONE_CORSO_RESTO_ANNO_SEMESTRE = "Lezione.trovaLezioneCorsoRestoAnnoSemestre";
     /**
      * Query per trovare lezioni di uno specifico docente.
      * */
     public static final String TROVA_LEZIONI_DOCENTE = "Lezione.trovaLezioniDocente";
+    /**
+     * Query per trovare le lezioni di un giorno e semestre, con corso, resto, aula e docenti usati dal controllo dei conflitti.
+     * */
+    public static final String TROVA_LEZIONI_GIORNO_SEMESTRE = "Lezione.trovaLezioniGiornoSemestre";
+    /**
+     * Query per trovare le lezioni di un semestre, con corso, resto, aula e docenti usati dal controllo dei conflitti.
+     * */
+    public static final String TROVA_LEZIONI_SEMESTRE = "Lezione.trovaLezioniSemestre";
+    /**
+     * Query per trovare le lezioni di un docente tramite la sua matricola, con corso, resto e aula.
+     * */
+    public static final String TROVA_LEZIONI_MATRICOLA_DOCENTE = "Lezione.trovaLezioniMatricolaDocente";
+    /**
+     * Nome della query nativa che prende un lock consultivo di Postgres, rilasciato alla fine della transazione.
+     * Serializza i salvataggi controllati delle lezioni di uno stesso giorno e semestre.
+     * */
+    public static final String BLOCCA_GIORNATA = "Lezione.bloccaGiornata";
 
     /**
      * Identificativo univoco per Lezione
@@ -0,0 +1,77 @@
+package it.unisa.uniclass.orari.model;
+
+import java.io.Serializable;
+import java.time.LocalTime;
+
+/**
+ * Lezione della settimana di un resto, con i soli dati mostrati a chi chiede dove si trova la prossima lezione.
+ *
+ * @param lezione L'ID della lezione, null se la lezione non è ancora stata salvata
+ * @param giorno Il giorno della lezione
+ * @param inizio L'ora di inizio
+ * @param fine L'ora di fine
+ * @param corso Il nome del corso
+ * @param aula Il nome dell'aula
+ * @param edificio L'edificio dell'aula
+ */
+public record LezioneSettimana(Long lezione, Giorno giorno, LocalTime inizio, LocalTime fine,
+                               String corso, String aula, String edificio) implements Serializable {
+
+    /**
+     * Minuti in un giorno.
+     */
+    public static final int MINUTI_GIORNO = 24 * 60;
+
+    /**
+     * Crea la voce di una lezione.
+     *
+     * @param lezione La lezione
+     * @return La voce, oppure null se la lezione non ha giorno od orari
+     */
+    /*@ public normal_behavior
+      @ assignable \nothing;
+      @ ensures lezione == null ==> \result == null;
+      @*/
+    public static LezioneSettimana di(Lezione lezione) {
+        if (lezione == null || lezione.getGiorno() == null || lezione.getOraInizio() == null || lezione.getOraFine() == null) {
+            return null;
+        }
+        Aula aula = lezione.getAula();
+        return new LezioneSettimana(lezione.getId(), lezione.getGiorno(),
+                lezione.getOraInizio().toLocalTime(), lezione.getOraFine().toLocalTime(),
+                lezione.getCorso() != null ? lezione.getCorso().getNome() : null,
+                aula != null ? aula.getNome() : null,
+                aula != null ? aula.getEdificio() : null);
+    }
+
+    /**
+     * Restituisce il minuto della settimana, contato dalle 00:00 del lunedì, di un giorno e un'ora.
+     *
+     * @param giorno Il giorno
+     * @param ora L'ora
+     * @return Il minuto della settimana
+     */
+    //@ requires giorno != null && ora != null;
+    //@ ensures \result >= 0;
+    public static int minuto(Giorno giorno, LocalTime ora) {
+        return giorno.ordinal() * MINUTI_GIORNO + ora.getHour() * 60 + ora.getMinute();
+    }
+
+    /**
+     * Restituisce il minuto della settimana in cui inizia la lezione.
+     *
+     * @return Il minuto di inizio
+     */
+    public int minutoInizio() {
+        return minuto(giorno, inizio);
+    }
+
+    /**
+     * Restituisce il minuto della settimana in cui finisce la lezione.
+     *
+     * @return Il minuto di fine
+     */
+    public int minutoFine() {
+        return minuto(giorno, fine);
+    }
+}
@@ -0,0 +1,14 @@
+package it.unisa.uniclass.orari.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Stato di un'aula mostrato nella pagina dell'edificio.
+ *
+ * @param aula Il nome dell'aula
+ * @param occupata Vero se in quel momento è in corso una lezione
+ * @param fasce Le lezioni della settimana nell'aula, ordinate per giorno e ora di inizio
+ */
+public record OccupazioneAula(String aula, boolean occupata, List<Fascia> fasce) implements Serializable {
+}
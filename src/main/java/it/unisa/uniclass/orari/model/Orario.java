@@ -0,0 +1,23 @@
+package it.unisa.uniclass.orari.model;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orario completo di un resto di un corso di laurea in un anno didattico, come viene mostrato in
+ * {@code OrarioSingolo.jsp}: corso di laurea, resto e anno già risolti e le lezioni già ordinate.
+ *
+ * @param corsoLaurea Il corso di laurea
+ * @param resto Il resto del corso di laurea
+ * @param anno L'anno didattico
+ * @param lezioni Le lezioni, in sola lettura, ordinate per giorno e ora di inizio
+ */
+public record Orario(CorsoLaurea corsoLaurea, Resto resto, AnnoDidattico anno, List<Lezione> lezioni) implements Serializable {
+
+    /**
+     * Ordinamento delle lezioni nell'orario: per giorno della settimana e poi per ora di inizio.
+     */
+    public static final Comparator<Lezione> ORDINE = Comparator.comparing(Lezione::getGiorno, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Lezione::getOraInizio, Comparator.nullsLast(Comparator.naturalOrder()));
+}
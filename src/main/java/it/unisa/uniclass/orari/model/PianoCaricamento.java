@@ -0,0 +1,86 @@
+package it.unisa.uniclass.orari.model;
+
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Piani di caricamento delle entità degli orari.
+ * Ogni piano corrisponde a un grafo di entità dichiarato su {@link Resto}, {@link CorsoLaurea},
+ * {@link AnnoDidattico} e {@link Aula} con il nome {@code <Entità>.<piano>}, ad esempio {@code Resto.orario}:
+ * il grafo elenca le sole relazioni da caricare, tutte le altre restano pigre.
+ * Un'entità dichiara solo i grafi che aggiungono relazioni: per gli altri piani usa il grafo
+ * {@code <Entità>.riferimento}, che non ne carica nessuna.
+ * Le collezioni dei grafi sono lette in lotti, con una sola query per relazione qualunque sia il numero di entità.
+ */
+public enum PianoCaricamento {
+
+    /**
+     * Elenchi di riferimento (select dei form, catalogo): solo i campi dell'entità, nessuna collezione.
+     */
+    RIFERIMENTO("riferimento"),
+
+    /**
+     * Vista dell'orario: le relazioni che servono a scegliere corso di laurea, resto e anno.
+     */
+    ORARIO("orario"),
+
+    /**
+     * Vista di un edificio: le aule senza lezioni, perché l'occupazione arriva dall'indice in memoria.
+     */
+    EDIFICIO("edificio"),
+
+    /**
+     * Modifica da parte dell'amministrazione: tutte le collezioni toccate dalle operazioni a cascata.
+     */
+    MODIFICA("modifica");
+
+    /**
+     * Nome del suggerimento JPA che applica il grafo come load graph.
+     */
+    public static final String SUGGERIMENTO = "jakarta.persistence.loadgraph";
+
+    /**
+     * Nomi dei grafi dichiarati da ciascuna entità, letti una volta dalle annotazioni.
+     */
+    private static final ClassValue<Set<String>> GRAFI = new ClassValue<>() {
+        @Override
+        protected Set<String> computeValue(Class<?> entita) {
+            Set<String> nomi = new HashSet<>();
+            NamedEntityGraphs grafi = entita.getAnnotation(NamedEntityGraphs.class);
+            if (grafi != null) {
+                for (NamedEntityGraph grafo : grafi.value()) {
+                    nomi.add(grafo.name());
+                }
+            }
+            NamedEntityGraph grafo = entita.getAnnotation(NamedEntityGraph.class);
+            if (grafo != null) {
+                nomi.add(grafo.name());
+            }
+            return Set.copyOf(nomi);
+        }
+    };
+
+    //@ spec_public
+    private final String nome;
+
+    PianoCaricamento(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Restituisce il nome del grafo di entità del piano per l'entità indicata:
+     * il grafo {@code <Entità>.<piano>} se l'entità lo dichiara, altrimenti {@code <Entità>.riferimento}.
+     *
+     * @param entita La classe dell'entità
+     * @return Il nome del grafo, ad esempio {@code Resto.orario}
+     */
+    //@ requires entita != null;
+    //@ ensures \result != null;
+    public String grafo(Class<?> entita) {
+        String grafo = entita.getSimpleName() + "." + nome;
+        return GRAFI.get(entita).contains(grafo) ? grafo : entita.getSimpleName() + "." + RIFERIMENTO.nome;
+    }
+}
@@ -0,0 +1,12 @@
+package it.unisa.uniclass.orari.model;
+
+import java.io.Serializable;
+
+/**
+ * Lezione in corso e prossima lezione di un resto in un certo momento.
+ *
+ * @param inCorso La lezione in corso, null se non ce n'è una
+ * @param prossima La prossima lezione che inizia, anche nella settimana successiva; null se il resto non ha lezioni
+ */
+public record ProssimaLezione(LezioneSettimana inCorso, LezioneSettimana prossima) implements Serializable {
+}
@@ -2,6 +2,8 @@ package it.unisa.uniclass.orari.model;
 
 import it.unisa.uniclass.utenti.model.Studente;
 import jakarta.persistence.*;
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -21,6 +23,11 @@ import static it.unisa.uniclass.orari.model.Resto.*;
         @NamedQuery(name = "Resto.trovaRestoNome", query = "SELECT r FROM Resto r WHERE r.nome = :nome"),
         @NamedQuery(name = "Resto.trovaRestoNomeCorso", query = "SELECT r FROM Resto r JOIN r.corsoLaurea cl WHERE r.nome = :nome AND cl.nome = :nomeCorso")
 })
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "Resto.riferimento"),
+        @NamedEntityGraph(name = "Resto.orario", attributeNodes = {@NamedAttributeNode("corsoLaurea")}),
+        @NamedEntityGraph(name = "Resto.modifica", attributeNodes = {@NamedAttributeNode("corsoLaurea"), @NamedAttributeNode("lezioni")})
+})
 public class Resto implements Serializable {
 
     /**
@@ -59,7 +66,8 @@ public class Resto implements Serializable {
     /**
      * Elenco delle lezioni associate a questo resto.
      */
-    @OneToMany(mappedBy = "resto", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "resto", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchFetch(BatchFetchType.IN)
     //@ spec_public
     //@ nullable
     private List<Lezione> lezioni = new ArrayList<>();
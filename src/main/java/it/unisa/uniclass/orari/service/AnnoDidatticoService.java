@@ -1,7 +1,9 @@
 package it.unisa.uniclass.orari.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.orari.model.AnnoDidattico;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import it.unisa.uniclass.orari.model.Resto;
 import it.unisa.uniclass.orari.service.dao.AnnoDidatticoRemote;
 import jakarta.ejb.Stateless;
@@ -78,6 +80,16 @@ public class AnnoDidatticoService {
         return annoDidatticoDao.trovaTutti();
     }
 
+    /**
+     * Recupera tutti gli anni didattici caricando le relazioni indicate dal piano.
+     *
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di tutti gli anni didattici.
+     */
+    public List<AnnoDidattico> trovaTutti(PianoCaricamento piano) {
+        return annoDidatticoDao.trovaTutti(piano);
+    }
+
     /**
      * Aggiunge o aggiorna un anno didattico nel database.
      *
@@ -85,6 +97,13 @@ public class AnnoDidatticoService {
      */
     public void aggiungiAnno(AnnoDidattico annoDidattico) {
         annoDidatticoDao.aggiungiAnno(annoDidattico);
+        if (annoDidattico != null) {
+            CacheOrari.getIstanza().invalida(null, null, annoDidattico.getId());
+            CacheCatalogo.getIstanza().invalida();
+            IndiceOccupazione.getIstanza().svuota();
+            CacheRiferimenti.getIstanza().getAnniDidattici().aggiorna(annoDidattico);
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
+        }
     }
 
     /**
@@ -94,6 +113,13 @@ public class AnnoDidatticoService {
      */
     public void rimuoviAnno(AnnoDidattico annoDidattico) {
         annoDidatticoDao.rimuoviAnno(annoDidattico);
+        if (annoDidattico != null) {
+            CacheOrari.getIstanza().invalida(null, null, annoDidattico.getId());
+            CacheCatalogo.getIstanza().invalida();
+            IndiceOccupazione.getIstanza().svuota();
+            CacheRiferimenti.getIstanza().getAnniDidattici().rimuovi(annoDidattico);
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
+        }
     }
 
     /**
@@ -106,6 +132,17 @@ public class AnnoDidatticoService {
         return annoDidatticoDao.trovaTuttiCorsoLaurea(id);
     }
 
+    /**
+     * Trova gli anni didattici di un corso di laurea caricando le relazioni indicate dal piano.
+     *
+     * @param id L'ID del corso di laurea.
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di oggetti AnnoDidattico associati al corso di laurea.
+     */
+    public List<AnnoDidattico> trovaTuttiCorsoLaurea(long id, PianoCaricamento piano) {
+        return annoDidatticoDao.trovaTuttiCorsoLaurea(id, piano);
+    }
+
     /**
      * Trova un anno didattico nel database associato a un corso di laurea tramite l'ID del corso e l'anno.
      *
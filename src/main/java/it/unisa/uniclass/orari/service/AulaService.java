@@ -1,6 +1,8 @@
 package it.unisa.uniclass.orari.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import it.unisa.uniclass.orari.service.dao.AulaRemote;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.NoResultException;
@@ -17,6 +19,7 @@ import java.util.List;
 public class AulaService {
 
     private AulaRemote aulaDao;
+    private IndiceAuleLibere indiceAuleLibere = IndiceAuleLibere.getIstanza();
 
     /**
      * Costruttore di default che esegue il lookup JNDI del DAO.
@@ -78,6 +81,16 @@ public class AulaService {
         return aulaDao.trovaTutte();
     }
 
+    /**
+     * Recupera tutte le aule caricando le relazioni indicate dal piano.
+     *
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di tutte le aule.
+     */
+    public List<Aula> trovaTutte(PianoCaricamento piano) {
+        return aulaDao.trovaTutte(piano);
+    }
+
     /**
      * Trova le aule nel database associate a un edificio.
      *
@@ -88,6 +101,17 @@ public class AulaService {
         return aulaDao.trovaAuleEdificio(edificio);
     }
 
+    /**
+     * Trova le aule di un edificio caricando le relazioni indicate dal piano.
+     *
+     * @param edificio Il nome dell'edificio di cui trovare le aule.
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di oggetti Aula associati all'edificio.
+     */
+    public List<Aula> trovaAuleEdificio(String edificio, PianoCaricamento piano) {
+        return aulaDao.trovaAuleEdificio(edificio, piano);
+    }
+
     /**
      * Recupera tutti gli edifici presenti nel database.
      *
@@ -107,7 +131,16 @@ public class AulaService {
         if (aula == null) {
             throw new IllegalArgumentException("Argument 'aula' must not be null");
         }
+        // Il nome va letto prima del salvataggio, che aggiorna anche l'entità gestita
+        Aula precedente = aula.getId() != 0 ? trovaAula(aula.getId()) : null;
+        String nomePrecedente = precedente != null ? precedente.getNome() : null;
         aulaDao.aggiungiAula(aula);
+        CacheOrari.getIstanza().svuota();
+        IndiceOccupazione.getIstanza().svuota();
+        IndiceProssimeLezioni.getIstanza().svuota();
+        indiceAuleLibere.aggiornaAula(nomePrecedente, aula);
+        CacheRiferimenti.getIstanza().getAule().aggiorna(aula);
+        CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
     }
 
     /**
@@ -121,5 +154,20 @@ public class AulaService {
             throw new IllegalArgumentException("Argument 'aula' must not be null");
         }
         aulaDao.rimuoviAula(aula);
+        CacheOrari.getIstanza().svuota();
+        IndiceOccupazione.getIstanza().svuota();
+        IndiceProssimeLezioni.getIstanza().svuota();
+        indiceAuleLibere.rimuoviAula(aula);
+        CacheRiferimenti.getIstanza().getAule().rimuovi(aula);
+        CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
+    }
+
+    /**
+     * Setter per iniettare l'indice delle aule libere (utile per i test).
+     *
+     * @param indiceAuleLibere L'indice da aggiornare a ogni scrittura.
+     */
+    public void setIndiceAuleLibere(IndiceAuleLibere indiceAuleLibere) {
+        this.indiceAuleLibere = indiceAuleLibere;
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.AulaLibera;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import jakarta.ejb.Stateless;
+
+import javax.naming.NamingException;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Classe di servizio per la ricerca delle aule libere.
+ * Risponde dall'{@link IndiceAuleLibere} condiviso, caricandolo con tutte le aule e le lezioni alla prima richiesta.
+ */
+@Stateless
+public class AuleLibereService {
+
+    private AulaService aulaService;
+    private LezioneService lezioneService;
+    private IndiceAuleLibere indice = IndiceAuleLibere.getIstanza();
+
+    /**
+     * Costruttore di default: i service delle aule e delle lezioni eseguono il lookup JNDI dei DAO.
+     */
+    public AuleLibereService() {
+        try {
+            this.aulaService = new AulaService();
+        } catch (NamingException e) {
+            throw new RuntimeException("Errore durante il lookup di AulaDAO.", e);
+        }
+        this.lezioneService = new LezioneService();
+    }
+
+    /**
+     * Costruttore per uso interno e test.
+     * @param aulaService il service delle aule
+     * @param lezioneService il service delle lezioni
+     */
+    public AuleLibereService(AulaService aulaService, LezioneService lezioneService) {
+        this.aulaService = aulaService;
+        this.lezioneService = lezioneService;
+    }
+
+    /**
+     * Cerca le aule libere per tutta una fascia oraria, dalla più a lungo libera dopo la fine della fascia.
+     *
+     * @param giorno Il giorno.
+     * @param da L'inizio della fascia.
+     * @param a La fine della fascia.
+     * @param edificio L'edificio in cui cercare, null per tutti.
+     * @return Le aule libere.
+     * @throws IllegalArgumentException Se la fascia non è valida.
+     */
+    public List<AulaLibera> cercaAuleLibere(Giorno giorno, LocalTime da, LocalTime a, String edificio) {
+        if (giorno == null || da == null || a == null || !da.isBefore(a)) {
+            throw new IllegalArgumentException("Fascia oraria non valida");
+        }
+        IndiceAuleLibere attuale = indice;
+        if (!indice.isCaricato()) {
+            long versione = indice.versione();
+            List<Aula> aule = aulaService.trovaTutte();
+            List<Lezione> lezioni = lezioneService.trovaTutte();
+            indice.carica(aule, lezioni, versione);
+            if (!indice.isCaricato()) {
+                // Un'aula o una lezione è cambiata durante il caricamento: si risponde con i dati appena letti
+                attuale = new IndiceAuleLibere();
+                attuale.carica(aule, lezioni, attuale.versione());
+            }
+        }
+        return attuale.cerca(giorno, da, a, edificio);
+    }
+
+    /**
+     * Setter per iniettare l'indice delle aule libere (utile per i test).
+     *
+     * @param indice L'indice da usare.
+     */
+    public void setIndice(IndiceAuleLibere indice) {
+        this.indice = indice;
+    }
+}
@@ -0,0 +1,82 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Catalogo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache in memoria del catalogo dei corsi di laurea, resti e anni didattici servito al form degli orari.
+ * Il catalogo cambia poche volte l'anno: viene serializzato una volta sola e ricostruito solo dopo una scrittura
+ * su corsi di laurea, resti o anni, che fa avanzare la versione.
+ */
+public class CacheCatalogo {
+
+    private static final CacheCatalogo ISTANZA = new CacheCatalogo();
+
+    //@ spec_public
+    //@ nullable
+    private volatile Catalogo catalogo;
+
+    //@ spec_public
+    private final AtomicLong versione = new AtomicLong();
+
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+
+    /**
+     * Restituisce la cache condivisa dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static CacheCatalogo getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Restituisce il catalogo, se è in cache ed è aggiornato.
+     * @return il catalogo, oppure null se va costruito
+     */
+    public Catalogo trova() {
+        Catalogo attuale = catalogo;
+        if (attuale == null || attuale.versione() != versione.get()) {
+            miss.incrementAndGet();
+            return null;
+        }
+        hit.incrementAndGet();
+        return attuale;
+    }
+
+    /**
+     * Restituisce la versione corrente del catalogo, da leggere prima di interrogare il database.
+     * @return la versione con cui costruire il catalogo
+     */
+    public long versione() {
+        return versione.get();
+    }
+
+    /**
+     * Memorizza il catalogo, se nel frattempo nessuna scrittura lo ha reso superato.
+     * @param nuovo il catalogo costruito
+     */
+    //@ requires nuovo != null;
+    public synchronized void carica(Catalogo nuovo) {
+        if (nuovo.versione() == versione.get()) {
+            catalogo = nuovo;
+        }
+    }
+
+    /**
+     * Scarta il catalogo dopo una scrittura su corsi di laurea, resti o anni didattici.
+     */
+    public synchronized void invalida() {
+        versione.incrementAndGet();
+        catalogo = null;
+    }
+
+    public long getHit() {
+        return hit.get();
+    }
+
+    public long getMiss() {
+        return miss.get();
+    }
+}
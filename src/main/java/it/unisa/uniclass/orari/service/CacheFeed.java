@@ -0,0 +1,80 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Feed;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache in memoria dei calendari iCalendar già serializzati, per orario o per docente.
+ * Ogni calendario ricorda la versione della {@link CacheOrari} con cui è stato costruito: una scrittura sugli orari
+ * fa avanzare la versione e il calendario viene ricostruito alla richiesta successiva. Finché la versione non cambia,
+ * le richieste dei client vengono servite senza accedere al database né serializzare di nuovo.
+ */
+public class CacheFeed {
+
+    private static final CacheFeed ISTANZA = new CacheFeed();
+
+    //@ spec_public
+    private final Map<String, Feed> feed = new ConcurrentHashMap<>();
+
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+
+    /**
+     * Restituisce la cache condivisa dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static CacheFeed getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Restituisce il calendario, se è in cache ed è stato costruito con la versione indicata.
+     * @param chiave la chiave del calendario
+     * @param versione la versione corrente degli orari
+     * @return il calendario, oppure null se va costruito
+     */
+    public Feed trova(String chiave, long versione) {
+        Feed trovato = feed.get(chiave);
+        if (trovato == null || trovato.versione() != versione) {
+            miss.incrementAndGet();
+            return null;
+        }
+        hit.incrementAndGet();
+        return trovato;
+    }
+
+    /**
+     * Memorizza un calendario, a meno che in cache ce ne sia già uno costruito con una versione più recente.
+     * @param chiave la chiave del calendario
+     * @param nuovo il calendario
+     */
+    //@ requires chiave != null && nuovo != null;
+    public void carica(String chiave, Feed nuovo) {
+        feed.merge(chiave, nuovo, (vecchio, dato) -> dato.versione() >= vecchio.versione() ? dato : vecchio);
+    }
+
+    /**
+     * Scarta tutti i calendari.
+     */
+    public void svuota() {
+        feed.clear();
+    }
+
+    public long getHit() {
+        return hit.get();
+    }
+
+    public long getMiss() {
+        return miss.get();
+    }
+
+    /**
+     * @return il numero di calendari in cache
+     */
+    public int getFeed() {
+        return feed.size();
+    }
+}
@@ -0,0 +1,173 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Orario;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache in memoria degli orari già risolti, indicizzati per nome del corso di laurea, del resto e dell'anno,
+ * cioè per i parametri con cui vengono richiesti.
+ * Gli orari distinti sono poche centinaia: vengono tenuti tutti, senza evizione, e precaricati all'avvio.
+ *
+ * Ogni scrittura che cambia un orario invalida solo gli orari che la contengono, individuati dagli ID
+ * di corso di laurea, resto e anno. Un orario costruito durante un'invalidazione non viene memorizzato,
+ * per non reinserire uno stato superato.
+ */
+public class CacheOrari {
+
+    private static final CacheOrari ISTANZA = new CacheOrari();
+
+    //@ spec_public
+    private final Map<String, Orario> orari = new ConcurrentHashMap<>();
+
+    //@ spec_public
+    private final AtomicLong versione = new AtomicLong();
+
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+    private final AtomicLong ricostruzioni = new AtomicLong();
+    private final AtomicLong tempoRicostruzioni = new AtomicLong();
+
+    /**
+     * Restituisce la cache condivisa dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static CacheOrari getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Restituisce l'orario, se presente in cache.
+     * @param corsoLaurea il nome del corso di laurea
+     * @param resto il nome del resto
+     * @param anno il nome dell'anno didattico
+     * @return l'orario, oppure null se va costruito
+     */
+    public Orario trova(String corsoLaurea, String resto, String anno) {
+        Orario orario = orari.get(chiave(corsoLaurea, resto, anno));
+        if (orario == null) {
+            miss.incrementAndGet();
+        } else {
+            hit.incrementAndGet();
+        }
+        return orario;
+    }
+
+    /**
+     * Restituisce la versione corrente della cache, da leggere prima di interrogare il database.
+     * @return la versione da passare a {@link #carica}
+     */
+    public long versione() {
+        return versione.get();
+    }
+
+    /**
+     * Memorizza un orario appena costruito.
+     * @param corsoLaurea il nome del corso di laurea richiesto
+     * @param resto il nome del resto richiesto
+     * @param anno il nome dell'anno didattico richiesto
+     * @param orario l'orario costruito
+     * @param versione la versione letta prima delle query
+     * @param durata il tempo impiegato a costruire l'orario, in nanosecondi
+     */
+    //@ requires orario != null && durata >= 0;
+    public synchronized void carica(String corsoLaurea, String resto, String anno, Orario orario, long versione, long durata) {
+        ricostruzioni.incrementAndGet();
+        tempoRicostruzioni.addAndGet(durata);
+        if (this.versione.get() == versione) {
+            orari.put(chiave(corsoLaurea, resto, anno), orario);
+        }
+    }
+
+    /**
+     * Scarta gli orari che contengono la lezione, nello stato in cui si trova al momento della chiamata.
+     * Se la lezione non indica corso, resto o anno, vengono scartati tutti gli orari compatibili con il resto.
+     * @param lezione la lezione aggiunta, modificata o rimossa
+     */
+    public void invalida(Lezione lezione) {
+        if (lezione == null) {
+            return;
+        }
+        Long corsoLaurea = null;
+        Integer anno = null;
+        if (lezione.getCorso() != null) {
+            if (lezione.getCorso().getCorsoLaurea() != null) {
+                corsoLaurea = lezione.getCorso().getCorsoLaurea().getId();
+            }
+            if (lezione.getCorso().getAnnoDidattico() != null) {
+                anno = lezione.getCorso().getAnnoDidattico().getId();
+            }
+        }
+        Long resto = lezione.getResto() != null ? lezione.getResto().getId() : null;
+        invalida(corsoLaurea, resto, anno);
+    }
+
+    /**
+     * Scarta gli orari del corso di laurea, del resto e dell'anno indicati; un parametro null vale per tutti.
+     * @param corsoLaurea l'ID del corso di laurea, o null
+     * @param resto l'ID del resto, o null
+     * @param anno l'ID dell'anno didattico, o null
+     */
+    public synchronized void invalida(Long corsoLaurea, Long resto, Integer anno) {
+        versione.incrementAndGet();
+        orari.values().removeIf(orario ->
+                (corsoLaurea == null || orario.corsoLaurea() == null || corsoLaurea.equals(orario.corsoLaurea().getId()))
+                && (resto == null || orario.resto() == null || resto.equals(orario.resto().getId()))
+                && (anno == null || orario.anno() == null || anno == orario.anno().getId()));
+    }
+
+    /**
+     * Scarta tutti gli orari, ad esempio dopo una modifica alle aule.
+     */
+    public synchronized void svuota() {
+        versione.incrementAndGet();
+        orari.clear();
+    }
+
+    public long getHit() {
+        return hit.get();
+    }
+
+    public long getMiss() {
+        return miss.get();
+    }
+
+    /**
+     * @return il numero di orari costruiti dal database
+     */
+    public long getRicostruzioni() {
+        return ricostruzioni.get();
+    }
+
+    /**
+     * @return il tempo medio di costruzione di un orario dal database, in nanosecondi
+     */
+    public long getTempoMedioRicostruzione() {
+        long quante = ricostruzioni.get();
+        return quante == 0 ? 0 : tempoRicostruzioni.get() / quante;
+    }
+
+    /**
+     * @return la frazione di richieste servite dalla cache, tra 0 e 1
+     */
+    public double getHitRate() {
+        long h = hit.get();
+        long totale = h + miss.get();
+        return totale == 0 ? 0 : (double) h / totale;
+    }
+
+    /**
+     * @return il numero di orari in cache
+     */
+    public int getOrari() {
+        return orari.size();
+    }
+
+    private static String chiave(String corsoLaurea, String resto, String anno) {
+        return Objects.toString(corsoLaurea) + "|" + Objects.toString(resto) + "|" + Objects.toString(anno);
+    }
+}
@@ -0,0 +1,342 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.Resto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache in memoria dei dati di riferimento: corsi di laurea, anni didattici, aule e resti.
+ * Sono poche centinaia di righe che cambiano poche volte l'anno, lette invece a ogni pagina.
+ *
+ * Ogni tipo ha la sua {@link Tabella}, che pubblica un'{@link Istantanea} immutabile con gli indici per ID,
+ * per nome e per gruppo: una lettura è un accesso a una mappa, senza lock. Le scritture passano dai service,
+ * che dopo il salvataggio sostituiscono l'istantanea con una copia aggiornata.
+ */
+public class CacheRiferimenti {
+
+    private static final CacheRiferimenti ISTANZA = new CacheRiferimenti();
+
+    //@ spec_public
+    private final Tabella<CorsoLaurea> corsiLaurea = new Tabella<>("corsiLaurea",
+            CorsoLaurea::getId, CorsoLaurea::getNome, corso -> List.of());
+
+    //@ spec_public
+    private final Tabella<AnnoDidattico> anniDidattici = new Tabella<>("anniDidattici",
+            anno -> (long) anno.getId(), anno -> null, CacheRiferimenti::corsiAnno);
+
+    //@ spec_public
+    private final Tabella<Aula> aule = new Tabella<>("aule",
+            aula -> (long) aula.getId(), Aula::getNome, aula -> aula.getEdificio() != null ? List.of(aula.getEdificio()) : List.of());
+
+    //@ spec_public
+    private final Tabella<Resto> resti = new Tabella<>("resti",
+            Resto::getId, CacheRiferimenti::chiaveResto, CacheRiferimenti::corsoResto);
+
+    /**
+     * Restituisce la cache condivisa dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static CacheRiferimenti getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * @return i corsi di laurea, indicizzati per nome
+     */
+    public Tabella<CorsoLaurea> getCorsiLaurea() {
+        return corsiLaurea;
+    }
+
+    /**
+     * @return gli anni didattici, raggruppati per nome del corso di laurea
+     */
+    public Tabella<AnnoDidattico> getAnniDidattici() {
+        return anniDidattici;
+    }
+
+    /**
+     * @return le aule, indicizzate per nome e raggruppate per edificio
+     */
+    public Tabella<Aula> getAule() {
+        return aule;
+    }
+
+    /**
+     * @return i resti, indicizzati per nome del corso e del resto e raggruppati per nome del corso di laurea
+     */
+    public Tabella<Resto> getResti() {
+        return resti;
+    }
+
+    /**
+     * Scarta tutte le istantanee, che verranno ricaricate alla prossima lettura.
+     */
+    public void svuota() {
+        corsiLaurea.invalida();
+        anniDidattici.invalida();
+        aule.invalida();
+        resti.invalida();
+    }
+
+    /**
+     * Restituisce la chiave con cui un resto è indicizzato per nome: lo stesso nome si ripete tra i corsi di laurea.
+     * @param corsoLaurea il nome del corso di laurea
+     * @param resto il nome del resto
+     * @return la chiave del resto
+     */
+    public static String chiaveResto(String corsoLaurea, String resto) {
+        return corsoLaurea + "|" + resto;
+    }
+
+    private static String chiaveResto(Resto resto) {
+        return resto.getCorsoLaurea() != null ? chiaveResto(resto.getCorsoLaurea().getNome(), resto.getNome()) : null;
+    }
+
+    private static Collection<String> corsoResto(Resto resto) {
+        return resto.getCorsoLaurea() != null && resto.getCorsoLaurea().getNome() != null
+                ? List.of(resto.getCorsoLaurea().getNome()) : List.of();
+    }
+
+    private static Collection<String> corsiAnno(AnnoDidattico anno) {
+        List<String> corsi = new ArrayList<>();
+        if (anno.getCorsiLaurea() != null) {
+            for (CorsoLaurea corsoLaurea : anno.getCorsiLaurea()) {
+                corsi.add(corsoLaurea.getNome());
+            }
+        }
+        return corsi;
+    }
+
+    /**
+     * Vista immutabile di una tabella di riferimento, con i suoi indici.
+     *
+     * @param tutti gli elementi, nell'ordine in cui sono stati caricati
+     * @param perId gli elementi per ID
+     * @param perNome gli elementi per nome, se il tipo ne ha uno univoco
+     * @param perGruppo gli elementi per gruppo, con i gruppi in ordine alfabetico
+     * @param <T> il tipo degli elementi
+     */
+    public record Istantanea<T>(List<T> tutti, Map<Long, T> perId, Map<String, T> perNome, Map<String, List<T>> perGruppo) {
+
+        /**
+         * @param id l'ID dell'elemento
+         * @return l'elemento, oppure null se non esiste
+         */
+        public T trova(long id) {
+            return perId.get(id);
+        }
+
+        /**
+         * @param nome il nome dell'elemento
+         * @return l'elemento, oppure null se non esiste
+         */
+        public T trova(String nome) {
+            return nome != null ? perNome.get(nome) : null;
+        }
+
+        /**
+         * @param gruppo il nome del gruppo
+         * @return gli elementi del gruppo, vuota se non ce ne sono
+         */
+        public List<T> gruppo(String gruppo) {
+            return gruppo != null ? perGruppo.getOrDefault(gruppo, List.of()) : List.of();
+        }
+    }
+
+    /**
+     * Istantanea copy-on-write di un tipo di dato di riferimento, con i suoi contatori di hit e miss.
+     * Come nelle altre cache, un caricamento iniziato prima di una scrittura non viene pubblicato.
+     *
+     * @param <T> il tipo degli elementi
+     */
+    public static final class Tabella<T> {
+
+        private final String nome;
+        private final Function<T, Long> id;
+        private final Function<T, String> chiave;
+        private final Function<T, Collection<String>> gruppi;
+
+        //@ spec_public
+        //@ nullable
+        private volatile Istantanea<T> istantanea;
+
+        //@ spec_public
+        private final AtomicLong versione = new AtomicLong();
+
+        private final AtomicLong hit = new AtomicLong();
+        private final AtomicLong miss = new AtomicLong();
+
+        /**
+         * @param nome il nome del tipo, per le metriche
+         * @param id l'ID di un elemento
+         * @param chiave il nome univoco di un elemento, o null se non ne ha uno
+         * @param gruppi i gruppi a cui appartiene un elemento
+         */
+        public Tabella(String nome, Function<T, Long> id, Function<T, String> chiave, Function<T, Collection<String>> gruppi) {
+            this.nome = nome;
+            this.id = id;
+            this.chiave = chiave;
+            this.gruppi = gruppi;
+        }
+
+        /**
+         * Restituisce l'istantanea, se è già stata caricata.
+         * @return l'istantanea, oppure null se va caricata
+         */
+        public Istantanea<T> trova() {
+            Istantanea<T> attuale = istantanea;
+            if (attuale == null) {
+                miss.incrementAndGet();
+            } else {
+                hit.incrementAndGet();
+            }
+            return attuale;
+        }
+
+        /**
+         * Restituisce la versione corrente della tabella, da leggere prima di interrogare il database.
+         * @return la versione da passare a {@link #carica}
+         */
+        public long versione() {
+            return versione.get();
+        }
+
+        /**
+         * Costruisce l'istantanea degli elementi e la pubblica, se nel frattempo nessuna scrittura l'ha resa superata.
+         * @param elementi gli elementi letti dal database
+         * @param versione la versione letta prima delle query
+         * @return l'istantanea costruita, da usare anche se non è stata pubblicata
+         */
+        //@ requires elementi != null;
+        //@ ensures \result != null;
+        public synchronized Istantanea<T> carica(Collection<T> elementi, long versione) {
+            Istantanea<T> nuova = costruisci(new ArrayList<>(elementi));
+            if (this.versione.get() == versione) {
+                istantanea = nuova;
+            }
+            return nuova;
+        }
+
+        /**
+         * Inserisce o sostituisce un elemento appena salvato, pubblicando una nuova istantanea.
+         * Un elemento nuovo riceve l'ID solo nell'entità gestita dal DAO: in quel caso la tabella viene scartata.
+         * @param elemento l'elemento salvato
+         */
+        //@ requires elemento != null;
+        public synchronized void aggiorna(T elemento) {
+            versione.incrementAndGet();
+            Istantanea<T> attuale = istantanea;
+            if (attuale == null) {
+                return;
+            }
+            Long chiaveId = id.apply(elemento);
+            if (chiaveId == null || chiaveId == 0) {
+                istantanea = null;
+                return;
+            }
+            List<T> elementi = new ArrayList<>(attuale.tutti().size() + 1);
+            boolean sostituito = false;
+            for (T presente : attuale.tutti()) {
+                if (chiaveId.equals(id.apply(presente))) {
+                    elementi.add(elemento);
+                    sostituito = true;
+                } else {
+                    elementi.add(presente);
+                }
+            }
+            if (!sostituito) {
+                elementi.add(elemento);
+            }
+            istantanea = costruisci(elementi);
+        }
+
+        /**
+         * Toglie un elemento appena rimosso, pubblicando una nuova istantanea.
+         * @param elemento l'elemento rimosso
+         */
+        //@ requires elemento != null;
+        public synchronized void rimuovi(T elemento) {
+            versione.incrementAndGet();
+            Istantanea<T> attuale = istantanea;
+            if (attuale == null) {
+                return;
+            }
+            Long chiaveId = id.apply(elemento);
+            List<T> elementi = new ArrayList<>(attuale.tutti().size());
+            for (T presente : attuale.tutti()) {
+                if (!Objects.equals(chiaveId, id.apply(presente))) {
+                    elementi.add(presente);
+                }
+            }
+            istantanea = costruisci(elementi);
+        }
+
+        /**
+         * Scarta l'istantanea, ad esempio dopo una scrittura che cambia i gruppi di altri elementi.
+         */
+        public synchronized void invalida() {
+            versione.incrementAndGet();
+            istantanea = null;
+        }
+
+        /**
+         * @return il nome del tipo
+         */
+        public String getNome() {
+            return nome;
+        }
+
+        public long getHit() {
+            return hit.get();
+        }
+
+        public long getMiss() {
+            return miss.get();
+        }
+
+        /**
+         * @return la frazione di letture servite dalla cache, tra 0 e 1
+         */
+        public double getHitRate() {
+            long h = hit.get();
+            long totale = h + miss.get();
+            return totale == 0 ? 0 : (double) h / totale;
+        }
+
+        private Istantanea<T> costruisci(List<T> elementi) {
+            Map<Long, T> perId = new HashMap<>();
+            Map<String, T> perNome = new HashMap<>();
+            Map<String, List<T>> perGruppo = new TreeMap<>();
+            for (T elemento : elementi) {
+                Long chiaveId = id.apply(elemento);
+                if (chiaveId != null) {
+                    perId.put(chiaveId, elemento);
+                }
+                String chiaveNome = chiave.apply(elemento);
+                if (chiaveNome != null) {
+                    perNome.put(chiaveNome, elemento);
+                }
+                for (String gruppo : gruppi.apply(elemento)) {
+                    if (gruppo != null) {
+                        perGruppo.computeIfAbsent(gruppo, g -> new ArrayList<>()).add(elemento);
+                    }
+                }
+            }
+            perGruppo.replaceAll((gruppo, lista) -> List.copyOf(lista));
+            return new Istantanea<>(List.copyOf(elementi), Map.copyOf(perId), Map.copyOf(perNome),
+                    Collections.unmodifiableMap(perGruppo));
+        }
+    }
+}
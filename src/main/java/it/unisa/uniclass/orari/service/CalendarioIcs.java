@@ -0,0 +1,195 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Lezione;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * Serializzazione delle lezioni in formato iCalendar (RFC 5545).
+ * Ogni lezione diventa un evento settimanale ripetuto dalla prima settimana del suo semestre fino alla fine del semestre,
+ * nell'anno accademico in corso.
+ */
+public final class CalendarioIcs {
+
+    /**
+     * Fuso orario delle lezioni.
+     */
+    public static final ZoneId FUSO = ZoneId.of("Europe/Rome");
+
+    /**
+     * Inizio e fine delle lezioni del primo semestre, nel primo anno solare dell'anno accademico.
+     */
+    public static final MonthDay INIZIO_PRIMO_SEMESTRE = MonthDay.of(9, 22);
+    public static final MonthDay FINE_PRIMO_SEMESTRE = MonthDay.of(12, 22);
+
+    /**
+     * Inizio e fine delle lezioni del secondo semestre, nel secondo anno solare dell'anno accademico.
+     */
+    public static final MonthDay INIZIO_SECONDO_SEMESTRE = MonthDay.of(3, 1);
+    public static final MonthDay FINE_SECONDO_SEMESTRE = MonthDay.of(6, 10);
+
+    private static final DateTimeFormatter LOCALE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final String VTIMEZONE = String.join("\r\n",
+            "BEGIN:VTIMEZONE",
+            "TZID:Europe/Rome",
+            "BEGIN:DAYLIGHT",
+            "TZOFFSETFROM:+0100",
+            "TZOFFSETTO:+0200",
+            "TZNAME:CEST",
+            "DTSTART:19700329T020000",
+            "RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=-1SU",
+            "END:DAYLIGHT",
+            "BEGIN:STANDARD",
+            "TZOFFSETFROM:+0200",
+            "TZOFFSETTO:+0100",
+            "TZNAME:CET",
+            "DTSTART:19701025T030000",
+            "RRULE:FREQ=YEARLY;BYMONTH=10;BYDAY=-1SU",
+            "END:STANDARD",
+            "END:VTIMEZONE") + "\r\n";
+
+    private CalendarioIcs() {
+    }
+
+    /**
+     * Restituisce il primo anno solare dell'anno accademico in corso: da agosto vale l'anno corrente.
+     * @param oggi la data corrente
+     * @return l'anno in cui inizia l'anno accademico
+     */
+    //@ requires oggi != null;
+    public static int annoAccademico(LocalDate oggi) {
+        return oggi.getMonthValue() >= 8 ? oggi.getYear() : oggi.getYear() - 1;
+    }
+
+    /**
+     * Restituisce il semestre in corso: il secondo dall'inizio delle sue lezioni fino a luglio, altrimenti il primo.
+     * @param oggi la data corrente
+     * @return 1 o 2
+     */
+    //@ requires oggi != null;
+    //@ ensures \result == 1 || \result == 2;
+    public static int semestre(LocalDate oggi) {
+        return oggi.getMonthValue() < 8 && !MonthDay.from(oggi).isBefore(INIZIO_SECONDO_SEMESTRE) ? 2 : 1;
+    }
+
+    /**
+     * Serializza le lezioni in un calendario.
+     * Le lezioni senza giorno, orario o con un semestre diverso da 1 e 2 vengono tralasciate.
+     * @param nome il nome del calendario mostrato dai client
+     * @param lezioni le lezioni
+     * @param annoAccademico il primo anno solare dell'anno accademico
+     * @param dtstamp il momento di creazione del calendario
+     * @return il calendario in UTF-8
+     */
+    //@ requires nome != null && lezioni != null && dtstamp != null;
+    //@ ensures \result != null;
+    public static byte[] serializza(String nome, List<Lezione> lezioni, int annoAccademico, Instant dtstamp) {
+        StringBuilder ics = new StringBuilder(512 + lezioni.size() * 320);
+        riga(ics, "BEGIN:VCALENDAR");
+        riga(ics, "VERSION:2.0");
+        riga(ics, "PRODID:-//UniClass//Orari//IT");
+        riga(ics, "CALSCALE:GREGORIAN");
+        riga(ics, "METHOD:PUBLISH");
+        riga(ics, "X-WR-CALNAME:" + testo(nome));
+        riga(ics, "X-WR-TIMEZONE:" + FUSO.getId());
+        ics.append(VTIMEZONE);
+        String stamp = UTC.format(dtstamp);
+        for (Lezione lezione : lezioni) {
+            evento(ics, lezione, annoAccademico, stamp);
+        }
+        riga(ics, "END:VCALENDAR");
+        return ics.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void evento(StringBuilder ics, Lezione lezione, int annoAccademico, String stamp) {
+        if (lezione.getGiorno() == null || lezione.getOraInizio() == null || lezione.getOraFine() == null) {
+            return;
+        }
+        LocalDate inizioSemestre;
+        LocalDate fineSemestre;
+        if (lezione.getSemestre() == 1) {
+            inizioSemestre = INIZIO_PRIMO_SEMESTRE.atYear(annoAccademico);
+            fineSemestre = FINE_PRIMO_SEMESTRE.atYear(annoAccademico);
+        } else if (lezione.getSemestre() == 2) {
+            inizioSemestre = INIZIO_SECONDO_SEMESTRE.atYear(annoAccademico + 1);
+            fineSemestre = FINE_SECONDO_SEMESTRE.atYear(annoAccademico + 1);
+        } else {
+            return;
+        }
+        DayOfWeek giorno = lezione.getGiorno().getDayOfWeek();
+        LocalDate prima = inizioSemestre.with(TemporalAdjusters.nextOrSame(giorno));
+        LocalTime inizio = lezione.getOraInizio().toLocalTime();
+        LocalTime fine = lezione.getOraFine().toLocalTime();
+        Instant ultima = LocalDateTime.of(fineSemestre, LocalTime.MAX).atZone(FUSO).toInstant();
+
+        riga(ics, "BEGIN:VEVENT");
+        riga(ics, "UID:" + uid(lezione));
+        riga(ics, "DTSTAMP:" + stamp);
+        riga(ics, "DTSTART;TZID=" + FUSO.getId() + ":" + LOCALE.format(prima.atTime(inizio)));
+        riga(ics, "DTEND;TZID=" + FUSO.getId() + ":" + LOCALE.format(prima.atTime(fine)));
+        riga(ics, "RRULE:FREQ=WEEKLY;BYDAY=" + giorno.name().substring(0, 2) + ";UNTIL=" + UTC.format(ultima));
+        riga(ics, "SUMMARY:" + testo(lezione.getCorso() != null ? lezione.getCorso().getNome() : "Lezione"));
+        if (lezione.getAula() != null) {
+            String aula = lezione.getAula().getNome();
+            if (lezione.getAula().getEdificio() != null) {
+                aula += " (" + lezione.getAula().getEdificio() + ")";
+            }
+            riga(ics, "LOCATION:" + testo(aula));
+        }
+        if (lezione.getResto() != null) {
+            riga(ics, "DESCRIPTION:" + testo(lezione.getResto().getNome()));
+        }
+        riga(ics, "END:VEVENT");
+    }
+
+    private static String uid(Lezione lezione) {
+        if (lezione.getId() != null) {
+            return "lezione-" + lezione.getId() + "@uniclass";
+        }
+        return "lezione-" + lezione.getGiorno() + "-" + lezione.getOraInizio() + "-" + lezione.getSemestre()
+                + "-" + Integer.toHexString(String.valueOf(lezione.getCorso() != null ? lezione.getCorso().getNome() : "").hashCode()) + "@uniclass";
+    }
+
+    /**
+     * Escape dei caratteri speciali di un valore TEXT.
+     */
+    private static String testo(String valore) {
+        if (valore == null) {
+            return "";
+        }
+        return valore.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                .replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
+    }
+
+    /**
+     * Aggiunge una riga terminata da CRLF, spezzata ogni 75 byte come richiesto dallo standard.
+     */
+    private static void riga(StringBuilder ics, String riga) {
+        int byteRiga = 0;
+        for (int i = 0; i < riga.length(); ) {
+            int carattere = riga.codePointAt(i);
+            int lunghezza = carattere < 0x80 ? 1 : carattere < 0x800 ? 2 : carattere < 0x10000 ? 3 : 4;
+            if (byteRiga + lunghezza > 75) {
+                ics.append("\r\n ");
+                byteRiga = 1;
+            }
+            ics.appendCodePoint(carattere);
+            byteRiga += lunghezza;
+            i += Character.charCount(carattere);
+        }
+        ics.append("\r\n");
+    }
+}
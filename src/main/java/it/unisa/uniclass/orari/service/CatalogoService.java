@@ -0,0 +1,82 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Catalogo;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import jakarta.ejb.Stateless;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Classe di servizio per il catalogo dei corsi di laurea, con i loro resti e anni didattici.
+ * Il form di ricerca degli orari lo scarica una volta sola e compila le scelte senza altre richieste;
+ * il catalogo serializzato viene tenuto nella {@link CacheCatalogo}.
+ */
+@Stateless
+public class CatalogoService {
+
+    private CorsoLaureaService corsoLaureaService;
+    private CacheCatalogo cache = CacheCatalogo.getIstanza();
+
+    /**
+     * Costruttore di default: il service esegue il lookup JNDI del DAO.
+     */
+    public CatalogoService() {
+        this(new CorsoLaureaService());
+    }
+
+    /**
+     * Costruttore per uso interno e test.
+     * @param corsoLaureaService il service dei corsi di laurea
+     */
+    public CatalogoService(CorsoLaureaService corsoLaureaService) {
+        this.corsoLaureaService = corsoLaureaService;
+    }
+
+    /**
+     * Restituisce il catalogo serializzato: un array JSON di corsi di laurea, ognuno con
+     * {@code nome}, {@code resti} e {@code anni}, questi ultimi come oggetti con {@code id} e {@code nome}.
+     *
+     * @return Il catalogo, dalla cache se aggiornato.
+     */
+    public Catalogo trovaCatalogo() {
+        Catalogo catalogo = cache.trova();
+        if (catalogo != null) {
+            return catalogo;
+        }
+        long versione = cache.versione();
+        JSONArray corsi = new JSONArray();
+        // Il piano dell'orario porta resti e anni di tutti i corsi con una query per relazione
+        for (CorsoLaurea corsoLaurea : corsoLaureaService.trovaTutti(PianoCaricamento.ORARIO)) {
+            JSONArray resti = new JSONArray();
+            for (Resto resto : corsoLaurea.getResti()) {
+                resti.put(new JSONObject().put("id", resto.getId()).put("nome", resto.getNome()));
+            }
+            JSONArray anni = new JSONArray();
+            for (AnnoDidattico anno : corsoLaurea.getAnniDidattici()) {
+                anni.put(new JSONObject().put("id", anno.getId()).put("nome", anno.getAnno()));
+            }
+            corsi.put(new JSONObject().put("nome", corsoLaurea.getNome()).put("resti", resti).put("anni", anni));
+        }
+        byte[] contenuto = corsi.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(contenuto);
+        catalogo = new Catalogo(versione, contenuto, "\"" + versione + "-" + Long.toHexString(crc.getValue()) + "\"");
+        cache.carica(catalogo);
+        return catalogo;
+    }
+
+    /**
+     * Setter per iniettare la cache del catalogo (utile per i test).
+     *
+     * @param cache La cache da usare.
+     */
+    public void setCache(CacheCatalogo cache) {
+        this.cache = cache;
+    }
+}
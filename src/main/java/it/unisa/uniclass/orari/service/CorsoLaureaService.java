@@ -1,7 +1,9 @@
 package it.unisa.uniclass.orari.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.orari.model.AnnoDidattico;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import it.unisa.uniclass.orari.model.Resto;
 import it.unisa.uniclass.orari.service.dao.CorsoLaureaRemote;
 import jakarta.ejb.Stateless;
@@ -57,6 +59,21 @@ public class CorsoLaureaService {
         }
     }
 
+    /**
+     * Trova un corso di laurea tramite il suo ID caricando le relazioni indicate dal piano.
+     *
+     * @param id L'ID del corso di laurea da cercare.
+     * @param piano Il piano di caricamento da applicare.
+     * @return L'oggetto CorsoLaurea corrispondente all'ID.
+     */
+    public CorsoLaurea trovaCorsoLaurea(long id, PianoCaricamento piano) {
+        try {
+            return corsoLaureaDAO.trovaCorsoLaurea(id, piano);
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
     /**
      * Trova un corso di laurea nel database utilizzando il suo nome.
      *
@@ -84,6 +101,20 @@ public class CorsoLaureaService {
         }
     }
 
+    /**
+     * Recupera tutti i corsi di laurea caricando le relazioni indicate dal piano.
+     *
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di tutti i corsi di laurea.
+     */
+    public List<CorsoLaurea> trovaTutti(PianoCaricamento piano) {
+        try {
+            return corsoLaureaDAO.trovaTutti(piano);
+        } catch (Exception e) {
+            throw new RuntimeException("Errore durante il recupero dei corsi di laurea.", e);
+        }
+    }
+
     /**
      * Aggiunge o aggiorna un corso di laurea nel database.
      *
@@ -95,6 +126,9 @@ public class CorsoLaureaService {
             throw new IllegalArgumentException("Il corso di laurea deve avere un nome valido.");
         }
         corsoLaureaDAO.aggiungiCorsoLaurea(corsoLaurea);
+        CacheOrari.getIstanza().invalida(corsoLaurea.getId(), null, null);
+        CacheCatalogo.getIstanza().invalida();
+        aggiornaRiferimenti(corsoLaurea, false);
     }
 
     /**
@@ -108,5 +142,21 @@ public class CorsoLaureaService {
             throw new IllegalArgumentException("Il corso di laurea da rimuovere non può essere null.");
         }
         corsoLaureaDAO.rimuoviCorsoLaurea(corsoLaurea);
+        CacheOrari.getIstanza().invalida(corsoLaurea.getId(), null, null);
+        CacheCatalogo.getIstanza().invalida();
+        aggiornaRiferimenti(corsoLaurea, true);
+    }
+
+    private static void aggiornaRiferimenti(CorsoLaurea corsoLaurea, boolean rimosso) {
+        CacheRiferimenti riferimenti = CacheRiferimenti.getIstanza();
+        if (rimosso) {
+            riferimenti.getCorsiLaurea().rimuovi(corsoLaurea);
+        } else {
+            riferimenti.getCorsiLaurea().aggiorna(corsoLaurea);
+        }
+        // Resti e anni sono raggruppati per nome del corso, che può essere cambiato o sparito con i suoi resti
+        riferimenti.getResti().invalida();
+        riferimenti.getAnniDidattici().invalida();
+        CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
     }
 }
\ No newline at end of file
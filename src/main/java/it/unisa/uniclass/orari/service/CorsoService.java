@@ -1,5 +1,6 @@
 package it.unisa.uniclass.orari.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.orari.model.Corso;
 import it.unisa.uniclass.orari.service.dao.CorsoRemote;
 import jakarta.ejb.Stateless;
@@ -81,6 +82,7 @@ public class CorsoService {
      */
     public void aggiungiCorso(Corso corso) {
         corsoDao.aggiungiCorso(corso);
+        invalidaOrari(corso);
     }
 
     /**
@@ -90,5 +92,22 @@ public class CorsoService {
      */
     public void rimuoviCorso(Corso corso) {
         corsoDao.rimuoviCorso(corso);
+        invalidaOrari(corso);
     }
-}
\ No newline at end of file
+
+    /**
+     * Scarta dalla cache gli orari dell'anno e del corso di laurea del corso, che ne mostrano le lezioni,
+     * e l'indice di occupazione delle aule, che ne mostra il nome.
+     */
+    private void invalidaOrari(Corso corso) {
+        if (corso == null) {
+            return;
+        }
+        Long corsoLaurea = corso.getCorsoLaurea() != null ? corso.getCorsoLaurea().getId() : null;
+        Integer anno = corso.getAnnoDidattico() != null ? corso.getAnnoDidattico().getId() : null;
+        CacheOrari.getIstanza().invalida(corsoLaurea, null, anno);
+        IndiceOccupazione.getIstanza().svuota();
+        IndiceProssimeLezioni.getIstanza().svuota();
+        CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
+    }
+}
@@ -0,0 +1,135 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Feed;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Orario;
+import it.unisa.uniclass.utenti.model.Docente;
+import it.unisa.uniclass.utenti.service.DocenteService;
+import jakarta.ejb.Stateless;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Classe di servizio per i calendari iCalendar a cui gli studenti e i docenti si iscrivono dalle app di calendario.
+ * I calendari serializzati vengono tenuti nella {@link CacheFeed} con un ETag forte, formato dalla versione
+ * della {@link CacheOrari} e da un checksum del contenuto: finché gli orari non cambiano, la maggior parte
+ * delle richieste periodiche dei client riceve un 304 senza accedere al database.
+ */
+@Stateless
+public class FeedService {
+
+    private OrarioService orarioService;
+    private LezioneService lezioneService;
+    private DocenteService docenteService;
+    private CacheOrari cacheOrari = CacheOrari.getIstanza();
+    private CacheFeed cache = CacheFeed.getIstanza();
+    private Clock orologio = Clock.systemDefaultZone();
+
+    /**
+     * Costruttore di default: i service eseguono il lookup JNDI dei rispettivi DAO.
+     */
+    public FeedService() {
+        this(new OrarioService(), new LezioneService(), new DocenteService());
+    }
+
+    /**
+     * Costruttore per uso interno e test.
+     * @param orarioService il service degli orari
+     * @param lezioneService il service delle lezioni
+     * @param docenteService il service dei docenti
+     */
+    public FeedService(OrarioService orarioService, LezioneService lezioneService, DocenteService docenteService) {
+        this.orarioService = orarioService;
+        this.lezioneService = lezioneService;
+        this.docenteService = docenteService;
+    }
+
+    /**
+     * Restituisce il calendario dell'orario di un resto di un corso di laurea in un anno didattico.
+     *
+     * @param nomeCorsoLaurea Il nome del corso di laurea.
+     * @param nomeResto Il nome del resto.
+     * @param nomeAnno Il nome dell'anno didattico.
+     * @return Il calendario, oppure null se corso di laurea, resto o anno non esistono.
+     */
+    public Feed feedOrario(String nomeCorsoLaurea, String nomeResto, String nomeAnno) {
+        return feed("orario|" + nomeCorsoLaurea + "|" + nomeResto + "|" + nomeAnno, () -> {
+            Orario orario = orarioService.trovaOrario(nomeCorsoLaurea, nomeResto, nomeAnno);
+            return orario == null ? null : new Calendario(nomeCorsoLaurea + " - " + nomeResto + " - " + nomeAnno, orario.lezioni());
+        });
+    }
+
+    /**
+     * Restituisce il calendario delle lezioni di un docente.
+     *
+     * @param matricola La matricola del docente.
+     * @return Il calendario, oppure null se il docente non esiste.
+     */
+    public Feed feedDocente(String matricola) {
+        return feed("docente|" + matricola, () -> {
+            Docente docente = docenteService.trovaDocenteUniClass(matricola);
+            if (docente == null) {
+                return null;
+            }
+            List<Lezione> lezioni = new ArrayList<>(lezioneService.trovaLezioniMatricolaDocente(matricola));
+            lezioni.sort(Orario.ORDINE);
+            return new Calendario(docente.getNome() + " " + docente.getCognome(), lezioni);
+        });
+    }
+
+    private record Calendario(String nome, List<Lezione> lezioni) {
+    }
+
+    private Feed feed(String chiave, Supplier<Calendario> calendario) {
+        int annoAccademico = CalendarioIcs.annoAccademico(LocalDate.now(orologio));
+        // L'anno accademico fa parte della chiave: le date degli eventi cambiano a ogni nuovo anno
+        String chiaveAnno = chiave + "|" + annoAccademico;
+        long versione = cacheOrari.versione();
+        Feed feed = cache.trova(chiaveAnno, versione);
+        if (feed != null) {
+            return feed;
+        }
+        Calendario trovato = calendario.get();
+        if (trovato == null) {
+            return null;
+        }
+        byte[] contenuto = CalendarioIcs.serializza(trovato.nome(), trovato.lezioni(), annoAccademico, orologio.instant());
+        CRC32 crc = new CRC32();
+        crc.update(contenuto);
+        feed = new Feed(versione, contenuto, "\"" + versione + "-" + Long.toHexString(crc.getValue()) + "\"");
+        cache.carica(chiaveAnno, feed);
+        return feed;
+    }
+
+    /**
+     * Setter per iniettare la cache degli orari, da cui si legge la versione (utile per i test).
+     *
+     * @param cacheOrari La cache degli orari.
+     */
+    public void setCacheOrari(CacheOrari cacheOrari) {
+        this.cacheOrari = cacheOrari;
+    }
+
+    /**
+     * Setter per iniettare la cache dei calendari (utile per i test).
+     *
+     * @param cache La cache da usare.
+     */
+    public void setCache(CacheFeed cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Setter per iniettare l'orologio (utile per i test).
+     *
+     * @param orologio L'orologio da usare.
+     */
+    public void setOrologio(Clock orologio) {
+        this.orologio = orologio;
+    }
+}
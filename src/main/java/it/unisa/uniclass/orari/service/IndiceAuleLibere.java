@@ -0,0 +1,346 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.AulaLibera;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matrice in memoria delle fasce occupate di tutte le aule, per la ricerca delle aule libere.
+ * La settimana è divisa in fasce di {@value #MINUTI_FASCIA} minuti: per ogni aula un {@code long[]} ha una
+ * parola per {@link Giorno}, con un bit per fascia. Una ricerca confronta la maschera delle fasce richieste
+ * con la parola del giorno di ogni aula, senza accedere al database.
+ *
+ * Per aggiornare la matrice quando una lezione viene rimossa anche se si sovrappone a un'altra,
+ * ogni aula conserva anche il numero di lezioni per fascia; un bit è acceso finché il conteggio è positivo.
+ * Le ricerche leggono un'istantanea immutabile, sostituita a ogni aggiornamento.
+ */
+public class IndiceAuleLibere {
+
+    /**
+     * Durata di una fascia, in minuti.
+     */
+    public static final int MINUTI_FASCIA = 30;
+
+    /**
+     * Numero di fasce in un giorno.
+     */
+    public static final int FASCE_GIORNO = 24 * 60 / MINUTI_FASCIA;
+
+    private static final IndiceAuleLibere ISTANZA = new IndiceAuleLibere();
+
+    /**
+     * Istantanea della matrice: aule nello stesso ordine in tutti gli array.
+     */
+    private record Matrice(String[] nomi, String[] edifici, long[][] occupate, Map<String, Integer> posizioni) {
+        static final Matrice VUOTA = new Matrice(new String[0], new String[0], new long[0][], Map.of());
+    }
+
+    //@ spec_public
+    private volatile Matrice matrice = Matrice.VUOTA;
+
+    // Conteggi delle lezioni per aula, giorno e fascia: letti e scritti solo sotto il lock dell'indice
+    private final Map<String, short[][]> conteggi = new HashMap<>();
+
+    //@ spec_public
+    private final AtomicLong versione = new AtomicLong();
+
+    //@ spec_public
+    private volatile boolean caricato;
+
+    /**
+     * Restituisce l'indice condiviso dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static IndiceAuleLibere getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Vero se l'indice è stato caricato e può rispondere.
+     * @return true se caricato
+     */
+    public boolean isCaricato() {
+        return caricato;
+    }
+
+    /**
+     * Restituisce la versione corrente dell'indice, da leggere prima di interrogare il database.
+     * @return la versione da passare a {@link #carica}
+     */
+    public long versione() {
+        return versione.get();
+    }
+
+    /**
+     * Carica l'indice con tutte le aule e tutte le lezioni. Se nel frattempo un'aula o una lezione è cambiata
+     * l'indice resta da caricare.
+     * @param aule tutte le aule
+     * @param lezioni tutte le lezioni
+     * @param versione la versione letta prima delle query
+     */
+    //@ requires aule != null && lezioni != null;
+    public synchronized void carica(Collection<Aula> aule, Collection<Lezione> lezioni, long versione) {
+        if (this.versione.get() != versione) {
+            return;
+        }
+        conteggi.clear();
+        String[] nomi = new String[aule.size()];
+        String[] edifici = new String[aule.size()];
+        Map<String, Integer> posizioni = new HashMap<>();
+        int i = 0;
+        for (Aula aula : aule) {
+            nomi[i] = aula.getNome();
+            edifici[i] = aula.getEdificio();
+            posizioni.put(aula.getNome(), i);
+            conteggi.put(aula.getNome(), new short[Giorno.values().length][FASCE_GIORNO]);
+            i++;
+        }
+        for (Lezione lezione : lezioni) {
+            conta(lezione, 1);
+        }
+        long[][] occupate = new long[nomi.length][];
+        for (int a = 0; a < nomi.length; a++) {
+            occupate[a] = maschere(conteggi.get(nomi[a]));
+        }
+        matrice = new Matrice(nomi, edifici, occupate, posizioni);
+        caricato = true;
+    }
+
+    /**
+     * Aggiunge all'indice una lezione salvata, nello stato in cui si trova al momento della chiamata.
+     * @param lezione la lezione
+     */
+    public synchronized void aggiungi(Lezione lezione) {
+        versione.incrementAndGet();
+        if (caricato) {
+            aggiorna(conta(lezione, 1));
+        }
+    }
+
+    /**
+     * Toglie dall'indice una lezione, nello stato in cui si trova al momento della chiamata.
+     * @param lezione la lezione rimossa, o la versione precedente di una lezione modificata
+     */
+    public synchronized void rimuovi(Lezione lezione) {
+        versione.incrementAndGet();
+        if (caricato) {
+            aggiorna(conta(lezione, -1));
+        }
+    }
+
+    /**
+     * Aggiunge un'aula salvata, o ne aggiorna nome ed edificio mantenendone le lezioni.
+     * @param nomePrecedente il nome dell'aula prima del salvataggio, null se è nuova
+     * @param aula l'aula salvata
+     */
+    public synchronized void aggiornaAula(String nomePrecedente, Aula aula) {
+        versione.incrementAndGet();
+        if (!caricato || aula == null) {
+            return;
+        }
+        Matrice attuale = matrice;
+        Integer posizione = attuale.posizioni().get(nomePrecedente != null ? nomePrecedente : aula.getNome());
+        if (posizione == null) {
+            posizione = attuale.posizioni().get(aula.getNome());
+        }
+        if (posizione == null) {
+            int n = attuale.nomi().length;
+            String[] nomi = Arrays.copyOf(attuale.nomi(), n + 1);
+            String[] edifici = Arrays.copyOf(attuale.edifici(), n + 1);
+            long[][] occupate = Arrays.copyOf(attuale.occupate(), n + 1);
+            nomi[n] = aula.getNome();
+            edifici[n] = aula.getEdificio();
+            occupate[n] = new long[Giorno.values().length];
+            Map<String, Integer> posizioni = new HashMap<>(attuale.posizioni());
+            posizioni.put(aula.getNome(), n);
+            conteggi.put(aula.getNome(), new short[Giorno.values().length][FASCE_GIORNO]);
+            matrice = new Matrice(nomi, edifici, occupate, posizioni);
+            return;
+        }
+        String[] nomi = attuale.nomi().clone();
+        String[] edifici = attuale.edifici().clone();
+        Map<String, Integer> posizioni = new HashMap<>(attuale.posizioni());
+        String nomeVecchio = nomi[posizione];
+        if (!Objects.equals(nomeVecchio, aula.getNome())) {
+            posizioni.remove(nomeVecchio);
+            posizioni.put(aula.getNome(), posizione);
+            conteggi.put(aula.getNome(), conteggi.remove(nomeVecchio));
+        }
+        nomi[posizione] = aula.getNome();
+        edifici[posizione] = aula.getEdificio();
+        matrice = new Matrice(nomi, edifici, attuale.occupate(), posizioni);
+    }
+
+    /**
+     * Toglie un'aula rimossa e le sue lezioni.
+     * @param aula l'aula rimossa
+     */
+    public synchronized void rimuoviAula(Aula aula) {
+        versione.incrementAndGet();
+        if (!caricato || aula == null || !matrice.posizioni().containsKey(aula.getNome())) {
+            return;
+        }
+        Matrice attuale = matrice;
+        int rimossa = attuale.posizioni().get(aula.getNome());
+        int n = attuale.nomi().length - 1;
+        String[] nomi = new String[n];
+        String[] edifici = new String[n];
+        long[][] occupate = new long[n][];
+        Map<String, Integer> posizioni = new HashMap<>();
+        for (int da = 0, a = 0; da <= n; da++) {
+            if (da != rimossa) {
+                nomi[a] = attuale.nomi()[da];
+                edifici[a] = attuale.edifici()[da];
+                occupate[a] = attuale.occupate()[da];
+                posizioni.put(nomi[a], a);
+                a++;
+            }
+        }
+        conteggi.remove(aula.getNome());
+        matrice = new Matrice(nomi, edifici, occupate, posizioni);
+    }
+
+    /**
+     * Svuota l'indice, che verrà ricaricato alla prossima richiesta.
+     */
+    public synchronized void svuota() {
+        versione.incrementAndGet();
+        caricato = false;
+        conteggi.clear();
+        matrice = Matrice.VUOTA;
+    }
+
+    /**
+     * Cerca le aule libere per tutta la fascia richiesta, dalla più a lungo libera dopo la fine della fascia.
+     * A parità di durata le aule sono in ordine di nome.
+     * @param giorno il giorno
+     * @param da l'inizio della fascia
+     * @param a la fine della fascia, successiva all'inizio
+     * @param edificio l'edificio in cui cercare, null per tutti
+     * @return le aule libere
+     */
+    //@ requires giorno != null && da != null && a != null && da.isBefore(a);
+    public List<AulaLibera> cerca(Giorno giorno, LocalTime da, LocalTime a, String edificio) {
+        Matrice attuale = matrice;
+        int prima = fascia(da);
+        int dopo = fasciaFine(a);
+        long richieste = maschera(prima, dopo);
+        int g = giorno.ordinal();
+        List<AulaLibera> libere = new ArrayList<>();
+        List<Integer> durate = new ArrayList<>();
+        for (int i = 0; i < attuale.nomi().length; i++) {
+            if (edificio != null && !edificio.equals(attuale.edifici()[i])) {
+                continue;
+            }
+            long occupate = attuale.occupate()[i][g];
+            if ((occupate & richieste) != 0) {
+                continue;
+            }
+            // fasce libere consecutive dopo la fine richiesta, fino alla prossima lezione o a fine giornata
+            int successive = dopo >= FASCE_GIORNO ? 0 : Math.min(Long.numberOfTrailingZeros(occupate >>> dopo), FASCE_GIORNO - dopo);
+            int fine = dopo + successive;
+            libere.add(new AulaLibera(attuale.nomi()[i], attuale.edifici()[i], fine >= FASCE_GIORNO ? null : ora(fine)));
+            durate.add(successive);
+        }
+        Integer[] ordine = new Integer[libere.size()];
+        for (int i = 0; i < ordine.length; i++) {
+            ordine[i] = i;
+        }
+        Arrays.sort(ordine, (x, y) -> durate.get(x).equals(durate.get(y))
+                ? String.valueOf(libere.get(x).aula()).compareTo(String.valueOf(libere.get(y).aula()))
+                : Integer.compare(durate.get(y), durate.get(x)));
+        List<AulaLibera> risultato = new ArrayList<>(ordine.length);
+        for (Integer i : ordine) {
+            risultato.add(libere.get(i));
+        }
+        return risultato;
+    }
+
+    /**
+     * Somma al conteggio delle fasce occupate da una lezione.
+     * @return il nome dell'aula toccata, null se la lezione non occupa un'aula nota
+     */
+    private String conta(Lezione lezione, int delta) {
+        if (lezione == null || lezione.getAula() == null || lezione.getGiorno() == null
+                || lezione.getOraInizio() == null || lezione.getOraFine() == null) {
+            return null;
+        }
+        short[][] aula = conteggi.get(lezione.getAula().getNome());
+        if (aula == null) {
+            return null;
+        }
+        short[] giorno = aula[lezione.getGiorno().ordinal()];
+        int fine = fasciaFine(lezione.getOraFine().toLocalTime());
+        for (int f = fascia(lezione.getOraInizio().toLocalTime()); f < fine; f++) {
+            giorno[f] = (short) Math.max(0, giorno[f] + delta);
+        }
+        return lezione.getAula().getNome();
+    }
+
+    /**
+     * Pubblica una nuova istantanea con le maschere ricalcolate dell'aula indicata.
+     */
+    private void aggiorna(String aula) {
+        if (aula == null) {
+            return;
+        }
+        Matrice attuale = matrice;
+        int posizione = attuale.posizioni().get(aula);
+        long[][] occupate = attuale.occupate().clone();
+        occupate[posizione] = maschere(conteggi.get(aula));
+        matrice = new Matrice(attuale.nomi(), attuale.edifici(), occupate, attuale.posizioni());
+    }
+
+    private static long[] maschere(short[][] conteggi) {
+        long[] maschere = new long[conteggi.length];
+        for (int g = 0; g < conteggi.length; g++) {
+            for (int f = 0; f < FASCE_GIORNO; f++) {
+                if (conteggi[g][f] > 0) {
+                    maschere[g] |= 1L << f;
+                }
+            }
+        }
+        return maschere;
+    }
+
+    /**
+     * Maschera delle fasce da {@code prima} (inclusa) a {@code dopo} (esclusa).
+     */
+    private static long maschera(int prima, int dopo) {
+        if (dopo <= prima) {
+            return 0;
+        }
+        long finoADopo = dopo >= Long.SIZE ? -1L : (1L << dopo) - 1;
+        return finoADopo & -(1L << prima);
+    }
+
+    /**
+     * Fascia che contiene l'ora indicata.
+     */
+    private static int fascia(LocalTime ora) {
+        return (ora.getHour() * 60 + ora.getMinute()) / MINUTI_FASCIA;
+    }
+
+    /**
+     * Prima fascia dopo l'ora di fine indicata: una fascia iniziata prima della fine conta come occupata.
+     */
+    private static int fasciaFine(LocalTime ora) {
+        int minuti = ora.getHour() * 60 + ora.getMinute() + (ora.getSecond() > 0 || ora.getNano() > 0 ? 1 : 0);
+        return (minuti + MINUTI_FASCIA - 1) / MINUTI_FASCIA;
+    }
+
+    private static LocalTime ora(int fascia) {
+        return LocalTime.of(0, 0).plusMinutes((long) fascia * MINUTI_FASCIA);
+    }
+}
@@ -0,0 +1,249 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Fascia;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indice in memoria dell'occupazione delle aule.
+ * Per ogni aula e giorno conserva le fasce delle lezioni ordinate per ora di inizio, con il massimo progressivo
+ * delle ore di fine: "l'aula è occupata all'ora t" e "le fasce del giorno" costano una ricerca binaria,
+ * anche se due lezioni nella stessa aula si sovrappongono.
+ *
+ * L'indice viene caricato per intero alla prima richiesta e poi aggiornato a ogni lezione aggiunta,
+ * modificata o rimossa, ricostruendo solo la coppia aula e giorno toccata. Le letture non prendono lock:
+ * ogni aggiornamento sostituisce la coppia con una copia nuova.
+ */
+public class IndiceOccupazione {
+
+    private static final IndiceOccupazione ISTANZA = new IndiceOccupazione();
+
+    private static final Comparator<Fascia> ORDINE = Comparator.comparing(Fascia::inizio).thenComparing(Fascia::fine);
+
+    //@ spec_public
+    private final Map<String, Fasce> fasce = new ConcurrentHashMap<>();
+
+    //@ spec_public
+    private final AtomicLong versione = new AtomicLong();
+
+    //@ spec_public
+    private volatile boolean caricato;
+
+    /**
+     * Restituisce l'indice condiviso dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static IndiceOccupazione getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Fasce di un'aula in un giorno, ordinate per ora di inizio, con il massimo delle ore di fine fino a ogni posizione.
+     */
+    private static final class Fasce {
+        private static final Fasce VUOTE = new Fasce(new Fascia[0]);
+
+        private final Fascia[] elementi;
+        private final LocalTime[] fineMassima;
+
+        Fasce(Fascia[] elementi) {
+            this.elementi = elementi;
+            this.fineMassima = new LocalTime[elementi.length];
+            for (int i = 0; i < elementi.length; i++) {
+                LocalTime fine = elementi[i].fine();
+                fineMassima[i] = i == 0 || fine.isAfter(fineMassima[i - 1]) ? fine : fineMassima[i - 1];
+            }
+        }
+
+        /**
+         * Vero se una fascia contiene strettamente l'ora: una lezione che inizia o finisce in quel momento non conta.
+         */
+        boolean occupata(LocalTime ora) {
+            // ultima fascia iniziata prima dell'ora
+            int basso = 0;
+            int alto = elementi.length - 1;
+            int ultima = -1;
+            while (basso <= alto) {
+                int medio = (basso + alto) >>> 1;
+                if (elementi[medio].inizio().isBefore(ora)) {
+                    ultima = medio;
+                    basso = medio + 1;
+                } else {
+                    alto = medio - 1;
+                }
+            }
+            return ultima >= 0 && fineMassima[ultima].isAfter(ora);
+        }
+
+        Fasce con(Fascia fascia) {
+            int posizione = Arrays.binarySearch(elementi, fascia, ORDINE);
+            if (posizione < 0) {
+                posizione = -posizione - 1;
+            }
+            Fascia[] nuove = new Fascia[elementi.length + 1];
+            System.arraycopy(elementi, 0, nuove, 0, posizione);
+            nuove[posizione] = fascia;
+            System.arraycopy(elementi, posizione, nuove, posizione + 1, elementi.length - posizione);
+            return new Fasce(nuove);
+        }
+
+        Fasce senza(Fascia fascia) {
+            for (int i = 0; i < elementi.length; i++) {
+                if (elementi[i].stessaLezione(fascia)) {
+                    Fascia[] nuove = new Fascia[elementi.length - 1];
+                    System.arraycopy(elementi, 0, nuove, 0, i);
+                    System.arraycopy(elementi, i + 1, nuove, i, elementi.length - i - 1);
+                    return new Fasce(nuove);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Vero se l'indice è stato caricato e può rispondere.
+     * @return true se caricato
+     */
+    public boolean isCaricato() {
+        return caricato;
+    }
+
+    /**
+     * Restituisce la versione corrente dell'indice, da leggere prima di interrogare il database.
+     * @return la versione da passare a {@link #carica}
+     */
+    public long versione() {
+        return versione.get();
+    }
+
+    /**
+     * Carica l'indice con tutte le lezioni. Se nel frattempo una lezione è cambiata l'indice resta da caricare.
+     * @param lezioni tutte le lezioni
+     * @param versione la versione letta prima della query
+     */
+    //@ requires lezioni != null;
+    public synchronized void carica(Collection<Lezione> lezioni, long versione) {
+        if (this.versione.get() != versione) {
+            return;
+        }
+        Map<String, List<Fascia>> perAula = new HashMap<>();
+        for (Lezione lezione : lezioni) {
+            Fascia fascia = Fascia.di(lezione);
+            String aula = aula(lezione);
+            if (fascia != null && aula != null) {
+                perAula.computeIfAbsent(chiave(aula, fascia.giorno()), k -> new ArrayList<>()).add(fascia);
+            }
+        }
+        fasce.clear();
+        for (Map.Entry<String, List<Fascia>> voce : perAula.entrySet()) {
+            Fascia[] elementi = voce.getValue().toArray(new Fascia[0]);
+            Arrays.sort(elementi, ORDINE);
+            fasce.put(voce.getKey(), new Fasce(elementi));
+        }
+        caricato = true;
+    }
+
+    /**
+     * Aggiunge all'indice una lezione salvata, nello stato in cui si trova al momento della chiamata.
+     * @param lezione la lezione
+     */
+    public synchronized void aggiungi(Lezione lezione) {
+        versione.incrementAndGet();
+        Fascia fascia = Fascia.di(lezione);
+        String aula = aula(lezione);
+        if (!caricato || fascia == null || aula == null) {
+            return;
+        }
+        fasce.merge(chiave(aula, fascia.giorno()), Fasce.VUOTE.con(fascia), (presenti, nuova) -> presenti.con(fascia));
+    }
+
+    /**
+     * Toglie dall'indice una lezione, nello stato in cui si trova al momento della chiamata.
+     * @param lezione la lezione rimossa, o la versione precedente di una lezione modificata
+     */
+    public synchronized void rimuovi(Lezione lezione) {
+        versione.incrementAndGet();
+        Fascia fascia = Fascia.di(lezione);
+        String aula = aula(lezione);
+        if (!caricato || fascia == null || aula == null) {
+            return;
+        }
+        String chiave = chiave(aula, fascia.giorno());
+        Fasce presenti = fasce.get(chiave);
+        if (presenti != null) {
+            Fasce rimaste = presenti.senza(fascia);
+            if (rimaste.elementi.length == 0) {
+                fasce.remove(chiave);
+            } else {
+                fasce.put(chiave, rimaste);
+            }
+        }
+    }
+
+    /**
+     * Svuota l'indice, che verrà ricaricato alla prossima richiesta. Da usare quando cambiano aule, corsi o resti.
+     */
+    public synchronized void svuota() {
+        versione.incrementAndGet();
+        caricato = false;
+        fasce.clear();
+    }
+
+    /**
+     * Vero se nell'aula è in corso una lezione nel giorno e all'ora indicati.
+     * @param aula il nome dell'aula
+     * @param giorno il giorno
+     * @param ora l'ora
+     * @return true se l'aula è occupata
+     */
+    public boolean occupata(String aula, Giorno giorno, LocalTime ora) {
+        Fasce presenti = fasce.get(chiave(aula, giorno));
+        return presenti != null && presenti.occupata(ora);
+    }
+
+    /**
+     * Restituisce le fasce di un'aula in un giorno, ordinate per ora di inizio.
+     * @param aula il nome dell'aula
+     * @param giorno il giorno
+     * @return le fasce, in sola lettura
+     */
+    public List<Fascia> fasce(String aula, Giorno giorno) {
+        Fasce presenti = fasce.get(chiave(aula, giorno));
+        return presenti == null ? List.of() : List.of(presenti.elementi);
+    }
+
+    /**
+     * Restituisce le fasce di un'aula nella settimana, ordinate per giorno e ora di inizio.
+     * @param aula il nome dell'aula
+     * @return le fasce, in sola lettura
+     */
+    public List<Fascia> fasce(String aula) {
+        List<Fascia> settimana = new ArrayList<>();
+        for (Giorno giorno : Giorno.values()) {
+            Fasce presenti = fasce.get(chiave(aula, giorno));
+            if (presenti != null) {
+                settimana.addAll(Arrays.asList(presenti.elementi));
+            }
+        }
+        return List.copyOf(settimana);
+    }
+
+    private static String aula(Lezione lezione) {
+        return lezione != null && lezione.getAula() != null ? lezione.getAula().getNome() : null;
+    }
+
+    private static String chiave(String aula, Giorno giorno) {
+        return aula + "|" + giorno;
+    }
+}
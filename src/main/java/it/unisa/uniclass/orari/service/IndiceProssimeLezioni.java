@@ -0,0 +1,279 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.LezioneSettimana;
+import it.unisa.uniclass.orari.model.ProssimaLezione;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indice in memoria delle lezioni della settimana di ogni resto, per semestre e anno didattico.
+ * Un resto raccoglie gli studenti di tutti gli anni del corso di laurea: ogni lezione viene indicizzata sotto
+ * l'anno del suo corso e, insieme a tutte le altre del resto, sotto la chiave senza anno, usata quando l'anno
+ * dello studente non è noto. Per ogni chiave conserva i minuti della settimana di inizio e di fine delle lezioni
+ * in array di interi, ordinati per inizio, con il massimo progressivo dei minuti di fine: la lezione in corso e la
+ * prossima costano una ricerca binaria, anche se alcune lezioni si sovrappongono.
+ *
+ * L'indice viene caricato per intero alla prima richiesta e poi aggiornato a ogni lezione aggiunta,
+ * modificata o rimossa, ricostruendo solo gli array delle chiavi toccate. Le letture non prendono lock:
+ * ogni aggiornamento sostituisce gli array con una copia nuova.
+ */
+public class IndiceProssimeLezioni {
+
+    private static final IndiceProssimeLezioni ISTANZA = new IndiceProssimeLezioni();
+
+    private static final Comparator<LezioneSettimana> ORDINE =
+            Comparator.comparingInt(LezioneSettimana::minutoInizio).thenComparingInt(LezioneSettimana::minutoFine);
+
+    //@ spec_public
+    private final Map<String, Settimana> settimane = new ConcurrentHashMap<>();
+
+    //@ spec_public
+    private final AtomicLong versione = new AtomicLong();
+
+    //@ spec_public
+    private volatile boolean caricato;
+
+    /**
+     * Restituisce l'indice condiviso dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static IndiceProssimeLezioni getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Lezioni di un resto in un semestre, e in un anno, ordinate per minuto di inizio, con il massimo dei minuti di fine
+     * fino a ogni posizione.
+     */
+    private static final class Settimana {
+        private static final Settimana VUOTA = new Settimana(new LezioneSettimana[0]);
+
+        private final LezioneSettimana[] lezioni;
+        private final int[] inizi;
+        private final int[] fini;
+        private final int[] fineMassima;
+
+        Settimana(LezioneSettimana[] lezioni) {
+            this.lezioni = lezioni;
+            this.inizi = new int[lezioni.length];
+            this.fini = new int[lezioni.length];
+            this.fineMassima = new int[lezioni.length];
+            for (int i = 0; i < lezioni.length; i++) {
+                inizi[i] = lezioni[i].minutoInizio();
+                fini[i] = lezioni[i].minutoFine();
+                fineMassima[i] = i == 0 ? fini[i] : Math.max(fini[i], fineMassima[i - 1]);
+            }
+        }
+
+        ProssimaLezione cerca(int minuto) {
+            if (lezioni.length == 0) {
+                return new ProssimaLezione(null, null);
+            }
+            // ultima lezione iniziata entro il minuto
+            int basso = 0;
+            int alto = inizi.length - 1;
+            int ultima = -1;
+            while (basso <= alto) {
+                int medio = (basso + alto) >>> 1;
+                if (inizi[medio] <= minuto) {
+                    ultima = medio;
+                    basso = medio + 1;
+                } else {
+                    alto = medio - 1;
+                }
+            }
+            // tra le lezioni iniziate quella in corso iniziata per ultima; il massimo delle fini ferma la scansione
+            LezioneSettimana inCorso = null;
+            for (int i = ultima; i >= 0 && fineMassima[i] > minuto; i--) {
+                if (fini[i] > minuto) {
+                    inCorso = lezioni[i];
+                    break;
+                }
+            }
+            // dopo l'ultima lezione della settimana si ricomincia dalla prima
+            LezioneSettimana prossima = lezioni[ultima + 1 < lezioni.length ? ultima + 1 : 0];
+            return new ProssimaLezione(inCorso, prossima);
+        }
+
+        Settimana con(LezioneSettimana lezione) {
+            int posizione = Arrays.binarySearch(lezioni, lezione, ORDINE);
+            if (posizione < 0) {
+                posizione = -posizione - 1;
+            }
+            LezioneSettimana[] nuove = new LezioneSettimana[lezioni.length + 1];
+            System.arraycopy(lezioni, 0, nuove, 0, posizione);
+            nuove[posizione] = lezione;
+            System.arraycopy(lezioni, posizione, nuove, posizione + 1, lezioni.length - posizione);
+            return new Settimana(nuove);
+        }
+
+        Settimana senza(LezioneSettimana lezione) {
+            for (int i = 0; i < lezioni.length; i++) {
+                boolean stessa = lezione.lezione() != null && lezioni[i].lezione() != null
+                        ? lezione.lezione().equals(lezioni[i].lezione())
+                        : lezione.equals(lezioni[i]);
+                if (stessa) {
+                    LezioneSettimana[] nuove = new LezioneSettimana[lezioni.length - 1];
+                    System.arraycopy(lezioni, 0, nuove, 0, i);
+                    System.arraycopy(lezioni, i + 1, nuove, i, lezioni.length - i - 1);
+                    return new Settimana(nuove);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Vero se l'indice è stato caricato e può rispondere.
+     * @return true se caricato
+     */
+    public boolean isCaricato() {
+        return caricato;
+    }
+
+    /**
+     * Restituisce la versione corrente dell'indice, da leggere prima di interrogare il database.
+     * @return la versione da passare a {@link #carica}
+     */
+    public long versione() {
+        return versione.get();
+    }
+
+    /**
+     * Carica l'indice con tutte le lezioni. Se nel frattempo una lezione è cambiata l'indice resta da caricare.
+     * @param lezioni tutte le lezioni
+     * @param versione la versione letta prima della query
+     */
+    //@ requires lezioni != null;
+    public synchronized void carica(Collection<Lezione> lezioni, long versione) {
+        if (this.versione.get() != versione) {
+            return;
+        }
+        Map<String, List<LezioneSettimana>> perResto = new HashMap<>();
+        for (Lezione lezione : lezioni) {
+            LezioneSettimana voce = LezioneSettimana.di(lezione);
+            if (voce != null) {
+                for (String chiave : chiavi(lezione)) {
+                    perResto.computeIfAbsent(chiave, k -> new ArrayList<>()).add(voce);
+                }
+            }
+        }
+        settimane.clear();
+        for (Map.Entry<String, List<LezioneSettimana>> voce : perResto.entrySet()) {
+            LezioneSettimana[] elementi = voce.getValue().toArray(new LezioneSettimana[0]);
+            Arrays.sort(elementi, ORDINE);
+            settimane.put(voce.getKey(), new Settimana(elementi));
+        }
+        caricato = true;
+    }
+
+    /**
+     * Aggiunge all'indice una lezione salvata, nello stato in cui si trova al momento della chiamata.
+     * @param lezione la lezione
+     */
+    public synchronized void aggiungi(Lezione lezione) {
+        versione.incrementAndGet();
+        LezioneSettimana voce = LezioneSettimana.di(lezione);
+        if (!caricato || voce == null) {
+            return;
+        }
+        for (String chiave : chiavi(lezione)) {
+            settimane.merge(chiave, Settimana.VUOTA.con(voce), (presenti, nuova) -> presenti.con(voce));
+        }
+    }
+
+    /**
+     * Toglie dall'indice una lezione, nello stato in cui si trova al momento della chiamata.
+     * @param lezione la lezione rimossa, o la versione precedente di una lezione modificata
+     */
+    public synchronized void rimuovi(Lezione lezione) {
+        versione.incrementAndGet();
+        LezioneSettimana voce = LezioneSettimana.di(lezione);
+        if (!caricato || voce == null) {
+            return;
+        }
+        for (String chiave : chiavi(lezione)) {
+            Settimana presenti = settimane.get(chiave);
+            if (presenti != null) {
+                Settimana rimaste = presenti.senza(voce);
+                if (rimaste.lezioni.length == 0) {
+                    settimane.remove(chiave);
+                } else {
+                    settimane.put(chiave, rimaste);
+                }
+            }
+        }
+    }
+
+    /**
+     * Svuota l'indice, che verrà ricaricato alla prossima richiesta. Da usare quando cambiano aule, corsi o resti.
+     */
+    public synchronized void svuota() {
+        versione.incrementAndGet();
+        caricato = false;
+        settimane.clear();
+    }
+
+    /**
+     * Restituisce la lezione in corso e la prossima lezione di un resto in un semestre, per tutti gli anni.
+     * @param resto l'ID del resto
+     * @param semestre il semestre
+     * @param minuto il minuto della settimana, come in {@link LezioneSettimana#minuto}
+     * @return la lezione in corso e la prossima, entrambe null se il resto non ha lezioni nel semestre
+     */
+    public ProssimaLezione cerca(long resto, int semestre, int minuto) {
+        return cerca(resto, null, semestre, minuto);
+    }
+
+    /**
+     * Restituisce la lezione in corso e la prossima lezione di un resto in un semestre, per un anno didattico.
+     * @param resto l'ID del resto
+     * @param anno il nome dell'anno didattico, come in {@link AnnoDidattico#getAnno()}, oppure null per tutti gli anni
+     * @param semestre il semestre
+     * @param minuto il minuto della settimana, come in {@link LezioneSettimana#minuto}
+     * @return la lezione in corso e la prossima, entrambe null se il resto non ha lezioni dell'anno nel semestre
+     */
+    public ProssimaLezione cerca(long resto, String anno, int semestre, int minuto) {
+        Settimana presenti = settimane.get(chiave(resto, semestre, anno));
+        return (presenti != null ? presenti : Settimana.VUOTA).cerca(minuto);
+    }
+
+    /**
+     * Chiavi sotto cui indicizzare una lezione: quella del suo resto e semestre e, se il corso ha un anno
+     * didattico, quella dello stesso resto e semestre per l'anno.
+     */
+    private static List<String> chiavi(Lezione lezione) {
+        if (lezione == null || lezione.getResto() == null || lezione.getResto().getId() == null) {
+            return List.of();
+        }
+        long resto = lezione.getResto().getId();
+        String anno = anno(lezione);
+        if (anno == null) {
+            return List.of(chiave(resto, lezione.getSemestre(), null));
+        }
+        return List.of(chiave(resto, lezione.getSemestre(), null), chiave(resto, lezione.getSemestre(), anno));
+    }
+
+    private static String anno(Lezione lezione) {
+        Corso corso = lezione.getCorso();
+        if (corso == null || corso.getAnnoDidattico() == null) {
+            return null;
+        }
+        return corso.getAnnoDidattico().getAnno();
+    }
+
+    private static String chiave(long resto, int semestre, String anno) {
+        return anno == null ? resto + "|" + semestre : resto + "|" + semestre + "|" + anno;
+    }
+}
@@ -1,5 +1,7 @@
 package it.unisa.uniclass.orari.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
+import it.unisa.uniclass.common.exceptions.ConflittoLezioniException;
 import it.unisa.uniclass.orari.model.*;
 import it.unisa.uniclass.orari.service.dao.CorsoLaureaRemote;
 import it.unisa.uniclass.orari.service.dao.LezioneDAO;
@@ -12,8 +14,6 @@ import jakarta.transaction.Transactional;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import java.sql.Time;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -24,6 +24,11 @@ import java.util.List;
 public class LezioneService {
 
     private LezioneRemote lezioneDao;
+    private CacheOrari cacheOrari = CacheOrari.getIstanza();
+    private IndiceOccupazione indiceOccupazione = IndiceOccupazione.getIstanza();
+    private IndiceAuleLibere indiceAuleLibere = IndiceAuleLibere.getIstanza();
+    private IndiceProssimeLezioni indiceProssimeLezioni = IndiceProssimeLezioni.getIstanza();
+    private CanaleCluster canale = CanaleCluster.getIstanza();
 
     /**
      * Costruttore di default che esegue il lookup JNDI del DAO.
@@ -147,13 +152,81 @@ public class LezioneService {
         return lezioneDao.trovaLezioniDocente(nomeDocente);
     }
 
+    /**
+     * Trova le lezioni di un docente tramite la sua matricola.
+     *
+     * @param matricola La matricola del docente.
+     * @return Una lista di oggetti Lezione con corso, resto e aula.
+     */
+    public List<Lezione> trovaLezioniMatricolaDocente(String matricola) {
+        return lezioneDao.trovaLezioniMatricolaDocente(matricola);
+    }
+
+    /**
+     * Trova le lezioni di un giorno della settimana in un semestre.
+     *
+     * @param giorno Il giorno della settimana.
+     * @param semestre Il semestre.
+     * @return Una lista di oggetti Lezione con corso, resto, aula e docenti.
+     */
+    public List<Lezione> trovaLezioniGiornoSemestre(Giorno giorno, int semestre) {
+        return lezioneDao.trovaLezioniGiornoSemestre(giorno, semestre);
+    }
+
     /**
      * Aggiunge o aggiorna una lezione nel database.
+     * Il DAO confronta la lezione con le altre dello stesso giorno e semestre e la salva nella stessa transazione.
      *
      * @param lezione La lezione da aggiungere o aggiornare.
+     * @throws ConflittoLezioniException Se la lezione si sovrappone a un'altra nella stessa aula,
+     *         con lo stesso docente o per gli stessi studenti.
      */
     public void aggiungiLezione(Lezione lezione) {
-        lezioneDao.aggiungiLezione(lezione);
+        if (lezione == null) {
+            throw new IllegalArgumentException("Argument 'lezione' must not be null");
+        }
+        Lezione precedente = lezioneDao.aggiungiLezioneControllata(lezione);
+        if (precedente != null) {
+            // Una lezione spostata va tolta anche dall'orario e dall'aula in cui si trovava
+            rimuoviDaiIndici(precedente);
+        }
+        aggiungiAgliIndici(lezione);
+        canale.pubblica(CanaleCluster.ORARI, null);
+    }
+
+    /**
+     * Aggiunge o aggiorna in blocco le lezioni di un'importazione, ad esempio quelle di un semestre.
+     * Il DAO controlla le lezioni insieme a quelle già salvate negli stessi semestri con una sola scansione
+     * e le salva, nella stessa transazione, solo se nessuna è in conflitto.
+     *
+     * @param lezioni Le lezioni da aggiungere o aggiornare.
+     * @throws ConflittoLezioniException Se una delle lezioni si sovrappone a un'altra, importata o già salvata.
+     */
+    public void aggiungiLezioni(List<Lezione> lezioni) {
+        if (lezioni == null || lezioni.contains(null)) {
+            throw new IllegalArgumentException("Argument 'lezioni' must not be null or contain null");
+        }
+        for (Lezione precedente : lezioneDao.aggiungiLezioniControllate(lezioni)) {
+            rimuoviDaiIndici(precedente);
+        }
+        for (Lezione lezione : lezioni) {
+            aggiungiAgliIndici(lezione);
+        }
+        canale.pubblica(CanaleCluster.ORARI, null);
+    }
+
+    private void rimuoviDaiIndici(Lezione precedente) {
+        cacheOrari.invalida(precedente);
+        indiceOccupazione.rimuovi(precedente);
+        indiceAuleLibere.rimuovi(precedente);
+        indiceProssimeLezioni.rimuovi(precedente);
+    }
+
+    private void aggiungiAgliIndici(Lezione lezione) {
+        cacheOrari.invalida(lezione);
+        indiceOccupazione.aggiungi(lezione);
+        indiceAuleLibere.aggiungi(lezione);
+        indiceProssimeLezioni.aggiungi(lezione);
     }
 
     /**
@@ -163,5 +236,46 @@ public class LezioneService {
      */
     public void rimuoviLezione(Lezione lezione) {
         lezioneDao.rimuoviLezione(lezione);
+        cacheOrari.invalida(lezione);
+        indiceOccupazione.rimuovi(lezione);
+        indiceAuleLibere.rimuovi(lezione);
+        indiceProssimeLezioni.rimuovi(lezione);
+        canale.pubblica(CanaleCluster.ORARI, null);
+    }
+
+    /**
+     * Setter per iniettare la cache degli orari (utile per i test).
+     *
+     * @param cacheOrari La cache da aggiornare a ogni scrittura.
+     */
+    public void setCacheOrari(CacheOrari cacheOrari) {
+        this.cacheOrari = cacheOrari;
+    }
+
+    /**
+     * Setter per iniettare l'indice di occupazione delle aule (utile per i test).
+     *
+     * @param indiceOccupazione L'indice da aggiornare a ogni scrittura.
+     */
+    public void setIndiceOccupazione(IndiceOccupazione indiceOccupazione) {
+        this.indiceOccupazione = indiceOccupazione;
+    }
+
+    /**
+     * Setter per iniettare l'indice delle aule libere (utile per i test).
+     *
+     * @param indiceAuleLibere L'indice da aggiornare a ogni scrittura.
+     */
+    public void setIndiceAuleLibere(IndiceAuleLibere indiceAuleLibere) {
+        this.indiceAuleLibere = indiceAuleLibere;
+    }
+
+    /**
+     * Setter per iniettare l'indice delle prossime lezioni (utile per i test).
+     *
+     * @param indiceProssimeLezioni L'indice da aggiornare a ogni scrittura.
+     */
+    public void setIndiceProssimeLezioni(IndiceProssimeLezioni indiceProssimeLezioni) {
+        this.indiceProssimeLezioni = indiceProssimeLezioni;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.OccupazioneAula;
+import jakarta.ejb.Stateless;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe di servizio per l'occupazione delle aule.
+ * Risponde dall'{@link IndiceOccupazione} condiviso, caricandolo con tutte le lezioni alla prima richiesta.
+ */
+@Stateless
+public class OccupazioneService {
+
+    private LezioneService lezioneService;
+    private IndiceOccupazione indice = IndiceOccupazione.getIstanza();
+
+    /**
+     * Costruttore di default: il service delle lezioni esegue il lookup JNDI del DAO.
+     */
+    public OccupazioneService() {
+        this(new LezioneService());
+    }
+
+    /**
+     * Costruttore per uso interno e test.
+     * @param lezioneService il service delle lezioni
+     */
+    public OccupazioneService(LezioneService lezioneService) {
+        this.lezioneService = lezioneService;
+    }
+
+    /**
+     * Restituisce lo stato delle aule in un certo momento, con le lezioni della settimana di ognuna.
+     *
+     * @param aule Le aule, ad esempio quelle di un edificio.
+     * @param adesso Il momento in cui valutare l'occupazione.
+     * @return Lo stato di ogni aula, nello stesso ordine.
+     */
+    public List<OccupazioneAula> trovaOccupazione(List<Aula> aule, LocalDateTime adesso) {
+        IndiceOccupazione attuale = indice;
+        if (!indice.isCaricato()) {
+            long versione = indice.versione();
+            List<Lezione> lezioni = lezioneService.trovaTutte();
+            indice.carica(lezioni, versione);
+            if (!indice.isCaricato()) {
+                // Una lezione è cambiata durante il caricamento: si risponde con le lezioni appena lette
+                attuale = new IndiceOccupazione();
+                attuale.carica(lezioni, attuale.versione());
+            }
+        }
+        Giorno giorno = Giorno.di(adesso.getDayOfWeek());
+        LocalTime ora = adesso.toLocalTime();
+        List<OccupazioneAula> occupazione = new ArrayList<>(aule.size());
+        for (Aula aula : aule) {
+            occupazione.add(new OccupazioneAula(aula.getNome(), attuale.occupata(aula.getNome(), giorno, ora), attuale.fasce(aula.getNome())));
+        }
+        return occupazione;
+    }
+
+    /**
+     * Setter per iniettare l'indice di occupazione (utile per i test).
+     *
+     * @param indice L'indice da usare.
+     */
+    public void setIndice(IndiceOccupazione indice) {
+        this.indice = indice;
+    }
+}
@@ -0,0 +1,115 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Orario;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import jakarta.ejb.Stateless;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Classe di servizio per la consultazione degli orari.
+ * Risolve corso di laurea, resto e anno didattico e ne restituisce le lezioni ordinate,
+ * passando per la {@link CacheOrari} condivisa.
+ */
+@Stateless
+public class OrarioService {
+
+    private CorsoLaureaService corsoLaureaService;
+    private RestoService restoService;
+    private AnnoDidatticoService annoDidatticoService;
+    private LezioneService lezioneService;
+    private CacheOrari cache = CacheOrari.getIstanza();
+
+    /**
+     * Costruttore di default: i service eseguono il lookup JNDI dei rispettivi DAO.
+     */
+    public OrarioService() {
+        this(new CorsoLaureaService(), new RestoService(), new AnnoDidatticoService(), new LezioneService());
+    }
+
+    /**
+     * Costruttore per uso interno e test.
+     * @param corsoLaureaService il service dei corsi di laurea
+     * @param restoService il service dei resti
+     * @param annoDidatticoService il service degli anni didattici
+     * @param lezioneService il service delle lezioni
+     */
+    public OrarioService(CorsoLaureaService corsoLaureaService, RestoService restoService,
+                         AnnoDidatticoService annoDidatticoService, LezioneService lezioneService) {
+        this.corsoLaureaService = corsoLaureaService;
+        this.restoService = restoService;
+        this.annoDidatticoService = annoDidatticoService;
+        this.lezioneService = lezioneService;
+    }
+
+    /**
+     * Trova l'orario di un resto di un corso di laurea in un anno didattico.
+     *
+     * @param nomeCorsoLaurea Il nome del corso di laurea.
+     * @param nomeResto Il nome del resto.
+     * @param nomeAnno Il nome dell'anno didattico.
+     * @return L'orario con le lezioni ordinate, oppure null se corso di laurea, resto o anno non esistono.
+     */
+    public Orario trovaOrario(String nomeCorsoLaurea, String nomeResto, String nomeAnno) {
+        Orario orario = cache.trova(nomeCorsoLaurea, nomeResto, nomeAnno);
+        if (orario != null) {
+            return orario;
+        }
+        long versione = cache.versione();
+        long inizio = System.nanoTime();
+        CorsoLaurea corsoLaurea = corsoLaureaService.trovaCorsoLaurea(nomeCorsoLaurea);
+        if (corsoLaurea == null) {
+            return null;
+        }
+        Resto resto = restoService.trovaRestoNomeCorso(nomeResto, corsoLaurea);
+        AnnoDidattico anno = annoDidatticoService.trovaTuttiCorsoLaureaNome(corsoLaurea.getId(), nomeAnno);
+        if (resto == null || anno == null) {
+            return null;
+        }
+        orario = costruisci(corsoLaurea, resto, anno);
+        cache.carica(nomeCorsoLaurea, nomeResto, nomeAnno, orario, versione, System.nanoTime() - inizio);
+        return orario;
+    }
+
+    /**
+     * Costruisce e memorizza in cache gli orari di tutti i resti e gli anni di tutti i corsi di laurea.
+     *
+     * @return Il numero di orari caricati.
+     */
+    public int precarica() {
+        int caricati = 0;
+        for (CorsoLaurea corsoLaurea : corsoLaureaService.trovaTutti(PianoCaricamento.ORARIO)) {
+            for (Resto resto : corsoLaurea.getResti()) {
+                for (AnnoDidattico anno : corsoLaurea.getAnniDidattici()) {
+                    long versione = cache.versione();
+                    long inizio = System.nanoTime();
+                    Orario orario = costruisci(corsoLaurea, resto, anno);
+                    cache.carica(corsoLaurea.getNome(), resto.getNome(), anno.getAnno(), orario, versione, System.nanoTime() - inizio);
+                    caricati++;
+                }
+            }
+        }
+        return caricati;
+    }
+
+    private Orario costruisci(CorsoLaurea corsoLaurea, Resto resto, AnnoDidattico anno) {
+        List<Lezione> lezioni = new ArrayList<>(lezioneService.trovaLezioniCorsoLaureaRestoAnno(corsoLaurea.getId(), resto.getId(), anno.getId()));
+        lezioni.sort(Orario.ORDINE);
+        return new Orario(corsoLaurea, resto, anno, Collections.unmodifiableList(lezioni));
+    }
+
+    /**
+     * Setter per iniettare la cache degli orari (utile per i test).
+     *
+     * @param cache La cache da usare.
+     */
+    public void setCache(CacheOrari cache) {
+        this.cache = cache;
+    }
+}
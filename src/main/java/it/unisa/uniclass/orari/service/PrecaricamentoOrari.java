@@ -0,0 +1,51 @@
+package it.unisa.uniclass.orari.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Precarica all'avvio la {@link CacheOrari}, così le prime consultazioni del mattino
+ * non devono costruire gli orari dal database.
+ */
+@Singleton
+@Startup
+@DependsOn("DatabasePopulator")
+public class PrecaricamentoOrari {
+
+    private static final Logger LOGGER = Logger.getLogger(PrecaricamentoOrari.class.getName());
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private OrarioService orarioService;
+
+    /**
+     * Setter per iniettare l'OrarioService (utile per i test).
+     * @param orarioService il service da iniettare
+     */
+    //@ requires orarioService != null;
+    //@ ensures this.orarioService == orarioService;
+    public void setOrarioService(OrarioService orarioService) {
+        this.orarioService = orarioService;
+    }
+
+    /**
+     * Costruisce tutti gli orari. Un errore non blocca l'avvio: gli orari mancanti vengono costruiti alla prima richiesta.
+     */
+    @PostConstruct
+    public void precarica() {
+        long inizio = System.nanoTime();
+        try {
+            int caricati = orarioService.precarica();
+            LOGGER.info("Precaricati " + caricati + " orari in " + (System.nanoTime() - inizio) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Precaricamento degli orari interrotto", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package it.unisa.uniclass.orari.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Precarica all'avvio la {@link CacheRiferimenti}, così la home e le pagine delle aule
+ * non leggono corsi di laurea, anni, resti e aule dal database.
+ */
+@Singleton
+@Startup
+@DependsOn("DatabasePopulator")
+public class PrecaricamentoRiferimenti {
+
+    private static final Logger LOGGER = Logger.getLogger(PrecaricamentoRiferimenti.class.getName());
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private RiferimentiService riferimentiService;
+
+    /**
+     * Setter per iniettare il RiferimentiService (utile per i test).
+     * @param riferimentiService il service da iniettare
+     */
+    //@ requires riferimentiService != null;
+    //@ ensures this.riferimentiService == riferimentiService;
+    public void setRiferimentiService(RiferimentiService riferimentiService) {
+        this.riferimentiService = riferimentiService;
+    }
+
+    /**
+     * Carica tutti i dati di riferimento. Un errore non blocca l'avvio: i dati mancanti vengono caricati alla prima richiesta.
+     */
+    @PostConstruct
+    public void precarica() {
+        long inizio = System.nanoTime();
+        try {
+            int caricati = riferimentiService.precarica();
+            LOGGER.info("Precaricati " + caricati + " dati di riferimento in " + (System.nanoTime() - inizio) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Precaricamento dei dati di riferimento interrotto", e);
+        }
+    }
+}
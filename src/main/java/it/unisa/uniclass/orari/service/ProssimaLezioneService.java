@@ -0,0 +1,95 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.LezioneSettimana;
+import it.unisa.uniclass.orari.model.ProssimaLezione;
+import it.unisa.uniclass.utenti.model.Studente;
+import jakarta.ejb.Stateless;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Classe di servizio per la lezione in corso e la prossima lezione di uno studente.
+ * Risponde dall'{@link IndiceProssimeLezioni} condiviso, caricandolo con tutte le lezioni alla prima richiesta:
+ * le richieste successive non interrogano il database.
+ *
+ * Lo studente non ha un anno didattico esplicito: viene ricavato dall'anno accademico dell'iscrizione,
+ * con i nomi "Anno 1", "Anno 2", ... di {@link it.unisa.uniclass.orari.model.AnnoDidattico}. Senza data di
+ * iscrizione si considerano le lezioni di tutti gli anni del resto. Uno studente fuori corso non trova lezioni
+ * del proprio anno.
+ */
+@Stateless
+public class ProssimaLezioneService {
+
+    private LezioneService lezioneService;
+    private IndiceProssimeLezioni indice = IndiceProssimeLezioni.getIstanza();
+
+    /**
+     * Costruttore di default: il service delle lezioni esegue il lookup JNDI del DAO.
+     */
+    public ProssimaLezioneService() {
+        this(new LezioneService());
+    }
+
+    /**
+     * Costruttore per uso interno e test.
+     * @param lezioneService il service delle lezioni
+     */
+    public ProssimaLezioneService(LezioneService lezioneService) {
+        this.lezioneService = lezioneService;
+    }
+
+    /**
+     * Restituisce la lezione in corso e la prossima lezione del resto dello studente, nel semestre in corso.
+     *
+     * @param studente Lo studente, con il suo resto.
+     * @param adesso Il momento in cui cercare.
+     * @return La lezione in corso e la prossima, oppure null se lo studente non ha un resto.
+     */
+    public ProssimaLezione trovaProssimaLezione(Studente studente, LocalDateTime adesso) {
+        if (studente == null || studente.getResto() == null || studente.getResto().getId() == null) {
+            return null;
+        }
+        IndiceProssimeLezioni attuale = indice;
+        if (!indice.isCaricato()) {
+            long versione = indice.versione();
+            List<Lezione> lezioni = lezioneService.trovaTutte();
+            indice.carica(lezioni, versione);
+            if (!indice.isCaricato()) {
+                // Una lezione è cambiata durante il caricamento: si risponde con le lezioni appena lette
+                attuale = new IndiceProssimeLezioni();
+                attuale.carica(lezioni, attuale.versione());
+            }
+        }
+        int minuto = LezioneSettimana.minuto(Giorno.di(adesso.getDayOfWeek()), adesso.toLocalTime());
+        return attuale.cerca(studente.getResto().getId(), annoDidattico(studente, adesso.toLocalDate()),
+                CalendarioIcs.semestre(adesso.toLocalDate()), minuto);
+    }
+
+    /**
+     * Restituisce l'anno didattico dello studente, contando gli anni accademici dall'iscrizione.
+     *
+     * @param studente Lo studente.
+     * @param oggi La data corrente.
+     * @return Il nome dell'anno didattico, oppure null se lo studente non ha una data di iscrizione.
+     */
+    public static String annoDidattico(Studente studente, LocalDate oggi) {
+        if (studente.getIscrizione() == null) {
+            return null;
+        }
+        int anni = CalendarioIcs.annoAccademico(oggi) - CalendarioIcs.annoAccademico(studente.getIscrizione());
+        return "Anno " + (Math.max(anni, 0) + 1);
+    }
+
+    /**
+     * Setter per iniettare l'indice delle prossime lezioni (utile per i test).
+     *
+     * @param indice L'indice da usare.
+     */
+    public void setIndice(IndiceProssimeLezioni indice) {
+        this.indice = indice;
+    }
+}
@@ -1,6 +1,8 @@
 package it.unisa.uniclass.orari.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import it.unisa.uniclass.orari.model.Resto;
 import it.unisa.uniclass.orari.service.dao.RestoRemote;
 import jakarta.ejb.Stateless;
@@ -60,6 +62,17 @@ public class RestoService {
         return restoDao.trovaRestiCorsoLaurea(nomeCorsoLaurea);
     }
 
+    /**
+     * Trova i resti di un corso di laurea caricando le relazioni indicate dal piano.
+     *
+     * @param nomeCorsoLaurea Il nome del corso di laurea di cui trovare i resti.
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di oggetti Resto associati al corso di laurea.
+     */
+    public List<Resto> trovaRestiCorsoLaurea(String nomeCorsoLaurea, PianoCaricamento piano) {
+        return restoDao.trovaRestiCorsoLaurea(nomeCorsoLaurea, piano);
+    }
+
     /**
      * Trova i resti nel database tramite il nome del resto.
      *
@@ -84,6 +97,21 @@ public class RestoService {
         }
     }
 
+    /**
+     * Trova un resto tramite il suo ID caricando le relazioni indicate dal piano.
+     *
+     * @param id L'ID del resto da cercare.
+     * @param piano Il piano di caricamento da applicare.
+     * @return L'oggetto Resto corrispondente all'ID.
+     */
+    public Resto trovaResto(long id, PianoCaricamento piano) {
+        try {
+            return restoDao.trovaResto(id, piano);
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
     /**
      * Trova un resto nel database associato a un corso di laurea tramite il nome del resto e del corso.
      *
@@ -122,6 +150,12 @@ public class RestoService {
     public void aggiungiResto(Resto resto) {
         if (resto != null) {
             restoDao.aggiungiResto(resto);
+            CacheOrari.getIstanza().invalida(null, resto.getId(), null);
+            CacheCatalogo.getIstanza().invalida();
+            IndiceOccupazione.getIstanza().svuota();
+            IndiceProssimeLezioni.getIstanza().svuota();
+            CacheRiferimenti.getIstanza().getResti().aggiorna(resto);
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
         }
     }
 
@@ -133,6 +167,12 @@ public class RestoService {
     public void rimuoviResto(Resto resto) {
         if (resto != null) {
             restoDao.rimuoviResto(resto);
+            CacheOrari.getIstanza().invalida(null, resto.getId(), null);
+            CacheCatalogo.getIstanza().invalida();
+            IndiceOccupazione.getIstanza().svuota();
+            IndiceProssimeLezioni.getIstanza().svuota();
+            CacheRiferimenti.getIstanza().getResti().rimuovi(resto);
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.ORARI, null);
         }
     }
 }
\ No newline at end of file
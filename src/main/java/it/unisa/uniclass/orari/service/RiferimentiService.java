@@ -0,0 +1,221 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.CacheRiferimenti.Istantanea;
+import it.unisa.uniclass.orari.service.CacheRiferimenti.Tabella;
+import jakarta.ejb.Stateless;
+
+import javax.naming.NamingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Classe di servizio per i dati di riferimento letti da quasi ogni pagina: corsi di laurea, anni didattici,
+ * aule e resti. Risponde dalla {@link CacheRiferimenti} condivisa e legge dal database solo la prima volta
+ * o dopo una scrittura che ha scartato un'istantanea.
+ */
+@Stateless
+public class RiferimentiService {
+
+    private CorsoLaureaService corsoLaureaService;
+    private AnnoDidatticoService annoDidatticoService;
+    private AulaService aulaService;
+    private CacheRiferimenti cache = CacheRiferimenti.getIstanza();
+
+    /**
+     * Costruttore di default: i service eseguono il lookup JNDI dei DAO.
+     *
+     * @throws NamingException Se si verifica un errore durante il lookup JNDI.
+     */
+    public RiferimentiService() throws NamingException {
+        this(new CorsoLaureaService(), new AnnoDidatticoService(), new AulaService());
+    }
+
+    /**
+     * Costruttore per uso interno e test.
+     * @param corsoLaureaService il service dei corsi di laurea
+     * @param annoDidatticoService il service degli anni didattici
+     * @param aulaService il service delle aule
+     */
+    public RiferimentiService(CorsoLaureaService corsoLaureaService, AnnoDidatticoService annoDidatticoService,
+                              AulaService aulaService) {
+        this.corsoLaureaService = corsoLaureaService;
+        this.annoDidatticoService = annoDidatticoService;
+        this.aulaService = aulaService;
+    }
+
+    /**
+     * Recupera tutti i corsi di laurea.
+     *
+     * @return Una lista immutabile di tutti i corsi di laurea.
+     */
+    public List<CorsoLaurea> trovaCorsiLaurea() {
+        return corsiLaurea().tutti();
+    }
+
+    /**
+     * Trova un corso di laurea tramite il suo nome.
+     *
+     * @param nome Il nome del corso di laurea.
+     * @return Il corso di laurea, oppure null se non esiste.
+     */
+    public CorsoLaurea trovaCorsoLaurea(String nome) {
+        return corsiLaurea().trova(nome);
+    }
+
+    /**
+     * Trova un corso di laurea tramite il suo ID.
+     *
+     * @param id L'ID del corso di laurea.
+     * @return Il corso di laurea, oppure null se non esiste.
+     */
+    public CorsoLaurea trovaCorsoLaurea(long id) {
+        return corsiLaurea().trova(id);
+    }
+
+    /**
+     * Trova gli anni didattici di un corso di laurea.
+     *
+     * @param nomeCorsoLaurea Il nome del corso di laurea.
+     * @return Una lista immutabile degli anni del corso, vuota se il corso non esiste.
+     */
+    public List<AnnoDidattico> trovaAnniCorsoLaurea(String nomeCorsoLaurea) {
+        return anniDidattici().gruppo(nomeCorsoLaurea);
+    }
+
+    /**
+     * Trova un anno didattico tramite il suo ID.
+     *
+     * @param id L'ID dell'anno didattico.
+     * @return L'anno didattico, oppure null se non esiste.
+     */
+    public AnnoDidattico trovaAnno(int id) {
+        return anniDidattici().trova(id);
+    }
+
+    /**
+     * Trova i resti di un corso di laurea.
+     *
+     * @param nomeCorsoLaurea Il nome del corso di laurea.
+     * @return Una lista immutabile dei resti del corso, vuota se il corso non esiste.
+     */
+    public List<Resto> trovaRestiCorsoLaurea(String nomeCorsoLaurea) {
+        return resti().gruppo(nomeCorsoLaurea);
+    }
+
+    /**
+     * Trova un resto tramite il suo nome e quello del corso di laurea.
+     *
+     * @param nomeResto Il nome del resto.
+     * @param nomeCorsoLaurea Il nome del corso di laurea.
+     * @return Il resto, oppure null se non esiste.
+     */
+    public Resto trovaResto(String nomeResto, String nomeCorsoLaurea) {
+        return resti().trova(CacheRiferimenti.chiaveResto(nomeCorsoLaurea, nomeResto));
+    }
+
+    /**
+     * Trova un resto tramite il suo ID.
+     *
+     * @param id L'ID del resto.
+     * @return Il resto, oppure null se non esiste.
+     */
+    public Resto trovaResto(long id) {
+        return resti().trova(id);
+    }
+
+    /**
+     * Recupera tutte le aule.
+     *
+     * @return Una lista immutabile di tutte le aule.
+     */
+    public List<Aula> trovaAule() {
+        return aule().tutti();
+    }
+
+    /**
+     * Trova un'aula tramite il suo nome.
+     *
+     * @param nome Il nome dell'aula.
+     * @return L'aula, oppure null se non esiste.
+     */
+    public Aula trovaAula(String nome) {
+        return aule().trova(nome);
+    }
+
+    /**
+     * Trova le aule di un edificio.
+     *
+     * @param edificio Il nome dell'edificio.
+     * @return Una lista immutabile delle aule dell'edificio, vuota se l'edificio non esiste.
+     */
+    public List<Aula> trovaAuleEdificio(String edificio) {
+        return aule().gruppo(edificio);
+    }
+
+    /**
+     * Recupera tutti gli edifici, in ordine alfabetico.
+     *
+     * @return Una lista immutabile dei nomi degli edifici.
+     */
+    public List<String> trovaEdifici() {
+        return List.copyOf(aule().perGruppo().keySet());
+    }
+
+    /**
+     * Carica tutte le istantanee non ancora in cache.
+     *
+     * @return Il numero di elementi in cache.
+     */
+    public int precarica() {
+        return corsiLaurea().tutti().size() + anniDidattici().tutti().size()
+                + resti().tutti().size() + aule().tutti().size();
+    }
+
+    /**
+     * Setter per iniettare la cache dei dati di riferimento (utile per i test).
+     *
+     * @param cache La cache da usare.
+     */
+    public void setCache(CacheRiferimenti cache) {
+        this.cache = cache;
+    }
+
+    private Istantanea<CorsoLaurea> corsiLaurea() {
+        return istantanea(cache.getCorsiLaurea(), () -> corsoLaureaService.trovaTutti());
+    }
+
+    private Istantanea<AnnoDidattico> anniDidattici() {
+        // Il piano dell'orario porta i corsi di laurea di ogni anno, che ne sono i gruppi
+        return istantanea(cache.getAnniDidattici(), () -> annoDidatticoService.trovaTutti(PianoCaricamento.ORARIO));
+    }
+
+    private Istantanea<Resto> resti() {
+        // I resti si leggono dai corsi di laurea: il piano dell'orario li porta tutti con una query
+        return istantanea(cache.getResti(), () -> {
+            List<Resto> resti = new ArrayList<>();
+            for (CorsoLaurea corsoLaurea : corsoLaureaService.trovaTutti(PianoCaricamento.ORARIO)) {
+                resti.addAll(corsoLaurea.getResti());
+            }
+            return resti;
+        });
+    }
+
+    private Istantanea<Aula> aule() {
+        return istantanea(cache.getAule(), () -> aulaService.trovaTutte());
+    }
+
+    private static <T> Istantanea<T> istantanea(Tabella<T> tabella, Supplier<List<T>> caricamento) {
+        Istantanea<T> istantanea = tabella.trova();
+        if (istantanea != null) {
+            return istantanea;
+        }
+        long versione = tabella.versione();
+        return tabella.carica(caricamento.get(), versione);
+    }
+}
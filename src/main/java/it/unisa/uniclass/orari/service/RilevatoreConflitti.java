@@ -0,0 +1,174 @@
+package it.unisa.uniclass.orari.service;
+
+import it.unisa.uniclass.orari.model.Conflitto;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.utenti.model.Docente;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Rilevamento delle sovrapposizioni tra lezioni con una scansione a linea mobile.
+ * Ogni lezione produce un intervallo per la sua aula, uno per ogni docente e uno per il suo gruppo di studenti,
+ * con chiave la risorsa, il semestre e il giorno. Gli intervalli vengono ordinati una volta sola per chiave e ora
+ * di inizio e scorsi tenendo le lezioni ancora in corso in una coda per ora di fine: il costo è O(n log n)
+ * più il numero di conflitti trovati, invece di confrontare tutte le coppie.
+ */
+public final class RilevatoreConflitti {
+
+    private RilevatoreConflitti() {
+    }
+
+    private record Intervallo(String chiave, Conflitto.Tipo tipo, String risorsa, LocalTime inizio, LocalTime fine, Lezione lezione) {
+    }
+
+    private static final Comparator<Intervallo> ORDINE = Comparator.comparing(Intervallo::chiave)
+            .thenComparing(Intervallo::inizio)
+            .thenComparing(Intervallo::fine);
+
+    /**
+     * Trova tutti i conflitti tra le lezioni indicate, ad esempio quelle di un semestre da importare.
+     * Due lezioni che si toccano (una finisce quando l'altra inizia) non sono in conflitto.
+     * @param lezioni le lezioni da confrontare
+     * @return i conflitti, per risorsa e ora di inizio
+     */
+    //@ requires lezioni != null;
+    //@ ensures \result != null;
+    public static List<Conflitto> rileva(Collection<Lezione> lezioni) {
+        List<Intervallo> intervalli = new ArrayList<>();
+        for (Lezione lezione : lezioni) {
+            intervalli(lezione, intervalli);
+        }
+        intervalli.sort(ORDINE);
+
+        List<Conflitto> conflitti = new ArrayList<>();
+        PriorityQueue<Intervallo> inCorso = new PriorityQueue<>(Comparator.comparing(Intervallo::fine));
+        String chiave = null;
+        for (Intervallo intervallo : intervalli) {
+            if (!intervallo.chiave().equals(chiave)) {
+                inCorso.clear();
+                chiave = intervallo.chiave();
+            }
+            while (!inCorso.isEmpty() && !inCorso.peek().fine().isAfter(intervallo.inizio())) {
+                inCorso.poll();
+            }
+            for (Intervallo attivo : inCorso) {
+                conflitti.add(new Conflitto(intervallo.tipo(), intervallo.risorsa(), attivo.lezione(), intervallo.lezione()));
+            }
+            inCorso.add(intervallo);
+        }
+        return conflitti;
+    }
+
+    /**
+     * Trova i conflitti di una lezione da salvare con le altre lezioni del suo giorno.
+     * Una lezione già salvata con lo stesso ID viene sostituita da quella nuova.
+     * @param lezione la lezione da salvare
+     * @param giornata le lezioni salvate dello stesso giorno e semestre
+     * @return i conflitti che coinvolgono la lezione
+     */
+    //@ requires lezione != null && giornata != null;
+    //@ ensures \result != null;
+    public static List<Conflitto> rileva(Lezione lezione, Collection<Lezione> giornata) {
+        List<Lezione> lezioni = new ArrayList<>(giornata.size() + 1);
+        for (Lezione salvata : giornata) {
+            if (!stessaLezione(salvata, lezione)) {
+                lezioni.add(salvata);
+            }
+        }
+        lezioni.add(lezione);
+        List<Conflitto> conflitti = new ArrayList<>();
+        for (Conflitto conflitto : rileva(lezioni)) {
+            if (conflitto.coinvolge(lezione)) {
+                conflitti.add(conflitto);
+            }
+        }
+        return conflitti;
+    }
+
+    /**
+     * Trova i conflitti delle lezioni di un'importazione, tra loro e con quelle già salvate.
+     * Le lezioni salvate con l'ID di una lezione importata vengono sostituite da quella importata.
+     * @param lezioni le lezioni da salvare
+     * @param salvate le lezioni salvate degli stessi semestri
+     * @return i conflitti che coinvolgono almeno una lezione importata
+     */
+    //@ requires lezioni != null && salvate != null;
+    //@ ensures \result != null;
+    public static List<Conflitto> rileva(List<Lezione> lezioni, Collection<Lezione> salvate) {
+        Set<Long> aggiornate = new HashSet<>();
+        for (Lezione lezione : lezioni) {
+            if (lezione.getId() != null) {
+                aggiornate.add(lezione.getId());
+            }
+        }
+        List<Lezione> tutte = new ArrayList<>(salvate.size() + lezioni.size());
+        for (Lezione salvata : salvate) {
+            if (!aggiornate.contains(salvata.getId())) {
+                tutte.add(salvata);
+            }
+        }
+        tutte.addAll(lezioni);
+        Set<Lezione> importate = Collections.newSetFromMap(new IdentityHashMap<>());
+        importate.addAll(lezioni);
+        List<Conflitto> conflitti = new ArrayList<>();
+        for (Conflitto conflitto : rileva(tutte)) {
+            if (importate.contains(conflitto.prima()) || importate.contains(conflitto.seconda())) {
+                conflitti.add(conflitto);
+            }
+        }
+        return conflitti;
+    }
+
+    private static boolean stessaLezione(Lezione salvata, Lezione lezione) {
+        return salvata == lezione || (lezione.getId() != null && lezione.getId().equals(salvata.getId()));
+    }
+
+    private static void intervalli(Lezione lezione, List<Intervallo> intervalli) {
+        if (lezione == null || lezione.getGiorno() == null || lezione.getOraInizio() == null || lezione.getOraFine() == null) {
+            return;
+        }
+        LocalTime inizio = lezione.getOraInizio().toLocalTime();
+        LocalTime fine = lezione.getOraFine().toLocalTime();
+        if (!inizio.isBefore(fine)) {
+            return;
+        }
+        String quando = "|" + lezione.getSemestre() + "|" + lezione.getGiorno();
+        if (lezione.getAula() != null && lezione.getAula().getNome() != null) {
+            String aula = lezione.getAula().getNome();
+            intervalli.add(new Intervallo("A|" + aula + quando, Conflitto.Tipo.AULA, aula, inizio, fine, lezione));
+        }
+        if (lezione.getDocenti() != null) {
+            for (Docente docente : lezione.getDocenti()) {
+                if (docente != null && docente.getMatricola() != null) {
+                    String matricola = docente.getMatricola();
+                    intervalli.add(new Intervallo("D|" + matricola + quando, Conflitto.Tipo.DOCENTE, matricola, inizio, fine, lezione));
+                }
+            }
+        }
+        String studenti = studenti(lezione);
+        if (studenti != null) {
+            intervalli.add(new Intervallo("S|" + studenti + quando, Conflitto.Tipo.STUDENTI, studenti, inizio, fine, lezione));
+        }
+    }
+
+    /**
+     * Gruppo di studenti che segue la lezione: corso di laurea, resto e anno.
+     */
+    private static String studenti(Lezione lezione) {
+        Corso corso = lezione.getCorso();
+        if (lezione.getResto() == null || corso == null || corso.getCorsoLaurea() == null || corso.getAnnoDidattico() == null) {
+            return null;
+        }
+        return corso.getCorsoLaurea().getNome() + " " + lezione.getResto().getNome() + " " + corso.getAnnoDidattico().getAnno();
+    }
+}
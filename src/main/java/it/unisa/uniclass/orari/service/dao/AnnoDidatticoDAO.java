@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.*;
 
@@ -73,6 +74,26 @@ public class AnnoDidatticoDAO implements AnnoDidatticoRemote {
         return query.getResultList();
     }
 
+    /**
+     * Recupera tutti gli anni didattici caricando le relazioni indicate dal piano.
+     *
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di tutti gli anni didattici.
+     */
+    /*@
+      @ also
+      @ public normal_behavior
+      @ requires piano != null;
+      @ ensures true;
+      @*/
+    @Override
+    public List<AnnoDidattico> trovaTutti(PianoCaricamento piano) {
+        //@   assume emUniClass != null;
+        TypedQuery<AnnoDidattico> query = emUniClass.createNamedQuery(AnnoDidattico.TROVA_TUTTI, AnnoDidattico.class);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(AnnoDidattico.class)));
+        return query.getResultList();
+    }
+
     /**
      * Trova tutti gli anni didattici associati a un corso di laurea specifico.
      *
@@ -93,6 +114,28 @@ public class AnnoDidatticoDAO implements AnnoDidatticoRemote {
         return query.getResultList();
     }
 
+    /**
+     * Trova gli anni didattici di un corso di laurea caricando le relazioni indicate dal piano.
+     *
+     * @param id L'ID del corso di laurea.
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di anni didattici associati al corso di laurea specificato.
+     */
+    /*@
+      @ also
+      @ public normal_behavior
+      @ requires id > 0 && piano != null;
+      @ ensures true;
+      @*/
+    @Override
+    public List<AnnoDidattico> trovaTuttiCorsoLaurea(long id, PianoCaricamento piano) {
+        //@   assume emUniClass != null;
+        TypedQuery<AnnoDidattico> query = emUniClass.createNamedQuery(AnnoDidattico.TROVA_ANNI_CORSOLAUREA, AnnoDidattico.class);
+        query.setParameter("corsoId", id);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(AnnoDidattico.class)));
+        return query.getResultList();
+    }
+
     /**
      * Trova un anno didattico specifico associato a un corso di laurea.
      *
@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import jakarta.ejb.Remote;
 
 import java.util.List;
@@ -11,7 +12,9 @@ public interface AnnoDidatticoRemote {
     public List<AnnoDidattico> trovaAnno(String anno);
     public AnnoDidattico trovaId(int id);
     public List<AnnoDidattico> trovaTutti();
+    public List<AnnoDidattico> trovaTutti(PianoCaricamento piano);
     public List<AnnoDidattico> trovaTuttiCorsoLaurea(long id);
+    public List<AnnoDidattico> trovaTuttiCorsoLaurea(long id, PianoCaricamento piano);
     public AnnoDidattico trovaCorsoLaureaNome(long id, String anno);
     public void aggiungiAnno(AnnoDidattico annoDidattico);
     public void rimuoviAnno(AnnoDidattico annoDidattico);
@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.*;
 
@@ -53,6 +54,19 @@ public class AulaDAO implements AulaRemote {
         return query.getResultList();
     }
 
+    /**
+     * Recupera tutte le aule caricando le relazioni indicate dal piano.
+     *
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di tutte le aule.
+     */
+    @Override
+    public List<Aula> trovaTutte(PianoCaricamento piano) {
+        TypedQuery<Aula> query = emUniClass.createNamedQuery(Aula.TROVA_TUTTE, Aula.class);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(Aula.class)));
+        return query.getResultList();
+    }
+
     /**
      * Trova tutte le aule situate in un determinato edificio.
      *
@@ -66,6 +80,21 @@ public class AulaDAO implements AulaRemote {
         return query.getResultList();
     }
 
+    /**
+     * Trova le aule di un edificio caricando le relazioni indicate dal piano.
+     *
+     * @param edificio Il nome dell'edificio.
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di aule situate nell'edificio specificato.
+     */
+    @Override
+    public List<Aula> trovaAuleEdificio(String edificio, PianoCaricamento piano) {
+        TypedQuery<Aula> query = emUniClass.createNamedQuery(Aula.TROVA_AULA_EDIFICIO, Aula.class);
+        query.setParameter("edificio", edificio);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(Aula.class)));
+        return query.getResultList();
+    }
+
     /**
      * Recupera l'elenco degli edifici che contengono aule.
      *
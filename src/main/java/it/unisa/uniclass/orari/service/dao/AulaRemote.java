@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import jakarta.ejb.Remote;
 
 import java.util.List;
@@ -10,7 +11,9 @@ public interface AulaRemote {
     public Aula trovaAula(int id);
     public Aula trovaAula(String nome);
     public List<Aula> trovaTutte();
+    public List<Aula> trovaTutte(PianoCaricamento piano);
     public List<Aula> trovaAuleEdificio(String edificio);
+    public List<Aula> trovaAuleEdificio(String edificio, PianoCaricamento piano);
     public List<String> trovaEdifici();
     public void aggiungiAula(Aula aula);
     public void rimuoviAula(Aula aula);
@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.*;
 
@@ -29,6 +30,21 @@ public class CorsoLaureaDAO implements CorsoLaureaRemote {
         return query.getSingleResult();
     }
 
+    /**
+     * Trova un corso di laurea tramite il suo ID caricando le relazioni indicate dal piano.
+     *
+     * @param id L'ID del corso di laurea da cercare.
+     * @param piano Il piano di caricamento da applicare.
+     * @return L'oggetto CorsoLaurea corrispondente all'ID specificato.
+     */
+    @Override
+    public CorsoLaurea trovaCorsoLaurea(long id, PianoCaricamento piano) {
+        TypedQuery<CorsoLaurea> query = emUniClass.createNamedQuery(CorsoLaurea.TROVA_CORSOLAUREA, CorsoLaurea.class);
+        query.setParameter("id", id);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(CorsoLaurea.class)));
+        return query.getSingleResult();
+    }
+
     /**
      * Trova un corso di laurea nel database utilizzando il suo nome.
      *
@@ -53,6 +69,19 @@ public class CorsoLaureaDAO implements CorsoLaureaRemote {
         return query.getResultList();
     }
 
+    /**
+     * Recupera tutti i corsi di laurea caricando le relazioni indicate dal piano.
+     *
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di tutti i corsi di laurea.
+     */
+    @Override
+    public List<CorsoLaurea> trovaTutti(PianoCaricamento piano) {
+        TypedQuery<CorsoLaurea> query = emUniClass.createNamedQuery(CorsoLaurea.TROVA_TUTTI, CorsoLaurea.class);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(CorsoLaurea.class)));
+        return query.getResultList();
+    }
+
     /**
      * Aggiunge o aggiorna un corso di laurea nel database.
      *
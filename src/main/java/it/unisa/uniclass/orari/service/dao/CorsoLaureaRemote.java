@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import jakarta.ejb.Remote;
 
 import java.util.List;
@@ -9,8 +10,10 @@ import java.util.List;
 public interface CorsoLaureaRemote {
 
     public CorsoLaurea trovaCorsoLaurea(long id);
+    public CorsoLaurea trovaCorsoLaurea(long id, PianoCaricamento piano);
     public CorsoLaurea trovaCorsoLaurea(String nome);
     public List<CorsoLaurea> trovaTutti();
+    public List<CorsoLaurea> trovaTutti(PianoCaricamento piano);
     public void aggiungiCorsoLaurea(CorsoLaurea corsoLaurea);
     public void rimuoviCorsoLaurea(CorsoLaurea corsoLaurea);
 }
@@ -1,11 +1,18 @@
 package it.unisa.uniclass.orari.service.dao;
 
+import it.unisa.uniclass.common.exceptions.ConflittoLezioniException;
 import it.unisa.uniclass.orari.model.*;
+import it.unisa.uniclass.orari.service.RilevatoreConflitti;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.*;
 
 import java.sql.Time;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Classe DAO per la gestione delle entità Lezione nel database.
@@ -14,6 +21,11 @@ import java.util.List;
 @Stateless(name = "LezioneDAO")
 public class LezioneDAO implements LezioneRemote {
 
+    /**
+     * Prima chiave dei lock consultivi presi sulle giornate delle lezioni, per non confonderli con altri lock.
+     */
+    public static final int BLOCCO_LEZIONI = 0x4C455A49;
+
     @PersistenceContext(unitName = "DBUniClassPU")
     public EntityManager emUniClass;
 
@@ -119,6 +131,108 @@ public class LezioneDAO implements LezioneRemote {
         emUniClass.remove(l);
     }
 
+    /**
+     * Aggiunge o aggiorna una lezione dopo averla confrontata con le altre dello stesso giorno e semestre.
+     * Controllo e salvataggio avvengono in un'unica transazione che tiene il lock della giornata:
+     * due salvataggi concorrenti nella stessa giornata, anche da istanze diverse, non possono
+     * superare entrambi il controllo.
+     *
+     * @param l La lezione da aggiungere o aggiornare.
+     * @return La versione salvata della lezione prima dell'aggiornamento, oppure null.
+     * @throws ConflittoLezioniException Se la lezione si sovrappone a un'altra; la transazione viene annullata.
+     */
+    @Override
+    public Lezione aggiungiLezioneControllata(Lezione l) {
+        if (l.getGiorno() != null) {
+            blocca(List.of(l));
+            List<Conflitto> conflitti = RilevatoreConflitti.rileva(l, trovaLezioniGiornoSemestre(l.getGiorno(), l.getSemestre()));
+            if (!conflitti.isEmpty()) {
+                throw new ConflittoLezioniException(conflitti);
+            }
+        }
+        Lezione precedente = l.getId() != null ? precedente(l.getId(), Map.of()) : null;
+        emUniClass.merge(l);
+        return precedente;
+    }
+
+    /**
+     * Aggiunge o aggiorna le lezioni di un'importazione se nessuna è in conflitto.
+     * Prende i lock delle giornate coinvolte, poi confronta le lezioni con quelle salvate negli stessi
+     * semestri, con una sola query per semestre, e le salva nella stessa transazione.
+     *
+     * @param lezioni Le lezioni da aggiungere o aggiornare.
+     * @return Le versioni salvate delle lezioni aggiornate, prima dell'aggiornamento.
+     * @throws ConflittoLezioniException Se una lezione si sovrappone a un'altra; nessuna lezione viene salvata.
+     */
+    @Override
+    public List<Lezione> aggiungiLezioniControllate(List<Lezione> lezioni) {
+        blocca(lezioni);
+        Set<Integer> semestri = new TreeSet<>();
+        for (Lezione lezione : lezioni) {
+            semestri.add(lezione.getSemestre());
+        }
+        Map<Long, Lezione> salvate = new HashMap<>();
+        for (int semestre : semestri) {
+            for (Lezione salvata : trovaLezioniSemestre(semestre)) {
+                salvate.put(salvata.getId(), salvata);
+            }
+        }
+        List<Conflitto> conflitti = RilevatoreConflitti.rileva(lezioni, salvate.values());
+        if (!conflitti.isEmpty()) {
+            throw new ConflittoLezioniException(conflitti);
+        }
+
+        List<Lezione> precedenti = new ArrayList<>();
+        for (Lezione lezione : lezioni) {
+            if (lezione.getId() != null) {
+                Lezione precedente = precedente(lezione.getId(), salvate);
+                if (precedente != null) {
+                    precedenti.add(precedente);
+                }
+            }
+        }
+        for (Lezione lezione : lezioni) {
+            emUniClass.merge(lezione);
+        }
+        return precedenti;
+    }
+
+    /**
+     * Prende, in ordine, il lock di ogni giornata (semestre e giorno) delle lezioni.
+     * L'ordine fisso evita lo stallo tra due importazioni che condividono più giornate.
+     */
+    private void blocca(List<Lezione> lezioni) {
+        Set<Integer> giornate = new TreeSet<>();
+        for (Lezione lezione : lezioni) {
+            if (lezione.getGiorno() != null) {
+                giornate.add(lezione.getSemestre() * Giorno.values().length + lezione.getGiorno().ordinal());
+            }
+        }
+        for (int giornata : giornate) {
+            emUniClass.createNamedQuery(Lezione.BLOCCA_GIORNATA)
+                    .setParameter(1, BLOCCO_LEZIONI)
+                    .setParameter(2, giornata)
+                    .getSingleResult();
+        }
+    }
+
+    /**
+     * Versione salvata di una lezione, staccata dal contesto perché il merge non la sovrascriva.
+     * Una lezione spostata da un altro semestre non è tra quelle già caricate.
+     */
+    private Lezione precedente(long id, Map<Long, Lezione> caricate) {
+        Lezione precedente = caricate.get(id);
+        if (precedente == null) {
+            try {
+                precedente = trovaLezione(id);
+            } catch (NoResultException e) {
+                return null;
+            }
+        }
+        emUniClass.detach(precedente);
+        return precedente;
+    }
+
     /**
      * Trova tutte le lezioni relative a un corso di laurea, resto e anno specifici.
      *
@@ -133,10 +247,7 @@ public class LezioneDAO implements LezioneRemote {
         query.setParameter("corsoLaureaId", clid);
         query.setParameter("restoId", reid);
         query.setParameter("annoId", anid);
-
-        for (Lezione lezione : query.getResultList()) {
-            lezione.getDocenti().size(); // Forza il caricamento
-        }
+        // I docenti arrivano con la fetch join della query: non serve caricarli lezione per lezione
         return query.getResultList();
     }
 
@@ -171,4 +282,45 @@ public class LezioneDAO implements LezioneRemote {
         query.setParameter("nomeDocente", nomeDocente);
         return query.getResultList();
     }
+
+    /**
+     * Trova tutte le lezioni di un giorno della settimana in un semestre.
+     *
+     * @param giorno Il giorno della settimana.
+     * @param semestre Il semestre.
+     * @return Una lista di lezioni con corso, resto, aula e docenti.
+     */
+    @Override
+    public List<Lezione> trovaLezioniGiornoSemestre(Giorno giorno, int semestre) {
+        TypedQuery<Lezione> query = emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_GIORNO_SEMESTRE, Lezione.class);
+        query.setParameter("giorno", giorno);
+        query.setParameter("semestre", semestre);
+        return query.getResultList();
+    }
+
+    /**
+     * Trova tutte le lezioni di un semestre.
+     *
+     * @param semestre Il semestre.
+     * @return Una lista di lezioni con corso, resto, aula e docenti.
+     */
+    @Override
+    public List<Lezione> trovaLezioniSemestre(int semestre) {
+        TypedQuery<Lezione> query = emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_SEMESTRE, Lezione.class);
+        query.setParameter("semestre", semestre);
+        return query.getResultList();
+    }
+
+    /**
+     * Trova tutte le lezioni di un docente.
+     *
+     * @param matricola La matricola del docente.
+     * @return Una lista di lezioni con corso, resto e aula.
+     */
+    @Override
+    public List<Lezione> trovaLezioniMatricolaDocente(String matricola) {
+        TypedQuery<Lezione> query = emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_MATRICOLA_DOCENTE, Lezione.class);
+        query.setParameter("matricola", matricola);
+        return query.getResultList();
+    }
 }
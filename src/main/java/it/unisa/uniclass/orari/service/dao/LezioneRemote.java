@@ -17,6 +17,11 @@ public interface LezioneRemote {
     public List<Lezione> trovaLezioniCorsoLaureaRestoAnno(long clid, long reid, int anid);
     public List<Lezione> trovaLezioniCorsoLaureaRestoAnnoSemestre(long clid, long reid, int anid, int semestre);
     public List<Lezione> trovaLezioniDocente(String nomeCorso);
+    public List<Lezione> trovaLezioniGiornoSemestre(Giorno giorno, int semestre);
+    public List<Lezione> trovaLezioniSemestre(int semestre);
+    public List<Lezione> trovaLezioniMatricolaDocente(String matricola);
     public void aggiungiLezione(Lezione l);
+    public Lezione aggiungiLezioneControllata(Lezione l);
+    public List<Lezione> aggiungiLezioniControllate(List<Lezione> lezioni);
     public void rimuoviLezione(Lezione l);
 }
\ No newline at end of file
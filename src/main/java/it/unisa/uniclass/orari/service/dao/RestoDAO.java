@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import it.unisa.uniclass.orari.model.Resto;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.*;
@@ -43,6 +44,21 @@ public class RestoDAO implements RestoRemote {
         return query.getResultList();
     }
 
+    /**
+     * Trova i resti di un corso di laurea caricando le relazioni indicate dal piano.
+     *
+     * @param nomeCorsoLaurea Il nome del corso di laurea di cui trovare i resti.
+     * @param piano Il piano di caricamento da applicare.
+     * @return Una lista di oggetti Resto associati al corso di laurea.
+     */
+    @Override
+    public List<Resto> trovaRestiCorsoLaurea(String nomeCorsoLaurea, PianoCaricamento piano) {
+        TypedQuery<Resto> query = emUniClass.createNamedQuery(Resto.TROVA_RESTI_CORSO, Resto.class);
+        query.setParameter("nome", nomeCorsoLaurea);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(Resto.class)));
+        return query.getResultList();
+    }
+
     /**
      * Trova i resti nel database tramite il nome del resto.
      *
@@ -69,6 +85,21 @@ public class RestoDAO implements RestoRemote {
         return query.getSingleResult();
     }
 
+    /**
+     * Trova un resto tramite il suo ID caricando le relazioni indicate dal piano.
+     *
+     * @param id L'ID del resto da cercare.
+     * @param piano Il piano di caricamento da applicare.
+     * @return L'oggetto Resto corrispondente all'ID.
+     */
+    @Override
+    public Resto trovaResto(long id, PianoCaricamento piano) {
+        TypedQuery<Resto> query = emUniClass.createNamedQuery(Resto.TROVA_RESTO, Resto.class);
+        query.setParameter("id", id);
+        query.setHint(PianoCaricamento.SUGGERIMENTO, emUniClass.getEntityGraph(piano.grafo(Resto.class)));
+        return query.getSingleResult();
+    }
+
     /**
      * Trova un resto nel database associato a un corso di laurea tramite il nome del resto e del corso.
      *
@@ -1,6 +1,7 @@
 package it.unisa.uniclass.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
 import it.unisa.uniclass.orari.model.Resto;
 import jakarta.ejb.Remote;
 
@@ -10,8 +11,10 @@ import java.util.List;
 public interface RestoRemote {
     public List<Resto> trovaRestiCorsoLaurea(CorsoLaurea corsoLaurea);
     public List<Resto> trovaRestiCorsoLaurea(String nomeCorsoLaurea);
+    public List<Resto> trovaRestiCorsoLaurea(String nomeCorsoLaurea, PianoCaricamento piano);
     public List<Resto> trovaResto(String nomeResto);
     public Resto trovaResto(long id);
+    public Resto trovaResto(long id, PianoCaricamento piano);
     public Resto trovaRestoNomeCorso(String nomeResto, CorsoLaurea corso);
     public Resto trovaRestoNomeCorso(String nomeResto, String nomeCorso);
     public void aggiungiResto(Resto resto);
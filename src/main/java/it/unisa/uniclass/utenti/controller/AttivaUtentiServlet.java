@@ -1,8 +1,10 @@
 package it.unisa.uniclass.utenti.controller;
 
-import it.unisa.uniclass.common.security.CredentialSecurity;
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+import it.unisa.uniclass.common.security.EsecutoreHashing;
 import it.unisa.uniclass.common.security.PasswordGenerator;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.EsitoAttivazione;
 import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.service.AccademicoService;
 import jakarta.servlet.annotation.WebServlet;
@@ -11,6 +13,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 
 @WebServlet(name = "AttivaUtentiServlet", value = "/AttivaUtentiServlet")
 public class AttivaUtentiServlet extends HttpServlet {
@@ -72,11 +75,14 @@ public class AttivaUtentiServlet extends HttpServlet {
                         String password = PasswordGenerator.generatePassword(8);
 
                         accademico.setAttivato(true);
-                        accademico.setPassword(CredentialSecurity.hashPassword(password));
+                        accademico.setPassword(EsecutoreHashing.getIstanza().hash(password));
 
                         accademicoService.aggiungiAccademico(accademico);
-                        System.out.println("\n\n\nPassword generata per l'attivato: " + password + "\n\n\n");
-                        resp.sendRedirect(req.getContextPath() + "/PersonaleTA/AttivaUtenti.jsp");
+                        // La password non viene conservata: il resoconto è l'unica copia, come per l'attivazione massiva
+                        PrintWriter out = AttivazioneMassivaServlet.apriResoconto(resp, "attiva");
+                        AttivazioneMassivaServlet.scriviEsito(out, new EsitoAttivazione(1, accademico.getEmail(),
+                                accademico.getMatricola(), EsitoAttivazione.Stato.ATTIVATO, password));
+                        out.flush();
                     } else {
                         resp.sendRedirect(req.getContextPath() + "/PersonaleTA/AttivaUtenti.jsp?action=error");
                     }
@@ -92,6 +98,13 @@ public class AttivaUtentiServlet extends HttpServlet {
                 }
                 resp.sendRedirect(req.getContextPath() + "/PersonaleTA/AttivaUtenti.jsp");
             }
+        } catch (ServizioSovraccaricoException e) {
+            req.getServletContext().log("Password hashing pool saturated", e);
+            try {
+                resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many requests, please retry later");
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
         } catch (IOException e) {
             req.getServletContext().log("Error processing user activation request", e);
             try {
@@ -0,0 +1,162 @@
+package it.unisa.uniclass.utenti.controller;
+
+import it.unisa.uniclass.utenti.model.EsitoAttivazione;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.RigaAttivazione;
+import it.unisa.uniclass.utenti.service.AttivazioneMassivaService;
+import jakarta.ejb.EJB;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Part;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Servlet per attivare o disattivare più accademici da un file CSV {@code email,matricola,tipo}.
+ * Riservata al personale TA. Il resoconto, una riga CSV per riga del file, viene inviato lotto per lotto
+ * mentre l'elaborazione prosegue. Per gli accademici attivati contiene la password generata, che non
+ * viene conservata altrove: il resoconto non va messo in cache ed è l'unica copia da consegnare agli interessati.
+ */
+@WebServlet(name = "AttivazioneMassivaServlet", value = "/AttivazioneMassivaServlet")
+@MultipartConfig(maxFileSize = 2 * 1024 * 1024, maxRequestSize = 3 * 1024 * 1024)
+public class AttivazioneMassivaServlet extends HttpServlet {
+
+    @EJB
+    //@ spec_public
+    //@ nullable
+    private AttivazioneMassivaService attivazioneMassivaService;
+
+    /**
+     * Setter per iniettare l'AttivazioneMassivaService (utile per i test).
+     * @param attivazioneMassivaService il service da iniettare
+     */
+    //@ requires attivazioneMassivaService != null;
+    //@ ensures this.attivazioneMassivaService == attivazioneMassivaService;
+    public void setAttivazioneMassivaService(AttivazioneMassivaService attivazioneMassivaService) {
+        this.attivazioneMassivaService = attivazioneMassivaService;
+    }
+
+    /**
+     * Gestisce il caricamento del file.
+     * Parametri: {@code operazione} ({@code attiva} o {@code disattiva}) e la parte {@code file}.
+     * @param req la richiesta HTTP
+     * @param resp la risposta HTTP, in formato CSV
+     */
+    //@ also
+    //@ requires req != null;
+    //@ requires resp != null;
+    //@ assignable \everything;
+    @Override
+    public void doPost(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+            HttpSession session = req.getSession(false);
+            Principale principale = session != null ? (Principale) session.getAttribute(Principale.ATTRIBUTO_SESSIONE) : null;
+            if (principale == null || !principale.isPersonaleTA()) {
+                resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+            String operazione = req.getParameter("operazione");
+            boolean attivazione = "attiva".equals(operazione);
+            Part file = req.getPart("file");
+            if ((!attivazione && !"disattiva".equals(operazione)) || file == null) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Operazione o file mancante");
+                return;
+            }
+
+            List<RigaAttivazione> righe;
+            try (BufferedReader lettore = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+                righe = AttivazioneMassivaService.leggiCsv(lettore);
+            } catch (IllegalArgumentException e) {
+                resp.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+                return;
+            }
+
+            PrintWriter out = apriResoconto(resp, operazione);
+
+            // Ogni lotto viene scritto e inviato appena elaborato
+            Consumer<List<EsitoAttivazione>> destinazione = esiti -> {
+                for (EsitoAttivazione esito : esiti) {
+                    scriviEsito(out, esito);
+                }
+                out.flush();
+                if (out.checkError()) {
+                    throw new UncheckedIOException(new IOException("Connessione chiusa dal client"));
+                }
+            };
+            int modificati = attivazione ? attivazioneMassivaService.attiva(righe, destinazione)
+                    : attivazioneMassivaService.disattiva(righe, destinazione);
+            req.getServletContext().log("Attivazione massiva (" + operazione + "): " + modificati + " accademici su " + righe.size() + " righe");
+        } catch (ServletException | IOException | UncheckedIOException e) {
+            req.getServletContext().log("Error processing bulk activation request", e);
+            try {
+                if (!resp.isCommitted()) {
+                    resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred processing your request");
+                }
+            } catch (IOException ioException) {
+                req.getServletContext().log("Failed to send error response", ioException);
+            }
+        }
+    }
+
+    /**
+     * Avvia il resoconto CSV: imposta gli header, che ne vietano la cache, e scrive l'intestazione.
+     * Usato anche da {@link AttivaUtentiServlet} per l'attivazione singola.
+     * @param resp la risposta HTTP
+     * @param operazione l'operazione, usata nel nome del file
+     * @return il writer su cui scrivere gli esiti
+     * @throws IOException se la risposta non è scrivibile
+     */
+    static PrintWriter apriResoconto(HttpServletResponse resp, String operazione) throws IOException {
+        resp.setContentType("text/csv");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Content-Disposition", "attachment; filename=\"esito-" + operazione + ".csv\"");
+        resp.setHeader("Cache-Control", "no-store");
+        PrintWriter out = resp.getWriter();
+        out.println("riga,email,matricola,esito,password");
+        out.flush();
+        return out;
+    }
+
+    /**
+     * Scrive un esito come riga del resoconto CSV.
+     * @param out il writer restituito da {@link #apriResoconto}
+     * @param esito l'esito da scrivere
+     */
+    static void scriviEsito(PrintWriter out, EsitoAttivazione esito) {
+        out.println(esito.numero() + "," + campo(esito.email()) + "," + campo(esito.matricola()) + "," + esito.stato()
+                // Generata dal server senza separatori: campo() la altererebbe se inizia con @
+                + "," + (esito.password() != null ? esito.password() : ""));
+    }
+
+    /**
+     * Prepara un valore per il resoconto CSV: lo racchiude tra virgolette se contiene separatori
+     * e neutralizza i caratteri che un foglio di calcolo interpreterebbe come formula.
+     * @param valore il valore letto dal file caricato
+     * @return il campo CSV
+     */
+    private static String campo(String valore) {
+        if (valore == null) {
+            return "";
+        }
+        String testo = valore;
+        if (!testo.isEmpty() && "=+-@".indexOf(testo.charAt(0)) >= 0) {
+            testo = "'" + testo;
+        }
+        if (testo.contains(",") || testo.contains("\"") || testo.contains(";")) {
+            testo = "\"" + testo.replace("\"", "\"\"") + "\"";
+        }
+        return testo;
+    }
+}
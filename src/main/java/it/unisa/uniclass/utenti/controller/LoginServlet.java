@@ -1,10 +1,11 @@
 package it.unisa.uniclass.utenti.controller;
 
-import it.unisa.uniclass.common.security.CredentialSecurity;
-import it.unisa.uniclass.utenti.model.Accademico;
-import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+import it.unisa.uniclass.utenti.model.Credenziali;
+import it.unisa.uniclass.utenti.model.Principale;
 import it.unisa.uniclass.utenti.model.Utente;
 import it.unisa.uniclass.utenti.service.AccademicoService;
+import it.unisa.uniclass.utenti.service.CredenzialiService;
 import it.unisa.uniclass.utenti.service.PersonaleTAService;
 import jakarta.servlet.annotation.*;
 import jakarta.servlet.http.*;
@@ -17,6 +18,7 @@ public class LoginServlet extends HttpServlet{
 
     private AccademicoService accademicoService;
     private PersonaleTAService personaleTAService;
+    private CredenzialiService credenzialiService;
 
     public void setAccademicoService(AccademicoService accademicoService) {
         this.accademicoService = accademicoService;
@@ -26,6 +28,10 @@ public class LoginServlet extends HttpServlet{
         this.personaleTAService = personaleTAService;
     }
 
+    public void setCredenzialiService(CredenzialiService credenzialiService) {
+        this.credenzialiService = credenzialiService;
+    }
+
     protected AccademicoService getAccademicoService() {
         return new AccademicoService();
     }
@@ -34,6 +40,10 @@ public class LoginServlet extends HttpServlet{
         return new PersonaleTAService();
     }
 
+    protected CredenzialiService getCredenzialiService() {
+        return new CredenzialiService();
+    }
+
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) {
@@ -49,45 +59,52 @@ public class LoginServlet extends HttpServlet{
             if(personaleTAService == null) {
                 personaleTAService = new PersonaleTAService();
             }
+            if(credenzialiService == null) {
+                credenzialiService = new CredenzialiService();
+            }
             String email = request.getParameter("email");
-            //Password non hashata, così come viene digitata
+            //Password non hashata, così come viene digitata: la verifica contro l'hash salvato avviene nel pool di hashing
             String password = request.getParameter("password");
 
-            //password hashata, da come viene digitata all'hashing
-            password = CredentialSecurity.hashPassword(password);
-            Accademico user1 = accademicoService.trovaEmailPassUniclass(email, password);
-            PersonaleTA user2 = personaleTAService.trovaEmailPass(email,password);
+            //Una sola query per email restituisce id, tipo, hash e attivazione, per accademici e personale TA
+            Credenziali credenziali = credenzialiService.trovaCredenziali(email);
             Utente user = null;
 
-
             /*
-            Si deve prima cercare di capire quale user è null. Quello non null bisogna vedere se è accademico (in quel caso controllare se
-            è attivato, altrimenti senza password c'è errore), altrimenti vedere se è personaleTA (esso non viene attivato, c'è e basta)
+            Un accademico non ancora attivato non ha password: va mandato all'attivazione. Il personale TA non
+            viene attivato, c'è e basta. L'entità completa si carica solo se la password è corretta.
              */
-            if(user1 == null && user2 == null){
-                response.sendRedirect(request.getContextPath() + "/Login.jsp?action=error");
-                return;
-            } else if(user1 != null && user2 == null){
-                if(user1.isAttivato()) {
-                    user = user1;
-                }else if(user1.getPassword() == null){
+            if(credenziali != null && !credenziali.isPersonaleTA() && !credenziali.attivato()) {
+                if(credenziali.password() == null) {
                     response.sendRedirect(request.getContextPath() + "/Login.jsp?action=notactivated");
                     return;
                 }
-            } else if(user1 == null && user2 != null) {
-                user = user2;
+            } else if(credenzialiService.autentica(credenziali, password)) {
+                if(credenziali.isPersonaleTA()) {
+                    user = personaleTAService.trovaPersonale(Long.parseLong(credenziali.id()));
+                } else {
+                    user = accademicoService.trovaAccademicoUniClass(credenziali.id());
+                }
             }
 
 
             if (user != null) {
+                //In sessione solo id, email e tipo: l'entità si risolve per richiesta con UtenteService.trovaUtente
                 HttpSession session = request.getSession(true);
-                session.setAttribute("currentSessionUser", user);
+                session.setAttribute(Principale.ATTRIBUTO_SESSIONE, Principale.di(user));
                 response.sendRedirect(request.getContextPath() + "/Home");
                 return;
             } else {
                 response.sendRedirect(request.getContextPath() + "/Login.jsp?action=error");
                 return;
             }
+        } catch (ServizioSovraccaricoException e) {
+            //Troppi login in corso: si rifiuta subito invece di occupare il thread della richiesta
+            try {
+                response.sendRedirect(request.getContextPath() + "/Login.jsp?action=busy");
+            } catch (IOException ioException) {
+                request.getServletContext().log("Failed to redirect after error", ioException);
+            }
         } catch (IOException e) {
             request.getServletContext().log("Error processing login request", e);
             try {
@@ -24,12 +24,22 @@ import static it.unisa.uniclass.utenti.model.Accademico.*;
 @Entity
 @Access(AccessType.FIELD)
 @Inheritance(strategy = InheritanceType.JOINED)
+@Table(indexes = @Index(name = "idx_accademico_email", columnList = "email"))
+@NamedNativeQueries({
+        @NamedNativeQuery(name = "Accademico.trovaCredenziali", query =
+                "SELECT FALSE, matricola, tipo, password, attivato FROM accademico WHERE email = ?1"
+                + " UNION ALL SELECT TRUE, CAST(id AS VARCHAR), NULL, password, TRUE FROM personaleta WHERE email = ?1"
+                + " ORDER BY 1 LIMIT 1"),
+        @NamedNativeQuery(name = "Accademico.aggiornaPassword", query =
+                "UPDATE accademico SET password = ?1 WHERE matricola = ?2 AND password = ?3")
+})
 @NamedQueries({
         @NamedQuery(name = "Accademico.trovaAccademico", query = "SELECT a FROM Accademico a WHERE a.matricola = :matricola"),
         @NamedQuery(name = "Accademico.trovaTutti", query = "SELECT a FROM Accademico a"),
         @NamedQuery(name = "Accademico.trovaEmail", query = "SELECT a FROM Accademico a WHERE a.email = :email"),
         @NamedQuery(name = "Accademico.trovaAttivati", query = "SELECT a FROM Accademico a WHERE a.attivato = :attivato"),
-        @NamedQuery(name = "Accademico.retrieveEmail", query = "SELECT a.email FROM Accademico a")
+        @NamedQuery(name = "Accademico.retrieveEmail", query = "SELECT a.email FROM Accademico a"),
+        @NamedQuery(name = "Accademico.trovaStatoEmail", query = "SELECT NEW it.unisa.uniclass.utenti.model.StatoAttivazione(a.matricola, a.email, a.tipo, a.attivato) FROM Accademico a WHERE a.email IN :emails")
 })
 public class Accademico extends Utente implements Serializable {
 
@@ -56,6 +66,26 @@ public class Accademico extends Utente implements Serializable {
      */
     public static final String RETRIEVE_EMAIL = "Accademico.retrieveEmail";
 
+    /**
+     * Nome della query nativa che legge le credenziali di un utente, accademico o personale TA, data l'email.
+     * Legge solo la tabella {@code accademico}, senza quelle delle sottoclassi, e {@code personaleTA}.
+     * La prima colonna vale FALSE per un accademico e TRUE per il personale TA: l'ordinamento su di essa
+     * restituisce l'accademico se l'email è registrata in entrambe le tabelle.
+     */
+    public static final String TROVA_CREDENZIALI = "Accademico.trovaCredenziali";
+
+    /**
+     * Nome della query nativa che sostituisce l'hash della password di un accademico,
+     * solo se quello salvato è ancora quello letto al login.
+     */
+    public static final String AGGIORNA_PASSWORD = "Accademico.aggiornaPassword";
+
+    /**
+     * Nome della query che legge matricola, tipo e stato di attivazione degli accademici con le email indicate,
+     * come {@link StatoAttivazione}.
+     */
+    public static final String TROVA_STATO_EMAIL = "Accademico.trovaStatoEmail";
+
     /** Relazione unidirezionale {@code @OneToOne}, mappata sul campo {@code corso_laurea_id}
      * */
     @Id
@@ -0,0 +1,16 @@
+package it.unisa.uniclass.utenti.model;
+
+import java.io.Serializable;
+
+/**
+ * Proiezione di un accademico con i soli dati di contatto mostrati nelle liste,
+ * letta dalla tabella {@code accademico} senza le tabelle delle sottoclassi.
+ *
+ * @param matricola La matricola
+ * @param email L'email istituzionale
+ * @param nome Il nome
+ * @param cognome Il cognome
+ * @param tipo Il tipo di utente
+ */
+public record AccademicoVista(String matricola, String email, String nome, String cognome, Tipo tipo) implements Serializable {
+}
@@ -0,0 +1,22 @@
+package it.unisa.uniclass.utenti.model;
+
+import java.io.Serializable;
+
+/**
+ * Credenziali di un utente, accademico o personale TA, lette con una sola query per email.
+ * Bastano a decidere l'esito del login: l'entità completa si carica solo dopo un'autenticazione riuscita.
+ *
+ * @param id La matricola dell'accademico, oppure l'ID del personale TA
+ * @param tipo Il tipo di utente
+ * @param password L'hash della password, null per un accademico non ancora attivato
+ * @param attivato Lo stato di attivazione, sempre vero per il personale TA
+ */
+public record Credenziali(String id, Tipo tipo, String password, boolean attivato) implements Serializable {
+
+    /**
+     * @return true se le credenziali sono di un membro del personale TA
+     */
+    public boolean isPersonaleTA() {
+        return tipo == Tipo.PersonaleTA;
+    }
+}
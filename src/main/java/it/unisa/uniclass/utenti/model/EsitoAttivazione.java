@@ -0,0 +1,68 @@
+package it.unisa.uniclass.utenti.model;
+
+import java.io.Serializable;
+
+/**
+ * Esito dell'attivazione o disattivazione di una riga del file CSV.
+ *
+ * @param numero Il numero della riga nel file
+ * @param email L'email letta dalla riga
+ * @param matricola La matricola letta dalla riga
+ * @param stato L'esito
+ * @param password La password generata per un accademico appena attivato, altrimenti null.
+ *                 Compare solo nel resoconto dell'attivazione: non viene salvata né registrata nei log
+ */
+public record EsitoAttivazione(int numero, String email, String matricola, Stato stato, String password) implements Serializable {
+
+    /**
+     * Possibili esiti di una riga.
+     */
+    public enum Stato {
+        /** L'accademico è stato attivato. */
+        ATTIVATO,
+        /** L'accademico è stato disattivato. */
+        DISATTIVATO,
+        /** L'accademico era già attivo: nessuna modifica. */
+        GIA_ATTIVO,
+        /** L'accademico era già disattivato: nessuna modifica. */
+        GIA_DISATTIVO,
+        /** Nessun accademico con questa email, o con una matricola diversa. */
+        NON_TROVATO,
+        /** Il tipo della riga non corrisponde a quello dell'accademico. */
+        TIPO_ERRATO,
+        /** L'email o la matricola compare in una riga precedente del file. */
+        DUPLICATO,
+        /** La riga non ha email, matricola e un tipo valido. */
+        RIGA_NON_VALIDA,
+        /** Il pool di hashing era saturo: la riga va ricaricata più tardi. */
+        RINVIATO
+    }
+
+    /**
+     * Crea l'esito di una riga.
+     * @param riga la riga del file
+     * @param stato l'esito
+     * @return l'esito
+     */
+    public static EsitoAttivazione di(RigaAttivazione riga, Stato stato) {
+        return di(riga, stato, null);
+    }
+
+    /**
+     * Crea l'esito di una riga con la password generata.
+     * @param riga la riga del file
+     * @param stato l'esito
+     * @param password la password generata, oppure null
+     * @return l'esito
+     */
+    public static EsitoAttivazione di(RigaAttivazione riga, Stato stato, String password) {
+        return new EsitoAttivazione(riga.numero(), riga.email(), riga.matricola(), stato, password);
+    }
+
+    // La password non deve finire nei log attraverso toString
+    @Override
+    public String toString() {
+        return "EsitoAttivazione[numero=" + numero + ", email=" + email + ", matricola=" + matricola
+                + ", stato=" + stato + ", password=" + (password != null ? "***" : null) + "]";
+    }
+}
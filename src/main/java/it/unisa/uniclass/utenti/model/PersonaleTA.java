@@ -14,13 +14,15 @@ import static it.unisa.uniclass.utenti.model.PersonaleTA.*;
  * */
 @Entity
 @Access(AccessType.FIELD)
-@Table(name = "personaleTA")
+@Table(name = "personaleTA", indexes = @Index(name = "idx_personaleta_email", columnList = "email"))
 @NamedQueries({
         @NamedQuery(name = "PersonaleTA.trovaPersonale", query = "SELECT p FROM PersonaleTA p WHERE p.id = :id"),
         @NamedQuery(name = "PersonaleTA.trovaTutti", query = "SELECT p FROM PersonaleTA p"),
         @NamedQuery(name = "PersonaleTA.trovaEmail", query = "SELECT p FROM PersonaleTA p WHERE p.email = :email"),
         @NamedQuery(name = "PersonaleTA.trovaEmailPassword", query = "SELECT p FROM PersonaleTA p WHERE p.email = :email AND p.password = :password" )
 })
+@NamedNativeQuery(name = "PersonaleTA.aggiornaPassword", query =
+        "UPDATE personaleta SET password = ?1 WHERE id = ?2 AND password = ?3")
 public class PersonaleTA extends Utente implements Serializable {
     /**
      * Nome della query per trovare un membro del personale Ta tramite ID.
@@ -38,6 +40,11 @@ public class PersonaleTA extends Utente implements Serializable {
      * Nome della query per trovare un membro del personale TA tramite email e password.
      */
     public static final String TROVA_EMAIL_PASSWORD = "PersonaleTA.trovaEmailPassword";
+    /**
+     * Nome della query nativa che sostituisce l'hash della password di un membro del personale TA,
+     * solo se quello salvato è ancora quello letto al login.
+     */
+    public static final String AGGIORNA_PASSWORD = "PersonaleTA.aggiornaPassword";
 
     /**
      * Identificatore univoco per il membro del personale TA
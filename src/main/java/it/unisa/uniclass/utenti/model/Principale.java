@@ -0,0 +1,116 @@
+package it.unisa.uniclass.utenti.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Utente collegato, come viene conservato nella sessione HTTP: solo l'identificativo, l'email e il tipo.
+ * L'entità completa non viene salvata in sessione ma risolta a ogni richiesta che ne ha bisogno
+ * tramite {@link it.unisa.uniclass.utenti.service.UtenteService#trovaUtente(Principale)}.
+ */
+public final class Principale implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nome dell'attributo di sessione che contiene l'utente collegato.
+     */
+    public static final String ATTRIBUTO_SESSIONE = "currentSessionUser";
+
+    /**
+     * La matricola dell'accademico, oppure l'ID del personale TA
+     */
+    //@ spec_public
+    private final String id;
+
+    /**
+     * Email dell'utente
+     */
+    //@ spec_public
+    private final String email;
+
+    /**
+     * Tipo di utente
+     */
+    //@ spec_public
+    private final Tipo tipo;
+
+    /**
+     * Costruttore dell'utente collegato.
+     * @param id la matricola dell'accademico, oppure l'ID del personale TA
+     * @param email l'email dell'utente
+     * @param tipo il tipo di utente
+     */
+    //@ requires id != null;
+    public Principale(String id, String email, Tipo tipo) {
+        this.id = id;
+        this.email = email;
+        this.tipo = tipo;
+    }
+
+    /**
+     * Ricava l'utente collegato da un'entità.
+     * @param utente un accademico o un membro del personale TA
+     * @return l'utente collegato
+     */
+    //@ requires utente instanceof Accademico || utente instanceof PersonaleTA;
+    //@ ensures \result != null;
+    public static Principale di(Utente utente) {
+        if (utente instanceof PersonaleTA personaleTA) {
+            return new Principale(String.valueOf(personaleTA.getId()), personaleTA.getEmail(), Tipo.PersonaleTA);
+        }
+        if (utente instanceof Accademico accademico) {
+            return new Principale(accademico.getMatricola(), accademico.getEmail(), accademico.getTipo());
+        }
+        throw new IllegalArgumentException("Utente non supportato: " + utente);
+    }
+
+    /**
+     * @return la matricola dell'accademico, oppure l'ID del personale TA
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return l'email dell'utente
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @return il tipo di utente
+     */
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * @return true se l'utente è un membro del personale TA
+     */
+    public boolean isPersonaleTA() {
+        return tipo == Tipo.PersonaleTA;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Principale that)) return false;
+        return id.equals(that.id) && tipo == that.tipo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, tipo);
+    }
+
+    @Override
+    public String toString() {
+        return "Principale{" +
+                "id='" + id + '\'' +
+                ", email='" + email + '\'' +
+                ", tipo=" + tipo +
+                '}';
+    }
+}
@@ -0,0 +1,14 @@
+package it.unisa.uniclass.utenti.model;
+
+import java.io.Serializable;
+
+/**
+ * Riga del file CSV caricato per attivare o disattivare più accademici insieme.
+ *
+ * @param numero Il numero della riga nel file, a partire da 1
+ * @param email L'email dell'accademico
+ * @param matricola La matricola dell'accademico
+ * @param tipo Il tipo dichiarato nel file, oppure null se la colonna non è valida
+ */
+public record RigaAttivazione(int numero, String email, String matricola, Tipo tipo) implements Serializable {
+}
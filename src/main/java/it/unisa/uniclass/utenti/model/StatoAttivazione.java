@@ -0,0 +1,15 @@
+package it.unisa.uniclass.utenti.model;
+
+import java.io.Serializable;
+
+/**
+ * Proiezione di un accademico con i soli dati controllati dall'attivazione massiva,
+ * letta dalla tabella {@code accademico} senza le tabelle delle sottoclassi.
+ *
+ * @param matricola La matricola
+ * @param email L'email istituzionale
+ * @param tipo Il tipo di utente
+ * @param attivato Lo stato di attivazione
+ */
+public record StatoAttivazione(String matricola, String email, Tipo tipo, boolean attivato) implements Serializable {
+}
@@ -1,5 +1,6 @@
 package it.unisa.uniclass.utenti.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.utenti.model.Accademico;
 import it.unisa.uniclass.utenti.service.dao.AccademicoRemote;
 import jakarta.ejb.Stateless;
@@ -118,6 +119,7 @@ public class AccademicoService {
      */
     public void aggiungiAccademico(Accademico accademico) {
         accademicoDao.aggiungiAccademico(accademico);
+        invalidaCache(accademico);
     }
 
     /**
@@ -127,6 +129,7 @@ public class AccademicoService {
      */
     public void rimuoviAccademico(Accademico accademico) {
         accademicoDao.rimuoviAccademico(accademico);
+        invalidaCache(accademico);
     }
 
     /**
@@ -146,5 +149,16 @@ public class AccademicoService {
      */
     public void cambiaAttivazione(Accademico accademico, boolean attivazione) {
         accademicoDao.cambiaAttivazione(accademico, attivazione);
+        invalidaCache(accademico);
+    }
+
+    /**
+     * Scarta l'accademico dalla cache degli utenti di questa istanza e delle altre.
+     */
+    private static void invalidaCache(Accademico accademico) {
+        CacheUtenti.getIstanza().invalida(accademico);
+        if (accademico != null && accademico.getMatricola() != null) {
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.UTENTE, CacheUtenti.chiave(accademico));
+        }
     }
 }
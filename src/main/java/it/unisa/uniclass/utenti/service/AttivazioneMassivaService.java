@@ -0,0 +1,282 @@
+package it.unisa.uniclass.utenti.service;
+
+import it.unisa.uniclass.common.cluster.CanaleCluster;
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+import it.unisa.uniclass.common.security.EsecutoreHashing;
+import it.unisa.uniclass.common.security.PasswordGenerator;
+import it.unisa.uniclass.utenti.model.EsitoAttivazione;
+import it.unisa.uniclass.utenti.model.EsitoAttivazione.Stato;
+import it.unisa.uniclass.utenti.model.RigaAttivazione;
+import it.unisa.uniclass.utenti.model.StatoAttivazione;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.dao.AccademicoRemote;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Classe di servizio per attivare o disattivare molti accademici insieme, a partire da un file CSV
+ * con una riga {@code email,matricola,tipo} per accademico.
+ *
+ * Le righe vengono elaborate a lotti di {@link #DIMENSIONE_LOTTO}: per ogni lotto una sola query legge
+ * lo stato di tutti gli accademici, le password vengono calcolate in parallelo sul pool di
+ * {@link EsecutoreHashing} e un solo UPDATE, in una transazione propria, modifica le righe valide.
+ * L'esito di ogni lotto viene consegnato appena pronto, così il resoconto può essere inviato mentre
+ * i lotti successivi sono ancora in lavorazione. La password generata per ogni accademico attivato
+ * viaggia solo nel suo esito, una volta, e non viene mai scritta nei log.
+ */
+@Stateless
+public class AttivazioneMassivaService {
+
+    private static final Logger LOGGER = Logger.getLogger(AttivazioneMassivaService.class.getName());
+
+    /**
+     * Righe elaborate con una query di controllo e un UPDATE.
+     */
+    public static final int DIMENSIONE_LOTTO = 500;
+
+    /**
+     * Numero massimo di righe accettate in un file.
+     */
+    public static final int MASSIMO_RIGHE = 20_000;
+
+    private static final int LUNGHEZZA_PASSWORD = 8;
+
+    private AccademicoRemote accademicoDao;
+    private EsecutoreHashing esecutore = EsecutoreHashing.getIstanza();
+
+    /**
+     * Costruttore di default che esegue il lookup JNDI del DAO.
+     */
+    public AttivazioneMassivaService() {
+        try {
+            InitialContext ctx = new InitialContext();
+            accademicoDao = (AccademicoRemote) ctx.lookup("java:global/UniClass-Dependability/AccademicoDAO");
+        } catch (NamingException e) {
+            throw new RuntimeException("Errore durante il lookup di AccademicoDAO", e);
+        }
+    }
+
+    /**
+     * Costruttore per i Test (Dependency Injection).
+     * Permette di passare un DAO mockato.
+     * @param dao Il DAO da utilizzare.
+     */
+    public AttivazioneMassivaService(AccademicoRemote dao) {
+        this.accademicoDao = dao;
+    }
+
+    /**
+     * Imposta il pool usato per l'hashing delle password (utile per i test).
+     * @param esecutore il pool da usare
+     */
+    //@ requires esecutore != null;
+    public void setEsecutore(EsecutoreHashing esecutore) {
+        this.esecutore = esecutore;
+    }
+
+    /**
+     * Legge le righe di un file CSV {@code email,matricola,tipo}, separate da virgola o punto e virgola.
+     * Le righe vuote e una eventuale intestazione che inizia con {@code email} vengono saltate;
+     * una riga senza tre colonne o con un tipo sconosciuto viene restituita con i campi mancanti a null.
+     *
+     * @param lettore Il contenuto del file.
+     * @return Le righe lette, nell'ordine del file.
+     * @throws IOException Se il file non può essere letto.
+     * @throws IllegalArgumentException Se il file ha più di {@link #MASSIMO_RIGHE} righe.
+     */
+    public static List<RigaAttivazione> leggiCsv(BufferedReader lettore) throws IOException {
+        List<RigaAttivazione> righe = new ArrayList<>();
+        String linea;
+        int numero = 0;
+        while ((linea = lettore.readLine()) != null) {
+            numero++;
+            String testo = linea.strip();
+            if (testo.isEmpty() || (numero == 1 && testo.toLowerCase().startsWith("email"))) {
+                continue;
+            }
+            if (righe.size() == MASSIMO_RIGHE) {
+                throw new IllegalArgumentException("Il file supera " + MASSIMO_RIGHE + " righe");
+            }
+            String[] colonne = testo.split("[,;]", -1);
+            String email = colonne.length > 0 ? vuotoANull(colonne[0]) : null;
+            String matricola = colonne.length > 1 ? vuotoANull(colonne[1]) : null;
+            Tipo tipo = colonne.length == 3 ? tipo(colonne[2]) : null;
+            righe.add(new RigaAttivazione(numero, email, matricola, tipo));
+        }
+        return righe;
+    }
+
+    /**
+     * Attiva gli accademici delle righe, generando per ognuno una password.
+     *
+     * @param righe Le righe del file.
+     * @param destinazione Riceve gli esiti di ogni lotto, nell'ordine delle righe.
+     * @return Il numero di accademici attivati.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public int attiva(List<RigaAttivazione> righe, Consumer<List<EsitoAttivazione>> destinazione) {
+        return elabora(righe, true, destinazione);
+    }
+
+    /**
+     * Disattiva gli accademici delle righe.
+     *
+     * @param righe Le righe del file.
+     * @param destinazione Riceve gli esiti di ogni lotto, nell'ordine delle righe.
+     * @return Il numero di accademici disattivati.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public int disattiva(List<RigaAttivazione> righe, Consumer<List<EsitoAttivazione>> destinazione) {
+        return elabora(righe, false, destinazione);
+    }
+
+    private int elabora(List<RigaAttivazione> righe, boolean attivazione, Consumer<List<EsitoAttivazione>> destinazione) {
+        Set<String> emailViste = new HashSet<>();
+        Set<String> matricoleViste = new HashSet<>();
+        int modificati = 0;
+        for (int inizio = 0; inizio < righe.size(); inizio += DIMENSIONE_LOTTO) {
+            List<RigaAttivazione> lotto = righe.subList(inizio, Math.min(righe.size(), inizio + DIMENSIONE_LOTTO));
+            Stato[] stati = new Stato[lotto.size()];
+            String[] password = new String[lotto.size()];
+
+            // Righe non valide e ripetute si scartano senza interrogare il database
+            Set<String> emails = new LinkedHashSet<>();
+            for (int i = 0; i < lotto.size(); i++) {
+                RigaAttivazione riga = lotto.get(i);
+                if (riga.email() == null || riga.matricola() == null || riga.tipo() == null) {
+                    stati[i] = Stato.RIGA_NON_VALIDA;
+                    continue;
+                }
+                boolean nuovaEmail = emailViste.add(riga.email());
+                boolean nuovaMatricola = matricoleViste.add(riga.matricola());
+                if (nuovaEmail && nuovaMatricola) {
+                    emails.add(riga.email());
+                } else {
+                    stati[i] = Stato.DUPLICATO;
+                }
+            }
+
+            Map<String, StatoAttivazione> registrati = new HashMap<>();
+            if (!emails.isEmpty()) {
+                for (StatoAttivazione stato : accademicoDao.trovaStatoEmail(new ArrayList<>(emails))) {
+                    registrati.put(stato.email(), stato);
+                }
+            }
+
+            List<Integer> daModificare = new ArrayList<>();
+            for (int i = 0; i < lotto.size(); i++) {
+                if (stati[i] != null) {
+                    continue;
+                }
+                RigaAttivazione riga = lotto.get(i);
+                StatoAttivazione registrato = registrati.get(riga.email());
+                if (registrato == null || !riga.matricola().equals(registrato.matricola())) {
+                    stati[i] = Stato.NON_TROVATO;
+                } else if (riga.tipo() != registrato.tipo()) {
+                    stati[i] = Stato.TIPO_ERRATO;
+                } else if (registrato.attivato() == attivazione) {
+                    stati[i] = attivazione ? Stato.GIA_ATTIVO : Stato.GIA_DISATTIVO;
+                } else {
+                    daModificare.add(i);
+                }
+            }
+
+            modificati += attivazione ? attiva(lotto, daModificare, stati, password) : disattiva(lotto, daModificare, stati);
+
+            List<EsitoAttivazione> esiti = new ArrayList<>(lotto.size());
+            for (int i = 0; i < lotto.size(); i++) {
+                esiti.add(EsitoAttivazione.di(lotto.get(i), stati[i], password[i]));
+            }
+            destinazione.accept(esiti);
+        }
+        return modificati;
+    }
+
+    private int attiva(List<RigaAttivazione> lotto, List<Integer> daModificare, Stato[] stati, String[] generate) {
+        if (daModificare.isEmpty()) {
+            return 0;
+        }
+        List<String> matricole = new ArrayList<>(daModificare.size());
+        List<String> password = new ArrayList<>(daModificare.size());
+        for (int i : daModificare) {
+            matricole.add(lotto.get(i).matricola());
+            password.add(PasswordGenerator.generatePassword(LUNGHEZZA_PASSWORD));
+        }
+        List<String> hash;
+        try {
+            hash = esecutore.hashTutte(password);
+        } catch (ServizioSovraccaricoException e) {
+            LOGGER.log(Level.WARNING, "Pool di hashing saturo: " + daModificare.size() + " attivazioni rinviate", e);
+            for (int i : daModificare) {
+                stati[i] = Stato.RINVIATO;
+            }
+            return 0;
+        }
+        Set<String> attivati = new HashSet<>(accademicoDao.attivaAccademici(matricole, hash));
+        for (int j = 0; j < daModificare.size(); j++) {
+            int i = daModificare.get(j);
+            if (attivati.contains(matricole.get(j))) {
+                stati[i] = Stato.ATTIVATO;
+                generate[i] = password.get(j);
+            } else {
+                // Attivato da un'altra richiesta dopo la query di controllo
+                stati[i] = Stato.GIA_ATTIVO;
+            }
+        }
+        if (!attivati.isEmpty()) {
+            CacheUtenti.getIstanza().svuota();
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.UTENTE, CanaleCluster.TUTTI);
+        }
+        return attivati.size();
+    }
+
+    private int disattiva(List<RigaAttivazione> lotto, List<Integer> daModificare, Stato[] stati) {
+        if (daModificare.isEmpty()) {
+            return 0;
+        }
+        List<String> matricole = new ArrayList<>(daModificare.size());
+        for (int i : daModificare) {
+            matricole.add(lotto.get(i).matricola());
+        }
+        Set<String> disattivati = new HashSet<>(accademicoDao.disattivaAccademici(matricole));
+        for (int i : daModificare) {
+            stati[i] = disattivati.contains(lotto.get(i).matricola()) ? Stato.DISATTIVATO : Stato.GIA_DISATTIVO;
+        }
+        if (!disattivati.isEmpty()) {
+            CacheUtenti.getIstanza().svuota();
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.UTENTE, CanaleCluster.TUTTI);
+        }
+        return disattivati.size();
+    }
+
+    private static String vuotoANull(String valore) {
+        String testo = valore.strip();
+        return testo.isEmpty() ? null : testo;
+    }
+
+    // Solo i tipi accademici: il personale TA non si attiva da file
+    private static Tipo tipo(String valore) {
+        return switch (valore.strip()) {
+            case "Studente" -> Tipo.Studente;
+            case "Docente" -> Tipo.Docente;
+            case "Coordinatore" -> Tipo.Coordinatore;
+            default -> null;
+        };
+    }
+}
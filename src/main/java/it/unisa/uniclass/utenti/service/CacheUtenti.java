@@ -0,0 +1,172 @@
+package it.unisa.uniclass.utenti.service;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Utente;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache in memoria delle entità degli utenti collegati, risolte a partire dal {@link Principale} in sessione.
+ * Ne tiene al più {@link #CAPACITA} e scarta le meno usate di recente; una voce scade dopo {@link #DURATA} minuti.
+ *
+ * Le scritture sugli utenti passano dai service, che dopo il salvataggio invalidano la voce: un caricamento
+ * iniziato prima di un'invalidazione non viene pubblicato, come in {@code CacheRiferimenti}.
+ */
+public class CacheUtenti {
+
+    /**
+     * Numero massimo di utenti in cache.
+     */
+    public static final int CAPACITA = 2048;
+
+    /**
+     * Durata di una voce, in minuti.
+     */
+    public static final long DURATA = 5;
+
+    private static final CacheUtenti ISTANZA = new CacheUtenti(CAPACITA, TimeUnit.MINUTES.toMillis(DURATA), System::currentTimeMillis);
+
+    private record Voce(Utente utente, long scadenza) { }
+
+    //@ spec_public
+    private final Map<String, Voce> voci;
+
+    private final long durata;
+    private final LongSupplier orologio;
+    private final AtomicLong versione = new AtomicLong();
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+
+    /**
+     * Restituisce la cache condivisa dall'applicazione.
+     * @return l'istanza condivisa
+     */
+    public static CacheUtenti getIstanza() {
+        return ISTANZA;
+    }
+
+    /**
+     * Crea una cache vuota.
+     * @param capacita il numero massimo di utenti
+     * @param durata la durata di una voce, in millisecondi
+     * @param orologio la sorgente del tempo corrente, in millisecondi
+     */
+    //@ requires capacita > 0 && durata > 0 && orologio != null;
+    public CacheUtenti(int capacita, long durata, LongSupplier orologio) {
+        this.durata = durata;
+        this.orologio = orologio;
+        this.voci = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Voce> eldest) {
+                return size() > capacita;
+            }
+        };
+    }
+
+    /**
+     * Chiave di un utente collegato.
+     * @param principale l'utente collegato
+     * @return la chiave, distinta tra accademici e personale TA
+     */
+    public static String chiave(Principale principale) {
+        return (principale.isPersonaleTA() ? "ta:" : "acc:") + principale.getId();
+    }
+
+    /**
+     * Chiave di un'entità, uguale a quella del suo {@link Principale}.
+     * @param utente un accademico o un membro del personale TA
+     * @return la chiave, distinta tra accademici e personale TA
+     */
+    public static String chiave(Utente utente) {
+        if (utente instanceof PersonaleTA personaleTA) {
+            return "ta:" + personaleTA.getId();
+        }
+        return "acc:" + ((Accademico) utente).getMatricola();
+    }
+
+    /**
+     * Cerca un utente in cache.
+     * @param chiave la chiave dell'utente
+     * @return l'entità, oppure null se assente o scaduta
+     */
+    public synchronized Utente trova(String chiave) {
+        Voce voce = voci.get(chiave);
+        if (voce == null || voce.scadenza() <= orologio.getAsLong()) {
+            if (voce != null) {
+                voci.remove(chiave);
+            }
+            miss.incrementAndGet();
+            return null;
+        }
+        hit.incrementAndGet();
+        return voce.utente();
+    }
+
+    /**
+     * @return la versione corrente, da leggere prima di caricare un utente dal database
+     */
+    public long versione() {
+        return versione.get();
+    }
+
+    /**
+     * Pubblica un utente caricato dal database, se nel frattempo nessuna scrittura ha invalidato la cache.
+     * @param chiave la chiave dell'utente
+     * @param utente l'entità caricata
+     * @param versioneLetta la versione letta prima del caricamento
+     */
+    public synchronized void metti(String chiave, Utente utente, long versioneLetta) {
+        if (versione.get() == versioneLetta) {
+            voci.put(chiave, new Voce(utente, orologio.getAsLong() + durata));
+        }
+    }
+
+    /**
+     * Scarta un utente dopo una scrittura.
+     * @param utente l'entità salvata o rimossa
+     */
+    public synchronized void invalida(Utente utente) {
+        versione.incrementAndGet();
+        if (utente instanceof PersonaleTA || (utente instanceof Accademico accademico && accademico.getMatricola() != null)) {
+            voci.remove(chiave(utente));
+        }
+    }
+
+    /**
+     * Scarta un utente modificato da un'altra istanza.
+     * @param chiave la chiave dell'utente
+     */
+    public synchronized void invalida(String chiave) {
+        versione.incrementAndGet();
+        voci.remove(chiave);
+    }
+
+    /**
+     * Scarta tutti gli utenti.
+     */
+    public synchronized void svuota() {
+        versione.incrementAndGet();
+        voci.clear();
+    }
+
+    /**
+     * @return il numero di utenti in cache, scaduti compresi
+     */
+    public synchronized int getDimensione() {
+        return voci.size();
+    }
+
+    public long getHit() {
+        return hit.get();
+    }
+
+    public long getMiss() {
+        return miss.get();
+    }
+}
@@ -0,0 +1,104 @@
+package it.unisa.uniclass.utenti.service;
+
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+import it.unisa.uniclass.common.security.CredentialSecurity;
+import it.unisa.uniclass.common.security.EsecutoreHashing;
+import it.unisa.uniclass.utenti.model.Credenziali;
+import it.unisa.uniclass.utenti.service.dao.CredenzialiRemote;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.NoResultException;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import java.util.UUID;
+
+/**
+ * Classe di servizio per la lettura delle credenziali usate dal login.
+ * Una sola query per email serve sia gli accademici che il personale tecnico-amministrativo.
+ * La verifica della password gira sul pool dedicato di {@link EsecutoreHashing}.
+ * Anche per un'email non registrata viene verificato un hash, così la durata del login
+ * non rivela quali email esistono.
+ */
+@Stateless
+public class CredenzialiService {
+
+    private CredenzialiRemote credenzialiDao;
+    private EsecutoreHashing esecutore = EsecutoreHashing.getIstanza();
+
+    /**
+     * Costruttore di default che esegue il lookup JNDI del DAO.
+     */
+    public CredenzialiService() {
+        try {
+            InitialContext ctx = new InitialContext();
+            credenzialiDao = (CredenzialiRemote) ctx.lookup("java:global/UniClass-Dependability/CredenzialiDAO");
+        } catch (NamingException e) {
+            throw new RuntimeException("Errore durante il lookup di CredenzialiDAO", e);
+        }
+    }
+
+    /**
+     * Costruttore per i Test (Dependency Injection).
+     * Permette di passare un DAO mockato.
+     * @param dao Il DAO da utilizzare.
+     */
+    public CredenzialiService(CredenzialiRemote dao) {
+        this.credenzialiDao = dao;
+    }
+
+    /**
+     * Trova le credenziali associate a un'email.
+     *
+     * @param email L'email dell'utente.
+     * @return Le credenziali, oppure null se l'email non è registrata.
+     */
+    public Credenziali trovaCredenziali(String email) {
+        try {
+            return credenzialiDao.trovaCredenziali(email);
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
+    // Creato al primo login fallito, con le iterazioni configurate come gli hash salvati
+    private static final class HashFittizio {
+        private static final String VALORE = CredentialSecurity.hashPassword(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Verifica la password in chiaro contro l'hash salvato nelle credenziali.
+     * Dopo una verifica riuscita, un hash SHA-256 senza sale o con meno iterazioni di quelle configurate
+     * viene sostituito con uno nuovo; se il pool è saturo la sostituzione è rimandata al login successivo.
+     * Senza credenziali o senza password salvata la password viene verificata contro un hash fittizio,
+     * con lo stesso costo di una verifica reale.
+     *
+     * @param credenziali Le credenziali lette dal database, oppure null se l'email non è registrata.
+     * @param password La password in chiaro.
+     * @return true se la password è corretta, false se è errata o se non c'è una password salvata.
+     * @throws ServizioSovraccaricoException Se il pool di hashing è saturo.
+     */
+    public boolean autentica(Credenziali credenziali, String password) {
+        if (password == null) {
+            return false;
+        }
+        if (credenziali == null || credenziali.password() == null) {
+            esecutore.verifica(password, HashFittizio.VALORE);
+            return false;
+        }
+        if (!esecutore.verifica(password, credenziali.password())) {
+            return false;
+        }
+        if (CredentialSecurity.richiedeRehash(credenziali.password())) {
+            try {
+                credenzialiDao.aggiornaPassword(credenziali, esecutore.hash(password));
+            } catch (ServizioSovraccaricoException e) {
+                // l'hash salvato resta valido, verrà sostituito al prossimo login
+            }
+        }
+        return true;
+    }
+
+    public void setEsecutore(EsecutoreHashing esecutore) {
+        this.esecutore = esecutore;
+    }
+}
@@ -1,5 +1,6 @@
 package it.unisa.uniclass.utenti.service;
 
+import it.unisa.uniclass.common.cluster.CanaleCluster;
 import it.unisa.uniclass.utenti.model.Accademico;
 import it.unisa.uniclass.utenti.model.PersonaleTA;
 import it.unisa.uniclass.utenti.service.dao.PersonaleTARemote;
@@ -100,6 +101,7 @@ public class PersonaleTAService {
      */
     public void aggiungiPersonaleTA(PersonaleTA personaleTA) {
         personaleTAdao.aggiungiPersonale(personaleTA);
+        invalidaCache(personaleTA);
     }
 
     /**
@@ -109,5 +111,16 @@ public class PersonaleTAService {
      */
     public void rimuoviPersonaleTA(PersonaleTA personaleTA) {
         personaleTAdao.rimuoviPersonale(personaleTA);
+        invalidaCache(personaleTA);
+    }
+
+    /**
+     * Scarta il membro del personale dalla cache degli utenti di questa istanza e delle altre.
+     */
+    private static void invalidaCache(PersonaleTA personaleTA) {
+        CacheUtenti.getIstanza().invalida(personaleTA);
+        if (personaleTA != null) {
+            CanaleCluster.getIstanza().pubblica(CanaleCluster.UTENTE, CacheUtenti.chiave(personaleTA));
+        }
     }
 }
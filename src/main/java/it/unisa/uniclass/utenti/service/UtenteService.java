@@ -2,7 +2,9 @@ package it.unisa.uniclass.utenti.service;
 
 import it.unisa.uniclass.common.exceptions.AuthenticationException;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Credenziali;
 import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Principale;
 import it.unisa.uniclass.utenti.model.Utente;
 import it.unisa.uniclass.utenti.service.dao.AccademicoDAO;
 import jakarta.ejb.EJB;
@@ -19,6 +21,7 @@ public class UtenteService {
     // Campi per il supporto ai test (Lazy Loading Pattern)
     private PersonaleTAService personaleTAService;
     private AccademicoService accademicoService;
+    private CredenzialiService credenzialiService;
 
     // Setter per Dependency Injection (usati SOLO dai Test per iniettare i Mock)
     public void setPersonaleTAService(PersonaleTAService personaleTAService) {
@@ -29,6 +32,10 @@ public class UtenteService {
         this.accademicoService = accademicoService;
     }
 
+    public void setCredenzialiService(CredenzialiService credenzialiService) {
+        this.credenzialiService = credenzialiService;
+    }
+
     // Metodi Getter Helper con logica Lazy Loading
     // Se il service è nullo (produzione), lo istanzia col costruttore reale (JNDI).
     // Se è già settato (test), restituisce il mock.
@@ -46,8 +53,16 @@ public class UtenteService {
         return accademicoService;
     }
 
+    protected CredenzialiService getCredenzialiService() {
+        if (credenzialiService == null) {
+            credenzialiService = new CredenzialiService();
+        }
+        return credenzialiService;
+    }
+
     /**
      * Recupera un utente dal database utilizzando la sua email e password.
+     * La password viene verificata sulle sole credenziali: l'entità completa si carica dopo l'autenticazione.
      *
      * @param email L'email dell'utente da cercare.
      * @param password La password dell'utente da cercare.
@@ -56,27 +71,52 @@ public class UtenteService {
      */
     public Utente retrieveByUserAndPassword(String email, String password) {
         try {
-            // MODIFICA: Utilizzo dei metodi getter helper invece di 'new' diretto
-            PersonaleTA personaleTA = (PersonaleTA) getPersonaleTAService().trovaEmail(email);
-            Accademico accademico = (Accademico) getAccademicoService().trovaEmailUniClass(email);
-            
-            if (personaleTA != null) {
-                if (personaleTA.getPassword().equals(password)) {
-                    return personaleTA;
-                } else {
-                    throw new AuthenticationException("Password errata");
-                }
-            } else if (accademico != null) {
-                if (accademico.getPassword().equals(password)) {
-                    return accademico;
-                } else {
-                    throw new AuthenticationException("Password errata");
-                }
+            Credenziali credenziali = getCredenzialiService().trovaCredenziali(email);
+            if (credenziali == null) {
+                return null;
             }
+            if (!getCredenzialiService().autentica(credenziali, password)) {
+                throw new AuthenticationException("Password errata");
+            }
+            if (credenziali.isPersonaleTA()) {
+                return getPersonaleTAService().trovaPersonale(Long.parseLong(credenziali.id()));
+            }
+            return getAccademicoService().trovaAccademicoUniClass(credenziali.id());
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Risolve l'entità dell'utente collegato, passando dalla {@link CacheUtenti}.
+     *
+     * @param principale L'utente collegato, come conservato in sessione.
+     * @return L'accademico o il membro del personale TA, oppure null se non esiste più.
+     */
+    public Utente trovaUtente(Principale principale) {
+        if (principale == null) {
             return null;
+        }
+        CacheUtenti cache = CacheUtenti.getIstanza();
+        String chiave = CacheUtenti.chiave(principale);
+        Utente utente = cache.trova(chiave);
+        if (utente != null) {
+            return utente;
+        }
+        long versione = cache.versione();
+        try {
+            if (principale.isPersonaleTA()) {
+                utente = getPersonaleTAService().trovaPersonale(Long.parseLong(principale.getId()));
+            } else {
+                utente = getAccademicoService().trovaAccademicoUniClass(principale.getId());
+            }
         } catch (NoResultException e) {
             return null;
         }
+        if (utente != null) {
+            cache.metti(chiave, utente, versione);
+        }
+        return utente;
     }
 
     /**
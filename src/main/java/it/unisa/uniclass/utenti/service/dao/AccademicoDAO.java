@@ -1,9 +1,13 @@
 package it.unisa.uniclass.utenti.service.dao;
 
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.StatoAttivazione;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import jakarta.persistence.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Stateless(name = "AccademicoDAO")
@@ -70,4 +74,77 @@ public class AccademicoDAO implements AccademicoRemote {
         accademico.setAttivato(attivazione);
         emUniclass.merge(accademico);
     }
-}
\ No newline at end of file
+
+    /**
+     * Legge matricola, tipo e stato di attivazione degli accademici con le email indicate, con una sola query.
+     * @param emails Le email da cercare.
+     * @return Gli accademici trovati; le email non registrate vengono ignorate.
+     */
+    @Override
+    public List<StatoAttivazione> trovaStatoEmail(List<String> emails) {
+        TypedQuery<StatoAttivazione> query = emUniclass.createNamedQuery(Accademico.TROVA_STATO_EMAIL, StatoAttivazione.class);
+        query.setParameter("emails", emails);
+        return query.getResultList();
+    }
+
+    /**
+     * Attiva gli accademici indicati con un solo UPDATE, in una transazione propria,
+     * assegnando a ognuno l'hash della sua password. Gli accademici già attivi non vengono toccati.
+     * @param matricole Le matricole degli accademici.
+     * @param password Gli hash delle password, nello stesso ordine delle matricole.
+     * @return Le matricole effettivamente attivate.
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<String> attivaAccademici(List<String> matricole, List<String> password) {
+        if (matricole.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder("UPDATE accademico SET attivato = TRUE, password = v.password FROM (VALUES ");
+        for (int i = 0; i < matricole.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?").append(2 * i + 1).append(", ?").append(2 * i + 2).append(')');
+        }
+        sql.append(") AS v(matricola, password) WHERE accademico.matricola = v.matricola AND accademico.attivato = FALSE")
+                .append(" RETURNING accademico.matricola");
+        Query query = emUniclass.createNativeQuery(sql.toString());
+        for (int i = 0; i < matricole.size(); i++) {
+            query.setParameter(2 * i + 1, matricole.get(i));
+            query.setParameter(2 * i + 2, password.get(i));
+        }
+        return aggiorna(query);
+    }
+
+    /**
+     * Disattiva gli accademici indicati con un solo UPDATE, in una transazione propria.
+     * Gli accademici già disattivati non vengono toccati.
+     * @param matricole Le matricole degli accademici.
+     * @return Le matricole effettivamente disattivate.
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<String> disattivaAccademici(List<String> matricole) {
+        if (matricole.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder("UPDATE accademico SET attivato = FALSE WHERE attivato = TRUE AND matricola IN (");
+        for (int i = 0; i < matricole.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?").append(i + 1);
+        }
+        sql.append(") RETURNING matricola");
+        Query query = emUniclass.createNativeQuery(sql.toString());
+        for (int i = 0; i < matricole.size(); i++) {
+            query.setParameter(i + 1, matricole.get(i));
+        }
+        return aggiorna(query);
+    }
+
+    private List<String> aggiorna(Query query) {
+        List<String> aggiornate = new ArrayList<>();
+        for (Object matricola : query.getResultList()) {
+            aggiornate.add((String) matricola);
+        }
+        // L'UPDATE nativo non passa dalla cache condivisa di EclipseLink: gli accademici già letti vanno riletti
+        emUniclass.getEntityManagerFactory().getCache().evict(Accademico.class);
+        return aggiornate;
+    }
+}
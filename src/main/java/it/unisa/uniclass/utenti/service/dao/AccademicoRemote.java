@@ -1,6 +1,7 @@
 package it.unisa.uniclass.utenti.service.dao;
 
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.StatoAttivazione;
 import jakarta.ejb.Remote;
 
 import java.util.List;
@@ -15,4 +16,7 @@ public interface AccademicoRemote {
     public void rimuoviAccademico(Accademico accademico);
     public List<String> retrieveEmail();
     public void cambiaAttivazione(Accademico accademico, boolean attivazione);
+    public List<StatoAttivazione> trovaStatoEmail(List<String> emails);
+    public List<String> attivaAccademici(List<String> matricole, List<String> password);
+    public List<String> disattivaAccademici(List<String> matricole);
 }
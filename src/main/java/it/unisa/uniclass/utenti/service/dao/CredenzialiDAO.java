@@ -0,0 +1,74 @@
+package it.unisa.uniclass.utenti.service.dao;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Credenziali;
+import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Tipo;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.*;
+
+import java.util.List;
+
+@Stateless(name = "CredenzialiDAO")
+public class CredenzialiDAO implements CredenzialiRemote {
+
+    @PersistenceContext(unitName = "DBUniClassPU")
+    private EntityManager emUniclass;
+
+    /**
+     * Legge le credenziali di un accademico o di un membro del personale TA con una sola query sull'indice dell'email.
+     * @param email L'email dell'utente.
+     * @return Le credenziali, oppure null se l'email non è registrata.
+     */
+    @Override
+    public Credenziali trovaCredenziali(String email) {
+        Query query = emUniclass.createNamedQuery(Accademico.TROVA_CREDENZIALI);
+        query.setParameter(1, email);
+        List<?> righe = query.getResultList();
+        if (righe.isEmpty()) {
+            return null;
+        }
+        // Un'email registrata in entrambe le tabelle vale come accademico: la query ordina per tabella e restituisce una riga
+        Object[] riga = (Object[]) righe.get(0);
+        Tipo tipo;
+        if (Boolean.TRUE.equals(riga[0])) {
+            tipo = Tipo.PersonaleTA;
+        } else {
+            // Il tipo dell'accademico è salvato come ordinale
+            tipo = riga[2] != null ? Tipo.values()[((Number) riga[2]).intValue()] : null;
+        }
+        return new Credenziali((String) riga[1], tipo, (String) riga[3], Boolean.TRUE.equals(riga[4]));
+    }
+
+    /**
+     * Sostituisce l'hash della password, se quello salvato è ancora quello delle credenziali lette.
+     * L'UPDATE nativo non passa dalla cache condivisa di EclipseLink: l'utente aggiornato ne viene rimosso,
+     * altrimenti un salvataggio successivo dell'entità in cache riscriverebbe il vecchio hash.
+     * @param credenziali Le credenziali lette al login.
+     * @param nuovaPassword Il nuovo hash della password.
+     * @return true se l'hash è stato sostituito.
+     */
+    @Override
+    public boolean aggiornaPassword(Credenziali credenziali, String nuovaPassword) {
+        Query query;
+        Class<?> entita;
+        Object id;
+        if (credenziali.isPersonaleTA()) {
+            query = emUniclass.createNamedQuery(PersonaleTA.AGGIORNA_PASSWORD);
+            entita = PersonaleTA.class;
+            id = Long.parseLong(credenziali.id());
+        } else {
+            query = emUniclass.createNamedQuery(Accademico.AGGIORNA_PASSWORD);
+            entita = Accademico.class;
+            id = credenziali.id();
+        }
+        query.setParameter(1, nuovaPassword);
+        query.setParameter(2, id);
+        query.setParameter(3, credenziali.password());
+        if (query.executeUpdate() == 0) {
+            return false;
+        }
+        emUniclass.getEntityManagerFactory().getCache().evict(entita, id);
+        return true;
+    }
+}
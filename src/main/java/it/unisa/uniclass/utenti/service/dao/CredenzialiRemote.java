@@ -0,0 +1,10 @@
+package it.unisa.uniclass.utenti.service.dao;
+
+import it.unisa.uniclass.utenti.model.Credenziali;
+import jakarta.ejb.Remote;
+
+@Remote
+public interface CredenzialiRemote {
+    public Credenziali trovaCredenziali(String email);
+    public boolean aggiornaPassword(Credenziali credenziali, String nuovaPassword);
+}
@@ -8,7 +8,7 @@
 <%
     /* Sessione HTTP */
     HttpSession sessione = request.getSession(true);
-    Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+    Principale user = (Principale) sessione.getAttribute("currentSessionUser");
     if(user != null){
         session.setAttribute("utenteEmail", user.getEmail());
     }
@@ -1,12 +1,12 @@
 <%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 
-<%@ page import="it.unisa.uniclass.utenti.model.Utente, it.unisa.uniclass.utenti.model.Tipo" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale, it.unisa.uniclass.utenti.model.Tipo" %>
 
 
 <%
     /* Sessione HTTP */
     HttpSession sessione = request.getSession(true);
-    Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+    Principale user = (Principale) sessione.getAttribute("currentSessionUser");
 	if(user != null){
 		session.setAttribute("utenteEmail", user.getEmail());
 	}
@@ -1,18 +1,17 @@
 <%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 
-<%@ page import="it.unisa.uniclass.utenti.model.Utente, it.unisa.uniclass.utenti.model.Tipo" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale, it.unisa.uniclass.utenti.model.Tipo" %>
 <%@ page import="it.unisa.uniclass.orari.model.CorsoLaurea" %>
 <%@ page import="java.util.List" %>
 <%@ page import="it.unisa.uniclass.orari.service.dao.CorsoLaureaDAO" %>
-<%@ page import="it.unisa.uniclass.utenti.model.Accademico" %>
-<%@ page import="it.unisa.uniclass.utenti.service.AccademicoService" %>
-<%@ page import="it.unisa.uniclass.conversazioni.model.Messaggio" %>
+<%@ page import="it.unisa.uniclass.conversazioni.model.ConversazioneVista" %>
+<%@ page import="java.time.format.DateTimeFormatter" %>
 <%@ page import="java.util.ArrayList" %>
 
 <%
   /* Sessione HTTP */
   HttpSession sessione = request.getSession(true);
-  Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+  Principale user = (Principale) sessione.getAttribute("currentSessionUser");
   if(user != null){
     session.setAttribute("utenteEmail", user.getEmail());
   }
@@ -35,17 +34,15 @@
   }
 
 
-  Accademico accademicoSelf = (Accademico) request.getAttribute("accademicoSelf");
-
-  AccademicoService accademicoService = new AccademicoService();
-
-
-  List<Accademico> accademiciConversazione;
-  List<Messaggio> messaggi = new ArrayList<Messaggio>();
 
+  List<ConversazioneVista> conversazioni = new ArrayList<ConversazioneVista>();
   if (tipoUtente == Tipo.Docente || tipoUtente == Tipo.Studente || tipoUtente == Tipo.Coordinatore) {
-     messaggi = (List<Messaggio>) request.getAttribute("messaggi");
+    List<ConversazioneVista> trovate = (List<ConversazioneVista>) request.getAttribute("conversazioni");
+    if (trovate != null) {
+      conversazioni = trovate;
+    }
   }
+  DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 %>
 
 
@@ -111,39 +108,45 @@
 
 
   <div class="mega-container">
+    <h1>Cerca</h1>
+      <form id="ricerca-form" class="ricerca-form" action="javascript:void(0)">
+        <input type="search" id="ricerca-testo" class="form-textarea" placeholder="Cerca nei messaggi e negli avvisi"/>
+      </form>
+      <div class="avvisi-container" id="ricerca-risultati"></div>
+    <h1>Avvisi</h1>
+      <div class="avvisi-container" id="avvisi-lista">
+        <div class="preview" id="avvisi-vuoto">Nessun avviso</div>
+      </div>
     <h1>Conversazioni</h1>
       <div class="conversations-container">
         <%
-          List<Accademico> accademiciFor = new ArrayList<>();
-          for(Messaggio m: messaggi) {
-            Accademico accademico = new Accademico();
-            if (m.getDestinatario().getEmail().equals(accademicoSelf.getEmail()) && !accademiciFor.contains(m.getAutore())) {
-              accademico = m.getAutore();
-              accademiciFor.add(accademico);
-            } else if (m.getDestinatario().getEmail().equals(accademicoSelf.getEmail()) && accademiciFor.contains(m.getAutore())) {
-              continue;
-            } else if (m.getAutore().getEmail().equals(accademicoSelf.getEmail()) && accademiciFor.contains(m.getDestinatario())) {
-              continue;
-            } else if (m.getAutore().getEmail().equals(accademicoSelf.getEmail()) && !accademiciFor.contains(m.getDestinatario())) {
-              accademico = m.getDestinatario();
-              accademiciFor.add(accademico);
-            }
-          }
-          for(Accademico accademico : accademiciFor) {
+          for(ConversazioneVista conversazione : conversazioni) {
+            Tipo tipoInterlocutore = conversazione.interlocutoreTipo();
         %>
-        <a href="chatServlet?accademico=<%=accademico.getEmail()%>&accademicoSelf=<%=accademicoSelf.getEmail()%>" class="conversation">
-          <%    if(accademico.getTipo().equals(Tipo.Studente)){ %>
+        <a href="chatServlet?accademico=<%=conversazione.interlocutoreEmail()%>" class="conversation">
+          <%    if(tipoInterlocutore == Tipo.Studente){ %>
           <div class="profile-picture">
             <img src="images/icons/iconstudent.png" alt="Foto profilo">
           </div>
-          <%   } else if (accademico.getTipo().equals(Tipo.Docente) || accademico.getTipo().equals(Tipo.Coordinatore)) { %>
+          <%   } else if (tipoInterlocutore == Tipo.Docente || tipoInterlocutore == Tipo.Coordinatore) { %>
           <div class="profile-picture">
             <img src="images/icons/iconprof.png" alt="Foto profilo">
           </div>
           <%
             }
           %>
-          <div class="username"><%=accademico.getNome()%> <%=accademico.getCognome()%></div>
+          <div class="conversation-info">
+            <div class="username"><%=conversazione.interlocutoreNome()%> <%=conversazione.interlocutoreCognome()%></div>
+            <div class="preview"><%= conversazione.anteprima() != null ? conversazione.anteprima() : "" %></div>
+          </div>
+          <div class="conversation-meta">
+            <% if (conversazione.dataUltimoMessaggio() != null) { %>
+            <div class="timestamp"><%= conversazione.dataUltimoMessaggio().format(formatoData) %></div>
+            <% } %>
+            <% if (conversazione.nonLetti() > 0) { %>
+            <span class="unread-badge"><%= conversazione.nonLetti() %></span>
+            <% } %>
+          </div>
         </a>
         <% } %>
       </div>
@@ -188,8 +191,6 @@
         <!-- Le opzioni delle email verranno caricate tramite AJAX -->
       </select>
 
-      <br><br>
-      <input type="hidden" name="topic" value="null"/>
 
       <br><br>
 
@@ -205,6 +206,8 @@
 
 
   <script src="scripts/formChat.js" defer></script>
+  <script src="scripts/avvisi.js" defer></script>
+  <script src="scripts/cercaMessaggi.js" defer></script>
   <%@include file = "footer.jsp" %>
 </body>
 </html>
\ No newline at end of file
@@ -1,11 +1,11 @@
-<%@ page import="it.unisa.uniclass.utenti.model.Utente" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale" %>
 <%@ page import="it.unisa.uniclass.utenti.model.Tipo" %>
 <%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
 
 
 <%
     HttpSession sessione = request.getSession(true);
-    Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+    Principale user = (Principale) sessione.getAttribute("currentSessionUser");
 
 
     /* controllo tipo utente*/
@@ -47,6 +47,10 @@
                     <p class="error">Il tuo Account non è ancora stato attivato!</p>
                     <p class="error">Riceverai le credenziali di accesso quando il tuo account sarà attivo.</p>
                 </div>
+                <% } else if(request.getParameter("action") != null && request.getParameter("action").equalsIgnoreCase("busy")) { %>
+                <div class="tableRow">
+                    <p class="error">Troppi accessi in corso, riprova tra qualche secondo.</p>
+                </div>
                 <% }%>
                 <div>
                     <h1 class="titolologin">
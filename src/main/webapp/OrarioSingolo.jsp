@@ -1,4 +1,4 @@
-<%@ page import="it.unisa.uniclass.utenti.model.Utente" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale" %>
 <%@ page import="it.unisa.uniclass.utenti.model.Tipo" %>
 <%@ page import="java.util.List" %>
 <%@ page import="it.unisa.uniclass.orari.model.*" %>
@@ -15,7 +15,7 @@
 <%
   /* Sessione HTTP */
   HttpSession sessione = request.getSession(true);
-  Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+  Principale user = (Principale) sessione.getAttribute("currentSessionUser");
   if(user != null){
     session.setAttribute("utenteEmail", user.getEmail());
   }
@@ -1,6 +1,6 @@
 <%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 
-<%@ page import="it.unisa.uniclass.utenti.model.Utente, it.unisa.uniclass.utenti.model.Tipo" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale, it.unisa.uniclass.utenti.model.Tipo" %>
 <%@ page import="it.unisa.uniclass.orari.model.CorsoLaurea" %>
 <%@ page import="java.util.List" %>
 <%@ page import="it.unisa.uniclass.utenti.model.Accademico" %>
@@ -8,7 +8,7 @@
 <%
     /* Sessione HTTP */
     HttpSession sessione = request.getSession(true);
-    Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+    Principale user = (Principale) sessione.getAttribute("currentSessionUser");
 
     /* controllo tipo utente*/
 
@@ -91,6 +91,7 @@
         <div id="error" class="error"></div>
         <br>
 
+        <p>Se l'attivazione riesce si riceve un resoconto con la password generata: è l'unica copia, da consegnare all'interessato.</p>
         <form action="${pageContext.request.contextPath}/AttivaUtentiServlet?param=add" method="POST" onsubmit="return validateActivation()">
             <label for="matricola">Matricola:</label>
             <input type="text" id="matricola" name="matricola" required><br><br>
@@ -107,6 +108,22 @@
 
             <input type="submit" class="submit-btn" value="Invia">
         </form>
+
+        <br>
+        <h2>Attivazione da File</h2>
+        <p>File CSV con una riga <i>email,matricola,tipo</i> per utente. Si riceve un resoconto con l'esito di ogni riga e, per gli utenti attivati, la password generata: è l'unica copia, da consegnare agli interessati.</p>
+        <form action="${pageContext.request.contextPath}/AttivazioneMassivaServlet" method="POST" enctype="multipart/form-data">
+            <label for="file">File CSV:</label>
+            <input type="file" id="file" name="file" accept=".csv,text/csv" required><br><br>
+
+            <label for="operazione">Operazione:</label>
+            <select id="operazione" name="operazione" required>
+                <option value="attiva">Attiva</option>
+                <option value="disattiva">Disattiva</option>
+            </select><br><br>
+
+            <input type="submit" class="submit-btn" value="Carica">
+        </form>
     </div>
 
     <div class ="right-block">
@@ -1,14 +1,14 @@
 <%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 
-<%@ page import="it.unisa.uniclass.utenti.model.Utente, it.unisa.uniclass.utenti.model.Tipo" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale, it.unisa.uniclass.utenti.model.Tipo" %>
 <%@ page import="it.unisa.uniclass.orari.model.CorsoLaurea" %>
 <%@ page import="java.util.List" %>
-<%@ page import="it.unisa.uniclass.orari.service.AulaService" %>
+<%@ page import="it.unisa.uniclass.orari.service.RiferimentiService" %>
 
 <%
     /* Sessione HTTP */
     HttpSession sessione = request.getSession(true);
-    Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+    Principale user = (Principale) sessione.getAttribute("currentSessionUser");
     if(user != null){
         session.setAttribute("utenteEmail", user.getEmail());
     }
@@ -23,8 +23,8 @@
     else
         tipoUtente = null;
 
-    AulaService aulaService = new AulaService();
-    List<String> edificitotali = aulaService.trovaEdifici();
+    RiferimentiService riferimentiService = new RiferimentiService();
+    List<String> edificitotali = riferimentiService.trovaEdifici();
 
     List<CorsoLaurea> corsiLaurea = (List<CorsoLaurea>) request.getAttribute("corsi");
 
@@ -1,17 +1,15 @@
 <%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 
-<%@ page import="it.unisa.uniclass.utenti.model.Utente, it.unisa.uniclass.utenti.model.Tipo" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale, it.unisa.uniclass.utenti.model.Tipo" %>
 <%@ page import="it.unisa.uniclass.orari.model.CorsoLaurea" %>
 <%@ page import="java.util.List" %>
-<%@ page import="it.unisa.uniclass.conversazioni.model.Messaggio" %>
-<%@ page import="it.unisa.uniclass.utenti.model.Accademico" %>
-<%@ page import="it.unisa.uniclass.utenti.service.AccademicoService" %>
+<%@ page import="it.unisa.uniclass.conversazioni.model.MessaggioVista" %>
 <%@ page import="java.util.ArrayList" %>
 
 <%
     /* Sessione HTTP */
     HttpSession sessione = request.getSession(true);
-    Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+    Principale user = (Principale) sessione.getAttribute("currentSessionUser");
     if(user != null){
         session.setAttribute("utenteEmail", user.getEmail());
     }
@@ -31,23 +29,20 @@
     Long id = (Long) request.getAttribute("id");
     String email = (String) request.getAttribute("email");
 
-    //Accademico accademico = (Accademico) request.getAttribute("accademico");
-    Accademico accademico = (Accademico) session.getAttribute("accademico");
-    //Accademico accademicoSelf = (Accademico) request.getAttribute("accademicoSelf");
-    Accademico accademicoSelf = (Accademico) session.getAttribute("accademicoSelf");
+    String emailAccademico = (String) request.getAttribute("emailAccademico");
+    String emailSelf = (String) request.getAttribute("emailSelf");
 
 
 
-    List<Messaggio> messaggi = new ArrayList<Messaggio>();
-    List<Messaggio> messaggiInviati;
-    List<Messaggio> messaggiRicevuti;
-    //List<Messaggio> messaggigi = (List<Messaggio>) request.getAttribute("messaggigi");
-    List<Messaggio> messaggigi = (List<Messaggio>) session.getAttribute("messaggigi");
+    List<MessaggioVista> messaggi = new ArrayList<MessaggioVista>();
+    List<MessaggioVista> messaggiInviati;
+    List<MessaggioVista> messaggiRicevuti;
+    List<MessaggioVista> messaggigi = (List<MessaggioVista>) request.getAttribute("messaggigi");
 
     if (tipoUtente == Tipo.Docente || tipoUtente == Tipo.Studente || tipoUtente == Tipo.Coordinatore){
-        // messaggi = (List<Messaggio>) request.getAttribute("messaggi");
-         messaggiInviati = (List<Messaggio>) request.getAttribute("messaggiInviati");
-         messaggiRicevuti = (List<Messaggio>) request.getAttribute("messaggiRicevuti");
+        // messaggi = (List<MessaggioVista>) request.getAttribute("messaggi");
+         messaggiInviati = (List<MessaggioVista>) request.getAttribute("messaggiInviati");
+         messaggiRicevuti = (List<MessaggioVista>) request.getAttribute("messaggiRicevuti");
     }
 
 %>
@@ -64,6 +59,8 @@
     <link type="text/css" rel="stylesheet" href="styles/chatCss.css">
     <link rel="icon" href="images/logois.png" sizes="32x32" type="image/png">
     <script src="https://code.jquery.com/jquery-3.6.4.min.js"></script>
+    <script src="scripts/caricaMessaggi.js" type="text/javascript"></script>
+    <script src="scripts/chatSocket.js" type="text/javascript"></script>
 
 </head>
 <body>
@@ -125,36 +122,44 @@
         <h2></h2>
     </div>
 
-    <div id="chat-box" class="chat-box">
+    <%
+        /* Cursore della pagina: il messaggio più vecchio mostrato, usato per caricare lo storico precedente */
+        MessaggioVista piuVecchio = (messaggigi != null && !messaggigi.isEmpty()) ? messaggigi.get(0) : null;
+    %>
+    <div id="chat-box" class="chat-box"
+         data-accademico="<%= emailAccademico %>"
+         data-self="<%= emailSelf %>"
+         data-prima="<%= piuVecchio != null ? piuVecchio.dateTime() : "" %>"
+         data-prima-id="<%= piuVecchio != null ? piuVecchio.id() : "" %>">
         <%
-            for (Messaggio messaggio : messaggigi) {
-                if (!messaggio.getTopic().getNome().equals("VUOTO")) {
+            for (MessaggioVista messaggio : messaggigi) {
+                if (messaggio.topic() != null && !messaggio.topic().equals("VUOTO")) {
         %>
         <div class="message red-text">
-            <span class="message-text">[<%= messaggio.getTopic().getNome()%>]</span>
+            <span class="message-text">[<%= messaggio.topic()%>]</span>
         </div>
-            <% if (messaggio.getAutore().getEmail().equals(accademicoSelf.getEmail())) {%>
+            <% if (emailSelf.equals(messaggio.autoreEmail())) {%>
             <div class="message self">
-                <span class="message-text"><%= messaggio.getBody() %></span>
+                <span class="message-text"><%= messaggio.body() %></span>
             </div>
             <%
-            } else if (messaggio.getAutore().getEmail().equals(accademico.getEmail())) {
+            } else if (emailAccademico.equals(messaggio.autoreEmail())) {
             %>
             <div class="message author">
-                <span class="message-text"><%= messaggio.getBody() %></span>
+                <span class="message-text"><%= messaggio.body() %></span>
             </div>
                 <% } %>
         <%
-        } else if (messaggio.getAutore().getEmail().equals(accademicoSelf.getEmail())) {
+        } else if (emailSelf.equals(messaggio.autoreEmail())) {
         %>
         <div class="message self">
-            <span class="message-text"><%= messaggio.getBody() %></span>
+            <span class="message-text"><%= messaggio.body() %></span>
         </div>
         <%
-        } else if (messaggio.getAutore().getEmail().equals(accademico.getEmail())) {
+        } else if (emailAccademico.equals(messaggio.autoreEmail())) {
         %>
         <div class="message author">
-            <span class="message-text"><%= messaggio.getBody() %></span>
+            <span class="message-text"><%= messaggio.body() %></span>
         </div>
         <%
                 }
@@ -166,9 +171,9 @@
         <label for="testo">Messaggio:</label>
         <input type="text" id="testo" name="testo" class="chat-input" placeholder="Scrivi un messaggio..." required>
 
-        <input type="hidden" id="emailInvio" name="emailInvio" value="<%=accademico.getEmail()%>">
+        <input type="hidden" id="emailInvio" name="emailInvio" value="<%=emailAccademico%>">
 
-        <button type="button" class="send-button" onclick="window.location.href='inviaMessaggioChatServlet?testo=' + encodeURIComponent(document.getElementById('testo').value) + '&emailInvio=' + encodeURIComponent(document.getElementById('emailInvio').value)">Invia</button>
+        <button type="button" id="invia" class="send-button">Invia</button>
     </div>
 
 </div>
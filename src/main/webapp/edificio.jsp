@@ -1,21 +1,15 @@
 <%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 
-<%@ page import="it.unisa.uniclass.utenti.model.Utente, it.unisa.uniclass.utenti.model.Tipo" %>
+<%@ page import="it.unisa.uniclass.utenti.model.Principale, it.unisa.uniclass.utenti.model.Tipo" %>
 <%@ page import="it.unisa.uniclass.orari.model.CorsoLaurea" %>
-<%@ page import="it.unisa.uniclass.orari.model.Lezione" %>
-<%@ page import="it.unisa.uniclass.orari.service.AulaService" %>
-<%@ page import="it.unisa.uniclass.orari.model.Aula" %>
-<%@ page import="it.unisa.uniclass.orari.service.LezioneService" %>
+<%@ page import="it.unisa.uniclass.orari.model.Fascia" %>
+<%@ page import="it.unisa.uniclass.orari.model.OccupazioneAula" %>
 <%@ page import="java.util.*" %>
-<%@ page import="java.sql.Time" %>
-<%@ page import="java.time.LocalDate" %>
-<%@ page import="java.time.format.TextStyle" %>
-<%@ page import="java.time.LocalTime" %>
 
 <%
     /* Sessione HTTP */
     HttpSession sessione = request.getSession(true);
-    Utente user = (Utente) sessione.getAttribute("currentSessionUser");
+    Principale user = (Principale) sessione.getAttribute("currentSessionUser");
     if(user != null){
         session.setAttribute("utenteEmail", user.getEmail());
     }
@@ -30,7 +24,7 @@
         tipoUtente = null;
 
     List<CorsoLaurea> corsiLaurea = (List<CorsoLaurea>) request.getAttribute("corsi");
-    List<Aula> aule = (List<Aula>) request.getAttribute("aule");
+    List<OccupazioneAula> occupazione = (List<OccupazioneAula>) request.getAttribute("occupazione");
     String edificio = (String) request.getAttribute("ed");
 
 %>
@@ -140,60 +134,29 @@
 
 <ul class="buildings">
     <%
-        LocalTime oraCorrente = LocalTime.now();
-        LocalDate oggi = LocalDate.now();
-        String giornoCorrente = oggi.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ITALY);
-        String giornoCorrenteMaiuscolo = giornoCorrente.replace("è", "e").replace("ì", "i").toUpperCase(Locale.ITALY);
-
-        for (Aula aula : aule){
-            boolean occ = false; // Reset for each classroom
-
-            LezioneService lezioneService = new LezioneService();
-            List<Lezione> lezioni = lezioneService.trovaLezioniAule(aula.getNome());
-            lezioni.sort(Comparator.comparing(Lezione::getGiorno).thenComparing(Lezione::getOraInizio));
-
-            // Check if the aula is occupied at the current time of day
-            for(Lezione lezione : lezioni){
-                LocalTime oraInizioLezione = lezione.getOraInizio().toLocalTime();
-                LocalTime oraFineLezione = lezione.getOraFine().toLocalTime();
-
-                if(giornoCorrenteMaiuscolo.equals(lezione.getGiorno().toString())){
-                    if (oraCorrente.isAfter(oraInizioLezione) && oraCorrente.isBefore(oraFineLezione)) {
-
-                        occ = true;
-                        break; // Exit the loop if the room is occupied at the current time
-                    }else{
-                        break;
-                    }
-                }
-            }
-
-            // Output for each classroom
+        for (OccupazioneAula aula : occupazione){
     %>
     <li class="building">
-        <% if (occ) { %>
+        <% if (aula.occupata()) { %>
         <img class="imgOcc" src="images/icons/aulaOccupata.png">
         <% } else { %>
         <img class="imgOcc" src="images/icons/aulaLibera.png">
         <% } %>
-        <%= aula.getNome() %>
+        <%= aula.aula() %>
 
         <ul class="classes">
             <%
-                // Displaying the lessons for the classroom
-                for (Lezione lezione : lezioni) {
-                    if(lezione.getAula().getNome().equals(aula.getNome())){
+                for (Fascia fascia : aula.fasce()) {
             %>
             <li class="occupata">
-                <%= lezione.getGiorno() %>
-                <%= lezione.getOraInizio() %>
-                <%= lezione.getOraFine() %>
-                <%= lezione.getCorso().getNome() %>
-                <%= lezione.getCorso().getAnnoDidattico().getAnno() %>
-                <%= lezione.getResto().getNome() %>
+                <%= fascia.giorno() %>
+                <%= fascia.inizio() %>
+                <%= fascia.fine() %>
+                <%= fascia.corso() %>
+                <%= fascia.anno() %>
+                <%= fascia.resto() %>
             </li>
             <%
-                    }
                 }
             %>
         </ul>
@@ -0,0 +1,40 @@
+// Feed degli avvisi del corso di laurea tramite Server-Sent Events.
+// EventSource si riconnette da solo e rimanda Last-Event-ID, così il server invia solo gli avvisi persi.
+document.addEventListener("DOMContentLoaded", function () {
+    var lista = document.getElementById("avvisi-lista");
+    if (!lista || typeof EventSource === "undefined") {
+        return;
+    }
+
+    var vuoto = document.getElementById("avvisi-vuoto");
+    var ricevuti = {};
+    var sorgente = new EventSource("avvisiStream");
+
+    sorgente.addEventListener("avviso", function (evento) {
+        var avviso = JSON.parse(evento.data);
+        if (ricevuti[avviso.id]) {
+            return;
+        }
+        ricevuti[avviso.id] = true;
+        if (vuoto) {
+            vuoto.style.display = "none";
+        }
+
+        var div = document.createElement("div");
+        div.className = "avviso";
+        var titolo = document.createElement("div");
+        titolo.className = "avviso-topic";
+        titolo.textContent = avviso.topic + (avviso.autore ? " - " + avviso.autore : "");
+        var testo = document.createElement("div");
+        testo.className = "avviso-testo";
+        testo.textContent = avviso.body;
+        var data = document.createElement("div");
+        data.className = "timestamp";
+        data.textContent = avviso.dateTime.replace("T", " ").substring(0, 16);
+        div.appendChild(titolo);
+        div.appendChild(testo);
+        div.appendChild(data);
+        // I più recenti in alto
+        lista.insertBefore(div, lista.firstChild);
+    });
+});
@@ -0,0 +1,80 @@
+// Caricamento dello storico della chat a pagine: quando l'utente arriva in cima
+// alla chat-box viene richiesta la pagina precedente al messaggio più vecchio mostrato.
+document.addEventListener("DOMContentLoaded", function () {
+    var chatBox = document.getElementById("chat-box");
+    if (!chatBox) {
+        return;
+    }
+
+    var inCaricamento = false;
+    var finito = chatBox.dataset.prima === "";
+
+    // All'apertura la chat mostra i messaggi più recenti
+    chatBox.scrollTop = chatBox.scrollHeight;
+
+    function creaMessaggio(classe, testo) {
+        var div = document.createElement("div");
+        div.className = "message " + classe;
+        var span = document.createElement("span");
+        span.className = "message-text";
+        span.textContent = testo;
+        div.appendChild(span);
+        return div;
+    }
+
+    function caricaPrecedenti() {
+        if (inCaricamento || finito) {
+            return;
+        }
+        inCaricamento = true;
+
+        var url = "caricaMessaggi?accademico=" + encodeURIComponent(chatBox.dataset.accademico)
+            + "&prima=" + encodeURIComponent(chatBox.dataset.prima)
+            + "&primaId=" + encodeURIComponent(chatBox.dataset.primaId);
+
+        var xhr = new XMLHttpRequest();
+        xhr.open("GET", url, true);
+        xhr.onload = function () {
+            inCaricamento = false;
+            if (xhr.status !== 200) {
+                console.error("Errore nel caricamento dei messaggi: " + xhr.status);
+                return;
+            }
+
+            // La risposta è ordinata dal più recente al più vecchio
+            var messaggi = JSON.parse(xhr.responseText);
+            if (messaggi.length === 0) {
+                finito = true;
+                return;
+            }
+
+            var altezzaPrecedente = chatBox.scrollHeight;
+            var frammento = document.createDocumentFragment();
+            for (var i = messaggi.length - 1; i >= 0; i--) {
+                var messaggio = messaggi[i];
+                if (messaggio.topic && messaggio.topic !== "VUOTO") {
+                    frammento.appendChild(creaMessaggio("red-text", "[" + messaggio.topic + "]"));
+                }
+                frammento.appendChild(creaMessaggio(messaggio.self ? "self" : "author", messaggio.body));
+            }
+            chatBox.insertBefore(frammento, chatBox.firstChild);
+
+            var piuVecchio = messaggi[messaggi.length - 1];
+            chatBox.dataset.prima = piuVecchio.dateTime;
+            chatBox.dataset.primaId = piuVecchio.id;
+
+            // Mantiene la posizione di lettura dopo l'inserimento in testa
+            chatBox.scrollTop = chatBox.scrollHeight - altezzaPrecedente;
+        };
+        xhr.onerror = function () {
+            inCaricamento = false;
+        };
+        xhr.send();
+    }
+
+    chatBox.addEventListener("scroll", function () {
+        if (chatBox.scrollTop === 0) {
+            caricaPrecedenti();
+        }
+    });
+});
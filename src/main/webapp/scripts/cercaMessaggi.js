@@ -0,0 +1,65 @@
+// Ricerca nei messaggi e negli avvisi: la richiesta parte dopo una breve pausa nella digitazione.
+document.addEventListener("DOMContentLoaded", function () {
+    var campo = document.getElementById("ricerca-testo");
+    var risultati = document.getElementById("ricerca-risultati");
+    if (!campo || !risultati) {
+        return;
+    }
+
+    var attesa = null;
+    var ultimaRicerca = "";
+
+    function mostra(messaggi) {
+        risultati.innerHTML = "";
+        if (messaggi.length === 0) {
+            var vuoto = document.createElement("div");
+            vuoto.className = "preview";
+            vuoto.textContent = "Nessun risultato";
+            risultati.appendChild(vuoto);
+            return;
+        }
+        messaggi.forEach(function (messaggio) {
+            var div = document.createElement(messaggio.interlocutore ? "a" : "div");
+            div.className = "avviso";
+            if (messaggio.interlocutore) {
+                div.href = "chatServlet?accademico=" + encodeURIComponent(messaggio.interlocutore);
+            }
+            var titolo = document.createElement("div");
+            titolo.className = "avviso-topic";
+            titolo.textContent = (messaggio.topic ? messaggio.topic + " - " : "") + (messaggio.self ? "Tu" : (messaggio.autore || ""));
+            var testo = document.createElement("div");
+            testo.className = "avviso-testo";
+            testo.textContent = messaggio.body;
+            var data = document.createElement("div");
+            data.className = "timestamp";
+            data.textContent = messaggio.dateTime.replace("T", " ").substring(0, 16);
+            div.appendChild(titolo);
+            div.appendChild(testo);
+            div.appendChild(data);
+            risultati.appendChild(div);
+        });
+    }
+
+    campo.addEventListener("input", function () {
+        clearTimeout(attesa);
+        attesa = setTimeout(function () {
+            var testo = campo.value.trim();
+            if (testo === ultimaRicerca) {
+                return;
+            }
+            ultimaRicerca = testo;
+            if (testo.length < 2) {
+                risultati.innerHTML = "";
+                return;
+            }
+            fetch("cercaMessaggi?q=" + encodeURIComponent(testo))
+                .then(function (risposta) { return risposta.ok ? risposta.json() : []; })
+                .then(function (messaggi) {
+                    // Scarta le risposte di ricerche già superate
+                    if (testo === ultimaRicerca) {
+                        mostra(messaggi);
+                    }
+                });
+        }, 250);
+    });
+});
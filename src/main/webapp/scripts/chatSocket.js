@@ -0,0 +1,102 @@
+// Client WebSocket della chat: invia i messaggi senza ricaricare la pagina e mostra
+// in tempo reale quelli consegnati dal server a questa conversazione.
+document.addEventListener("DOMContentLoaded", function () {
+    var chatBox = document.getElementById("chat-box");
+    var campoTesto = document.getElementById("testo");
+    var bottoneInvia = document.getElementById("invia");
+    if (!chatBox || !campoTesto || !bottoneInvia) {
+        return;
+    }
+
+    var emailInterlocutore = chatBox.dataset.accademico;
+    var emailSelf = chatBox.dataset.self;
+    var socket = null;
+    var tentativi = 0;
+
+    function aggiungiMessaggio(messaggio) {
+        var div = document.createElement("div");
+        div.className = "message " + (messaggio.autore === emailSelf ? "self" : "author");
+        var span = document.createElement("span");
+        span.className = "message-text";
+        span.textContent = messaggio.body;
+        div.appendChild(span);
+        chatBox.appendChild(div);
+        chatBox.scrollTop = chatBox.scrollHeight;
+    }
+
+    function appartieneAllaChat(messaggio) {
+        return (messaggio.autore === emailSelf && messaggio.destinatario === emailInterlocutore)
+            || (messaggio.autore === emailInterlocutore && messaggio.destinatario === emailSelf);
+    }
+
+    // Identificativo casuale della connessione, con cui il server associa l'handshake alla sessione
+    function nuovaConnessione() {
+        if (window.crypto && window.crypto.randomUUID) {
+            return window.crypto.randomUUID();
+        }
+        var byte = window.crypto.getRandomValues(new Uint8Array(16));
+        return Array.prototype.map.call(byte, function (b) {
+            return ("0" + b.toString(16)).slice(-2);
+        }).join("");
+    }
+
+    function connetti() {
+        var protocollo = window.location.protocol === "https:" ? "wss://" : "ws://";
+        var percorso = window.location.pathname.substring(0, window.location.pathname.lastIndexOf("/"));
+        socket = new WebSocket(protocollo + window.location.host + percorso + "/chatSocket?connessione=" + nuovaConnessione());
+
+        socket.onopen = function () {
+            tentativi = 0;
+        };
+
+        socket.onmessage = function (evento) {
+            var messaggio = JSON.parse(evento.data);
+            if (messaggio.errore) {
+                console.error("Errore chat: " + messaggio.errore);
+                return;
+            }
+            if (!appartieneAllaChat(messaggio)) {
+                return;
+            }
+            aggiungiMessaggio(messaggio);
+            if (messaggio.autore === emailInterlocutore) {
+                // La chat è aperta: il messaggio ricevuto è già letto
+                socket.send(JSON.stringify({tipo: "letto", interlocutore: emailInterlocutore}));
+            }
+        };
+
+        socket.onclose = function (evento) {
+            // 1008: utente non autenticato, inutile riprovare
+            if (evento.code === 1008) {
+                return;
+            }
+            tentativi++;
+            setTimeout(connetti, Math.min(30000, 1000 * Math.pow(2, tentativi)));
+        };
+    }
+
+    function invia() {
+        var testo = campoTesto.value;
+        if (testo.trim() === "") {
+            return;
+        }
+        if (socket && socket.readyState === WebSocket.OPEN) {
+            socket.send(JSON.stringify({tipo: "messaggio", destinatario: emailInterlocutore, testo: testo}));
+            campoTesto.value = "";
+        } else {
+            // Socket non disponibile: invio tradizionale tramite servlet
+            window.location.href = "inviaMessaggioChatServlet?testo=" + encodeURIComponent(testo)
+                + "&emailInvio=" + encodeURIComponent(emailInterlocutore);
+        }
+    }
+
+    bottoneInvia.addEventListener("click", invia);
+    campoTesto.addEventListener("keydown", function (evento) {
+        if (evento.key === "Enter") {
+            evento.preventDefault();
+            invia();
+        }
+    });
+
+    connetti();
+});
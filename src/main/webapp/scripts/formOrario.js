@@ -1,51 +1,34 @@
+// Catalogo dei corsi di laurea con resti e anni, scaricato una sola volta al caricamento della pagina
+var catalogoOrari = null;
+
+var richiestaCatalogo = new XMLHttpRequest();
+richiestaCatalogo.open("GET", "catalogoOrari", true);
+richiestaCatalogo.onload = function() {
+    if (richiestaCatalogo.status === 200) {
+        catalogoOrari = {};
+        JSON.parse(richiestaCatalogo.responseText).forEach(function(corso) {
+            catalogoOrari[corso["nome"]] = corso;
+        });
+        // Il corso potrebbe essere stato scelto prima dell'arrivo del catalogo
+        aggiornaResto();
+    }
+};
+richiestaCatalogo.send();
+
+// Sostituisce le opzioni di un select con quelle indicate, dopo l'opzione vuota
+function compilaSelect(select, vuota, voci) {
+    select.innerHTML = "";
+    select.add(new Option(vuota, ""));
+    voci.forEach(function(voce) {
+        select.add(new Option(voce["nome"], voce["nome"]));
+    });
+}
+
 // Funzione per aggiornare il resto e l'anno in base alla selezione del corso di laurea
 function aggiornaResto() {
     var corsoLaurea = document.getElementById("corsoLaurea").value;
+    var corso = catalogoOrari && corsoLaurea ? catalogoOrari[corsoLaurea] : null;
 
-    if (corsoLaurea) {
-        var xhr = new XMLHttpRequest();
-        var xhrr = new XMLHttpRequest();
-
-        // Richiesta per il resto
-        xhr.open("GET", "getResto?corsoLaurea=" + corsoLaurea, true);
-        xhr.onload = function() {
-            if (xhr.status === 200) {
-                var response = JSON.parse(xhr.responseText);
-
-                console.log(response);
-
-                // Aggiorna le opzioni per il "resto"
-                var restoSelect = document.getElementById("resto");
-                restoSelect.innerHTML = '<option value="">-- Seleziona un resto --</option>';
-                response.forEach(function(resto) {
-                    // Aggiungi ogni "resto" come opzione nel select
-                    console.log(resto);
-                    restoSelect.innerHTML += `<option value="${resto["nome"]}">${resto["nome"]}</option>`;
-                });
-            }
-        };
-
-        // Richiesta per l'anno didattico
-        xhrr.open("GET", "getAnno?corsoLaurea=" + corsoLaurea, true);
-        xhrr.onload = function() {
-            if (xhrr.status === 200) {  // Corretto: controlla lo stato di xhrr, non xhr
-                var response = JSON.parse(xhrr.responseText);
-
-                console.log(response);
-
-                // Aggiorna le opzioni per l'"anno"
-                var annoSelect = document.getElementById("anno");
-                annoSelect.innerHTML = '<option value="">-- Seleziona un anno --</option>';
-                response.forEach(function(anno) {
-                    console.log(anno);
-                    annoSelect.innerHTML += `<option value="${anno["nome"]}">${anno["nome"]}</option>`;
-                });
-            }
-        };
-
-        // Invia le richieste
-        xhrr.send();
-        xhr.send()
-
-    }
+    compilaSelect(document.getElementById("resto"), "-- Seleziona un resto --", corso ? corso["resti"] : []);
+    compilaSelect(document.getElementById("anno"), "-- Seleziona un anno --", corso ? corso["anni"] : []);
 }
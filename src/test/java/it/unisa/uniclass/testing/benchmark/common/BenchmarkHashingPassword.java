@@ -0,0 +1,71 @@
+package it.unisa.uniclass.testing.benchmark.common;
+
+import it.unisa.uniclass.common.security.CredentialSecurity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misura il tempo di verifica di una password con PBKDF2 al variare delle iterazioni e sceglie
+ * il numero di iterazioni più alto che resta entro il tempo concesso a un login.
+ *
+ * Il tempo concesso, in millisecondi, si passa con la proprietà di sistema {@code budget} (predefinito 100);
+ * il valore scelto va impostato sul server con {@link CredentialSecurity#PROPRIETA_ITERAZIONI}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkHashingPassword {
+
+    @Param({"10000", "100000", "210000", "310000", "600000"})
+    private int iterazioni;
+
+    private String hash;
+
+    public static void main(String[] args) throws RunnerException {
+        double budget = Double.parseDouble(System.getProperty("budget", "100"));
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkHashingPassword.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result-hashing-password.json")
+                .build();
+
+        Collection<RunResult> risultati = new Runner(opt).run();
+
+        int scelte = 0;
+        for (RunResult risultato : risultati) {
+            int provate = Integer.parseInt(risultato.getParams().getParam("iterazioni"));
+            double millisecondi = risultato.getPrimaryResult().getScore();
+            System.out.printf("%d iterazioni: %.1f ms%n", provate, millisecondi);
+            if (millisecondi <= budget && provate > scelte) {
+                scelte = provate;
+            }
+        }
+        if (scelte < CredentialSecurity.ITERAZIONI_MINIME) {
+            System.out.printf("Nessun valore entro %.0f ms: usare almeno -D%s=%d%n",
+                    budget, CredentialSecurity.PROPRIETA_ITERAZIONI, CredentialSecurity.ITERAZIONI_MINIME);
+        } else {
+            System.out.printf("Entro %.0f ms: -D%s=%d%n", budget, CredentialSecurity.PROPRIETA_ITERAZIONI, scelte);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hash = CredentialSecurity.hashPassword("1111WxY$", iterazioni);
+    }
+
+    @Benchmark
+    public boolean verificaPbkdf2() {
+        return CredentialSecurity.verificaPassword("1111WxY$", hash);
+    }
+}
@@ -0,0 +1,123 @@
+package it.unisa.uniclass.testing.benchmark.conversazioni;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.service.IndiceMessaggi;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Studente;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Confronta la ricerca con l'indice invertito con la scansione di tutti i messaggi caricati
+ * con {@code trovaTutti()}, l'unico modo di cercare nel testo prima dell'indice.
+ * I messaggi sono generati con una distribuzione delle parole sbilanciata, come nel testo reale.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BenchmarkRicercaMessaggi {
+
+    private static final int UTENTI = 500;
+    private static final int LIMITE = 20;
+
+    @Param({"10000", "100000"})
+    private int messaggi;
+
+    private IndiceMessaggi indice;
+    private List<Messaggio> tutti;
+    private String[] ricerche;
+    private int prossima;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkRicercaMessaggi.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result-ricerca-messaggi.json")
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        String[] vocabolario = new String[5000];
+        for (int i = 0; i < vocabolario.length; i++) {
+            vocabolario[i] = "parola" + i;
+        }
+        Accademico[] utenti = new Accademico[UTENTI];
+        for (int i = 0; i < UTENTI; i++) {
+            utenti[i] = new Studente();
+            utenti[i].setMatricola(String.format("0512%06d", i));
+        }
+
+        Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        indice = new IndiceMessaggi();
+        tutti = new ArrayList<>(messaggi);
+        for (int i = 1; i <= messaggi; i++) {
+            StringBuilder body = new StringBuilder();
+            for (int p = 0; p < 12; p++) {
+                int parola = (int) Math.min(vocabolario.length - 1, Math.abs(random.nextGaussian()) * 800);
+                body.append(vocabolario[parola]).append(' ');
+            }
+            Messaggio messaggio = new Messaggio();
+            idField.set(messaggio, (long) i);
+            messaggio.setAutore(utenti[i % UTENTI]);
+            messaggio.setDestinatario(utenti[(i * 7 + 1) % UTENTI]);
+            messaggio.setBody(body.toString());
+            tutti.add(messaggio);
+            indice.aggiungi(messaggio);
+        }
+
+        ricerche = new String[64];
+        for (int i = 0; i < ricerche.length; i++) {
+            ricerche[i] = vocabolario[random.nextInt(200)] + " " + vocabolario[random.nextInt(1000)];
+        }
+    }
+
+    @Benchmark
+    public void ricercaIndice(Blackhole bh) {
+        int i = prossima++ & (ricerche.length - 1);
+        bh.consume(indice.cerca(ricerche[i], matricola(i), null, LIMITE));
+    }
+
+    @Benchmark
+    public void ricercaScansione(Blackhole bh) {
+        int i = prossima++ & (ricerche.length - 1);
+        List<String> termini = IndiceMessaggi.tokenizza(ricerche[i]);
+        String matricola = matricola(i);
+        List<Messaggio> trovati = new ArrayList<>();
+        for (Messaggio messaggio : tutti) {
+            if (!matricola.equals(messaggio.getAutore().getMatricola())
+                    && !matricola.equals(messaggio.getDestinatario().getMatricola())) {
+                continue;
+            }
+            List<String> testo = IndiceMessaggi.tokenizza(messaggio.getBody());
+            if (testo.containsAll(termini)) {
+                trovati.add(messaggio);
+            }
+        }
+        trovati.sort(Comparator.comparing(Messaggio::getId).reversed());
+        bh.consume(trovati.subList(0, Math.min(LIMITE, trovati.size())));
+    }
+
+    private static String matricola(int i) {
+        return String.format("0512%06d", (i * 31) % UTENTI);
+    }
+}
@@ -0,0 +1,190 @@
+package it.unisa.uniclass.testing.benchmark.conversazioni;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.service.IndiceMessaggi;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Studente;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Confronta la ricerca con l'indice invertito in memoria con la ricerca full-text di Postgres,
+ * su una colonna {@code tsvector} generata e indicizzata con GIN. Le due ricerche applicano lo stesso
+ * filtro sull'utente e restituiscono i primi {@value #LIMITE} risultati per rilevanza; la query SQL
+ * include il giro sul database che la ricerca in Postgres richiederebbe a ogni chiamata.
+ *
+ * I messaggi sono generati con lo stesso seme di {@link BenchmarkRicercaMessaggi}. Il database è quello
+ * indicato dalla proprietà {@code uniclass.benchmark.jdbc} (con {@code uniclass.benchmark.utente} e
+ * {@code uniclass.benchmark.password}), altrimenti un container {@code postgres:17} avviato con Testcontainers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BenchmarkRicercaMessaggiPostgres {
+
+    private static final int UTENTI = 500;
+    private static final int LIMITE = 20;
+    private static final int LOTTO_INSERIMENTO = 1000;
+
+    private static final String RICERCA =
+            "SELECT id FROM benchmark_messaggi, plainto_tsquery('italian', ?) q"
+            + " WHERE (autore = ? OR destinatario = ?) AND testo @@ q"
+            + " ORDER BY ts_rank(testo, q) DESC, id DESC LIMIT " + LIMITE;
+
+    @Param({"10000", "100000"})
+    private int messaggi;
+
+    private PostgreSQLContainer<?> container;
+    private Connection connessione;
+    private PreparedStatement ricerca;
+    private IndiceMessaggi indice;
+    private String[] ricerche;
+    private int prossima;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkRicercaMessaggiPostgres.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result-ricerca-messaggi-postgres.json")
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connessione = apriConnessione();
+        try (Statement statement = connessione.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS benchmark_messaggi");
+            statement.execute("CREATE TABLE benchmark_messaggi (id BIGINT PRIMARY KEY, autore VARCHAR(10),"
+                    + " destinatario VARCHAR(10), body TEXT,"
+                    + " testo TSVECTOR GENERATED ALWAYS AS (to_tsvector('italian', body)) STORED)");
+            statement.execute("CREATE INDEX benchmark_messaggi_testo ON benchmark_messaggi USING GIN (testo)");
+        }
+
+        Random random = new Random(42);
+        String[] vocabolario = new String[5000];
+        for (int i = 0; i < vocabolario.length; i++) {
+            vocabolario[i] = "parola" + i;
+        }
+        Accademico[] utenti = new Accademico[UTENTI];
+        for (int i = 0; i < UTENTI; i++) {
+            utenti[i] = new Studente();
+            utenti[i].setMatricola(String.format("0512%06d", i));
+        }
+
+        Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        indice = new IndiceMessaggi();
+        connessione.setAutoCommit(false);
+        try (PreparedStatement inserimento = connessione.prepareStatement(
+                "INSERT INTO benchmark_messaggi (id, autore, destinatario, body) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= messaggi; i++) {
+                StringBuilder body = new StringBuilder();
+                for (int p = 0; p < 12; p++) {
+                    int parola = (int) Math.min(vocabolario.length - 1, Math.abs(random.nextGaussian()) * 800);
+                    body.append(vocabolario[parola]).append(' ');
+                }
+                Messaggio messaggio = new Messaggio();
+                idField.set(messaggio, (long) i);
+                messaggio.setAutore(utenti[i % UTENTI]);
+                messaggio.setDestinatario(utenti[(i * 7 + 1) % UTENTI]);
+                messaggio.setBody(body.toString());
+                indice.aggiungi(messaggio);
+
+                inserimento.setLong(1, i);
+                inserimento.setString(2, messaggio.getAutore().getMatricola());
+                inserimento.setString(3, messaggio.getDestinatario().getMatricola());
+                inserimento.setString(4, messaggio.getBody());
+                inserimento.addBatch();
+                if (i % LOTTO_INSERIMENTO == 0) {
+                    inserimento.executeBatch();
+                }
+            }
+            inserimento.executeBatch();
+        }
+        connessione.commit();
+        connessione.setAutoCommit(true);
+        try (Statement statement = connessione.createStatement()) {
+            statement.execute("ANALYZE benchmark_messaggi");
+        }
+        ricerca = connessione.prepareStatement(RICERCA);
+
+        ricerche = new String[64];
+        for (int i = 0; i < ricerche.length; i++) {
+            ricerche[i] = vocabolario[random.nextInt(200)] + " " + vocabolario[random.nextInt(1000)];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connessione.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS benchmark_messaggi");
+        } finally {
+            ricerca.close();
+            connessione.close();
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+
+    @Benchmark
+    public void ricercaIndice(Blackhole bh) {
+        int i = prossima++ & (ricerche.length - 1);
+        bh.consume(indice.cerca(ricerche[i], matricola(i), null, LIMITE));
+    }
+
+    @Benchmark
+    public void ricercaTsvector(Blackhole bh) throws SQLException {
+        int i = prossima++ & (ricerche.length - 1);
+        String matricola = matricola(i);
+        ricerca.setString(1, ricerche[i]);
+        ricerca.setString(2, matricola);
+        ricerca.setString(3, matricola);
+        List<Long> trovati = new ArrayList<>(LIMITE);
+        try (ResultSet rs = ricerca.executeQuery()) {
+            while (rs.next()) {
+                trovati.add(rs.getLong(1));
+            }
+        }
+        bh.consume(trovati);
+    }
+
+    private Connection apriConnessione() throws SQLException {
+        String url = System.getProperty("uniclass.benchmark.jdbc");
+        if (url != null) {
+            return DriverManager.getConnection(url,
+                    System.getProperty("uniclass.benchmark.utente", "postgres"),
+                    System.getProperty("uniclass.benchmark.password", "postgres"));
+        }
+        container = new PostgreSQLContainer<>("postgres:17");
+        container.start();
+        return DriverManager.getConnection(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    private static String matricola(int i) {
+        return String.format("0512%06d", (i * 31) % UTENTI);
+    }
+}
@@ -0,0 +1,101 @@
+package it.unisa.uniclass.testing.benchmark.orari;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Conflitto;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.service.RilevatoreConflitti;
+import it.unisa.uniclass.utenti.model.Docente;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Confronta il controllo dei conflitti di un'importazione semestrale con la scansione a linea mobile
+ * e con il confronto di tutte le coppie di lezioni.
+ * Le lezioni sono generate su fasce di due ore, con aule e docenti scelti a caso, come in un orario reale.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BenchmarkConflitti {
+
+    @Param({"1000", "5000"})
+    private int lezioni;
+
+    private List<Lezione> semestre;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkConflitti.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result-conflitti.json")
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Aula[] aule = new Aula[lezioni / 20];
+        for (int i = 0; i < aule.length; i++) {
+            aule[i] = new Aula();
+            aule[i].setNome("Aula " + i);
+        }
+        Docente[] docenti = new Docente[lezioni / 10];
+        for (int i = 0; i < docenti.length; i++) {
+            docenti[i] = new Docente();
+            docenti[i].setMatricola(String.format("0512%06d", i));
+        }
+        Giorno[] giorni = {Giorno.LUNEDI, Giorno.MARTEDI, Giorno.MERCOLEDI, Giorno.GIOVEDI, Giorno.VENERDI};
+
+        semestre = new ArrayList<>(lezioni);
+        for (int i = 0; i < lezioni; i++) {
+            int ora = 8 + random.nextInt(9);
+            Lezione lezione = new Lezione(1, Time.valueOf(String.format("%02d:00:00", ora)), Time.valueOf(String.format("%02d:00:00", ora + 2)),
+                    giorni[random.nextInt(giorni.length)], null, null, aule[random.nextInt(aule.length)]);
+            lezione.setDocenti(List.of(docenti[random.nextInt(docenti.length)]));
+            semestre.add(lezione);
+        }
+    }
+
+    @Benchmark
+    public void conflittiLineaMobile(Blackhole bh) {
+        bh.consume(RilevatoreConflitti.rileva(semestre));
+    }
+
+    @Benchmark
+    public void conflittiCoppie(Blackhole bh) {
+        List<Conflitto> conflitti = new ArrayList<>();
+        for (int i = 0; i < semestre.size(); i++) {
+            Lezione a = semestre.get(i);
+            for (int j = i + 1; j < semestre.size(); j++) {
+                Lezione b = semestre.get(j);
+                if (a.getGiorno() != b.getGiorno() || !a.getOraInizio().before(b.getOraFine()) || !b.getOraInizio().before(a.getOraFine())) {
+                    continue;
+                }
+                if (a.getAula().getNome().equals(b.getAula().getNome())) {
+                    conflitti.add(new Conflitto(Conflitto.Tipo.AULA, a.getAula().getNome(), a, b));
+                }
+                if (a.getDocenti().get(0).getMatricola().equals(b.getDocenti().get(0).getMatricola())) {
+                    conflitti.add(new Conflitto(Conflitto.Tipo.DOCENTE, a.getDocenti().get(0).getMatricola(), a, b));
+                }
+            }
+        }
+        bh.consume(conflitti);
+    }
+}
@@ -2,18 +2,34 @@ package it.unisa.uniclass.testing.benchmark.orari;
 
 import it.unisa.uniclass.orari.model.*;
 import it.unisa.uniclass.orari.service.LezioneService;
+import it.unisa.uniclass.orari.service.dao.LezioneDAO;
 import it.unisa.uniclass.orari.service.dao.LezioneRemote;
+import it.unisa.uniclass.utenti.model.Docente;
+import it.unisa.uniclass.utenti.model.Tipo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.TypedQuery;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import java.sql.Time;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
@@ -32,14 +48,25 @@ public class BenchmarkLezioneService {
     private Time oraInizio;
     private Time oraFine;
 
+    /**
+     * Proprietà di sistema con l'URL JDBC di un database PostgreSQL usa e getta per le misure reali:
+     * le tabelle vengono ricreate a ogni esecuzione. Senza la proprietà i benchmark su database vengono saltati.
+     */
+    public static final String PROPRIETA_URL = "uniclass.benchmark.db.url";
+
     public static void main(String[] args) throws RunnerException {
-        Options opt = new OptionsBuilder()
+        ChainedOptionsBuilder builder = new OptionsBuilder()
                 .include(BenchmarkLezioneService.class.getSimpleName())
                 .resultFormat(ResultFormatType.JSON)
-                .result("jmh-result-lezione.json")
-                .build();
+                .result("jmh-result-lezione.json");
+        String url = System.getProperty(PROPRIETA_URL);
+        if (url == null) {
+            builder.exclude(".*Database$");
+        } else {
+            builder.jvmArgsAppend("-D" + PROPRIETA_URL + "=" + url);
+        }
 
-        new Runner(opt).run();
+        new Runner(builder.build()).run();
     }
 
     @Setup(Level.Trial)
@@ -136,5 +163,182 @@ public class BenchmarkLezioneService {
         service.rimuoviLezione(lezioneStatica);
         bh.consume(lezioneStatica);
     }
-}
 
+    /**
+     * Conta le istruzioni SQL inviate al database da EclipseLink.
+     */
+    public static class ContaIstruzioni extends SessionEventAdapter {
+        public static final AtomicLong ISTRUZIONI = new AtomicLong();
+
+        @Override
+        public void preExecuteCall(SessionEvent event) {
+            ISTRUZIONI.incrementAndGet();
+        }
+    }
+
+    /**
+     * Database reale con un orario di {@code lezioni} lezioni, su 8 corsi, 5 aule e 2 docenti per corso.
+     * La cache condivisa di EclipseLink è disattivata e il contesto di persistenza viene svuotato a ogni chiamata,
+     * così ogni chiamata legge dal database come una richiesta nuova.
+     */
+    @State(Scope.Thread)
+    public static class Database {
+
+        private static final String QUERY_SENZA_FETCH = "SELECT l FROM Lezione l " +
+                "JOIN l.corso c JOIN c.corsoLaurea cl JOIN l.resto r JOIN c.annoDidattico a " +
+                "WHERE cl.id = :corsoLaureaId AND r.id = :restoId AND a.id = :annoId";
+
+        @Param({"10", "50"})
+        private int lezioni;
+
+        private EntityManagerFactory emf;
+        private EntityManager em;
+        private LezioneDAO dao;
+        private long corsoLaureaId;
+        private long restoId;
+        private int annoId;
+        private long chiamate;
+        private long istruzioni;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Map<String, String> proprieta = new HashMap<>();
+            proprieta.put("jakarta.persistence.transactionType", "RESOURCE_LOCAL");
+            proprieta.put("jakarta.persistence.jtaDataSource", "");
+            proprieta.put("jakarta.persistence.jdbc.url", System.getProperty(PROPRIETA_URL));
+            proprieta.put("eclipselink.ddl-generation", "drop-and-create-tables");
+            proprieta.put("eclipselink.cache.shared.default", "false");
+            proprieta.put("eclipselink.logging.level", "WARNING");
+            proprieta.put("eclipselink.session-event-listener", ContaIstruzioni.class.getName());
+            emf = Persistence.createEntityManagerFactory("DBUniClassPU", proprieta);
+            em = emf.createEntityManager();
+            popola();
+            dao = new LezioneDAO();
+            dao.emUniClass = em;
+        }
+
+        private void popola() {
+            em.getTransaction().begin();
+            CorsoLaurea corsoLaurea = new CorsoLaurea("Informatica");
+            em.persist(corsoLaurea);
+            AnnoDidattico anno = new AnnoDidattico("Anno 1");
+            anno.getCorsiLaurea().add(corsoLaurea);
+            em.persist(anno);
+            corsoLaurea.getAnniDidattici().add(anno);
+            Resto resto = new Resto();
+            resto.setNome("Resto 0");
+            resto.setCorsoLaurea(corsoLaurea);
+            em.persist(resto);
+
+            Corso[] corsi = new Corso[8];
+            Docente[][] docenti = new Docente[corsi.length][2];
+            for (int c = 0; c < corsi.length; c++) {
+                corsi[c] = new Corso("Corso " + c);
+                corsi[c].setCorsoLaurea(corsoLaurea);
+                corsi[c].setAnnoDidattico(anno);
+                em.persist(corsi[c]);
+                for (int d = 0; d < docenti[c].length; d++) {
+                    Docente docente = new Docente();
+                    docente.setMatricola(String.format("0512%02d%04d", c, d));
+                    docente.setEmail("docente" + c + "_" + d + "@unisa.it");
+                    docente.setNome("Docente " + c);
+                    docente.setCognome("Cognome " + d);
+                    docente.setTipo(Tipo.Docente);
+                    docente.setCorsoLaurea(corsoLaurea);
+                    docente.getCorsi().add(corsi[c]);
+                    em.persist(docente);
+                    docenti[c][d] = docente;
+                }
+            }
+            Aula[] aule = new Aula[5];
+            for (int a = 0; a < aule.length; a++) {
+                aule[a] = new Aula();
+                aule[a].setNome("P" + a);
+                aule[a].setEdificio("F3");
+                em.persist(aule[a]);
+            }
+            Giorno[] giorni = Giorno.values();
+            for (int i = 0; i < lezioni; i++) {
+                int c = i % corsi.length;
+                int ora = 9 + 2 * ((i / giorni.length) % 4);
+                Lezione lezione = new Lezione(1, Time.valueOf(ora + ":00:00"), Time.valueOf((ora + 2) + ":00:00"),
+                        giorni[i % giorni.length], resto, corsi[c], aule[i % aule.length]);
+                em.persist(lezione);
+                for (Docente docente : docenti[c]) {
+                    docente.getLezioni().add(lezione);
+                }
+            }
+            em.getTransaction().commit();
+            corsoLaureaId = corsoLaurea.getId();
+            restoId = resto.getId();
+            annoId = anno.getId();
+            em.clear();
+        }
+
+        /**
+         * Esegue una lettura come una richiesta nuova e ne conta le istruzioni SQL.
+         */
+        List<Lezione> leggi(Supplier<List<Lezione>> lettura) {
+            em.clear();
+            long prima = ContaIstruzioni.ISTRUZIONI.get();
+            List<Lezione> risultato = lettura.get();
+            // Percorre le lezioni come OrarioSingolo.jsp
+            for (Lezione lezione : risultato) {
+                lezione.getCorso().getNome();
+                lezione.getAula().getNome();
+                lezione.getDocenti().stream().map(d -> d.getNome() + " " + d.getCognome()).collect(Collectors.joining(", "));
+            }
+            istruzioni += ContaIstruzioni.ISTRUZIONI.get() - prima;
+            chiamate++;
+            return risultato;
+        }
+
+        List<Lezione> senzaFetch() {
+            TypedQuery<Lezione> query = em.createQuery(QUERY_SENZA_FETCH, Lezione.class);
+            query.setParameter("corsoLaureaId", corsoLaureaId);
+            query.setParameter("restoId", restoId);
+            query.setParameter("annoId", annoId);
+            List<Lezione> risultato = query.getResultList();
+            for (Lezione lezione : risultato) {
+                lezione.getDocenti().size();
+            }
+            return risultato;
+        }
+
+        @Setup(Level.Iteration)
+        public void azzera() {
+            chiamate = 0;
+            istruzioni = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void stampa() {
+            if (chiamate > 0) {
+                System.out.printf("%n[%d lezioni] istruzioni SQL per chiamata: %.1f%n", lezioni, (double) istruzioni / chiamate);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            em.close();
+            emf.close();
+        }
+    }
+
+    /**
+     * Query precedente: le lezioni senza fetch join, con i docenti caricati lezione per lezione
+     * e corso e aula caricati alla prima lettura.
+     */
+    @Benchmark
+    public void trovaLezioniCorsoLaureaRestoAnnoSenzaFetchDatabase(Database db, Blackhole bh) {
+        bh.consume(db.leggi(db::senzaFetch));
+    }
+
+    /**
+     * Query con fetch join di corso, resto, aula e docenti.
+     */
+    @Benchmark
+    public void trovaLezioniCorsoLaureaRestoAnnoDatabase(Database db, Blackhole bh) {
+        bh.consume(db.leggi(() -> db.dao.trovaLezioniCorsoLaureaRestoAnno(db.corsoLaureaId, db.restoId, db.annoId)));
+    }
+}
@@ -1,10 +1,15 @@
 package it.unisa.uniclass.testing.benchmark.utenti.JMH;
 
+import it.unisa.uniclass.common.security.CredentialSecurity;
 import it.unisa.uniclass.testing.benchmark.utenti.mocks.MockAccademicoDAO;
+import it.unisa.uniclass.testing.benchmark.utenti.mocks.MockCredenzialiDAO;
 import it.unisa.uniclass.testing.benchmark.utenti.mocks.MockPersonaleTADAO;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Credenziali;
 import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.service.AccademicoService;
+import it.unisa.uniclass.utenti.service.CredenzialiService;
 import it.unisa.uniclass.utenti.service.PersonaleTAService;
 import it.unisa.uniclass.utenti.service.UtenteService;
 import org.openjdk.jmh.annotations.*;
@@ -53,9 +58,17 @@ public class UtenteServiceBenchmark {
 
         AccademicoService accService = new AccademicoService(mockAccDao);
 
+        // Mock Credenziali: il login legge solo queste, l'entità si carica dopo la verifica
+        MockCredenzialiDAO mockCredDao = new MockCredenzialiDAO();
+        mockCredDao.add(EMAIL_TA, new Credenziali("1", Tipo.PersonaleTA, CredentialSecurity.hashPassword(PASS_TA), true));
+        mockCredDao.add(EMAIL_ACC, new Credenziali("0512105555", Tipo.Docente, CredentialSecurity.hashPassword(PASS_ACC), true));
+
+        CredenzialiService credService = new CredenzialiService(mockCredDao);
+
         // Injection
         utenteService.setPersonaleTAService(taService);
         utenteService.setAccademicoService(accService);
+        utenteService.setCredenzialiService(credService);
     }
 
     @Benchmark
@@ -1,6 +1,7 @@
 package it.unisa.uniclass.testing.benchmark.utenti.mocks;
 
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.StatoAttivazione;
 import it.unisa.uniclass.utenti.service.dao.AccademicoRemote;
 import java.util.Collections;
 import java.util.List;
@@ -36,4 +37,7 @@ public class MockAccademicoDAO implements AccademicoRemote {
     public void rimuoviAccademico(Accademico a) {}
     public List<String> retrieveEmail() { return Collections.emptyList(); }
     public void cambiaAttivazione(Accademico a, boolean b) {}
+    public List<StatoAttivazione> trovaStatoEmail(List<String> emails) { return Collections.emptyList(); }
+    public List<String> attivaAccademici(List<String> matricole, List<String> password) { return Collections.emptyList(); }
+    public List<String> disattivaAccademici(List<String> matricole) { return Collections.emptyList(); }
 }
\ No newline at end of file
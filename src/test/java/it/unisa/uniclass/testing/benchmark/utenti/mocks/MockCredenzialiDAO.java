@@ -0,0 +1,31 @@
+package it.unisa.uniclass.testing.benchmark.utenti.mocks;
+
+import it.unisa.uniclass.utenti.model.Credenziali;
+import it.unisa.uniclass.utenti.service.dao.CredenzialiRemote;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class MockCredenzialiDAO implements CredenzialiRemote {
+
+    // una riga per email, come l'indice sul database
+    private final Map<String, Credenziali> byEmail = new HashMap<>();
+
+    public void add(String email, Credenziali credenziali) {
+        byEmail.put(email, credenziali);
+    }
+
+    public void clear() {
+        byEmail.clear();
+    }
+
+    @Override
+    public Credenziali trovaCredenziali(String email) {
+        return byEmail.get(email);
+    }
+
+    @Override
+    public boolean aggiornaPassword(Credenziali credenziali, String nuovaPassword) {
+        return false;
+    }
+}
@@ -38,7 +38,7 @@ public class MockPersonaleTADAO implements PersonaleTARemote {
 
     @Override
     public PersonaleTA trovaPersonale(long id) {
-        return null;
+        return personaleDaRitornare;
     }
 
     @Override
@@ -0,0 +1,189 @@
+package it.unisa.uniclass.testing.integration;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.dao.AnnoDidatticoDAO;
+import it.unisa.uniclass.orari.service.dao.AulaDAO;
+import it.unisa.uniclass.orari.service.dao.CorsoLaureaDAO;
+import it.unisa.uniclass.orari.service.dao.RestoDAO;
+import it.unisa.uniclass.testing.benchmark.orari.BenchmarkLezioneService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Conta le istruzioni SQL di ogni piano di caricamento su un database PostgreSQL reale.
+ * Usa lo stesso database usa e getta dei benchmark, indicato con {@code -Duniclass.benchmark.db.url}:
+ * senza la proprietà i test vengono saltati.
+ * Ci sono tre corsi di laurea con due resti e due anni ciascuno, così un caricamento
+ * con una query per corso si distingue da uno con una query per relazione.
+ */
+@DisplayName("Istruzioni SQL per piano di caricamento")
+public class PianiCaricamentoTest {
+
+    private static final int CORSI_LAUREA = 3;
+
+    private static EntityManagerFactory emf;
+
+    private EntityManager em;
+    private PersistenceUnitUtil util;
+
+    @BeforeAll
+    static void creaDatabase() {
+        String url = System.getProperty(BenchmarkLezioneService.PROPRIETA_URL);
+        assumeTrue(url != null, "Database di prova non configurato");
+
+        Map<String, String> proprieta = new HashMap<>();
+        proprieta.put("jakarta.persistence.transactionType", "RESOURCE_LOCAL");
+        proprieta.put("jakarta.persistence.jtaDataSource", "");
+        proprieta.put("jakarta.persistence.jdbc.url", url);
+        proprieta.put("eclipselink.ddl-generation", "drop-and-create-tables");
+        proprieta.put("eclipselink.cache.shared.default", "false");
+        proprieta.put("eclipselink.logging.level", "WARNING");
+        proprieta.put("eclipselink.session-event-listener", BenchmarkLezioneService.ContaIstruzioni.class.getName());
+        emf = Persistence.createEntityManagerFactory("DBUniClassPU", proprieta);
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int c = 0; c < CORSI_LAUREA; c++) {
+            CorsoLaurea corsoLaurea = new CorsoLaurea("Corso " + c);
+            for (int a = 1; a <= 2; a++) {
+                AnnoDidattico anno = new AnnoDidattico("Anno " + a + " corso " + c);
+                anno.getCorsiLaurea().add(corsoLaurea);
+                em.persist(anno);
+                corsoLaurea.getAnniDidattici().add(anno);
+            }
+            corsoLaurea.getResti().add(new Resto("Resto 0", corsoLaurea));
+            corsoLaurea.getResti().add(new Resto("Resto 1", corsoLaurea));
+            em.persist(corsoLaurea);
+
+            Aula aula = new Aula();
+            aula.setNome("P" + c);
+            aula.setEdificio("F3");
+            em.persist(aula);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    @AfterAll
+    static void chiudiDatabase() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        util = emf.getPersistenceUnitUtil();
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.close();
+    }
+
+    private <T> long istruzioni(Supplier<T> lettura) {
+        long prima = BenchmarkLezioneService.ContaIstruzioni.ISTRUZIONI.get();
+        lettura.get();
+        return BenchmarkLezioneService.ContaIstruzioni.ISTRUZIONI.get() - prima;
+    }
+
+    @Test
+    @DisplayName("RIFERIMENTO legge i corsi di laurea con una sola query")
+    void testCorsiLaureaRiferimento() {
+        CorsoLaureaDAO dao = new CorsoLaureaDAO();
+        dao.emUniClass = em;
+
+        assertEquals(1, istruzioni(() -> dao.trovaTutti(PianoCaricamento.RIFERIMENTO)));
+        for (CorsoLaurea corsoLaurea : dao.trovaTutti(PianoCaricamento.RIFERIMENTO)) {
+            assertFalse(util.isLoaded(corsoLaurea, "resti"));
+            assertFalse(util.isLoaded(corsoLaurea, "anniDidattici"));
+        }
+    }
+
+    @Test
+    @DisplayName("ORARIO legge resti e anni con una query per relazione, non per corso")
+    void testCorsiLaureaOrario() {
+        CorsoLaureaDAO dao = new CorsoLaureaDAO();
+        dao.emUniClass = em;
+
+        assertEquals(3, istruzioni(() -> dao.trovaTutti(PianoCaricamento.ORARIO)));
+        List<CorsoLaurea> corsi = dao.trovaTutti(PianoCaricamento.ORARIO);
+        assertEquals(CORSI_LAUREA, corsi.size());
+        for (CorsoLaurea corsoLaurea : corsi) {
+            assertTrue(util.isLoaded(corsoLaurea, "resti"));
+            assertTrue(util.isLoaded(corsoLaurea, "anniDidattici"));
+            assertFalse(util.isLoaded(corsoLaurea, "corsi"));
+        }
+    }
+
+    @Test
+    @DisplayName("RIFERIMENTO non carica le lezioni dei resti")
+    void testRestiRiferimento() {
+        RestoDAO dao = new RestoDAO();
+        dao.emUniClass = em;
+
+        // I resti e il loro corso di laurea
+        assertEquals(2, istruzioni(() -> dao.trovaRestiCorsoLaurea("Corso 0", PianoCaricamento.RIFERIMENTO)));
+        List<Resto> resti = dao.trovaRestiCorsoLaurea("Corso 0", PianoCaricamento.RIFERIMENTO);
+        assertEquals(2, resti.size());
+        for (Resto resto : resti) {
+            assertFalse(util.isLoaded(resto, "lezioni"));
+        }
+    }
+
+    @Test
+    @DisplayName("ORARIO legge gli anni di un corso con i corsi di laurea in due query")
+    void testAnniOrario() {
+        CorsoLaureaDAO corsoLaureaDao = new CorsoLaureaDAO();
+        corsoLaureaDao.emUniClass = em;
+        long id = corsoLaureaDao.trovaTutti(PianoCaricamento.RIFERIMENTO).get(0).getId();
+        em.clear();
+        AnnoDidatticoDAO dao = new AnnoDidatticoDAO();
+        dao.emUniClass = em;
+
+        assertEquals(2, istruzioni(() -> dao.trovaTuttiCorsoLaurea(id, PianoCaricamento.ORARIO)));
+        for (AnnoDidattico anno : dao.trovaTuttiCorsoLaurea(id, PianoCaricamento.ORARIO)) {
+            assertTrue(util.isLoaded(anno, "corsiLaurea"));
+            assertFalse(util.isLoaded(anno, "corsi"));
+        }
+    }
+
+    @Test
+    @DisplayName("EDIFICIO legge le aule senza lezioni, MODIFICA aggiunge una query per tutte le lezioni")
+    void testAule() {
+        AulaDAO dao = new AulaDAO();
+        dao.emUniClass = em;
+
+        assertEquals(1, istruzioni(() -> dao.trovaAuleEdificio("F3", PianoCaricamento.EDIFICIO)));
+        for (Aula aula : dao.trovaAuleEdificio("F3", PianoCaricamento.EDIFICIO)) {
+            assertFalse(util.isLoaded(aula, "lezioni"));
+        }
+
+        em.clear();
+        assertEquals(2, istruzioni(() -> dao.trovaAuleEdificio("F3", PianoCaricamento.MODIFICA)));
+        for (Aula aula : dao.trovaAuleEdificio("F3", PianoCaricamento.MODIFICA)) {
+            assertTrue(util.isLoaded(aula, "lezioni"));
+        }
+    }
+}
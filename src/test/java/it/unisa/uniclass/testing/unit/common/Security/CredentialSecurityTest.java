@@ -0,0 +1,68 @@
+package it.unisa.uniclass.testing.unit.common.Security;
+
+import it.unisa.uniclass.common.security.CredentialSecurity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe CredentialSecurity.
+ * Verifica il formato degli hash PBKDF2, la compatibilità con gli hash SHA-256 precedenti e il rehash.
+ */
+@DisplayName("Test per la classe CredentialSecurity")
+class CredentialSecurityTest {
+
+    private static String sha256(String password) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("hashPassword usa un sale diverso a ogni chiamata")
+    void testHashConSale() {
+        String primo = CredentialSecurity.hashPassword("0000");
+        String secondo = CredentialSecurity.hashPassword("0000");
+
+        assertNotEquals(primo, secondo);
+        assertTrue(primo.startsWith("pbkdf2-sha256$" + CredentialSecurity.getIterazioni() + "$"));
+        assertTrue(CredentialSecurity.verificaPassword("0000", primo));
+        assertTrue(CredentialSecurity.verificaPassword("0000", secondo));
+        assertFalse(CredentialSecurity.verificaPassword("1111", primo));
+    }
+
+    @Test
+    @DisplayName("gli hash SHA-256 senza sale sono ancora accettati e vanno ricalcolati")
+    void testHashLegacy() throws Exception {
+        String legacy = sha256("3201$wEr");
+
+        assertTrue(CredentialSecurity.verificaPassword("3201$wEr", legacy));
+        assertFalse(CredentialSecurity.verificaPassword("altra", legacy));
+        assertTrue(CredentialSecurity.richiedeRehash(legacy));
+    }
+
+    @Test
+    @DisplayName("un hash con meno iterazioni di quelle configurate va ricalcolato")
+    void testRichiedeRehash() {
+        String debole = CredentialSecurity.hashPassword("0000", CredentialSecurity.ITERAZIONI_MINIME);
+
+        assertTrue(CredentialSecurity.verificaPassword("0000", debole));
+        assertTrue(CredentialSecurity.richiedeRehash(debole));
+        assertFalse(CredentialSecurity.richiedeRehash(CredentialSecurity.hashPassword("0000")));
+        assertFalse(CredentialSecurity.richiedeRehash(null));
+    }
+
+    @Test
+    @DisplayName("verificaPassword rifiuta valori mancanti o malformati")
+    void testHashNonValidi() {
+        assertFalse(CredentialSecurity.verificaPassword(null, CredentialSecurity.hashPassword("0000")));
+        assertFalse(CredentialSecurity.verificaPassword("0000", null));
+        assertFalse(CredentialSecurity.verificaPassword("0000", "0000"));
+        assertFalse(CredentialSecurity.verificaPassword("0000", "pbkdf2-sha256$abc$AAAA$AAAA"));
+        assertFalse(CredentialSecurity.verificaPassword("0000", "pbkdf2-sha256$1000$!!$AAAA"));
+        assertFalse(CredentialSecurity.richiedeRehash("pbkdf2-sha256$abc$AAAA$AAAA"));
+    }
+}
@@ -0,0 +1,109 @@
+package it.unisa.uniclass.testing.unit.common.Security;
+
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+import it.unisa.uniclass.common.security.CredentialSecurity;
+import it.unisa.uniclass.common.security.EsecutoreHashing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe EsecutoreHashing.
+ * Verifica che gli hash siano calcolati nel pool e che le richieste oltre la coda vengano rifiutate.
+ */
+@DisplayName("Test per la classe EsecutoreHashing")
+class EsecutoreHashingTest {
+
+    private EsecutoreHashing esecutore;
+
+    @BeforeEach
+    void setUp() {
+        esecutore = new EsecutoreHashing(1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        esecutore.chiudi();
+    }
+
+    @Test
+    @DisplayName("hash e verifica producono lo stesso risultato di CredentialSecurity")
+    void testHashVerifica() {
+        String hash = esecutore.hash("0000");
+
+        assertTrue(esecutore.verifica("0000", hash));
+        assertFalse(esecutore.verifica("1111", hash));
+        assertTrue(CredentialSecurity.verificaPassword("0000", hash));
+        assertEquals(1, esecutore.getThread());
+    }
+
+    @Test
+    @DisplayName("hashTutte restituisce gli hash nell'ordine delle password")
+    void testHashTutte() {
+        EsecutoreHashing parallelo = new EsecutoreHashing(2, 1);
+        try {
+            // Cinque password con due thread e un posto in coda: i gruppi da due non riempiono mai la coda
+            List<String> password = List.of("a", "b", "c", "d", "e");
+            List<String> hash = parallelo.hashTutte(password);
+
+            assertEquals(password.size(), hash.size());
+            for (int i = 0; i < password.size(); i++) {
+                assertTrue(CredentialSecurity.verificaPassword(password.get(i), hash.get(i)));
+            }
+            assertEquals(0, parallelo.getRifiutate());
+        } finally {
+            parallelo.chiudi();
+        }
+    }
+
+    @Test
+    @DisplayName("con thread e coda occupati le nuove richieste vengono rifiutate")
+    void testRifiutoOltreLaCoda() {
+        // Un thread e un posto in coda: con molte richieste contemporanee almeno una viene rifiutata
+        ExecutorService richieste = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Boolean>> esiti = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                esiti.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        esecutore.hash("0000");
+                        return true;
+                    } catch (ServizioSovraccaricoException e) {
+                        return false;
+                    }
+                }, richieste));
+            }
+            long completate = esiti.stream().filter(CompletableFuture::join).count();
+
+            assertTrue(completate >= 1);
+            assertTrue(esecutore.getRifiutate() >= 1);
+            assertEquals(8, completate + esecutore.getRifiutate());
+        } finally {
+            richieste.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("chiudiIstanza arresta il pool condiviso, che viene ricreato al successivo utilizzo")
+    void testChiudiIstanza() {
+        EsecutoreHashing condiviso = EsecutoreHashing.getIstanza();
+        assertSame(condiviso, EsecutoreHashing.getIstanza());
+
+        EsecutoreHashing.chiudiIstanza();
+
+        assertThrows(ServizioSovraccaricoException.class, () -> condiviso.hash("0000"));
+        EsecutoreHashing nuovo = EsecutoreHashing.getIstanza();
+        assertNotSame(condiviso, nuovo);
+        assertTrue(nuovo.verifica("0000", nuovo.hash("0000")));
+        EsecutoreHashing.chiudiIstanza();
+    }
+}
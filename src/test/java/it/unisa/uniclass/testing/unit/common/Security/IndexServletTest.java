@@ -2,7 +2,7 @@ package it.unisa.uniclass.testing.unit.common.Security;
 
 import it.unisa.uniclass.common.IndexServlet;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
+import it.unisa.uniclass.orari.service.RiferimentiService;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -36,10 +36,13 @@ class IndexServletTest {
     private HttpServletRequest request;
     private HttpServletResponse response;
     private RequestDispatcher dispatcher;
+    private RiferimentiService riferimentiService;
 
     @BeforeEach
     void setUp() {
         servlet = new TestableIndexServlet();
+        riferimentiService = mock(RiferimentiService.class);
+        servlet.setRiferimentiService(riferimentiService);
         request = mock(HttpServletRequest.class);
         response = mock(HttpServletResponse.class);
         dispatcher = mock(RequestDispatcher.class);
@@ -58,6 +61,8 @@ class IndexServletTest {
         NameClassPair subctx = new NameClassPair("subctx", "javax.naming.Context");
         NameClassPair leaf = new NameClassPair("leaf", "java.lang.Object");
         when(rootEnum.next()).thenReturn(subctx, leaf);
+        // I corsi di laurea arrivano dalla cache dei dati di riferimento
+        when(riferimentiService.trovaCorsiLaurea()).thenReturn(List.of(mock(CorsoLaurea.class)));
 
         try (MockedConstruction<InitialContext> mockedInitial =
                      mockConstruction(InitialContext.class, (mockCtx, context) -> {
@@ -66,12 +71,7 @@ class IndexServletTest {
                          // ricorsione: per i sotto-nodi lanciamo NamingException (verrà ignorata dal catch)
                          when(mockCtx.list("java:global/subctx")).thenThrow(new NamingException("not a context"));
                          when(mockCtx.list("java:global/leaf")).thenThrow(new NamingException("not a context"));
-                     });
-             // 2) Mock costruttore di CorsoLaureaService per pilotare il ramo success
-             MockedConstruction<CorsoLaureaService> mockedService =
-                     mockConstruction(CorsoLaureaService.class,
-                             (mockService, context) -> when(mockService.trovaTutti())
-                                     .thenReturn(List.of(mock(CorsoLaurea.class))))) {
+                     })) {
 
             servlet.doGet(request, response);
 
@@ -88,14 +88,11 @@ class IndexServletTest {
         // Copriamo comunque il blocco JNDI, poi facciamo fallire il service
         NamingEnumeration<NameClassPair> rootEnum = mock(NamingEnumeration.class);
         when(rootEnum.hasMore()).thenReturn(false); // niente elementi: loop entra e termina
+        when(riferimentiService.trovaCorsiLaurea()).thenThrow(new RuntimeException("DB error"));
 
         try (MockedConstruction<InitialContext> mockedInitial =
                      mockConstruction(InitialContext.class, (mockCtx, context) ->
-                             when(mockCtx.list("java:global")).thenReturn(rootEnum));
-             MockedConstruction<CorsoLaureaService> mockedService =
-                     mockConstruction(CorsoLaureaService.class,
-                             (mockService, context) -> when(mockService.trovaTutti())
-                                     .thenThrow(new RuntimeException("DB error")))) {
+                             when(mockCtx.list("java:global")).thenReturn(rootEnum))) {
 
             servlet.doGet(request, response);
 
@@ -0,0 +1,113 @@
+package it.unisa.uniclass.testing.unit.common.cluster;
+
+import it.unisa.uniclass.common.cluster.CanaleCluster;
+import it.unisa.uniclass.common.cluster.service.dao.NotificaRemote;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CanaleClusterTest {
+
+    @Test
+    void testCanaleInattivoNonPubblica() {
+        NotificaRemote notificaDao = mock(NotificaRemote.class);
+        CanaleCluster canale = new CanaleCluster(false, notificaDao);
+
+        canale.pubblica(CanaleCluster.ORARI, null);
+
+        verifyNoInteractions(notificaDao);
+    }
+
+    @Test
+    void testNotificaRicevutaDaUnAltraIstanza() {
+        NotificaRemote notificaDao = mock(NotificaRemote.class);
+        CanaleCluster mittente = new CanaleCluster(true, notificaDao);
+        CanaleCluster destinatario = new CanaleCluster(true, mock(NotificaRemote.class));
+        List<String> ricevuti = new ArrayList<>();
+        destinatario.registra(CanaleCluster.CONVERSAZIONE, ricevuti::add);
+
+        mittente.pubblica(CanaleCluster.CONVERSAZIONE, "0512100001 0512100002");
+
+        ArgumentCaptor<String> contenuto = ArgumentCaptor.forClass(String.class);
+        verify(notificaDao).notifica(eq(CanaleCluster.CANALE), contenuto.capture());
+        assertTrue(destinatario.ricevi(contenuto.getValue()));
+        assertEquals(List.of("0512100001 0512100002"), ricevuti);
+    }
+
+    @Test
+    void testNotificaDellaStessaIstanzaIgnorata() {
+        NotificaRemote notificaDao = mock(NotificaRemote.class);
+        CanaleCluster canale = new CanaleCluster(true, notificaDao);
+        List<String> ricevuti = new ArrayList<>();
+        canale.registra(CanaleCluster.ORARI, ricevuti::add);
+
+        canale.pubblica(CanaleCluster.ORARI, null);
+
+        ArgumentCaptor<String> contenuto = ArgumentCaptor.forClass(String.class);
+        verify(notificaDao).notifica(eq(CanaleCluster.CANALE), contenuto.capture());
+        assertFalse(canale.ricevi(contenuto.getValue()));
+        assertTrue(ricevuti.isEmpty());
+    }
+
+    @Test
+    void testNotificaSenzaDatoOTipoSconosciuto() {
+        CanaleCluster canale = new CanaleCluster(true, mock(NotificaRemote.class));
+        List<String> ricevuti = new ArrayList<>();
+        canale.registra(CanaleCluster.ORARI, ricevuti::add);
+
+        assertTrue(canale.ricevi("altro-nodo " + CanaleCluster.ORARI));
+        assertFalse(canale.ricevi("altro-nodo sconosciuto 1"));
+        assertFalse(canale.ricevi("malformata"));
+        assertFalse(canale.ricevi(null));
+        assertEquals(List.of(""), ricevuti);
+    }
+
+    @Test
+    void testDatoTroppoLungoDiventaTutti() {
+        NotificaRemote notificaDao = mock(NotificaRemote.class);
+        CanaleCluster canale = new CanaleCluster(true, notificaDao);
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            ids.append(i).append(',');
+        }
+
+        canale.pubblica(CanaleCluster.CHAT, ids.toString());
+
+        ArgumentCaptor<String> contenuto = ArgumentCaptor.forClass(String.class);
+        verify(notificaDao).notifica(eq(CanaleCluster.CANALE), contenuto.capture());
+        assertTrue(contenuto.getValue().endsWith(" " + CanaleCluster.CHAT + " " + CanaleCluster.TUTTI));
+    }
+
+    @Test
+    void testErroreDiPubblicazioneNonPropagato() {
+        NotificaRemote notificaDao = mock(NotificaRemote.class);
+        doThrow(new IllegalStateException("database non raggiungibile")).when(notificaDao).notifica(anyString(), anyString());
+        CanaleCluster canale = new CanaleCluster(true, notificaDao);
+
+        assertDoesNotThrow(() -> canale.pubblica(CanaleCluster.ORARI, null));
+    }
+
+    @Test
+    void testRiallineaPassaTuttiAOgniGestore() {
+        CanaleCluster canale = new CanaleCluster(true, mock(NotificaRemote.class));
+        List<String> ricevuti = new ArrayList<>();
+        canale.registra(CanaleCluster.UTENTE, dato -> ricevuti.add("utente " + dato));
+        canale.registra(CanaleCluster.TOPIC, dato -> {
+            throw new IllegalStateException("gestore non riuscito");
+        });
+        canale.registra(CanaleCluster.ORARI, dato -> ricevuti.add("orari " + dato));
+
+        canale.riallinea();
+
+        assertEquals(2, ricevuti.size());
+        assertTrue(ricevuti.contains("utente " + CanaleCluster.TUTTI));
+        assertTrue(ricevuti.contains("orari " + CanaleCluster.TUTTI));
+    }
+}
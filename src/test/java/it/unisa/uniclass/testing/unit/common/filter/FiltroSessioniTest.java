@@ -0,0 +1,147 @@
+package it.unisa.uniclass.testing.unit.common.filter;
+
+import it.unisa.uniclass.common.Filter.FiltroSessioni;
+import it.unisa.uniclass.common.sessione.ArchivioSessioniMemoria;
+import it.unisa.uniclass.common.sessione.RichiestaSessioneEsterna;
+import it.unisa.uniclass.common.sessione.SessioneEsterna;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FiltroSessioniTest {
+
+    private FiltroSessioni filter;
+    private ArchivioSessioniMemoria archivio;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private FilterChain chain;
+    private Principale principale;
+
+    @BeforeEach
+    void setUp() {
+        filter = new FiltroSessioni();
+        archivio = new ArchivioSessioniMemoria();
+        filter.setArchivio(archivio);
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        chain = mock(FilterChain.class);
+        principale = new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente);
+        when(request.getContextPath()).thenReturn("/ctx");
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(FiltroSessioni.PROPRIETA_ARCHIVIO);
+    }
+
+    @Test
+    void testSenzaArchivioUsaLeSessioniDelContainer() throws Exception {
+        filter.init(mock(FilterConfig.class));
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testArchivioInMemoriaDaConfigurazione() throws Exception {
+        System.setProperty(FiltroSessioni.PROPRIETA_ARCHIVIO, "memoria");
+        filter.init(mock(FilterConfig.class));
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(any(RichiestaSessioneEsterna.class), any(HttpServletResponse.class));
+    }
+
+    @Test
+    void testSessioneSalvataERiletta() throws Exception {
+        // Prima richiesta: il login crea la sessione e la salva prima del redirect
+        doAnswer(invocation -> {
+            HttpServletRequest richiesta = invocation.getArgument(0);
+            HttpServletResponse risposta = invocation.getArgument(1);
+            richiesta.getSession(true).setAttribute(Principale.ATTRIBUTO_SESSIONE, principale);
+            risposta.sendRedirect("/ctx/Home");
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request, response, chain);
+
+        ArgumentCaptor<Cookie> cookie = ArgumentCaptor.forClass(Cookie.class);
+        verify(response).addCookie(cookie.capture());
+        assertEquals(RichiestaSessioneEsterna.NOME_COOKIE, cookie.getValue().getName());
+        assertTrue(cookie.getValue().isHttpOnly());
+        assertEquals("/ctx", cookie.getValue().getPath());
+        assertEquals(1, archivio.getDimensione());
+
+        // Seconda richiesta, anche su un'altra istanza con lo stesso archivio: la sessione viene riletta
+        HttpServletRequest seconda = mock(HttpServletRequest.class);
+        when(seconda.getCookies()).thenReturn(new Cookie[]{cookie.getValue()});
+        FilterChain verifica = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            HttpSession sessione = ((HttpServletRequest) invocation.getArgument(0)).getSession(false);
+            assertInstanceOf(SessioneEsterna.class, sessione);
+            assertEquals(principale, sessione.getAttribute(Principale.ATTRIBUTO_SESSIONE));
+            return null;
+        }).when(verifica).doFilter(any(), any());
+
+        filter.doFilter(seconda, mock(HttpServletResponse.class), verifica);
+
+        verify(verifica).doFilter(any(), any());
+    }
+
+    @Test
+    void testCookieScadutoSenzaSessione() throws Exception {
+        when(request.getCookies()).thenReturn(new Cookie[]{new Cookie(RichiestaSessioneEsterna.NOME_COOKIE, "scaduta")});
+        doAnswer(invocation -> {
+            HttpServletRequest richiesta = invocation.getArgument(0);
+            assertNull(richiesta.getSession(false));
+            // Una volta creata, la sessione è restituita anche da getSession(false)
+            HttpSession creata = richiesta.getSession(true);
+            assertSame(creata, richiesta.getSession(false));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).addCookie(any());
+        assertEquals(0, archivio.getDimensione());
+    }
+
+    @Test
+    void testSenzaSessioneNessunCookie() throws Exception {
+        doAnswer(invocation -> {
+            assertNull(((HttpServletRequest) invocation.getArgument(0)).getSession(false));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).addCookie(any());
+        assertEquals(0, archivio.getDimensione());
+    }
+
+    @Test
+    void testDurataConfigurata() {
+        System.setProperty(FiltroSessioni.PROPRIETA_DURATA, "abc");
+        try {
+            assertEquals(FiltroSessioni.DURATA_PREDEFINITA, FiltroSessioni.minutiDurata());
+            System.setProperty(FiltroSessioni.PROPRIETA_DURATA, "60");
+            assertEquals(60, FiltroSessioni.minutiDurata());
+        } finally {
+            System.clearProperty(FiltroSessioni.PROPRIETA_DURATA);
+        }
+    }
+}
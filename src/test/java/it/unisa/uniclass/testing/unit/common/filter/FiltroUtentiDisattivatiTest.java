@@ -0,0 +1,102 @@
+package it.unisa.uniclass.testing.unit.common.filter;
+
+import it.unisa.uniclass.common.Filter.FiltroUtentiDisattivati;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.UtenteService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FiltroUtentiDisattivatiTest {
+
+    private FiltroUtentiDisattivati filter;
+    private UtenteService utenteService;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private HttpSession session;
+    private FilterChain chain;
+    private Principale principale;
+
+    @BeforeEach
+    void setUp() {
+        filter = new FiltroUtentiDisattivati();
+        utenteService = mock(UtenteService.class);
+        filter.setUtenteService(utenteService);
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        session = mock(HttpSession.class);
+        chain = mock(FilterChain.class);
+        principale = new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente);
+        when(request.getServletPath()).thenReturn("/Home");
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(principale);
+    }
+
+    private static Studente studente(boolean attivato) {
+        Studente studente = new Studente();
+        studente.setMatricola("0512100001");
+        studente.setAttivato(attivato);
+        return studente;
+    }
+
+    @Test
+    void testAccademicoAttivoMantieneLaSessione() throws Exception {
+        when(utenteService.trovaUtente(principale)).thenReturn(studente(true));
+
+        filter.doFilter(request, response, chain);
+
+        verify(session, never()).invalidate();
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testAccademicoDisattivatoPerdeLaSessione() throws Exception {
+        when(utenteService.trovaUtente(principale)).thenReturn(studente(false));
+
+        filter.doFilter(request, response, chain);
+
+        verify(session).invalidate();
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testAccademicoNonPiuRegistratoPerdeLaSessione() throws Exception {
+        when(utenteService.trovaUtente(principale)).thenReturn(null);
+
+        filter.doFilter(request, response, chain);
+
+        verify(session).invalidate();
+    }
+
+    @Test
+    void testPersonaleTAERisorseStaticheNonControllati() throws Exception {
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale("7", "ta@unisa.it", Tipo.PersonaleTA));
+        filter.doFilter(request, response, chain);
+
+        when(request.getServletPath()).thenReturn("/styles/header.css");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(principale);
+        filter.doFilter(request, response, chain);
+
+        verify(utenteService, never()).trovaUtente(any());
+        verify(session, never()).invalidate();
+        verify(chain, times(2)).doFilter(request, response);
+    }
+
+    @Test
+    void testSenzaSessione() throws Exception {
+        when(request.getSession(false)).thenReturn(null);
+
+        filter.doFilter(request, response, chain);
+
+        verifyNoInteractions(utenteService);
+        verify(chain).doFilter(request, response);
+    }
+}
@@ -0,0 +1,137 @@
+package it.unisa.uniclass.testing.unit.common.listener;
+
+import it.unisa.uniclass.common.listener.MonitorSessioni;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import jakarta.servlet.http.HttpSessionEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MonitorSessioniTest {
+
+    private Map<String, Object> attributi;
+    private HttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        attributi = new HashMap<>();
+        session = mock(HttpSession.class);
+        when(session.getId()).thenReturn(UUID.randomUUID().toString());
+        when(session.getAttributeNames()).thenAnswer(invocation -> Collections.enumeration(attributi.keySet()));
+        when(session.getAttribute(anyString())).thenAnswer(invocation -> attributi.get(invocation.<String>getArgument(0)));
+    }
+
+    @Test
+    void testSessioneConPrincipaleSottoSoglia() {
+        MonitorSessioni monitor = new MonitorSessioni(MonitorSessioni.SOGLIA_PREDEFINITA);
+        attributi.put("currentSessionUser", new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente));
+        attributi.put("utenteEmail", "studente@studenti.unisa.it");
+        long oltreSoglia = MonitorSessioni.getSessioniOltreSoglia();
+
+        long dimensione = monitor.controlla(session);
+
+        assertTrue(dimensione > 0 && dimensione < MonitorSessioni.SOGLIA_PREDEFINITA);
+        assertTrue(MonitorSessioni.getDimensioneMassima() >= dimensione);
+        assertEquals(oltreSoglia, MonitorSessioni.getSessioniOltreSoglia());
+    }
+
+    @Test
+    void testSessioneOltreSogliaSegnalataUnaVolta() {
+        MonitorSessioni monitor = new MonitorSessioni(64);
+        attributi.put("grande", new byte[1024]);
+        long oltreSoglia = MonitorSessioni.getSessioniOltreSoglia();
+
+        monitor.attributeAdded(new HttpSessionBindingEvent(session, "grande"));
+        monitor.attributeReplaced(new HttpSessionBindingEvent(session, "grande"));
+
+        assertEquals(oltreSoglia + 1, MonitorSessioni.getSessioniOltreSoglia());
+
+        // Dopo la distruzione lo stesso id può essere segnalato di nuovo
+        monitor.sessionDestroyed(new HttpSessionEvent(session));
+        monitor.attributeAdded(new HttpSessionBindingEvent(session, "grande"));
+        assertEquals(oltreSoglia + 2, MonitorSessioni.getSessioniOltreSoglia());
+    }
+
+    @Test
+    void testAttributoNonSerializzabileIgnorato() {
+        MonitorSessioni monitor = new MonitorSessioni(MonitorSessioni.SOGLIA_PREDEFINITA);
+        attributi.put("oggetto", new Object());
+
+        assertEquals(0, monitor.controlla(session));
+    }
+
+    @Test
+    void testAttributiMisuratiUnoAllaVolta() {
+        MonitorSessioni monitor = new MonitorSessioni(600);
+        long oltreSoglia = MonitorSessioni.getSessioniOltreSoglia();
+
+        attributi.put("primo", new byte[400]);
+        monitor.attributeAdded(new HttpSessionBindingEvent(session, "primo"));
+        assertEquals(oltreSoglia, MonitorSessioni.getSessioniOltreSoglia());
+
+        // Un attributo rimosso non conta più nella dimensione della sessione
+        attributi.remove("primo");
+        monitor.attributeRemoved(new HttpSessionBindingEvent(session, "primo"));
+        attributi.put("secondo", new byte[400]);
+        monitor.attributeAdded(new HttpSessionBindingEvent(session, "secondo"));
+        assertEquals(oltreSoglia, MonitorSessioni.getSessioniOltreSoglia());
+
+        // Le dimensioni già misurate si sommano a quella dell'attributo cambiato
+        attributi.put("terzo", new byte[400]);
+        monitor.attributeAdded(new HttpSessionBindingEvent(session, "terzo"));
+        assertEquals(oltreSoglia + 1, MonitorSessioni.getSessioniOltreSoglia());
+        monitor.sessionDestroyed(new HttpSessionEvent(session));
+    }
+
+    // Classe usata solo da questo test, così la segnalazione non dipende dagli altri
+    private static final class NonSerializzabile {
+    }
+
+    @Test
+    void testClasseNonSerializzabileSegnalataUnaVolta() {
+        MonitorSessioni monitor = new MonitorSessioni(MonitorSessioni.SOGLIA_PREDEFINITA);
+        List<String> avvisi = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                avvisi.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(MonitorSessioni.class.getName());
+        logger.addHandler(handler);
+        try {
+            attributi.put("oggetto", new NonSerializzabile());
+            monitor.attributeAdded(new HttpSessionBindingEvent(session, "oggetto"));
+            monitor.attributeReplaced(new HttpSessionBindingEvent(session, "oggetto"));
+            monitor.controlla(session);
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        assertEquals(1, avvisi.stream().filter(avviso -> avviso.contains(NonSerializzabile.class.getName())).count());
+        monitor.sessionDestroyed(new HttpSessionEvent(session));
+    }
+}
@@ -0,0 +1,78 @@
+package it.unisa.uniclass.testing.unit.common.sessione;
+
+import it.unisa.uniclass.common.sessione.CodificaSessione;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodificaSessioneTest {
+
+    @Test
+    void testCodificaEDecodifica() throws IOException {
+        Map<String, Object> attributi = new LinkedHashMap<>();
+        attributi.put("currentSessionUser", new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente));
+        attributi.put("utenteEmail", "studente@studenti.unisa.it");
+        attributi.put("pagina", 3);
+        attributi.put("ultimo", 42L);
+        attributi.put("attivo", true);
+        attributi.put("data", LocalDate.of(2025, 1, 15));
+
+        Map<String, Object> letti = CodificaSessione.decodifica(CodificaSessione.codifica(attributi));
+
+        assertEquals(attributi, letti);
+        Principale principale = (Principale) letti.get("currentSessionUser");
+        assertEquals("studente@studenti.unisa.it", principale.getEmail());
+    }
+
+    @Test
+    void testPrincipaleSenzaEmail() throws IOException {
+        Map<String, Object> attributi = new HashMap<>();
+        attributi.put("currentSessionUser", new Principale("7", null, Tipo.PersonaleTA));
+
+        Principale letto = (Principale) CodificaSessione.decodifica(CodificaSessione.codifica(attributi)).get("currentSessionUser");
+
+        assertNull(letto.getEmail());
+        assertEquals(Tipo.PersonaleTA, letto.getTipo());
+    }
+
+    @Test
+    void testPiuCompattaDellaSerializzazioneJava() throws IOException {
+        Principale principale = new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente);
+        Map<String, Object> attributi = new HashMap<>();
+        attributi.put("currentSessionUser", principale);
+
+        ByteArrayOutputStream java = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(java)) {
+            out.writeObject(principale);
+        }
+
+        byte[] codificati = CodificaSessione.codifica(attributi);
+        assertTrue(codificati.length < 100, "dimensione: " + codificati.length);
+        assertTrue(codificati.length < java.size());
+    }
+
+    @Test
+    void testAttributoNonSerializzabile() {
+        Map<String, Object> attributi = new HashMap<>();
+        attributi.put("oggetto", new Object());
+
+        assertThrows(NotSerializableException.class, () -> CodificaSessione.codifica(attributi));
+    }
+
+    @Test
+    void testDatiNonValidi() {
+        assertThrows(IOException.class, () -> CodificaSessione.decodifica(new byte[]{99}));
+        assertThrows(IOException.class, () -> CodificaSessione.decodifica(new byte[0]));
+    }
+}
@@ -0,0 +1,210 @@
+package it.unisa.uniclass.testing.unit.common.sessione;
+
+import it.unisa.uniclass.common.sessione.ArchivioSessioni;
+import it.unisa.uniclass.common.sessione.ArchivioSessioniMemoria;
+import it.unisa.uniclass.common.sessione.SessioneEsterna;
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe SessioneEsterna.
+ * Verifica la lettura pigra dall'archivio e la scrittura solo delle sessioni modificate.
+ */
+@DisplayName("Test per la classe SessioneEsterna")
+public class SessioneEsternaTest {
+
+    private static final int DURATA = 1800;
+
+    private ArchivioSessioni archivio;
+    private AtomicLong adesso;
+    private List<String> idEmessi;
+    private Principale principale;
+
+    @BeforeEach
+    void setUp() {
+        archivio = spy(new ArchivioSessioniMemoria());
+        adesso = new AtomicLong(1_000_000);
+        idEmessi = new ArrayList<>();
+        principale = new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente);
+    }
+
+    private SessioneEsterna nuova() {
+        return SessioneEsterna.nuova(archivio, null, DURATA, adesso::get, idEmessi::add);
+    }
+
+    private SessioneEsterna esistente(String id) {
+        return SessioneEsterna.esistente(id, archivio, null, DURATA, adesso::get, idEmessi::add);
+    }
+
+    @Test
+    @DisplayName("una sessione nuova comunica il suo ID e viene salvata a fine richiesta")
+    void testNuovaSalvata() {
+        SessioneEsterna sessione = nuova();
+        sessione.setAttribute("currentSessionUser", principale);
+        sessione.salva();
+
+        assertEquals(List.of(sessione.getId()), idEmessi);
+        assertEquals(principale, esistente(sessione.getId()).getAttribute("currentSessionUser"));
+    }
+
+    @Test
+    @DisplayName("l'archivio viene letto solo al primo accesso a un attributo")
+    void testLetturaPigra() {
+        SessioneEsterna salvata = nuova();
+        salvata.setAttribute("currentSessionUser", principale);
+        salvata.salva();
+
+        SessioneEsterna sessione = esistente(salvata.getId());
+        verify(archivio, never()).carica(anyString(), anyLong());
+
+        sessione.getAttribute("currentSessionUser");
+        sessione.getAttribute("utenteEmail");
+        verify(archivio, times(1)).carica(anyString(), anyLong());
+
+        // Una sessione mai letta non viene né salvata né prolungata
+        SessioneEsterna nonUsata = esistente(salvata.getId());
+        nonUsata.salva();
+        verify(archivio, times(1)).carica(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("reimpostare lo stesso valore non riscrive la sessione")
+    void testScritturaSoloSeModificata() {
+        SessioneEsterna salvata = nuova();
+        salvata.setAttribute("utenteEmail", "studente@studenti.unisa.it");
+        salvata.salva();
+        clearInvocations(archivio);
+
+        SessioneEsterna sessione = esistente(salvata.getId());
+        sessione.setAttribute("utenteEmail", "studente@studenti.unisa.it");
+        sessione.salva();
+
+        verify(archivio, never()).salva(any(SessioneSalvata.class));
+        verify(archivio, never()).rinnova(anyString(), anyLong());
+
+        sessione = esistente(salvata.getId());
+        sessione.setAttribute("utenteEmail", "altra@studenti.unisa.it");
+        sessione.salva();
+        verify(archivio, times(1)).salva(any(SessioneSalvata.class));
+    }
+
+    @Test
+    @DisplayName("la scadenza viene prolungata solo dopo metà della durata")
+    void testRinnovo() {
+        SessioneEsterna salvata = nuova();
+        salvata.setAttribute("utenteEmail", "studente@studenti.unisa.it");
+        salvata.salva();
+
+        adesso.addAndGet(DURATA * 1000L / 2 + 1);
+        SessioneEsterna sessione = esistente(salvata.getId());
+        sessione.getAttribute("utenteEmail");
+        sessione.salva();
+
+        verify(archivio).rinnova(salvata.getId(), adesso.get() + DURATA * 1000L);
+    }
+
+    @Test
+    @DisplayName("un ID scaduto o sconosciuto non viene riusato")
+    void testIdSconosciuto() {
+        SessioneEsterna sessione = esistente("scelto-dal-client");
+
+        assertNull(sessione.getAttribute("currentSessionUser"));
+        assertTrue(sessione.isNew());
+        assertTrue(idEmessi.isEmpty());
+
+        sessione.setAttribute("currentSessionUser", principale);
+        sessione.salva();
+
+        assertNotEquals("scelto-dal-client", sessione.getId());
+        assertEquals(List.of(sessione.getId()), idEmessi);
+        assertNull(archivio.carica("scelto-dal-client", adesso.get()));
+    }
+
+    @Test
+    @DisplayName("invalidate rimuove la sessione dall'archivio")
+    void testInvalidate() {
+        SessioneEsterna salvata = nuova();
+        salvata.setAttribute("currentSessionUser", principale);
+        salvata.salva();
+
+        SessioneEsterna sessione = esistente(salvata.getId());
+        sessione.invalidate();
+        sessione.salva();
+
+        assertTrue(sessione.isInvalidata());
+        assertNull(archivio.carica(salvata.getId(), adesso.get()));
+        assertThrows(IllegalStateException.class, () -> sessione.getAttribute("currentSessionUser"));
+    }
+
+    @Test
+    @DisplayName("cambiaId mantiene gli attributi e rimuove il vecchio ID")
+    void testCambiaId() {
+        SessioneEsterna salvata = nuova();
+        salvata.setAttribute("currentSessionUser", principale);
+        salvata.salva();
+        String vecchio = salvata.getId();
+
+        SessioneEsterna sessione = esistente(vecchio);
+        String nuovo = sessione.cambiaId();
+        sessione.salva();
+
+        assertNotEquals(vecchio, nuovo);
+        assertNull(archivio.carica(vecchio, adesso.get()));
+        assertEquals(principale, esistente(nuovo).getAttribute("currentSessionUser"));
+    }
+
+    @Test
+    @DisplayName("una richiesta in corso non ripristina una sessione invalidata da un'altra")
+    void testInvalidataNonRipristinata() {
+        SessioneEsterna salvata = nuova();
+        salvata.setAttribute("currentSessionUser", principale);
+        salvata.salva();
+
+        SessioneEsterna inCorso = esistente(salvata.getId());
+        inCorso.getAttribute("currentSessionUser");
+
+        SessioneEsterna logout = esistente(salvata.getId());
+        logout.invalidate();
+
+        inCorso.setAttribute("utenteEmail", "studente@studenti.unisa.it");
+        inCorso.salva();
+
+        assertNull(archivio.carica(salvata.getId(), adesso.get()));
+        assertNull(esistente(salvata.getId()).getAttribute("currentSessionUser"));
+    }
+
+    @Test
+    @DisplayName("scritture concorrenti sulla stessa sessione mantengono entrambe le modifiche")
+    void testScrittureConcorrenti() {
+        SessioneEsterna salvata = nuova();
+        salvata.setAttribute("currentSessionUser", principale);
+        salvata.setAttribute("pagina", 1);
+        salvata.salva();
+
+        SessioneEsterna prima = esistente(salvata.getId());
+        SessioneEsterna seconda = esistente(salvata.getId());
+        prima.setAttribute("utenteEmail", "studente@studenti.unisa.it");
+        seconda.setAttribute("pagina", 2);
+
+        prima.salva();
+        seconda.salva();
+
+        SessioneEsterna riletta = esistente(salvata.getId());
+        assertEquals(principale, riletta.getAttribute("currentSessionUser"));
+        assertEquals("studente@studenti.unisa.it", riletta.getAttribute("utenteEmail"));
+        assertEquals(2, riletta.getAttribute("pagina"));
+        assertEquals(3, archivio.carica(salvata.getId(), adesso.get()).getVersione());
+    }
+}
@@ -0,0 +1,85 @@
+package it.unisa.uniclass.testing.unit.common.sessione.service;
+
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+import it.unisa.uniclass.common.sessione.service.PuliziaSessioni;
+import it.unisa.uniclass.common.sessione.service.SessioneService;
+import it.unisa.uniclass.common.sessione.service.dao.SessioneRemote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SessioneServiceTest {
+
+    private SessioneRemote dao;
+    private SessioneService service;
+
+    @BeforeEach
+    void setUp() {
+        dao = mock(SessioneRemote.class);
+        service = new SessioneService(dao);
+    }
+
+    @Test
+    void testCaricaSessioneValida() {
+        SessioneSalvata sessione = new SessioneSalvata("abc", new byte[]{1}, 0, 2_000);
+        when(dao.trovaSessione("abc")).thenReturn(sessione);
+
+        assertSame(sessione, service.carica("abc", 1_000));
+    }
+
+    @Test
+    void testCaricaSessioneScaduta() {
+        when(dao.trovaSessione("abc")).thenReturn(new SessioneSalvata("abc", new byte[]{1}, 0, 1_000));
+
+        assertNull(service.carica("abc", 1_000));
+        assertNull(service.carica("sconosciuta", 1_000));
+    }
+
+    @Test
+    void testCaricaSessioneInvalidata() {
+        SessioneSalvata sessione = new SessioneSalvata("abc", new byte[0], 0, 2_000);
+        sessione.setInvalidata(true);
+        when(dao.trovaSessione("abc")).thenReturn(sessione);
+
+        assertNull(service.carica("abc", 1_000));
+    }
+
+    @Test
+    void testSalvaRinnovaElimina() {
+        SessioneSalvata sessione = new SessioneSalvata("abc", new byte[]{1}, 0, 2_000);
+
+        when(dao.salvaSessione(sessione)).thenReturn(true);
+
+        assertTrue(service.salva(sessione));
+        service.rinnova("abc", 3_000);
+        service.elimina("abc");
+
+        verify(dao).salvaSessione(sessione);
+        verify(dao).aggiornaScadenza("abc", 3_000);
+        verify(dao).invalidaSessione("abc");
+    }
+
+    @Test
+    void testEliminaScaduteALotti() {
+        int lotto = SessioneService.DIMENSIONE_LOTTO_PULIZIA;
+        when(dao.rimuoviScadute(5_000, lotto)).thenReturn(lotto, lotto, 7);
+
+        assertEquals(2 * lotto + 7, service.eliminaScadute(5_000));
+        verify(dao, times(3)).rimuoviScadute(5_000, lotto);
+    }
+
+    @Test
+    void testPuliziaSessioni() {
+        SessioneService sessioneService = mock(SessioneService.class);
+        when(sessioneService.eliminaScadute(anyLong())).thenThrow(new RuntimeException("db"));
+        PuliziaSessioni pulizia = new PuliziaSessioni();
+        pulizia.setSessioneService(sessioneService);
+
+        // Un errore viene registrato senza propagarsi al timer
+        assertDoesNotThrow(pulizia::pulisci);
+        verify(sessioneService).eliminaScadute(anyLong());
+    }
+}
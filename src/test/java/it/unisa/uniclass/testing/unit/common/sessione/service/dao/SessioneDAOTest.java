@@ -0,0 +1,94 @@
+package it.unisa.uniclass.testing.unit.common.sessione.service.dao;
+
+import it.unisa.uniclass.common.sessione.model.SessioneSalvata;
+import it.unisa.uniclass.common.sessione.service.dao.SessioneDAO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SessioneDAOTest {
+
+    private EntityManager em;
+    private SessioneDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        em = mock(EntityManager.class);
+        dao = new SessioneDAO();
+
+        // Iniettiamo il mock dell'EntityManager via reflection
+        var field = SessioneDAO.class.getDeclaredField("emUniClass");
+        field.setAccessible(true);
+        field.set(dao, em);
+    }
+
+    @Test
+    void testTrovaESalva() {
+        SessioneSalvata sessione = new SessioneSalvata("abc", new byte[]{1}, 0, 1_000, 4);
+        Query salva = mock(Query.class);
+        when(em.find(SessioneSalvata.class, "abc")).thenReturn(sessione);
+        when(em.createNamedQuery(SessioneSalvata.SALVA)).thenReturn(salva);
+        when(salva.executeUpdate()).thenReturn(1, 0);
+
+        assertSame(sessione, dao.trovaSessione("abc"));
+        assertTrue(dao.salvaSessione(sessione));
+        // Versione cambiata o sessione invalidata: nessuna riga scritta
+        assertFalse(dao.salvaSessione(sessione));
+
+        verify(salva, times(2)).setParameter(1, "abc");
+        verify(salva, times(2)).setParameter(5, 4L);
+        verify(em, never()).merge(any());
+    }
+
+    @Test
+    void testAggiornaScadenza() {
+        Query query = mock(Query.class);
+        when(em.createNamedQuery(SessioneSalvata.AGGIORNA_SCADENZA)).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(1, 0);
+
+        assertTrue(dao.aggiornaScadenza("abc", 2_000));
+        assertFalse(dao.aggiornaScadenza("abc", 2_000));
+        verify(query, times(2)).setParameter("scadenza", 2_000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRimuoviScadute() {
+        TypedQuery<String> trova = mock(TypedQuery.class);
+        Query rimuovi = mock(Query.class);
+        when(em.createNamedQuery(SessioneSalvata.TROVA_SCADUTE, String.class)).thenReturn(trova);
+        when(em.createNamedQuery(SessioneSalvata.RIMUOVI_ID)).thenReturn(rimuovi);
+        when(trova.getResultList()).thenReturn(List.of("a", "b"), List.of());
+
+        assertEquals(2, dao.rimuoviScadute(5_000, 100));
+        verify(trova).setMaxResults(100);
+        verify(rimuovi).setParameter("ids", List.of("a", "b"));
+        verify(rimuovi).executeUpdate();
+
+        // Senza sessioni scadute non viene eseguita la cancellazione
+        assertEquals(0, dao.rimuoviScadute(5_000, 100));
+        verify(rimuovi, times(1)).executeUpdate();
+    }
+
+    @Test
+    void testInvalidaSessione() {
+        Query invalida = mock(Query.class);
+        when(em.createNamedQuery(SessioneSalvata.INVALIDA)).thenReturn(invalida);
+
+        dao.invalidaSessione("abc");
+
+        verify(invalida).setParameter("id", "abc");
+        verify(invalida).setParameter(eq("vuoti"), any(byte[].class));
+        verify(invalida).executeUpdate();
+        // La riga resta fino alla scadenza
+        verify(em, never()).createNamedQuery(SessioneSalvata.RIMUOVI_ID);
+    }
+}
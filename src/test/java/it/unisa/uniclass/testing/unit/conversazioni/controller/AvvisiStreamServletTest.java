@@ -0,0 +1,213 @@
+package it.unisa.uniclass.testing.unit.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.controller.AvvisiStreamServlet;
+import it.unisa.uniclass.conversazioni.controller.FeedAvvisi;
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AvvisiStreamServletTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private HttpSession session;
+
+    @Mock
+    private AsyncContext asyncContext;
+
+    @Mock
+    private MessaggioService messaggioService;
+
+    @Mock
+    private AccademicoService accademicoService;
+
+    private AvvisiStreamServlet servlet;
+    private FeedAvvisi feed;
+    private StringWriter uscita;
+    private Accademico studente;
+    private CorsoLaurea informatica;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        feed = new FeedAvvisi();
+        servlet = new AvvisiStreamServlet();
+        servlet.setMessaggioService(messaggioService);
+        servlet.setAccademicoService(accademicoService);
+        servlet.setFeed(feed);
+
+        informatica = new CorsoLaurea();
+        informatica.setNome("Informatica");
+        Field idField = CorsoLaurea.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(informatica, 1L);
+
+        studente = new Studente();
+        studente.setEmail("studente@studenti.unisa.it");
+        studente.setCorsoLaurea(informatica);
+
+        uscita = new StringWriter();
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute("utenteEmail")).thenReturn(studente.getEmail());
+        when(accademicoService.trovaEmailUniClass(studente.getEmail())).thenReturn(studente);
+        when(request.startAsync()).thenReturn(asyncContext);
+        when(response.getWriter()).thenReturn(new PrintWriter(uscita));
+    }
+
+    private Messaggio avviso(long id) throws Exception {
+        Topic topic = new Topic();
+        topic.setNome("Avvisi");
+        topic.setCorsoLaurea(informatica);
+        Messaggio messaggio = new Messaggio();
+        Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, id);
+        messaggio.setTopic(topic);
+        messaggio.setBody("Avviso " + id);
+        messaggio.setDateTime(LocalDateTime.now());
+        return messaggio;
+    }
+
+    @Test
+    void testSenzaSessione() throws Exception {
+        System.out.println("\n=== Test 1: Stream senza utente autenticato ===");
+
+        when(request.getSession(false)).thenReturn(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(request, never()).startAsync();
+
+        System.out.println("✓ Restituito 401");
+    }
+
+    @Test
+    void testSenzaCorsoLaurea() throws Exception {
+        System.out.println("\n=== Test 2: Utente senza corso di laurea ===");
+
+        studente.setCorsoLaurea(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NO_CONTENT);
+        verify(request, never()).startAsync();
+
+        System.out.println("✓ Restituito 204");
+    }
+
+    @Test
+    void testPrimoAccessoInviaAvvisiRecenti() throws Exception {
+        System.out.println("\n=== Test 3: Primo accesso con avvisi recenti ===");
+
+        List<MessaggioVista> recenti = List.of(MessaggioVista.di(avviso(3L)), MessaggioVista.di(avviso(4L)));
+        when(messaggioService.trovaAvvisiCorsoLaurea(1L, null, null, AvvisiStreamServlet.AVVISI_INIZIALI)).thenReturn(recenti);
+
+        servlet.doGet(request, response);
+
+        verify(response).setContentType("text/event-stream");
+        verify(asyncContext).setTimeout(0);
+        verify(asyncContext).addListener(any(AsyncListener.class));
+        assertTrue(uscita.toString().contains("id: 3\n"));
+        assertTrue(uscita.toString().indexOf("id: 3\n") < uscita.toString().indexOf("id: 4\n"));
+        assertEquals(1, feed.numeroIscritti(1L));
+
+        System.out.println("✓ Avvisi inviati e stream registrato");
+    }
+
+    @Test
+    void testRipresaDaLastEventId() throws Exception {
+        System.out.println("\n=== Test 4: Ripresa tramite Last-Event-ID ===");
+
+        when(request.getHeader("Last-Event-ID")).thenReturn("42");
+        when(messaggioService.trovaAvvisiCorsoLaurea(1L, null, 42L, AvvisiStreamServlet.AVVISI_INIZIALI)).thenReturn(List.of(MessaggioVista.di(avviso(43L))));
+
+        servlet.doGet(request, response);
+
+        verify(messaggioService).trovaAvvisiCorsoLaurea(1L, null, 42L, AvvisiStreamServlet.AVVISI_INIZIALI);
+        assertTrue(uscita.toString().contains("id: 43\n"));
+
+        // Un avviso già ricevuto pubblicato di nuovo non viene reinviato
+        int lunghezza = uscita.toString().length();
+        feed.pubblica(avviso(43L));
+        assertEquals(lunghezza, uscita.toString().length());
+
+        System.out.println("✓ Recuperati solo gli avvisi persi");
+    }
+
+    @Test
+    void testNessunAvvisoInviaHeartbeat() throws Exception {
+        System.out.println("\n=== Test 5: Nessun avviso arretrato ===");
+
+        when(request.getParameter("lastEventId")).thenReturn("non-numerico");
+        when(messaggioService.trovaAvvisiCorsoLaurea(anyLong(), any(), any(), anyInt())).thenReturn(new ArrayList<>());
+
+        servlet.doGet(request, response);
+
+        verify(messaggioService).trovaAvvisiCorsoLaurea(1L, null, null, AvvisiStreamServlet.AVVISI_INIZIALI);
+        assertEquals(": ping\n\n", uscita.toString());
+
+        System.out.println("✓ Heartbeat iniziale scritto");
+    }
+
+    @Test
+    void testAvvisoLiveDopoConnessione() throws Exception {
+        System.out.println("\n=== Test 6: Avviso pubblicato dopo la connessione ===");
+
+        when(messaggioService.trovaAvvisiCorsoLaurea(anyLong(), any(), any(), anyInt())).thenReturn(new ArrayList<>());
+
+        servlet.doGet(request, response);
+        feed.pubblica(avviso(50L));
+
+        assertTrue(uscita.toString().contains("id: 50\nevent: avviso\n"));
+
+        System.out.println("✓ Avviso consegnato sullo stream aperto");
+    }
+
+    @Test
+    void testFeedRistrettoAUnCorso() throws Exception {
+        System.out.println("\n=== Test 7: Feed ristretto a un corso ===");
+
+        when(request.getParameter("corso")).thenReturn("7");
+        when(messaggioService.trovaAvvisiCorsoLaurea(anyLong(), any(), any(), anyInt())).thenReturn(new ArrayList<>());
+
+        servlet.doGet(request, response);
+
+        // Il corso viene passato alla query degli arretrati, non filtrato dopo il limite
+        verify(messaggioService).trovaAvvisiCorsoLaurea(1L, 7L, null, AvvisiStreamServlet.AVVISI_INIZIALI);
+
+        System.out.println("✓ Arretrati filtrati per corso dalla query");
+    }
+}
@@ -0,0 +1,311 @@
+package it.unisa.uniclass.testing.unit.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.controller.ChatEndpoint;
+import it.unisa.uniclass.conversazioni.controller.ChatHandshakeConfigurator;
+import it.unisa.uniclass.conversazioni.controller.RegistroSessioniChat;
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.service.ConversazioneService;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.servlet.http.HttpSession;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatEndpointTest {
+
+    @Mock
+    private MessaggioService messaggioService;
+
+    @Mock
+    private AccademicoService accademicoService;
+
+    @Mock
+    private ConversazioneService conversazioneService;
+
+    private RegistroSessioniChat registro;
+
+    private Accademico self;
+    private Accademico altro;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registro = new RegistroSessioniChat();
+
+        self = new Accademico();
+        self.setMatricola("0512100001");
+        self.setEmail("studente@studenti.unisa.it");
+
+        altro = new Accademico();
+        altro.setMatricola("0512100002");
+        altro.setEmail("professore@unisa.it");
+
+        when(accademicoService.trovaEmailUniClass(self.getEmail())).thenReturn(self);
+        when(accademicoService.trovaEmailUniClass(altro.getEmail())).thenReturn(altro);
+        when(messaggioService.accodaMessaggio(any(Messaggio.class)))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(inv.getArgument(0)));
+    }
+
+    private ChatEndpoint nuovoEndpoint() {
+        ChatEndpoint endpoint = new ChatEndpoint();
+        endpoint.setMessaggioService(messaggioService);
+        endpoint.setAccademicoService(accademicoService);
+        endpoint.setConversazioneService(conversazioneService);
+        endpoint.setRegistro(registro);
+        return endpoint;
+    }
+
+    private Session nuovaSessione(RemoteEndpoint.Basic remote) {
+        Session session = mock(Session.class);
+        Map<String, Object> proprieta = new HashMap<>();
+        when(session.getUserProperties()).thenReturn(proprieta);
+        when(session.getRequestParameterMap()).thenReturn(
+                Map.of(ChatHandshakeConfigurator.PARAMETRO_CONNESSIONE, List.of(UUID.randomUUID().toString())));
+        when(session.isOpen()).thenReturn(true);
+        when(session.getBasicRemote()).thenReturn(remote);
+        return session;
+    }
+
+    // Simula l'handshake della sessione: l'email viene salvata sotto l'identificativo della sua connessione
+    private EndpointConfig configPer(Session session, String email) {
+        ServerEndpointConfig config = mock(ServerEndpointConfig.class);
+        Map<String, Object> proprieta = new HashMap<>();
+        when(config.getUserProperties()).thenReturn(proprieta);
+        HandshakeRequest request = handshakeDi(session, email);
+        new ChatHandshakeConfigurator().modifyHandshake(config, request, mock(HandshakeResponse.class));
+        return config;
+    }
+
+    @Test
+    void testOnOpenRegistraSessione() throws Exception {
+        System.out.println("\n=== Test 1: Apertura sessione autenticata ===");
+
+        Session session = nuovaSessione(mock(RemoteEndpoint.Basic.class));
+
+        nuovoEndpoint().onOpen(session, configPer(session, self.getEmail()));
+
+        assertTrue(registro.sessioni(self.getMatricola()).contains(session));
+        verify(session, never()).close(any(CloseReason.class));
+
+        System.out.println("✓ Sessione registrata");
+    }
+
+    @Test
+    void testOnOpenSenzaAutenticazione() throws Exception {
+        System.out.println("\n=== Test 2: Apertura sessione non autenticata ===");
+
+        Session session = nuovaSessione(mock(RemoteEndpoint.Basic.class));
+
+        nuovoEndpoint().onOpen(session, configPer(session, null));
+
+        ArgumentCaptor<CloseReason> captor = ArgumentCaptor.forClass(CloseReason.class);
+        verify(session).close(captor.capture());
+        assertEquals(CloseReason.CloseCodes.VIOLATED_POLICY, captor.getValue().getCloseCode());
+        assertTrue(registro.sessioni(self.getMatricola()).isEmpty());
+
+        System.out.println("✓ Sessione chiusa con VIOLATED_POLICY");
+    }
+
+    @Test
+    void testOnMessageConsegnaAMittenteEDestinatario() throws Exception {
+        System.out.println("\n=== Test 3: Consegna a mittente e destinatario ===");
+
+        RemoteEndpoint.Basic remoteSelf = mock(RemoteEndpoint.Basic.class);
+        RemoteEndpoint.Basic remoteAltro = mock(RemoteEndpoint.Basic.class);
+        Session sessionSelf = nuovaSessione(remoteSelf);
+        Session sessionAltro = nuovaSessione(remoteAltro);
+
+        ChatEndpoint endpointSelf = nuovoEndpoint();
+        endpointSelf.onOpen(sessionSelf, configPer(sessionSelf, self.getEmail()));
+        nuovoEndpoint().onOpen(sessionAltro, configPer(sessionAltro, altro.getEmail()));
+
+        String richiesta = new JSONObject()
+                .put("tipo", "messaggio")
+                .put("destinatario", altro.getEmail())
+                .put("testo", "Buongiorno")
+                .toString();
+        endpointSelf.onMessage(richiesta, sessionSelf);
+
+        ArgumentCaptor<Messaggio> salvato = ArgumentCaptor.forClass(Messaggio.class);
+        verify(messaggioService).accodaMessaggio(salvato.capture());
+        assertSame(self, salvato.getValue().getAutore());
+        assertSame(altro, salvato.getValue().getDestinatario());
+        assertNull(salvato.getValue().getTopic());
+
+        // La consegna avviene in modo asincrono dopo il salvataggio
+        ArgumentCaptor<String> consegnato = ArgumentCaptor.forClass(String.class);
+        verify(remoteAltro, timeout(1000)).sendText(consegnato.capture());
+        JSONObject json = new JSONObject(consegnato.getValue());
+        assertEquals("Buongiorno", json.getString("body"));
+        assertEquals(self.getEmail(), json.getString("autore"));
+        verify(remoteSelf, timeout(1000)).sendText(anyString());
+
+        System.out.println("✓ Messaggio salvato e consegnato a entrambe le sessioni");
+    }
+
+    @Test
+    void testOnMessageDestinatarioInesistente() throws Exception {
+        System.out.println("\n=== Test 4: Destinatario inesistente ===");
+
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+        Session session = nuovaSessione(remote);
+        ChatEndpoint endpoint = nuovoEndpoint();
+        endpoint.onOpen(session, configPer(session, self.getEmail()));
+
+        endpoint.onMessage("{\"tipo\":\"messaggio\",\"destinatario\":\"nessuno@unisa.it\",\"testo\":\"Ciao\"}", session);
+
+        verify(messaggioService, never()).accodaMessaggio(any());
+        ArgumentCaptor<String> errore = ArgumentCaptor.forClass(String.class);
+        verify(remote).sendText(errore.capture());
+        assertTrue(new JSONObject(errore.getValue()).has("errore"));
+
+        System.out.println("✓ Errore restituito al mittente");
+    }
+
+    @Test
+    void testOnMessageNonValido() throws Exception {
+        System.out.println("\n=== Test 5: Messaggio vuoto o malformato ===");
+
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+        Session session = nuovaSessione(remote);
+        ChatEndpoint endpoint = nuovoEndpoint();
+        endpoint.onOpen(session, configPer(session, self.getEmail()));
+
+        endpoint.onMessage("non json", session);
+        endpoint.onMessage("{\"destinatario\":\"professore@unisa.it\",\"testo\":\"   \"}", session);
+        endpoint.onMessage("{\"destinatario\":\"professore@unisa.it\",\"testo\":\"" + "x".repeat(ChatEndpoint.LUNGHEZZA_MASSIMA + 1) + "\"}", session);
+
+        verify(messaggioService, never()).accodaMessaggio(any());
+        verify(remote, times(3)).sendText(anyString());
+
+        System.out.println("✓ Messaggi non validi rifiutati");
+    }
+
+    @Test
+    void testOnMessageLetto() throws Exception {
+        System.out.println("\n=== Test 6: Conversazione segnata come letta ===");
+
+        Session session = nuovaSessione(mock(RemoteEndpoint.Basic.class));
+        ChatEndpoint endpoint = nuovoEndpoint();
+        endpoint.onOpen(session, configPer(session, self.getEmail()));
+
+        endpoint.onMessage("{\"tipo\":\"letto\",\"interlocutore\":\"professore@unisa.it\"}", session);
+
+        verify(conversazioneService).segnaLetta(self, altro);
+        verify(messaggioService, never()).accodaMessaggio(any());
+
+        System.out.println("✓ Non letti azzerati");
+    }
+
+    @Test
+    void testOnCloseRimuoveSessione() throws Exception {
+        System.out.println("\n=== Test 7: Chiusura sessione ===");
+
+        Session session = nuovaSessione(mock(RemoteEndpoint.Basic.class));
+        ChatEndpoint endpoint = nuovoEndpoint();
+        endpoint.onOpen(session, configPer(session, self.getEmail()));
+
+        endpoint.onClose(session);
+
+        assertTrue(registro.sessioni(self.getMatricola()).isEmpty());
+
+        System.out.println("✓ Sessione rimossa dal registro");
+    }
+
+    @Test
+    void testOnMessageSalvataggioRifiutato() throws Exception {
+        System.out.println("\n=== Test 8: Coda di scrittura piena ===");
+
+        when(messaggioService.accodaMessaggio(any(Messaggio.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("Coda dei messaggi piena")));
+
+        RemoteEndpoint.Basic remoteSelf = mock(RemoteEndpoint.Basic.class);
+        RemoteEndpoint.Basic remoteAltro = mock(RemoteEndpoint.Basic.class);
+        Session sessionSelf = nuovaSessione(remoteSelf);
+        ChatEndpoint endpointSelf = nuovoEndpoint();
+        endpointSelf.onOpen(sessionSelf, configPer(sessionSelf, self.getEmail()));
+        Session sessionAltro = nuovaSessione(remoteAltro);
+        nuovoEndpoint().onOpen(sessionAltro, configPer(sessionAltro, altro.getEmail()));
+
+        endpointSelf.onMessage("{\"tipo\":\"messaggio\",\"destinatario\":\"professore@unisa.it\",\"testo\":\"Ciao\"}", sessionSelf);
+
+        ArgumentCaptor<String> errore = ArgumentCaptor.forClass(String.class);
+        verify(remoteSelf, timeout(1000)).sendText(errore.capture());
+        assertTrue(new JSONObject(errore.getValue()).has("errore"));
+        verify(remoteAltro, never()).sendText(anyString());
+
+        System.out.println("✓ Mittente avvisato, nessuna consegna al destinatario");
+    }
+
+    @Test
+    void testHandshakeConcorrentiConfigurazioneCondivisa() throws Exception {
+        System.out.println("\n=== Test 9: Handshake concorrenti sulla stessa configurazione ===");
+
+        // Le proprietà della configurazione sono condivise da tutte le connessioni dell'endpoint
+        ServerEndpointConfig config = mock(ServerEndpointConfig.class);
+        Map<String, Object> condivise = new HashMap<>();
+        when(config.getUserProperties()).thenReturn(condivise);
+        Session sessionSelf = nuovaSessione(mock(RemoteEndpoint.Basic.class));
+        Session sessionAltro = nuovaSessione(mock(RemoteEndpoint.Basic.class));
+        ChatHandshakeConfigurator configurator = new ChatHandshakeConfigurator();
+        configurator.modifyHandshake(config, handshakeDi(sessionSelf, self.getEmail()), mock(HandshakeResponse.class));
+        configurator.modifyHandshake(config, handshakeDi(sessionAltro, altro.getEmail()), mock(HandshakeResponse.class));
+
+        nuovoEndpoint().onOpen(sessionSelf, config);
+        nuovoEndpoint().onOpen(sessionAltro, config);
+
+        assertTrue(registro.sessioni(self.getMatricola()).contains(sessionSelf));
+        assertTrue(registro.sessioni(altro.getMatricola()).contains(sessionAltro));
+        assertTrue(condivise.isEmpty());
+
+        System.out.println("✓ Ogni connessione mantiene la propria identità");
+    }
+
+    @Test
+    void testOnOpenSenzaIdentificativoConnessione() throws Exception {
+        System.out.println("\n=== Test 10: Apertura senza identificativo della connessione ===");
+
+        Session session = nuovaSessione(mock(RemoteEndpoint.Basic.class));
+        EndpointConfig config = configPer(session, self.getEmail());
+        when(session.getRequestParameterMap()).thenReturn(Map.of());
+
+        nuovoEndpoint().onOpen(session, config);
+
+        verify(session).close(any(CloseReason.class));
+        assertTrue(registro.sessioni(self.getMatricola()).isEmpty());
+
+        System.out.println("✓ Sessione rifiutata");
+    }
+
+    private HandshakeRequest handshakeDi(Session session, String email) {
+        HandshakeRequest request = mock(HandshakeRequest.class);
+        when(request.getParameterMap()).thenReturn(session.getRequestParameterMap());
+        HttpSession httpSession = mock(HttpSession.class);
+        when(httpSession.getAttribute(ChatHandshakeConfigurator.UTENTE_EMAIL)).thenReturn(email);
+        when(request.getHttpSession()).thenReturn(httpSession);
+        return request;
+    }
+}
@@ -1,14 +1,15 @@
 package it.unisa.uniclass.testing.unit.conversazioni.controller;
 
 import it.unisa.uniclass.conversazioni.controller.ConversazioniServlet;
-import it.unisa.uniclass.conversazioni.model.Messaggio;
-import it.unisa.uniclass.conversazioni.model.Topic;
-import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.conversazioni.model.ConversazioneVista;
+import it.unisa.uniclass.conversazioni.service.ConversazioneService;
 import it.unisa.uniclass.utenti.model.Accademico;
 import it.unisa.uniclass.utenti.model.Docente;
 import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.service.AccademicoService;
 import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -41,7 +42,7 @@ class ConversazioniServletTest {
     private HttpSession session;
 
     @Mock
-    private MessaggioService messaggioService;
+    private ConversazioneService conversazioneService;
 
     @Mock
     private RequestDispatcher requestDispatcher;
@@ -52,7 +53,7 @@ class ConversazioniServletTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         servlet = new ConversazioniServlet();
-        servlet.setMessaggioService(messaggioService);
+        servlet.setConversazioneService(conversazioneService);
         when(request.getServletContext()).thenReturn(mock(jakarta.servlet.ServletContext.class));
     }
 
@@ -70,54 +71,33 @@ class ConversazioniServletTest {
         studente.setNome("Mario");
         studente.setCognome("Rossi");
 
+        Docente docente = new Docente();
+        docente.setEmail("docente@unisa.it");
+        docente.setMatricola("0512100010");
+
         // Mock session
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("utenteEmail")).thenReturn(email);
         when(request.getRequestDispatcher("Conversazioni.jsp")).thenReturn(requestDispatcher);
 
-        // Crea messaggi ricevuti
-        List<Messaggio> messaggiRicevuti = new ArrayList<>();
-        Messaggio msgRicevuto = new Messaggio();
-        msgRicevuto.setBody("Ciao, come stai?");
-        msgRicevuto.setDateTime(LocalDateTime.now());
-        messaggiRicevuti.add(msgRicevuto);
-
-        // Crea messaggi inviati
-        List<Messaggio> messaggiInviati = new ArrayList<>();
-        Messaggio msgInviato = new Messaggio();
-        msgInviato.setBody("Tutto bene, grazie!");
-        msgInviato.setDateTime(LocalDateTime.now());
-        messaggiInviati.add(msgInviato);
-
-        // Crea avvisi
-        List<Messaggio> avvisi = new ArrayList<>();
-        Messaggio avviso = new Messaggio();
-        avviso.setBody("Avviso importante");
-        Topic topic = new Topic();
-        topic.setNome("Topic1");
-        avviso.setTopic(topic);
-        avvisi.add(avviso);
+        // Un riepilogo con due messaggi non letti
+        List<ConversazioneVista> conversazioni = new ArrayList<>();
+        conversazioni.add(new ConversazioneVista(docente.getEmail(), docente.getNome(), docente.getCognome(), Tipo.Docente, "Ciao, come stai?", LocalDateTime.now(), 2));
 
         // Mock AccademicoService
         try (@SuppressWarnings("unused") MockedConstruction<AccademicoService> mockedService = mockConstruction(AccademicoService.class,
                 (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(studente))) {
 
-            when(messaggioService.trovaMessaggiRicevuti(email)).thenReturn(messaggiRicevuti);
-            when(messaggioService.trovaMessaggiInviati(email)).thenReturn(messaggiInviati);
-            when(messaggioService.trovaAvvisi()).thenReturn(avvisi);
+            when(conversazioneService.trovaConversazioni(matricola)).thenReturn(conversazioni);
 
             // Act
             servlet.doPost(request, response);
 
             // Assert
-            verify(request).setAttribute(eq("accademicoSelf"), any(Accademico.class));
-            verify(request).setAttribute("messaggiRicevuti", messaggiRicevuti);
-            verify(request).setAttribute("messaggiInviati", messaggiInviati);
-            verify(request).setAttribute("messaggi", avvisi);
+            verify(request, never()).setAttribute(eq("accademicoSelf"), any());
+            verify(request).setAttribute("conversazioni", conversazioni);
             verify(requestDispatcher).forward(request, response);
-            verify(messaggioService).trovaMessaggiRicevuti(email);
-            verify(messaggioService).trovaMessaggiInviati(email);
-            verify(messaggioService).trovaAvvisi();
+            verify(conversazioneService).trovaConversazioni(matricola);
 
             System.out.println("✓ Test completato con successo");
         }
@@ -141,25 +121,19 @@ class ConversazioniServletTest {
         when(session.getAttribute("utenteEmail")).thenReturn(email);
         when(request.getRequestDispatcher("Conversazioni.jsp")).thenReturn(requestDispatcher);
 
-        List<Messaggio> messaggiRicevuti = new ArrayList<>();
-        List<Messaggio> messaggiInviati = new ArrayList<>();
-        List<Messaggio> avvisi = new ArrayList<>();
+        List<ConversazioneVista> conversazioni = new ArrayList<>();
 
         try (@SuppressWarnings("unused") MockedConstruction<AccademicoService> mockedService = mockConstruction(AccademicoService.class,
                 (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(docente))) {
 
-            when(messaggioService.trovaMessaggiRicevuti(email)).thenReturn(messaggiRicevuti);
-            when(messaggioService.trovaMessaggiInviati(email)).thenReturn(messaggiInviati);
-            when(messaggioService.trovaAvvisi()).thenReturn(avvisi);
+            when(conversazioneService.trovaConversazioni(matricola)).thenReturn(conversazioni);
 
             // Act
             servlet.doPost(request, response);
 
             // Assert
-            verify(request).setAttribute(eq("accademicoSelf"), any(Accademico.class));
-            verify(request).setAttribute("messaggiRicevuti", messaggiRicevuti);
-            verify(request).setAttribute("messaggiInviati", messaggiInviati);
-            verify(request).setAttribute("messaggi", avvisi);
+            verify(request, never()).setAttribute(eq("accademicoSelf"), any());
+            verify(request).setAttribute("conversazioni", conversazioni);
             verify(requestDispatcher).forward(request, response);
 
             System.out.println("✓ Test completato con successo");
@@ -167,8 +141,8 @@ class ConversazioniServletTest {
     }
 
     @Test
-    void testDoPostWithMultipleMessages() throws Exception {
-        System.out.println("\n=== Test 3: doPost con molti messaggi ===");
+    void testDoPostWithMultipleConversations() throws Exception {
+        System.out.println("\n=== Test 3: doPost con molte conversazioni ===");
 
         // Arrange
         String email = "utente@studenti.unisa.it";
@@ -181,55 +155,32 @@ class ConversazioniServletTest {
         when(session.getAttribute("utenteEmail")).thenReturn(email);
         when(request.getRequestDispatcher("Conversazioni.jsp")).thenReturn(requestDispatcher);
 
-        // Crea liste con molti messaggi
-        List<Messaggio> messaggiRicevuti = new ArrayList<>();
-        List<Messaggio> messaggiInviati = new ArrayList<>();
-        List<Messaggio> avvisi = new ArrayList<>();
-
+        // Una riga per interlocutore, indipendentemente dal numero di messaggi
+        List<ConversazioneVista> conversazioni = new ArrayList<>();
         for (int i = 0; i < 10; i++) {
-            Messaggio msg1 = new Messaggio();
-            msg1.setBody("Messaggio ricevuto " + i);
-            messaggiRicevuti.add(msg1);
-
-            Messaggio msg2 = new Messaggio();
-            msg2.setBody("Messaggio inviato " + i);
-            messaggiInviati.add(msg2);
-
-            if (i < 5) {
-                Messaggio avviso = new Messaggio();
-                avviso.setBody("Avviso " + i);
-                Topic topic = new Topic();
-                topic.setNome("Topic" + i);
-                avviso.setTopic(topic);
-                avvisi.add(avviso);
-            }
+            conversazioni.add(new ConversazioneVista("studente" + i + "@studenti.unisa.it", "Nome" + i, "Cognome" + i,
+                    Tipo.Studente, "Messaggio " + i, LocalDateTime.now().minusHours(i), i));
         }
 
         try (@SuppressWarnings("unused") MockedConstruction<AccademicoService> mockedService = mockConstruction(AccademicoService.class,
                 (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(studente))) {
 
-            when(messaggioService.trovaMessaggiRicevuti(email)).thenReturn(messaggiRicevuti);
-            when(messaggioService.trovaMessaggiInviati(email)).thenReturn(messaggiInviati);
-            when(messaggioService.trovaAvvisi()).thenReturn(avvisi);
+            when(conversazioneService.trovaConversazioni("0512100020")).thenReturn(conversazioni);
 
             // Act
             servlet.doPost(request, response);
 
             // Assert
-            verify(request).setAttribute(eq("accademicoSelf"), any(Accademico.class));
-            verify(request).setAttribute("messaggiRicevuti", messaggiRicevuti);
-            verify(request).setAttribute("messaggiInviati", messaggiInviati);
-            verify(request).setAttribute("messaggi", avvisi);
+            verify(request).setAttribute("conversazioni", conversazioni);
             verify(requestDispatcher).forward(request, response);
 
-            System.out.println("✓ Test completato - " + messaggiRicevuti.size() + " ricevuti, "
-                + messaggiInviati.size() + " inviati, " + avvisi.size() + " avvisi");
+            System.out.println("✓ Test completato - " + conversazioni.size() + " conversazioni");
         }
     }
 
     @Test
-    void testDoPostWithEmptyLists() throws Exception {
-        System.out.println("\n=== Test 4: doPost con liste vuote ===");
+    void testDoPostWithEmptyInbox() throws Exception {
+        System.out.println("\n=== Test 4: doPost senza conversazioni ===");
 
         // Arrange
         String email = "nuovo@studenti.unisa.it";
@@ -242,27 +193,22 @@ class ConversazioniServletTest {
         when(session.getAttribute("utenteEmail")).thenReturn(email);
         when(request.getRequestDispatcher("Conversazioni.jsp")).thenReturn(requestDispatcher);
 
-        // Liste vuote
-        List<Messaggio> messaggiVuoti = new ArrayList<>();
+        List<ConversazioneVista> vuota = new ArrayList<>();
 
         try (@SuppressWarnings("unused") MockedConstruction<AccademicoService> mockedService = mockConstruction(AccademicoService.class,
                 (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(studente))) {
 
-            when(messaggioService.trovaMessaggiRicevuti(email)).thenReturn(messaggiVuoti);
-            when(messaggioService.trovaMessaggiInviati(email)).thenReturn(messaggiVuoti);
-            when(messaggioService.trovaAvvisi()).thenReturn(messaggiVuoti);
+            when(conversazioneService.trovaConversazioni(anyString())).thenReturn(vuota);
 
             // Act
             servlet.doPost(request, response);
 
             // Assert
-            verify(request).setAttribute(eq("accademicoSelf"), any(Accademico.class));
-            verify(request).setAttribute("messaggiRicevuti", messaggiVuoti);
-            verify(request).setAttribute("messaggiInviati", messaggiVuoti);
-            verify(request).setAttribute("messaggi", messaggiVuoti);
+            verify(request, never()).setAttribute(eq("accademicoSelf"), any());
+            verify(request).setAttribute("conversazioni", vuota);
             verify(requestDispatcher).forward(request, response);
 
-            System.out.println("✓ Test completato con liste vuote");
+            System.out.println("✓ Test completato con casella vuota");
         }
     }
 
@@ -281,20 +227,16 @@ class ConversazioniServletTest {
         when(session.getAttribute("utenteEmail")).thenReturn(email);
         when(request.getRequestDispatcher("Conversazioni.jsp")).thenReturn(requestDispatcher);
 
-        List<Messaggio> messaggiVuoti = new ArrayList<>();
-
         try (@SuppressWarnings("unused") MockedConstruction<AccademicoService> mockedService = mockConstruction(AccademicoService.class,
                 (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(studente))) {
 
-            when(messaggioService.trovaMessaggiRicevuti(email)).thenReturn(messaggiVuoti);
-            when(messaggioService.trovaMessaggiInviati(email)).thenReturn(messaggiVuoti);
-            when(messaggioService.trovaAvvisi()).thenReturn(messaggiVuoti);
+            when(conversazioneService.trovaConversazioni(anyString())).thenReturn(new ArrayList<>());
 
             // Act
             servlet.doGet(request, response);
 
             // Assert - verifica che doGet chiami doPost
-            verify(request).setAttribute(eq("accademicoSelf"), any(Accademico.class));
+            verify(request, never()).setAttribute(eq("accademicoSelf"), any());
             verify(requestDispatcher).forward(request, response);
 
             System.out.println("✓ Test completato - doGet delega correttamente a doPost");
@@ -302,38 +244,27 @@ class ConversazioniServletTest {
     }
 
     @Test
-    void testDoPostWithNullAvvisi() throws Exception {
-        System.out.println("\n=== Test 6: doPost con avvisi null (gestione edge case) ===");
+    void testDoPostWithUnknownUser() throws Exception {
+        System.out.println("\n=== Test 6: doPost con utente non trovato (gestione edge case) ===");
 
         // Arrange
         String email = "edge@studenti.unisa.it";
 
-        Studente studente = new Studente();
-        studente.setEmail(email);
-        studente.setMatricola("0512100050");
-
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("utenteEmail")).thenReturn(email);
         when(request.getRequestDispatcher("Conversazioni.jsp")).thenReturn(requestDispatcher);
 
-        List<Messaggio> messaggiRicevuti = new ArrayList<>();
-        List<Messaggio> messaggiInviati = new ArrayList<>();
-
         try (@SuppressWarnings("unused") MockedConstruction<AccademicoService> mockedService = mockConstruction(AccademicoService.class,
-                (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(studente))) {
+                (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(null))) {
 
-            when(messaggioService.trovaMessaggiRicevuti(email)).thenReturn(messaggiRicevuti);
-            when(messaggioService.trovaMessaggiInviati(email)).thenReturn(messaggiInviati);
-            when(messaggioService.trovaAvvisi()).thenReturn(new ArrayList<>());
+            when(conversazioneService.trovaConversazioni(null)).thenReturn(new ArrayList<>());
 
             // Act
             servlet.doPost(request, response);
 
             // Assert
-            verify(request).setAttribute(eq("accademicoSelf"), any(Accademico.class));
-            verify(request).setAttribute(eq("messaggiRicevuti"), any(List.class));
-            verify(request).setAttribute(eq("messaggiInviati"), any(List.class));
-            verify(request).setAttribute(eq("messaggi"), any(List.class));
+            verify(conversazioneService).trovaConversazioni(null);
+            verify(request).setAttribute(eq("conversazioni"), any(List.class));
             verify(requestDispatcher).forward(request, response);
 
             System.out.println("✓ Test completato");
@@ -341,41 +272,33 @@ class ConversazioniServletTest {
     }
 
     @Test
-    void testDoPostWithDifferentEmailFormats() throws Exception {
-        System.out.println("\n=== Test 7: doPost con diversi formati email ===");
+    void testDoPostForwardFails() throws Exception {
+        System.out.println("\n=== Test 7: doPost con errore nel forward ===");
 
-        // Test con email professore
+        // Arrange
         String email = "g.verdi@unisa.it";
 
         Docente docente = new Docente();
         docente.setEmail(email);
         docente.setMatricola("0512100060");
-        docente.setNome("Giovanni");
-        docente.setCognome("Verdi");
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("utenteEmail")).thenReturn(email);
         when(request.getRequestDispatcher("Conversazioni.jsp")).thenReturn(requestDispatcher);
-
-        List<Messaggio> messaggi = new ArrayList<>();
+        doThrow(new ServletException("forward fallito")).when(requestDispatcher).forward(request, response);
 
         try (@SuppressWarnings("unused") MockedConstruction<AccademicoService> mockedService = mockConstruction(AccademicoService.class,
                 (mock, context) -> when(mock.trovaEmailUniClass(email)).thenReturn(docente))) {
 
-            when(messaggioService.trovaMessaggiRicevuti(email)).thenReturn(messaggi);
-            when(messaggioService.trovaMessaggiInviati(email)).thenReturn(messaggi);
-            when(messaggioService.trovaAvvisi()).thenReturn(messaggi);
+            when(conversazioneService.trovaConversazioni(anyString())).thenReturn(new ArrayList<>());
 
             // Act
             servlet.doPost(request, response);
 
             // Assert
-            verify(request).setAttribute(eq("accademicoSelf"), any(Accademico.class));
-            verify(messaggioService).trovaMessaggiRicevuti(email);
-            verify(messaggioService).trovaMessaggiInviati(email);
-            verify(requestDispatcher).forward(request, response);
+            verify(response).sendError(eq(HttpServletResponse.SC_INTERNAL_SERVER_ERROR), anyString());
 
-            System.out.println("✓ Test completato con email formato professore");
+            System.out.println("✓ Errore gestito con 500");
         }
     }
 }
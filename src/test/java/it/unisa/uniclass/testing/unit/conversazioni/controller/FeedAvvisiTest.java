@@ -0,0 +1,180 @@
+package it.unisa.uniclass.testing.unit.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.controller.FeedAvvisi;
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.utenti.model.Accademico;
+import jakarta.servlet.AsyncContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FeedAvvisiTest {
+
+    private FeedAvvisi feed;
+    private CorsoLaurea informatica;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        feed = new FeedAvvisi();
+        informatica = new CorsoLaurea();
+        informatica.setNome("Informatica");
+        impostaId(CorsoLaurea.class, informatica, 1L);
+    }
+
+    private static void impostaId(Class<?> classe, Object entita, long id) throws Exception {
+        Field idField = classe.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(entita, id);
+    }
+
+    private Messaggio avviso(long id, Topic topic) throws Exception {
+        Messaggio messaggio = new Messaggio();
+        impostaId(Messaggio.class, messaggio, id);
+        messaggio.setTopic(topic);
+        messaggio.setBody("Avviso " + id);
+        messaggio.setDateTime(LocalDateTime.of(2024, 11, 30, 10, 0));
+        return messaggio;
+    }
+
+    private Topic topicCorsoLaurea() {
+        Topic topic = new Topic();
+        topic.setNome("Avvisi");
+        topic.setCorsoLaurea(informatica);
+        return topic;
+    }
+
+    @Test
+    void testPubblicaSulCorsoLaurea() throws Exception {
+        System.out.println("\n=== Test 1: Avviso consegnato agli iscritti del corso di laurea ===");
+
+        StringWriter uscita = new StringWriter();
+        feed.iscrivi(new FeedAvvisi.Iscrizione(mock(AsyncContext.class), new PrintWriter(uscita), 1L, null, 0L));
+        StringWriter altroCorso = new StringWriter();
+        feed.iscrivi(new FeedAvvisi.Iscrizione(mock(AsyncContext.class), new PrintWriter(altroCorso), 2L, null, 0L));
+
+        feed.pubblica(avviso(5L, topicCorsoLaurea()));
+
+        assertTrue(uscita.toString().contains("id: 5\nevent: avviso\n"));
+        assertTrue(uscita.toString().contains("Avviso 5"));
+        assertEquals("", altroCorso.toString());
+
+        System.out.println("✓ Avviso consegnato solo al corso di laurea destinatario");
+    }
+
+    @Test
+    void testMessaggiDirettiIgnorati() throws Exception {
+        System.out.println("\n=== Test 2: Messaggi diretti e senza topic ignorati ===");
+
+        StringWriter uscita = new StringWriter();
+        feed.iscrivi(new FeedAvvisi.Iscrizione(mock(AsyncContext.class), new PrintWriter(uscita), 1L, null, 0L));
+
+        Messaggio diretto = avviso(6L, topicCorsoLaurea());
+        diretto.setDestinatario(new Accademico());
+        feed.pubblica(diretto);
+        feed.pubblica(avviso(7L, null));
+
+        assertEquals("", uscita.toString());
+
+        System.out.println("✓ Nessun evento scritto");
+    }
+
+    @Test
+    void testDuplicatiScartati() throws Exception {
+        System.out.println("\n=== Test 3: Avvisi già ricevuti non reinviati ===");
+
+        StringWriter uscita = new StringWriter();
+        feed.iscrivi(new FeedAvvisi.Iscrizione(mock(AsyncContext.class), new PrintWriter(uscita), 1L, null, 10L));
+
+        feed.pubblica(avviso(10L, topicCorsoLaurea()));
+        feed.pubblica(avviso(11L, topicCorsoLaurea()));
+        feed.pubblica(avviso(11L, topicCorsoLaurea()));
+
+        assertFalse(uscita.toString().contains("id: 10\n"));
+        assertEquals(uscita.toString().indexOf("id: 11\n"), uscita.toString().lastIndexOf("id: 11\n"));
+
+        System.out.println("✓ Solo l'avviso 11 inviato, una volta");
+    }
+
+    @Test
+    void testFiltroPerCorso() throws Exception {
+        System.out.println("\n=== Test 4: Filtro per corso ===");
+
+        Corso corso = new Corso();
+        impostaId(Corso.class, corso, 3L);
+        corso.setCorsoLaurea(informatica);
+        Topic topicCorso = new Topic();
+        topicCorso.setNome("Programmazione");
+        topicCorso.setCorso(corso);
+
+        StringWriter soloCorso = new StringWriter();
+        feed.iscrivi(new FeedAvvisi.Iscrizione(mock(AsyncContext.class), new PrintWriter(soloCorso), 1L, 3L, 0L));
+
+        feed.pubblica(avviso(1L, topicCorsoLaurea()));
+        feed.pubblica(avviso(2L, topicCorso));
+
+        assertFalse(soloCorso.toString().contains("id: 1\n"));
+        assertTrue(soloCorso.toString().contains("id: 2\n"));
+
+        System.out.println("✓ Consegnati solo gli avvisi del corso scelto");
+    }
+
+    @Test
+    void testClientChiusoRimosso() {
+        System.out.println("\n=== Test 5: Stream non più raggiungibile rimosso ===");
+
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        PrintWriter chiuso = new PrintWriter(new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws java.io.IOException {
+                throw new java.io.IOException("connessione chiusa");
+            }
+
+            @Override
+            public void flush() throws java.io.IOException {
+                throw new java.io.IOException("connessione chiusa");
+            }
+
+            @Override
+            public void close() {
+                // Nessuna azione
+            }
+        });
+        feed.iscrivi(new FeedAvvisi.Iscrizione(asyncContext, chiuso, 1L, null, 0L));
+        assertEquals(1, feed.numeroIscritti(1L));
+
+        feed.heartbeat();
+
+        assertEquals(0, feed.numeroIscritti(1L));
+        verify(asyncContext).complete();
+
+        System.out.println("✓ Iscrizione rimossa e contesto completato");
+    }
+
+    @Test
+    void testEventoDaProiezione() {
+        System.out.println("\n=== Test 6: Evento SSE costruito dalla proiezione ===");
+
+        MessaggioVista avviso = new MessaggioVista(8L, "Aula cambiata", LocalDateTime.of(2024, 11, 30, 10, 0),
+                "0512100010", "docente@unisa.it", "Maria", "Rossi", null, null, "Avvisi", null);
+
+        String evento = FeedAvvisi.evento(avviso);
+
+        assertTrue(evento.startsWith("id: 8\nevent: avviso\n"));
+        assertTrue(evento.contains("\"autore\":\"Maria Rossi\""));
+        assertTrue(evento.contains("\"topic\":\"Avvisi\""));
+
+        System.out.println("✓ Evento serializzato senza caricare le entità");
+    }
+}
@@ -0,0 +1,183 @@
+package it.unisa.uniclass.testing.unit.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.controller.caricaMessaggiServlet;
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.json.JSONArray;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class caricaMessaggiServletTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private HttpSession session;
+
+    @Mock
+    private MessaggioService messaggioService;
+
+    @Mock
+    private AccademicoService accademicoService;
+
+    private caricaMessaggiServlet servlet;
+    private StringWriter responseWriter;
+
+    private Accademico self;
+    private Accademico altro;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        servlet = new caricaMessaggiServlet();
+        servlet.setMessaggioService(messaggioService);
+        servlet.setAccademicoService(accademicoService);
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+
+        responseWriter = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseWriter));
+
+        self = new Accademico();
+        self.setMatricola("0512100001");
+        self.setEmail("studente@studenti.unisa.it");
+
+        altro = new Accademico();
+        altro.setMatricola("0512100002");
+        altro.setEmail("professore@unisa.it");
+
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute("utenteEmail")).thenReturn(self.getEmail());
+        when(request.getParameter("accademico")).thenReturn(altro.getEmail());
+        when(accademicoService.trovaEmailUniClass(self.getEmail())).thenReturn(self);
+        when(accademicoService.trovaEmailUniClass(altro.getEmail())).thenReturn(altro);
+    }
+
+    @Test
+    void testDoGetConCursore() throws Exception {
+        System.out.println("\n=== Test 1: Pagina precedente al cursore ===");
+
+        LocalDateTime cursore = LocalDateTime.of(2024, 11, 30, 10, 0);
+        when(request.getParameter("prima")).thenReturn(cursore.toString());
+        when(request.getParameter("primaId")).thenReturn("42");
+
+        Topic topic = new Topic();
+        topic.setNome("Esame");
+
+        Messaggio ricevuto = new Messaggio();
+        ricevuto.setAutore(altro);
+        ricevuto.setDestinatario(self);
+        ricevuto.setBody("Ciao");
+        ricevuto.setDateTime(cursore.minusMinutes(1));
+        ricevuto.setTopic(topic);
+
+        Messaggio inviato = new Messaggio();
+        inviato.setAutore(self);
+        inviato.setDestinatario(altro);
+        inviato.setBody("Salve");
+        inviato.setDateTime(cursore.minusMinutes(2));
+
+        List<MessaggioVista> pagina = new ArrayList<>();
+        pagina.add(MessaggioVista.di(ricevuto));
+        pagina.add(MessaggioVista.di(inviato));
+        when(messaggioService.trovaConversazionePrecedenti(anyString(), anyString(), any(), anyLong(), anyInt()))
+                .thenReturn(pagina);
+
+        servlet.doGet(request, response);
+
+        verify(messaggioService).trovaConversazionePrecedenti("0512100001", "0512100002", cursore, 42L,
+                MessaggioService.DIMENSIONE_PAGINA);
+        verify(response).setContentType("application/json");
+
+        JSONArray json = new JSONArray(responseWriter.toString());
+        assertEquals(2, json.length());
+        assertEquals("Ciao", json.getJSONObject(0).getString("body"));
+        assertFalse(json.getJSONObject(0).getBoolean("self"));
+        assertEquals("Esame", json.getJSONObject(0).getString("topic"));
+        assertTrue(json.getJSONObject(1).getBoolean("self"));
+        assertFalse(json.getJSONObject(1).has("topic"));
+
+        System.out.println("✓ Pagina serializzata in JSON");
+    }
+
+    @Test
+    void testDoGetSenzaCursore() throws Exception {
+        System.out.println("\n=== Test 2: Nessun cursore ===");
+
+        when(messaggioService.trovaConversazionePrecedenti(anyString(), anyString(), any(), anyLong(), anyInt()))
+                .thenReturn(new ArrayList<>());
+
+        servlet.doGet(request, response);
+
+        verify(messaggioService).trovaConversazionePrecedenti("0512100001", "0512100002", null, Long.MAX_VALUE,
+                MessaggioService.DIMENSIONE_PAGINA);
+        assertEquals("[]", responseWriter.toString());
+
+        System.out.println("✓ Restituita la pagina più recente");
+    }
+
+    @Test
+    void testDoGetCursoreNonValido() throws Exception {
+        System.out.println("\n=== Test 3: Cursore non valido ===");
+
+        when(request.getParameter("prima")).thenReturn("non-una-data");
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verifyNoInteractions(messaggioService);
+
+        System.out.println("✓ Richiesta rifiutata con 400");
+    }
+
+    @Test
+    void testDoGetSenzaSessione() throws Exception {
+        System.out.println("\n=== Test 4: Utente non autenticato ===");
+
+        when(request.getSession(false)).thenReturn(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        verifyNoInteractions(messaggioService);
+
+        System.out.println("✓ Richiesta rifiutata con 401");
+    }
+
+    @Test
+    void testDoGetAccademicoInesistente() throws Exception {
+        System.out.println("\n=== Test 5: Interlocutore inesistente ===");
+
+        when(accademicoService.trovaEmailUniClass(altro.getEmail())).thenReturn(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+        verifyNoInteractions(messaggioService);
+
+        System.out.println("✓ Richiesta rifiutata con 404");
+    }
+}
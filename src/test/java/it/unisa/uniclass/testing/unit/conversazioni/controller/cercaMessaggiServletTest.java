@@ -0,0 +1,142 @@
+package it.unisa.uniclass.testing.unit.conversazioni.controller;
+
+import it.unisa.uniclass.conversazioni.controller.cercaMessaggiServlet;
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.service.AccademicoService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.json.JSONArray;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class cercaMessaggiServletTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private HttpSession session;
+
+    @Mock
+    private MessaggioService messaggioService;
+
+    @Mock
+    private AccademicoService accademicoService;
+
+    private cercaMessaggiServlet servlet;
+    private StringWriter responseWriter;
+
+    private Accademico self;
+    private Accademico altro;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        servlet = new cercaMessaggiServlet();
+        servlet.setMessaggioService(messaggioService);
+        servlet.setAccademicoService(accademicoService);
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+
+        responseWriter = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseWriter));
+
+        self = new Accademico();
+        self.setMatricola("0512100001");
+        self.setEmail("studente@studenti.unisa.it");
+
+        altro = new Accademico();
+        altro.setMatricola("0512100002");
+        altro.setEmail("professore@unisa.it");
+        altro.setNome("Maria");
+        altro.setCognome("Rossi");
+
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute("utenteEmail")).thenReturn(self.getEmail());
+        when(accademicoService.trovaEmailUniClass(self.getEmail())).thenReturn(self);
+    }
+
+    @Test
+    void testDoGetRisultati() throws Exception {
+        System.out.println("\n=== Test 1: Risultati della ricerca in JSON ===");
+
+        when(request.getParameter("q")).thenReturn("esame");
+
+        Messaggio ricevuto = new Messaggio();
+        ricevuto.setAutore(altro);
+        ricevuto.setDestinatario(self);
+        ricevuto.setBody("L'esame è confermato");
+        ricevuto.setDateTime(LocalDateTime.of(2024, 11, 30, 10, 0));
+
+        Topic topic = new Topic();
+        topic.setNome("Esame");
+        Messaggio avviso = new Messaggio();
+        avviso.setAutore(altro);
+        avviso.setBody("Esame rinviato");
+        avviso.setDateTime(LocalDateTime.of(2024, 11, 29, 10, 0));
+        avviso.setTopic(topic);
+
+        when(messaggioService.cercaMessaggi("esame", self, cercaMessaggiServlet.RISULTATI)).thenReturn(List.of(ricevuto, avviso));
+
+        servlet.doGet(request, response);
+
+        verify(response).setContentType("application/json");
+        JSONArray json = new JSONArray(responseWriter.toString());
+        assertEquals(2, json.length());
+        assertEquals("L'esame è confermato", json.getJSONObject(0).getString("body"));
+        assertEquals("professore@unisa.it", json.getJSONObject(0).getString("interlocutore"));
+        assertEquals("Maria Rossi", json.getJSONObject(0).getString("autore"));
+        assertFalse(json.getJSONObject(0).getBoolean("self"));
+        assertEquals("Esame", json.getJSONObject(1).getString("topic"));
+        assertFalse(json.getJSONObject(1).has("interlocutore"));
+
+        System.out.println("✓ Risultati serializzati nell'ordine di rilevanza");
+    }
+
+    @Test
+    void testDoGetSenzaSessione() throws Exception {
+        System.out.println("\n=== Test 2: Ricerca senza sessione ===");
+
+        when(request.getSession(false)).thenReturn(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        verifyNoInteractions(messaggioService);
+
+        System.out.println("✓ Richiesta rifiutata con 401");
+    }
+
+    @Test
+    void testDoGetLimiteNonValido() throws Exception {
+        System.out.println("\n=== Test 3: Limite non valido ===");
+
+        when(request.getParameter("q")).thenReturn("esame");
+        when(request.getParameter("limite")).thenReturn("tanti");
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verifyNoInteractions(messaggioService);
+
+        System.out.println("✓ Richiesta rifiutata con 400");
+    }
+}
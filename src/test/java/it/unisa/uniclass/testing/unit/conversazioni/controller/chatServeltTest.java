@@ -2,9 +2,15 @@ package it.unisa.uniclass.testing.unit.conversazioni.controller;
 
 import it.unisa.uniclass.conversazioni.controller.chatServlet;
 import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.service.ConversazioneService;
 import it.unisa.uniclass.conversazioni.service.MessaggioService;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.service.AccademicoService;
+import it.unisa.uniclass.utenti.service.UtenteService;
+import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -31,6 +37,9 @@ class ChatServletTest {
     @Mock
     private HttpSession session;
 
+    @Mock
+    private RequestDispatcher dispatcher;
+
     // 2. Mockiamo i Service (il "finto" database)
     @Mock
     private MessaggioService messaggioService;
@@ -38,6 +47,12 @@ class ChatServletTest {
     @Mock
     private AccademicoService accademicoService;
 
+    @Mock
+    private ConversazioneService conversazioneService;
+
+    @Mock
+    private UtenteService utenteService;
+
     // 3. La servlet vera che verrà testata
     private chatServlet servlet;
 
@@ -47,23 +62,25 @@ class ChatServletTest {
         servlet = new chatServlet();
         servlet.setMessaggioService(messaggioService);
         servlet.setAccademicoService(accademicoService);
+        servlet.setConversazioneService(conversazioneService);
+        servlet.setUtenteService(utenteService);
         when(request.getServletContext()).thenReturn(mock(jakarta.servlet.ServletContext.class));
+        when(request.getSession(false)).thenReturn(session);
+        when(request.getRequestDispatcher("/chat.jsp")).thenReturn(dispatcher);
     }
 
     @Test
     void testDoGet() throws Exception {
         // --- ARRANGE (Preparazione dei dati finti) ---
 
-        // Simuliamo le email passate come parametri dalla JSP
+        // L'interlocutore arriva come parametro, l'utente corrente dalla sessione
         String emailAltro = "professore@unisa.it";
         String emailSelf = "studente@studenti.unisa.it";
         String matricolaSelf = "0512100001";
         String matricolaAltro = "0512100002";
 
         when(request.getParameter("accademico")).thenReturn(emailAltro);
-        when(request.getParameter("accademicoSelf")).thenReturn(emailSelf);
-        when(request.getSession()).thenReturn(session);
-        when(request.getContextPath()).thenReturn("/UniClass");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale(matricolaSelf, emailSelf, Tipo.Studente));
 
         // Creiamo gli oggetti Accademico finti
         Accademico self = new Accademico();
@@ -75,23 +92,23 @@ class ChatServletTest {
         altro.setEmail(emailAltro);
 
         // Istruiamo il service mockato su cosa restituire
-        when(accademicoService.trovaEmailUniClass(emailSelf)).thenReturn(self);
+        when(utenteService.trovaUtente(any())).thenReturn(self);
         when(accademicoService.trovaEmailUniClass(emailAltro)).thenReturn(altro);
 
         // Creiamo una lista di messaggi mista (Inviati, Ricevuti, Irrilevanti)
-        List<Messaggio> tuttiIMessaggi = new ArrayList<>();
+        List<MessaggioVista> tuttiIMessaggi = new ArrayList<>();
 
         // Messaggio 1: Inviato da ME a LUI (Dovrebbe finire in messaggiInviati)
         Messaggio mInviato = new Messaggio();
         mInviato.setAutore(self);
         mInviato.setDestinatario(altro);
-        tuttiIMessaggi.add(mInviato);
+        tuttiIMessaggi.add(MessaggioVista.di(mInviato));
 
         // Messaggio 2: Ricevuto da LUI per ME (Dovrebbe finire in messaggiRicevuti)
         Messaggio mRicevuto = new Messaggio();
         mRicevuto.setAutore(altro);
         mRicevuto.setDestinatario(self);
-        tuttiIMessaggi.add(mRicevuto);
+        tuttiIMessaggi.add(MessaggioVista.di(mRicevuto));
 
         // Messaggio 3: Irrilevante (tra due estranei) - Serve a testare che il filtro funzioni
         Accademico estraneo = new Accademico();
@@ -99,9 +116,9 @@ class ChatServletTest {
         Messaggio mIrrilevante = new Messaggio();
         mIrrilevante.setAutore(estraneo);
         mIrrilevante.setDestinatario(estraneo);
-        tuttiIMessaggi.add(mIrrilevante);
+        tuttiIMessaggi.add(MessaggioVista.di(mIrrilevante));
 
-        when(messaggioService.trovaTutti()).thenReturn(tuttiIMessaggi);
+        when(messaggioService.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(tuttiIMessaggi);
 
         // --- ACT (Esecuzione del metodo reale) ---
         servlet.doPost(request, response);
@@ -110,23 +127,25 @@ class ChatServletTest {
 
         // 1. Verifichiamo che gli attributi siano stati settati nella Request
         verify(request).setAttribute(eq("messaggigi"), any(List.class));
-        verify(request).setAttribute(eq("accademico"), eq(altro));
+        verify(request).setAttribute(eq("emailAccademico"), eq(emailAltro));
         verify(request).setAttribute(eq("messaggiInviati"), any(List.class));
         verify(request).setAttribute(eq("messaggiRicevuti"), any(List.class));
-        verify(request).setAttribute(eq("accdemicoSelf"), eq(self));
+        verify(request).setAttribute(eq("emailSelf"), eq(emailSelf));
+        verify(request, never()).setAttribute(eq("accademicoSelf"), any());
 
-        // 2. Verifichiamo che gli attributi siano stati settati nella Session
-        verify(session).setAttribute(eq("messaggigi"), any(List.class));
-        verify(session).setAttribute(eq("accademico"), eq(altro));
-        verify(session).setAttribute(eq("accademicoSelf"), eq(self));
+        // 2. Verifichiamo che la conversazione non resti in sessione
+        verify(session, never()).setAttribute(anyString(), any());
 
-        // 3. Verifichiamo il redirect
-        verify(response).sendRedirect("/UniClass/chat.jsp");
+        // 3. Verifichiamo il forward
+        verify(dispatcher).forward(request, response);
+        verify(response, never()).sendRedirect(anyString());
 
         // 4. Verifichiamo che i service siano stati chiamati
-        verify(accademicoService).trovaEmailUniClass(emailSelf);
+        verify(utenteService).trovaUtente(new Principale(matricolaSelf, emailSelf, Tipo.Studente));
+        verify(accademicoService, never()).trovaEmailUniClass(emailSelf);
         verify(accademicoService).trovaEmailUniClass(emailAltro);
-        verify(messaggioService).trovaTutti();
+        verify(messaggioService).trovaConversazione(matricolaSelf, matricolaAltro, MessaggioService.DIMENSIONE_PAGINA);
+        verify(conversazioneService).segnaLetta(self, altro);
     }
 
     @Test
@@ -138,9 +157,7 @@ class ChatServletTest {
         String matricolaAltro = "0512100004";
 
         when(request.getParameter("accademico")).thenReturn(emailAltro);
-        when(request.getParameter("accademicoSelf")).thenReturn(emailSelf);
-        when(request.getSession()).thenReturn(session);
-        when(request.getContextPath()).thenReturn("/UniClass");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale(matricolaSelf, emailSelf, Tipo.Studente));
 
         Accademico self = new Accademico();
         self.setMatricola(matricolaSelf);
@@ -150,18 +167,18 @@ class ChatServletTest {
         altro.setMatricola(matricolaAltro);
         altro.setEmail(emailAltro);
 
-        when(accademicoService.trovaEmailUniClass(emailSelf)).thenReturn(self);
+        when(utenteService.trovaUtente(any())).thenReturn(self);
         when(accademicoService.trovaEmailUniClass(emailAltro)).thenReturn(altro);
 
-        List<Messaggio> messaggi = new ArrayList<>();
-        when(messaggioService.trovaTutti()).thenReturn(messaggi);
+        List<MessaggioVista> messaggi = new ArrayList<>();
+        when(messaggioService.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(messaggi);
 
         // --- ACT ---
         servlet.doPost(request, response);
 
         // --- ASSERT ---
-        verify(response).sendRedirect("/UniClass/chat.jsp");
-        verify(accademicoService, times(1)).trovaEmailUniClass(emailSelf);
+        verify(dispatcher).forward(request, response);
+        verify(utenteService, times(1)).trovaUtente(any());
         verify(accademicoService, times(1)).trovaEmailUniClass(emailAltro);
     }
 
@@ -174,9 +191,7 @@ class ChatServletTest {
         String matricolaAltro = "0512100006";
 
         when(request.getParameter("accademico")).thenReturn(emailAltro);
-        when(request.getParameter("accademicoSelf")).thenReturn(emailSelf);
-        when(request.getSession()).thenReturn(session);
-        when(request.getContextPath()).thenReturn("/UniClass");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale(matricolaSelf, emailSelf, Tipo.Studente));
 
         Accademico self = new Accademico();
         self.setMatricola(matricolaSelf);
@@ -186,25 +201,25 @@ class ChatServletTest {
         altro.setMatricola(matricolaAltro);
         altro.setEmail(emailAltro);
 
-        when(accademicoService.trovaEmailUniClass(emailSelf)).thenReturn(self);
+        when(utenteService.trovaUtente(any())).thenReturn(self);
         when(accademicoService.trovaEmailUniClass(emailAltro)).thenReturn(altro);
 
         // Creiamo più messaggi per testare diversi scenari
-        List<Messaggio> tuttiIMessaggi = new ArrayList<>();
+        List<MessaggioVista> tuttiIMessaggi = new ArrayList<>();
 
         for (int i = 0; i < 5; i++) {
             Messaggio msg1 = new Messaggio();
             msg1.setAutore(self);
             msg1.setDestinatario(altro);
-            tuttiIMessaggi.add(msg1);
+            tuttiIMessaggi.add(MessaggioVista.di(msg1));
 
             Messaggio msg2 = new Messaggio();
             msg2.setAutore(altro);
             msg2.setDestinatario(self);
-            tuttiIMessaggi.add(msg2);
+            tuttiIMessaggi.add(MessaggioVista.di(msg2));
         }
 
-        when(messaggioService.trovaTutti()).thenReturn(tuttiIMessaggi);
+        when(messaggioService.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(tuttiIMessaggi);
 
         // --- ACT ---
         servlet.doPost(request, response);
@@ -213,7 +228,7 @@ class ChatServletTest {
         verify(request).setAttribute(eq("messaggigi"), any(List.class));
         verify(request).setAttribute(eq("messaggiInviati"), any(List.class));
         verify(request).setAttribute(eq("messaggiRicevuti"), any(List.class));
-        verify(response).sendRedirect("/UniClass/chat.jsp");
+        verify(dispatcher).forward(request, response);
     }
 
     @Test
@@ -225,9 +240,7 @@ class ChatServletTest {
         String matricolaAltro = "0512100008";
 
         when(request.getParameter("accademico")).thenReturn(emailAltro);
-        when(request.getParameter("accademicoSelf")).thenReturn(emailSelf);
-        when(request.getSession()).thenReturn(session);
-        when(request.getContextPath()).thenReturn("/UniClass");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale(matricolaSelf, emailSelf, Tipo.Studente));
 
         Accademico self = new Accademico();
         self.setMatricola(matricolaSelf);
@@ -237,9 +250,9 @@ class ChatServletTest {
         altro.setMatricola(matricolaAltro);
         altro.setEmail(emailAltro);
 
-        when(accademicoService.trovaEmailUniClass(emailSelf)).thenReturn(self);
+        when(utenteService.trovaUtente(any())).thenReturn(self);
         when(accademicoService.trovaEmailUniClass(emailAltro)).thenReturn(altro);
-        when(messaggioService.trovaTutti()).thenReturn(new ArrayList<>());
+        when(messaggioService.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(new ArrayList<>());
 
         // --- ACT ---
         servlet.doPost(request, response);
@@ -248,7 +261,7 @@ class ChatServletTest {
         verify(request).setAttribute(eq("messaggigi"), any(List.class));
         verify(request).setAttribute(eq("messaggiInviati"), any(List.class));
         verify(request).setAttribute(eq("messaggiRicevuti"), any(List.class));
-        verify(response).sendRedirect("/UniClass/chat.jsp");
+        verify(dispatcher).forward(request, response);
     }
 
     @Test
@@ -260,9 +273,7 @@ class ChatServletTest {
         String matricolaAltro = "0512100010";
 
         when(request.getParameter("accademico")).thenReturn(emailAltro);
-        when(request.getParameter("accademicoSelf")).thenReturn(emailSelf);
-        when(request.getSession()).thenReturn(session);
-        when(request.getContextPath()).thenReturn("/UniClass");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale(matricolaSelf, emailSelf, Tipo.Studente));
 
         Accademico self = new Accademico();
         self.setMatricola(matricolaSelf);
@@ -272,24 +283,24 @@ class ChatServletTest {
         altro.setMatricola(matricolaAltro);
         altro.setEmail(emailAltro);
 
-        when(accademicoService.trovaEmailUniClass(emailSelf)).thenReturn(self);
+        when(utenteService.trovaUtente(any())).thenReturn(self);
         when(accademicoService.trovaEmailUniClass(emailAltro)).thenReturn(altro);
 
-        List<Messaggio> messaggi = new ArrayList<>();
+        List<MessaggioVista> messaggi = new ArrayList<>();
         for (int i = 0; i < 3; i++) {
             Messaggio msg = new Messaggio();
             msg.setAutore(altro);
             msg.setDestinatario(self);
-            messaggi.add(msg);
+            messaggi.add(MessaggioVista.di(msg));
         }
-        when(messaggioService.trovaTutti()).thenReturn(messaggi);
+        when(messaggioService.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(messaggi);
 
         // --- ACT ---
         servlet.doPost(request, response);
 
         // --- ASSERT ---
         verify(request).setAttribute(eq("messaggiRicevuti"), any(List.class));
-        verify(response).sendRedirect("/UniClass/chat.jsp");
+        verify(dispatcher).forward(request, response);
     }
 
     @Test
@@ -301,9 +312,7 @@ class ChatServletTest {
         String matricolaAltro = "0512100012";
 
         when(request.getParameter("accademico")).thenReturn(emailAltro);
-        when(request.getParameter("accademicoSelf")).thenReturn(emailSelf);
-        when(request.getSession()).thenReturn(session);
-        when(request.getContextPath()).thenReturn("/UniClass");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale(matricolaSelf, emailSelf, Tipo.Studente));
 
         Accademico self = new Accademico();
         self.setMatricola(matricolaSelf);
@@ -313,23 +322,72 @@ class ChatServletTest {
         altro.setMatricola(matricolaAltro);
         altro.setEmail(emailAltro);
 
-        when(accademicoService.trovaEmailUniClass(emailSelf)).thenReturn(self);
+        when(utenteService.trovaUtente(any())).thenReturn(self);
         when(accademicoService.trovaEmailUniClass(emailAltro)).thenReturn(altro);
 
-        List<Messaggio> messaggi = new ArrayList<>();
+        List<MessaggioVista> messaggi = new ArrayList<>();
         for (int i = 0; i < 3; i++) {
             Messaggio msg = new Messaggio();
             msg.setAutore(self);
             msg.setDestinatario(altro);
-            messaggi.add(msg);
+            messaggi.add(MessaggioVista.di(msg));
         }
-        when(messaggioService.trovaTutti()).thenReturn(messaggi);
+        when(messaggioService.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(messaggi);
 
         // --- ACT ---
         servlet.doPost(request, response);
 
         // --- ASSERT ---
         verify(request).setAttribute(eq("messaggiInviati"), any(List.class));
-        verify(response).sendRedirect("/UniClass/chat.jsp");
+        verify(dispatcher).forward(request, response);
+    }
+
+    @Test
+    void testDoGetSenzaSessione() throws Exception {
+        when(request.getSession(false)).thenReturn(null);
+        when(request.getParameter("accademico")).thenReturn("professore@unisa.it");
+        when(request.getParameter("accademicoSelf")).thenReturn("studente@studenti.unisa.it");
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        verifyNoInteractions(utenteService, accademicoService, messaggioService, conversazioneService);
+    }
+
+    @Test
+    void testDoGetIgnoraAccademicoSelfDelClient() throws Exception {
+        Accademico self = new Accademico();
+        self.setMatricola("0512100001");
+        self.setEmail("studente@studenti.unisa.it");
+        Accademico altro = new Accademico();
+        altro.setMatricola("0512100002");
+        altro.setEmail("professore@unisa.it");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale("0512100001", self.getEmail(), Tipo.Studente));
+        when(request.getParameter("accademico")).thenReturn(altro.getEmail());
+        when(request.getParameter("accademicoSelf")).thenReturn("vittima@studenti.unisa.it");
+        when(utenteService.trovaUtente(any())).thenReturn(self);
+        when(accademicoService.trovaEmailUniClass(altro.getEmail())).thenReturn(altro);
+        when(messaggioService.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(new ArrayList<>());
+
+        servlet.doGet(request, response);
+
+        verify(accademicoService, never()).trovaEmailUniClass("vittima@studenti.unisa.it");
+        verify(conversazioneService).segnaLetta(self, altro);
+    }
+
+    @Test
+    void testDoGetInterlocutoreSconosciuto() throws Exception {
+        Accademico self = new Accademico();
+        self.setMatricola("0512100001");
+        self.setEmail("studente@studenti.unisa.it");
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale("0512100001", self.getEmail(), Tipo.Studente));
+        when(request.getParameter("accademico")).thenReturn("sconosciuto@unisa.it");
+        when(utenteService.trovaUtente(any())).thenReturn(self);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+        verifyNoInteractions(messaggioService, conversazioneService);
+        verify(dispatcher, never()).forward(any(), any());
     }
 }
@@ -5,6 +5,8 @@ import it.unisa.uniclass.conversazioni.model.Messaggio;
 import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.conversazioni.service.MessaggioService;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.AccademicoVista;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.utenti.service.AccademicoService;
 import jakarta.servlet.ServletException;
@@ -25,6 +27,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -116,8 +119,9 @@ public class inviaMessaggioChatServeltTest {
         messaggi.add(messaggioSalvato);
         when(messaggioService.trovaTutti()).thenReturn(messaggi);
 
-        List<Accademico> messaggeri = new ArrayList<>();
-        messaggeri.add(accademicoDestinatario);
+        List<AccademicoVista> messaggeri = new ArrayList<>();
+        messaggeri.add(new AccademicoVista(accademicoDestinatario.getMatricola(), accademicoDestinatario.getEmail(),
+                accademicoDestinatario.getNome(), accademicoDestinatario.getCognome(), Tipo.Docente));
         when(messaggioService.trovaMessaggeriDiUnAccademico(anyString())).thenReturn(messaggeri);
 
         // Act
@@ -135,15 +139,13 @@ public class inviaMessaggioChatServeltTest {
         assertEquals("Ciao, come stai?", messaggioInviato.getBody());
         assertEquals(accademicoMittente, messaggioInviato.getAutore());
         assertEquals(accademicoDestinatario, messaggioInviato.getDestinatario());
-        assertEquals("VUOTO", messaggioInviato.getTopic().getNome());
-        assertEquals(corsoLaurea, messaggioInviato.getTopic().getCorsoLaurea());
+        assertNull(messaggioInviato.getTopic());
         assertNotNull(messaggioInviato.getDateTime());
 
-        verify(messaggioService).trovaTutti();
-        verify(messaggioService).trovaMessaggeriDiUnAccademico("0512100001");
-        verify(request).setAttribute("messaggi", messaggi);
-        verify(request).setAttribute("accademici", messaggeri);
-        verify(response).sendRedirect("chatServlet?accademico=destinatario@unisa.it&accademicoSelf=mittente@unisa.it");
+        // La chat viene ricaricata da chatServlet: nessuna lettura completa dei messaggi qui
+        verify(messaggioService, never()).trovaTutti();
+        verify(messaggioService, never()).trovaMessaggeriDiUnAccademico(anyString());
+        verify(response).sendRedirect("chatServlet?accademico=destinatario@unisa.it");
 
         System.out.println("✓ Test completato con successo");
     }
@@ -222,7 +224,7 @@ public class inviaMessaggioChatServeltTest {
 
     @Test
     public void testDoGetWithMultipleMessages() throws ServletException, IOException {
-        System.out.println("\n=== Test 4: Recupero messaggi multipli ===");
+        System.out.println("\n=== Test 4: Nessun ricaricamento con messaggi multipli ===");
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("utenteEmail")).thenReturn("mittente@unisa.it");
@@ -246,25 +248,21 @@ public class inviaMessaggioChatServeltTest {
         when(messaggioService.trovaTutti()).thenReturn(messaggi);
 
         // Crea 5 messaggeri
-        List<Accademico> messaggeri = new ArrayList<>();
+        List<AccademicoVista> messaggeri = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
-            Accademico acc = new Accademico();
-            acc.setEmail("utente" + i + "@unisa.it");
-            acc.setNome("Nome" + i);
-            acc.setCognome("Cognome" + i);
-            acc.setMatricola("051210000" + i);
-            messaggeri.add(acc);
+            messaggeri.add(new AccademicoVista("051210000" + i, "utente" + i + "@unisa.it", "Nome" + i, "Cognome" + i, Tipo.Studente));
         }
         when(messaggioService.trovaMessaggeriDiUnAccademico(anyString())).thenReturn(messaggeri);
 
         servlet.doGet(request, response);
 
-        verify(request).setAttribute("messaggi", messaggi);
-        verify(request).setAttribute("accademici", messaggeri);
-        assertEquals(10, messaggi.size());
-        assertEquals(5, messaggeri.size());
+        // Anche con molti messaggi salvati l'invio non rilegge la tabella
+        verify(messaggioService, never()).trovaTutti();
+        verify(request, never()).setAttribute(eq("messaggi"), any());
+        verify(request, never()).setAttribute(eq("accademici"), any());
+        verify(messaggioService).aggiungiMessaggio(any(Messaggio.class));
 
-        System.out.println("✓ " + messaggi.size() + " messaggi e " + messaggeri.size() + " messaggeri recuperati");
+        System.out.println("✓ Nessun ricaricamento di " + messaggi.size() + " messaggi e " + messaggeri.size() + " messaggeri");
     }
 
     @Test
@@ -331,8 +329,8 @@ public class inviaMessaggioChatServeltTest {
     }
 
     @Test
-    public void testTopicCreationWithCorsoLaurea() throws ServletException, IOException {
-        System.out.println("\n=== Test 7: Creazione Topic con CorsoLaurea ===");
+    public void testMessaggioDirettoSenzaTopic() throws ServletException, IOException {
+        System.out.println("\n=== Test 7: Messaggio diretto senza topic ===");
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("utenteEmail")).thenReturn("mittente@unisa.it");
@@ -351,11 +349,10 @@ public class inviaMessaggioChatServeltTest {
         verify(messaggioService).aggiungiMessaggio(captor.capture());
 
         Messaggio messaggio = captor.getValue();
-        assertNotNull(messaggio.getTopic());
-        assertEquals("VUOTO", messaggio.getTopic().getNome());
-        assertEquals(corsoLaurea, messaggio.getTopic().getCorsoLaurea());
+        // I messaggi diretti non creano più un topic "VUOTO" per messaggio
+        assertNull(messaggio.getTopic());
 
-        System.out.println("✓ Topic creato correttamente con CorsoLaurea: " + corsoLaurea.getNome());
+        System.out.println("✓ Messaggio diretto senza topic");
     }
 
     @Test
@@ -413,7 +410,7 @@ public class inviaMessaggioChatServeltTest {
         String redirectUrl = urlCaptor.getValue();
         assertTrue(redirectUrl.contains("chatServlet"));
         assertTrue(redirectUrl.contains("accademico=destinatario@unisa.it"));
-        assertTrue(redirectUrl.contains("accademicoSelf=mittente@unisa.it"));
+        assertFalse(redirectUrl.contains("accademicoSelf"));
 
         System.out.println("✓ URL di redirect corretto: " + redirectUrl);
     }
@@ -439,8 +436,9 @@ public class inviaMessaggioChatServeltTest {
         verify(accademicoService, times(1)).trovaEmailUniClass("mittente@unisa.it");
         verify(accademicoService, times(1)).trovaEmailUniClass("destinatario@unisa.it");
         verify(messaggioService, times(1)).aggiungiMessaggio(any(Messaggio.class));
-        verify(messaggioService, times(1)).trovaTutti();
-        verify(messaggioService, times(1)).trovaMessaggeriDiUnAccademico("0512100001");
+        // La chat viene ricaricata da chatServlet: nessuna rilettura dei messaggi dopo l'invio
+        verify(messaggioService, never()).trovaTutti();
+        verify(messaggioService, never()).trovaMessaggeriDiUnAccademico(anyString());
 
         System.out.println("✓ Tutte le chiamate ai service sono state effettuate correttamente");
     }
@@ -1,11 +1,15 @@
 package it.unisa.uniclass.testing.unit.conversazioni.controller;
 
+import it.unisa.uniclass.conversazioni.controller.FeedAvvisi;
 import it.unisa.uniclass.conversazioni.model.Messaggio;
 import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import it.unisa.uniclass.conversazioni.service.TopicService;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.AccademicoVista;
 import it.unisa.uniclass.utenti.model.Docente;
 import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.utenti.service.AccademicoService;
 import jakarta.servlet.ServletException;
@@ -26,6 +30,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -49,6 +54,12 @@ public class invioMessaggioServletTest {
     @Mock
     private HttpSession session;
 
+    @Mock
+    private FeedAvvisi feed;
+
+    @Mock
+    private TopicService topicService;
+
     private it.unisa.uniclass.conversazioni.controller.invioMessaggioServlet servlet;
 
     private Accademico accademicoMittente;
@@ -63,7 +74,15 @@ public class invioMessaggioServletTest {
         servlet = new it.unisa.uniclass.conversazioni.controller.invioMessaggioServlet();
         servlet.setMessaggioService(messaggioService);
         servlet.setAccademicoService(accademicoService);
+        servlet.setFeed(feed);
+        servlet.setTopicService(topicService);
         when(request.getServletContext()).thenReturn(mock(jakarta.servlet.ServletContext.class));
+        when(topicService.risolviTopic(anyString(), any(), any())).thenAnswer(inv -> {
+            Topic topic = new Topic();
+            topic.setNome(inv.<String>getArgument(0).trim());
+            topic.setCorsoLaurea(inv.getArgument(1));
+            return topic;
+        });
 
         // Setup CorsoLaurea
         corsoLaurea = new CorsoLaurea();
@@ -112,8 +131,9 @@ public class invioMessaggioServletTest {
         messaggi.add(messaggioSalvato);
         when(messaggioService.trovaTutti()).thenReturn(messaggi);
 
-        List<Accademico> messaggeri = new ArrayList<>();
-        messaggeri.add(accademicoDestinatario);
+        List<AccademicoVista> messaggeri = new ArrayList<>();
+        messaggeri.add(new AccademicoVista(accademicoDestinatario.getMatricola(), accademicoDestinatario.getEmail(),
+                accademicoDestinatario.getNome(), accademicoDestinatario.getCognome(), Tipo.Docente));
         when(messaggioService.trovaMessaggeriDiUnAccademico(anyString())).thenReturn(messaggeri);
 
         // Act
@@ -134,10 +154,11 @@ public class invioMessaggioServletTest {
         assertNull(messaggioInviato.getTopic());
         assertNotNull(messaggioInviato.getDateTime());
 
-        verify(messaggioService).trovaTutti();
-        verify(messaggioService).trovaMessaggeriDiUnAccademico("0512100001");
-        verify(request).setAttribute("messaggi", messaggi);
-        verify(request).setAttribute("accademici", messaggeri);
+        // La casella viene ricaricata da ConversazioniServlet: nessuna lettura completa dei messaggi qui
+        verify(messaggioService, never()).trovaTutti();
+        verify(messaggioService, never()).trovaMessaggeriDiUnAccademico(anyString());
+        verify(request, never()).setAttribute("messaggi", messaggi);
+        verify(request, never()).setAttribute("accademici", messaggeri);
         verify(response).sendRedirect("Conversazioni");
 
         System.out.println("✓ Messaggio senza topic inviato correttamente");
@@ -280,22 +301,21 @@ public class invioMessaggioServletTest {
         when(messaggioService.trovaTutti()).thenReturn(messaggi);
 
         // Crea 7 messaggeri
-        List<Accademico> messaggeri = new ArrayList<>();
+        List<AccademicoVista> messaggeri = new ArrayList<>();
         for (int i = 0; i < 7; i++) {
-            Accademico acc = new Studente();
-            acc.setEmail("user" + i + "@studenti.unisa.it");
-            messaggeri.add(acc);
+            messaggeri.add(new AccademicoVista("05121000" + (10 + i), "user" + i + "@studenti.unisa.it", null, null, Tipo.Studente));
         }
         when(messaggioService.trovaMessaggeriDiUnAccademico(anyString())).thenReturn(messaggeri);
 
         servlet.doGet(request, response);
 
-        verify(request).setAttribute("messaggi", messaggi);
-        verify(request).setAttribute("accademici", messaggeri);
-        assertEquals(15, messaggi.size());
-        assertEquals(7, messaggeri.size());
+        // Anche con molti messaggi salvati l'invio non rilegge la tabella
+        verify(messaggioService, never()).trovaTutti();
+        verify(request, never()).setAttribute(eq("messaggi"), any());
+        verify(request, never()).setAttribute(eq("accademici"), any());
+        verify(response).sendRedirect("Conversazioni");
 
-        System.out.println("✓ Recuperati " + messaggi.size() + " messaggi e " + messaggeri.size() + " messaggeri");
+        System.out.println("✓ Nessun ricaricamento di " + messaggi.size() + " messaggi e " + messaggeri.size() + " messaggeri");
     }
 
     @Test
@@ -408,8 +428,8 @@ public class invioMessaggioServletTest {
         verify(accademicoService, times(1)).trovaEmailUniClass("studente@studenti.unisa.it");
         verify(accademicoService, times(1)).trovaEmailUniClass("docente@unisa.it");
         verify(messaggioService, times(1)).aggiungiMessaggio(any(Messaggio.class));
-        verify(messaggioService, times(1)).trovaTutti();
-        verify(messaggioService, times(1)).trovaMessaggeriDiUnAccademico("0512100001");
+        verify(messaggioService, never()).trovaTutti();
+        verify(messaggioService, never()).trovaMessaggeriDiUnAccademico(anyString());
 
         System.out.println("✓ Tutte le chiamate ai service verificate");
     }
@@ -446,5 +466,74 @@ public class invioMessaggioServletTest {
 
         System.out.println("✓ Testati " + topicNames.length + " topic diversi");
     }
-}
 
+    @Test
+    public void testAvvisoPubblicatoSulFeed() throws ServletException, IOException {
+        System.out.println("\n=== Test 11: Avviso pubblicato sul feed SSE ===");
+
+        when(request.getSession()).thenReturn(session);
+        when(session.getAttribute("utenteEmail")).thenReturn("docente@unisa.it");
+        when(request.getParameter("email")).thenReturn("tutti");
+        when(request.getParameter("testo")).thenReturn("Lezione annullata");
+        when(request.getParameter("topic")).thenReturn("Avviso");
+
+        when(accademicoService.trovaEmailUniClass("docente@unisa.it")).thenReturn(accademicoDestinatario);
+        when(accademicoService.trovaEmailUniClass("tutti")).thenReturn(null);
+        when(messaggioService.aggiungiMessaggio(any(Messaggio.class))).thenReturn(messaggioSalvato);
+        when(messaggioService.trovaTutti()).thenReturn(new ArrayList<>());
+        when(messaggioService.trovaMessaggeriDiUnAccademico(anyString())).thenReturn(new ArrayList<>());
+
+        servlet.doGet(request, response);
+
+        verify(feed).pubblica(messaggioSalvato);
+        verify(response).sendRedirect("Conversazioni");
+
+        System.out.println("✓ Messaggio salvato consegnato al feed");
+    }
+
+    @Test
+    public void testTopicRisoltoDalRegistro() throws ServletException, IOException {
+        System.out.println("\n=== Test 12: Topic risolto tramite TopicService ===");
+
+        when(request.getSession()).thenReturn(session);
+        when(session.getAttribute("utenteEmail")).thenReturn("docente@unisa.it");
+        when(request.getParameter("email")).thenReturn("tutti");
+        when(request.getParameter("testo")).thenReturn("Lezione annullata");
+        when(request.getParameter("topic")).thenReturn("Avviso");
+
+        when(accademicoService.trovaEmailUniClass("docente@unisa.it")).thenReturn(accademicoDestinatario);
+        when(messaggioService.aggiungiMessaggio(any(Messaggio.class))).thenReturn(messaggioSalvato);
+
+        servlet.doGet(request, response);
+
+        verify(topicService).risolviTopic("Avviso", corsoLaurea, null);
+
+        System.out.println("✓ Topic riusato invece di crearne uno nuovo");
+    }
+
+    @Test
+    public void testTopicNullDalFormStudente() throws ServletException, IOException {
+        System.out.println("\n=== Test 13: Parametro topic \"null\" o vuoto ===");
+
+        for (String valore : new String[]{"null", "", "   "}) {
+            when(request.getSession()).thenReturn(session);
+            when(session.getAttribute("utenteEmail")).thenReturn("studente@studenti.unisa.it");
+            when(request.getParameter("email")).thenReturn("docente@unisa.it");
+            when(request.getParameter("testo")).thenReturn("Buongiorno");
+            when(request.getParameter("topic")).thenReturn(valore);
+
+            when(accademicoService.trovaEmailUniClass("studente@studenti.unisa.it")).thenReturn(accademicoMittente);
+            when(accademicoService.trovaEmailUniClass("docente@unisa.it")).thenReturn(accademicoDestinatario);
+            when(messaggioService.aggiungiMessaggio(any(Messaggio.class))).thenReturn(messaggioSalvato);
+
+            servlet.doGet(request, response);
+
+            ArgumentCaptor<Messaggio> captor = ArgumentCaptor.forClass(Messaggio.class);
+            verify(messaggioService, atLeastOnce()).aggiungiMessaggio(captor.capture());
+            assertNull(captor.getValue().getTopic());
+        }
+        verify(topicService, never()).risolviTopic(anyString(), any(), any());
+
+        System.out.println("✓ Nessun topic creato per i messaggi diretti");
+    }
+}
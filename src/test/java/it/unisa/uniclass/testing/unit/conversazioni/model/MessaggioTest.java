@@ -1,6 +1,7 @@
 package it.unisa.uniclass.testing.unit.conversazioni.model;
 
 import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioArchiviato;
 import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.utenti.model.Accademico;
 import it.unisa.uniclass.utenti.model.Docente;
@@ -481,4 +482,27 @@ public class MessaggioTest {
 
         System.out.println("✓ Body multilinea gestito correttamente");
     }
+
+    @Test
+    public void testCopiaArchivio() throws Exception {
+        System.out.println("\n=== Test 26: Copia d'archivio del messaggio ===");
+
+        java.lang.reflect.Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        Messaggio originale = new Messaggio(autore, destinatario, topic, "Messaggio vecchio", LocalDateTime.of(2022, 3, 1, 8, 30));
+        idField.set(originale, 15L);
+
+        MessaggioArchiviato archiviato = new MessaggioArchiviato(originale);
+        Messaggio ripristinato = archiviato.comeMessaggio();
+
+        assertEquals(15L, archiviato.getId());
+        assertEquals(15L, ripristinato.getId());
+        assertEquals(autore, ripristinato.getAutore());
+        assertEquals(destinatario, ripristinato.getDestinatario());
+        assertEquals(topic, ripristinato.getTopic());
+        assertEquals("Messaggio vecchio", ripristinato.getBody());
+        assertEquals(LocalDateTime.of(2022, 3, 1, 8, 30), ripristinato.getDateTime());
+
+        System.out.println("✓ ID e campi conservati nell'archivio");
+    }
 }
@@ -0,0 +1,84 @@
+package it.unisa.uniclass.testing.unit.conversazioni.model;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Docente;
+import it.unisa.uniclass.utenti.model.Studente;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test per la proiezione MessaggioVista.
+ */
+public class MessaggioVistaTest {
+
+    @Test
+    public void testDaMessaggioDiretto() throws Exception {
+        System.out.println("\n=== Test 1: Proiezione di un messaggio diretto ===");
+
+        Accademico autore = new Studente();
+        autore.setMatricola("0512100001");
+        autore.setEmail("autore@studenti.unisa.it");
+        autore.setNome("Mario");
+        autore.setCognome("Rossi");
+        Accademico destinatario = new Docente();
+        destinatario.setMatricola("0512100002");
+        destinatario.setEmail("docente@unisa.it");
+
+        LocalDateTime dateTime = LocalDateTime.of(2024, 11, 30, 10, 0);
+        Messaggio messaggio = new Messaggio(autore, destinatario, null, "Ciao", dateTime);
+        Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, 5L);
+
+        MessaggioVista vista = MessaggioVista.di(messaggio);
+
+        assertEquals(5L, vista.id());
+        assertEquals("Ciao", vista.body());
+        assertEquals(dateTime, vista.dateTime());
+        assertEquals("0512100001", vista.autoreMatricola());
+        assertEquals("autore@studenti.unisa.it", vista.autoreEmail());
+        assertEquals("Mario", vista.autoreNome());
+        assertEquals("Rossi", vista.autoreCognome());
+        assertEquals("0512100002", vista.destinatarioMatricola());
+        assertEquals("docente@unisa.it", vista.destinatarioEmail());
+        assertNull(vista.topic());
+        assertNull(vista.corso());
+
+        System.out.println("✓ Campi copiati dall'entità");
+    }
+
+    @Test
+    public void testDaAvvisoConCorso() throws Exception {
+        System.out.println("\n=== Test 2: Proiezione di un avviso per corso ===");
+
+        Corso corso = new Corso();
+        Field idField = Corso.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(corso, 3L);
+        Topic topic = new Topic();
+        topic.setNome("Programmazione");
+        topic.setCorso(corso);
+
+        Messaggio avviso = new Messaggio();
+        avviso.setBody("Lezione annullata");
+        avviso.setTopic(topic);
+
+        MessaggioVista vista = MessaggioVista.di(avviso);
+
+        assertEquals("Programmazione", vista.topic());
+        assertEquals(3L, vista.corso());
+        assertNull(vista.autoreMatricola());
+        assertNull(vista.destinatarioMatricola());
+        assertNull(MessaggioVista.di(null));
+
+        System.out.println("✓ Topic e corso ridotti a nome e ID");
+    }
+}
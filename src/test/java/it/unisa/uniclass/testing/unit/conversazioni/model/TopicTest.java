@@ -529,4 +529,19 @@ public class TopicTest {
 
         System.out.println("✓ Reset di tutti i campi funziona correttamente");
     }
+
+    @Test
+    public void testChiave() throws Exception {
+        System.out.println("\n=== Test 31: Chiave canonica ===");
+
+        java.lang.reflect.Field idField = CorsoLaurea.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(corsoLaurea, 3L);
+
+        assertEquals(Topic.chiave("Esame", corsoLaurea, null), Topic.chiave("  Esame ", corsoLaurea, null));
+        assertNotEquals(Topic.chiave("Esame", corsoLaurea, null), Topic.chiave("Esame", null, null));
+        assertNotEquals(Topic.chiave("Esame", corsoLaurea, null), Topic.chiave("Esame finale", corsoLaurea, null));
+
+        System.out.println("✓ Stesso topic, stessa chiave");
+    }
 }
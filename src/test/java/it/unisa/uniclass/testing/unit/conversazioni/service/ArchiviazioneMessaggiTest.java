@@ -0,0 +1,90 @@
+package it.unisa.uniclass.testing.unit.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.service.ArchiviazioneMessaggi;
+import it.unisa.uniclass.conversazioni.service.MessaggioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test per l'archiviazione notturna dei messaggi.
+ */
+public class ArchiviazioneMessaggiTest {
+
+    @Mock
+    private MessaggioService messaggioService;
+
+    private ArchiviazioneMessaggi archiviazione;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        archiviazione = new ArchiviazioneMessaggi();
+        archiviazione.setMessaggioService(messaggioService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(ArchiviazioneMessaggi.PROPRIETA_ORIZZONTE);
+    }
+
+    @Test
+    public void testOrizzonteAMesiInteri() {
+        System.out.println("\n=== Test 1: Orizzonte all'inizio del mese ===");
+
+        assertEquals(LocalDateTime.of(2023, 10, 1, 0, 0), ArchiviazioneMessaggi.orizzonte(LocalDate.of(2024, 10, 18), 12));
+        assertEquals(LocalDateTime.of(2024, 12, 1, 0, 0), ArchiviazioneMessaggi.orizzonte(LocalDate.of(2025, 3, 31), 3));
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), ArchiviazioneMessaggi.orizzonte(LocalDate.of(2024, 10, 1), 0));
+
+        System.out.println("✓ Mesi archiviati per intero");
+    }
+
+    @Test
+    public void testOrizzonteConfigurabile() {
+        System.out.println("\n=== Test 2: Orizzonte da proprietà di sistema ===");
+
+        assertEquals(ArchiviazioneMessaggi.ORIZZONTE_PREDEFINITO, ArchiviazioneMessaggi.mesiOrizzonte());
+        System.setProperty(ArchiviazioneMessaggi.PROPRIETA_ORIZZONTE, "6");
+        assertEquals(6, ArchiviazioneMessaggi.mesiOrizzonte());
+        System.setProperty(ArchiviazioneMessaggi.PROPRIETA_ORIZZONTE, "sei");
+        assertEquals(ArchiviazioneMessaggi.ORIZZONTE_PREDEFINITO, ArchiviazioneMessaggi.mesiOrizzonte());
+        System.setProperty(ArchiviazioneMessaggi.PROPRIETA_ORIZZONTE, "-1");
+        assertEquals(ArchiviazioneMessaggi.ORIZZONTE_PREDEFINITO, ArchiviazioneMessaggi.mesiOrizzonte());
+
+        System.out.println("✓ Valori non validi sostituiti dal predefinito");
+    }
+
+    @Test
+    public void testArchivia() {
+        System.out.println("\n=== Test 3: Esecuzione dell'archiviazione ===");
+
+        System.setProperty(ArchiviazioneMessaggi.PROPRIETA_ORIZZONTE, "2");
+        when(messaggioService.archiviaMessaggi(any())).thenReturn(10);
+
+        archiviazione.archivia();
+
+        verify(messaggioService).archiviaMessaggi(ArchiviazioneMessaggi.orizzonte(LocalDate.now(), 2));
+
+        System.out.println("✓ Messaggi precedenti all'orizzonte archiviati");
+    }
+
+    @Test
+    public void testArchiviaErrore() {
+        System.out.println("\n=== Test 4: Errore durante l'archiviazione ===");
+
+        when(messaggioService.archiviaMessaggi(any())).thenThrow(new RuntimeException("Connessione persa"));
+
+        assertDoesNotThrow(() -> archiviazione.archivia());
+
+        System.out.println("✓ Errore registrato, ripresa alla prossima esecuzione");
+    }
+}
@@ -0,0 +1,183 @@
+package it.unisa.uniclass.testing.unit.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
+import it.unisa.uniclass.conversazioni.service.CacheConversazioni;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Studente;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test per la cache dei messaggi recenti delle conversazioni.
+ */
+public class CacheConversazioniTest {
+
+    private static final LocalDateTime INIZIO = LocalDateTime.of(2024, 11, 30, 10, 0);
+
+    private Accademico mario;
+    private Accademico luigi;
+
+    @BeforeEach
+    public void setUp() {
+        mario = new Studente();
+        mario.setMatricola("0512100001");
+        luigi = new Studente();
+        luigi.setMatricola("0512100002");
+    }
+
+    private MessaggioVista messaggio(long id, Accademico autore, Accademico destinatario) {
+        return new MessaggioVista(id, "Messaggio " + id, INIZIO.plusMinutes(id),
+                autore.getMatricola(), null, null, null, destinatario.getMatricola(), null, null, null);
+    }
+
+    /**
+     * Messaggi dal più recente, come restituiti dalla query della conversazione.
+     */
+    private List<MessaggioVista> conversazione(long dal, long al) throws Exception {
+        List<MessaggioVista> messaggi = new ArrayList<>();
+        for (long id = al; id >= dal; id--) {
+            messaggi.add(id % 2 == 0 ? messaggio(id, mario, luigi) : messaggio(id, luigi, mario));
+        }
+        return messaggi;
+    }
+
+    @Test
+    public void testCaricaERecenti() throws Exception {
+        System.out.println("\n=== Test 1: Conversazione caricata e letta dalla cache ===");
+
+        CacheConversazioni cache = new CacheConversazioni(10, CacheConversazioni.BUDGET_MEMORIA);
+        assertNull(cache.recenti("0512100001", "0512100002", 5));
+
+        cache.carica("0512100001", "0512100002", conversazione(1, 10), 10, cache.versione("0512100001", "0512100002"));
+        List<MessaggioVista> recenti = cache.recenti("0512100002", "0512100001", 5);
+
+        assertEquals(5, recenti.size());
+        assertEquals(10L, recenti.get(0).id());
+        assertEquals(6L, recenti.get(4).id());
+        assertEquals(1, cache.getHit());
+        assertEquals(1, cache.getMiss());
+
+        // Conversazione lunga almeno quanto il limite: più messaggi di quelli in cache richiedono il database
+        assertNull(cache.recenti("0512100001", "0512100002", 20));
+
+        System.out.println("✓ Letture simmetriche servite dalla cache");
+    }
+
+    @Test
+    public void testConversazioneCompleta() throws Exception {
+        System.out.println("\n=== Test 2: Conversazione più corta del limite ===");
+
+        CacheConversazioni cache = new CacheConversazioni(10, CacheConversazioni.BUDGET_MEMORIA);
+        cache.carica("0512100001", "0512100002", conversazione(1, 3), 30, cache.versione("0512100001", "0512100002"));
+
+        assertEquals(3, cache.recenti("0512100001", "0512100002", 30).size());
+        assertTrue(cache.precedenti("0512100001", "0512100002", INIZIO.plusMinutes(1), 1L, 30).isEmpty());
+
+        System.out.println("✓ Conversazione completa servita anche oltre la sua lunghezza");
+    }
+
+    @Test
+    public void testBufferCircolare() throws Exception {
+        System.out.println("\n=== Test 3: Buffer circolare sui nuovi messaggi ===");
+
+        CacheConversazioni cache = new CacheConversazioni(5, CacheConversazioni.BUDGET_MEMORIA);
+        cache.carica("0512100001", "0512100002", conversazione(1, 5), 5, cache.versione("0512100001", "0512100002"));
+
+        cache.aggiungi(messaggio(6, mario, luigi));
+        cache.aggiungi(messaggio(7, luigi, mario));
+        // Già presente: ignorato
+        cache.aggiungi(messaggio(7, luigi, mario));
+
+        List<MessaggioVista> recenti = cache.recenti("0512100001", "0512100002", 5);
+        assertEquals(List.of(7L, 6L, 5L, 4L, 3L), recenti.stream().map(MessaggioVista::id).toList());
+
+        System.out.println("✓ Messaggi più vecchi sovrascritti");
+    }
+
+    @Test
+    public void testPrecedenti() throws Exception {
+        System.out.println("\n=== Test 4: Pagina precedente al cursore ===");
+
+        CacheConversazioni cache = new CacheConversazioni(10, CacheConversazioni.BUDGET_MEMORIA);
+        cache.carica("0512100001", "0512100002", conversazione(11, 20), 10, cache.versione("0512100001", "0512100002"));
+
+        List<MessaggioVista> pagina = cache.precedenti("0512100001", "0512100002", INIZIO.plusMinutes(16), 16L, 3);
+        assertEquals(List.of(15L, 14L, 13L), pagina.stream().map(MessaggioVista::id).toList());
+
+        // Oltre il messaggio più vecchio in cache serve il database
+        assertNull(cache.precedenti("0512100001", "0512100002", INIZIO.plusMinutes(13), 13L, 3));
+
+        System.out.println("✓ Pagine interne servite, pagine più vecchie al database");
+    }
+
+    @Test
+    public void testLetturaSuperataNonMemorizzata() throws Exception {
+        System.out.println("\n=== Test 5: Lettura concorrente a una scrittura ===");
+
+        CacheConversazioni cache = new CacheConversazioni(10, CacheConversazioni.BUDGET_MEMORIA);
+        long versione = cache.versione("0512100001", "0512100002");
+        List<MessaggioVista> letti = conversazione(1, 3);
+
+        // Un messaggio salvato mentre la lettura era in corso
+        cache.aggiungi(messaggio(4, mario, luigi));
+        cache.carica("0512100001", "0512100002", letti, 30, versione);
+
+        assertNull(cache.recenti("0512100001", "0512100002", 30));
+
+        System.out.println("✓ Stato superato scartato");
+    }
+
+    @Test
+    public void testMessaggioFuoriOrdineInvalida() throws Exception {
+        System.out.println("\n=== Test 6: Messaggio più vecchio dell'ultimo in cache ===");
+
+        CacheConversazioni cache = new CacheConversazioni(10, CacheConversazioni.BUDGET_MEMORIA);
+        cache.carica("0512100001", "0512100002", conversazione(5, 8), 30, cache.versione("0512100001", "0512100002"));
+
+        cache.aggiungi(messaggio(2, mario, luigi));
+
+        assertNull(cache.recenti("0512100001", "0512100002", 1));
+        assertEquals(0, cache.getConversazioni());
+        assertEquals(0, cache.getOccupazione());
+
+        System.out.println("✓ Conversazione scartata");
+    }
+
+    @Test
+    public void testEvizioneLru() throws Exception {
+        System.out.println("\n=== Test 7: Evizione LRU per budget di memoria ===");
+
+        Accademico peach = new Studente();
+        peach.setMatricola("0512100003");
+        // Budget per circa due conversazioni da tre messaggi
+        CacheConversazioni cache = new CacheConversazioni(10, 1200);
+
+        cache.carica("0512100001", "0512100002", conversazione(1, 3), 30, cache.versione("0512100001", "0512100002"));
+        List<MessaggioVista> altra = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            altra.add(messaggio(id, mario, peach));
+        }
+        cache.carica("0512100001", "0512100003", altra, 30, cache.versione("0512100001", "0512100003"));
+        // La prima conversazione diventa la più recente
+        assertNotNull(cache.recenti("0512100001", "0512100002", 3));
+
+        List<MessaggioVista> terza = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            terza.add(messaggio(id, luigi, peach));
+        }
+        cache.carica("0512100002", "0512100003", terza, 30, cache.versione("0512100002", "0512100003"));
+
+        assertEquals(1, cache.getEvizioni());
+        assertNull(cache.recenti("0512100001", "0512100003", 3));
+        assertNotNull(cache.recenti("0512100001", "0512100002", 3));
+        assertTrue(cache.getOccupazione() <= 1200);
+
+        System.out.println("✓ Rimossa la conversazione usata meno di recente");
+    }
+}
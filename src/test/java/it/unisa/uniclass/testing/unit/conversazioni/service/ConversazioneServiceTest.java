@@ -0,0 +1,106 @@
+package it.unisa.uniclass.testing.unit.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.ConversazioneVista;
+import it.unisa.uniclass.conversazioni.service.ConversazioneService;
+import it.unisa.uniclass.conversazioni.service.dao.ConversazioneRemote;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockedConstruction;
+import org.mockito.MockitoAnnotations;
+
+import javax.naming.InitialContext;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test per la classe ConversazioneService.
+ */
+public class ConversazioneServiceTest {
+
+    @Mock
+    private ConversazioneRemote conversazioneDao;
+
+    private ConversazioneService conversazioneService;
+
+    private Accademico proprietario;
+    private Accademico interlocutore;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+
+        // Mock InitialContext per evitare JNDI lookup nel costruttore
+        try (@SuppressWarnings("unused") MockedConstruction<InitialContext> mockedContext = mockConstruction(InitialContext.class,
+                (mock, context) -> when(mock.lookup(anyString())).thenReturn(conversazioneDao))) {
+            conversazioneService = new ConversazioneService();
+        }
+
+        proprietario = new Studente();
+        proprietario.setMatricola("0512100001");
+
+        interlocutore = new Studente();
+        interlocutore.setMatricola("0512100002");
+    }
+
+    @Test
+    public void testTrovaConversazioni() {
+        System.out.println("\n=== Test 1: Trova conversazioni ===");
+
+        ConversazioneVista c = new ConversazioneVista("prof@unisa.it", "Maria", "Rossi", Tipo.Docente, "Ciao", LocalDateTime.now(), 1);
+        when(conversazioneDao.trovaConversazioni("0512100001")).thenReturn(List.of(c));
+
+        List<ConversazioneVista> result = conversazioneService.trovaConversazioni("0512100001");
+
+        assertEquals(1, result.size());
+        assertSame(c, result.get(0));
+        verify(conversazioneDao, times(1)).trovaConversazioni("0512100001");
+
+        System.out.println("✓ Conversazioni recuperate");
+    }
+
+    @Test
+    public void testTrovaConversazioniMatricolaNull() {
+        System.out.println("\n=== Test 2: Trova conversazioni con matricola null ===");
+
+        List<ConversazioneVista> result = conversazioneService.trovaConversazioni(null);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(conversazioneDao);
+
+        System.out.println("✓ Lista vuota senza interrogare il DAO");
+    }
+
+    @Test
+    public void testSegnaLetta() {
+        System.out.println("\n=== Test 3: Segna conversazione letta ===");
+
+        conversazioneService.segnaLetta(proprietario, interlocutore);
+        conversazioneService.segnaLetta(null, interlocutore);
+        conversazioneService.segnaLetta(proprietario, null);
+
+        verify(conversazioneDao, times(1)).segnaLetta(any(), any());
+        verify(conversazioneDao).segnaLetta(proprietario, interlocutore);
+
+        System.out.println("✓ Solo la chiamata con entrambi gli utenti raggiunge il DAO");
+    }
+
+    @Test
+    public void testCostruttoreConDao() {
+        System.out.println("\n=== Test 4: Costruttore con DAO ===");
+
+        ConversazioneService service = new ConversazioneService(conversazioneDao);
+        when(conversazioneDao.trovaConversazioni("x")).thenReturn(List.of());
+
+        assertTrue(service.trovaConversazioni("x").isEmpty());
+
+        System.out.println("✓ DAO iniettato correttamente");
+    }
+}
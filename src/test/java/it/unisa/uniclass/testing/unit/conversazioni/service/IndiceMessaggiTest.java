@@ -0,0 +1,310 @@
+package it.unisa.uniclass.testing.unit.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.IndiceMessaggi;
+import it.unisa.uniclass.conversazioni.service.dao.MessaggioRemote;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Studente;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test per l'indice invertito della ricerca nei messaggi.
+ */
+public class IndiceMessaggiTest {
+
+    private Accademico mario;
+    private Accademico luigi;
+    private Accademico peach;
+    private CorsoLaurea informatica;
+    private IndiceMessaggi indice;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        mario = studente("0512100001");
+        luigi = studente("0512100002");
+        peach = studente("0512100003");
+        informatica = new CorsoLaurea();
+        informatica.setNome("Informatica");
+        Field idField = CorsoLaurea.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(informatica, 1L);
+        indice = new IndiceMessaggi();
+    }
+
+    private Accademico studente(String matricola) {
+        Accademico studente = new Studente();
+        studente.setMatricola(matricola);
+        return studente;
+    }
+
+    private Messaggio messaggio(long id, Accademico autore, Accademico destinatario, String body) throws Exception {
+        Messaggio messaggio = new Messaggio();
+        Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, id);
+        messaggio.setAutore(autore);
+        messaggio.setDestinatario(destinatario);
+        messaggio.setBody(body);
+        messaggio.setDateTime(LocalDateTime.of(2024, 11, 30, 10, 0).plusMinutes(id));
+        return messaggio;
+    }
+
+    private Messaggio avviso(long id, Accademico autore, String topic, String body) throws Exception {
+        Messaggio avviso = messaggio(id, autore, null, body);
+        Topic t = new Topic();
+        t.setNome(topic);
+        t.setCorsoLaurea(informatica);
+        avviso.setTopic(t);
+        return avviso;
+    }
+
+    @Test
+    public void testTokenizzazioneItaliana() {
+        System.out.println("\n=== Test 1: Normalizzazione del testo italiano ===");
+
+        assertEquals(List.of("universita", "aula", "f3", "lunedi"),
+                IndiceMessaggi.tokenizza("L'Università, nell'aula F3 di LUNEDÌ!"));
+        assertEquals(List.of("perche", "esame"), IndiceMessaggi.tokenizza("Perché l'esame?"));
+        assertTrue(IndiceMessaggi.tokenizza(null).isEmpty());
+        assertTrue(IndiceMessaggi.tokenizza("  il lo la  ").isEmpty());
+
+        System.out.println("✓ Minuscole, accenti ed elisioni gestiti");
+    }
+
+    @Test
+    public void testRicercaTuttiITermini() throws Exception {
+        System.out.println("\n=== Test 2: Tutti i termini cercati devono comparire ===");
+
+        indice.aggiungi(messaggio(1, mario, luigi, "Ci vediamo in aula F3 per l'esame"));
+        indice.aggiungi(messaggio(2, luigi, mario, "L'esame è stato rimandato"));
+        indice.aggiungi(messaggio(3, mario, luigi, "Aula F3 libera domani"));
+
+        assertEquals(List.of(1L), indice.cerca("esame aula", "0512100001", null, 10));
+        assertEquals(2, indice.cerca("ESAME", "0512100001", null, 10).size());
+        assertTrue(indice.cerca("orario", "0512100001", null, 10).isEmpty());
+        assertTrue(indice.cerca("di il", "0512100001", null, 10).isEmpty());
+
+        System.out.println("✓ Intersezione delle liste dei termini corretta");
+    }
+
+    @Test
+    public void testOrdinamentoELimite() throws Exception {
+        System.out.println("\n=== Test 3: Risultati ordinati per rilevanza ===");
+
+        indice.aggiungi(messaggio(1, mario, luigi, "progetto"));
+        indice.aggiungi(messaggio(2, mario, luigi, "progetto progetto progetto consegna"));
+        indice.aggiungi(messaggio(3, mario, luigi, "il progetto di ingegneria del software è lungo da scrivere"));
+        indice.aggiungi(messaggio(4, mario, luigi, "progetto"));
+
+        List<Long> risultato = indice.cerca("progetto", "0512100001", null, 3);
+
+        assertEquals(3, risultato.size());
+        assertEquals(2L, risultato.get(0));
+        // A parità di punteggio prima il più recente
+        assertEquals(List.of(4L, 1L), risultato.subList(1, 3));
+
+        System.out.println("✓ Top-k per BM25 restituito");
+    }
+
+    @Test
+    public void testVisibilita() throws Exception {
+        System.out.println("\n=== Test 4: Solo messaggi propri e avvisi del corso di laurea ===");
+
+        indice.aggiungi(messaggio(1, mario, luigi, "Riunione di gruppo"));
+        indice.aggiungi(avviso(2, luigi, "Riunione", "Riunione con il coordinatore"));
+
+        assertEquals(2, indice.cerca("riunione", "0512100001", 1L, 10).size());
+        // Peach è iscritta allo stesso corso di laurea: vede solo l'avviso
+        assertEquals(List.of(2L), indice.cerca("riunione", "0512100003", 1L, 10));
+        // Altro corso di laurea, nessuna conversazione
+        assertTrue(indice.cerca("riunione", "0512100003", 2L, 10).isEmpty());
+        assertTrue(indice.cerca("riunione", peach.getMatricola(), null, 10).isEmpty());
+
+        System.out.println("✓ Messaggi altrui esclusi");
+    }
+
+    @Test
+    public void testAggiornamentoERimozione() throws Exception {
+        System.out.println("\n=== Test 5: Aggiornamento e rimozione ===");
+
+        Messaggio modificato = messaggio(1, mario, luigi, "Appunti di analisi");
+        indice.aggiungi(modificato);
+        modificato.setBody("Appunti di fisica");
+        indice.aggiungi(modificato);
+
+        assertTrue(indice.cerca("analisi", "0512100001", null, 10).isEmpty());
+        assertEquals(List.of(1L), indice.cerca("fisica", "0512100001", null, 10));
+        assertEquals(1, indice.getDocumenti());
+
+        indice.rimuovi(1L);
+        assertTrue(indice.cerca("appunti", "0512100001", null, 10).isEmpty());
+        assertEquals(0, indice.getDocumenti());
+        assertEquals(0, indice.getTermini());
+
+        System.out.println("✓ Termini superati rimossi dalle liste");
+    }
+
+    @Test
+    public void testSnapshot(@TempDir Path cartella) throws Exception {
+        System.out.println("\n=== Test 6: Salvataggio e ricaricamento dello snapshot ===");
+
+        indice.aggiungi(messaggio(1, mario, luigi, "Slide della lezione"));
+        indice.aggiungi(avviso(2, luigi, "Lezione", "Lezione annullata"));
+        Path file = cartella.resolve("indice.bin");
+        indice.salva(file);
+
+        IndiceMessaggi ricaricato = new IndiceMessaggi();
+        ricaricato.carica(file);
+
+        assertEquals(2, ricaricato.getDocumenti());
+        assertEquals(2L, ricaricato.getUltimoId());
+        assertEquals(indice.cerca("lezione", "0512100001", 1L, 10), ricaricato.cerca("lezione", "0512100001", 1L, 10));
+        assertEquals(List.of(2L), ricaricato.cerca("lezione", "0512100003", 1L, 10));
+
+        // File mancante: indice vuoto, da ricostruire dal database
+        IndiceMessaggi vuoto = new IndiceMessaggi();
+        vuoto.carica(cartella.resolve("mancante.bin"));
+        assertEquals(0, vuoto.getDocumenti());
+
+        System.out.println("✓ Snapshot equivalente all'indice originale");
+    }
+
+    @Test
+    public void testChiusuraSalvaLoSnapshot(@TempDir Path cartella) throws Exception {
+        System.out.println("\n=== Test 6b: Chiusura dell'indice condiviso ===");
+
+        Path file = cartella.resolve("condiviso.bin");
+        String precedente = System.setProperty(IndiceMessaggi.PROPRIETA_PERCORSO, file.toString());
+        try {
+            IndiceMessaggi.chiudi();
+            IndiceMessaggi condiviso = IndiceMessaggi.getIstanza();
+            condiviso.aggiungi(messaggio(1, mario, luigi, "Slide della lezione"));
+
+            IndiceMessaggi.chiudi();
+            assertTrue(Files.exists(file));
+
+            IndiceMessaggi riaperto = IndiceMessaggi.getIstanza();
+            assertNotSame(condiviso, riaperto);
+            assertEquals(List.of(1L), riaperto.cerca("slide", "0512100001", null, 10));
+        } finally {
+            IndiceMessaggi.chiudi();
+            if (precedente != null) {
+                System.setProperty(IndiceMessaggi.PROPRIETA_PERCORSO, precedente);
+            } else {
+                System.clearProperty(IndiceMessaggi.PROPRIETA_PERCORSO);
+            }
+        }
+
+        System.out.println("✓ Ultimo snapshot scritto alla chiusura");
+    }
+
+    @Test
+    public void testAllineamentoDalDatabase() throws Exception {
+        System.out.println("\n=== Test 7: Allineamento con i messaggi successivi allo snapshot ===");
+
+        indice.aggiungi(messaggio(1, mario, luigi, "Primo messaggio"));
+        MessaggioRemote messaggioDao = mock(MessaggioRemote.class);
+        List<Messaggio> successivi = new ArrayList<>();
+        successivi.add(messaggio(2, luigi, mario, "Secondo messaggio"));
+        when(messaggioDao.trovaUltimoId()).thenReturn(2L);
+        // La rilettura parte dal margine prima dell'ultimo ID indicizzato
+        when(messaggioDao.trovaMessaggiDopo(eq(0L), anyInt())).thenReturn(successivi);
+
+        indice.allinea(messaggioDao);
+        indice.allinea(messaggioDao);
+
+        assertEquals(2, indice.cerca("messaggio", "0512100001", null, 10).size());
+        verify(messaggioDao, times(1)).trovaMessaggiDopo(anyLong(), anyInt());
+
+        System.out.println("✓ Messaggi mancanti indicizzati una sola volta");
+    }
+
+    @Test
+    public void testSnapshotDiAltraEpoca(@TempDir Path cartella) throws Exception {
+        System.out.println("\n=== Test 8: Snapshot scartato dopo la ricreazione del database ===");
+
+        MessaggioRemote vecchioDb = mock(MessaggioRemote.class);
+        when(vecchioDb.trovaEpocaMessaggi()).thenReturn(100L);
+        when(vecchioDb.trovaUltimoId()).thenReturn(1L);
+        indice.allinea(vecchioDb);
+        indice.aggiungi(messaggio(1, mario, luigi, "Messaggio privato"));
+        Path file = cartella.resolve("indice.bin");
+        indice.salva(file);
+
+        // Nuovo schema con più messaggi del vecchio: l'ID 1 appartiene ora a un'altra conversazione
+        IndiceMessaggi ricaricato = new IndiceMessaggi();
+        ricaricato.carica(file);
+        assertEquals(100L, ricaricato.getEpoca());
+        MessaggioRemote nuovoDb = mock(MessaggioRemote.class);
+        when(nuovoDb.trovaEpocaMessaggi()).thenReturn(200L);
+        when(nuovoDb.trovaUltimoId()).thenReturn(5L);
+        List<Messaggio> messaggi = new ArrayList<>();
+        messaggi.add(messaggio(1, peach, luigi, "Altro messaggio"));
+        when(nuovoDb.trovaMessaggiDopo(eq(0L), anyInt())).thenReturn(messaggi);
+
+        ricaricato.allinea(nuovoDb);
+
+        assertEquals(200L, ricaricato.getEpoca());
+        assertEquals(1, ricaricato.getDocumenti());
+        assertTrue(ricaricato.cerca("privato", "0512100001", null, 10).isEmpty());
+        assertEquals(List.of(1L), ricaricato.cerca("altro", "0512100003", null, 10));
+
+        System.out.println("✓ Voci della vecchia epoca scartate");
+    }
+
+    @Test
+    public void testSnapshotOltreIlDatabase() throws Exception {
+        System.out.println("\n=== Test 9: Snapshot con ID oltre l'ultimo del database ===");
+
+        indice.aggiungi(messaggio(1, mario, luigi, "Primo messaggio"));
+        indice.aggiungi(messaggio(7, mario, luigi, "Messaggio perso"));
+        MessaggioRemote messaggioDao = mock(MessaggioRemote.class);
+        when(messaggioDao.trovaUltimoId()).thenReturn(3L);
+        List<Messaggio> messaggi = new ArrayList<>();
+        messaggi.add(messaggio(1, luigi, peach, "Primo messaggio"));
+        when(messaggioDao.trovaMessaggiDopo(eq(0L), anyInt())).thenReturn(messaggi);
+
+        indice.allinea(messaggioDao);
+
+        assertEquals(1, indice.getDocumenti());
+        assertEquals(1L, indice.getUltimoId());
+        assertTrue(indice.cerca("messaggio", "0512100001", null, 10).isEmpty());
+        assertEquals(List.of(1L), indice.cerca("primo", "0512100003", null, 10));
+
+        System.out.println("✓ Indice ricostruito da zero");
+    }
+
+    @Test
+    public void testVisibilitaMessaggio() throws Exception {
+        System.out.println("\n=== Test 10: Visibilità verificata sul messaggio letto ===");
+
+        Messaggio privato = messaggio(1, mario, luigi, "Messaggio privato");
+        Messaggio avviso = avviso(2, luigi, "Esami", "Appello spostato");
+
+        assertTrue(IndiceMessaggi.visibile(privato, "0512100001", null));
+        assertTrue(IndiceMessaggi.visibile(privato, "0512100002", null));
+        assertFalse(IndiceMessaggi.visibile(privato, "0512100003", 1L));
+        assertTrue(IndiceMessaggi.visibile(avviso, "0512100003", 1L));
+        assertFalse(IndiceMessaggi.visibile(avviso, "0512100003", 2L));
+        assertFalse(IndiceMessaggi.visibile(avviso, "0512100003", null));
+
+        System.out.println("✓ Stesso controllo dell'indice");
+    }
+}
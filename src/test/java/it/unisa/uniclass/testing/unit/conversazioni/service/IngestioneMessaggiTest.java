@@ -0,0 +1,181 @@
+package it.unisa.uniclass.testing.unit.conversazioni.service;
+
+import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.service.IngestioneMessaggi;
+import it.unisa.uniclass.conversazioni.service.dao.MessaggioRemote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test per la pipeline di scrittura a lotti dei messaggi.
+ */
+public class IngestioneMessaggiTest {
+
+    @Mock
+    private MessaggioRemote messaggioDao;
+
+    private IngestioneMessaggi ingestione;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (ingestione != null) {
+            ingestione.chiudi();
+        }
+    }
+
+    private Messaggio nuovoMessaggio(String body) {
+        Messaggio messaggio = new Messaggio();
+        messaggio.setBody(body);
+        return messaggio;
+    }
+
+    @Test
+    public void testMessaggiScrittiInUnLotto() throws Exception {
+        System.out.println("\n=== Test 1: Messaggi accodati insieme scritti in un solo lotto ===");
+
+        // Il primo lotto resta bloccato finché gli altri messaggi non sono in coda
+        CountDownLatch primoIniziato = new CountDownLatch(1);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        when(messaggioDao.aggiungiMessaggi(anyList())).thenAnswer(inv -> {
+            primoIniziato.countDown();
+            sblocca.await(5, TimeUnit.SECONDS);
+            return new ArrayList<>(inv.<List<Messaggio>>getArgument(0));
+        });
+        ingestione = new IngestioneMessaggi(messaggioDao, 100, 50, 1000);
+
+        CompletableFuture<Messaggio> primo = ingestione.accoda(nuovoMessaggio("primo"));
+        assertTrue(primoIniziato.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Messaggio>> altri = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            altri.add(ingestione.accoda(nuovoMessaggio("messaggio " + i)));
+        }
+        sblocca.countDown();
+
+        assertEquals("primo", primo.get(5, TimeUnit.SECONDS).getBody());
+        for (int i = 0; i < altri.size(); i++) {
+            assertEquals("messaggio " + i, altri.get(i).get(5, TimeUnit.SECONDS).getBody());
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Messaggio>> lotti = ArgumentCaptor.forClass(List.class);
+        verify(messaggioDao, times(2)).aggiungiMessaggi(lotti.capture());
+        assertEquals(10, lotti.getAllValues().get(1).size());
+        verify(messaggioDao, never()).aggiungiMessaggio(any());
+
+        System.out.println("✓ 11 messaggi scritti con 2 transazioni");
+    }
+
+    @Test
+    public void testLottoFallitoRitentatoSingolarmente() throws Exception {
+        System.out.println("\n=== Test 2: Lotto fallito ritentato messaggio per messaggio ===");
+
+        when(messaggioDao.aggiungiMessaggi(anyList())).thenThrow(new IllegalStateException("vincolo violato"));
+        when(messaggioDao.aggiungiMessaggio(any(Messaggio.class))).thenAnswer(inv -> {
+            Messaggio messaggio = inv.getArgument(0);
+            if ("non valido".equals(messaggio.getBody())) {
+                throw new IllegalStateException("vincolo violato");
+            }
+            return messaggio;
+        });
+        ingestione = new IngestioneMessaggi(messaggioDao, 100, 50, 1000);
+
+        CompletableFuture<Messaggio> valido = ingestione.accoda(nuovoMessaggio("valido"));
+        CompletableFuture<Messaggio> nonValido = ingestione.accoda(nuovoMessaggio("non valido"));
+
+        assertEquals("valido", valido.get(5, TimeUnit.SECONDS).getBody());
+        ExecutionException errore = assertThrows(ExecutionException.class, () -> nonValido.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, errore.getCause());
+
+        System.out.println("✓ Solo il messaggio non valido fallisce");
+    }
+
+    @Test
+    public void testCodaPienaRifiutaIlMessaggio() throws Exception {
+        System.out.println("\n=== Test 3: Backpressure con coda piena ===");
+
+        CountDownLatch iniziato = new CountDownLatch(1);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        when(messaggioDao.aggiungiMessaggi(anyList())).thenAnswer(inv -> {
+            iniziato.countDown();
+            sblocca.await(5, TimeUnit.SECONDS);
+            return new ArrayList<>(inv.<List<Messaggio>>getArgument(0));
+        });
+        ingestione = new IngestioneMessaggi(messaggioDao, 1, 1, 50);
+
+        CompletableFuture<Messaggio> inScrittura = ingestione.accoda(nuovoMessaggio("in scrittura"));
+        assertTrue(iniziato.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Messaggio> inCoda = ingestione.accoda(nuovoMessaggio("in coda"));
+        CompletableFuture<Messaggio> rifiutato = ingestione.accoda(nuovoMessaggio("rifiutato"));
+
+        ExecutionException errore = assertThrows(ExecutionException.class, () -> rifiutato.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, errore.getCause());
+
+        sblocca.countDown();
+        assertNotNull(inScrittura.get(5, TimeUnit.SECONDS));
+        assertNotNull(inCoda.get(5, TimeUnit.SECONDS));
+
+        System.out.println("✓ Messaggio oltre la capacità rifiutato, gli altri salvati");
+    }
+
+    @Test
+    public void testChiusuraSalvaIMessaggiInCoda() throws Exception {
+        System.out.println("\n=== Test 4: Chiusura della pipeline ===");
+
+        when(messaggioDao.aggiungiMessaggi(anyList())).thenAnswer(inv -> new ArrayList<>(inv.<List<Messaggio>>getArgument(0)));
+        ingestione = new IngestioneMessaggi(messaggioDao, 100, 50, 1000);
+
+        CompletableFuture<Messaggio> accodato = ingestione.accoda(nuovoMessaggio("prima della chiusura"));
+        ingestione.chiudi();
+
+        assertNotNull(accodato.get(5, TimeUnit.SECONDS));
+        ExecutionException errore = assertThrows(ExecutionException.class,
+                () -> ingestione.accoda(nuovoMessaggio("dopo la chiusura")).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, errore.getCause());
+
+        System.out.println("✓ Messaggi in coda salvati, nuovi messaggi rifiutati");
+    }
+
+    @Test
+    public void testChiusuraIstanzaCondivisa() throws Exception {
+        System.out.println("\n=== Test 5: Chiusura dell'istanza condivisa ===");
+
+        when(messaggioDao.aggiungiMessaggi(anyList())).thenAnswer(inv -> new ArrayList<>(inv.<List<Messaggio>>getArgument(0)));
+        IngestioneMessaggi condivisa = IngestioneMessaggi.getIstanza(messaggioDao);
+        CompletableFuture<Messaggio> accodato = condivisa.accoda(nuovoMessaggio("prima del redeploy"));
+
+        IngestioneMessaggi.chiudiIstanza();
+
+        assertNotNull(accodato.get(5, TimeUnit.SECONDS));
+        ExecutionException errore = assertThrows(ExecutionException.class,
+                () -> condivisa.accoda(nuovoMessaggio("dopo il redeploy")).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, errore.getCause());
+        // Dopo la chiusura viene creata una nuova pipeline
+        ingestione = IngestioneMessaggi.getIstanza(messaggioDao);
+        assertNotSame(condivisa, ingestione);
+        IngestioneMessaggi.chiudiIstanza();
+        ingestione = null;
+
+        System.out.println("✓ Thread di scrittura fermato e messaggi in coda salvati");
+    }
+}
@@ -1,11 +1,17 @@
 package it.unisa.uniclass.testing.unit.conversazioni.service;
 
 import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
 import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.CacheConversazioni;
+import it.unisa.uniclass.conversazioni.service.IndiceMessaggi;
+import it.unisa.uniclass.conversazioni.service.IngestioneMessaggi;
 import it.unisa.uniclass.conversazioni.service.MessaggioService;
 import it.unisa.uniclass.conversazioni.service.dao.MessaggioRemote;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.AccademicoVista;
 import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
 import jakarta.persistence.NoResultException;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +25,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -50,6 +57,10 @@ public class MessaggioServiceTest {
                 (mock, context) -> when(mock.lookup(anyString())).thenReturn(messaggioDao))) {
             messaggioService = new MessaggioService();
         }
+        // Cache senza budget: ogni lettura va al DAO, come senza cache
+        messaggioService.setCache(new CacheConversazioni(CacheConversazioni.CAPACITA_CONVERSAZIONE, 0));
+        // Indice di ricerca isolato, senza snapshot su disco
+        messaggioService.setIndice(new IndiceMessaggi());
 
         // Setup CorsoLaurea
         CorsoLaurea corsoLaurea = new CorsoLaurea();
@@ -325,24 +336,19 @@ public class MessaggioServiceTest {
 
         String matricola = "0512100002";
 
-        // Setup messaggi ricevuti con destinatari diversi
-        Messaggio msg1 = new Messaggio();
-        msg1.setDestinatario(destinatario);
-        Messaggio msg2 = new Messaggio();
-        Accademico dest2 = new Studente();
-        dest2.setEmail("altro@studenti.unisa.it");
-        msg2.setDestinatario(dest2);
+        // Autori dei messaggi ricevuti, già senza ripetizioni dalla query
+        AccademicoVista mittente = new AccademicoVista("0512100001", "autore@studenti.unisa.it", "Mario", "Rossi", Tipo.Studente);
+        AccademicoVista altro = new AccademicoVista("0512100003", "altro@studenti.unisa.it", "Anna", "Bianchi", Tipo.Studente);
+        when(messaggioDao.trovaMessaggeri(matricola)).thenReturn(Arrays.asList(mittente, altro));
 
-        List<Messaggio> messaggiRicevuti = Arrays.asList(msg1, msg2);
-        when(messaggioDao.trovaMessaggiRicevuti(matricola)).thenReturn(messaggiRicevuti);
-
-        List<Accademico> result = messaggioService.trovaMessaggeriDiUnAccademico(matricola);
+        List<AccademicoVista> result = messaggioService.trovaMessaggeriDiUnAccademico(matricola);
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        assertTrue(result.contains(destinatario));
-        assertTrue(result.contains(dest2));
-        verify(messaggioDao).trovaMessaggiRicevuti(matricola);
+        assertTrue(result.contains(mittente));
+        assertTrue(result.contains(altro));
+        verify(messaggioDao).trovaMessaggeri(matricola);
+        verify(messaggioDao, never()).trovaMessaggiRicevuti(anyString());
 
         System.out.println("✓ trovaMessaggeriDiUnAccademico restituisce " + result.size() + " accademici");
     }
@@ -352,9 +358,9 @@ public class MessaggioServiceTest {
         System.out.println("\n=== Test 15: trovaMessaggeriDiUnAccademico - nessun messaggio ===");
 
         String matricola = "9999999999";
-        when(messaggioDao.trovaMessaggiRicevuti(matricola)).thenReturn(new ArrayList<>());
+        when(messaggioDao.trovaMessaggeri(matricola)).thenReturn(new ArrayList<>());
 
-        List<Accademico> result = messaggioService.trovaMessaggeriDiUnAccademico(matricola);
+        List<AccademicoVista> result = messaggioService.trovaMessaggeriDiUnAccademico(matricola);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -520,7 +526,8 @@ public class MessaggioServiceTest {
 
         // Verifica chiamate
         verify(messaggioDao).trovaMessaggio(anyLong());
-        verify(messaggioDao, times(2)).trovaMessaggiRicevuti(anyString()); // chiamato 2 volte
+        verify(messaggioDao).trovaMessaggiRicevuti(anyString());
+        verify(messaggioDao).trovaMessaggeri(anyString());
         verify(messaggioDao).trovaMessaggiInviati(anyString());
         verify(messaggioDao).trovaMessaggi(anyString(), anyString());
         verify(messaggioDao).trovaTutti();
@@ -595,4 +602,330 @@ public class MessaggioServiceTest {
 
         System.out.println("✓ Entrambi i branch di rimuoviMessaggio coperti");
     }
+
+    @Test
+    public void testTrovaConversazione() {
+        System.out.println("\n=== Test 28: Trova ultima pagina della conversazione ===");
+
+        List<MessaggioVista> pagina = Arrays.asList(MessaggioVista.di(messaggio));
+        when(messaggioDao.trovaConversazione("0512100001", "0512100002", 30)).thenReturn(pagina);
+
+        List<MessaggioVista> result = messaggioService.trovaConversazione("0512100001", "0512100002", 30);
+
+        assertEquals(1, result.size());
+        verify(messaggioDao, times(1)).trovaConversazione("0512100001", "0512100002", 30);
+
+        System.out.println("✓ Pagina della conversazione recuperata");
+    }
+
+    @Test
+    public void testTrovaConversazioneNormalizzaLimite() {
+        System.out.println("\n=== Test 29: Normalizzazione del limite di pagina ===");
+
+        when(messaggioDao.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(new ArrayList<>());
+
+        // Limite non positivo: si usa la dimensione di default
+        messaggioService.trovaConversazione("0512100001", "0512100002", 0);
+        verify(messaggioDao, times(1)).trovaConversazione("0512100001", "0512100002", MessaggioService.DIMENSIONE_PAGINA);
+
+        // Limite oltre il massimo: viene troncato
+        messaggioService.trovaConversazione("0512100001", "0512100002", 10_000);
+        verify(messaggioDao, times(1)).trovaConversazione("0512100001", "0512100002", MessaggioService.DIMENSIONE_PAGINA_MASSIMA);
+
+        System.out.println("✓ Limite riportato nell'intervallo consentito");
+    }
+
+    @Test
+    public void testTrovaConversazionePrecedenti() {
+        System.out.println("\n=== Test 30: Trova pagina precedente al cursore ===");
+
+        List<MessaggioVista> pagina = Arrays.asList(MessaggioVista.di(messaggio));
+        when(messaggioDao.trovaConversazionePrecedenti("0512100001", "0512100002", dateTime, 42L, 20)).thenReturn(pagina);
+
+        List<MessaggioVista> result = messaggioService.trovaConversazionePrecedenti("0512100001", "0512100002", dateTime, 42L, 20);
+
+        assertEquals(1, result.size());
+        verify(messaggioDao, times(1)).trovaConversazionePrecedenti("0512100001", "0512100002", dateTime, 42L, 20);
+        verify(messaggioDao, never()).trovaConversazione(anyString(), anyString(), anyInt());
+
+        System.out.println("✓ Pagina precedente recuperata");
+    }
+
+    @Test
+    public void testTrovaConversazionePrecedentiSenzaCursore() {
+        System.out.println("\n=== Test 31: Pagina precedente senza cursore ===");
+
+        when(messaggioDao.trovaConversazione(anyString(), anyString(), anyInt())).thenReturn(new ArrayList<>());
+
+        messaggioService.trovaConversazionePrecedenti("0512100001", "0512100002", null, 0L, 20);
+
+        verify(messaggioDao, times(1)).trovaConversazione("0512100001", "0512100002", 20);
+        verify(messaggioDao, never()).trovaConversazionePrecedenti(anyString(), anyString(), any(), anyLong(), anyInt());
+
+        System.out.println("✓ Senza cursore viene restituita l'ultima pagina");
+    }
+
+    @Test
+    public void testTrovaAvvisiCorsoLaureaPrimoAccesso() {
+        System.out.println("\n=== Test 32: Avvisi recenti del corso di laurea ===");
+
+        Messaggio avvisoRecente = new Messaggio();
+        avvisoRecente.setBody("Recente");
+        Messaggio avvisoVecchio = new Messaggio();
+        avvisoVecchio.setBody("Vecchio");
+        MessaggioVista recente = MessaggioVista.di(avvisoRecente);
+        MessaggioVista vecchio = MessaggioVista.di(avvisoVecchio);
+        when(messaggioDao.trovaAvvisiCorsoLaureaRecenti(1L, 20)).thenReturn(Arrays.asList(recente, vecchio));
+
+        List<MessaggioVista> result = messaggioService.trovaAvvisiCorsoLaurea(1L, null, 20);
+
+        // Il DAO restituisce dal più recente, il feed li vuole in ordine di pubblicazione
+        assertEquals(2, result.size());
+        assertSame(vecchio, result.get(0));
+        assertSame(recente, result.get(1));
+        verify(messaggioDao, never()).trovaAvvisiCorsoLaurea(anyLong(), anyLong(), anyInt());
+
+        System.out.println("✓ Avvisi recenti restituiti in ordine cronologico");
+    }
+
+    @Test
+    public void testTrovaAvvisiCorsoLaureaRipresa() {
+        System.out.println("\n=== Test 33: Avvisi successivi a Last-Event-ID ===");
+
+        when(messaggioDao.trovaAvvisiCorsoLaurea(anyLong(), anyLong(), anyInt())).thenReturn(Arrays.asList(MessaggioVista.di(messaggio)));
+
+        List<MessaggioVista> result = messaggioService.trovaAvvisiCorsoLaurea(1L, 42L, 10_000);
+
+        assertEquals(1, result.size());
+        verify(messaggioDao, times(1)).trovaAvvisiCorsoLaurea(1L, 42L, MessaggioService.DIMENSIONE_PAGINA_MASSIMA);
+        verify(messaggioDao, never()).trovaAvvisiCorsoLaureaRecenti(anyLong(), anyInt());
+
+        System.out.println("✓ Solo gli avvisi persi vengono recuperati");
+    }
+
+    @Test
+    public void testAccodaMessaggio() throws Exception {
+        System.out.println("\n=== Test 34: Accoda messaggio nella pipeline di scrittura ===");
+
+        IngestioneMessaggi ingestione = mock(IngestioneMessaggi.class);
+        messaggioService.setIngestione(ingestione);
+        when(ingestione.accoda(messaggio)).thenReturn(CompletableFuture.completedFuture(messaggio));
+
+        assertSame(messaggio, messaggioService.accodaMessaggio(messaggio).get());
+        assertNull(messaggioService.accodaMessaggio(null).get());
+        verify(ingestione, times(1)).accoda(any());
+        verify(messaggioDao, never()).aggiungiMessaggio(any());
+
+        System.out.println("✓ Messaggio affidato alla pipeline");
+    }
+
+    @Test
+    public void testTrovaConversazioneDallaCache() {
+        System.out.println("\n=== Test 35: Conversazione recente servita dalla cache ===");
+
+        CacheConversazioni cache = new CacheConversazioni(CacheConversazioni.CAPACITA_CONVERSAZIONE, CacheConversazioni.BUDGET_MEMORIA);
+        messaggioService.setCache(cache);
+        messaggio.setDateTime(dateTime);
+        when(messaggioDao.trovaConversazione("0512100001", "0512100002", 30)).thenReturn(new ArrayList<>(Arrays.asList(MessaggioVista.di(messaggio))));
+
+        messaggioService.trovaConversazione("0512100001", "0512100002", 30);
+        List<MessaggioVista> result = messaggioService.trovaConversazione("0512100002", "0512100001", 30);
+
+        assertEquals(1, result.size());
+        verify(messaggioDao, times(1)).trovaConversazione(anyString(), anyString(), anyInt());
+        assertEquals(1, cache.getHit());
+        assertEquals(1, cache.getMiss());
+
+        // Un nuovo messaggio aggiorna la conversazione in cache senza tornare al DAO
+        Messaggio risposta = new Messaggio();
+        risposta.setAutore(destinatario);
+        risposta.setDestinatario(autore);
+        risposta.setBody("Risposta");
+        risposta.setDateTime(dateTime.plusMinutes(1));
+        when(messaggioDao.aggiungiMessaggio(risposta)).thenReturn(risposta);
+        messaggioService.aggiungiMessaggio(risposta);
+
+        result = messaggioService.trovaConversazione("0512100001", "0512100002", 30);
+        assertEquals(2, result.size());
+        assertEquals("Risposta", result.get(0).body());
+        verify(messaggioDao, times(1)).trovaConversazione(anyString(), anyString(), anyInt());
+
+        System.out.println("✓ Seconda lettura e lettura dopo l'invio servite dalla memoria");
+    }
+
+    @Test
+    public void testCercaMessaggi() throws Exception {
+        System.out.println("\n=== Test 36: Ricerca nei messaggi ===");
+
+        java.lang.reflect.Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, 1L);
+        Messaggio altro = new Messaggio();
+        idField.set(altro, 2L);
+        altro.setAutore(destinatario);
+        altro.setDestinatario(autore);
+        altro.setBody("Test di programmazione: test rimandato");
+        altro.setDateTime(dateTime.plusMinutes(1));
+
+        // Messaggi già salvati: recuperati dal DAO alla prima ricerca
+        when(messaggioDao.trovaMessaggiDopo(eq(0L), anyInt())).thenReturn(Arrays.asList(messaggio, altro));
+        when(messaggioDao.trovaMessaggiId(anyList())).thenReturn(Arrays.asList(messaggio, altro));
+
+        List<Messaggio> result = messaggioService.cercaMessaggi("TEST", autore, 10);
+
+        // Il messaggio con il termine ripetuto è più rilevante
+        assertEquals(2, result.size());
+        assertSame(altro, result.get(0));
+        assertSame(messaggio, result.get(1));
+        verify(messaggioDao).trovaMessaggiId(Arrays.asList(2L, 1L));
+
+        // Un terzo utente non vede la conversazione
+        Accademico estraneo = new Studente();
+        estraneo.setMatricola("0512100003");
+        assertTrue(messaggioService.cercaMessaggi("test", estraneo, 10).isEmpty());
+        assertTrue(messaggioService.cercaMessaggi("  ", autore, 10).isEmpty());
+        verify(messaggioDao, times(1)).trovaMessaggiDopo(anyLong(), anyInt());
+
+        System.out.println("✓ Risultati ordinati per rilevanza e filtrati per utente");
+    }
+
+    @Test
+    public void testConversazioneCompletataDallArchivio() throws Exception {
+        System.out.println("\n=== Test 37: Pagina completata con i messaggi archiviati ===");
+
+        java.lang.reflect.Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, 900L);
+        MessaggioVista recente = MessaggioVista.di(messaggio);
+        MessaggioVista archiviato = MessaggioVista.di(new Messaggio(destinatario, autore, null, "Messaggio archiviato", dateTime.minusYears(2)));
+        when(messaggioDao.trovaConversazione("0512100001", "0512100002", 30)).thenReturn(Arrays.asList(recente));
+        when(messaggioDao.trovaConversazioneArchiviata("0512100001", "0512100002", dateTime, 900L, 29))
+                .thenReturn(Arrays.asList(archiviato));
+
+        List<MessaggioVista> result = messaggioService.trovaConversazione("0512100001", "0512100002", 30);
+
+        assertEquals(2, result.size());
+        assertSame(recente, result.get(0));
+        assertSame(archiviato, result.get(1));
+
+        // Pagina piena di messaggi recenti: l'archivio non viene letto
+        List<MessaggioVista> piena = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            piena.add(recente);
+        }
+        when(messaggioDao.trovaConversazionePrecedenti("0512100001", "0512100002", dateTime, 42L, 20)).thenReturn(piena);
+
+        assertEquals(20, messaggioService.trovaConversazionePrecedenti("0512100001", "0512100002", dateTime, 42L, 20).size());
+        verify(messaggioDao, times(1)).trovaConversazioneArchiviata(anyString(), anyString(), any(), anyLong(), anyInt());
+
+        System.out.println("✓ Archivio letto solo oltre i messaggi recenti");
+    }
+
+    @Test
+    public void testPrecedentiSoloDallArchivio() {
+        System.out.println("\n=== Test 38: Pagina precedente interamente archiviata ===");
+
+        MessaggioVista archiviato = MessaggioVista.di(new Messaggio(autore, destinatario, null, "Messaggio archiviato", dateTime.minusYears(2)));
+        when(messaggioDao.trovaConversazionePrecedenti(anyString(), anyString(), any(), anyLong(), anyInt())).thenReturn(new ArrayList<>());
+        when(messaggioDao.trovaConversazioneArchiviata("0512100001", "0512100002", dateTime, 42L, 20))
+                .thenReturn(Arrays.asList(archiviato));
+
+        List<MessaggioVista> result = messaggioService.trovaConversazionePrecedenti("0512100001", "0512100002", dateTime, 42L, 20);
+
+        assertEquals(1, result.size());
+        assertSame(archiviato, result.get(0));
+
+        System.out.println("✓ Cursore passato all'archivio");
+    }
+
+    @Test
+    public void testArchiviaMessaggiALotti() {
+        System.out.println("\n=== Test 39: Archiviazione a lotti ===");
+
+        LocalDateTime orizzonte = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Messaggio> pieno = new ArrayList<>();
+        for (int i = 0; i < MessaggioService.DIMENSIONE_LOTTO_ARCHIVIO; i++) {
+            pieno.add(new Messaggio());
+        }
+        when(messaggioDao.archiviaMessaggi(orizzonte, MessaggioService.DIMENSIONE_LOTTO_ARCHIVIO))
+                .thenReturn(pieno, pieno, Arrays.asList(new Messaggio()));
+
+        int archiviati = messaggioService.archiviaMessaggi(orizzonte);
+
+        assertEquals(2 * MessaggioService.DIMENSIONE_LOTTO_ARCHIVIO + 1, archiviati);
+        verify(messaggioDao, times(3)).archiviaMessaggi(orizzonte, MessaggioService.DIMENSIONE_LOTTO_ARCHIVIO);
+
+        System.out.println("✓ Lotti ripetuti fino all'ultimo incompleto");
+    }
+
+    @Test
+    public void testCercaMessaggiArchiviati() throws Exception {
+        System.out.println("\n=== Test 40: Risultati della ricerca spostati nell'archivio ===");
+
+        java.lang.reflect.Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, 1L);
+        IndiceMessaggi indice = new IndiceMessaggi();
+        indice.aggiungi(messaggio);
+        messaggioService.setIndice(indice);
+        when(messaggioDao.trovaUltimoId()).thenReturn(1L);
+        when(messaggioDao.trovaMessaggiId(anyList())).thenReturn(new ArrayList<>());
+        when(messaggioDao.trovaArchiviatiId(Arrays.asList(1L))).thenReturn(Arrays.asList(messaggio));
+
+        List<Messaggio> result = messaggioService.cercaMessaggi("test", autore, 10);
+
+        assertEquals(1, result.size());
+        assertSame(messaggio, result.get(0));
+
+        System.out.println("✓ Messaggio archiviato trovato nell'archivio");
+    }
+
+    @Test
+    public void testTrovaAvvisiCorso() {
+        System.out.println("\n=== Test 41: Avvisi di un corso filtrati prima del limite ===");
+
+        MessaggioVista recente = MessaggioVista.di(messaggio);
+        when(messaggioDao.trovaAvvisiCorsoRecenti(1L, 7L, 20)).thenReturn(Arrays.asList(recente));
+        when(messaggioDao.trovaAvvisiCorso(1L, 7L, 42L, 20)).thenReturn(new ArrayList<>());
+
+        assertEquals(List.of(recente), messaggioService.trovaAvvisiCorsoLaurea(1L, 7L, null, 20));
+        assertTrue(messaggioService.trovaAvvisiCorsoLaurea(1L, 7L, 42L, 20).isEmpty());
+
+        verify(messaggioDao, never()).trovaAvvisiCorsoLaureaRecenti(anyLong(), anyInt());
+        verify(messaggioDao, never()).trovaAvvisiCorsoLaurea(anyLong(), anyLong(), anyInt());
+
+        System.out.println("✓ Usate le query ristrette al corso");
+    }
+
+    @Test
+    public void testCercaMessaggiRicontrollaVisibilita() throws Exception {
+        System.out.println("\n=== Test 42: Visibilità ricontrollata sui messaggi letti ===");
+
+        java.lang.reflect.Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, 1L);
+        Messaggio perso = new Messaggio(autore, destinatario, null, "Test mai salvato", dateTime);
+        idField.set(perso, 2L);
+        IndiceMessaggi indice = new IndiceMessaggi();
+        indice.aggiungi(messaggio);
+        indice.aggiungi(perso);
+        messaggioService.setIndice(indice);
+
+        // Con lo stesso ID il database contiene ora una conversazione di altri utenti
+        Accademico estraneo = new Studente();
+        estraneo.setMatricola("0512100003");
+        Messaggio altrui = new Messaggio(estraneo, destinatario, null, "Test privato", dateTime);
+        idField.set(altrui, 1L);
+        when(messaggioDao.trovaUltimoId()).thenReturn(2L);
+        when(messaggioDao.trovaMessaggiId(anyList())).thenReturn(Arrays.asList(altrui));
+
+        assertTrue(messaggioService.cercaMessaggi("test", autore, 10).isEmpty());
+
+        // Voce corretta con il messaggio reale, voce senza messaggio rimossa
+        assertTrue(indice.cerca("test", "0512100001", null, 10).isEmpty());
+        assertEquals(List.of(1L), indice.cerca("privato", "0512100003", null, 10));
+        assertEquals(1, indice.getDocumenti());
+
+        System.out.println("✓ Messaggi non visibili scartati e indice corretto");
+    }
 }
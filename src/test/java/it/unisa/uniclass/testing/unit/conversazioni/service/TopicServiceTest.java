@@ -1,6 +1,7 @@
 package it.unisa.uniclass.testing.unit.conversazioni.service;
 
 import it.unisa.uniclass.conversazioni.model.Topic;
+import it.unisa.uniclass.conversazioni.service.RegistroTopic;
 import it.unisa.uniclass.conversazioni.service.TopicService;
 import it.unisa.uniclass.conversazioni.service.dao.TopicRemote;
 import it.unisa.uniclass.orari.model.Corso;
@@ -13,6 +14,7 @@ import org.mockito.MockedConstruction;
 import org.mockito.MockitoAnnotations;
 
 import javax.naming.InitialContext;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -45,6 +47,8 @@ public class TopicServiceTest {
                 (mock, context) -> when(mock.lookup(anyString())).thenReturn(topicDao))) {
             topicService = new TopicService();
         }
+        // Registro isolato per ogni test
+        topicService.setRegistro(new RegistroTopic());
 
         // Setup CorsoLaurea
         corsoLaurea = new CorsoLaurea();
@@ -535,4 +539,78 @@ public class TopicServiceTest {
 
         System.out.println("✓ Topic con Corso gestito");
     }
+
+    private Topic salvato(String nome, long id) throws Exception {
+        Topic salvato = new Topic();
+        salvato.setNome(nome);
+        salvato.setCorsoLaurea(corsoLaurea);
+        Field idField = Topic.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(salvato, id);
+        return salvato;
+    }
+
+    @Test
+    public void testRisolviTopicEsistente() throws Exception {
+        System.out.println("\n=== Test 26: risolviTopic - topic già salvato ===");
+
+        Topic esistente = salvato("Esame Finale", 7L);
+        String chiave = Topic.chiave("Esame Finale", corsoLaurea, null);
+        when(topicDao.trovaChiave(chiave)).thenReturn(esistente);
+
+        assertSame(esistente, topicService.risolviTopic("Esame Finale", corsoLaurea, null));
+        // Seconda richiesta, anche con spazi: servita dal registro
+        assertSame(esistente, topicService.risolviTopic("  Esame Finale ", corsoLaurea, null));
+
+        verify(topicDao, times(1)).trovaChiave(chiave);
+        verify(topicDao, never()).creaTopic(any());
+
+        System.out.println("✓ Topic esistente riusato, una sola query");
+    }
+
+    @Test
+    public void testRisolviTopicNuovo() throws Exception {
+        System.out.println("\n=== Test 27: risolviTopic - creazione del topic ===");
+
+        when(topicDao.trovaChiave(anyString())).thenThrow(new NoResultException());
+        when(topicDao.creaTopic(any(Topic.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Topic creato = topicService.risolviTopic(" Ricevimento ", corsoLaurea, null);
+
+        assertNotNull(creato);
+        assertEquals("Ricevimento", creato.getNome());
+        assertEquals(corsoLaurea, creato.getCorsoLaurea());
+        assertNull(creato.getCorso());
+        assertSame(creato, topicService.risolviTopic("Ricevimento", corsoLaurea, null));
+        verify(topicDao, times(1)).creaTopic(any(Topic.class));
+
+        System.out.println("✓ Topic creato una sola volta");
+    }
+
+    @Test
+    public void testRisolviTopicConcorrente() throws Exception {
+        System.out.println("\n=== Test 28: risolviTopic - creazione concorrente ===");
+
+        Topic vincitore = salvato("Esame Finale", 9L);
+        when(topicDao.trovaChiave(anyString()))
+                .thenThrow(new NoResultException())
+                .thenReturn(vincitore);
+        when(topicDao.creaTopic(any(Topic.class))).thenThrow(new IllegalStateException("uk_topics_chiave"));
+
+        assertSame(vincitore, topicService.risolviTopic("Esame Finale", corsoLaurea, null));
+        verify(topicDao, times(2)).trovaChiave(anyString());
+
+        System.out.println("✓ Violazione del vincolo risolta rileggendo il topic salvato");
+    }
+
+    @Test
+    public void testRisolviTopicVuoto() {
+        System.out.println("\n=== Test 29: risolviTopic - nome vuoto ===");
+
+        assertNull(topicService.risolviTopic(null, corsoLaurea, null));
+        assertNull(topicService.risolviTopic("   ", corsoLaurea, null));
+        verifyNoInteractions(topicDao);
+
+        System.out.println("✓ Nessun topic per i messaggi diretti");
+    }
 }
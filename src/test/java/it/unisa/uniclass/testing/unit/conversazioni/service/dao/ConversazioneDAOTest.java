@@ -0,0 +1,86 @@
+package it.unisa.uniclass.testing.unit.conversazioni.service.dao;
+
+import it.unisa.uniclass.conversazioni.model.Conversazione;
+import it.unisa.uniclass.conversazioni.model.ConversazioneVista;
+import it.unisa.uniclass.conversazioni.service.dao.ConversazioneDAO;
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test per la classe ConversazioneDAO.
+ */
+public class ConversazioneDAOTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<ConversazioneVista> typedQuery;
+
+    @Mock
+    private Query query;
+
+    private ConversazioneDAO conversazioneDAO;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+
+        // Inject EntityManager usando reflection
+        conversazioneDAO = new ConversazioneDAO();
+        Field emField = ConversazioneDAO.class.getDeclaredField("emUniClass");
+        emField.setAccessible(true);
+        emField.set(conversazioneDAO, entityManager);
+    }
+
+    @Test
+    public void testTrovaConversazioni() {
+        System.out.println("\n=== Test 1: trovaConversazioni ===");
+
+        when(entityManager.createNamedQuery(Conversazione.TROVA_CONVERSAZIONI_PROPRIETARIO, ConversazioneVista.class))
+                .thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(
+                new ConversazioneVista("prof@unisa.it", "Maria", "Rossi", Tipo.Docente, "Ciao", null, 1)));
+
+        List<ConversazioneVista> result = conversazioneDAO.trovaConversazioni("0512100001");
+
+        assertEquals(1, result.size());
+        assertEquals("prof@unisa.it", result.get(0).interlocutoreEmail());
+        verify(typedQuery).setParameter("matricola", "0512100001");
+
+        System.out.println("✓ Query eseguita correttamente");
+    }
+
+    @Test
+    public void testSegnaLetta() {
+        System.out.println("\n=== Test 2: segnaLetta ===");
+
+        Accademico proprietario = new Studente();
+        Accademico interlocutore = new Studente();
+        when(entityManager.createNamedQuery(Conversazione.SEGNA_LETTA)).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+
+        conversazioneDAO.segnaLetta(proprietario, interlocutore);
+
+        verify(query).setParameter("proprietario", proprietario);
+        verify(query).setParameter("interlocutore", interlocutore);
+        verify(query).executeUpdate();
+
+        System.out.println("✓ Contatore azzerato con un UPDATE");
+    }
+}
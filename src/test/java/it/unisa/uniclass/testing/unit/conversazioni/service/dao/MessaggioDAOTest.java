@@ -1,12 +1,18 @@
 package it.unisa.uniclass.testing.unit.conversazioni.service.dao;
 
 import it.unisa.uniclass.conversazioni.model.Messaggio;
+import it.unisa.uniclass.conversazioni.model.MessaggioArchiviato;
+import it.unisa.uniclass.conversazioni.model.MessaggioVista;
 import it.unisa.uniclass.conversazioni.model.Topic;
 import it.unisa.uniclass.conversazioni.service.dao.MessaggioDAO;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.AccademicoVista;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.model.Studente;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.conversazioni.model.Conversazione;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,6 +42,9 @@ public class MessaggioDAOTest {
     @Mock
     private TypedQuery<Messaggio> typedQuery;
 
+    @Mock
+    private TypedQuery<MessaggioVista> vistaQuery;
+
     @InjectMocks
     private MessaggioDAO messaggioDAO;
 
@@ -562,4 +571,372 @@ public class MessaggioDAOTest {
 
         System.out.println("✓ Sequenza completa eseguita con successo");
     }
+
+    @Test
+    public void testTrovaConversazione() {
+        System.out.println("\n=== Test 23: Trova ultima pagina della conversazione ===");
+
+        when(entityManager.createNamedQuery(Messaggio.TROVA_CONVERSAZIONE_RECENTI, MessaggioVista.class))
+                .thenReturn(vistaQuery);
+        when(vistaQuery.getResultList()).thenReturn(List.of(MessaggioVista.di(messaggio)));
+
+        List<MessaggioVista> result = messaggioDAO.trovaConversazione("0512100001", "0512100002", 30);
+
+        assertEquals(1, result.size());
+        assertEquals("Messaggio di test", result.get(0).body());
+        verify(vistaQuery).setParameter("autore", "0512100001");
+        verify(vistaQuery).setParameter("destinatario", "0512100002");
+        verify(vistaQuery).setMaxResults(30);
+
+        System.out.println("✓ Query con limite eseguita correttamente");
+    }
+
+    @Test
+    public void testTrovaConversazionePrecedenti() {
+        System.out.println("\n=== Test 24: Trova pagina precedente al cursore ===");
+
+        LocalDateTime cursore = LocalDateTime.of(2024, 11, 30, 10, 0);
+        when(entityManager.createNamedQuery(Messaggio.TROVA_CONVERSAZIONE_PRECEDENTI, MessaggioVista.class))
+                .thenReturn(vistaQuery);
+        when(vistaQuery.getResultList()).thenReturn(new ArrayList<>());
+
+        List<MessaggioVista> result = messaggioDAO.trovaConversazionePrecedenti("0512100001", "0512100002", cursore, 42L, 20);
+
+        assertTrue(result.isEmpty());
+        verify(vistaQuery).setParameter("dateTime", cursore);
+        verify(vistaQuery).setParameter("id", 42L);
+        verify(vistaQuery).setMaxResults(20);
+
+        System.out.println("✓ Query keyset eseguita correttamente");
+    }
+
+    @Test
+    public void testAggiungiMessaggioAggiornaConversazioni() {
+        System.out.println("\n=== Test 25: aggiungiMessaggio - aggiorna i riepiloghi ===");
+
+        Query update = mock(Query.class);
+        when(entityManager.createNamedQuery(Conversazione.REGISTRA_MESSAGGIO)).thenReturn(update);
+        when(update.setParameter(anyInt(), any())).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(1);
+
+        Messaggio msg = new Messaggio();
+        msg.setAutore(autore);
+        msg.setDestinatario(destinatario);
+        msg.setBody("Ciao");
+        msg.setDateTime(LocalDateTime.of(2024, 11, 30, 10, 0));
+
+        messaggioDAO.aggiungiMessaggio(msg);
+
+        verify(update).setParameter(5, 0);
+        verify(update).setParameter(5, 1);
+        verify(update, times(2)).executeUpdate();
+        verify(entityManager).persist(msg);
+        // Il riepilogo mancante viene creato dallo stesso INSERT ... ON CONFLICT, non con persist
+        verify(entityManager, never()).persist(any(Conversazione.class));
+
+        System.out.println("✓ Riepiloghi di autore e destinatario aggiornati");
+    }
+
+    @Test
+    public void testAggiungiMessaggioSenzaDestinatario() {
+        System.out.println("\n=== Test 26: aggiungiMessaggio - avviso senza destinatario ===");
+
+        Messaggio avviso = new Messaggio();
+        avviso.setAutore(autore);
+        avviso.setBody("Avviso");
+
+        messaggioDAO.aggiungiMessaggio(avviso);
+
+        verify(entityManager, never()).createNamedQuery(Conversazione.REGISTRA_MESSAGGIO);
+        verify(entityManager).persist(avviso);
+
+        System.out.println("✓ Nessun riepilogo per messaggi senza destinatario");
+    }
+
+    @Test
+    public void testTrovaAvvisiCorsoLaurea() {
+        System.out.println("\n=== Test 27: Trova avvisi del corso di laurea dopo un ID ===");
+
+        when(entityManager.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_LAUREA_DOPO, MessaggioVista.class))
+                .thenReturn(vistaQuery);
+        when(vistaQuery.getResultList()).thenReturn(List.of(MessaggioVista.di(new Messaggio())));
+
+        List<MessaggioVista> result = messaggioDAO.trovaAvvisiCorsoLaurea(1L, 42L, 20);
+
+        assertEquals(1, result.size());
+        verify(vistaQuery).setParameter("corsoLaurea", 1L);
+        verify(vistaQuery).setParameter("id", 42L);
+        verify(vistaQuery).setMaxResults(20);
+
+        System.out.println("✓ Query di ripresa eseguita correttamente");
+    }
+
+    @Test
+    public void testTrovaAvvisiCorsoLaureaRecenti() {
+        System.out.println("\n=== Test 28: Trova avvisi recenti del corso di laurea ===");
+
+        when(entityManager.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_LAUREA_RECENTI, MessaggioVista.class))
+                .thenReturn(vistaQuery);
+        when(vistaQuery.getResultList()).thenReturn(new ArrayList<>());
+
+        List<MessaggioVista> result = messaggioDAO.trovaAvvisiCorsoLaureaRecenti(1L, 20);
+
+        assertTrue(result.isEmpty());
+        verify(vistaQuery).setParameter("corsoLaurea", 1L);
+        verify(vistaQuery).setMaxResults(20);
+
+        System.out.println("✓ Query degli avvisi recenti eseguita correttamente");
+    }
+
+    @Test
+    public void testAggiungiMessaggiInUnLotto() {
+        System.out.println("\n=== Test 29: aggiungiMessaggi - lotto con un solo flush ===");
+
+        Query update = mock(Query.class);
+        when(entityManager.createNamedQuery(Conversazione.REGISTRA_MESSAGGIO)).thenReturn(update);
+        when(update.setParameter(anyInt(), any())).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(1);
+
+        List<Messaggio> lotto = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Messaggio msg = new Messaggio();
+            msg.setAutore(autore);
+            msg.setDestinatario(destinatario);
+            msg.setBody("Messaggio " + i);
+            msg.setDateTime(LocalDateTime.of(2024, 11, 30, 10, i));
+            lotto.add(msg);
+        }
+
+        List<Messaggio> salvati = messaggioDAO.aggiungiMessaggi(lotto);
+
+        assertEquals(lotto, salvati);
+        verify(entityManager, times(3)).persist(any(Messaggio.class));
+        verify(entityManager, times(1)).flush();
+        // Tre messaggi della stessa conversazione: un solo UPDATE per riepilogo
+        verify(update, times(2)).executeUpdate();
+        verify(update).setParameter(5, 3);
+        verify(update, times(2)).setParameter(3, "Messaggio 2");
+
+        System.out.println("✓ Riepiloghi aggiornati una volta per conversazione");
+    }
+
+    @Test
+    public void testAggiungiMessaggiCreaRiepilogoUnaVolta() {
+        System.out.println("\n=== Test 30: aggiungiMessaggi - nuovo riepilogo creato una volta ===");
+
+        Query update = mock(Query.class);
+        when(entityManager.createNamedQuery(Conversazione.REGISTRA_MESSAGGIO)).thenReturn(update);
+        when(update.setParameter(anyInt(), any())).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(1);
+
+        Messaggio primo = new Messaggio();
+        primo.setAutore(autore);
+        primo.setDestinatario(destinatario);
+        primo.setBody("Ciao");
+        primo.setDateTime(LocalDateTime.of(2024, 11, 30, 10, 0));
+        Messaggio risposta = new Messaggio();
+        risposta.setAutore(destinatario);
+        risposta.setDestinatario(autore);
+        risposta.setBody("Ciao a te");
+        risposta.setDateTime(LocalDateTime.of(2024, 11, 30, 10, 1));
+
+        messaggioDAO.aggiungiMessaggi(Arrays.asList(primo, risposta));
+
+        // Un solo INSERT ... ON CONFLICT per proprietario anche se la coppia compare due volte nel lotto
+        verify(update, times(2)).executeUpdate();
+        verify(update).setParameter(1, autore.getMatricola());
+        verify(update).setParameter(1, destinatario.getMatricola());
+        verify(update, times(2)).setParameter(3, "Ciao a te");
+        verify(update, times(2)).setParameter(5, 1);
+        verify(entityManager, never()).persist(any(Conversazione.class));
+
+        System.out.println("✓ Nessun riepilogo duplicato");
+    }
+
+    @Test
+    public void testTrovaMessaggiId() {
+        System.out.println("\n=== Test 31: Trova messaggi per ID ===");
+
+        when(entityManager.createNamedQuery(Messaggio.TROVA_MESSAGGI_ID, Messaggio.class)).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(messaggio));
+
+        List<Messaggio> result = messaggioDAO.trovaMessaggiId(List.of(3L, 1L));
+
+        assertEquals(1, result.size());
+        verify(typedQuery).setParameter("ids", List.of(3L, 1L));
+
+        System.out.println("✓ Query per ID eseguita correttamente");
+    }
+
+    @Test
+    public void testTrovaMessaggiDopo() {
+        System.out.println("\n=== Test 32: Trova messaggi successivi a un ID ===");
+
+        when(entityManager.createNamedQuery(Messaggio.TROVA_MESSAGGI_DOPO, Messaggio.class)).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(new ArrayList<>());
+
+        List<Messaggio> result = messaggioDAO.trovaMessaggiDopo(100L, 500);
+
+        assertTrue(result.isEmpty());
+        verify(typedQuery).setParameter("id", 100L);
+        verify(typedQuery).setMaxResults(500);
+
+        System.out.println("✓ Query di allineamento eseguita correttamente");
+    }
+
+    @Test
+    public void testTrovaConversazioneArchiviata() throws Exception {
+        System.out.println("\n=== Test 33: Trova messaggi archiviati di una conversazione ===");
+
+        Field idField = Messaggio.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(messaggio, 7L);
+        when(entityManager.createNamedQuery(MessaggioArchiviato.TROVA_CONVERSAZIONE_RECENTI, MessaggioVista.class)).thenReturn(vistaQuery);
+        when(entityManager.createNamedQuery(MessaggioArchiviato.TROVA_CONVERSAZIONE_PRECEDENTI, MessaggioVista.class)).thenReturn(vistaQuery);
+        when(vistaQuery.getResultList()).thenReturn(List.of(MessaggioVista.di(messaggio)));
+
+        // Senza cursore: i più recenti dell'archivio
+        List<MessaggioVista> result = messaggioDAO.trovaConversazioneArchiviata("0512100001", "0512100002", null, 0L, 10);
+
+        assertEquals(1, result.size());
+        assertEquals(7L, result.get(0).id());
+        assertEquals("Messaggio di test", result.get(0).body());
+        verify(vistaQuery, never()).setParameter(eq("dateTime"), any());
+
+        // Con cursore: i precedenti
+        messaggioDAO.trovaConversazioneArchiviata("0512100001", "0512100002", dateTime, 42L, 10);
+
+        verify(vistaQuery).setParameter("dateTime", dateTime);
+        verify(vistaQuery).setParameter("id", 42L);
+        verify(vistaQuery, times(2)).setMaxResults(10);
+
+        System.out.println("✓ Messaggi archiviati restituiti con il loro ID");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTrovaArchiviatiId() {
+        System.out.println("\n=== Test 34: Trova messaggi archiviati per ID ===");
+
+        TypedQuery<MessaggioArchiviato> queryArchivio = mock(TypedQuery.class);
+        when(entityManager.createNamedQuery(MessaggioArchiviato.TROVA_MESSAGGI_ID, MessaggioArchiviato.class)).thenReturn(queryArchivio);
+        when(queryArchivio.getResultList()).thenReturn(new ArrayList<>());
+
+        List<Messaggio> result = messaggioDAO.trovaArchiviatiId(List.of(5L));
+
+        assertTrue(result.isEmpty());
+        verify(queryArchivio).setParameter("ids", List.of(5L));
+
+        System.out.println("✓ Query per ID sull'archivio eseguita correttamente");
+    }
+
+    @Test
+    public void testArchiviaMessaggi() {
+        System.out.println("\n=== Test 35: Archiviazione di un lotto di messaggi ===");
+
+        LocalDateTime orizzonte = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Messaggio vecchio = new Messaggio(autore, destinatario, null, "Vecchio", LocalDateTime.of(2023, 5, 2, 9, 0));
+        Query blocco = mock(Query.class);
+        when(entityManager.createNamedQuery(Messaggio.BLOCCA_ARCHIVIAZIONE)).thenReturn(blocco);
+        when(blocco.setParameter(1, MessaggioDAO.BLOCCO_ARCHIVIAZIONE)).thenReturn(blocco);
+        when(blocco.getSingleResult()).thenReturn(true);
+        when(entityManager.createNamedQuery(Messaggio.TROVA_MESSAGGI_PRIMA, Messaggio.class)).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(messaggio, vecchio));
+
+        List<Messaggio> result = messaggioDAO.archiviaMessaggi(orizzonte, 500);
+
+        assertEquals(2, result.size());
+        verify(typedQuery).setParameter("dateTime", orizzonte);
+        verify(typedQuery).setMaxResults(500);
+        verify(entityManager).persist(argThat(o -> o instanceof MessaggioArchiviato
+                && "Vecchio".equals(((MessaggioArchiviato) o).getBody())
+                && ((MessaggioArchiviato) o).getAutore() == autore));
+        verify(entityManager).remove(vecchio);
+        verify(entityManager).remove(messaggio);
+        verify(entityManager).flush();
+
+        System.out.println("✓ Messaggi copiati nell'archivio e rimossi dalla tabella recente");
+    }
+
+    @Test
+    public void testArchiviaMessaggiBloccoOccupato() {
+        System.out.println("\n=== Test 35b: Archiviazione già in corso su un'altra istanza ===");
+
+        Query blocco = mock(Query.class);
+        when(entityManager.createNamedQuery(Messaggio.BLOCCA_ARCHIVIAZIONE)).thenReturn(blocco);
+        when(blocco.setParameter(1, MessaggioDAO.BLOCCO_ARCHIVIAZIONE)).thenReturn(blocco);
+        when(blocco.getSingleResult()).thenReturn(false);
+
+        List<Messaggio> result = messaggioDAO.archiviaMessaggi(LocalDateTime.of(2024, 1, 1, 0, 0), 500);
+
+        assertTrue(result.isEmpty());
+        verify(entityManager, never()).createNamedQuery(Messaggio.TROVA_MESSAGGI_PRIMA, Messaggio.class);
+        verify(entityManager, never()).persist(any());
+        verify(entityManager, never()).remove(any());
+
+        System.out.println("✓ Nessun lotto spostato senza il lock");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTrovaMessaggeri() {
+        System.out.println("\n=== Test 36: Trova gli autori dei messaggi ricevuti ===");
+
+        TypedQuery<AccademicoVista> queryMessaggeri = mock(TypedQuery.class);
+        when(entityManager.createNamedQuery(Messaggio.TROVA_MESSAGGERI, AccademicoVista.class)).thenReturn(queryMessaggeri);
+        when(queryMessaggeri.getResultList()).thenReturn(List.of(
+                new AccademicoVista("0512100001", "autore@unisa.it", "Mario", "Rossi", Tipo.Docente)));
+
+        List<AccademicoVista> result = messaggioDAO.trovaMessaggeri("0512100002");
+
+        assertEquals(1, result.size());
+        assertEquals("autore@unisa.it", result.get(0).email());
+        verify(queryMessaggeri).setParameter("matricola", "0512100002");
+
+        System.out.println("✓ Proiezione degli autori restituita correttamente");
+    }
+
+    @Test
+    public void testTrovaAvvisiCorso() {
+        System.out.println("\n=== Test 37: Trova avvisi di un corso dopo un ID ===");
+
+        when(entityManager.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_DOPO, MessaggioVista.class)).thenReturn(vistaQuery);
+        when(entityManager.createNamedQuery(Messaggio.TROVA_AVVISI_CORSO_RECENTI, MessaggioVista.class)).thenReturn(vistaQuery);
+        when(vistaQuery.getResultList()).thenReturn(new ArrayList<>());
+
+        messaggioDAO.trovaAvvisiCorso(1L, 7L, 42L, 20);
+        messaggioDAO.trovaAvvisiCorsoRecenti(1L, 7L, 20);
+
+        verify(vistaQuery, times(2)).setParameter("corso", 7L);
+        verify(vistaQuery, times(2)).setParameter("corsoLaurea", 1L);
+        verify(vistaQuery).setParameter("id", 42L);
+        verify(vistaQuery, times(2)).setMaxResults(20);
+
+        System.out.println("✓ Filtro sul corso passato alla query");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTrovaUltimoIdEEpoca() {
+        System.out.println("\n=== Test 38: Ultimo ID ed epoca della tabella dei messaggi ===");
+
+        TypedQuery<Long> queryRecenti = mock(TypedQuery.class);
+        TypedQuery<Long> queryArchiviati = mock(TypedQuery.class);
+        Query queryEpoca = mock(Query.class);
+        when(entityManager.createNamedQuery(Messaggio.TROVA_ULTIMO_ID, Long.class)).thenReturn(queryRecenti);
+        when(entityManager.createNamedQuery(MessaggioArchiviato.TROVA_ULTIMO_ID, Long.class)).thenReturn(queryArchiviati);
+        when(entityManager.createNamedQuery(Messaggio.TROVA_EPOCA)).thenReturn(queryEpoca);
+        when(queryRecenti.getSingleResult()).thenReturn(40L);
+        when(queryArchiviati.getSingleResult()).thenReturn(null);
+        when(queryEpoca.getSingleResult()).thenReturn(16384);
+
+        assertEquals(40L, messaggioDAO.trovaUltimoId());
+        assertEquals(16384L, messaggioDAO.trovaEpocaMessaggi());
+
+        // Tabelle vuote: MAX restituisce null
+        when(queryRecenti.getSingleResult()).thenReturn(null);
+        assertEquals(0L, messaggioDAO.trovaUltimoId());
+
+        System.out.println("✓ Massimo tra recenti e archiviati, epoca letta come numero");
+    }
 }
@@ -570,4 +570,34 @@ public class TopicDAOTest {
 
         System.out.println("✓ Entrambi i branch (persist e merge) coperti al 100%");
     }
+
+    @Test
+    public void testTrovaChiave() {
+        System.out.println("\n=== Test 24: trovaChiave ===");
+
+        String chiave = Topic.chiave("Esame Finale", corsoLaurea, null);
+        when(entityManager.createNamedQuery(eq(Topic.TROVA_CHIAVE), eq(Topic.class))).thenReturn(typedQuery);
+        when(typedQuery.setParameter(eq("chiave"), eq(chiave))).thenReturn(typedQuery);
+        when(typedQuery.getSingleResult()).thenReturn(topic);
+
+        assertEquals(topic, topicDAO.trovaChiave(chiave));
+        verify(typedQuery).setParameter("chiave", chiave);
+
+        System.out.println("✓ trovaChiave funziona correttamente");
+    }
+
+    @Test
+    public void testCreaTopic() {
+        System.out.println("\n=== Test 25: creaTopic ===");
+
+        Topic nuovo = new Topic();
+        nuovo.setNome("Nuovo");
+
+        assertSame(nuovo, topicDAO.creaTopic(nuovo));
+        verify(entityManager).persist(nuovo);
+        verify(entityManager).flush();
+        verify(entityManager, never()).merge(any());
+
+        System.out.println("✓ Topic salvato con flush immediato");
+    }
 }
@@ -0,0 +1,99 @@
+package it.unisa.uniclass.testing.unit.orari.controller;
+
+import it.unisa.uniclass.orari.controller.AuleLibereServlet;
+import it.unisa.uniclass.orari.model.AulaLibera;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.service.AuleLibereService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.json.JSONArray;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per il controller AuleLibereServlet.
+ * Verifica la lettura dei parametri e la serializzazione delle aule libere.
+ */
+@DisplayName("Test per il controller AuleLibereServlet")
+public class AuleLibereServletTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private AuleLibereService auleLibereService;
+
+    private AuleLibereServlet servlet;
+    private StringWriter responseWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        servlet = new AuleLibereServlet();
+        servlet.setAuleLibereService(auleLibereService);
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+
+        responseWriter = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseWriter));
+    }
+
+    @Test
+    @DisplayName("doGet restituisce le aule libere in JSON")
+    void testDoGetAuleLibere() {
+        when(request.getParameter("giorno")).thenReturn("lunedi");
+        when(request.getParameter("da")).thenReturn("10:00");
+        when(request.getParameter("a")).thenReturn("12:00");
+        when(request.getParameter("ed")).thenReturn("Edificio P");
+        when(auleLibereService.cercaAuleLibere(Giorno.LUNEDI, LocalTime.of(10, 0), LocalTime.of(12, 0), "Edificio P"))
+                .thenReturn(List.of(new AulaLibera("P4", "Edificio P", null), new AulaLibera("P3", "Edificio P", LocalTime.of(14, 0))));
+
+        servlet.doGet(request, response);
+
+        verify(response).setContentType("application/json");
+        JSONArray json = new JSONArray(responseWriter.toString());
+        assertEquals(2, json.length());
+        assertEquals("P4", json.getJSONObject(0).getString("aula"));
+        assertFalse(json.getJSONObject(0).has("liberaFino"));
+        assertEquals("14:00", json.getJSONObject(1).getString("liberaFino"));
+    }
+
+    @Test
+    @DisplayName("doGet risponde 400 se mancano i parametri")
+    void testDoGetParametriMancanti() throws Exception {
+        when(request.getParameter("giorno")).thenReturn("LUNEDI");
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verifyNoInteractions(auleLibereService);
+    }
+
+    @Test
+    @DisplayName("doGet risponde 400 per un giorno o un'ora non validi")
+    void testDoGetParametriNonValidi() throws Exception {
+        when(request.getParameter("giorno")).thenReturn("LUNEDI");
+        when(request.getParameter("da")).thenReturn("10");
+        when(request.getParameter("a")).thenReturn("12:00");
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verifyNoInteractions(auleLibereService);
+    }
+}
@@ -0,0 +1,75 @@
+package it.unisa.uniclass.testing.unit.orari.controller;
+
+import it.unisa.uniclass.orari.controller.CatalogoOrariServlet;
+import it.unisa.uniclass.orari.model.Catalogo;
+import it.unisa.uniclass.orari.service.CatalogoService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per il controller CatalogoOrariServlet.
+ * Verifica l'invio del catalogo con le intestazioni di cache e le risposte 304.
+ */
+@DisplayName("Test per il controller CatalogoOrariServlet")
+public class CatalogoOrariServletTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private ServletOutputStream outputStream;
+
+    @Mock
+    private CatalogoService catalogoService;
+
+    private CatalogoOrariServlet servlet;
+    private Catalogo catalogo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        servlet = new CatalogoOrariServlet();
+        servlet.setCatalogoService(catalogoService);
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+        when(response.getOutputStream()).thenReturn(outputStream);
+
+        catalogo = new Catalogo(1, "[]".getBytes(StandardCharsets.UTF_8), "\"1-abc\"");
+        when(catalogoService.trovaCatalogo()).thenReturn(catalogo);
+    }
+
+    @Test
+    @DisplayName("doGet invia il catalogo con ETag e Cache-Control")
+    void testDoGetCatalogo() throws Exception {
+        servlet.doGet(request, response);
+
+        verify(response).setHeader("ETag", "\"1-abc\"");
+        verify(response).setHeader("Cache-Control", "public, max-age=" + CatalogoOrariServlet.MAX_AGE);
+        verify(response).setContentType("application/json");
+        verify(outputStream).write(catalogo.contenuto());
+    }
+
+    @Test
+    @DisplayName("doGet risponde 304 se il browser ha già il catalogo corrente")
+    void testDoGetNonModificato() throws Exception {
+        when(request.getHeader("If-None-Match")).thenReturn("\"1-abc\"");
+
+        servlet.doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getOutputStream();
+    }
+}
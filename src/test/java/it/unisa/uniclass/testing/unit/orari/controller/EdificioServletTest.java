@@ -2,7 +2,9 @@ package it.unisa.uniclass.testing.unit.orari.controller;
 
 import it.unisa.uniclass.orari.controller.EdificioServlet;
 import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.OccupazioneAula;
 import it.unisa.uniclass.orari.service.AulaService;
+import it.unisa.uniclass.orari.service.OccupazioneService;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -39,6 +42,9 @@ public class EdificioServletTest {
     @Mock
     private RequestDispatcher requestDispatcher;
 
+    @Mock
+    private OccupazioneService occupazioneService;
+
     private TestableServlet servlet;
     private List<Aula> aule;
 
@@ -61,6 +67,7 @@ public class EdificioServletTest {
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
         servlet = new TestableServlet();
+        servlet.setOccupazioneService(occupazioneService);
 
         // Setup delle aule
         aule = new ArrayList<>();
@@ -104,6 +111,29 @@ public class EdificioServletTest {
             }
         }
 
+        @Test
+        @DisplayName("doGet: espone l'occupazione delle aule calcolata dal service")
+        void testDoGetOccupazione() throws ServletException, IOException {
+            when(request.getParameter("ed")).thenReturn("Edificio A");
+            List<OccupazioneAula> occupazione = List.of(
+                    new OccupazioneAula("Aula 101", true, List.of()),
+                    new OccupazioneAula("Aula 102", false, List.of()));
+            when(occupazioneService.trovaOccupazione(eq(aule), any())).thenReturn(occupazione);
+
+            try (MockedConstruction<AulaService> mockedAulaService = mockConstruction(AulaService.class,
+                    (mock, context) -> {
+                        when(mock.trovaAuleEdificio("Edificio A"))
+                                .thenReturn(aule);
+                    })) {
+
+                servlet.callDoGet(request, response);
+
+                verify(occupazioneService, times(1)).trovaOccupazione(eq(aule), any());
+                verify(request).setAttribute("occupazione", occupazione);
+                verify(requestDispatcher).forward(request, response);
+            }
+        }
+
         @Test
         @DisplayName("doGet: gestisce lista vuota di aule")
         void testDoGetAuleVuote() throws ServletException, IOException {
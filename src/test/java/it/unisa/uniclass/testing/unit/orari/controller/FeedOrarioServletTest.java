@@ -0,0 +1,100 @@
+package it.unisa.uniclass.testing.unit.orari.controller;
+
+import it.unisa.uniclass.orari.controller.FeedOrarioServlet;
+import it.unisa.uniclass.orari.model.Feed;
+import it.unisa.uniclass.orari.service.FeedService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per il controller FeedOrarioServlet.
+ * Verifica l'invio dei calendari e le risposte 304 alle richieste condizionali.
+ */
+@DisplayName("Test per il controller FeedOrarioServlet")
+public class FeedOrarioServletTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private ServletOutputStream outputStream;
+
+    @Mock
+    private FeedService feedService;
+
+    private FeedOrarioServlet servlet;
+    private Feed feed;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        servlet = new FeedOrarioServlet();
+        servlet.setFeedService(feedService);
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+        when(response.getOutputStream()).thenReturn(outputStream);
+
+        feed = new Feed(3, "BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n".getBytes(StandardCharsets.UTF_8), "\"3-abc\"");
+        when(request.getParameter("corsoLaurea")).thenReturn("Informatica");
+        when(request.getParameter("resto")).thenReturn("Resto 0");
+        when(request.getParameter("anno")).thenReturn("Anno 1");
+        when(feedService.feedOrario("Informatica", "Resto 0", "Anno 1")).thenReturn(feed);
+    }
+
+    @Test
+    @DisplayName("doGet invia il calendario con il suo ETag")
+    void testDoGetCalendario() throws Exception {
+        servlet.doGet(request, response);
+
+        verify(response).setHeader("ETag", "\"3-abc\"");
+        verify(response).setContentType("text/calendar");
+        verify(outputStream).write(feed.contenuto());
+    }
+
+    @Test
+    @DisplayName("doGet risponde 304 se il client ha già il calendario corrente")
+    void testDoGetNonModificato() throws Exception {
+        when(request.getHeader("If-None-Match")).thenReturn("\"2-def\", \"3-abc\"");
+
+        servlet.doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    @DisplayName("doGet usa il calendario del docente se indicato")
+    void testDoGetDocente() throws Exception {
+        when(request.getParameter("docente")).thenReturn("0512100001");
+
+        servlet.doGet(request, response);
+
+        verify(feedService).feedDocente("0512100001");
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("doGet risponde 400 se mancano i parametri")
+    void testDoGetParametriMancanti() throws Exception {
+        when(request.getParameter("anno")).thenReturn(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verifyNoInteractions(feedService);
+    }
+}
@@ -0,0 +1,127 @@
+package it.unisa.uniclass.testing.unit.orari.controller;
+
+import it.unisa.uniclass.orari.controller.ProssimaLezioneServlet;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.LezioneSettimana;
+import it.unisa.uniclass.orari.model.ProssimaLezione;
+import it.unisa.uniclass.orari.service.ProssimaLezioneService;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.UtenteService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per il controller ProssimaLezioneServlet.
+ * Verifica il controllo dell'utente collegato e la serializzazione delle lezioni.
+ */
+@DisplayName("Test per il controller ProssimaLezioneServlet")
+public class ProssimaLezioneServletTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private HttpSession session;
+
+    @Mock
+    private ProssimaLezioneService prossimaLezioneService;
+
+    @Mock
+    private UtenteService utenteService;
+
+    private ProssimaLezioneServlet servlet;
+    private StringWriter responseWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        servlet = new ProssimaLezioneServlet();
+        servlet.setProssimaLezioneService(prossimaLezioneService);
+        servlet.setUtenteService(utenteService);
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+        when(request.getSession(false)).thenReturn(session);
+
+        responseWriter = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseWriter));
+    }
+
+    @Test
+    @DisplayName("doGet restituisce la prossima lezione dello studente in JSON")
+    void testDoGetProssimaLezione() {
+        Studente studente = new Studente();
+        Principale principale = new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente);
+        when(session.getAttribute("currentSessionUser")).thenReturn(principale);
+        when(utenteService.trovaUtente(principale)).thenReturn(studente);
+        LezioneSettimana prossima = new LezioneSettimana(2L, Giorno.MARTEDI, LocalTime.of(14, 0), LocalTime.of(16, 0),
+                "Programmazione", "P3", "F3");
+        when(prossimaLezioneService.trovaProssimaLezione(eq(studente), any(LocalDateTime.class)))
+                .thenReturn(new ProssimaLezione(null, prossima));
+
+        servlet.doGet(request, response);
+
+        verify(response).setContentType("application/json");
+        JSONObject json = new JSONObject(responseWriter.toString());
+        assertFalse(json.has("inCorso"));
+        assertEquals("P3", json.getJSONObject("prossima").getString("aula"));
+        assertEquals("MARTEDI", json.getJSONObject("prossima").getString("giorno"));
+        assertEquals("14:00", json.getJSONObject("prossima").getString("inizio"));
+    }
+
+    @Test
+    @DisplayName("doGet risponde 401 senza un utente collegato")
+    void testDoGetSenzaUtente() throws Exception {
+        when(request.getSession(false)).thenReturn(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        verifyNoInteractions(prossimaLezioneService);
+    }
+
+    @Test
+    @DisplayName("doGet risponde 403 se l'utente non è uno studente, senza caricarne l'entità")
+    void testDoGetNonStudente() throws Exception {
+        when(session.getAttribute("currentSessionUser"))
+                .thenReturn(new Principale("0512100002", "docente@unisa.it", Tipo.Docente));
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+        verifyNoInteractions(prossimaLezioneService, utenteService);
+    }
+
+    @Test
+    @DisplayName("doGet risponde 403 se lo studente non esiste più")
+    void testDoGetStudenteRimosso() throws Exception {
+        when(session.getAttribute("currentSessionUser"))
+                .thenReturn(new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente));
+        when(utenteService.trovaUtente(any(Principale.class))).thenReturn(null);
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+        verifyNoInteractions(prossimaLezioneService);
+    }
+}
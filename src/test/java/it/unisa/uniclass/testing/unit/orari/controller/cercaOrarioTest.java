@@ -5,12 +5,11 @@ import it.unisa.uniclass.orari.model.AnnoDidattico;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.orari.model.Giorno;
 import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Orario;
 import it.unisa.uniclass.orari.model.Resto;
-import it.unisa.uniclass.orari.service.AnnoDidatticoService;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
-import it.unisa.uniclass.orari.service.LezioneService;
-import it.unisa.uniclass.orari.service.RestoService;
+import it.unisa.uniclass.orari.service.OrarioService;
 import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -19,7 +18,6 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
 import org.mockito.Mock;
-import org.mockito.MockedConstruction;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
@@ -28,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -46,6 +45,9 @@ public class cercaOrarioTest {
     @Mock
     private RequestDispatcher requestDispatcher;
 
+    @Mock
+    private OrarioService orarioService;
+
     private TestableServlet servlet;
     private CorsoLaurea corsoLaurea;
     private Resto resto;
@@ -71,6 +73,7 @@ public class cercaOrarioTest {
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
         servlet = new TestableServlet();
+        servlet.setOrarioService(orarioService);
 
         // Setup dei dati di test
         corsoLaurea = mock(CorsoLaurea.class);
@@ -107,141 +110,40 @@ public class cercaOrarioTest {
     class DoPostFlussoMainTest {
 
         @Test
-        @DisplayName("doPost recupera corsi, resti, anni e lezioni correttamente")
+        @DisplayName("doPost espone corso, resto, anno e lezioni dell'orario")
         void testDoPostFlussoCompleto() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
             when(request.getParameter("resto")).thenReturn("Resto 0");
             when(request.getParameter("anno")).thenReturn("2023-2024");
-
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestoNomeCorso("Resto 0", corsoLaurea))
-                                    .thenReturn(resto);
-                        })) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                            (mock, context) -> {
-                                when(mock.trovaTuttiCorsoLaureaNome(1L, "2023-2024"))
-                                        .thenReturn(annoDidattico);
-                            })) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class,
-                                (mock, context) -> {
-                                    when(mock.trovaLezioniCorsoLaureaRestoAnno(1L, 1L, 1))
-                                            .thenReturn(lezioni);
-                                })) {
-
-                            servlet.callDoPost(request, response);
-
-                            verify(request).getParameter("corsoLaurea");
-                            verify(request).getParameter("resto");
-                            verify(request).getParameter("anno");
-                            verify(request).setAttribute("lezioni", lezioni);
-                            verify(request).setAttribute("corsoLaurea", corsoLaurea);
-                            verify(request).setAttribute("resto", resto);
-                            verify(request).setAttribute("anno", annoDidattico);
-                            verify(request).getRequestDispatcher("/OrarioSingolo.jsp");
-                            verify(requestDispatcher).forward(request, response);
-                        }
-                    }
-                }
-            }
+            when(orarioService.trovaOrario("Ingegneria Informatica", "Resto 0", "2023-2024"))
+                    .thenReturn(new Orario(corsoLaurea, resto, annoDidattico, lezioni));
+
+            servlet.callDoPost(request, response);
+
+            verify(request).getParameter("corsoLaurea");
+            verify(request).getParameter("resto");
+            verify(request).getParameter("anno");
+            verify(request).setAttribute("lezioni", lezioni);
+            verify(request).setAttribute("corsoLaurea", corsoLaurea);
+            verify(request).setAttribute("resto", resto);
+            verify(request).setAttribute("anno", annoDidattico);
+            verify(request).getRequestDispatcher("/OrarioSingolo.jsp");
+            verify(requestDispatcher).forward(request, response);
         }
 
         @Test
-        @DisplayName("doPost ordina correttamente le lezioni per giorno e ora")
-        void testDoPostOrdnaLezioni() throws ServletException, IOException {
+        @DisplayName("doPost non costruisce l'orario: lo chiede una sola volta al service")
+        void testDoPostUnaSolaRichiesta() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
             when(request.getParameter("resto")).thenReturn("Resto 0");
             when(request.getParameter("anno")).thenReturn("2023-2024");
+            when(orarioService.trovaOrario("Ingegneria Informatica", "Resto 0", "2023-2024"))
+                    .thenReturn(new Orario(corsoLaurea, resto, annoDidattico, lezioni));
 
-            List<Lezione> lezioniNonOrdinate = new ArrayList<>();
-            Lezione lez3 = new Lezione(3, Time.valueOf("14:00:00"), Time.valueOf("16:00:00"),
-                    Giorno.MERCOLEDI, null, null, null);
-            Lezione lez1 = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"),
-                    Giorno.LUNEDI, null, null, null);
-            Lezione lez2 = new Lezione(2, Time.valueOf("11:00:00"), Time.valueOf("13:00:00"),
-                    Giorno.LUNEDI, null, null, null);
-            lezioniNonOrdinate.add(lez3);
-            lezioniNonOrdinate.add(lez1);
-            lezioniNonOrdinate.add(lez2);
-
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestoNomeCorso("Resto 0", corsoLaurea))
-                                    .thenReturn(resto);
-                        })) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                            (mock, context) -> {
-                                when(mock.trovaTuttiCorsoLaureaNome(1L, "2023-2024"))
-                                        .thenReturn(annoDidattico);
-                            })) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class,
-                                (mock, context) -> {
-                                    when(mock.trovaLezioniCorsoLaureaRestoAnno(1L, 1L, 1))
-                                            .thenReturn(lezioniNonOrdinate);
-                                })) {
-
-                            servlet.callDoPost(request, response);
-
-                            verify(request).setAttribute(eq("lezioni"), any(List.class));
-                            verify(requestDispatcher).forward(request, response);
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    @Nested
-    @DisplayName("Test del metodo doPost - Parametri")
-    class DoPostParametriTest {
-
-        @Test
-        @DisplayName("doPost con parametri validi")
-        void testDoPostParametriValidi() throws ServletException, IOException {
-            when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
-            when(request.getParameter("resto")).thenReturn("Resto 0");
-            when(request.getParameter("anno")).thenReturn("2023-2024");
+            servlet.callDoPost(request, response);
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestoNomeCorso("Resto 0", corsoLaurea))
-                                    .thenReturn(resto);
-                        })) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                            (mock, context) -> {
-                                when(mock.trovaTuttiCorsoLaureaNome(1L, "2023-2024"))
-                                        .thenReturn(annoDidattico);
-                            })) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class,
-                                (mock, context) -> {
-                                    when(mock.trovaLezioniCorsoLaureaRestoAnno(1L, 1L, 1))
-                                            .thenReturn(lezioni);
-                                })) {
-
-                            servlet.callDoPost(request, response);
-
-                            verify(request, atLeast(1)).getParameter("corsoLaurea");
-                            verify(request, atLeast(1)).getParameter("resto");
-                            verify(request, atLeast(1)).getParameter("anno");
-                        }
-                    }
-                }
-            }
+            verify(orarioService, times(1)).trovaOrario("Ingegneria Informatica", "Resto 0", "2023-2024");
+            verifyNoMoreInteractions(orarioService);
         }
     }
 
@@ -250,28 +152,29 @@ public class cercaOrarioTest {
     class DoPostNullDataTest {
 
         @Test
-        @DisplayName("doPost con corso nullo")
-        void testDoPostCorsoNullo() throws ServletException, IOException {
+        @DisplayName("doPost con orario inesistente risponde 404")
+        void testDoPostOrarioInesistente() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Inesistente");
             when(request.getParameter("resto")).thenReturn("Resto 0");
             when(request.getParameter("anno")).thenReturn("2023-2024");
+            when(orarioService.trovaOrario("Inesistente", "Resto 0", "2023-2024")).thenReturn(null);
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Inesistente"))
-                                .thenReturn(null);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class)) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class)) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class)) {
-
-                            assertThrows(NullPointerException.class, () -> {
-                                servlet.callDoPost(request, response);
-                            });
-                        }
-                    }
-                }
-            }
+            servlet.callDoPost(request, response);
+
+            verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+            verify(requestDispatcher, never()).forward(request, response);
+        }
+
+        @Test
+        @DisplayName("doPost con errore del service risponde 500")
+        void testDoPostErroreService() throws ServletException, IOException {
+            when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
+            when(orarioService.trovaOrario(any(), any(), any())).thenThrow(new RuntimeException("DB non raggiungibile"));
+            when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+
+            servlet.callDoPost(request, response);
+
+            verify(response).sendError(eq(HttpServletResponse.SC_INTERNAL_SERVER_ERROR), anyString());
         }
     }
 
@@ -285,36 +188,13 @@ public class cercaOrarioTest {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
             when(request.getParameter("resto")).thenReturn("Resto 0");
             when(request.getParameter("anno")).thenReturn("2023-2024");
+            when(orarioService.trovaOrario("Ingegneria Informatica", "Resto 0", "2023-2024"))
+                    .thenReturn(new Orario(corsoLaurea, resto, annoDidattico, List.of()));
+
+            servlet.callDoPost(request, response);
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestoNomeCorso("Resto 0", corsoLaurea))
-                                    .thenReturn(resto);
-                        })) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                            (mock, context) -> {
-                                when(mock.trovaTuttiCorsoLaureaNome(1L, "2023-2024"))
-                                        .thenReturn(annoDidattico);
-                            })) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class,
-                                (mock, context) -> {
-                                    when(mock.trovaLezioniCorsoLaureaRestoAnno(1L, 1L, 1))
-                                            .thenReturn(new ArrayList<>());
-                                })) {
-
-                            servlet.callDoPost(request, response);
-
-                            verify(request).setAttribute(eq("lezioni"), any(List.class));
-                            verify(requestDispatcher).forward(request, response);
-                        }
-                    }
-                }
-            }
+            verify(request).setAttribute(eq("lezioni"), any(List.class));
+            verify(requestDispatcher).forward(request, response);
         }
     }
 
@@ -328,121 +208,12 @@ public class cercaOrarioTest {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
             when(request.getParameter("resto")).thenReturn("Resto 0");
             when(request.getParameter("anno")).thenReturn("2023-2024");
+            when(orarioService.trovaOrario("Ingegneria Informatica", "Resto 0", "2023-2024"))
+                    .thenReturn(new Orario(corsoLaurea, resto, annoDidattico, lezioni));
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestoNomeCorso("Resto 0", corsoLaurea))
-                                    .thenReturn(resto);
-                        })) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                            (mock, context) -> {
-                                when(mock.trovaTuttiCorsoLaureaNome(1L, "2023-2024"))
-                                        .thenReturn(annoDidattico);
-                            })) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class,
-                                (mock, context) -> {
-                                    when(mock.trovaLezioniCorsoLaureaRestoAnno(1L, 1L, 1))
-                                            .thenReturn(lezioni);
-                                })) {
-
-                            servlet.callDoGet(request, response);
-
-                            verify(requestDispatcher).forward(request, response);
-                        }
-                    }
-                }
-            }
-        }
-    }
+            servlet.callDoGet(request, response);
 
-    @Nested
-    @DisplayName("Test di Integrazione")
-    class IntegrationTest {
-
-        @Test
-        @DisplayName("Flusso completo: richiesta GET e POST")
-        void testFlussoCompletoGetPost() throws ServletException, IOException {
-            when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
-            when(request.getParameter("resto")).thenReturn("Resto 0");
-            when(request.getParameter("anno")).thenReturn("2023-2024");
-
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestoNomeCorso("Resto 0", corsoLaurea))
-                                    .thenReturn(resto);
-                        })) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                            (mock, context) -> {
-                                when(mock.trovaTuttiCorsoLaureaNome(1L, "2023-2024"))
-                                        .thenReturn(annoDidattico);
-                            })) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class,
-                                (mock, context) -> {
-                                    when(mock.trovaLezioniCorsoLaureaRestoAnno(1L, 1L, 1))
-                                            .thenReturn(lezioni);
-                                })) {
-
-                            servlet.callDoGet(request, response);
-                            servlet.callDoPost(request, response);
-
-                            verify(requestDispatcher, times(2)).forward(request, response);
-                        }
-                    }
-                }
-            }
-        }
-
-        @Test
-        @DisplayName("Flusso con multipli resti e anni")
-        void testFlussoConMultipliRestieAnni() throws ServletException, IOException {
-            List<Lezione> lezioniTest = new ArrayList<>();
-            lezioniTest.add(new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"),
-                    Giorno.LUNEDI, null, null, null));
-
-            when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
-            when(request.getParameter("resto")).thenReturn("Resto 1");
-            when(request.getParameter("anno")).thenReturn("2024-2025");
-
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestoNomeCorso("Resto 1", corsoLaurea))
-                                    .thenReturn(resto);
-                        })) {
-                    try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                            (mock, context) -> {
-                                when(mock.trovaTuttiCorsoLaureaNome(1L, "2024-2025"))
-                                        .thenReturn(annoDidattico);
-                            })) {
-                        try (MockedConstruction<LezioneService> mockedLezioneService = mockConstruction(LezioneService.class,
-                                (mock, context) -> {
-                                    when(mock.trovaLezioniCorsoLaureaRestoAnno(1L, 1L, 1))
-                                            .thenReturn(lezioniTest);
-                                })) {
-
-                            servlet.callDoPost(request, response);
-
-                            verify(request).setAttribute(eq("lezioni"), any(List.class));
-                            verify(requestDispatcher).forward(request, response);
-                        }
-                    }
-                }
-            }
+            verify(requestDispatcher).forward(request, response);
         }
     }
 }
-
@@ -3,9 +3,7 @@ package it.unisa.uniclass.testing.unit.orari.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unisa.uniclass.orari.controller.getAnno;
 import it.unisa.uniclass.orari.model.AnnoDidattico;
-import it.unisa.uniclass.orari.model.CorsoLaurea;
-import it.unisa.uniclass.orari.service.AnnoDidatticoService;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
+import it.unisa.uniclass.orari.service.RiferimentiService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,7 +14,6 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
 import org.mockito.Mock;
-import org.mockito.MockedConstruction;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
@@ -41,8 +38,10 @@ public class getAnnoTest {
     @Mock
     private HttpServletResponse response;
 
+    @Mock
+    private RiferimentiService riferimentiService;
+
     private TestableServlet servlet;
-    private CorsoLaurea corsoLaurea;
     private List<AnnoDidattico> anni;
     private StringWriter stringWriter;
     private PrintWriter printWriter;
@@ -66,11 +65,7 @@ public class getAnnoTest {
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
         servlet = new TestableServlet();
-
-        // Setup del CorsoLaurea
-        corsoLaurea = mock(CorsoLaurea.class);
-        when(corsoLaurea.getId()).thenReturn(1L);
-        when(corsoLaurea.getNome()).thenReturn("Ingegneria Informatica");
+        servlet.setRiferimentiService(riferimentiService);
 
         // Setup degli AnniDidattici
         anni = new ArrayList<>();
@@ -100,30 +95,19 @@ public class getAnnoTest {
         void testDoGetFlussoCompleto() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(anni);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    // Verifica che sia stata restituita una risposta JSON valida
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    assertTrue(output.contains("2023-2024"));
-                    assertTrue(output.contains("2024-2025"));
-
-                    // Verifica il type di contenuto
-                    verify(response).setContentType("application/json");
-                    verify(response).setCharacterEncoding("UTF-8");
-                }
-            }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(anni);
+
+            servlet.callDoGet(request, response);
+
+            // Verifica che sia stata restituita una risposta JSON valida
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            assertTrue(output.contains("2023-2024"));
+            assertTrue(output.contains("2024-2025"));
+
+            // Verifica il type di contenuto
+            verify(response).setContentType("application/json");
+            verify(response).setCharacterEncoding("UTF-8");
         }
 
         @Test
@@ -131,25 +115,14 @@ public class getAnnoTest {
         void testDoGetAnniVuoti() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(new ArrayList<>());
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    // Deve contenere un array JSON vuoto
-                    assertTrue(output.contains("[]"));
-                }
-            }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(new ArrayList<>());
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            // Deve contenere un array JSON vuoto
+            assertTrue(output.contains("[]"));
         }
 
         @Test
@@ -165,26 +138,15 @@ public class getAnnoTest {
 
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(moltiAnni);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    // Verifica che contiene tutti gli anni
-                    for (AnnoDidattico anno : moltiAnni) {
-                        assertTrue(output.contains(anno.getAnno()));
-                    }
-                }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(moltiAnni);
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            // Verifica che contiene tutti gli anni
+            for (AnnoDidattico anno : moltiAnni) {
+                assertTrue(output.contains(anno.getAnno()));
             }
         }
     }
@@ -198,36 +160,25 @@ public class getAnnoTest {
         void testDoGetJsonStructure() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(anni);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString().trim();
-
-                    // Verifica che il JSON sia un array valido
-                    assertTrue(output.startsWith("["));
-                    assertTrue(output.endsWith("]"));
-
-                    // Parsa il JSON per verificare la struttura
-                    JSONArray jsonArray = new JSONArray(output);
-                    assertEquals(2, jsonArray.length());
-
-                    // Verifica la struttura di ogni elemento
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        JSONObject obj = jsonArray.getJSONObject(i);
-                        assertTrue(obj.has("id"));
-                        assertTrue(obj.has("nome"));
-                    }
-                }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(anni);
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString().trim();
+
+            // Verifica che il JSON sia un array valido
+            assertTrue(output.startsWith("["));
+            assertTrue(output.endsWith("]"));
+
+            // Parsa il JSON per verificare la struttura
+            JSONArray jsonArray = new JSONArray(output);
+            assertEquals(2, jsonArray.length());
+
+            // Verifica la struttura di ogni elemento
+            for (int i = 0; i < jsonArray.length(); i++) {
+                JSONObject obj = jsonArray.getJSONObject(i);
+                assertTrue(obj.has("id"));
+                assertTrue(obj.has("nome"));
             }
         }
 
@@ -236,31 +187,20 @@ public class getAnnoTest {
         void testDoGetJsonCorrectFields() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(anni);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString().trim();
-                    JSONArray jsonArray = new JSONArray(output);
-
-                    JSONObject firstAnno = jsonArray.getJSONObject(0);
-                    assertEquals(1, firstAnno.getInt("id"));
-                    assertEquals("2023-2024", firstAnno.getString("nome"));
-
-                    JSONObject secondAnno = jsonArray.getJSONObject(1);
-                    assertEquals(2, secondAnno.getInt("id"));
-                    assertEquals("2024-2025", secondAnno.getString("nome"));
-                }
-            }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(anni);
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString().trim();
+            JSONArray jsonArray = new JSONArray(output);
+
+            JSONObject firstAnno = jsonArray.getJSONObject(0);
+            assertEquals(1, firstAnno.getInt("id"));
+            assertEquals("2023-2024", firstAnno.getString("nome"));
+
+            JSONObject secondAnno = jsonArray.getJSONObject(1);
+            assertEquals(2, secondAnno.getInt("id"));
+            assertEquals("2024-2025", secondAnno.getString("nome"));
         }
     }
 
@@ -273,26 +213,15 @@ public class getAnnoTest {
         void testDoPostDelegaADoGet() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(anni);
-                        })) {
-
-                    servlet.callDoPost(request, response);
-
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    assertTrue(output.contains("2023-2024"));
-
-                    verify(response).setContentType("application/json");
-                }
-            }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(anni);
+
+            servlet.callDoPost(request, response);
+
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            assertTrue(output.contains("2023-2024"));
+
+            verify(response).setContentType("application/json");
         }
 
         @Test
@@ -300,23 +229,12 @@ public class getAnnoTest {
         void testDoPostSameBehaviorAsDoGet() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(anni);
-                        })) {
-
-                    servlet.callDoPost(request, response);
-
-                    verify(response).setContentType("application/json");
-                    verify(response).setCharacterEncoding("UTF-8");
-                }
-            }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(anni);
+
+            servlet.callDoPost(request, response);
+
+            verify(response).setContentType("application/json");
+            verify(response).setCharacterEncoding("UTF-8");
         }
     }
 
@@ -329,43 +247,27 @@ public class getAnnoTest {
         void testIntegrazioneGetPost() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(1L))
-                                    .thenReturn(anni);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-                    String getOutput = stringWriter.toString();
-
-                    // Reset writer per POST
-                    stringWriter = new StringWriter();
-                    printWriter = new PrintWriter(stringWriter);
-                    when(response.getWriter()).thenReturn(printWriter);
-
-                    servlet.callDoPost(request, response);
-                    String postOutput = stringWriter.toString();
-
-                    // Entrambi dovrebbero avere la stessa struttura
-                    assertTrue(getOutput.contains("["));
-                    assertTrue(postOutput.contains("["));
-                }
-            }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Informatica")).thenReturn(anni);
+
+            servlet.callDoGet(request, response);
+            String getOutput = stringWriter.toString();
+
+            // Reset writer per POST
+            stringWriter = new StringWriter();
+            printWriter = new PrintWriter(stringWriter);
+            when(response.getWriter()).thenReturn(printWriter);
+
+            servlet.callDoPost(request, response);
+            String postOutput = stringWriter.toString();
+
+            // Entrambi dovrebbero avere la stessa struttura
+            assertTrue(getOutput.contains("["));
+            assertTrue(postOutput.contains("["));
         }
 
         @Test
         @DisplayName("Integrazione: più richieste con corsi diversi")
         void testIntegrazionePiuCorsi() throws ServletException, IOException {
-            // Setup secondo corso
-            CorsoLaurea corsoLaurea2 = mock(CorsoLaurea.class);
-            when(corsoLaurea2.getId()).thenReturn(2L);
-            when(corsoLaurea2.getNome()).thenReturn("Ingegneria Gestionale");
-
             List<AnnoDidattico> anniCorso2 = new ArrayList<>();
             AnnoDidattico anno2023 = mock(AnnoDidattico.class);
             when(anno2023.getId()).thenReturn(3);
@@ -374,24 +276,13 @@ public class getAnnoTest {
 
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Gestionale");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Gestionale"))
-                                .thenReturn(corsoLaurea2);
-                    })) {
-                try (MockedConstruction<AnnoDidatticoService> mockedAnnoService = mockConstruction(AnnoDidatticoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaTuttiCorsoLaurea(2L))
-                                    .thenReturn(anniCorso2);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString();
-                    assertTrue(output.contains("2023-2024"));
-                    verify(response, atLeastOnce()).setContentType("application/json");
-                }
-            }
+            when(riferimentiService.trovaAnniCorsoLaurea("Ingegneria Gestionale")).thenReturn(anniCorso2);
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString();
+            assertTrue(output.contains("2023-2024"));
+            verify(response, atLeastOnce()).setContentType("application/json");
         }
     }
 }
@@ -1,10 +1,8 @@
 package it.unisa.uniclass.testing.unit.orari.controller;
 
 import it.unisa.uniclass.orari.controller.getResto;
-import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.orari.model.Resto;
-import it.unisa.uniclass.orari.service.CorsoLaureaService;
-import it.unisa.uniclass.orari.service.RestoService;
+import it.unisa.uniclass.orari.service.RiferimentiService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -15,7 +13,6 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
 import org.mockito.Mock;
-import org.mockito.MockedConstruction;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
@@ -40,8 +37,10 @@ public class getRestoTest {
     @Mock
     private HttpServletResponse response;
 
+    @Mock
+    private RiferimentiService riferimentiService;
+
     private TestableServlet servlet;
-    private CorsoLaurea corsoLaurea;
     private List<Resto> resti;
     private StringWriter stringWriter;
     private PrintWriter printWriter;
@@ -65,11 +64,7 @@ public class getRestoTest {
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
         servlet = new TestableServlet();
-
-        // Setup del CorsoLaurea
-        corsoLaurea = mock(CorsoLaurea.class);
-        when(corsoLaurea.getId()).thenReturn(1L);
-        when(corsoLaurea.getNome()).thenReturn("Ingegneria Informatica");
+        servlet.setRiferimentiService(riferimentiService);
 
         // Setup dei Resti
         resti = new ArrayList<>();
@@ -99,30 +94,19 @@ public class getRestoTest {
         void testDoGetFlussoCompleto() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(resti);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    // Verifica che sia stata restituita una risposta JSON valida
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    assertTrue(output.contains("Resto 0"));
-                    assertTrue(output.contains("Resto 1"));
-
-                    // Verifica il type di contenuto
-                    verify(response).setContentType("application/json");
-                    verify(response).setCharacterEncoding("UTF-8");
-                }
-            }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(resti);
+
+            servlet.callDoGet(request, response);
+
+            // Verifica che sia stata restituita una risposta JSON valida
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            assertTrue(output.contains("Resto 0"));
+            assertTrue(output.contains("Resto 1"));
+
+            // Verifica il type di contenuto
+            verify(response).setContentType("application/json");
+            verify(response).setCharacterEncoding("UTF-8");
         }
 
         @Test
@@ -130,25 +114,14 @@ public class getRestoTest {
         void testDoGetRestiVuoti() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(new ArrayList<>());
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    // Deve contenere un array JSON vuoto
-                    assertTrue(output.contains("[]"));
-                }
-            }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(new ArrayList<>());
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            // Deve contenere un array JSON vuoto
+            assertTrue(output.contains("[]"));
         }
 
         @Test
@@ -164,26 +137,15 @@ public class getRestoTest {
 
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(moltiResti);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    // Verifica che contiene tutti i resti
-                    for (Resto resto : moltiResti) {
-                        assertTrue(output.contains(resto.getNome()));
-                    }
-                }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(moltiResti);
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            // Verifica che contiene tutti i resti
+            for (Resto resto : moltiResti) {
+                assertTrue(output.contains(resto.getNome()));
             }
         }
     }
@@ -197,36 +159,25 @@ public class getRestoTest {
         void testDoGetJsonStructure() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(resti);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString().trim();
-
-                    // Verifica che il JSON sia un array valido (tollerant alle newline)
-                    assertTrue(output.contains("["));
-                    assertTrue(output.contains("]"));
-
-                    // Parsa il JSON per verificare la struttura
-                    JSONArray jsonArray = new JSONArray(output);
-                    assertEquals(2, jsonArray.length());
-
-                    // Verifica la struttura di ogni elemento
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        JSONObject obj = jsonArray.getJSONObject(i);
-                        assertTrue(obj.has("id"));
-                        assertTrue(obj.has("nome"));
-                    }
-                }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(resti);
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString().trim();
+
+            // Verifica che il JSON sia un array valido (tollerant alle newline)
+            assertTrue(output.contains("["));
+            assertTrue(output.contains("]"));
+
+            // Parsa il JSON per verificare la struttura
+            JSONArray jsonArray = new JSONArray(output);
+            assertEquals(2, jsonArray.length());
+
+            // Verifica la struttura di ogni elemento
+            for (int i = 0; i < jsonArray.length(); i++) {
+                JSONObject obj = jsonArray.getJSONObject(i);
+                assertTrue(obj.has("id"));
+                assertTrue(obj.has("nome"));
             }
         }
 
@@ -235,29 +186,18 @@ public class getRestoTest {
         void testDoGetJsonCorrectFields() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(resti);
-                        })) {
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(resti);
 
-                    servlet.callDoGet(request, response);
+            servlet.callDoGet(request, response);
 
-                    String output = stringWriter.toString().trim();
-                    JSONArray jsonArray = new JSONArray(output);
+            String output = stringWriter.toString().trim();
+            JSONArray jsonArray = new JSONArray(output);
 
-                    JSONObject firstResto = jsonArray.getJSONObject(0);
-                    assertEquals("Resto 0", firstResto.getString("nome"));
+            JSONObject firstResto = jsonArray.getJSONObject(0);
+            assertEquals("Resto 0", firstResto.getString("nome"));
 
-                    JSONObject secondResto = jsonArray.getJSONObject(1);
-                    assertEquals("Resto 1", secondResto.getString("nome"));
-                }
-            }
+            JSONObject secondResto = jsonArray.getJSONObject(1);
+            assertEquals("Resto 1", secondResto.getString("nome"));
         }
     }
 
@@ -270,26 +210,15 @@ public class getRestoTest {
         void testDoPostDelegaADoGet() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(resti);
-                        })) {
-
-                    servlet.callDoPost(request, response);
-
-                    String output = stringWriter.toString();
-                    assertNotNull(output);
-                    assertTrue(output.contains("Resto 0"));
-
-                    verify(response).setContentType("application/json");
-                }
-            }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(resti);
+
+            servlet.callDoPost(request, response);
+
+            String output = stringWriter.toString();
+            assertNotNull(output);
+            assertTrue(output.contains("Resto 0"));
+
+            verify(response).setContentType("application/json");
         }
 
         @Test
@@ -297,23 +226,12 @@ public class getRestoTest {
         void testDoPostSameBehaviorAsDoGet() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(resti);
-                        })) {
-
-                    servlet.callDoPost(request, response);
-
-                    verify(response).setContentType("application/json");
-                    verify(response).setCharacterEncoding("UTF-8");
-                }
-            }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(resti);
+
+            servlet.callDoPost(request, response);
+
+            verify(response).setContentType("application/json");
+            verify(response).setCharacterEncoding("UTF-8");
         }
     }
 
@@ -326,43 +244,27 @@ public class getRestoTest {
         void testIntegrazioneGetPost() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(resti);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-                    String getOutput = stringWriter.toString();
-
-                    // Reset writer per POST
-                    stringWriter = new StringWriter();
-                    printWriter = new PrintWriter(stringWriter);
-                    when(response.getWriter()).thenReturn(printWriter);
-
-                    servlet.callDoPost(request, response);
-                    String postOutput = stringWriter.toString();
-
-                    // Entrambi dovrebbero avere la stessa struttura
-                    assertTrue(getOutput.contains("["));
-                    assertTrue(postOutput.contains("["));
-                }
-            }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(resti);
+
+            servlet.callDoGet(request, response);
+            String getOutput = stringWriter.toString();
+
+            // Reset writer per POST
+            stringWriter = new StringWriter();
+            printWriter = new PrintWriter(stringWriter);
+            when(response.getWriter()).thenReturn(printWriter);
+
+            servlet.callDoPost(request, response);
+            String postOutput = stringWriter.toString();
+
+            // Entrambi dovrebbero avere la stessa struttura
+            assertTrue(getOutput.contains("["));
+            assertTrue(postOutput.contains("["));
         }
 
         @Test
         @DisplayName("Integrazione: più richieste con corsi diversi")
         void testIntegrazionePiuCorsi() throws ServletException, IOException {
-            // Setup secondo corso
-            CorsoLaurea corsoLaurea2 = mock(CorsoLaurea.class);
-            when(corsoLaurea2.getId()).thenReturn(2L);
-            when(corsoLaurea2.getNome()).thenReturn("Ingegneria Gestionale");
-
             List<Resto> restiCorso2 = new ArrayList<>();
             Resto resto2023 = mock(Resto.class);
             when(resto2023.getId()).thenReturn(10L);
@@ -371,24 +273,13 @@ public class getRestoTest {
 
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Gestionale");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Gestionale"))
-                                .thenReturn(corsoLaurea2);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea2))
-                                    .thenReturn(restiCorso2);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-
-                    String output = stringWriter.toString();
-                    assertTrue(output.contains("Resto A"));
-                    verify(response, atLeastOnce()).setContentType("application/json");
-                }
-            }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Gestionale")).thenReturn(restiCorso2);
+
+            servlet.callDoGet(request, response);
+
+            String output = stringWriter.toString();
+            assertTrue(output.contains("Resto A"));
+            verify(response, atLeastOnce()).setContentType("application/json");
         }
 
         @Test
@@ -396,24 +287,13 @@ public class getRestoTest {
         void testIntegrazioneFlussoCompleto() throws ServletException, IOException {
             when(request.getParameter("corsoLaurea")).thenReturn("Ingegneria Informatica");
 
-            try (MockedConstruction<CorsoLaureaService> mockedCorsoLaureaService = mockConstruction(CorsoLaureaService.class,
-                    (mock, context) -> {
-                        when(mock.trovaCorsoLaurea("Ingegneria Informatica"))
-                                .thenReturn(corsoLaurea);
-                    })) {
-                try (MockedConstruction<RestoService> mockedRestoService = mockConstruction(RestoService.class,
-                        (mock, context) -> {
-                            when(mock.trovaRestiCorsoLaurea(corsoLaurea))
-                                    .thenReturn(resti);
-                        })) {
-
-                    servlet.callDoGet(request, response);
-                    servlet.callDoPost(request, response);
-
-                    verify(response, times(2)).setContentType("application/json");
-                    verify(response, times(2)).setCharacterEncoding("UTF-8");
-                }
-            }
+            when(riferimentiService.trovaRestiCorsoLaurea("Ingegneria Informatica")).thenReturn(resti);
+
+            servlet.callDoGet(request, response);
+            servlet.callDoPost(request, response);
+
+            verify(response, times(2)).setContentType("application/json");
+            verify(response, times(2)).setCharacterEncoding("UTF-8");
         }
     }
 }
@@ -0,0 +1,131 @@
+package it.unisa.uniclass.testing.unit.orari.model;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
+import jakarta.persistence.OneToOne;
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per i piani di caricamento, senza database.
+ * Conta le istruzioni SQL che ogni piano richiede leggendo le annotazioni delle entità:
+ * una query per le entità, una per ogni collezione del grafo, letta in lotti, e una per ogni relazione
+ * a un'entità caricata subito. Gli stessi numeri sono verificati su PostgreSQL da
+ * {@code testing.integration.PianiCaricamentoTest}.
+ */
+@DisplayName("Test per i piani di caricamento")
+public class PianoCaricamentoTest {
+
+    private static final List<Class<?>> ENTITA = List.of(CorsoLaurea.class, Resto.class, AnnoDidattico.class, Aula.class);
+
+    /**
+     * Istruzioni attese per entità, nell'ordine RIFERIMENTO, ORARIO, EDIFICIO, MODIFICA.
+     */
+    private static final Map<Class<?>, int[]> ISTRUZIONI = Map.of(
+            CorsoLaurea.class, new int[] {1, 3, 1, 4},
+            Resto.class, new int[] {2, 2, 2, 3},
+            AnnoDidattico.class, new int[] {1, 2, 1, 3},
+            Aula.class, new int[] {1, 1, 1, 2});
+
+    private static NamedEntityGraph grafo(Class<?> entita, String nome) {
+        for (NamedEntityGraph grafo : entita.getAnnotation(NamedEntityGraphs.class).value()) {
+            if (grafo.name().equals(nome)) {
+                return grafo;
+            }
+        }
+        return null;
+    }
+
+    private static int istruzioni(Class<?> entita, PianoCaricamento piano) throws NoSuchFieldException {
+        NamedEntityGraph grafo = grafo(entita, piano.grafo(entita));
+        Set<String> nodi = new HashSet<>();
+        int istruzioni = 1;
+        for (NamedAttributeNode nodo : grafo.attributeNodes()) {
+            Field campo = entita.getDeclaredField(nodo.value());
+            nodi.add(nodo.value());
+            if (Collection.class.isAssignableFrom(campo.getType())) {
+                BatchFetch lotti = campo.getAnnotation(BatchFetch.class);
+                assertNotNull(lotti, grafo.name() + ": " + nodo.value() + " non è letta in lotti");
+                assertEquals(BatchFetchType.IN, lotti.value());
+            }
+            istruzioni++;
+        }
+        for (Field campo : entita.getDeclaredFields()) {
+            ManyToOne molti = campo.getAnnotation(ManyToOne.class);
+            OneToOne uno = campo.getAnnotation(OneToOne.class);
+            boolean subito = (molti != null && molti.fetch() == FetchType.EAGER) || (uno != null && uno.fetch() == FetchType.EAGER);
+            if (subito && !nodi.contains(campo.getName())) {
+                istruzioni++;
+            }
+        }
+        return istruzioni;
+    }
+
+    @Test
+    @DisplayName("Ogni piano corrisponde a un grafo dichiarato sull'entità")
+    void testGrafiDichiarati() {
+        for (Class<?> entita : ENTITA) {
+            for (PianoCaricamento piano : PianoCaricamento.values()) {
+                assertNotNull(grafo(entita, piano.grafo(entita)), piano + " su " + entita.getSimpleName());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("I piani senza relazioni proprie usano il grafo riferimento")
+    void testGrafoCondiviso() {
+        assertEquals("Aula.riferimento", PianoCaricamento.ORARIO.grafo(Aula.class));
+        assertEquals("Aula.riferimento", PianoCaricamento.EDIFICIO.grafo(Aula.class));
+        assertEquals("AnnoDidattico.riferimento", PianoCaricamento.EDIFICIO.grafo(AnnoDidattico.class));
+        assertEquals("AnnoDidattico.orario", PianoCaricamento.ORARIO.grafo(AnnoDidattico.class));
+        assertEquals("Resto.modifica", PianoCaricamento.MODIFICA.grafo(Resto.class));
+    }
+
+    @Test
+    @DisplayName("Nessuna entità dichiara due grafi con gli stessi nodi")
+    void testNessunGrafoDuplicato() {
+        for (Class<?> entita : ENTITA) {
+            List<Set<String>> visti = new ArrayList<>();
+            for (NamedEntityGraph grafo : entita.getAnnotation(NamedEntityGraphs.class).value()) {
+                Set<String> nodi = new HashSet<>();
+                for (NamedAttributeNode nodo : grafo.attributeNodes()) {
+                    nodi.add(nodo.value());
+                }
+                assertFalse(visti.contains(nodi), grafo.name() + " duplica un altro grafo");
+                visti.add(nodi);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Ogni piano richiede le istruzioni attese")
+    void testIstruzioniPerPiano() throws NoSuchFieldException {
+        for (Class<?> entita : ENTITA) {
+            PianoCaricamento[] piani = PianoCaricamento.values();
+            for (int i = 0; i < piani.length; i++) {
+                assertEquals(ISTRUZIONI.get(entita)[i], istruzioni(entita, piani[i]),
+                        piani[i] + " su " + entita.getSimpleName());
+            }
+        }
+    }
+}
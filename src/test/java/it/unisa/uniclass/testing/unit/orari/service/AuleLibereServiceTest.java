@@ -0,0 +1,76 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.AulaLibera;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.service.AulaService;
+import it.unisa.uniclass.orari.service.AuleLibereService;
+import it.unisa.uniclass.orari.service.IndiceAuleLibere;
+import it.unisa.uniclass.orari.service.LezioneService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe AuleLibereService.
+ * Verifica il caricamento dell'indice delle aule libere alla prima ricerca.
+ */
+@DisplayName("Test per la classe AuleLibereService")
+public class AuleLibereServiceTest {
+
+    @Mock
+    private AulaService aulaService;
+
+    @Mock
+    private LezioneService lezioneService;
+
+    private IndiceAuleLibere indice;
+    private AuleLibereService auleLibereService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        indice = new IndiceAuleLibere();
+        auleLibereService = new AuleLibereService(aulaService, lezioneService);
+        auleLibereService.setIndice(indice);
+
+        Aula p3 = new Aula();
+        p3.setNome("P3");
+        Aula p4 = new Aula();
+        p4.setNome("P4");
+        Lezione lezione = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.LUNEDI, null, null, p3);
+        when(aulaService.trovaTutte()).thenReturn(List.of(p3, p4));
+        when(lezioneService.trovaTutte()).thenReturn(List.of(lezione));
+    }
+
+    @Test
+    @DisplayName("cercaAuleLibere carica l'indice una sola volta")
+    void testCercaAuleLibere() {
+        List<AulaLibera> libere = auleLibereService.cercaAuleLibere(Giorno.LUNEDI, LocalTime.of(10, 0), LocalTime.of(11, 0), null);
+        auleLibereService.cercaAuleLibere(Giorno.LUNEDI, LocalTime.of(12, 0), LocalTime.of(13, 0), null);
+
+        assertEquals(1, libere.size());
+        assertEquals("P4", libere.get(0).aula());
+        assertTrue(indice.isCaricato());
+        verify(aulaService, times(1)).trovaTutte();
+        verify(lezioneService, times(1)).trovaTutte();
+    }
+
+    @Test
+    @DisplayName("cercaAuleLibere rifiuta una fascia che finisce prima di iniziare")
+    void testCercaAuleLibereFasciaNonValida() {
+        assertThrows(IllegalArgumentException.class,
+                () -> auleLibereService.cercaAuleLibere(Giorno.LUNEDI, LocalTime.of(11, 0), LocalTime.of(10, 0), null));
+        verifyNoInteractions(aulaService, lezioneService);
+    }
+}
@@ -0,0 +1,142 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Orario;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.CacheOrari;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.Time;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe CacheOrari.
+ * Verifica la memorizzazione, l'invalidazione mirata e le metriche della cache degli orari.
+ */
+@DisplayName("Test per la classe CacheOrari")
+public class CacheOrariTest {
+
+    private CacheOrari cache;
+    private CorsoLaurea informatica;
+    private Resto resto0;
+    private Resto resto1;
+    private AnnoDidattico anno1;
+    private Orario orarioResto0;
+    private Orario orarioResto1;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new CacheOrari();
+
+        informatica = conId(new CorsoLaurea("Informatica"), 1L);
+        resto0 = new Resto();
+        resto0.setNome("Resto 0");
+        conId(resto0, 10L);
+        resto1 = new Resto();
+        resto1.setNome("Resto 1");
+        conId(resto1, 11L);
+        anno1 = conId(new AnnoDidattico("Anno 1"), 100);
+
+        orarioResto0 = new Orario(informatica, resto0, anno1, List.of());
+        orarioResto1 = new Orario(informatica, resto1, anno1, List.of());
+        cache.carica("Informatica", "Resto 0", "Anno 1", orarioResto0, cache.versione(), 1_000);
+        cache.carica("Informatica", "Resto 1", "Anno 1", orarioResto1, cache.versione(), 3_000);
+    }
+
+    private static <T> T conId(T entita, Object id) throws Exception {
+        Field idField = entita.getClass().getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(entita, id);
+        return entita;
+    }
+
+    @Nested
+    @DisplayName("Test di lettura e caricamento")
+    class LetturaTest {
+
+        @Test
+        @DisplayName("trova restituisce l'orario caricato per gli stessi nomi")
+        void testTrovaOrarioCaricato() {
+            assertSame(orarioResto0, cache.trova("Informatica", "Resto 0", "Anno 1"));
+            assertNull(cache.trova("Informatica", "Resto 2", "Anno 1"));
+            assertEquals(2, cache.getOrari());
+        }
+
+        @Test
+        @DisplayName("carica ignora un orario costruito durante un'invalidazione")
+        void testCaricaVersioneSuperata() {
+            long versione = cache.versione();
+            cache.invalida(null, 99L, null);
+
+            cache.carica("Informatica", "Resto 2", "Anno 1", orarioResto0, versione, 1_000);
+
+            assertNull(cache.trova("Informatica", "Resto 2", "Anno 1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test di invalidazione")
+    class InvalidazioneTest {
+
+        @Test
+        @DisplayName("invalida di una lezione scarta solo l'orario che la contiene")
+        void testInvalidaLezione() {
+            Corso corso = new Corso("Programmazione");
+            corso.setCorsoLaurea(informatica);
+            corso.setAnnoDidattico(anno1);
+            Lezione lezione = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"),
+                    Giorno.LUNEDI, resto0, corso, null);
+
+            cache.invalida(lezione);
+
+            assertNull(cache.trova("Informatica", "Resto 0", "Anno 1"));
+            assertSame(orarioResto1, cache.trova("Informatica", "Resto 1", "Anno 1"));
+        }
+
+        @Test
+        @DisplayName("invalida con parametri null scarta tutti gli orari compatibili")
+        void testInvalidaCorsoLaurea() {
+            cache.invalida(1L, null, null);
+
+            assertEquals(0, cache.getOrari());
+        }
+
+        @Test
+        @DisplayName("invalida di un altro anno non tocca gli orari")
+        void testInvalidaAltroAnno() {
+            cache.invalida(null, null, 200);
+
+            assertEquals(2, cache.getOrari());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test delle metriche")
+    class MetricheTest {
+
+        @Test
+        @DisplayName("hit rate e tempo medio di ricostruzione")
+        void testMetriche() {
+            cache.trova("Informatica", "Resto 0", "Anno 1");
+            cache.trova("Informatica", "Resto 0", "Anno 1");
+            cache.trova("Informatica", "Resto 0", "Anno 1");
+            cache.trova("Fisica", "Resto 0", "Anno 1");
+
+            assertEquals(3, cache.getHit());
+            assertEquals(1, cache.getMiss());
+            assertEquals(0.75, cache.getHitRate(), 1e-9);
+            assertEquals(2, cache.getRicostruzioni());
+            assertEquals(2_000, cache.getTempoMedioRicostruzione());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.CacheRiferimenti;
+import it.unisa.uniclass.orari.service.CacheRiferimenti.Istantanea;
+import it.unisa.uniclass.orari.service.CacheRiferimenti.Tabella;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe CacheRiferimenti.
+ * Verifica gli indici delle istantanee e la loro sostituzione dopo le scritture.
+ */
+@DisplayName("Test per la classe CacheRiferimenti")
+public class CacheRiferimentiTest {
+
+    private CacheRiferimenti cache;
+    private Aula p3;
+    private Aula p4;
+    private Aula f1;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CacheRiferimenti();
+        p3 = new Aula(1, "F3", "P3");
+        p4 = new Aula(2, "F3", "P4");
+        f1 = new Aula(3, "F", "F1");
+        Tabella<Aula> aule = cache.getAule();
+        aule.carica(List.of(p3, p4, f1), aule.versione());
+    }
+
+    private static Resto resto(Long id, String nome, CorsoLaurea corsoLaurea) throws Exception {
+        Resto resto = new Resto(nome, corsoLaurea);
+        Field idField = Resto.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(resto, id);
+        return resto;
+    }
+
+    @Nested
+    @DisplayName("Test delle letture")
+    class LettureTest {
+
+        @Test
+        @DisplayName("l'istantanea indicizza per ID, nome e gruppo")
+        void testIndici() {
+            Istantanea<Aula> aule = cache.getAule().trova();
+
+            assertSame(p4, aule.trova(2));
+            assertSame(f1, aule.trova("F1"));
+            assertEquals(List.of(p3, p4), aule.gruppo("F3"));
+            assertEquals(List.of("F", "F3"), List.copyOf(aule.perGruppo().keySet()));
+            assertTrue(aule.gruppo("Z").isEmpty());
+            assertNull(aule.trova("Z"));
+        }
+
+        @Test
+        @DisplayName("i resti sono indicizzati per corso di laurea e nome")
+        void testResti() throws Exception {
+            CorsoLaurea informatica = new CorsoLaurea("Informatica");
+            CorsoLaurea matematica = new CorsoLaurea("Matematica");
+            Resto resto0 = resto(1L, "Resto 0", informatica);
+            Resto resto0Matematica = resto(2L, "Resto 0", matematica);
+            Tabella<Resto> resti = cache.getResti();
+            resti.carica(List.of(resto0, resto0Matematica), resti.versione());
+
+            assertSame(resto0Matematica, resti.trova().trova(CacheRiferimenti.chiaveResto("Matematica", "Resto 0")));
+            assertEquals(List.of(resto0), resti.trova().gruppo("Informatica"));
+        }
+
+        @Test
+        @DisplayName("trova conta hit e miss")
+        void testMetriche() {
+            cache.getAule().trova();
+            cache.getCorsiLaurea().trova();
+
+            assertEquals(1, cache.getAule().getHit());
+            assertEquals(1, cache.getCorsiLaurea().getMiss());
+            assertEquals(1.0, cache.getAule().getHitRate());
+        }
+
+        @Test
+        @DisplayName("un caricamento iniziato prima di una scrittura non viene pubblicato")
+        void testCaricaVersioneScaduta() {
+            Tabella<CorsoLaurea> corsi = cache.getCorsiLaurea();
+            long versione = corsi.versione();
+            corsi.aggiorna(new CorsoLaurea("Informatica"));
+
+            Istantanea<CorsoLaurea> costruita = corsi.carica(List.of(new CorsoLaurea("Matematica")), versione);
+
+            assertNotNull(costruita.trova("Matematica"));
+            assertNull(corsi.trova());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test delle scritture")
+    class ScrittureTest {
+
+        @Test
+        @DisplayName("aggiorna sostituisce l'elemento senza toccare l'istantanea già letta")
+        void testAggiorna() {
+            Istantanea<Aula> prima = cache.getAule().trova();
+            Aula spostata = new Aula(2, "F", "P4");
+
+            cache.getAule().aggiorna(spostata);
+
+            Istantanea<Aula> dopo = cache.getAule().trova();
+            assertSame(spostata, dopo.trova(2));
+            assertEquals(List.of(f1, spostata), dopo.gruppo("F"));
+            assertEquals(List.of(p3), dopo.gruppo("F3"));
+            assertSame(p4, prima.trova(2));
+        }
+
+        @Test
+        @DisplayName("aggiorna aggiunge un elemento con un ID nuovo")
+        void testAggiornaNuovo() {
+            Aula p5 = new Aula(4, "F3", "P5");
+
+            cache.getAule().aggiorna(p5);
+
+            assertEquals(List.of(p3, p4, p5), cache.getAule().trova().gruppo("F3"));
+        }
+
+        @Test
+        @DisplayName("aggiorna un elemento senza ID scarta la tabella")
+        void testAggiornaSenzaId() {
+            cache.getAule().aggiorna(new Aula(0, "F3", "P5"));
+
+            assertNull(cache.getAule().trova());
+        }
+
+        @Test
+        @DisplayName("rimuovi toglie l'elemento e il gruppo rimasto vuoto")
+        void testRimuovi() {
+            cache.getAule().rimuovi(f1);
+
+            Istantanea<Aula> aule = cache.getAule().trova();
+            assertNull(aule.trova("F1"));
+            assertFalse(aule.perGruppo().containsKey("F"));
+        }
+
+        @Test
+        @DisplayName("svuota scarta tutte le tabelle")
+        void testSvuota() {
+            cache.svuota();
+
+            assertNull(cache.getAule().trova());
+            assertNull(cache.getResti().trova());
+        }
+    }
+}
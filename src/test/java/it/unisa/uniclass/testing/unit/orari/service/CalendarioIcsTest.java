@@ -0,0 +1,101 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.service.CalendarioIcs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe CalendarioIcs.
+ * Verifica la serializzazione delle lezioni in eventi settimanali iCalendar.
+ */
+@DisplayName("Test per la classe CalendarioIcs")
+public class CalendarioIcsTest {
+
+    private static final Instant DTSTAMP = Instant.parse("2024-10-01T08:00:00Z");
+
+    private static Lezione lezione(int semestre, Giorno giorno) throws Exception {
+        Aula aula = new Aula();
+        aula.setNome("P3");
+        aula.setEdificio("Edificio P");
+        Lezione lezione = new Lezione(semestre, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), giorno, null,
+                new Corso("Programmazione, Modulo 1"), aula);
+        Field idField = Lezione.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(lezione, 5L);
+        return lezione;
+    }
+
+    private static String serializza(List<Lezione> lezioni) {
+        return new String(CalendarioIcs.serializza("Informatica - Resto 0 - Anno 1", lezioni, 2024, DTSTAMP), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("serializza ripete la lezione ogni settimana del primo semestre")
+    void testSerializzaPrimoSemestre() throws Exception {
+        String ics = serializza(List.of(lezione(1, Giorno.MERCOLEDI)));
+
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\n"));
+        assertTrue(ics.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(ics.contains("UID:lezione-5@uniclass\r\n"));
+        // Il 22 settembre 2024 è domenica: la prima lezione è mercoledì 25
+        assertTrue(ics.contains("DTSTART;TZID=Europe/Rome:20240925T090000\r\n"));
+        assertTrue(ics.contains("DTEND;TZID=Europe/Rome:20240925T110000\r\n"));
+        assertTrue(ics.contains("RRULE:FREQ=WEEKLY;BYDAY=WE;UNTIL=20241222T225959Z\r\n"));
+        assertTrue(ics.contains("SUMMARY:Programmazione\\, Modulo 1\r\n"));
+        assertTrue(ics.contains("LOCATION:P3 (Edificio P)\r\n"));
+        assertTrue(ics.contains("DTSTAMP:20241001T080000Z\r\n"));
+    }
+
+    @Test
+    @DisplayName("serializza colloca il secondo semestre nell'anno solare successivo")
+    void testSerializzaSecondoSemestre() throws Exception {
+        String ics = serializza(List.of(lezione(2, Giorno.LUNEDI)));
+
+        assertTrue(ics.contains("DTSTART;TZID=Europe/Rome:20250303T090000\r\n"));
+        assertTrue(ics.contains("RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20250610T215959Z\r\n"));
+    }
+
+    @Test
+    @DisplayName("serializza tralascia le lezioni senza semestre valido e spezza le righe lunghe")
+    void testSerializzaRigheLunghe() throws Exception {
+        Lezione senzaSemestre = lezione(0, Giorno.LUNEDI);
+        String nome = "Corso con un nome molto lungo che supera da solo la lunghezza massima di una riga iCalendar";
+        String ics = new String(CalendarioIcs.serializza(nome, List.of(senzaSemestre), 2024, DTSTAMP), StandardCharsets.UTF_8);
+
+        assertFalse(ics.contains("BEGIN:VEVENT"));
+        for (String riga : ics.split("\r\n")) {
+            assertTrue(riga.getBytes(StandardCharsets.UTF_8).length <= 75, riga);
+        }
+        assertTrue(ics.replace("\r\n ", "").contains("X-WR-CALNAME:" + nome));
+    }
+
+    @Test
+    @DisplayName("annoAccademico cambia ad agosto")
+    void testAnnoAccademico() {
+        assertEquals(2024, CalendarioIcs.annoAccademico(LocalDate.of(2024, 8, 1)));
+        assertEquals(2024, CalendarioIcs.annoAccademico(LocalDate.of(2025, 7, 31)));
+    }
+
+    @Test
+    @DisplayName("semestre passa al secondo a marzo e torna al primo ad agosto")
+    void testSemestre() {
+        assertEquals(1, CalendarioIcs.semestre(LocalDate.of(2024, 12, 2)));
+        assertEquals(1, CalendarioIcs.semestre(LocalDate.of(2025, 2, 28)));
+        assertEquals(2, CalendarioIcs.semestre(LocalDate.of(2025, 3, 1)));
+        assertEquals(2, CalendarioIcs.semestre(LocalDate.of(2025, 7, 31)));
+        assertEquals(1, CalendarioIcs.semestre(LocalDate.of(2025, 8, 1)));
+    }
+}
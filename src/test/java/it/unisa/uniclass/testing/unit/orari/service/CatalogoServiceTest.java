@@ -0,0 +1,94 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Catalogo;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.CacheCatalogo;
+import it.unisa.uniclass.orari.service.CatalogoService;
+import it.unisa.uniclass.orari.service.CorsoLaureaService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe CatalogoService.
+ * Verifica la serializzazione del catalogo e il suo riuso finché non cambia.
+ */
+@DisplayName("Test per la classe CatalogoService")
+public class CatalogoServiceTest {
+
+    @Mock
+    private CorsoLaureaService corsoLaureaService;
+
+    private CacheCatalogo cache;
+    private CatalogoService catalogoService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        cache = new CacheCatalogo();
+        catalogoService = new CatalogoService(corsoLaureaService);
+        catalogoService.setCache(cache);
+
+        CorsoLaurea informatica = new CorsoLaurea("Informatica");
+        Field idField = CorsoLaurea.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(informatica, 1L);
+        informatica.getResti().add(new Resto("Resto 0", informatica));
+        informatica.getResti().add(new Resto("Resto 1", informatica));
+        informatica.getAnniDidattici().add(new AnnoDidattico("Anno 1"));
+        when(corsoLaureaService.trovaTutti(PianoCaricamento.ORARIO)).thenReturn(List.of(informatica));
+    }
+
+    @Test
+    @DisplayName("trovaCatalogo serializza corsi di laurea, resti e anni")
+    void testTrovaCatalogo() {
+        Catalogo catalogo = catalogoService.trovaCatalogo();
+
+        JSONArray json = new JSONArray(new String(catalogo.contenuto(), StandardCharsets.UTF_8));
+        assertEquals(1, json.length());
+        JSONObject corso = json.getJSONObject(0);
+        assertEquals("Informatica", corso.getString("nome"));
+        assertEquals(2, corso.getJSONArray("resti").length());
+        assertEquals("Resto 1", corso.getJSONArray("resti").getJSONObject(1).getString("nome"));
+        assertEquals("Anno 1", corso.getJSONArray("anni").getJSONObject(0).getString("nome"));
+    }
+
+    @Test
+    @DisplayName("trovaCatalogo serializza una sola volta finché il catalogo non cambia")
+    void testTrovaCatalogoInCache() {
+        Catalogo primo = catalogoService.trovaCatalogo();
+        assertSame(primo, catalogoService.trovaCatalogo());
+        verify(corsoLaureaService, times(1)).trovaTutti(PianoCaricamento.ORARIO);
+
+        cache.invalida();
+        Catalogo secondo = catalogoService.trovaCatalogo();
+
+        assertNotSame(primo, secondo);
+        assertNotEquals(primo.etag(), secondo.etag());
+        verify(corsoLaureaService, times(2)).trovaTutti(PianoCaricamento.ORARIO);
+    }
+
+    @Test
+    @DisplayName("un catalogo costruito durante una scrittura non viene memorizzato")
+    void testCaricaVersioneScaduta() {
+        Catalogo superato = new Catalogo(cache.versione(), new byte[0], "\"0-0\"");
+        cache.invalida();
+        cache.carica(superato);
+
+        assertNull(cache.trova());
+    }
+}
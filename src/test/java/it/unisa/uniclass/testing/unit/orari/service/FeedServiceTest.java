@@ -0,0 +1,131 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.Feed;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Orario;
+import it.unisa.uniclass.orari.service.CacheFeed;
+import it.unisa.uniclass.orari.service.CacheOrari;
+import it.unisa.uniclass.orari.service.FeedService;
+import it.unisa.uniclass.orari.service.LezioneService;
+import it.unisa.uniclass.orari.service.OrarioService;
+import it.unisa.uniclass.utenti.model.Docente;
+import it.unisa.uniclass.utenti.service.DocenteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe FeedService.
+ * Verifica la costruzione dei calendari e il loro riuso finché gli orari non cambiano.
+ */
+@DisplayName("Test per la classe FeedService")
+public class FeedServiceTest {
+
+    @Mock
+    private OrarioService orarioService;
+
+    @Mock
+    private LezioneService lezioneService;
+
+    @Mock
+    private DocenteService docenteService;
+
+    private CacheOrari cacheOrari;
+    private CacheFeed cache;
+    private FeedService feedService;
+    private Lezione lezione;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cacheOrari = new CacheOrari();
+        cache = new CacheFeed();
+        feedService = new FeedService(orarioService, lezioneService, docenteService);
+        feedService.setCacheOrari(cacheOrari);
+        feedService.setCache(cache);
+        feedService.setOrologio(Clock.fixed(Instant.parse("2024-10-01T08:00:00Z"), ZoneId.of("Europe/Rome")));
+
+        lezione = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.LUNEDI, null, null, null);
+        when(orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1"))
+                .thenReturn(new Orario(null, null, null, List.of(lezione)));
+    }
+
+    @Nested
+    @DisplayName("Test del calendario di un orario")
+    class FeedOrarioTest {
+
+        @Test
+        @DisplayName("feedOrario riusa il calendario finché la versione degli orari non cambia")
+        void testFeedOrarioInCache() {
+            Feed primo = feedService.feedOrario("Informatica", "Resto 0", "Anno 1");
+            Feed secondo = feedService.feedOrario("Informatica", "Resto 0", "Anno 1");
+
+            assertSame(primo, secondo);
+            assertTrue(new String(primo.contenuto(), StandardCharsets.UTF_8).contains("X-WR-CALNAME:Informatica - Resto 0 - Anno 1"));
+            assertTrue(primo.etag().startsWith("\"") && primo.etag().endsWith("\""));
+            verify(orarioService, times(1)).trovaOrario("Informatica", "Resto 0", "Anno 1");
+            assertEquals(1, cache.getHit());
+        }
+
+        @Test
+        @DisplayName("feedOrario ricostruisce il calendario dopo una scrittura sugli orari")
+        void testFeedOrarioDopoScrittura() {
+            Feed primo = feedService.feedOrario("Informatica", "Resto 0", "Anno 1");
+            cacheOrari.svuota();
+            Feed secondo = feedService.feedOrario("Informatica", "Resto 0", "Anno 1");
+
+            assertNotEquals(primo.etag(), secondo.etag());
+            verify(orarioService, times(2)).trovaOrario("Informatica", "Resto 0", "Anno 1");
+        }
+
+        @Test
+        @DisplayName("feedOrario restituisce null per un orario inesistente")
+        void testFeedOrarioInesistente() {
+            assertNull(feedService.feedOrario("Informatica", "Resto 9", "Anno 1"));
+            assertEquals(0, cache.getFeed());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test del calendario di un docente")
+    class FeedDocenteTest {
+
+        @Test
+        @DisplayName("feedDocente contiene le lezioni del docente")
+        void testFeedDocente() {
+            Docente docente = new Docente();
+            docente.setMatricola("0512100001");
+            docente.setNome("Maria");
+            docente.setCognome("Rossi");
+            when(docenteService.trovaDocenteUniClass("0512100001")).thenReturn(docente);
+            when(lezioneService.trovaLezioniMatricolaDocente("0512100001")).thenReturn(List.of(lezione));
+
+            Feed feed = feedService.feedDocente("0512100001");
+
+            String ics = new String(feed.contenuto(), StandardCharsets.UTF_8);
+            assertTrue(ics.contains("X-WR-CALNAME:Maria Rossi"));
+            assertTrue(ics.contains("BYDAY=MO"));
+        }
+
+        @Test
+        @DisplayName("feedDocente restituisce null per un docente inesistente")
+        void testFeedDocenteInesistente() {
+            assertNull(feedService.feedDocente("0512999999"));
+            verifyNoInteractions(lezioneService);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.AulaLibera;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.service.IndiceAuleLibere;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe IndiceAuleLibere.
+ * Verifica la ricerca delle aule libere sulla matrice delle fasce e il suo aggiornamento incrementale.
+ */
+@DisplayName("Test per la classe IndiceAuleLibere")
+public class IndiceAuleLibereTest {
+
+    private IndiceAuleLibere indice;
+    private Aula p3;
+    private Aula p4;
+    private Aula f1;
+    private Lezione mattina;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        indice = new IndiceAuleLibere();
+        p3 = aula("P3", "Edificio P");
+        p4 = aula("P4", "Edificio P");
+        f1 = aula("F1", "Edificio F");
+
+        mattina = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", p3);
+        indice.carica(List.of(p3, p4, f1), List.of(
+                mattina,
+                lezione(2L, Giorno.LUNEDI, "14:00:00", "16:00:00", p3),
+                lezione(3L, Giorno.LUNEDI, "12:00:00", "13:00:00", p4),
+                lezione(4L, Giorno.MARTEDI, "09:00:00", "13:00:00", f1)), indice.versione());
+    }
+
+    private static Aula aula(String nome, String edificio) {
+        Aula aula = new Aula();
+        aula.setNome(nome);
+        aula.setEdificio(edificio);
+        return aula;
+    }
+
+    private static Lezione lezione(Long id, Giorno giorno, String inizio, String fine, Aula aula) throws Exception {
+        Corso corso = new Corso("Programmazione");
+        Lezione lezione = new Lezione(1, Time.valueOf(inizio), Time.valueOf(fine), giorno, null, corso, aula);
+        Field idField = Lezione.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(lezione, id);
+        return lezione;
+    }
+
+    private List<String> nomi(List<AulaLibera> libere) {
+        return libere.stream().map(AulaLibera::aula).toList();
+    }
+
+    @Nested
+    @DisplayName("Test della ricerca")
+    class RicercaTest {
+
+        @Test
+        @DisplayName("cerca esclude le aule occupate anche solo in parte della fascia")
+        void testCercaEscludeOccupate() {
+            List<AulaLibera> libere = indice.cerca(Giorno.LUNEDI, LocalTime.of(10, 30), LocalTime.of(12, 30), null);
+
+            assertEquals(List.of("F1"), nomi(libere));
+        }
+
+        @Test
+        @DisplayName("cerca ordina le aule da quella libera più a lungo")
+        void testCercaOrdinaPerDurata() {
+            List<AulaLibera> libere = indice.cerca(Giorno.LUNEDI, LocalTime.of(11, 0), LocalTime.of(12, 0), null);
+
+            assertEquals(List.of("F1", "P3", "P4"), nomi(libere));
+            assertNull(libere.get(0).liberaFino());
+            assertEquals(LocalTime.of(14, 0), libere.get(1).liberaFino());
+            assertEquals(LocalTime.of(12, 0), libere.get(2).liberaFino());
+        }
+
+        @Test
+        @DisplayName("cerca considera libere le aule dalla fine di una lezione")
+        void testCercaEstremi() {
+            List<AulaLibera> libere = indice.cerca(Giorno.LUNEDI, LocalTime.of(16, 0), LocalTime.of(18, 0), "Edificio P");
+
+            assertEquals(List.of("P3", "P4"), nomi(libere));
+        }
+
+        @Test
+        @DisplayName("cerca filtra per edificio")
+        void testCercaEdificio() {
+            assertEquals(List.of("F1"), nomi(indice.cerca(Giorno.LUNEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), "Edificio F")));
+            assertTrue(indice.cerca(Giorno.MARTEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), "Edificio F").isEmpty());
+            assertTrue(indice.cerca(Giorno.LUNEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), "Edificio inesistente").isEmpty());
+        }
+
+        @Test
+        @DisplayName("cerca arrotonda alla fascia una lezione che non inizia allo scoccare della mezz'ora")
+        void testCercaFasceParziali() throws Exception {
+            indice.aggiungi(lezione(5L, Giorno.MERCOLEDI, "10:15:00", "10:45:00", p4));
+
+            assertFalse(nomi(indice.cerca(Giorno.MERCOLEDI, LocalTime.of(10, 0), LocalTime.of(10, 30), null)).contains("P4"));
+            assertFalse(nomi(indice.cerca(Giorno.MERCOLEDI, LocalTime.of(10, 30), LocalTime.of(11, 0), null)).contains("P4"));
+            assertTrue(nomi(indice.cerca(Giorno.MERCOLEDI, LocalTime.of(11, 0), LocalTime.of(12, 0), null)).contains("P4"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test dell'aggiornamento incrementale")
+    class AggiornamentoTest {
+
+        @Test
+        @DisplayName("rimuovi libera la fascia solo quando non resta nessuna lezione sovrapposta")
+        void testRimuoviLezioniSovrapposte() throws Exception {
+            Lezione lunga = lezione(5L, Giorno.LUNEDI, "08:00:00", "12:00:00", p3);
+            indice.aggiungi(lunga);
+
+            indice.rimuovi(mattina);
+            assertFalse(nomi(indice.cerca(Giorno.LUNEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), null)).contains("P3"));
+
+            indice.rimuovi(lunga);
+            assertTrue(nomi(indice.cerca(Giorno.LUNEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), null)).contains("P3"));
+        }
+
+        @Test
+        @DisplayName("aggiornaAula aggiunge un'aula nuova e rinomina un'aula mantenendone le lezioni")
+        void testAggiornaAula() {
+            Aula nuova = aula("P5", "Edificio P");
+            indice.aggiornaAula(null, nuova);
+            assertTrue(nomi(indice.cerca(Giorno.LUNEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), null)).contains("P5"));
+
+            p3.setNome("P3 bis");
+            indice.aggiornaAula("P3", p3);
+            List<String> libere = nomi(indice.cerca(Giorno.LUNEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), null));
+            assertFalse(libere.contains("P3 bis"));
+            assertFalse(libere.contains("P3"));
+
+            indice.rimuovi(mattina);
+            assertTrue(nomi(indice.cerca(Giorno.LUNEDI, LocalTime.of(9, 0), LocalTime.of(10, 0), null)).contains("P3 bis"));
+        }
+
+        @Test
+        @DisplayName("rimuoviAula toglie l'aula dai risultati")
+        void testRimuoviAula() {
+            indice.rimuoviAula(p4);
+
+            assertEquals(List.of("F1", "P3"), nomi(indice.cerca(Giorno.LUNEDI, LocalTime.of(11, 0), LocalTime.of(12, 0), null)));
+        }
+
+        @Test
+        @DisplayName("carica ignora un caricamento partito prima di una scrittura")
+        void testCaricaVersioneScaduta() throws Exception {
+            IndiceAuleLibere vuoto = new IndiceAuleLibere();
+            long versione = vuoto.versione();
+            vuoto.aggiungi(mattina);
+            vuoto.carica(List.of(p3), List.of(), versione);
+
+            assertFalse(vuoto.isCaricato());
+            vuoto.svuota();
+            vuoto.carica(List.of(p3), List.of(mattina), vuoto.versione());
+            assertTrue(vuoto.isCaricato());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.Fascia;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.service.IndiceOccupazione;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe IndiceOccupazione.
+ * Verifica le interrogazioni sull'occupazione delle aule e l'aggiornamento incrementale dell'indice.
+ */
+@DisplayName("Test per la classe IndiceOccupazione")
+public class IndiceOccupazioneTest {
+
+    private IndiceOccupazione indice;
+    private Aula p3;
+    private Aula p4;
+    private Lezione mattina;
+    private Lezione pomeriggio;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        indice = new IndiceOccupazione();
+        p3 = new Aula();
+        p3.setNome("P3");
+        p4 = new Aula();
+        p4.setNome("P4");
+
+        mattina = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", p3);
+        pomeriggio = lezione(2L, Giorno.LUNEDI, "14:00:00", "16:00:00", p3);
+        indice.carica(List.of(pomeriggio, mattina, lezione(3L, Giorno.MARTEDI, "09:00:00", "13:00:00", p4)), indice.versione());
+    }
+
+    private static Lezione lezione(Long id, Giorno giorno, String inizio, String fine, Aula aula) throws Exception {
+        Corso corso = new Corso("Programmazione");
+        Lezione lezione = new Lezione(1, Time.valueOf(inizio), Time.valueOf(fine), giorno, null, corso, aula);
+        Field idField = Lezione.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(lezione, id);
+        return lezione;
+    }
+
+    @Nested
+    @DisplayName("Test delle interrogazioni")
+    class InterrogazioniTest {
+
+        @Test
+        @DisplayName("occupata trova la lezione in corso anche se non è la prima del giorno")
+        void testOccupataSecondaLezione() {
+            assertTrue(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(15, 0)));
+            assertTrue(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(10, 0)));
+            assertFalse(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(12, 0)));
+        }
+
+        @Test
+        @DisplayName("occupata non conta una lezione che inizia o finisce in quel momento")
+        void testOccupataEstremi() {
+            assertFalse(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(9, 0)));
+            assertFalse(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(11, 0)));
+            assertFalse(indice.occupata("P3", Giorno.MARTEDI, LocalTime.of(10, 0)));
+            assertFalse(indice.occupata("Aula inesistente", Giorno.LUNEDI, LocalTime.of(10, 0)));
+        }
+
+        @Test
+        @DisplayName("occupata considera una lezione lunga che ne contiene un'altra")
+        void testOccupataLezioniSovrapposte() throws Exception {
+            indice.aggiungi(lezione(4L, Giorno.LUNEDI, "08:00:00", "18:00:00", p3));
+
+            assertTrue(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(12, 0)));
+        }
+
+        @Test
+        @DisplayName("fasce restituisce le lezioni del giorno e della settimana in ordine")
+        void testFasce() {
+            List<Fascia> lunedi = indice.fasce("P3", Giorno.LUNEDI);
+
+            assertEquals(List.of(1L, 2L), lunedi.stream().map(Fascia::lezione).toList());
+            assertEquals(LocalTime.of(9, 0), lunedi.get(0).inizio());
+            assertEquals("Programmazione", lunedi.get(0).corso());
+            assertTrue(indice.fasce("P3", Giorno.MARTEDI).isEmpty());
+            assertEquals(1, indice.fasce("P4").size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test degli aggiornamenti")
+    class AggiornamentiTest {
+
+        @Test
+        @DisplayName("rimuovi e aggiungi spostano una lezione in un'altra aula")
+        void testSpostaLezione() throws Exception {
+            indice.rimuovi(pomeriggio);
+            indice.aggiungi(lezione(2L, Giorno.LUNEDI, "14:00:00", "16:00:00", p4));
+
+            assertFalse(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(15, 0)));
+            assertTrue(indice.occupata("P4", Giorno.LUNEDI, LocalTime.of(15, 0)));
+            assertEquals(1, indice.fasce("P3", Giorno.LUNEDI).size());
+        }
+
+        @Test
+        @DisplayName("rimuovi riconosce per contenuto una lezione salvata senza ID")
+        void testRimuoviSenzaId() throws Exception {
+            Lezione nuova = lezione(null, Giorno.GIOVEDI, "11:00:00", "13:00:00", p4);
+            indice.aggiungi(nuova);
+            assertTrue(indice.occupata("P4", Giorno.GIOVEDI, LocalTime.of(12, 0)));
+
+            indice.rimuovi(lezione(9L, Giorno.GIOVEDI, "11:00:00", "13:00:00", p4));
+
+            assertFalse(indice.occupata("P4", Giorno.GIOVEDI, LocalTime.of(12, 0)));
+        }
+
+        @Test
+        @DisplayName("carica ignora le lezioni lette prima di un aggiornamento")
+        void testCaricaVersioneSuperata() throws Exception {
+            IndiceOccupazione vuoto = new IndiceOccupazione();
+            long versione = vuoto.versione();
+            vuoto.rimuovi(mattina);
+
+            vuoto.carica(List.of(mattina), versione);
+
+            assertFalse(vuoto.isCaricato());
+        }
+
+        @Test
+        @DisplayName("svuota richiede un nuovo caricamento")
+        void testSvuota() {
+            indice.svuota();
+
+            assertFalse(indice.isCaricato());
+            assertFalse(indice.occupata("P3", Giorno.LUNEDI, LocalTime.of(10, 0)));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.LezioneSettimana;
+import it.unisa.uniclass.orari.model.ProssimaLezione;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.IndiceProssimeLezioni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe IndiceProssimeLezioni.
+ * Verifica la ricerca della lezione in corso e della prossima e l'aggiornamento incrementale dell'indice.
+ */
+@DisplayName("Test per la classe IndiceProssimeLezioni")
+public class IndiceProssimeLezioniTest {
+
+    private IndiceProssimeLezioni indice;
+    private Resto resto0;
+    private Resto resto1;
+    private Aula p3;
+    private Lezione lunedi;
+    private Lezione mercoledi;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        indice = new IndiceProssimeLezioni();
+        resto0 = conId(new Resto(), 1L);
+        resto1 = conId(new Resto(), 2L);
+        p3 = new Aula();
+        p3.setNome("P3");
+        p3.setEdificio("F3");
+
+        lunedi = lezione(1L, 1, Giorno.LUNEDI, "09:00:00", "11:00:00", resto0);
+        mercoledi = lezione(2L, 1, Giorno.MERCOLEDI, "14:00:00", "16:00:00", resto0);
+        indice.carica(List.of(mercoledi, lunedi,
+                lezione(3L, 2, Giorno.MARTEDI, "09:00:00", "11:00:00", resto0),
+                lezione(4L, 1, Giorno.MARTEDI, "09:00:00", "11:00:00", resto1)), indice.versione());
+    }
+
+    private static Resto conId(Resto resto, Long id) throws Exception {
+        Field idField = Resto.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(resto, id);
+        return resto;
+    }
+
+    private Lezione lezione(Long id, int semestre, Giorno giorno, String inizio, String fine, Resto resto) throws Exception {
+        Lezione lezione = new Lezione(semestre, Time.valueOf(inizio), Time.valueOf(fine), giorno, resto, new Corso("Programmazione"), p3);
+        Field idField = Lezione.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(lezione, id);
+        return lezione;
+    }
+
+    private static int minuto(Giorno giorno, int ora, int minuti) {
+        return LezioneSettimana.minuto(giorno, LocalTime.of(ora, minuti));
+    }
+
+    @Nested
+    @DisplayName("Test delle interrogazioni")
+    class InterrogazioniTest {
+
+        @Test
+        @DisplayName("cerca trova la lezione in corso e la prossima con la sua aula")
+        void testCercaLezioneInCorso() {
+            ProssimaLezione risultato = indice.cerca(1L, 1, minuto(Giorno.LUNEDI, 10, 0));
+
+            assertEquals(1L, risultato.inCorso().lezione());
+            assertEquals("P3", risultato.inCorso().aula());
+            assertEquals("F3", risultato.inCorso().edificio());
+            assertEquals(2L, risultato.prossima().lezione());
+        }
+
+        @Test
+        @DisplayName("cerca tra due lezioni restituisce solo la prossima")
+        void testCercaTraDueLezioni() {
+            ProssimaLezione risultato = indice.cerca(1L, 1, minuto(Giorno.MARTEDI, 10, 0));
+
+            assertNull(risultato.inCorso());
+            assertEquals(2L, risultato.prossima().lezione());
+        }
+
+        @Test
+        @DisplayName("cerca dopo l'ultima lezione della settimana restituisce la prima della settimana successiva")
+        void testCercaFineSettimana() {
+            ProssimaLezione risultato = indice.cerca(1L, 1, minuto(Giorno.VENERDI, 18, 0));
+
+            assertNull(risultato.inCorso());
+            assertEquals(1L, risultato.prossima().lezione());
+        }
+
+        @Test
+        @DisplayName("cerca considera in corso una lezione che inizia in quel momento, non una che finisce")
+        void testCercaEstremi() {
+            assertEquals(1L, indice.cerca(1L, 1, minuto(Giorno.LUNEDI, 9, 0)).inCorso().lezione());
+            assertNull(indice.cerca(1L, 1, minuto(Giorno.LUNEDI, 11, 0)).inCorso());
+        }
+
+        @Test
+        @DisplayName("cerca trova una lezione lunga iniziata prima di una già finita")
+        void testCercaLezioniSovrapposte() throws Exception {
+            indice.aggiungi(lezione(5L, 1, Giorno.LUNEDI, "08:00:00", "18:00:00", resto0));
+
+            assertEquals(5L, indice.cerca(1L, 1, minuto(Giorno.LUNEDI, 12, 0)).inCorso().lezione());
+        }
+
+        @Test
+        @DisplayName("cerca separa resti e semestri")
+        void testCercaRestoSemestre() {
+            assertEquals(3L, indice.cerca(1L, 2, minuto(Giorno.LUNEDI, 8, 0)).prossima().lezione());
+            assertEquals(4L, indice.cerca(2L, 1, minuto(Giorno.LUNEDI, 8, 0)).prossima().lezione());
+            ProssimaLezione vuota = indice.cerca(99L, 1, minuto(Giorno.LUNEDI, 8, 0));
+            assertNull(vuota.inCorso());
+            assertNull(vuota.prossima());
+        }
+
+        @Test
+        @DisplayName("cerca separa gli anni didattici dello stesso resto")
+        void testCercaAnnoDidattico() throws Exception {
+            Lezione primoAnno = lezione(7L, 1, Giorno.LUNEDI, "09:00:00", "11:00:00", resto1);
+            primoAnno.getCorso().setAnnoDidattico(new AnnoDidattico("Anno 1"));
+            Lezione secondoAnno = lezione(8L, 1, Giorno.LUNEDI, "10:00:00", "12:00:00", resto1);
+            secondoAnno.getCorso().setAnnoDidattico(new AnnoDidattico("Anno 2"));
+            indice.aggiungi(primoAnno);
+            indice.aggiungi(secondoAnno);
+
+            assertEquals(7L, indice.cerca(2L, "Anno 1", 1, minuto(Giorno.LUNEDI, 10, 30)).inCorso().lezione());
+            assertEquals(8L, indice.cerca(2L, "Anno 2", 1, minuto(Giorno.LUNEDI, 10, 30)).inCorso().lezione());
+            assertNull(indice.cerca(2L, "Anno 3", 1, minuto(Giorno.LUNEDI, 10, 30)).prossima());
+            // Senza anno si cercano tutte le lezioni del resto
+            assertEquals(8L, indice.cerca(2L, null, 1, minuto(Giorno.LUNEDI, 10, 30)).inCorso().lezione());
+
+            indice.rimuovi(secondoAnno);
+            assertNull(indice.cerca(2L, "Anno 2", 1, minuto(Giorno.LUNEDI, 10, 30)).prossima());
+            assertEquals(7L, indice.cerca(2L, 1, minuto(Giorno.LUNEDI, 10, 30)).inCorso().lezione());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test degli aggiornamenti")
+    class AggiornamentiTest {
+
+        @Test
+        @DisplayName("aggiungi inserisce la lezione nell'ordine della settimana")
+        void testAggiungi() throws Exception {
+            indice.aggiungi(lezione(6L, 1, Giorno.MARTEDI, "15:00:00", "17:00:00", resto0));
+
+            assertEquals(6L, indice.cerca(1L, 1, minuto(Giorno.MARTEDI, 10, 0)).prossima().lezione());
+        }
+
+        @Test
+        @DisplayName("rimuovi toglie la lezione dal suo resto")
+        void testRimuovi() {
+            indice.rimuovi(mercoledi);
+
+            ProssimaLezione risultato = indice.cerca(1L, 1, minuto(Giorno.MARTEDI, 10, 0));
+            assertEquals(1L, risultato.prossima().lezione());
+        }
+
+        @Test
+        @DisplayName("una lezione spostata viene tolta dalla posizione precedente")
+        void testSpostamento() throws Exception {
+            Lezione spostata = lezione(2L, 1, Giorno.GIOVEDI, "14:00:00", "16:00:00", resto0);
+            indice.rimuovi(mercoledi);
+            indice.aggiungi(spostata);
+
+            ProssimaLezione risultato = indice.cerca(1L, 1, minuto(Giorno.MERCOLEDI, 15, 0));
+            assertNull(risultato.inCorso());
+            assertEquals(Giorno.GIOVEDI, risultato.prossima().giorno());
+        }
+
+        @Test
+        @DisplayName("un caricamento iniziato prima di una modifica viene scartato")
+        void testCaricaVersioneScaduta() {
+            IndiceProssimeLezioni nuovo = new IndiceProssimeLezioni();
+            long versione = nuovo.versione();
+            nuovo.aggiungi(lunedi);
+            nuovo.carica(List.of(lunedi), versione);
+
+            assertFalse(nuovo.isCaricato());
+        }
+
+        @Test
+        @DisplayName("svuota rende l'indice da caricare")
+        void testSvuota() {
+            indice.svuota();
+
+            assertFalse(indice.isCaricato());
+            assertNull(indice.cerca(1L, 1, minuto(Giorno.LUNEDI, 10, 0)).prossima());
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package it.unisa.uniclass.testing.unit.orari.service;
 
+import it.unisa.uniclass.common.exceptions.ConflittoLezioniException;
 import it.unisa.uniclass.orari.model.Giorno;
 import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.service.CacheOrari;
 import it.unisa.uniclass.orari.service.LezioneService;
 import it.unisa.uniclass.orari.service.dao.LezioneRemote;
 import jakarta.persistence.NoResultException;
@@ -497,7 +499,8 @@ public class LezioneServiceTest {
         void testAggiungiLezioneSuccesso() {
             lezioneService.aggiungiLezione(lezione);
 
-            verify(lezioneDao, times(1)).aggiungiLezione(lezione);
+            verify(lezioneDao, times(1)).aggiungiLezioneControllata(lezione);
+            verify(lezioneDao, never()).aggiungiLezione(any());
         }
 
         @Test
@@ -509,9 +512,93 @@ public class LezioneServiceTest {
 
                 lezioneService.aggiungiLezione(lezTest);
 
-                verify(lezioneDao, times(1)).aggiungiLezione(lezTest);
+                verify(lezioneDao, times(1)).aggiungiLezioneControllata(lezTest);
             }
         }
+
+        @Test
+        @DisplayName("aggiungiLezione di una lezione esistente invalida anche l'orario precedente")
+        void testAggiungiLezioneSpostata() {
+            CacheOrari cache = mock(CacheOrari.class);
+            lezioneService.setCacheOrari(cache);
+            Lezione precedente = new Lezione(1, Time.valueOf("11:00:00"), Time.valueOf("13:00:00"),
+                                             Giorno.MARTEDI, null, null, null);
+            when(lezioneDao.aggiungiLezioneControllata(lezione)).thenReturn(precedente);
+
+            lezioneService.aggiungiLezione(lezione);
+
+            verify(cache).invalida(precedente);
+            verify(cache).invalida(lezione);
+        }
+
+        @Test
+        @DisplayName("aggiungiLezione in conflitto non aggiorna la cache")
+        void testAggiungiLezioneConflitto() {
+            CacheOrari cache = mock(CacheOrari.class);
+            lezioneService.setCacheOrari(cache);
+            when(lezioneDao.aggiungiLezioneControllata(lezione)).thenThrow(new ConflittoLezioniException(List.of()));
+
+            assertThrows(ConflittoLezioniException.class, () -> lezioneService.aggiungiLezione(lezione));
+
+            verifyNoInteractions(cache);
+        }
+
+        @Test
+        @DisplayName("aggiungiLezione rifiuta una lezione nulla")
+        void testAggiungiLezioneNull() {
+            assertThrows(IllegalArgumentException.class, () -> lezioneService.aggiungiLezione(null));
+            verifyNoInteractions(lezioneDao);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test del metodo aggiungiLezioni")
+    class AggiungiLezioniTest {
+
+        @Test
+        @DisplayName("aggiungiLezioni salva le lezioni con un solo salvataggio controllato")
+        void testAggiungiLezioniSuccesso() {
+            Lezione dopo = new Lezione(1, Time.valueOf("11:00:00"), Time.valueOf("13:00:00"),
+                                       Giorno.LUNEDI, null, null, null);
+
+            lezioneService.aggiungiLezioni(List.of(lezione, dopo));
+
+            verify(lezioneDao, times(1)).aggiungiLezioniControllate(List.of(lezione, dopo));
+            verify(lezioneDao, never()).aggiungiLezione(any());
+        }
+
+        @Test
+        @DisplayName("aggiungiLezioni invalida le versioni precedenti delle lezioni aggiornate")
+        void testAggiungiLezioniAggiornata() {
+            CacheOrari cache = mock(CacheOrari.class);
+            lezioneService.setCacheOrari(cache);
+            Lezione precedente = new Lezione(1, Time.valueOf("10:00:00"), Time.valueOf("12:00:00"),
+                                             Giorno.MARTEDI, null, null, null);
+            when(lezioneDao.aggiungiLezioniControllate(List.of(lezione))).thenReturn(List.of(precedente));
+
+            lezioneService.aggiungiLezioni(List.of(lezione));
+
+            verify(cache).invalida(precedente);
+            verify(cache).invalida(lezione);
+            verify(lezioneDao, never()).trovaLezione(anyLong());
+        }
+
+        @Test
+        @DisplayName("aggiungiLezioni in conflitto non aggiorna la cache")
+        void testAggiungiLezioniConflitto() {
+            CacheOrari cache = mock(CacheOrari.class);
+            lezioneService.setCacheOrari(cache);
+            when(lezioneDao.aggiungiLezioniControllate(anyList())).thenThrow(new ConflittoLezioniException(List.of()));
+
+            assertThrows(ConflittoLezioniException.class, () -> lezioneService.aggiungiLezioni(List.of(lezione)));
+            verifyNoInteractions(cache);
+        }
+
+        @Test
+        @DisplayName("aggiungiLezioni rifiuta una lista nulla")
+        void testAggiungiLezioniNull() {
+            assertThrows(IllegalArgumentException.class, () -> lezioneService.aggiungiLezioni(null));
+        }
     }
 
     @Nested
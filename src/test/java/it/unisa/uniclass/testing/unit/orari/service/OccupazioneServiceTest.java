@@ -0,0 +1,78 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.OccupazioneAula;
+import it.unisa.uniclass.orari.service.IndiceOccupazione;
+import it.unisa.uniclass.orari.service.LezioneService;
+import it.unisa.uniclass.orari.service.OccupazioneService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Time;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe OccupazioneService.
+ * Verifica lo stato delle aule calcolato dall'indice di occupazione.
+ */
+@DisplayName("Test per la classe OccupazioneService")
+public class OccupazioneServiceTest {
+
+    @Mock
+    private LezioneService lezioneService;
+
+    private IndiceOccupazione indice;
+    private OccupazioneService occupazioneService;
+    private Aula p3;
+    private Aula p4;
+
+    // Lunedì 2 dicembre 2024
+    private static final LocalDateTime LUNEDI_ALLE_DIECI = LocalDateTime.of(2024, 12, 2, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        indice = new IndiceOccupazione();
+        occupazioneService = new OccupazioneService(lezioneService);
+        occupazioneService.setIndice(indice);
+
+        p3 = new Aula();
+        p3.setNome("P3");
+        p4 = new Aula();
+        p4.setNome("P4");
+        Lezione lezione = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.LUNEDI, null, null, p3);
+        when(lezioneService.trovaTutte()).thenReturn(List.of(lezione));
+    }
+
+    @Test
+    @DisplayName("trovaOccupazione calcola lo stato di ogni aula nell'ordine richiesto")
+    void testTrovaOccupazione() {
+        List<OccupazioneAula> occupazione = occupazioneService.trovaOccupazione(List.of(p3, p4), LUNEDI_ALLE_DIECI);
+
+        assertEquals("P3", occupazione.get(0).aula());
+        assertTrue(occupazione.get(0).occupata());
+        assertEquals(1, occupazione.get(0).fasce().size());
+        assertEquals("P4", occupazione.get(1).aula());
+        assertFalse(occupazione.get(1).occupata());
+        assertTrue(occupazione.get(1).fasce().isEmpty());
+    }
+
+    @Test
+    @DisplayName("trovaOccupazione legge le lezioni dal database una sola volta")
+    void testTrovaOccupazioneCaricaUnaVolta() {
+        occupazioneService.trovaOccupazione(List.of(p3, p4), LUNEDI_ALLE_DIECI);
+        occupazioneService.trovaOccupazione(List.of(p3), LUNEDI_ALLE_DIECI.plusDays(1));
+
+        verify(lezioneService, times(1)).trovaTutte();
+        assertTrue(indice.isCaricato());
+    }
+}
@@ -0,0 +1,191 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Orario;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.AnnoDidatticoService;
+import it.unisa.uniclass.orari.service.CacheOrari;
+import it.unisa.uniclass.orari.service.CorsoLaureaService;
+import it.unisa.uniclass.orari.service.LezioneService;
+import it.unisa.uniclass.orari.service.OrarioService;
+import it.unisa.uniclass.orari.service.RestoService;
+import it.unisa.uniclass.orari.service.dao.LezioneRemote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.reflect.Field;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe OrarioService.
+ * Verifica la costruzione degli orari, il passaggio per la cache e il precaricamento.
+ */
+@DisplayName("Test per la classe OrarioService")
+public class OrarioServiceTest {
+
+    @Mock
+    private CorsoLaureaService corsoLaureaService;
+
+    @Mock
+    private RestoService restoService;
+
+    @Mock
+    private AnnoDidatticoService annoDidatticoService;
+
+    @Mock
+    private LezioneRemote lezioneDao;
+
+    private LezioneService lezioneService;
+    private CacheOrari cache;
+    private OrarioService orarioService;
+
+    private CorsoLaurea informatica;
+    private Resto resto0;
+    private AnnoDidattico anno1;
+    private Lezione martedi;
+    private Lezione lunediTardi;
+    private Lezione lunediPresto;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        cache = new CacheOrari();
+        lezioneService = new LezioneService(lezioneDao);
+        lezioneService.setCacheOrari(cache);
+        orarioService = new OrarioService(corsoLaureaService, restoService, annoDidatticoService, lezioneService);
+        orarioService.setCache(cache);
+
+        informatica = conId(new CorsoLaurea("Informatica"), 1L);
+        resto0 = new Resto();
+        resto0.setNome("Resto 0");
+        resto0.setCorsoLaurea(informatica);
+        conId(resto0, 10L);
+        anno1 = conId(new AnnoDidattico("Anno 1"), 100);
+
+        martedi = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.MARTEDI, resto0, null, null);
+        lunediTardi = new Lezione(1, Time.valueOf("14:00:00"), Time.valueOf("16:00:00"), Giorno.LUNEDI, resto0, null, null);
+        lunediPresto = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.LUNEDI, resto0, null, null);
+
+        when(corsoLaureaService.trovaCorsoLaurea("Informatica")).thenReturn(informatica);
+        when(restoService.trovaRestoNomeCorso("Resto 0", informatica)).thenReturn(resto0);
+        when(annoDidatticoService.trovaTuttiCorsoLaureaNome(1L, "Anno 1")).thenReturn(anno1);
+        when(lezioneDao.trovaLezioniCorsoLaureaRestoAnno(1L, 10L, 100))
+                .thenReturn(new ArrayList<>(List.of(martedi, lunediTardi, lunediPresto)));
+    }
+
+    private static <T> T conId(T entita, Object id) throws Exception {
+        Field idField = entita.getClass().getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(entita, id);
+        return entita;
+    }
+
+    @Nested
+    @DisplayName("Test del metodo trovaOrario")
+    class TrovaOrarioTest {
+
+        @Test
+        @DisplayName("trovaOrario risolve l'orario e ordina le lezioni per giorno e ora")
+        void testTrovaOrarioOrdinato() {
+            Orario orario = orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+
+            assertSame(informatica, orario.corsoLaurea());
+            assertSame(resto0, orario.resto());
+            assertSame(anno1, orario.anno());
+            assertEquals(List.of(lunediPresto, lunediTardi, martedi), orario.lezioni());
+            assertThrows(UnsupportedOperationException.class, () -> orario.lezioni().clear());
+        }
+
+        @Test
+        @DisplayName("trovaOrario serve le richieste successive dalla cache")
+        void testTrovaOrarioDallaCache() {
+            Orario primo = orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+            Orario secondo = orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+
+            assertSame(primo, secondo);
+            verify(corsoLaureaService, times(1)).trovaCorsoLaurea("Informatica");
+            verify(lezioneDao, times(1)).trovaLezioniCorsoLaureaRestoAnno(1L, 10L, 100);
+            assertEquals(1, cache.getHit());
+            assertEquals(1, cache.getRicostruzioni());
+        }
+
+        @Test
+        @DisplayName("trovaOrario restituisce null se il corso di laurea non esiste")
+        void testTrovaOrarioCorsoInesistente() {
+            assertNull(orarioService.trovaOrario("Inesistente", "Resto 0", "Anno 1"));
+
+            verifyNoInteractions(restoService, annoDidatticoService, lezioneDao);
+            assertEquals(0, cache.getOrari());
+        }
+
+        @Test
+        @DisplayName("trovaOrario restituisce null se il resto non esiste")
+        void testTrovaOrarioRestoInesistente() {
+            assertNull(orarioService.trovaOrario("Informatica", "Resto 9", "Anno 1"));
+
+            verifyNoInteractions(lezioneDao);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test dell'invalidazione")
+    class InvalidazioneTest {
+
+        @Test
+        @DisplayName("aggiungiLezione ricostruisce l'orario che contiene la lezione")
+        void testAggiungiLezioneRicostruisce() {
+            orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+
+            lezioneService.aggiungiLezione(martedi);
+            orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+
+            verify(lezioneDao, times(2)).trovaLezioniCorsoLaureaRestoAnno(1L, 10L, 100);
+        }
+
+        @Test
+        @DisplayName("rimuoviLezione di un altro resto non tocca l'orario")
+        void testRimuoviLezioneAltroResto() throws Exception {
+            orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+            Resto resto1 = conId(new Resto(), 11L);
+
+            lezioneService.rimuoviLezione(new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"),
+                    Giorno.GIOVEDI, resto1, null, null));
+            orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+
+            verify(lezioneDao, times(1)).trovaLezioniCorsoLaureaRestoAnno(1L, 10L, 100);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test del metodo precarica")
+    class PrecaricaTest {
+
+        @Test
+        @DisplayName("precarica costruisce tutti gli orari senza risolvere i nomi")
+        void testPrecarica() {
+            informatica.getResti().add(resto0);
+            informatica.getAnniDidattici().add(anno1);
+            when(corsoLaureaService.trovaTutti(PianoCaricamento.ORARIO)).thenReturn(List.of(informatica));
+
+            assertEquals(1, orarioService.precarica());
+            orarioService.trovaOrario("Informatica", "Resto 0", "Anno 1");
+
+            verify(corsoLaureaService, never()).trovaCorsoLaurea(anyString());
+            assertEquals(1, cache.getHit());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.ProssimaLezione;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.IndiceProssimeLezioni;
+import it.unisa.uniclass.orari.service.LezioneService;
+import it.unisa.uniclass.orari.service.ProssimaLezioneService;
+import it.unisa.uniclass.utenti.model.Studente;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.reflect.Field;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe ProssimaLezioneService.
+ * Verifica la lezione in corso e la prossima calcolate per il resto e il semestre dello studente.
+ */
+@DisplayName("Test per la classe ProssimaLezioneService")
+public class ProssimaLezioneServiceTest {
+
+    @Mock
+    private LezioneService lezioneService;
+
+    private IndiceProssimeLezioni indice;
+    private ProssimaLezioneService prossimaLezioneService;
+    private Studente studente;
+
+    // Lunedì 2 dicembre 2024, primo semestre
+    private static final LocalDateTime LUNEDI_ALLE_DIECI = LocalDateTime.of(2024, 12, 2, 10, 0);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        indice = new IndiceProssimeLezioni();
+        prossimaLezioneService = new ProssimaLezioneService(lezioneService);
+        prossimaLezioneService.setIndice(indice);
+
+        Resto resto = new Resto();
+        Field idField = Resto.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(resto, 1L);
+        studente = new Studente();
+        studente.setResto(resto);
+
+        Aula p3 = new Aula();
+        p3.setNome("P3");
+        Corso corso = new Corso("Programmazione");
+        when(lezioneService.trovaTutte()).thenReturn(List.of(
+                new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.LUNEDI, resto, corso, p3),
+                new Lezione(1, Time.valueOf("14:00:00"), Time.valueOf("16:00:00"), Giorno.MARTEDI, resto, corso, p3),
+                new Lezione(2, Time.valueOf("11:00:00"), Time.valueOf("13:00:00"), Giorno.LUNEDI, resto, corso, p3)));
+    }
+
+    @Test
+    @DisplayName("trovaProssimaLezione usa il resto dello studente e il semestre in corso")
+    void testTrovaProssimaLezione() {
+        ProssimaLezione risultato = prossimaLezioneService.trovaProssimaLezione(studente, LUNEDI_ALLE_DIECI);
+
+        assertEquals("P3", risultato.inCorso().aula());
+        assertEquals(Giorno.LUNEDI, risultato.inCorso().giorno());
+        assertEquals(Giorno.MARTEDI, risultato.prossima().giorno());
+    }
+
+    @Test
+    @DisplayName("trovaProssimaLezione legge le lezioni dal database una sola volta")
+    void testTrovaProssimaLezioneCaricaUnaVolta() {
+        prossimaLezioneService.trovaProssimaLezione(studente, LUNEDI_ALLE_DIECI);
+        prossimaLezioneService.trovaProssimaLezione(studente, LUNEDI_ALLE_DIECI.plusHours(1));
+
+        verify(lezioneService, times(1)).trovaTutte();
+        assertTrue(indice.isCaricato());
+    }
+
+    @Test
+    @DisplayName("trovaProssimaLezione considera solo le lezioni dell'anno dello studente")
+    void testTrovaProssimaLezioneAnnoDidattico() {
+        Corso primoAnno = new Corso("Programmazione");
+        primoAnno.setAnnoDidattico(new AnnoDidattico("Anno 1"));
+        Corso secondoAnno = new Corso("Basi di Dati");
+        secondoAnno.setAnnoDidattico(new AnnoDidattico("Anno 2"));
+        when(lezioneService.trovaTutte()).thenReturn(List.of(
+                new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.LUNEDI, studente.getResto(), primoAnno, null),
+                new Lezione(1, Time.valueOf("10:00:00"), Time.valueOf("12:00:00"), Giorno.LUNEDI, studente.getResto(), secondoAnno, null)));
+        // Iscritto nell'anno accademico 2023/24: a dicembre 2024 frequenta il secondo anno
+        studente.setIscrizione(LocalDate.of(2023, 10, 1));
+
+        ProssimaLezione risultato = prossimaLezioneService.trovaProssimaLezione(studente, LUNEDI_ALLE_DIECI.plusMinutes(30));
+
+        assertEquals("Basi di Dati", risultato.inCorso().corso());
+    }
+
+    @Test
+    @DisplayName("annoDidattico conta gli anni accademici dall'iscrizione")
+    void testAnnoDidattico() {
+        studente.setIscrizione(LocalDate.of(2024, 9, 15));
+        assertEquals("Anno 1", ProssimaLezioneService.annoDidattico(studente, LocalDate.of(2025, 3, 1)));
+        assertEquals("Anno 2", ProssimaLezioneService.annoDidattico(studente, LocalDate.of(2025, 10, 1)));
+        assertNull(ProssimaLezioneService.annoDidattico(new Studente(), LocalDate.of(2025, 3, 1)));
+    }
+
+    @Test
+    @DisplayName("trovaProssimaLezione restituisce null per uno studente senza resto")
+    void testTrovaProssimaLezioneSenzaResto() {
+        assertNull(prossimaLezioneService.trovaProssimaLezione(new Studente(), LUNEDI_ALLE_DIECI));
+        assertNull(prossimaLezioneService.trovaProssimaLezione(null, LUNEDI_ALLE_DIECI));
+        verify(lezioneService, never()).trovaTutte();
+    }
+}
@@ -0,0 +1,131 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.AnnoDidatticoService;
+import it.unisa.uniclass.orari.service.AulaService;
+import it.unisa.uniclass.orari.service.CacheRiferimenti;
+import it.unisa.uniclass.orari.service.CorsoLaureaService;
+import it.unisa.uniclass.orari.service.RiferimentiService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe RiferimentiService.
+ * Verifica che i dati di riferimento vengano letti dal database una sola volta e serviti dalla cache.
+ */
+@DisplayName("Test per la classe RiferimentiService")
+public class RiferimentiServiceTest {
+
+    @Mock
+    private CorsoLaureaService corsoLaureaService;
+
+    @Mock
+    private AnnoDidatticoService annoDidatticoService;
+
+    @Mock
+    private AulaService aulaService;
+
+    private CacheRiferimenti cache;
+    private RiferimentiService riferimentiService;
+    private CorsoLaurea informatica;
+    private Resto resto0;
+    private AnnoDidattico primoAnno;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        cache = new CacheRiferimenti();
+        riferimentiService = new RiferimentiService(corsoLaureaService, annoDidatticoService, aulaService);
+        riferimentiService.setCache(cache);
+
+        informatica = new CorsoLaurea("Informatica");
+        Field idField = CorsoLaurea.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(informatica, 1L);
+        resto0 = new Resto("Resto 0", informatica);
+        Field restoIdField = Resto.class.getDeclaredField("id");
+        restoIdField.setAccessible(true);
+        restoIdField.set(resto0, 1L);
+        informatica.setResti(List.of(resto0));
+        primoAnno = new AnnoDidattico("Anno 1");
+        primoAnno.setCorsiLaurea(List.of(informatica));
+
+        when(corsoLaureaService.trovaTutti()).thenReturn(List.of(informatica));
+        when(corsoLaureaService.trovaTutti(PianoCaricamento.ORARIO)).thenReturn(List.of(informatica));
+        when(annoDidatticoService.trovaTutti(PianoCaricamento.ORARIO)).thenReturn(List.of(primoAnno));
+        when(aulaService.trovaTutte()).thenReturn(List.of(new Aula(1, "F3", "P3"), new Aula(2, "F", "F1")));
+    }
+
+    @Test
+    @DisplayName("trovaCorsoLaurea legge i corsi dal database una sola volta")
+    void testTrovaCorsoLaureaUnaVolta() {
+        assertSame(informatica, riferimentiService.trovaCorsoLaurea("Informatica"));
+        assertSame(informatica, riferimentiService.trovaCorsoLaurea(1L));
+        assertEquals(List.of(informatica), riferimentiService.trovaCorsiLaurea());
+
+        verify(corsoLaureaService, times(1)).trovaTutti();
+        assertEquals(1, cache.getCorsiLaurea().getMiss());
+        assertEquals(2, cache.getCorsiLaurea().getHit());
+    }
+
+    @Test
+    @DisplayName("trovaRestiCorsoLaurea e trovaResto usano il nome del corso di laurea")
+    void testTrovaResti() {
+        assertEquals(List.of(resto0), riferimentiService.trovaRestiCorsoLaurea("Informatica"));
+        assertSame(resto0, riferimentiService.trovaResto("Resto 0", "Informatica"));
+        assertSame(resto0, riferimentiService.trovaResto(1L));
+        assertTrue(riferimentiService.trovaRestiCorsoLaurea("Matematica").isEmpty());
+    }
+
+    @Test
+    @DisplayName("trovaAnniCorsoLaurea raggruppa gli anni per corso di laurea")
+    void testTrovaAnni() {
+        assertEquals(List.of(primoAnno), riferimentiService.trovaAnniCorsoLaurea("Informatica"));
+        assertTrue(riferimentiService.trovaAnniCorsoLaurea("Matematica").isEmpty());
+    }
+
+    @Test
+    @DisplayName("trovaEdifici restituisce gli edifici in ordine senza interrogare il database")
+    void testTrovaEdifici() {
+        assertEquals(List.of("F", "F3"), riferimentiService.trovaEdifici());
+        assertEquals(1, riferimentiService.trovaAuleEdificio("F3").size());
+        assertEquals("F1", riferimentiService.trovaAula("F1").getNome());
+
+        verify(aulaService, times(1)).trovaTutte();
+        verify(aulaService, never()).trovaEdifici();
+    }
+
+    @Test
+    @DisplayName("dopo una scrittura la tabella viene ricaricata")
+    void testRicaricaDopoInvalidazione() {
+        riferimentiService.trovaRestiCorsoLaurea("Informatica");
+        cache.getResti().invalida();
+        riferimentiService.trovaRestiCorsoLaurea("Informatica");
+
+        verify(corsoLaureaService, times(2)).trovaTutti(PianoCaricamento.ORARIO);
+    }
+
+    @Test
+    @DisplayName("precarica carica tutte le tabelle")
+    void testPrecarica() {
+        assertEquals(5, riferimentiService.precarica());
+
+        riferimentiService.trovaCorsiLaurea();
+        riferimentiService.trovaEdifici();
+        verify(corsoLaureaService, times(1)).trovaTutti();
+        verify(aulaService, times(1)).trovaTutte();
+    }
+}
@@ -0,0 +1,183 @@
+package it.unisa.uniclass.testing.unit.orari.service;
+
+import it.unisa.uniclass.orari.model.AnnoDidattico;
+import it.unisa.uniclass.orari.model.Aula;
+import it.unisa.uniclass.orari.model.Conflitto;
+import it.unisa.uniclass.orari.model.Corso;
+import it.unisa.uniclass.orari.model.CorsoLaurea;
+import it.unisa.uniclass.orari.model.Giorno;
+import it.unisa.uniclass.orari.model.Lezione;
+import it.unisa.uniclass.orari.model.Resto;
+import it.unisa.uniclass.orari.service.RilevatoreConflitti;
+import it.unisa.uniclass.utenti.model.Docente;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.Time;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe RilevatoreConflitti.
+ * Verifica le sovrapposizioni di aule, docenti e studenti trovate dalla scansione.
+ */
+@DisplayName("Test per la classe RilevatoreConflitti")
+public class RilevatoreConflittiTest {
+
+    private Aula p3;
+    private Aula p4;
+    private Resto resto0;
+    private Resto resto1;
+    private Corso programmazione;
+    private Corso basiDiDati;
+    private Docente rossi;
+
+    @BeforeEach
+    void setUp() {
+        p3 = new Aula();
+        p3.setNome("P3");
+        p4 = new Aula();
+        p4.setNome("P4");
+
+        CorsoLaurea informatica = new CorsoLaurea("Informatica");
+        AnnoDidattico primo = new AnnoDidattico("Anno 1");
+        resto0 = new Resto("Resto 0", informatica);
+        resto1 = new Resto("Resto 1", informatica);
+        programmazione = new Corso("Programmazione");
+        programmazione.setCorsoLaurea(informatica);
+        programmazione.setAnnoDidattico(primo);
+        basiDiDati = new Corso("Basi di Dati");
+        basiDiDati.setCorsoLaurea(informatica);
+        basiDiDati.setAnnoDidattico(primo);
+
+        rossi = new Docente();
+        rossi.setMatricola("0512100001");
+    }
+
+    private static Lezione lezione(Long id, Giorno giorno, String inizio, String fine, Resto resto, Corso corso, Aula aula) throws Exception {
+        Lezione lezione = new Lezione(1, Time.valueOf(inizio), Time.valueOf(fine), giorno, resto, corso, aula);
+        Field idField = Lezione.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(lezione, id);
+        return lezione;
+    }
+
+    @Nested
+    @DisplayName("Test del controllo in blocco")
+    class BloccoTest {
+
+        @Test
+        @DisplayName("rileva trova due lezioni nella stessa aula alla stessa ora")
+        void testRilevaAula() throws Exception {
+            Lezione prima = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", resto0, programmazione, p3);
+            Lezione seconda = lezione(2L, Giorno.LUNEDI, "10:00:00", "12:00:00", resto1, basiDiDati, p3);
+
+            List<Conflitto> conflitti = RilevatoreConflitti.rileva(List.of(seconda, prima));
+
+            assertEquals(1, conflitti.size());
+            assertEquals(Conflitto.Tipo.AULA, conflitti.get(0).tipo());
+            assertEquals("P3", conflitti.get(0).risorsa());
+            assertSame(prima, conflitti.get(0).prima());
+            assertSame(seconda, conflitti.get(0).seconda());
+        }
+
+        @Test
+        @DisplayName("rileva trova un docente in due aule e gli stessi studenti in due lezioni")
+        void testRilevaDocenteStudenti() throws Exception {
+            Lezione prima = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", resto0, programmazione, p3);
+            Lezione seconda = lezione(2L, Giorno.LUNEDI, "10:30:00", "12:00:00", resto0, basiDiDati, p4);
+            prima.setDocenti(List.of(rossi));
+            seconda.setDocenti(List.of(rossi));
+
+            List<Conflitto> conflitti = RilevatoreConflitti.rileva(List.of(prima, seconda));
+
+            assertEquals(2, conflitti.size());
+            assertTrue(conflitti.stream().anyMatch(c -> c.tipo() == Conflitto.Tipo.DOCENTE && c.risorsa().equals("0512100001")));
+            assertTrue(conflitti.stream().anyMatch(c -> c.tipo() == Conflitto.Tipo.STUDENTI));
+        }
+
+        @Test
+        @DisplayName("rileva ignora lezioni che si toccano, in giorni o semestri diversi")
+        void testRilevaNessunConflitto() throws Exception {
+            Lezione mattina = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", resto0, programmazione, p3);
+            Lezione dopo = lezione(2L, Giorno.LUNEDI, "11:00:00", "13:00:00", resto0, basiDiDati, p3);
+            Lezione martedi = lezione(3L, Giorno.MARTEDI, "09:00:00", "11:00:00", resto0, basiDiDati, p3);
+            Lezione secondoSemestre = lezione(4L, Giorno.LUNEDI, "09:00:00", "11:00:00", resto0, basiDiDati, p3);
+            secondoSemestre.setSemestre(2);
+
+            assertTrue(RilevatoreConflitti.rileva(List.of(mattina, dopo, martedi, secondoSemestre)).isEmpty());
+        }
+
+        @Test
+        @DisplayName("rileva trova tutte le coppie quando più lezioni si sovrappongono")
+        void testRilevaSovrapposizioniMultiple() throws Exception {
+            Lezione lunga = lezione(1L, Giorno.LUNEDI, "08:00:00", "14:00:00", null, null, p3);
+            Lezione prima = lezione(2L, Giorno.LUNEDI, "09:00:00", "10:00:00", null, null, p3);
+            Lezione seconda = lezione(3L, Giorno.LUNEDI, "11:00:00", "12:00:00", null, null, p3);
+
+            List<Conflitto> conflitti = RilevatoreConflitti.rileva(List.of(prima, seconda, lunga));
+
+            assertEquals(2, conflitti.size());
+            assertTrue(conflitti.stream().allMatch(c -> c.coinvolge(lunga)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test del controllo di una lezione")
+    class LezioneTest {
+
+        @Test
+        @DisplayName("rileva restituisce solo i conflitti della lezione da salvare")
+        void testRilevaLezione() throws Exception {
+            Lezione salvata1 = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", null, null, p3);
+            Lezione salvata2 = lezione(2L, Giorno.LUNEDI, "10:00:00", "11:00:00", null, null, p3);
+            Lezione nuova = lezione(null, Giorno.LUNEDI, "10:00:00", "12:00:00", null, null, p4);
+
+            assertTrue(RilevatoreConflitti.rileva(nuova, List.of(salvata1, salvata2)).isEmpty());
+
+            nuova.setAula(p3);
+            assertEquals(2, RilevatoreConflitti.rileva(nuova, List.of(salvata1, salvata2)).size());
+        }
+
+        @Test
+        @DisplayName("rileva non confronta una lezione aggiornata con la sua versione salvata")
+        void testRilevaLezioneAggiornata() throws Exception {
+            Lezione salvata = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", null, null, p3);
+            Lezione aggiornata = lezione(1L, Giorno.LUNEDI, "10:00:00", "12:00:00", null, null, p3);
+
+            assertTrue(RilevatoreConflitti.rileva(aggiornata, List.of(salvata)).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test del controllo di un'importazione")
+    class ImportazioneTest {
+
+        @Test
+        @DisplayName("rileva restituisce solo i conflitti che coinvolgono una lezione importata")
+        void testRilevaImportazione() throws Exception {
+            Lezione salvata1 = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", null, null, p3);
+            Lezione salvata2 = lezione(2L, Giorno.LUNEDI, "10:00:00", "11:00:00", null, null, p3);
+            Lezione importata = lezione(null, Giorno.LUNEDI, "10:30:00", "12:00:00", null, null, p4);
+            Lezione sovrapposta = lezione(null, Giorno.LUNEDI, "11:00:00", "12:30:00", null, null, p4);
+
+            List<Conflitto> conflitti = RilevatoreConflitti.rileva(List.of(importata, sovrapposta), List.of(salvata1, salvata2));
+
+            assertEquals(1, conflitti.size());
+            assertEquals("P4", conflitti.get(0).risorsa());
+        }
+
+        @Test
+        @DisplayName("rileva sostituisce le lezioni salvate con quelle importate con lo stesso ID")
+        void testRilevaImportazioneAggiornata() throws Exception {
+            Lezione salvata = lezione(1L, Giorno.LUNEDI, "09:00:00", "11:00:00", null, null, p3);
+            Lezione aggiornata = lezione(1L, Giorno.LUNEDI, "10:00:00", "12:00:00", null, null, p3);
+
+            assertTrue(RilevatoreConflitti.rileva(List.of(aggiornata), List.of(salvata)).isEmpty());
+        }
+    }
+}
@@ -3,6 +3,8 @@ package it.unisa.uniclass.testing.unit.orari.service.dao;
 import it.unisa.uniclass.orari.model.AnnoDidattico;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.orari.service.dao.AnnoDidatticoDAO;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
@@ -570,5 +572,34 @@ public class AnnoDidatticoDAOTest {
             verify(emUniClass, times(1)).remove(annoDidattico);
         }
     }
-}
 
+    @Nested
+    @DisplayName("Test dei metodi con piano di caricamento")
+    class PianoCaricamentoTest {
+
+        @Test
+        @DisplayName("trovaTuttiCorsoLaurea applica il grafo del piano")
+        void testTrovaTuttiCorsoLaureaPiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("AnnoDidattico.orario");
+            when(emUniClass.createNamedQuery(AnnoDidattico.TROVA_ANNI_CORSOLAUREA, AnnoDidattico.class)).thenReturn(typedQuery);
+            when(typedQuery.getResultList()).thenReturn(new ArrayList<>());
+
+            assertNotNull(annoDidatticoDAO.trovaTuttiCorsoLaurea(1L, PianoCaricamento.ORARIO));
+            verify(typedQuery).setParameter("corsoId", 1L);
+            verify(typedQuery).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+
+        @Test
+        @DisplayName("trovaTutti applica il grafo del piano")
+        void testTrovaTuttiPiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("AnnoDidattico.riferimento");
+            when(emUniClass.createNamedQuery(AnnoDidattico.TROVA_TUTTI, AnnoDidattico.class)).thenReturn(typedQuery);
+            when(typedQuery.getResultList()).thenReturn(new ArrayList<>());
+
+            assertNotNull(annoDidatticoDAO.trovaTutti(PianoCaricamento.RIFERIMENTO));
+            verify(typedQuery).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package it.unisa.uniclass.testing.unit.orari.service.dao;
 
 import it.unisa.uniclass.orari.model.Aula;
 import it.unisa.uniclass.orari.service.dao.AulaDAO;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
@@ -447,5 +449,34 @@ public class AulaDAOTest {
             verify(emUniClass, times(1)).merge(result.get(0));
         }
     }
-}
 
+    @Nested
+    @DisplayName("Test dei metodi con piano di caricamento")
+    class PianoCaricamentoTest {
+
+        @Test
+        @DisplayName("trovaAuleEdificio applica il grafo del piano")
+        void testTrovaAuleEdificioPiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("Aula.riferimento");
+            when(emUniClass.createNamedQuery(Aula.TROVA_AULA_EDIFICIO, Aula.class)).thenReturn(typedQueryAula);
+            when(typedQueryAula.getResultList()).thenReturn(new ArrayList<>());
+
+            assertNotNull(aulaDAO.trovaAuleEdificio("F3", PianoCaricamento.EDIFICIO));
+            verify(typedQueryAula).setParameter("edificio", "F3");
+            verify(typedQueryAula).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+
+        @Test
+        @DisplayName("trovaTutte applica il grafo del piano")
+        void testTrovaTuttePiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("Aula.riferimento");
+            when(emUniClass.createNamedQuery(Aula.TROVA_TUTTE, Aula.class)).thenReturn(typedQueryAula);
+            when(typedQueryAula.getResultList()).thenReturn(new ArrayList<>());
+
+            assertNotNull(aulaDAO.trovaTutte(PianoCaricamento.RIFERIMENTO));
+            verify(typedQueryAula).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package it.unisa.uniclass.testing.unit.orari.service.dao;
 import it.unisa.uniclass.orari.model.AnnoDidattico;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.orari.service.dao.CorsoLaureaDAO;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
@@ -329,5 +331,35 @@ public class CorsoLaureaDAOTest {
             verify(emUniClass, times(1)).merge(result);
         }
     }
-}
 
+    @Nested
+    @DisplayName("Test dei metodi con piano di caricamento")
+    class PianoCaricamentoTest {
+
+        @Test
+        @DisplayName("trovaTutti applica il grafo del piano")
+        void testTrovaTuttiPiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("CorsoLaurea.orario");
+            when(emUniClass.createNamedQuery(CorsoLaurea.TROVA_TUTTI, CorsoLaurea.class)).thenReturn(typedQueryCorsoLaurea);
+            when(typedQueryCorsoLaurea.getResultList()).thenReturn(new ArrayList<>());
+
+            assertNotNull(corsoLaureaDAO.trovaTutti(PianoCaricamento.ORARIO));
+            verify(typedQueryCorsoLaurea).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+
+        @Test
+        @DisplayName("trovaCorsoLaurea per ID applica il grafo del piano")
+        void testTrovaCorsoLaureaPiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("CorsoLaurea.modifica");
+            CorsoLaurea corsoLaurea = new CorsoLaurea("Informatica");
+            when(emUniClass.createNamedQuery(CorsoLaurea.TROVA_CORSOLAUREA, CorsoLaurea.class)).thenReturn(typedQueryCorsoLaurea);
+            when(typedQueryCorsoLaurea.getSingleResult()).thenReturn(corsoLaurea);
+
+            assertSame(corsoLaurea, corsoLaureaDAO.trovaCorsoLaurea(1L, PianoCaricamento.MODIFICA));
+            verify(typedQueryCorsoLaurea).setParameter("id", 1L);
+            verify(typedQueryCorsoLaurea).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+    }
+}
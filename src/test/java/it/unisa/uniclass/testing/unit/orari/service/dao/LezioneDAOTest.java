@@ -1,13 +1,16 @@
 package it.unisa.uniclass.testing.unit.orari.service.dao;
 
+import it.unisa.uniclass.common.exceptions.ConflittoLezioniException;
 import it.unisa.uniclass.orari.model.*;
 import it.unisa.uniclass.orari.service.dao.LezioneDAO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -31,6 +34,9 @@ public class LezioneDAOTest {
     @Mock
     private TypedQuery<Lezione> typedQueryLezione;
 
+    @Mock
+    private Query queryBlocco;
+
     private LezioneDAO lezioneDAO;
     private Lezione lezione;
 
@@ -307,6 +313,8 @@ public class LezioneDAOTest {
 
             assertNotNull(result);
             assertEquals(1, result.size());
+            // La query viene eseguita una sola volta
+            verify(typedQueryLezione, times(1)).getResultList();
         }
 
         @Test
@@ -428,6 +436,59 @@ public class LezioneDAOTest {
         }
     }
 
+    @Nested
+    @DisplayName("Test dei metodi per conflitti e calendari")
+    class TrovaLezioniSemestreTest {
+
+        @Test
+        @DisplayName("trovaLezioniGiornoSemestre restituisce le lezioni del giorno")
+        void testTrovaLezioniGiornoSemestre() {
+            when(emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_GIORNO_SEMESTRE, Lezione.class))
+                    .thenReturn(typedQueryLezione);
+            when(typedQueryLezione.setParameter(anyString(), any()))
+                    .thenReturn(typedQueryLezione);
+            when(typedQueryLezione.getResultList())
+                    .thenReturn(List.of(lezione));
+
+            List<Lezione> result = lezioneDAO.trovaLezioniGiornoSemestre(Giorno.LUNEDI, 1);
+
+            assertEquals(1, result.size());
+            verify(typedQueryLezione).setParameter("giorno", Giorno.LUNEDI);
+            verify(typedQueryLezione).setParameter("semestre", 1);
+        }
+
+        @Test
+        @DisplayName("trovaLezioniSemestre restituisce le lezioni del semestre")
+        void testTrovaLezioniSemestre() {
+            when(emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_SEMESTRE, Lezione.class))
+                    .thenReturn(typedQueryLezione);
+            when(typedQueryLezione.setParameter("semestre", 2))
+                    .thenReturn(typedQueryLezione);
+            when(typedQueryLezione.getResultList())
+                    .thenReturn(new ArrayList<>());
+
+            List<Lezione> result = lezioneDAO.trovaLezioniSemestre(2);
+
+            assertTrue(result.isEmpty());
+            verify(typedQueryLezione, times(1)).getResultList();
+        }
+
+        @Test
+        @DisplayName("trovaLezioniMatricolaDocente restituisce le lezioni del docente")
+        void testTrovaLezioniMatricolaDocente() {
+            when(emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_MATRICOLA_DOCENTE, Lezione.class))
+                    .thenReturn(typedQueryLezione);
+            when(typedQueryLezione.setParameter("matricola", "0512100001"))
+                    .thenReturn(typedQueryLezione);
+            when(typedQueryLezione.getResultList())
+                    .thenReturn(List.of(lezione));
+
+            List<Lezione> result = lezioneDAO.trovaLezioniMatricolaDocente("0512100001");
+
+            assertEquals(1, result.size());
+        }
+    }
+
     @Nested
     @DisplayName("Test del metodo aggiungiLezione(Lezione l)")
     class AggiungiLezioneTest {
@@ -462,6 +523,86 @@ public class LezioneDAOTest {
         }
     }
 
+    @Nested
+    @DisplayName("Test dei salvataggi controllati")
+    class AggiungiLezioniControllateTest {
+
+        @BeforeEach
+        void setUpBlocco() {
+            when(emUniClass.createNamedQuery(Lezione.BLOCCA_GIORNATA)).thenReturn(queryBlocco);
+            when(queryBlocco.setParameter(anyInt(), any())).thenReturn(queryBlocco);
+        }
+
+        private Lezione salvata(long id, String inizio, String fine) throws Exception {
+            Lezione salvata = new Lezione(1, Time.valueOf(inizio), Time.valueOf(fine), Giorno.LUNEDI, null, null, lezione.getAula());
+            java.lang.reflect.Field idField = Lezione.class.getDeclaredField("id");
+            idField.setAccessible(true);
+            idField.set(salvata, id);
+            return salvata;
+        }
+
+        @Test
+        @DisplayName("aggiungiLezioneControllata prende il lock della giornata prima di leggerla e salvare")
+        void testAggiungiLezioneControllata() {
+            when(emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_GIORNO_SEMESTRE, Lezione.class)).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.setParameter(anyString(), any())).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.getResultList()).thenReturn(new ArrayList<>());
+
+            assertNull(lezioneDAO.aggiungiLezioneControllata(lezione));
+
+            InOrder ordine = inOrder(queryBlocco, typedQueryLezione, emUniClass);
+            ordine.verify(queryBlocco).setParameter(1, LezioneDAO.BLOCCO_LEZIONI);
+            ordine.verify(queryBlocco).setParameter(2, Giorno.values().length + Giorno.LUNEDI.ordinal());
+            ordine.verify(queryBlocco).getSingleResult();
+            ordine.verify(typedQueryLezione).getResultList();
+            ordine.verify(emUniClass).merge(lezione);
+        }
+
+        @Test
+        @DisplayName("aggiungiLezioneControllata non salva una lezione in conflitto")
+        void testAggiungiLezioneControllataConflitto() throws Exception {
+            when(emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_GIORNO_SEMESTRE, Lezione.class)).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.setParameter(anyString(), any())).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.getResultList()).thenReturn(List.of(salvata(3L, "10:00:00", "12:00:00")));
+
+            assertThrows(ConflittoLezioniException.class, () -> lezioneDAO.aggiungiLezioneControllata(lezione));
+            verify(emUniClass, never()).merge(any());
+        }
+
+        @Test
+        @DisplayName("aggiungiLezioniControllate restituisce le versioni precedenti staccate dal contesto")
+        void testAggiungiLezioniControllateAggiornata() throws Exception {
+            Lezione precedente = salvata(3L, "14:00:00", "16:00:00");
+            Lezione aggiornata = salvata(3L, "09:00:00", "11:00:00");
+            Lezione martedi = new Lezione(1, Time.valueOf("09:00:00"), Time.valueOf("11:00:00"), Giorno.MARTEDI, null, null, null);
+            when(emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_SEMESTRE, Lezione.class)).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.setParameter("semestre", 1)).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.getResultList()).thenReturn(List.of(precedente));
+
+            List<Lezione> precedenti = lezioneDAO.aggiungiLezioniControllate(List.of(martedi, aggiornata));
+
+            assertEquals(List.of(precedente), precedenti);
+            verify(queryBlocco, times(2)).getSingleResult();
+            verify(typedQueryLezione, times(1)).getResultList();
+            InOrder ordine = inOrder(emUniClass);
+            ordine.verify(emUniClass).detach(precedente);
+            ordine.verify(emUniClass).merge(martedi);
+            ordine.verify(emUniClass).merge(aggiornata);
+        }
+
+        @Test
+        @DisplayName("aggiungiLezioniControllate non salva nulla se una lezione è in conflitto")
+        void testAggiungiLezioniControllateConflitto() throws Exception {
+            Lezione altra = new Lezione(1, Time.valueOf("14:00:00"), Time.valueOf("16:00:00"), Giorno.LUNEDI, null, null, lezione.getAula());
+            when(emUniClass.createNamedQuery(Lezione.TROVA_LEZIONI_SEMESTRE, Lezione.class)).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.setParameter("semestre", 1)).thenReturn(typedQueryLezione);
+            when(typedQueryLezione.getResultList()).thenReturn(List.of(salvata(3L, "10:00:00", "12:00:00")));
+
+            assertThrows(ConflittoLezioniException.class, () -> lezioneDAO.aggiungiLezioniControllate(List.of(altra, lezione)));
+            verify(emUniClass, never()).merge(any());
+        }
+    }
+
     @Nested
     @DisplayName("Test del metodo rimuoviLezione(Lezione l)")
     class RimuoviLezioneTest {
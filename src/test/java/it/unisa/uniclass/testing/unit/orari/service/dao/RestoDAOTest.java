@@ -3,6 +3,8 @@ package it.unisa.uniclass.testing.unit.orari.service.dao;
 import it.unisa.uniclass.orari.model.CorsoLaurea;
 import it.unisa.uniclass.orari.model.Resto;
 import it.unisa.uniclass.orari.service.dao.RestoDAO;
+import it.unisa.uniclass.orari.model.PianoCaricamento;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
@@ -429,5 +431,36 @@ public class RestoDAOTest {
             verify(emUniClass, times(1)).merge(result.get(0));
         }
     }
-}
 
+    @Nested
+    @DisplayName("Test dei metodi con piano di caricamento")
+    class PianoCaricamentoTest {
+
+        @Test
+        @DisplayName("trovaRestiCorsoLaurea applica il grafo del piano")
+        void testTrovaRestiCorsoLaureaPiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("Resto.riferimento");
+            when(emUniClass.createNamedQuery(Resto.TROVA_RESTI_CORSO, Resto.class)).thenReturn(typedQueryResto);
+            when(typedQueryResto.getResultList()).thenReturn(List.of(resto));
+
+            List<Resto> result = restoDAO.trovaRestiCorsoLaurea("Ingegneria Informatica", PianoCaricamento.RIFERIMENTO);
+
+            assertEquals(1, result.size());
+            verify(typedQueryResto).setParameter("nome", "Ingegneria Informatica");
+            verify(typedQueryResto).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+
+        @Test
+        @DisplayName("trovaResto per ID applica il grafo del piano")
+        void testTrovaRestoPiano() {
+            EntityGraph<?> grafo = mock(EntityGraph.class);
+            doReturn(grafo).when(emUniClass).getEntityGraph("Resto.modifica");
+            when(emUniClass.createNamedQuery(Resto.TROVA_RESTO, Resto.class)).thenReturn(typedQueryResto);
+            when(typedQueryResto.getSingleResult()).thenReturn(resto);
+
+            assertSame(resto, restoDAO.trovaResto(1L, PianoCaricamento.MODIFICA));
+            verify(typedQueryResto).setHint(PianoCaricamento.SUGGERIMENTO, grafo);
+        }
+    }
+}
@@ -10,7 +10,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class AttivaUtentiServletTest {
@@ -65,12 +69,19 @@ class AttivaUtentiServletTest {
 
         when(accademicoService.trovaEmailUniClass("test@unisa.it")).thenReturn(acc);
         when(accademicoService.trovaAccademicoUniClass("12345")).thenReturn(acc);
+        StringWriter resoconto = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(resoconto));
 
         servlet.doPost(request, response);
 
         verify(acc).setAttivato(true);
         verify(accademicoService).aggiungiAccademico(acc);
-        verify(response).sendRedirect("/ctx/PersonaleTA/AttivaUtenti.jsp");
+        // La password generata arriva solo nel resoconto, come per l'attivazione massiva
+        verify(response, never()).sendRedirect(anyString());
+        verify(response).setHeader("Cache-Control", "no-store");
+        String[] righe = resoconto.toString().split("\\R");
+        assertEquals("riga,email,matricola,esito,password", righe[0]);
+        assertTrue(righe[1].matches("1,test@unisa\\.it,12345,ATTIVATO,.{8}"));
     }
 
     @Test
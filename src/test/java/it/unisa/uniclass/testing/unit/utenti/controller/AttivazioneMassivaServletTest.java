@@ -0,0 +1,114 @@
+package it.unisa.uniclass.testing.unit.utenti.controller;
+
+import it.unisa.uniclass.utenti.controller.AttivazioneMassivaServlet;
+import it.unisa.uniclass.utenti.model.EsitoAttivazione;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.RigaAttivazione;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.AttivazioneMassivaService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Part;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AttivazioneMassivaServletTest {
+
+    private AttivazioneMassivaServlet servlet;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private HttpSession session;
+    private AttivazioneMassivaService service;
+    private StringWriter corpo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        session = mock(HttpSession.class);
+        service = mock(AttivazioneMassivaService.class);
+        servlet = new AttivazioneMassivaServlet();
+        servlet.setAttivazioneMassivaService(service);
+        corpo = new StringWriter();
+
+        when(request.getSession(false)).thenReturn(session);
+        when(request.getServletContext()).thenReturn(mock(ServletContext.class));
+        when(response.getWriter()).thenReturn(new PrintWriter(corpo));
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale("1", "ta@unisa.it", Tipo.PersonaleTA));
+    }
+
+    private void caricaFile(String contenuto) throws Exception {
+        Part part = mock(Part.class);
+        when(part.getInputStream()).thenReturn(new ByteArrayInputStream(contenuto.getBytes(StandardCharsets.UTF_8)));
+        when(request.getPart("file")).thenReturn(part);
+    }
+
+    @Test
+    void testSoloPersonaleTA() throws Exception {
+        when(session.getAttribute(Principale.ATTRIBUTO_SESSIONE)).thenReturn(new Principale("0512100001", "s@studenti.unisa.it", Tipo.Studente));
+
+        servlet.doPost(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testOperazioneNonValida() throws Exception {
+        when(request.getParameter("operazione")).thenReturn("elimina");
+        caricaFile("a@unisa.it,1,Studente\n");
+
+        servlet.doPost(request, response);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testFileTroppoGrande() throws Exception {
+        when(request.getParameter("operazione")).thenReturn("attiva");
+        caricaFile("a@unisa.it,1,Studente\n".repeat(AttivazioneMassivaService.MASSIMO_RIGHE + 1));
+
+        servlet.doPost(request, response);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), anyString());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEsitoInCsv() throws Exception {
+        when(request.getParameter("operazione")).thenReturn("attiva");
+        caricaFile("email,matricola,tipo\na@unisa.it,1,Studente\n=b@unisa.it,2,Docente\n");
+        when(service.attiva(anyList(), any())).thenAnswer(invocation -> {
+            List<RigaAttivazione> righe = invocation.getArgument(0);
+            Consumer<List<EsitoAttivazione>> destinazione = invocation.getArgument(1);
+            destinazione.accept(List.of(EsitoAttivazione.di(righe.get(0), EsitoAttivazione.Stato.ATTIVATO, "Ab3$xyz9"),
+                    EsitoAttivazione.di(righe.get(1), EsitoAttivazione.Stato.NON_TROVATO)));
+            return 1;
+        });
+
+        servlet.doPost(request, response);
+
+        verify(response).setContentType("text/csv");
+        String[] righe = corpo.toString().split("\\R");
+        verify(response).setHeader("Cache-Control", "no-store");
+        assertEquals("riga,email,matricola,esito,password", righe[0]);
+        assertTrue(righe[1].startsWith("2,") && righe[1].endsWith(",ATTIVATO,Ab3$xyz9"));
+        assertTrue(righe[2].contains("'=b@unisa.it") && righe[2].endsWith(",NON_TROVATO,"));
+        verify(response, never()).sendError(anyInt(), anyString());
+    }
+}
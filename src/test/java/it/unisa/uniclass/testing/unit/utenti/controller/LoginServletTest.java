@@ -1,9 +1,14 @@
 package it.unisa.uniclass.testing.unit.utenti.controller;
 
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
 import it.unisa.uniclass.utenti.controller.LoginServlet;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Credenziali;
 import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.service.AccademicoService;
+import it.unisa.uniclass.utenti.service.CredenzialiService;
 import it.unisa.uniclass.utenti.service.PersonaleTAService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -35,6 +40,11 @@ class LoginServletTest {
             return Mockito.mock(PersonaleTAService.class);
         }
 
+        @Override
+        protected CredenzialiService getCredenzialiService() {
+            return Mockito.mock(CredenzialiService.class);
+        }
+
         @Override
         public void doGet(HttpServletRequest req, HttpServletResponse resp) {
             super.doGet(req, resp);
@@ -47,6 +57,7 @@ class LoginServletTest {
     private HttpSession session;
     private AccademicoService accademicoService;
     private PersonaleTAService personaleTAService;
+    private CredenzialiService credenzialiService;
 
     @BeforeEach
     void setUp() {
@@ -56,9 +67,11 @@ class LoginServletTest {
         session = mock(HttpSession.class);
         accademicoService = mock(AccademicoService.class);
         personaleTAService = mock(PersonaleTAService.class);
+        credenzialiService = mock(CredenzialiService.class);
 
         servlet.setAccademicoService(accademicoService);
         servlet.setPersonaleTAService(personaleTAService);
+        servlet.setCredenzialiService(credenzialiService);
 
         when(request.getContextPath()).thenReturn("/ctx");
         when(request.getSession(true)).thenReturn(session);
@@ -69,8 +82,7 @@ class LoginServletTest {
 
     @Test
     void testNoUserFound() throws IOException, ServletException {
-        when(accademicoService.trovaEmailPassUniclass(anyString(), anyString())).thenReturn(null);
-        when(personaleTAService.trovaEmailPass(anyString(), anyString())).thenReturn(null);
+        when(credenzialiService.trovaCredenziali("test@unisa.it")).thenReturn(null);
 
         servlet.doPost(request, response);
 
@@ -80,23 +92,50 @@ class LoginServletTest {
     @Test
     void testAccademicoAttivato() throws IOException, ServletException {
         Accademico acc = mock(Accademico.class);
-        when(acc.isAttivato()).thenReturn(true);
-        when(accademicoService.trovaEmailPassUniclass(anyString(), anyString())).thenReturn(acc);
-        when(personaleTAService.trovaEmailPass(anyString(), anyString())).thenReturn(null);
+        when(acc.getMatricola()).thenReturn("0512100001");
+        when(acc.getEmail()).thenReturn("test@unisa.it");
+        when(acc.getTipo()).thenReturn(Tipo.Studente);
+        Credenziali credenziali = new Credenziali("0512100001", Tipo.Studente, "hash", true);
+        when(credenzialiService.trovaCredenziali("test@unisa.it")).thenReturn(credenziali);
+        when(credenzialiService.autentica(credenziali, "pwd")).thenReturn(true);
+        when(accademicoService.trovaAccademicoUniClass("0512100001")).thenReturn(acc);
 
         servlet.doPost(request, response);
 
-        verify(session).setAttribute(eq("currentSessionUser"), eq(acc));
+        // In sessione va solo il principale, non l'entità
+        verify(session).setAttribute(eq("currentSessionUser"), eq(new Principale("0512100001", "test@unisa.it", Tipo.Studente)));
+        verify(session, never()).setAttribute(anyString(), eq(acc));
         verify(response).sendRedirect("/ctx/Home");
+        verify(personaleTAService, never()).trovaPersonale(anyLong());
+    }
+
+    @Test
+    void testAccademicoPasswordErrata() throws IOException, ServletException {
+        Credenziali credenziali = new Credenziali("0512100001", Tipo.Studente, "hash", true);
+        when(credenzialiService.trovaCredenziali("test@unisa.it")).thenReturn(credenziali);
+        when(credenzialiService.autentica(credenziali, "pwd")).thenReturn(false);
+
+        servlet.doPost(request, response);
+
+        verify(response).sendRedirect("/ctx/Login.jsp?action=error");
+        // L'entità completa non viene caricata se l'autenticazione fallisce
+        verify(accademicoService, never()).trovaAccademicoUniClass(anyString());
+    }
+
+    @Test
+    void testAccademicoAttivatoSenzaPassword() throws IOException, ServletException {
+        when(credenzialiService.trovaCredenziali("test@unisa.it"))
+                .thenReturn(new Credenziali("0512100001", Tipo.Studente, null, true));
+
+        servlet.doPost(request, response);
+
+        verify(response).sendRedirect("/ctx/Login.jsp?action=error");
     }
 
     @Test
     void testAccademicoNonAttivatoPasswordNull() throws IOException, ServletException {
-        Accademico acc = mock(Accademico.class);
-        when(acc.isAttivato()).thenReturn(false);
-        when(acc.getPassword()).thenReturn(null);
-        when(accademicoService.trovaEmailPassUniclass(anyString(), anyString())).thenReturn(acc);
-        when(personaleTAService.trovaEmailPass(anyString(), anyString())).thenReturn(null);
+        when(credenzialiService.trovaCredenziali("test@unisa.it"))
+                .thenReturn(new Credenziali("0512100001", Tipo.Studente, null, false));
 
         servlet.doPost(request, response);
 
@@ -106,20 +145,50 @@ class LoginServletTest {
     @Test
     void testPersonaleTAFound() throws IOException, ServletException {
         PersonaleTA ta = mock(PersonaleTA.class);
-        when(accademicoService.trovaEmailPassUniclass(anyString(), anyString())).thenReturn(null);
-        when(personaleTAService.trovaEmailPass(anyString(), anyString())).thenReturn(ta);
+        when(ta.getId()).thenReturn(7L);
+        Credenziali credenziali = new Credenziali("7", Tipo.PersonaleTA, "hash", true);
+        when(credenzialiService.trovaCredenziali("test@unisa.it")).thenReturn(credenziali);
+        when(credenzialiService.autentica(credenziali, "pwd")).thenReturn(true);
+        when(personaleTAService.trovaPersonale(7L)).thenReturn(ta);
 
         servlet.doPost(request, response);
 
-        verify(session).setAttribute(eq("currentSessionUser"), eq(ta));
+        verify(session).setAttribute(eq("currentSessionUser"), eq(new Principale("7", "test@unisa.it", Tipo.PersonaleTA)));
         verify(response).sendRedirect("/ctx/Home");
     }
 
+    @Test
+    void testPersonaleTARimossoDopoLaVerifica() throws IOException, ServletException {
+        Credenziali credenziali = new Credenziali("7", Tipo.PersonaleTA, "hash", true);
+        when(credenzialiService.trovaCredenziali("test@unisa.it")).thenReturn(credenziali);
+        when(credenzialiService.autentica(credenziali, "pwd")).thenReturn(true);
+        when(personaleTAService.trovaPersonale(7L)).thenReturn(null);
+
+        servlet.doPost(request, response);
+
+        verify(response).sendRedirect("/ctx/Login.jsp?action=error");
+        verify(session, never()).setAttribute(anyString(), any());
+    }
+
+    @Test
+    void testPoolHashingSaturo() throws IOException, ServletException {
+        Credenziali credenziali = new Credenziali("0512100001", Tipo.Studente, "hash", true);
+        when(credenzialiService.trovaCredenziali("test@unisa.it")).thenReturn(credenziali);
+        when(credenzialiService.autentica(credenziali, "pwd"))
+                .thenThrow(new ServizioSovraccaricoException("Troppe richieste di hashing in attesa"));
+
+        servlet.doPost(request, response);
+
+        verify(response).sendRedirect("/ctx/Login.jsp?action=busy");
+        verify(session, never()).setAttribute(anyString(), any());
+    }
+
     @Test
     void testDoGetDelegatesToDoPost() throws Exception {
         TestableLoginServlet servlet = new TestableLoginServlet();
         servlet.setAccademicoService(accademicoService);
         servlet.setPersonaleTAService(personaleTAService);
+        servlet.setCredenzialiService(credenzialiService);
 
         servlet.doGet(request, response);
 
@@ -160,13 +229,19 @@ class LoginServletTest {
         }
     }
 
+    @Test
+    void testGetCredenzialiServiceOriginal() {
+        try (MockedConstruction<CredenzialiService> mocked =
+                     Mockito.mockConstruction(CredenzialiService.class)) {
+            TestableLoginServlet s = new TestableLoginServlet();
+            assertNotNull(s.getCredenzialiService());
+        }
+    }
+
     @Test
     void testAccademicoNonAttivatoPasswordNonNulla() throws IOException, ServletException {
-        Accademico acc = mock(Accademico.class);
-        when(acc.isAttivato()).thenReturn(false);
-        when(acc.getPassword()).thenReturn("hashedpwd");
-        when(accademicoService.trovaEmailPassUniclass(anyString(), anyString())).thenReturn(acc);
-        when(personaleTAService.trovaEmailPass(anyString(), anyString())).thenReturn(null);
+        when(credenzialiService.trovaCredenziali("test@unisa.it"))
+                .thenReturn(new Credenziali("0512100001", Tipo.Studente, "hash", false));
 
         servlet.doPost(request, response);
 
@@ -181,10 +256,10 @@ class LoginServletTest {
         when(request.getParameter("email")).thenReturn("test@unisa.it");
         when(request.getParameter("password")).thenReturn("pwd");
 
-        try (MockedConstruction<AccademicoService> mockedAcc = mockConstruction(AccademicoService.class,
-                (mock, context) -> when(mock.trovaEmailPassUniclass(anyString(), anyString())).thenReturn(null));
-             MockedConstruction<PersonaleTAService> mockedTA = mockConstruction(PersonaleTAService.class,
-                     (mock, context) -> when(mock.trovaEmailPass(anyString(), anyString())).thenReturn(null))) {
+        try (MockedConstruction<AccademicoService> mockedAcc = mockConstruction(AccademicoService.class);
+             MockedConstruction<PersonaleTAService> mockedTA = mockConstruction(PersonaleTAService.class);
+             MockedConstruction<CredenzialiService> mockedCred = mockConstruction(CredenzialiService.class,
+                     (mock, context) -> when(mock.trovaCredenziali(anyString())).thenReturn(null))) {
 
             LoginServlet s = new LoginServlet(); // non settiamo i service
             s.doPost(request, response);
@@ -192,6 +267,7 @@ class LoginServletTest {
             verify(response).sendRedirect("/ctx/Login.jsp?action=error");
             assertEquals(1, mockedAcc.constructed().size());
             assertEquals(1, mockedTA.constructed().size());
+            assertEquals(1, mockedCred.constructed().size());
         }
     }
     @Test
@@ -201,10 +277,10 @@ class LoginServletTest {
         when(request.getParameter("password")).thenReturn("pwd");
 
         // mock dei service che restituiscono null
-        try (MockedConstruction<AccademicoService> mockedAcc = mockConstruction(AccademicoService.class,
-                (mock, context) -> when(mock.trovaEmailPassUniclass(anyString(), anyString())).thenReturn(null));
-             MockedConstruction<PersonaleTAService> mockedTA = mockConstruction(PersonaleTAService.class,
-                     (mock, context) -> when(mock.trovaEmailPass(anyString(), anyString())).thenReturn(null))) {
+        try (MockedConstruction<AccademicoService> mockedAcc = mockConstruction(AccademicoService.class);
+             MockedConstruction<PersonaleTAService> mockedTA = mockConstruction(PersonaleTAService.class);
+             MockedConstruction<CredenzialiService> mockedCred = mockConstruction(CredenzialiService.class,
+                     (mock, context) -> when(mock.trovaCredenziali(anyString())).thenReturn(null))) {
 
             LoginServlet s = new LoginServlet();
 
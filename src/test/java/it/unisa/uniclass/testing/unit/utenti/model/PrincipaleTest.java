@@ -0,0 +1,70 @@
+package it.unisa.uniclass.testing.unit.utenti.model;
+
+import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Studente;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.model.Utente;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipaleTest {
+
+    @Test
+    void testDiAccademico() {
+        Studente studente = new Studente();
+        studente.setMatricola("0512100001");
+        studente.setEmail("studente@studenti.unisa.it");
+
+        Principale principale = Principale.di(studente);
+
+        assertEquals("0512100001", principale.getId());
+        assertEquals("studente@studenti.unisa.it", principale.getEmail());
+        assertEquals(Tipo.Studente, principale.getTipo());
+        assertFalse(principale.isPersonaleTA());
+    }
+
+    @Test
+    void testDiPersonaleTA() {
+        PersonaleTA ta = new PersonaleTA();
+        ta.setEmail("ta@unisa.it");
+
+        Principale principale = Principale.di(ta);
+
+        assertEquals("0", principale.getId());
+        assertEquals(Tipo.PersonaleTA, principale.getTipo());
+        assertTrue(principale.isPersonaleTA());
+    }
+
+    @Test
+    void testDiUtenteNonSupportato() {
+        assertThrows(IllegalArgumentException.class, () -> Principale.di(new Utente()));
+    }
+
+    @Test
+    void testEqualsHashCodeEToString() {
+        Principale a = new Principale("7", "ta@unisa.it", Tipo.PersonaleTA);
+        Principale b = new Principale("7", "altra@unisa.it", Tipo.PersonaleTA);
+        Principale c = new Principale("7", "ta@unisa.it", Tipo.Studente);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, c);
+        assertNotEquals(a, null);
+        assertTrue(a.toString().contains("ta@unisa.it"));
+    }
+
+    @Test
+    void testDimensioneSerializzata() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new Principale("0512100001", "studente@studenti.unisa.it", Tipo.Studente));
+        }
+        // Il principale resta di poche centinaia di byte, qualunque sia il grafo dell'entità
+        assertTrue(bytes.size() < 512, "dimensione: " + bytes.size());
+    }
+}
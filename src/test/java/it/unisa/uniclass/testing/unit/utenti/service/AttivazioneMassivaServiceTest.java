@@ -0,0 +1,161 @@
+package it.unisa.uniclass.testing.unit.utenti.service;
+
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+import it.unisa.uniclass.common.security.EsecutoreHashing;
+import it.unisa.uniclass.utenti.model.EsitoAttivazione;
+import it.unisa.uniclass.utenti.model.EsitoAttivazione.Stato;
+import it.unisa.uniclass.utenti.model.RigaAttivazione;
+import it.unisa.uniclass.utenti.model.StatoAttivazione;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.AttivazioneMassivaService;
+import it.unisa.uniclass.utenti.service.dao.AccademicoRemote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test d'unità per la classe AttivazioneMassivaService.
+ * Verifica la lettura del CSV, il controllo delle righe e l'esito di ognuna.
+ */
+@DisplayName("Test per la classe AttivazioneMassivaService")
+public class AttivazioneMassivaServiceTest {
+
+    private AccademicoRemote dao;
+    private EsecutoreHashing esecutore;
+    private AttivazioneMassivaService service;
+    private List<List<EsitoAttivazione>> lotti;
+
+    @BeforeEach
+    void setUp() {
+        dao = mock(AccademicoRemote.class);
+        esecutore = mock(EsecutoreHashing.class);
+        service = new AttivazioneMassivaService(dao);
+        service.setEsecutore(esecutore);
+        lotti = new ArrayList<>();
+        when(esecutore.hashTutte(anyList())).thenAnswer(invocation -> {
+            List<String> password = invocation.getArgument(0);
+            return password.stream().map(p -> "hash-" + p).toList();
+        });
+    }
+
+    private static List<Stato> stati(List<List<EsitoAttivazione>> lotti) {
+        return lotti.stream().flatMap(List::stream).map(EsitoAttivazione::stato).toList();
+    }
+
+    @Test
+    @DisplayName("leggiCsv salta intestazione e righe vuote e accetta il punto e virgola")
+    void testLeggiCsv() throws Exception {
+        String csv = "email,matricola,tipo\n"
+                + "a@studenti.unisa.it,0512100001,Studente\n"
+                + "\n"
+                + "b@unisa.it;0512100002;Docente\n"
+                + "c@unisa.it,0512100003,PersonaleTA\n"
+                + "d@unisa.it\n";
+
+        List<RigaAttivazione> righe = AttivazioneMassivaService.leggiCsv(new BufferedReader(new StringReader(csv)));
+
+        assertEquals(4, righe.size());
+        assertEquals(new RigaAttivazione(2, "a@studenti.unisa.it", "0512100001", Tipo.Studente), righe.get(0));
+        assertEquals(new RigaAttivazione(4, "b@unisa.it", "0512100002", Tipo.Docente), righe.get(1));
+        assertNull(righe.get(2).tipo());
+        assertNull(righe.get(3).matricola());
+    }
+
+    @Test
+    @DisplayName("leggiCsv rifiuta un file oltre il numero massimo di righe")
+    void testLeggiCsvTroppeRighe() {
+        String csv = "a@unisa.it,1,Studente\n".repeat(AttivazioneMassivaService.MASSIMO_RIGHE + 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> AttivazioneMassivaService.leggiCsv(new BufferedReader(new StringReader(csv))));
+    }
+
+    @Test
+    @DisplayName("attiva controlla tutte le righe con una query e un UPDATE per lotto")
+    void testAttiva() {
+        List<RigaAttivazione> righe = List.of(
+                new RigaAttivazione(1, "a@unisa.it", "1", Tipo.Studente),
+                new RigaAttivazione(2, "b@unisa.it", "2", Tipo.Studente),
+                new RigaAttivazione(3, "c@unisa.it", "3", Tipo.Docente),
+                new RigaAttivazione(4, "d@unisa.it", "9", Tipo.Studente),
+                new RigaAttivazione(5, "x@unisa.it", "5", Tipo.Studente),
+                new RigaAttivazione(6, "a@unisa.it", "1", Tipo.Studente),
+                new RigaAttivazione(7, null, "7", Tipo.Studente));
+        when(dao.trovaStatoEmail(anyList())).thenReturn(List.of(
+                new StatoAttivazione("1", "a@unisa.it", Tipo.Studente, false),
+                new StatoAttivazione("2", "b@unisa.it", Tipo.Studente, true),
+                new StatoAttivazione("3", "c@unisa.it", Tipo.Studente, false),
+                new StatoAttivazione("4", "d@unisa.it", Tipo.Studente, false)));
+        when(dao.attivaAccademici(anyList(), anyList())).thenReturn(List.of("1"));
+
+        assertEquals(1, service.attiva(righe, lotti::add));
+
+        assertEquals(List.of(Stato.ATTIVATO, Stato.GIA_ATTIVO, Stato.TIPO_ERRATO, Stato.NON_TROVATO,
+                Stato.NON_TROVATO, Stato.DUPLICATO, Stato.RIGA_NON_VALIDA), stati(lotti));
+        // La password generata compare solo nell'esito dell'accademico attivato, ed è quella di cui è salvato l'hash
+        List<EsitoAttivazione> esiti = lotti.get(0);
+        assertNotNull(esiti.get(0).password());
+        assertTrue(esiti.subList(1, esiti.size()).stream().allMatch(esito -> esito.password() == null));
+        verify(dao).attivaAccademici(anyList(), eq(List.of("hash-" + esiti.get(0).password())));
+        assertFalse(esiti.get(0).toString().contains(esiti.get(0).password()));
+        verify(dao, times(1)).trovaStatoEmail(List.of("a@unisa.it", "b@unisa.it", "c@unisa.it", "d@unisa.it", "x@unisa.it"));
+        verify(dao, times(1)).attivaAccademici(eq(List.of("1")), anyList());
+        verify(esecutore, times(1)).hashTutte(anyList());
+    }
+
+    @Test
+    @DisplayName("le righe vengono elaborate e consegnate a lotti")
+    void testLotti() {
+        int totale = AttivazioneMassivaService.DIMENSIONE_LOTTO + 10;
+        List<RigaAttivazione> righe = new ArrayList<>();
+        for (int i = 0; i < totale; i++) {
+            righe.add(new RigaAttivazione(i + 1, i + "@unisa.it", String.valueOf(i), Tipo.Studente));
+        }
+        when(dao.trovaStatoEmail(anyList())).thenAnswer(invocation -> {
+            List<String> emails = invocation.getArgument(0);
+            return emails.stream().map(e -> new StatoAttivazione(e.substring(0, e.indexOf('@')), e, Tipo.Studente, true)).toList();
+        });
+        when(dao.disattivaAccademici(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(totale, service.disattiva(righe, lotti::add));
+
+        assertEquals(2, lotti.size());
+        assertEquals(AttivazioneMassivaService.DIMENSIONE_LOTTO, lotti.get(0).size());
+        assertEquals(10, lotti.get(1).size());
+        assertTrue(stati(lotti).stream().allMatch(Stato.DISATTIVATO::equals));
+        verify(dao, times(2)).trovaStatoEmail(anyList());
+        verify(dao, times(2)).disattivaAccademici(anyList());
+    }
+
+    @Test
+    @DisplayName("con il pool di hashing saturo le attivazioni vengono rinviate")
+    void testAttivaPoolSaturo() {
+        when(dao.trovaStatoEmail(anyList())).thenReturn(List.of(new StatoAttivazione("1", "a@unisa.it", Tipo.Studente, false)));
+        when(esecutore.hashTutte(anyList())).thenThrow(new ServizioSovraccaricoException("saturo", null));
+
+        assertEquals(0, service.attiva(List.of(new RigaAttivazione(1, "a@unisa.it", "1", Tipo.Studente)), lotti::add));
+
+        assertEquals(List.of(Stato.RINVIATO), stati(lotti));
+        verify(dao, never()).attivaAccademici(anyList(), anyList());
+    }
+
+    @Test
+    @DisplayName("disattiva non tocca gli accademici già disattivati")
+    void testDisattivaGiaDisattivo() {
+        when(dao.trovaStatoEmail(anyList())).thenReturn(List.of(new StatoAttivazione("1", "a@unisa.it", Tipo.Studente, false)));
+
+        assertEquals(0, service.disattiva(List.of(new RigaAttivazione(1, "a@unisa.it", "1", Tipo.Studente)), lotti::add));
+
+        assertEquals(List.of(Stato.GIA_DISATTIVO), stati(lotti));
+        verify(dao, never()).disattivaAccademici(anyList());
+    }
+}
@@ -0,0 +1,105 @@
+package it.unisa.uniclass.testing.unit.utenti.service;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.CacheUtenti;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test d'unità per la classe CacheUtenti.
+ * Verifica capacità, scadenza delle voci e invalidazione dopo una scrittura.
+ */
+@DisplayName("Test per la classe CacheUtenti")
+public class CacheUtentiTest {
+
+    private AtomicLong adesso;
+    private CacheUtenti cache;
+
+    @BeforeEach
+    void setUp() {
+        adesso = new AtomicLong(1_000);
+        cache = new CacheUtenti(2, 100, adesso::get);
+    }
+
+    private static Accademico accademico(String matricola) {
+        Accademico accademico = new Accademico();
+        accademico.setMatricola(matricola);
+        return accademico;
+    }
+
+    @Test
+    @DisplayName("le chiavi distinguono accademici e personale TA")
+    void testChiavi() {
+        assertEquals("acc:7", CacheUtenti.chiave(new Principale("7", "a@unisa.it", Tipo.Docente)));
+        assertEquals("ta:7", CacheUtenti.chiave(new Principale("7", "t@unisa.it", Tipo.PersonaleTA)));
+        assertEquals("acc:7", CacheUtenti.chiave(accademico("7")));
+        assertEquals("ta:0", CacheUtenti.chiave(new PersonaleTA()));
+    }
+
+    @Test
+    @DisplayName("trova restituisce l'utente pubblicato e conta hit e miss")
+    void testTrovaEMetti() {
+        Accademico a = accademico("1");
+        assertNull(cache.trova("acc:1"));
+
+        cache.metti("acc:1", a, cache.versione());
+
+        assertSame(a, cache.trova("acc:1"));
+        assertEquals(1, cache.getHit());
+        assertEquals(1, cache.getMiss());
+    }
+
+    @Test
+    @DisplayName("una voce scade dopo la durata configurata")
+    void testScadenza() {
+        cache.metti("acc:1", accademico("1"), cache.versione());
+
+        adesso.addAndGet(100);
+
+        assertNull(cache.trova("acc:1"));
+        assertEquals(0, cache.getDimensione());
+    }
+
+    @Test
+    @DisplayName("oltre la capacità viene scartato l'utente usato meno di recente")
+    void testCapacita() {
+        cache.metti("acc:1", accademico("1"), cache.versione());
+        cache.metti("acc:2", accademico("2"), cache.versione());
+        cache.trova("acc:1");
+        cache.metti("acc:3", accademico("3"), cache.versione());
+
+        assertEquals(2, cache.getDimensione());
+        assertNotNull(cache.trova("acc:1"));
+        assertNull(cache.trova("acc:2"));
+    }
+
+    @Test
+    @DisplayName("invalida scarta l'utente e un caricamento precedente non viene pubblicato")
+    void testInvalida() {
+        Accademico a = accademico("1");
+        cache.metti("acc:1", a, cache.versione());
+        long versioneLetta = cache.versione();
+
+        cache.invalida(a);
+        cache.metti("acc:1", a, versioneLetta);
+
+        assertNull(cache.trova("acc:1"));
+    }
+
+    @Test
+    @DisplayName("svuota scarta tutti gli utenti")
+    void testSvuota() {
+        cache.metti("ta:1", new PersonaleTA(), cache.versione());
+        cache.svuota();
+        assertEquals(0, cache.getDimensione());
+        assertSame(CacheUtenti.getIstanza(), CacheUtenti.getIstanza());
+    }
+}
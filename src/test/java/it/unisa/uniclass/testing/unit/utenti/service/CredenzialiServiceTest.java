@@ -0,0 +1,145 @@
+package it.unisa.uniclass.testing.unit.utenti.service;
+
+import it.unisa.uniclass.common.exceptions.ServizioSovraccaricoException;
+import it.unisa.uniclass.common.security.CredentialSecurity;
+import it.unisa.uniclass.common.security.EsecutoreHashing;
+import it.unisa.uniclass.utenti.model.Credenziali;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.CredenzialiService;
+import it.unisa.uniclass.utenti.service.dao.CredenzialiRemote;
+import jakarta.persistence.NoResultException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CredenzialiServiceTest {
+
+    private EsecutoreHashing esecutore;
+
+    @BeforeEach
+    void setUp() {
+        esecutore = new EsecutoreHashing(1, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        esecutore.chiudi();
+    }
+
+    // Hash SHA-256 senza sale, come quelli salvati prima di PBKDF2
+    private static String sha256(String password) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testTrovaCredenziali_OK() {
+        CredenzialiRemote dao = mock(CredenzialiRemote.class);
+        Credenziali expected = new Credenziali("0512100001", Tipo.Studente, "hash", true);
+        when(dao.trovaCredenziali("a@unisa.it")).thenReturn(expected);
+
+        CredenzialiService service = new CredenzialiService(dao);
+
+        assertEquals(expected, service.trovaCredenziali("a@unisa.it"));
+    }
+
+    @Test
+    void testTrovaCredenziali_NoResult() {
+        CredenzialiRemote dao = mock(CredenzialiRemote.class);
+        when(dao.trovaCredenziali("a@unisa.it")).thenThrow(new NoResultException());
+
+        CredenzialiService service = new CredenzialiService(dao);
+
+        assertNull(service.trovaCredenziali("a@unisa.it"));
+    }
+
+    @Test
+    void testAutentica_PasswordCorretta() {
+        CredenzialiRemote dao = mock(CredenzialiRemote.class);
+        Credenziali credenziali = new Credenziali("1", Tipo.PersonaleTA, CredentialSecurity.hashPassword("segreta"), true);
+
+        CredenzialiService service = new CredenzialiService(dao);
+        service.setEsecutore(esecutore);
+
+        assertTrue(service.autentica(credenziali, "segreta"));
+        assertFalse(service.autentica(credenziali, "altra"));
+        // Un hash con le iterazioni correnti non viene ricalcolato
+        verify(dao, never()).aggiornaPassword(any(), anyString());
+    }
+
+    @Test
+    void testAutentica_SenzaPasswordSalvata() {
+        CredenzialiService service = new CredenzialiService(mock(CredenzialiRemote.class));
+        service.setEsecutore(esecutore);
+
+        assertFalse(service.autentica(new Credenziali("0512100001", Tipo.Studente, null, false), "segreta"));
+        assertFalse(service.autentica(null, "segreta"));
+    }
+
+    @Test
+    void testAutentica_EmailSconosciutaVerificaUnHashFittizio() {
+        EsecutoreHashing conteggio = mock(EsecutoreHashing.class);
+        CredenzialiService service = new CredenzialiService(mock(CredenzialiRemote.class));
+        service.setEsecutore(conteggio);
+
+        assertFalse(service.autentica(null, "segreta"));
+
+        // Stesso costo di una verifica reale, con un hash PBKDF2 e le iterazioni configurate
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(conteggio).verifica(eq("segreta"), hash.capture());
+        assertTrue(hash.getValue().startsWith("pbkdf2-sha256$" + CredentialSecurity.getIterazioni() + "$"));
+    }
+
+    @Test
+    void testAutentica_RehashDellHashLegacy() throws Exception {
+        CredenzialiRemote dao = mock(CredenzialiRemote.class);
+        Credenziali credenziali = new Credenziali("0512100001", Tipo.Docente, sha256("segreta"), true);
+
+        CredenzialiService service = new CredenzialiService(dao);
+        service.setEsecutore(esecutore);
+
+        assertTrue(service.autentica(credenziali, "segreta"));
+
+        ArgumentCaptor<String> nuovoHash = ArgumentCaptor.forClass(String.class);
+        verify(dao).aggiornaPassword(eq(credenziali), nuovoHash.capture());
+        assertTrue(nuovoHash.getValue().startsWith("pbkdf2-sha256$"));
+        assertTrue(CredentialSecurity.verificaPassword("segreta", nuovoHash.getValue()));
+    }
+
+    @Test
+    void testAutentica_PasswordLegacyErrataNonRicalcolata() throws Exception {
+        CredenzialiRemote dao = mock(CredenzialiRemote.class);
+        CredenzialiService service = new CredenzialiService(dao);
+        service.setEsecutore(esecutore);
+
+        assertFalse(service.autentica(new Credenziali("0512100001", Tipo.Docente, sha256("segreta"), true), "altra"));
+        verify(dao, never()).aggiornaPassword(any(), anyString());
+    }
+
+    @Test
+    void testAutentica_RehashRimandatoSePoolSaturo() throws Exception {
+        CredenzialiRemote dao = mock(CredenzialiRemote.class);
+        EsecutoreHashing saturo = mock(EsecutoreHashing.class);
+        when(saturo.verifica("segreta", sha256("segreta"))).thenReturn(true);
+        when(saturo.hash("segreta")).thenThrow(new ServizioSovraccaricoException("Troppe richieste di hashing in attesa"));
+
+        CredenzialiService service = new CredenzialiService(dao);
+        service.setEsecutore(saturo);
+
+        assertTrue(service.autentica(new Credenziali("0512100001", Tipo.Docente, sha256("segreta"), true), "segreta"));
+        verify(dao, never()).aggiornaPassword(any(), anyString());
+    }
+
+    @Test
+    void testIsPersonaleTA() {
+        assertTrue(new Credenziali("1", Tipo.PersonaleTA, "hash", true).isPersonaleTA());
+        assertFalse(new Credenziali("0512100001", Tipo.Docente, "hash", true).isPersonaleTA());
+    }
+}
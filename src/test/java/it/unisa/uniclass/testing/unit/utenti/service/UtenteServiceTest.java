@@ -2,9 +2,14 @@ package it.unisa.uniclass.testing.unit.utenti.service;
 
 import it.unisa.uniclass.common.exceptions.AuthenticationException;
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Credenziali;
 import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Principale;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.model.Utente;
 import it.unisa.uniclass.utenti.service.AccademicoService;
+import it.unisa.uniclass.utenti.service.CacheUtenti;
+import it.unisa.uniclass.utenti.service.CredenzialiService;
 import it.unisa.uniclass.utenti.service.PersonaleTAService;
 import it.unisa.uniclass.utenti.service.UtenteService;
 import it.unisa.uniclass.testing.utils.TestUtils; // Utility per dati dinamici
@@ -27,6 +32,9 @@ class UtenteServiceTest {
         public AccademicoService exposeAccademicoService() {
             return super.getAccademicoService();
         }
+        public CredenzialiService exposeCredenzialiService() {
+            return super.getCredenzialiService();
+        }
     }
 
     @Mock
@@ -35,6 +43,9 @@ class UtenteServiceTest {
     @Mock
     private AccademicoService accademicoService;
 
+    @Mock
+    private CredenzialiService credenzialiService;
+
     private UtenteService utenteService;
 
     @BeforeEach
@@ -43,6 +54,14 @@ class UtenteServiceTest {
         utenteService = new UtenteService();
         utenteService.setPersonaleTAService(personaleTAService);
         utenteService.setAccademicoService(accademicoService);
+        utenteService.setCredenzialiService(credenzialiService);
+        CacheUtenti.getIstanza().svuota();
+        // L'hashing è verificato in CredenzialiServiceTest: qui la password salvata è confrontata così com'è
+        when(credenzialiService.autentica(any(), any())).thenAnswer(invocation -> {
+            Credenziali credenziali = invocation.getArgument(0);
+            String password = invocation.getArgument(1);
+            return credenziali != null && credenziali.password() != null && credenziali.password().equals(password);
+        });
     }
 
     // --- retrieveByEmail ---
@@ -90,7 +109,9 @@ class UtenteServiceTest {
         pta.setEmail("pta@unisa.it");
         pta.setPassword(dynamicPassword); // Rimosso hardcoding
 
-        when(personaleTAService.trovaEmail("pta@unisa.it")).thenReturn(pta);
+        when(credenzialiService.trovaCredenziali("pta@unisa.it"))
+                .thenReturn(new Credenziali("3", Tipo.PersonaleTA, dynamicPassword, true));
+        when(personaleTAService.trovaPersonale(3L)).thenReturn(pta);
 
         Utente result = utenteService.retrieveByUserAndPassword("pta@unisa.it", dynamicPassword);
         assertNotNull(result);
@@ -104,8 +125,9 @@ class UtenteServiceTest {
         acc.setEmail("acc@unisa.it");
         acc.setPassword(dynamicPassword); // Rimosso hardcoding
 
-        when(personaleTAService.trovaEmail("acc@unisa.it")).thenReturn(null);
-        when(accademicoService.trovaEmailUniClass("acc@unisa.it")).thenReturn(acc);
+        when(credenzialiService.trovaCredenziali("acc@unisa.it"))
+                .thenReturn(new Credenziali("0512100001", Tipo.Studente, dynamicPassword, true));
+        when(accademicoService.trovaAccademicoUniClass("0512100001")).thenReturn(acc);
 
         Utente result = utenteService.retrieveByUserAndPassword("acc@unisa.it", dynamicPassword);
         assertNotNull(result);
@@ -117,20 +139,18 @@ class UtenteServiceTest {
         String correctPassword = TestUtils.generateTestPassword();
         String wrongPassword = correctPassword + "_WRONG";
 
-        PersonaleTA pta = new PersonaleTA();
-        pta.setEmail("pta@unisa.it");
-        pta.setPassword(correctPassword);
-
-        when(personaleTAService.trovaEmail("pta@unisa.it")).thenReturn(pta);
+        when(credenzialiService.trovaCredenziali("pta@unisa.it"))
+                .thenReturn(new Credenziali("3", Tipo.PersonaleTA, correctPassword, true));
 
         assertThrows(AuthenticationException.class, () ->
                 utenteService.retrieveByUserAndPassword("pta@unisa.it", wrongPassword));
+        // L'entità completa non viene caricata se l'autenticazione fallisce
+        verify(personaleTAService, never()).trovaPersonale(anyLong());
     }
 
     @Test
     void testRetrieveByUserAndPassword_NessunoTrovato() throws AuthenticationException {
-        when(personaleTAService.trovaEmail("unknown@unisa.it")).thenReturn(null);
-        when(accademicoService.trovaEmailUniClass("unknown@unisa.it")).thenReturn(null);
+        when(credenzialiService.trovaCredenziali("unknown@unisa.it")).thenReturn(null);
 
         Utente result = utenteService.retrieveByUserAndPassword("unknown@unisa.it", "any");
         assertNull(result);
@@ -158,7 +178,8 @@ class UtenteServiceTest {
 
     @Test
     void testRetrieveByUserAndPassword_NoResultException() throws AuthenticationException {
-        when(personaleTAService.trovaEmail("x@unisa.it")).thenThrow(new NoResultException());
+        when(credenzialiService.trovaCredenziali("x@unisa.it")).thenReturn(new Credenziali("0512100001", Tipo.Studente, "pwd", true));
+        when(accademicoService.trovaAccademicoUniClass("0512100001")).thenThrow(new NoResultException());
 
         Utente result = utenteService.retrieveByUserAndPassword("x@unisa.it", "pwd");
         assertNull(result);
@@ -169,12 +190,8 @@ class UtenteServiceTest {
         String correctPassword = TestUtils.generateTestPassword();
         String wrongPassword = correctPassword + "_WRONG";
 
-        Accademico acc = new Accademico();
-        acc.setEmail("acc@unisa.it");
-        acc.setPassword(correctPassword);
-
-        when(personaleTAService.trovaEmail("acc@unisa.it")).thenReturn(null);
-        when(accademicoService.trovaEmailUniClass("acc@unisa.it")).thenReturn(acc);
+        when(credenzialiService.trovaCredenziali("acc@unisa.it"))
+                .thenReturn(new Credenziali("0512100001", Tipo.Studente, correctPassword, true));
 
         assertThrows(AuthenticationException.class, () ->
                 utenteService.retrieveByUserAndPassword("acc@unisa.it", wrongPassword));
@@ -188,4 +205,59 @@ class UtenteServiceTest {
             assertNotNull(result);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRetrieveByUserAndPassword_SenzaPasswordSalvata() {
+        when(credenzialiService.trovaCredenziali("acc@unisa.it"))
+                .thenReturn(new Credenziali("0512100001", Tipo.Studente, null, false));
+
+        assertThrows(AuthenticationException.class, () ->
+                utenteService.retrieveByUserAndPassword("acc@unisa.it", "any"));
+    }
+
+    @Test
+    void testLazyLoadingCredenzialiServiceSafe() {
+        try (MockedConstruction<CredenzialiService> mocked = mockConstruction(CredenzialiService.class)) {
+            TestableUtenteService service = new TestableUtenteService();
+            assertNotNull(service.exposeCredenzialiService());
+        }
+    }
+
+    // --- trovaUtente ---
+    @Test
+    void testTrovaUtente_AccademicoDallaCache() {
+        Accademico acc = new Accademico();
+        acc.setMatricola("0512100001");
+        Principale principale = new Principale("0512100001", "acc@unisa.it", Tipo.Studente);
+        when(accademicoService.trovaAccademicoUniClass("0512100001")).thenReturn(acc);
+
+        assertSame(acc, utenteService.trovaUtente(principale));
+        assertSame(acc, utenteService.trovaUtente(principale));
+
+        // La seconda richiesta è servita dalla cache
+        verify(accademicoService, times(1)).trovaAccademicoUniClass("0512100001");
+        verifyNoInteractions(personaleTAService);
+    }
+
+    @Test
+    void testTrovaUtente_PersonaleTA() {
+        PersonaleTA pta = new PersonaleTA();
+        when(personaleTAService.trovaPersonale(7L)).thenReturn(pta);
+
+        assertSame(pta, utenteService.trovaUtente(new Principale("7", "pta@unisa.it", Tipo.PersonaleTA)));
+        verifyNoInteractions(accademicoService);
+    }
+
+    @Test
+    void testTrovaUtente_RimossoDopoIlLogin() {
+        when(accademicoService.trovaAccademicoUniClass("0512100001")).thenThrow(new NoResultException());
+
+        assertNull(utenteService.trovaUtente(new Principale("0512100001", "acc@unisa.it", Tipo.Studente)));
+        assertEquals(0, CacheUtenti.getIstanza().getDimensione());
+    }
+
+    @Test
+    void testTrovaUtente_Null() {
+        assertNull(utenteService.trovaUtente(null));
+    }
+}
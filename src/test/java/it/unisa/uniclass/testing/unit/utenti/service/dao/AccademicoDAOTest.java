@@ -1,8 +1,13 @@
 package it.unisa.uniclass.testing.unit.utenti.service.dao;
 
 import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.StatoAttivazione;
+import it.unisa.uniclass.utenti.model.Tipo;
 import it.unisa.uniclass.utenti.service.dao.AccademicoDAO;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceException;
@@ -127,4 +132,59 @@ class AccademicoDAOTest {
         assertTrue(a.isAttivato());
         verify(em).merge(a);
     }
+
+    @Test
+    void testTrovaStatoEmail() {
+        TypedQuery<StatoAttivazione> query = mock(TypedQuery.class);
+        StatoAttivazione stato = new StatoAttivazione("0512100001", "a@unisa.it", Tipo.Studente, false);
+        when(em.createNamedQuery(Accademico.TROVA_STATO_EMAIL, StatoAttivazione.class)).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(stato));
+
+        assertEquals(List.of(stato), dao.trovaStatoEmail(List.of("a@unisa.it", "b@unisa.it")));
+        verify(query).setParameter("emails", List.of("a@unisa.it", "b@unisa.it"));
+    }
+
+    @Test
+    void testAttivaAccademiciUnSoloUpdate() {
+        Query query = mock(Query.class);
+        Cache cache = mockCache();
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of("0512100001"));
+
+        List<String> attivati = dao.attivaAccademici(List.of("0512100001", "0512100002"), List.of("h1", "h2"));
+
+        assertEquals(List.of("0512100001"), attivati);
+        verify(em, times(1)).createNativeQuery(argThat((String sql) ->
+                sql.contains("(VALUES (?1, ?2), (?3, ?4))") && sql.contains("RETURNING")));
+        verify(query).setParameter(1, "0512100001");
+        verify(query).setParameter(4, "h2");
+        verify(cache).evict(Accademico.class);
+    }
+
+    @Test
+    void testDisattivaAccademici() {
+        Query query = mock(Query.class);
+        Cache cache = mockCache();
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of("0512100001", "0512100002"));
+
+        assertEquals(2, dao.disattivaAccademici(List.of("0512100001", "0512100002")).size());
+        verify(em).createNativeQuery(argThat((String sql) -> sql.contains("matricola IN (?1, ?2)")));
+        verify(cache).evict(Accademico.class);
+    }
+
+    @Test
+    void testAttivaDisattivaSenzaMatricole() {
+        assertTrue(dao.attivaAccademici(List.of(), List.of()).isEmpty());
+        assertTrue(dao.disattivaAccademici(List.of()).isEmpty());
+        verify(em, never()).createNativeQuery(anyString());
+    }
+
+    private Cache mockCache() {
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        Cache cache = mock(Cache.class);
+        when(em.getEntityManagerFactory()).thenReturn(emf);
+        when(emf.getCache()).thenReturn(cache);
+        return cache;
+    }
 }
@@ -0,0 +1,115 @@
+package it.unisa.uniclass.testing.unit.utenti.service.dao;
+
+import it.unisa.uniclass.utenti.model.Accademico;
+import it.unisa.uniclass.utenti.model.Credenziali;
+import it.unisa.uniclass.utenti.model.PersonaleTA;
+import it.unisa.uniclass.utenti.model.Tipo;
+import it.unisa.uniclass.utenti.service.dao.CredenzialiDAO;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CredenzialiDAOTest {
+
+    private EntityManager em;
+    private Query query;
+    private CredenzialiDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        em = mock(EntityManager.class);
+        query = mock(Query.class);
+
+        dao = new CredenzialiDAO();
+
+        // Iniettiamo il mock dell'EntityManager via reflection
+        try {
+            var field = CredenzialiDAO.class.getDeclaredField("emUniclass");
+            field.setAccessible(true);
+            field.set(dao, em);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        when(em.createNamedQuery(Accademico.TROVA_CREDENZIALI)).thenReturn(query);
+        when(query.setParameter(1, "x@unisa.it")).thenReturn(query);
+    }
+
+    @Test
+    void testTrovaCredenziali_Accademico() {
+        Object[] riga = {false, "0512100001", Tipo.Docente.ordinal(), "hash", true};
+        when(query.getResultList()).thenReturn(Collections.singletonList(riga));
+
+        Credenziali credenziali = dao.trovaCredenziali("x@unisa.it");
+
+        assertEquals(new Credenziali("0512100001", Tipo.Docente, "hash", true), credenziali);
+        verify(query).setParameter(1, "x@unisa.it");
+    }
+
+    @Test
+    void testTrovaCredenziali_PersonaleTA() {
+        Object[] riga = {true, "7", null, "hash", true};
+        when(query.getResultList()).thenReturn(Collections.singletonList(riga));
+
+        Credenziali credenziali = dao.trovaCredenziali("x@unisa.it");
+
+        assertTrue(credenziali.isPersonaleTA());
+        assertEquals("7", credenziali.id());
+    }
+
+    @Test
+    void testTrovaCredenziali_NonAttivato() {
+        Object[] riga = {false, "0512100001", Tipo.Studente.ordinal(), null, null};
+        when(query.getResultList()).thenReturn(Collections.singletonList(riga));
+
+        Credenziali credenziali = dao.trovaCredenziali("x@unisa.it");
+
+        assertFalse(credenziali.attivato());
+        assertNull(credenziali.password());
+    }
+
+    @Test
+    void testAggiornaPassword_Accademico() {
+        Query update = mock(Query.class);
+        when(em.createNamedQuery(Accademico.AGGIORNA_PASSWORD)).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(1);
+
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        Cache cache = mock(Cache.class);
+        when(em.getEntityManagerFactory()).thenReturn(emf);
+        when(emf.getCache()).thenReturn(cache);
+
+        assertTrue(dao.aggiornaPassword(new Credenziali("0512100001", Tipo.Docente, "vecchio", true), "nuovo"));
+        verify(update).setParameter(1, "nuovo");
+        verify(update).setParameter(2, "0512100001");
+        verify(update).setParameter(3, "vecchio");
+        // L'UPDATE nativo non aggiorna la cache condivisa: l'accademico ne viene rimosso
+        verify(cache).evict(Accademico.class, "0512100001");
+    }
+
+    @Test
+    void testAggiornaPassword_PersonaleTAGiaModificato() {
+        Query update = mock(Query.class);
+        when(em.createNamedQuery(PersonaleTA.AGGIORNA_PASSWORD)).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(0);
+
+        assertFalse(dao.aggiornaPassword(new Credenziali("7", Tipo.PersonaleTA, "vecchio", true), "nuovo"));
+        verify(update).setParameter(2, 7L);
+        verify(em, never()).getEntityManagerFactory();
+    }
+
+    @Test
+    void testTrovaCredenziali_NessunRisultato() {
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+
+        assertNull(dao.trovaCredenziali("x@unisa.it"));
+    }
+}